@@ -0,0 +1,265 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.broker.cache;
+
+import com.linkedin.pinot.common.config.TableNameBuilder;
+import com.linkedin.pinot.common.metrics.BrokerGauge;
+import com.linkedin.pinot.common.metrics.BrokerMeter;
+import com.linkedin.pinot.common.metrics.BrokerMetrics;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.response.BrokerResponse;
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
+import com.linkedin.pinot.core.query.cache.ClockCache;
+import com.linkedin.pinot.routing.RoutingTable;
+import com.linkedin.pinot.routing.TimeBoundaryService;
+import java.util.HashSet;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The <code>BrokerResponseCache</code> class is a cache of the broker responses of repeated queries, stored as JSON.
+ * <p>The cache key is the normalized broker request plus the versions of the routing tables and the time boundary the
+ * query is executed with. Whenever the routing table gets rebuilt (segments added, removed or moved), an OFFLINE segment
+ * gets refreshed (new CRC in the segment ZK metadata) or the time boundary of a hybrid table moves, new queries get new
+ * keys and never hit the responses computed before the change.
+ * The entries keyed on outdated versions are never referenced again, so they are the first ones to be evicted.
+ * <p>Responses expire after a TTL. Since consuming segments keep changing without any routing table change, queries
+ * on realtime tables are only cached for the tables which opt in, with a separate (short) staleness budget.
+ */
+public class BrokerResponseCache extends ClockCache<BrokerResponseCache.Key, BrokerResponseCache.Entry> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BrokerResponseCache.class);
+
+  // Rough estimation of the per-entry overhead on the heap.
+  private static final long ENTRY_OVERHEAD_IN_BYTES = 128L;
+
+  private final RoutingTable _routingTable;
+  private final TimeBoundaryService _timeBoundaryService;
+  private final long _ttlMs;
+  private final Set<String> _realtimeTables;
+  private final long _realtimeTtlMs;
+  private final BrokerMetrics _brokerMetrics;
+
+  /**
+   * @param routingTable Routing table used to resolve the physical tables and their versions.
+   * @param timeBoundaryService Time boundary service for hybrid tables.
+   * @param maxSizeInBytes Maximum size of the cached responses.
+   * @param ttlMs Time to live of the responses of offline tables.
+   * @param realtimeTables Raw names of the realtime (or hybrid) tables whose responses can be cached.
+   * @param realtimeTtlMs Time to live of the responses of the realtime (or hybrid) tables, i.e. the staleness budget.
+   * @param brokerMetrics Broker metrics.
+   */
+  public BrokerResponseCache(@Nonnull RoutingTable routingTable, @Nonnull TimeBoundaryService timeBoundaryService,
+      long maxSizeInBytes, long ttlMs, @Nonnull Set<String> realtimeTables, long realtimeTtlMs,
+      @Nonnull BrokerMetrics brokerMetrics) {
+    super(maxSizeInBytes);
+    _routingTable = routingTable;
+    _timeBoundaryService = timeBoundaryService;
+    _ttlMs = ttlMs;
+    _realtimeTables = new HashSet<>(realtimeTables);
+    _realtimeTtlMs = realtimeTtlMs;
+    _brokerMetrics = brokerMetrics;
+    LOGGER.info("Initialized broker response cache with max size: {} bytes, TTL: {} ms, realtime tables: {}, "
+        + "realtime TTL: {} ms", maxSizeInBytes, ttlMs, realtimeTables, realtimeTtlMs);
+  }
+
+  /**
+   * Returns the cache key for the broker request, or <code>null</code> if the response of the request cannot be
+   * cached.
+   * <p>Should be called before the broker request gets processed, so that the key captures the routing state the
+   * query is executed with.
+   */
+  @Nullable
+  public Key getKey(@Nonnull BrokerRequest brokerRequest) {
+    // Trace info and debug options are specific to one request.
+    if (brokerRequest.isEnableTrace() || brokerRequest.isSetDebugOptions()) {
+      return null;
+    }
+
+    String tableName = brokerRequest.getQuerySource().getTableName();
+    String offlineTableName = TableNameBuilder.OFFLINE_TABLE_NAME_BUILDER.forTable(tableName);
+    if (!_routingTable.routingTableExists(offlineTableName)) {
+      offlineTableName = null;
+    }
+    String realtimeTableName = TableNameBuilder.REALTIME_TABLE_NAME_BUILDER.forTable(tableName);
+    if (!_routingTable.routingTableExists(realtimeTableName)) {
+      realtimeTableName = null;
+    }
+
+    long ttlMs;
+    if (realtimeTableName != null) {
+      if (!_realtimeTables.contains(TableNameBuilder.extractRawTableName(tableName))) {
+        return null;
+      }
+      ttlMs = _realtimeTtlMs;
+    } else if (offlineTableName != null) {
+      ttlMs = _ttlMs;
+    } else {
+      return null;
+    }
+    if (ttlMs <= 0) {
+      return null;
+    }
+
+    long offlineRoutingTableVersion = -1L;
+    String timeBoundaryValue = null;
+    if (offlineTableName != null) {
+      offlineRoutingTableVersion = _routingTable.getRoutingTableVersion(offlineTableName);
+      if (realtimeTableName != null) {
+        TimeBoundaryService.TimeBoundaryInfo timeBoundaryInfo =
+            _timeBoundaryService.getTimeBoundaryInfoFor(offlineTableName);
+        if (timeBoundaryInfo != null) {
+          timeBoundaryValue = timeBoundaryInfo.getTimeValue();
+        }
+      }
+    }
+    long realtimeRoutingTableVersion = -1L;
+    if (realtimeTableName != null) {
+      realtimeRoutingTableVersion = _routingTable.getRoutingTableVersion(realtimeTableName);
+    }
+
+    BrokerRequest normalizedRequest = brokerRequest.deepCopy();
+    normalizedRequest.unsetResponseFormat();
+    // Filter query ids are not stable across compilations of the same query.
+    RequestUtils.renumberFilterQueries(normalizedRequest);
+    return new Key(normalizedRequest, offlineRoutingTableVersion, realtimeRoutingTableVersion, timeBoundaryValue,
+        ttlMs);
+  }
+
+  /**
+   * Returns a new copy of the cached broker response for the given key, or <code>null</code> if there is no valid
+   * cached response.
+   */
+  @Nullable
+  public BrokerResponseNative get(@Nonnull Key key) {
+    String responseJson = null;
+    Entry entry = getValue(key);
+    if (entry != null) {
+      if (entry._expirationTimeMs > System.currentTimeMillis()) {
+        responseJson = entry._responseJson;
+      } else {
+        removeValue(key, entry);
+      }
+    }
+
+    BrokerResponseNative cachedResponse = null;
+    if (responseJson != null) {
+      try {
+        cachedResponse = BrokerResponseNative.fromJsonString(responseJson);
+      } catch (Exception e) {
+        LOGGER.warn("Caught exception while reading cached broker response, running the query", e);
+      }
+    }
+    if (cachedResponse != null) {
+      _brokerMetrics.addMeteredTableValue(key.getTableName(), BrokerMeter.BROKER_RESPONSE_CACHE_HITS, 1L);
+    } else {
+      _brokerMetrics.addMeteredTableValue(key.getTableName(), BrokerMeter.BROKER_RESPONSE_CACHE_MISSES, 1L);
+    }
+    return cachedResponse;
+  }
+
+  /**
+   * Puts the broker response into the cache. Responses with processing exceptions or missing server responses are not
+   * cached.
+   */
+  public void put(@Nonnull Key key, @Nonnull BrokerResponse brokerResponse) {
+    if (!(brokerResponse instanceof BrokerResponseNative)) {
+      return;
+    }
+    BrokerResponseNative brokerResponseNative = (BrokerResponseNative) brokerResponse;
+    if (brokerResponseNative.getExceptionsSize() != 0
+        || brokerResponseNative.getNumServersResponded() != brokerResponseNative.getNumServersQueried()) {
+      return;
+    }
+
+    String responseJson;
+    try {
+      responseJson = brokerResponseNative.toJsonString();
+    } catch (Exception e) {
+      LOGGER.warn("Caught exception while serializing broker response, skip caching it", e);
+      return;
+    }
+    long entrySizeInBytes = 2L * responseJson.length() + ENTRY_OVERHEAD_IN_BYTES;
+    putValue(key, new Entry(responseJson, System.currentTimeMillis() + key._ttlMs), entrySizeInBytes);
+  }
+
+  @Override
+  protected void updateGauges() {
+    _brokerMetrics.setValueOfGlobalGauge(BrokerGauge.BROKER_RESPONSE_CACHE_ENTRIES, getNumEntries());
+    _brokerMetrics.setValueOfGlobalGauge(BrokerGauge.BROKER_RESPONSE_CACHE_SIZE_IN_BYTES, getSizeInBytes());
+  }
+
+  public static final class Key {
+    private final BrokerRequest _normalizedRequest;
+    private final long _offlineRoutingTableVersion;
+    private final long _realtimeRoutingTableVersion;
+    private final String _timeBoundaryValue;
+    private final long _ttlMs;
+    private final int _hashCode;
+
+    private Key(BrokerRequest normalizedRequest, long offlineRoutingTableVersion, long realtimeRoutingTableVersion,
+        @Nullable String timeBoundaryValue, long ttlMs) {
+      _normalizedRequest = normalizedRequest;
+      _offlineRoutingTableVersion = offlineRoutingTableVersion;
+      _realtimeRoutingTableVersion = realtimeRoutingTableVersion;
+      _timeBoundaryValue = timeBoundaryValue;
+      _ttlMs = ttlMs;
+      int hashCode = normalizedRequest.hashCode();
+      hashCode = 31 * hashCode + (int) (offlineRoutingTableVersion ^ (offlineRoutingTableVersion >>> 32));
+      hashCode = 31 * hashCode + (int) (realtimeRoutingTableVersion ^ (realtimeRoutingTableVersion >>> 32));
+      hashCode = 31 * hashCode + (timeBoundaryValue != null ? timeBoundaryValue.hashCode() : 0);
+      _hashCode = hashCode;
+    }
+
+    String getTableName() {
+      return _normalizedRequest.getQuerySource().getTableName();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) o;
+      return _hashCode == that._hashCode && _offlineRoutingTableVersion == that._offlineRoutingTableVersion
+          && _realtimeRoutingTableVersion == that._realtimeRoutingTableVersion && (_timeBoundaryValue != null
+          ? _timeBoundaryValue.equals(that._timeBoundaryValue) : that._timeBoundaryValue == null)
+          && _normalizedRequest.equals(that._normalizedRequest);
+    }
+
+    @Override
+    public int hashCode() {
+      return _hashCode;
+    }
+  }
+
+  static final class Entry {
+    private final String _responseJson;
+    private final long _expirationTimeMs;
+
+    private Entry(String responseJson, long expirationTimeMs) {
+      _responseJson = responseJson;
+      _expirationTimeMs = expirationTimeMs;
+    }
+  }
+}
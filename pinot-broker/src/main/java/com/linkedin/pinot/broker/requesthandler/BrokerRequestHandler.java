@@ -20,9 +20,11 @@ import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import org.apache.commons.configuration.Configuration;
@@ -31,6 +33,7 @@ import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.google.common.base.Splitter;
+import com.linkedin.pinot.broker.cache.BrokerResponseCache;
 import com.linkedin.pinot.common.config.TableNameBuilder;
 import com.linkedin.pinot.common.exception.QueryException;
 import com.linkedin.pinot.common.metrics.BrokerMeter;
@@ -38,6 +41,7 @@ import com.linkedin.pinot.common.metrics.BrokerMetrics;
 import com.linkedin.pinot.common.metrics.BrokerQueryPhase;
 import com.linkedin.pinot.common.query.ReduceService;
 import com.linkedin.pinot.common.query.ReduceServiceRegistry;
+import com.linkedin.pinot.common.query.StreamingReducer;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.request.FilterOperator;
 import com.linkedin.pinot.common.request.FilterQuery;
@@ -87,6 +91,18 @@ public class BrokerRequestHandler {
   private static final String DEFAULT_BROKER_ID;
   public static final String BROKER_ID_CONFIG_KEY = "pinot.broker.id";
   private static final ResponseType DEFAULT_BROKER_RESPONSE_TYPE = ResponseType.BROKER_RESPONSE_TYPE_NATIVE;
+  // Broker response cache is disabled by default.
+  private static final String BROKER_RESPONSE_CACHE_SIZE_IN_BYTES_CONFIG = "pinot.broker.responseCache.sizeInBytes";
+  private static final String BROKER_RESPONSE_CACHE_TTL_MS_CONFIG = "pinot.broker.responseCache.ttlMs";
+  private static final long DEFAULT_BROKER_RESPONSE_CACHE_TTL_MS = 10 * 60 * 1000L;
+  // Raw names of the realtime (or hybrid) tables whose responses can be cached.
+  private static final String BROKER_RESPONSE_CACHE_REALTIME_TABLES_CONFIG =
+      "pinot.broker.responseCache.realtime.tables";
+  private static final String BROKER_RESPONSE_CACHE_REALTIME_TTL_MS_CONFIG =
+      "pinot.broker.responseCache.realtime.ttlMs";
+  private static final long DEFAULT_BROKER_RESPONSE_CACHE_REALTIME_TTL_MS = 5 * 1000L;
+  // Whether to deserialize and merge the server responses as they arrive instead of after all of them are gathered.
+  private static final String BROKER_STREAMING_REDUCE_CONFIG = "pinot.broker.reduce.streaming";
 
   static {
     String defaultBrokerId = "";
@@ -108,6 +124,8 @@ public class BrokerRequestHandler {
   private final int _queryResponseLimit;
   private final AtomicLong _requestIdGenerator;
   private final String _brokerId;
+  private final BrokerResponseCache _brokerResponseCache;
+  private final boolean _streamingReduce;
   // TODO: Currently only using RoundRobin selection. But, this can be allowed to be configured.
   private RoundRobinReplicaSelection _replicaSelection;
 
@@ -128,6 +146,22 @@ public class BrokerRequestHandler {
     LOGGER.info("Broker response limit is: " + _queryResponseLimit);
     LOGGER.info("Broker timeout is - " + _brokerTimeOutMs + " ms");
     LOGGER.info("Broker id: " + _brokerId);
+    _streamingReduce = config.getBoolean(BROKER_STREAMING_REDUCE_CONFIG, false);
+    LOGGER.info("Broker streaming reduce: " + _streamingReduce);
+
+    long responseCacheSizeInBytes = config.getLong(BROKER_RESPONSE_CACHE_SIZE_IN_BYTES_CONFIG, 0L);
+    if (responseCacheSizeInBytes > 0) {
+      Set<String> realtimeTables = new HashSet<>();
+      for (Object realtimeTable : config.getList(BROKER_RESPONSE_CACHE_REALTIME_TABLES_CONFIG)) {
+        realtimeTables.add(realtimeTable.toString());
+      }
+      _brokerResponseCache = new BrokerResponseCache(table, timeBoundaryService, responseCacheSizeInBytes,
+          config.getLong(BROKER_RESPONSE_CACHE_TTL_MS_CONFIG, DEFAULT_BROKER_RESPONSE_CACHE_TTL_MS), realtimeTables,
+          config.getLong(BROKER_RESPONSE_CACHE_REALTIME_TTL_MS_CONFIG, DEFAULT_BROKER_RESPONSE_CACHE_REALTIME_TTL_MS),
+          brokerMetrics);
+    } else {
+      _brokerResponseCache = null;
+    }
   }
 
   /**
@@ -189,6 +223,24 @@ public class BrokerRequestHandler {
         System.nanoTime() - compilationStartTime);
     _brokerMetrics.addMeteredTableValue(tableName, BrokerMeter.QUERIES, 1);
 
+    // Look up the broker response cache.
+    // NOTE: the cache key has to be computed before processing the broker request, which modifies the table name.
+    BrokerResponseCache.Key cacheKey = null;
+    if (_brokerResponseCache != null) {
+      cacheKey = _brokerResponseCache.getKey(brokerRequest);
+      if (cacheKey != null) {
+        BrokerResponse cachedResponse = _brokerResponseCache.get(cacheKey);
+        if (cachedResponse != null) {
+          long totalTimeMs =
+              TimeUnit.MILLISECONDS.convert(System.nanoTime() - compilationStartTime, TimeUnit.NANOSECONDS);
+          cachedResponse.setTimeUsedMs(totalTimeMs);
+          LOGGER.info("RequestId: {}, table: {}, totalTimeMs: {}, served from broker response cache, query: {}",
+              requestId, tableName, totalTimeMs, pql);
+          return cachedResponse;
+        }
+      }
+    }
+
     // Execute the query.
     long executionStartTime = System.nanoTime();
     ScatterGatherStats scatterGatherStats = new ScatterGatherStats();
@@ -199,6 +251,10 @@ public class BrokerRequestHandler {
     long totalTimeMs = TimeUnit.MILLISECONDS.convert(System.nanoTime() - compilationStartTime, TimeUnit.NANOSECONDS);
     brokerResponse.setTimeUsedMs(totalTimeMs);
 
+    if (cacheKey != null) {
+      _brokerResponseCache.put(cacheKey, brokerResponse);
+    }
+
     LOGGER.debug("Broker Response: {}", brokerResponse);
     // Table name might have been changed (with suffix _OFFLINE/_REALTIME appended).
     LOGGER.info("RequestId: {}, table: {}, totalTimeMs: {}, numDocsScanned: {}, numEntriesScannedInFilter: {}, "
@@ -454,6 +510,12 @@ public class BrokerRequestHandler {
       return BrokerResponseFactory.getStaticEmptyBrokerResponse(serverResponseType);
     }
 
+    if (_streamingReduce) {
+      // Step 3, 4 and 5: gather, deserialize and reduce the server responses as they arrive.
+      return gatherAndReduceServerResponses(originalBrokerRequest, offlineCompositeFuture, offlineTableName,
+          realtimeCompositeFuture, realtimeTableName, reduceService, scatterGatherStats, phaseTimes);
+    }
+
     // Step 3: gather response from the servers.
     int numServersQueried = 0;
     long gatherStartTime = System.nanoTime();
@@ -499,6 +561,101 @@ public class BrokerRequestHandler {
         reduceService.reduceOnDataTable(originalBrokerRequest, dataTableMap, _brokerMetrics);
     phaseTimes.addToReduceTime(System.nanoTime() - reduceStartTime);
 
+    return finishBrokerResponse(brokerResponse, originalTableName, processingExceptions, numServersQueried,
+        numServersResponded, phaseTimes);
+  }
+
+  /**
+   * Gather, deserialize and reduce the server responses for both OFFLINE and REALTIME table one at a time, as they
+   * arrive, so that only the final extraction and trimming is left once the last server responds.
+   *
+   * @return broker response.
+   */
+  @Nonnull
+  private BrokerResponse gatherAndReduceServerResponses(@Nonnull BrokerRequest originalBrokerRequest,
+      @Nullable CompositeFuture<ByteBuf> offlineCompositeFuture, @Nullable String offlineTableName,
+      @Nullable CompositeFuture<ByteBuf> realtimeCompositeFuture, @Nullable String realtimeTableName,
+      @Nonnull ReduceService reduceService, @Nonnull ScatterGatherStats scatterGatherStats,
+      @Nonnull PhaseTimes phaseTimes) {
+    StreamingReducer<?> reducer = reduceService.getStreamingReducer(originalBrokerRequest, _brokerMetrics);
+    List<ProcessingException> processingExceptions = new ArrayList<>();
+    int numServersQueried = 0;
+    int numServersResponded = 0;
+    if (offlineCompositeFuture != null) {
+      numServersQueried += offlineCompositeFuture.getNumFutures();
+      numServersResponded +=
+          gatherAndReduceServerResponses(offlineCompositeFuture, reducer, scatterGatherStats, phaseTimes, true,
+              offlineTableName, processingExceptions);
+    }
+    if (realtimeCompositeFuture != null) {
+      numServersQueried += realtimeCompositeFuture.getNumFutures();
+      numServersResponded +=
+          gatherAndReduceServerResponses(realtimeCompositeFuture, reducer, scatterGatherStats, phaseTimes, false,
+              realtimeTableName, processingExceptions);
+    }
+
+    long reduceStartTime = System.nanoTime();
+    BrokerResponse brokerResponse = reducer.getBrokerResponse();
+    phaseTimes.addToReduceTime(System.nanoTime() - reduceStartTime);
+
+    return finishBrokerResponse(brokerResponse, originalBrokerRequest.getQuerySource().getTableName(),
+        processingExceptions, numServersQueried, numServersResponded, phaseTimes);
+  }
+
+  /**
+   * Gather the responses of one composite future as they arrive, deserialize them and feed them to the reducer,
+   * append processing exceptions to the processing exception list passed in.
+   *
+   * @return number of servers responded.
+   */
+  private int gatherAndReduceServerResponses(@Nonnull CompositeFuture<ByteBuf> compositeFuture,
+      @Nonnull StreamingReducer<?> reducer, @Nonnull ScatterGatherStats scatterGatherStats,
+      @Nonnull PhaseTimes phaseTimes, boolean isOfflineTable, @Nonnull String tableName,
+      @Nonnull List<ProcessingException> processingExceptions) {
+    int numServersResponded = 0;
+    try {
+      long gatherStartTime = System.nanoTime();
+      ServerInstance serverInstance;
+      while ((serverInstance = compositeFuture.takeNextCompleted()) != null) {
+        long deserializationStartTime = System.nanoTime();
+        phaseTimes.addToGatherTime(deserializationStartTime - gatherStartTime);
+        ByteBuf response = compositeFuture.getResponse(serverInstance);
+        if (response != null) {
+          numServersResponded++;
+          if (!isOfflineTable) {
+            serverInstance = new ServerInstance(serverInstance.getHostname(), serverInstance.getPort(), 1);
+          }
+          DataTable dataTable = deserializeServerResponse(serverInstance, response, tableName, processingExceptions);
+          long reduceStartTime = System.nanoTime();
+          phaseTimes.addToDeserializationTime(reduceStartTime - deserializationStartTime);
+          if (dataTable != null) {
+            reducer.reduce(serverInstance, dataTable);
+            phaseTimes.addToReduceTime(System.nanoTime() - reduceStartTime);
+          }
+        }
+        gatherStartTime = System.nanoTime();
+      }
+      compositeFuture.get();
+      phaseTimes.addToGatherTime(System.nanoTime() - gatherStartTime);
+      scatterGatherStats.setResponseTimeMillis(compositeFuture.getResponseTimes(), isOfflineTable);
+    } catch (Exception e) {
+      LOGGER.error("Caught exception while fetching responses for table: {}", tableName, e);
+      _brokerMetrics.addMeteredTableValue(tableName, BrokerMeter.RESPONSE_FETCH_EXCEPTIONS, 1);
+      processingExceptions.add(QueryException.getException(QueryException.BROKER_GATHER_ERROR, e));
+    }
+    return numServersResponded;
+  }
+
+  /**
+   * Set processing exceptions and number of servers queried/responded into the broker response, and update the broker
+   * metrics.
+   *
+   * @return broker response.
+   */
+  @Nonnull
+  private BrokerResponse finishBrokerResponse(@Nonnull BrokerResponse brokerResponse,
+      @Nonnull String originalTableName, @Nonnull List<ProcessingException> processingExceptions,
+      int numServersQueried, int numServersResponded, @Nonnull PhaseTimes phaseTimes) {
     // Set processing exceptions and number of servers queried/responded.
     brokerResponse.setExceptions(processingExceptions);
     brokerResponse.setNumServersQueried(numServersQueried);
@@ -569,7 +726,8 @@ public class BrokerRequestHandler {
       routingOptions =
           Splitter.on(",").omitEmptyStrings().trimResults().splitToList(debugOptions.get("routingOptions"));
     }
-    RoutingTableLookupRequest routingTableLookupRequest = new RoutingTableLookupRequest(tableName, routingOptions);
+    RoutingTableLookupRequest routingTableLookupRequest =
+        new RoutingTableLookupRequest(tableName, routingOptions, brokerRequest);
     return _routingTable.findServers(routingTableLookupRequest);
   }
 
@@ -620,20 +778,34 @@ public class BrokerRequestHandler {
       if (!isOfflineTable) {
         serverInstance = new ServerInstance(serverInstance.getHostname(), serverInstance.getPort(), 1);
       }
-      ByteBuf byteBuf = entry.getValue();
-      try {
-        byte[] byteArray = new byte[byteBuf.readableBytes()];
-        byteBuf.readBytes(byteArray);
-        dataTableMap.put(serverInstance, DataTableFactory.getDataTable(byteArray));
-      } catch (Exception e) {
-        LOGGER.error("Caught exceptions while deserializing response for table: {} from server: {}", tableName,
-            serverInstance, e);
-        _brokerMetrics.addMeteredTableValue(tableName, BrokerMeter.DATA_TABLE_DESERIALIZATION_EXCEPTIONS, 1);
-        processingExceptions.add(QueryException.getException(QueryException.DATA_TABLE_DESERIALIZATION_ERROR, e));
+      DataTable dataTable =
+          deserializeServerResponse(serverInstance, entry.getValue(), tableName, processingExceptions);
+      if (dataTable != null) {
+        dataTableMap.put(serverInstance, dataTable);
       }
     }
   }
 
+  /**
+   * Deserialize one server response, append processing exception to the processing exception list passed in.
+   *
+   * @return de-serialized data table, or <code>null</code> if the response cannot be de-serialized.
+   */
+  @Nullable
+  private DataTable deserializeServerResponse(@Nonnull ServerInstance serverInstance, @Nonnull ByteBuf byteBuf,
+      @Nonnull String tableName, @Nonnull List<ProcessingException> processingExceptions) {
+    try {
+      // Data tables read the response in place, without copying it into a heap array first.
+      return DataTableFactory.getDataTable(byteBuf.nioBuffer());
+    } catch (Exception e) {
+      LOGGER.error("Caught exceptions while deserializing response for table: {} from server: {}", tableName,
+          serverInstance, e);
+      _brokerMetrics.addMeteredTableValue(tableName, BrokerMeter.DATA_TABLE_DESERIALIZATION_EXCEPTIONS, 1);
+      processingExceptions.add(QueryException.getException(QueryException.DATA_TABLE_DESERIALIZATION_ERROR, e));
+      return null;
+    }
+  }
+
   /**
    * Container for time statistics in all phases.
    */
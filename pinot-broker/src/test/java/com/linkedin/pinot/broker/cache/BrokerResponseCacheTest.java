@@ -0,0 +1,228 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.broker.cache;
+
+import com.linkedin.pinot.common.metrics.BrokerMetrics;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.common.response.broker.QueryProcessingException;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import com.linkedin.pinot.routing.RoutingTable;
+import com.linkedin.pinot.routing.RoutingTableLookupRequest;
+import com.linkedin.pinot.routing.TimeBoundaryService;
+import com.linkedin.pinot.transport.common.SegmentIdSet;
+import com.yammer.metrics.core.MetricsRegistry;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+
+public class BrokerResponseCacheTest {
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+  private static final String QUERY = "SELECT COUNT(*) FROM myTable WHERE a = 1 AND (b = 2 OR c = 3)";
+
+  private TestRoutingTable _routingTable;
+  private TestTimeBoundaryService _timeBoundaryService;
+  private BrokerResponseCache _cache;
+
+  @BeforeMethod
+  public void setUp() {
+    _routingTable = new TestRoutingTable();
+    _timeBoundaryService = new TestTimeBoundaryService();
+    _cache = new BrokerResponseCache(_routingTable, _timeBoundaryService, 1_000_000L, 60_000L,
+        Collections.singleton("hybridTable"), 60_000L, new BrokerMetrics(new MetricsRegistry()));
+  }
+
+  @Test
+  public void testOfflineTable() {
+    _routingTable._versions.put("myTable_OFFLINE", 1L);
+
+    BrokerResponseCache.Key key = _cache.getKey(COMPILER.compileToBrokerRequest(QUERY));
+    Assert.assertNotNull(key);
+    Assert.assertNull(_cache.get(key));
+    _cache.put(key, getBrokerResponse(10L));
+    Assert.assertEquals(_cache.getNumEntries(), 1);
+
+    // Another compilation of the same query hits the cache.
+    BrokerResponseCache.Key newKey = _cache.getKey(COMPILER.compileToBrokerRequest(QUERY));
+    BrokerResponseNative cachedResponse = _cache.get(newKey);
+    Assert.assertNotNull(cachedResponse);
+    Assert.assertEquals(cachedResponse.getTotalDocs(), 10L);
+
+    // Each hit gets its own copy.
+    cachedResponse.setTotalDocs(20L);
+    Assert.assertEquals(_cache.get(newKey).getTotalDocs(), 10L);
+
+    // Routing table change.
+    _routingTable._versions.put("myTable_OFFLINE", 2L);
+    Assert.assertNull(_cache.get(_cache.getKey(COMPILER.compileToBrokerRequest(QUERY))));
+  }
+
+  @Test
+  public void testNotCacheable() {
+    _routingTable._versions.put("myTable_OFFLINE", 1L);
+
+    // Trace and debug options.
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(QUERY);
+    brokerRequest.setEnableTrace(true);
+    Assert.assertNull(_cache.getKey(brokerRequest));
+    brokerRequest = COMPILER.compileToBrokerRequest(QUERY);
+    brokerRequest.setDebugOptions(Collections.singletonMap("routingOptions", "FORCE_HLC"));
+    Assert.assertNull(_cache.getKey(brokerRequest));
+
+    // Missing table.
+    Assert.assertNull(_cache.getKey(COMPILER.compileToBrokerRequest("SELECT COUNT(*) FROM missingTable")));
+
+    // Realtime table not opted in.
+    _routingTable._versions.put("myTable_REALTIME", 1L);
+    Assert.assertNull(_cache.getKey(COMPILER.compileToBrokerRequest(QUERY)));
+
+    // Responses with exceptions or missing servers.
+    BrokerResponseCache.Key key = _cache.getKey(COMPILER.compileToBrokerRequest("SELECT * FROM hybridTable"));
+    Assert.assertNull(key);
+    _routingTable._versions.put("hybridTable_OFFLINE", 1L);
+    key = _cache.getKey(COMPILER.compileToBrokerRequest("SELECT * FROM hybridTable"));
+    Assert.assertNotNull(key);
+    BrokerResponseNative brokerResponse = getBrokerResponse(10L);
+    brokerResponse.setNumServersResponded(1);
+    _cache.put(key, brokerResponse);
+    brokerResponse = getBrokerResponse(10L);
+    brokerResponse.addToExceptions(new QueryProcessingException(200, "error"));
+    _cache.put(key, brokerResponse);
+    Assert.assertEquals(_cache.getNumEntries(), 0);
+  }
+
+  @Test
+  public void testHybridTable() {
+    _routingTable._versions.put("hybridTable_OFFLINE", 1L);
+    _routingTable._versions.put("hybridTable_REALTIME", 1L);
+    _timeBoundaryService.setTimeValue("100");
+    String query = "SELECT SUM(m) FROM hybridTable GROUP BY d";
+
+    BrokerResponseCache.Key key = _cache.getKey(COMPILER.compileToBrokerRequest(query));
+    Assert.assertNotNull(key);
+    _cache.put(key, getBrokerResponse(10L));
+    Assert.assertNotNull(_cache.get(_cache.getKey(COMPILER.compileToBrokerRequest(query))));
+
+    // Time boundary change.
+    _timeBoundaryService.setTimeValue("101");
+    Assert.assertNull(_cache.get(_cache.getKey(COMPILER.compileToBrokerRequest(query))));
+  }
+
+  @Test
+  public void testExpiration()
+      throws Exception {
+    _cache = new BrokerResponseCache(_routingTable, _timeBoundaryService, 1_000_000L, 60_000L,
+        Collections.singleton("myTable"), 100L, new BrokerMetrics(new MetricsRegistry()));
+    _routingTable._versions.put("myTable_REALTIME", 1L);
+
+    BrokerResponseCache.Key key = _cache.getKey(COMPILER.compileToBrokerRequest(QUERY));
+    Assert.assertNotNull(key);
+    _cache.put(key, getBrokerResponse(10L));
+    Assert.assertNotNull(_cache.get(key));
+
+    // Realtime responses expire after the staleness budget.
+    Thread.sleep(200L);
+    Assert.assertNull(_cache.get(key));
+    Assert.assertEquals(_cache.getNumEntries(), 0);
+    Assert.assertEquals(_cache.getSizeInBytes(), 0L);
+  }
+
+  @Test
+  public void testEviction() {
+    _routingTable._versions.put("myTable_OFFLINE", 1L);
+    BrokerResponseCache.Key key = _cache.getKey(COMPILER.compileToBrokerRequest(QUERY));
+    _cache.put(key, getBrokerResponse(10L));
+    long entrySizeInBytes = _cache.getSizeInBytes();
+
+    // Cache can hold 10 responses, the oldest unreferenced ones are evicted.
+    long maxSizeInBytes = entrySizeInBytes * 10;
+    _cache = new BrokerResponseCache(_routingTable, _timeBoundaryService, maxSizeInBytes, 60_000L,
+        Collections.<String>emptySet(), 0L, new BrokerMetrics(new MetricsRegistry()));
+    String query = "SELECT COUNT(*) FROM myTable WHERE a = ";
+    for (int i = 0; i < 12; i++) {
+      key = _cache.getKey(COMPILER.compileToBrokerRequest(query + i));
+      _cache.put(key, getBrokerResponse(10L));
+    }
+    Assert.assertEquals(_cache.getNumEntries(), 10);
+    Assert.assertEquals(_cache.getSizeInBytes(), maxSizeInBytes);
+    Assert.assertNull(_cache.get(_cache.getKey(COMPILER.compileToBrokerRequest(query + 0))));
+    Assert.assertNotNull(_cache.get(_cache.getKey(COMPILER.compileToBrokerRequest(query + 11))));
+  }
+
+  private static BrokerResponseNative getBrokerResponse(long totalDocs) {
+    BrokerResponseNative brokerResponse = new BrokerResponseNative();
+    brokerResponse.setNumServersQueried(2);
+    brokerResponse.setNumServersResponded(2);
+    brokerResponse.setTotalDocs(totalDocs);
+    return brokerResponse;
+  }
+
+  private static class TestRoutingTable implements RoutingTable {
+    private final Map<String, Long> _versions = new HashMap<>();
+
+    @Override
+    public Map<ServerInstance, SegmentIdSet> findServers(RoutingTableLookupRequest request) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean routingTableExists(String tableName) {
+      return _versions.containsKey(tableName);
+    }
+
+    @Override
+    public long getRoutingTableVersion(String tableName) {
+      return _versions.get(tableName);
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    @Override
+    public String dumpSnapshot(String tableName)
+        throws Exception {
+      return null;
+    }
+  }
+
+  private static class TestTimeBoundaryService implements TimeBoundaryService {
+    private final TimeBoundaryInfo _timeBoundaryInfo = new TimeBoundaryInfo();
+
+    void setTimeValue(String timeValue) {
+      _timeBoundaryInfo.setTimeColumn("daysSinceEpoch");
+      _timeBoundaryInfo.setTimeValue(timeValue);
+    }
+
+    @Override
+    public TimeBoundaryInfo getTimeBoundaryInfoFor(String table) {
+      return _timeBoundaryInfo;
+    }
+
+    @Override
+    public void remove(String tableName) {
+    }
+  }
+}
@@ -41,6 +41,11 @@ public class IndexingConfig {
   private String _starTreeFormat;
   private String _columnMinMaxValueGeneratorMode;
   private List<String> _noDictionaryColumns;
+  // Map from no dictionary column to the compression codec of its raw index chunks (SNAPPY, LZ4 or DEFLATE).
+  private Map<String, String> _noDictionaryCompressionCodecs;
+  private List<String> _bloomFilterColumns;
+  // Create string dictionaries with variable length entries (dictionary version 2) instead of padded entries.
+  private boolean _varLengthStringDictionary;
   private StarTreeIndexSpec _starTreeIndexSpec;
   private SegmentPartitionConfig _segmentPartitionConfig;
 
@@ -125,6 +130,30 @@ public class IndexingConfig {
     _noDictionaryColumns = noDictionaryColumns;
   }
 
+  public Map<String, String> getNoDictionaryCompressionCodecs() {
+    return _noDictionaryCompressionCodecs;
+  }
+
+  public void setNoDictionaryCompressionCodecs(Map<String, String> noDictionaryCompressionCodecs) {
+    _noDictionaryCompressionCodecs = noDictionaryCompressionCodecs;
+  }
+
+  public List<String> getBloomFilterColumns() {
+    return _bloomFilterColumns;
+  }
+
+  public void setBloomFilterColumns(List<String> bloomFilterColumns) {
+    _bloomFilterColumns = bloomFilterColumns;
+  }
+
+  public boolean isVarLengthStringDictionary() {
+    return _varLengthStringDictionary;
+  }
+
+  public void setVarLengthStringDictionary(boolean varLengthStringDictionary) {
+    _varLengthStringDictionary = varLengthStringDictionary;
+  }
+
   public void setStarTreeIndexSpec(StarTreeIndexSpec starTreeIndexSpec) {
     _starTreeIndexSpec = starTreeIndexSpec;
   }
@@ -205,6 +205,32 @@ public abstract class AbstractMetrics<QP extends AbstractMetrics.QueryPhase, M e
     MetricsHelper.newMeter(_metricsRegistry, metricName, meter.getUnit(), TimeUnit.SECONDS).mark(unitCount);
   }
 
+  /**
+   * Creates a batched meter for a global meter, to be used instead of {@link #addMeteredGlobalValue(Meter, long)} on
+   * per-row code paths.
+   *
+   * @param meter The meter to use
+   * @return Batched meter, to be flushed by the caller
+   */
+  public BatchedMeter newBatchedGlobalMeter(final M meter) {
+    final MetricName metricName = new MetricName(_clazz, _metricPrefix + meter.getMeterName());
+    return new BatchedMeter(MetricsHelper.newMeter(_metricsRegistry, metricName, meter.getUnit(), TimeUnit.SECONDS));
+  }
+
+  /**
+   * Creates a batched meter for a table-level meter, to be used instead of
+   * {@link #addMeteredTableValue(String, Meter, long)} on per-row code paths.
+   *
+   * @param tableName The table name
+   * @param meter The meter to use
+   * @return Batched meter, to be flushed by the caller
+   */
+  public BatchedMeter newBatchedTableMeter(final String tableName, final M meter) {
+    final MetricName metricName =
+        new MetricName(_clazz, _metricPrefix + getTableName(tableName) + "." + meter.getMeterName());
+    return new BatchedMeter(MetricsHelper.newMeter(_metricsRegistry, metricName, meter.getUnit(), TimeUnit.SECONDS));
+  }
+
   /**
    * Logs a value to a meter for a specific query.
    *
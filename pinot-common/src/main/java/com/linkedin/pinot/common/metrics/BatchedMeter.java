@@ -0,0 +1,60 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.metrics;
+
+import com.yammer.metrics.core.Meter;
+
+
+/**
+ * The <code>BatchedMeter</code> class accumulates the values of a meter in a local counter, and only marks the
+ * underlying meter when flushed. The meter is resolved once when the batched meter is created, so that per-row code
+ * paths do not pay for the metric name building, the registry lookup and the meter marking on every row.
+ * <p>This class is not thread safe, each thread should use its own batched meter, and flush it regularly (e.g. once
+ * per fetched batch of rows) so that the meter rates stay accurate.
+ */
+public class BatchedMeter {
+  private final Meter _meter;
+  private long _pendingCount = 0L;
+
+  BatchedMeter(Meter meter) {
+    _meter = meter;
+  }
+
+  public void mark() {
+    _pendingCount++;
+  }
+
+  public void mark(long unitCount) {
+    _pendingCount += unitCount;
+  }
+
+  /**
+   * Returns the count accumulated since the last flush.
+   */
+  public long getPendingCount() {
+    return _pendingCount;
+  }
+
+  /**
+   * Marks the underlying meter with the count accumulated since the last flush.
+   */
+  public void flush() {
+    if (_pendingCount > 0L) {
+      _meter.mark(_pendingCount);
+      _pendingCount = 0L;
+    }
+  }
+}
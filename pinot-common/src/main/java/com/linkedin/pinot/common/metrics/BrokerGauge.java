@@ -23,7 +23,8 @@ import com.linkedin.pinot.common.Utils;
 *
 */
 public enum BrokerGauge implements AbstractMetrics.Gauge {
-  ;
+  BROKER_RESPONSE_CACHE_ENTRIES("entries", true),
+  BROKER_RESPONSE_CACHE_SIZE_IN_BYTES("bytes", true);
 
   private final String brokerGaugeName;
   private final String unit;
@@ -75,7 +75,15 @@ public enum BrokerMeter implements AbstractMetrics.Meter {
   LLC_QUERY_COUNT("queries", false),
   HLC_QUERY_COUNT("queries", false),
 
-  ROUTING_TABLE_REBUILD_FAILURES("failures", false);
+  ROUTING_TABLE_REBUILD_FAILURES("failures", false),
+
+  // Number of queries served from and missing the broker response cache
+  BROKER_RESPONSE_CACHE_HITS("queries", false),
+  BROKER_RESPONSE_CACHE_MISSES("queries", false),
+
+  // Number of segments (and servers) dropped from the routing table by the segment time range index before scatter
+  SEGMENTS_PRUNED_BY_BROKER("segments", false),
+  SERVERS_PRUNED_BY_BROKER("servers", false);
 
   private final String brokerMeterName;
   private final String unit;
@@ -31,7 +31,15 @@ public enum ServerGauge implements AbstractMetrics.Gauge {
   LAST_REALTIME_SEGMENT_CATCHUP_DURATION_SECONDS("seconds", false),
   LAST_REALTIME_SEGMENT_COMPLETION_DURATION_SECONDS("seconds", false),
   KAFKA_PARTITION_OFFSET_LAG("messages", false),
-  RUNNING_QUERIES("runningQueries", false);
+  RUNNING_QUERIES("runningQueries", false),
+  SCHEDULER_PENDING_QUERIES("queries", false),
+  SCHEDULER_RUNNING_QUERIES("queries", false),
+  SEGMENT_RESULT_CACHE_ENTRIES("entries", true),
+  SEGMENT_RESULT_CACHE_SIZE_IN_BYTES("bytes", true),
+  BITMAP_CACHE_ENTRIES("entries", true),
+  BITMAP_CACHE_SIZE_IN_BYTES("bytes", true),
+  CHUNK_CACHE_ENTRIES("entries", true),
+  CHUNK_CACHE_SIZE_IN_BYTES("bytes", true);
 
   private final String gaugeName;
   private final String unit;
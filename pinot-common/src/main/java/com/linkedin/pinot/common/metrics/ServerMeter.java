@@ -28,8 +28,18 @@ public enum ServerMeter implements AbstractMetrics.Meter {
   REQUEST_DESERIALIZATION_EXCEPTIONS("exceptions", true),
   RESPONSE_SERIALIZATION_EXCEPTIONS("exceptions", true),
   QUERY_EXECUTION_EXCEPTIONS("exceptions", false),
+  SCHEDULER_REJECTED_QUERIES("queries", false),
+  SEGMENT_RESULT_CACHE_HITS("segments", false),
+  SEGMENT_RESULT_CACHE_MISSES("segments", false),
+  BITMAP_CACHE_HITS("bitmaps", true),
+  BITMAP_CACHE_MISSES("bitmaps", true),
+  CHUNK_CACHE_HITS("chunks", true),
+  CHUNK_CACHE_MISSES("chunks", true),
   HELIX_ZOOKEEPER_RECONNECTS("reconnects", true),
   DELETED_SEGMENT_COUNT("segments", false),
+  SEGMENT_DOWNLOAD_FAILURES("segments", false),
+  SEGMENT_UNTAR_FAILURES("segments", false),
+  SEGMENT_LOAD_FAILURES("segments", false),
   REALTIME_ROWS_CONSUMED("rows", true),
   INVALID_REALTIME_ROWS_DROPPED("rows", false),
   REALTIME_CONSUMPTION_EXCEPTIONS("exceptions", true),
@@ -23,7 +23,11 @@ import com.linkedin.pinot.common.Utils;
 *
 */
 public enum ServerTimer implements AbstractMetrics.Timer {
-  CURRENT_MSG_EVENT_TIMESTAMP_LAG("currentMsgEventTimestampLag", false);
+  CURRENT_MSG_EVENT_TIMESTAMP_LAG("currentMsgEventTimestampLag", false),
+  // Stages of loading a segment from the controller, excluding the time waiting for the stage to have room
+  SEGMENT_DOWNLOAD_TIME("milliseconds", false),
+  SEGMENT_UNTAR_TIME("milliseconds", false),
+  SEGMENT_LOAD_TIME("milliseconds", false);
 
   private final String timerName;
   private final boolean global;
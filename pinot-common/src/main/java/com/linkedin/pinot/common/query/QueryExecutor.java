@@ -52,4 +52,11 @@ public interface QueryExecutor {
   boolean isStarted();
 
   void updateResourceTimeOutInMs(String resource, long timeOutMs);
+
+  /**
+   * Invalidate any cached query results for the given segment, called when the segment gets refreshed or reloaded.
+   * @param tableName Table name with type suffix
+   * @param segmentName Segment name
+   */
+  void invalidateSegmentResults(String tableName, String segmentName);
 }
@@ -57,4 +57,14 @@ public interface ReduceService<T extends BrokerResponse> {
   @Nonnull
   T reduceOnDataTable(@Nonnull BrokerRequest brokerRequest, @Nonnull Map<ServerInstance, DataTable> instanceResponseMap,
       @Nullable BrokerMetrics brokerMetrics);
+
+  /**
+   * Get a reducer to reduce the data tables of one broker request one at a time, as the server responses arrive.
+   *
+   * @param brokerRequest broker request.
+   * @param brokerMetrics broker metrics to track execution statistics.
+   * @return streaming reducer.
+   */
+  @Nonnull
+  StreamingReducer<T> getStreamingReducer(@Nonnull BrokerRequest brokerRequest, @Nullable BrokerMetrics brokerMetrics);
 }
@@ -0,0 +1,49 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.query;
+
+import com.linkedin.pinot.common.response.BrokerResponse;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.common.utils.DataTable;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+
+/**
+ * Interface for reducing the responses of a set of servers one at a time, as they arrive. Merging happens in
+ * {@link #reduce(ServerInstance, DataTable)}, only the final extraction and trimming is left for
+ * {@link #getBrokerResponse()} once the last response is gathered.
+ * @param <T> type of broker response.
+ */
+@NotThreadSafe
+public interface StreamingReducer<T extends BrokerResponse> {
+
+  /**
+   * Merge the data table of one server into the reduced results.
+   *
+   * @param serverInstance server instance the data table comes from.
+   * @param dataTable data table.
+   */
+  void reduce(@Nonnull ServerInstance serverInstance, @Nonnull DataTable dataTable);
+
+  /**
+   * Build the broker response from the reduced results. Should be called once, after all the data tables are reduced.
+   *
+   * @return broker response.
+   */
+  @Nonnull
+  T getBrokerResponse();
+}
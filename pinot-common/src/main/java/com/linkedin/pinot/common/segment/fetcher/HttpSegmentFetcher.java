@@ -18,12 +18,13 @@ package com.linkedin.pinot.common.segment.fetcher;
 import java.io.File;
 import java.util.Map;
 
+import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.linkedin.pinot.common.utils.FileUploadUtils;
 
-public class HttpSegmentFetcher implements SegmentFetcher {
+public class HttpSegmentFetcher implements StreamingSegmentFetcher {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(HttpSegmentFetcher.class);
   private static final String MAX_RETRIES = "maxRetries";
@@ -42,18 +43,45 @@ public class HttpSegmentFetcher implements SegmentFetcher {
   }
 
   @Override
-  public void fetchSegmentToLocal(String uri, File tempFile) throws Exception {
-    for (int retry = 1; retry <= maxRetryCount; ++retry) {
-      try {
+  public void fetchSegmentToLocal(final String uri, final File tempFile) throws Exception {
+    fetchWithRetries(uri, tempFile, new Fetch() {
+      @Override
+      public void fetch() throws Exception {
         final long httpGetResponseContentLength = FileUploadUtils.getFile(uri, tempFile);
         LOGGER.info(
             "Downloaded file from {} to {}; Length of httpGetResponseContent: {}; Length of downloaded file: {}", uri,
             tempFile, httpGetResponseContentLength, tempFile.length());
+      }
+    });
+  }
+
+  @Override
+  public void fetchAndUnTarSegmentToLocal(final String uri, final File outputDir) throws Exception {
+    fetchWithRetries(uri, outputDir, new Fetch() {
+      @Override
+      public void fetch() throws Exception {
+        // Start from an empty directory, a previous attempt may have failed half way
+        FileUtils.deleteQuietly(outputDir);
+        final long httpGetResponseContentLength = FileUploadUtils.getFileAndUnTar(uri, outputDir);
+        LOGGER.info("Downloaded and untarred file from {} to {}; Length of httpGetResponseContent: {}", uri, outputDir,
+            httpGetResponseContentLength);
+      }
+    });
+  }
+
+  private interface Fetch {
+    void fetch() throws Exception;
+  }
+
+  private void fetchWithRetries(String uri, File destination, Fetch fetch) throws Exception {
+    for (int retry = 1; retry <= maxRetryCount; ++retry) {
+      try {
+        fetch.fetch();
         return;
       } catch (Exception e) {
         LOGGER.error("Failed to download file from {}, retry: {}", uri, retry, e);
         if (retry == maxRetryCount) {
-          LOGGER.error("Exceeded maximum retry count while fetching file from {} to local file: {}, aborting.", uri, tempFile, e);
+          LOGGER.error("Exceeded maximum retry count while fetching file from {} to local file: {}, aborting.", uri, destination, e);
           throw e;
         } else {
           long backOffTimeInSec = 5 * retry;
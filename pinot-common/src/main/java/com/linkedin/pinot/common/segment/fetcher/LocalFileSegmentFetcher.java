@@ -18,11 +18,12 @@ package com.linkedin.pinot.common.segment.fetcher;
 import java.io.File;
 import java.util.Map;
 
+import com.linkedin.pinot.common.utils.TarGzCompressionUtils;
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class LocalFileSegmentFetcher implements SegmentFetcher {
+public class LocalFileSegmentFetcher implements StreamingSegmentFetcher {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(LocalFileSegmentFetcher.class);
 
@@ -35,4 +36,10 @@ public class LocalFileSegmentFetcher implements SegmentFetcher {
     FileUtils.copyFile(new File(uri), tempFile);
     LOGGER.info("Copy file from {} to {}; Length of file: {}", uri, tempFile, tempFile.length());
   }
+
+  @Override
+  public void fetchAndUnTarSegmentToLocal(String uri, File outputDir) throws Exception {
+    TarGzCompressionUtils.unTar(new File(uri), outputDir);
+    LOGGER.info("Untar file from {} to {}", uri, outputDir);
+  }
 }
@@ -13,9 +13,20 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package com.linkedin.pinot.core.query.selection.comparator;
+package com.linkedin.pinot.common.segment.fetcher;
 
-public interface IDocIdValComparator {
+import java.io.File;
+
+
+/**
+ * Segment fetcher which can untar the segment while fetching it, without writing the tar.gz file to local disk first.
+ */
+public interface StreamingSegmentFetcher extends SegmentFetcher {
+
+  /**
+   * Fetches the tar.gz file of the segment and untars it into the given directory as it is read. On failure, the
+   * directory may contain partially untarred files.
+   */
+  void fetchAndUnTarSegmentToLocal(String uri, File outputDir) throws Exception;
 
-  int compare(int docId1, int docId2);
 }
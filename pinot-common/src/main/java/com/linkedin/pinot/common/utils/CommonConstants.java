@@ -127,6 +127,8 @@ public class CommonConstants {
           public static final String KAFKA_CONSUMER_PROPS_PREFIX = "kafka.consumer.prop";
           public static final String KAFKA_CONNECTION_TIMEOUT_MILLIS = "kafka.connection.timeout.ms";
           public static final String KAFKA_FETCH_TIMEOUT_MILLIS = "kafka.fetch.timeout.ms";
+          // Number of threads decoding the messages of each low level consumer, 1 decodes on the consumer thread
+          public static final String KAFKA_DECODER_NUM_THREADS = "kafka.decoder.num.threads";
           public static final String ZK_BROKER_URL = "kafka.zk.broker.url";
           public static final String KAFKA_BROKER_LIST = "kafka.broker.list";
 
@@ -205,6 +207,13 @@ public class CommonConstants {
     public static final String CONFIG_OF_SEGMENT_LOAD_MAX_RETRY_COUNT = "pinot.server.segment.loadMaxRetryCount";
     public static final String CONFIG_OF_SEGMENT_LOAD_MIN_RETRY_DELAY_MILLIS =
         "pinot.server.segment.minRetryDelayMillis";
+    // Max number of segments concurrently in each stage of loading segments from the controller, non positive value
+    // means the number of available processors
+    public static final String CONFIG_OF_SEGMENT_DOWNLOAD_PARALLELISM = "pinot.server.segment.downloadParallelism";
+    public static final String CONFIG_OF_SEGMENT_UNTAR_PARALLELISM = "pinot.server.segment.untarParallelism";
+    public static final String CONFIG_OF_SEGMENT_LOAD_PARALLELISM = "pinot.server.segment.loadParallelism";
+    // Whether to untar the segments while downloading them, for the segment fetchers supporting it
+    public static final String CONFIG_OF_SEGMENT_STREAMING_UNTAR = "pinot.server.segment.streamingUntar";
     public static final String CONFIG_OF_SEGMENT_FORMAT_VERSION = "pinot.server.instance.segment.format.version";
     public static final String CONFIG_OF_ENABLE_DEFAULT_COLUMNS = "pinot.server.instance.enable.default.columns";
 
@@ -223,6 +232,10 @@ public class CommonConstants {
         "com.linkedin.pinot.server.request.SimpleRequestHandlerFactory";
     public static final String DEFAULT_SEGMENT_LOAD_MAX_RETRY_COUNT = "5";
     public static final String DEFAULT_SEGMENT_LOAD_MIN_RETRY_DELAY_MILLIS = "60000";
+    public static final int DEFAULT_SEGMENT_DOWNLOAD_PARALLELISM = 8;
+    public static final int DEFAULT_SEGMENT_UNTAR_PARALLELISM = 0;
+    public static final int DEFAULT_SEGMENT_LOAD_PARALLELISM = 0;
+    public static final boolean DEFAULT_SEGMENT_STREAMING_UNTAR = true;
     public static final String PREFIX_OF_CONFIG_OF_SEGMENT_FETCHER_FACTORY = "pinot.server.segment.fetcher";
     public static final String DEFAULT_SEGMENT_FORMAT_VERSION = "v3";
     public static final String DEFAULT_STAR_TREE_FORMAT_VERSION = "OFF_HEAP";
@@ -257,7 +257,39 @@ public class FileUploadUtils {
     }
   }
 
-  public static long getFile(String url, File file) throws Exception {
+  public static long getFile(String url, final File file) throws Exception {
+    return getFile(url, new ResponseBodyHandler() {
+      @Override
+      public void handle(InputStream responseBody)
+          throws Exception {
+        BufferedOutputStream output = new BufferedOutputStream(new FileOutputStream(file));
+        IOUtils.copyLarge(responseBody, output);
+        IOUtils.closeQuietly(output);
+      }
+    });
+  }
+
+  /**
+   * Downloads a tar.gz file and untars it into the given directory while downloading, without writing the tar.gz file
+   * to disk first.
+   *
+   * @return Content length of the response
+   */
+  public static long getFileAndUnTar(String url, final File outputDir) throws Exception {
+    return getFile(url, new ResponseBodyHandler() {
+      @Override
+      public void handle(InputStream responseBody)
+          throws Exception {
+        TarGzCompressionUtils.unTar(responseBody, outputDir);
+      }
+    });
+  }
+
+  private interface ResponseBodyHandler {
+    void handle(InputStream responseBody) throws Exception;
+  }
+
+  private static long getFile(String url, ResponseBodyHandler responseBodyHandler) throws Exception {
     GetMethod httpget = null;
     try {
       httpget = new GetMethod(url);
@@ -276,9 +308,7 @@ public class FileUploadUtils {
                 + " response code:" + responseCode);
       } else {
         long ret = httpget.getResponseContentLength();
-        BufferedOutputStream output = new BufferedOutputStream(new FileOutputStream(file));
-        IOUtils.copyLarge(httpget.getResponseBodyAsStream(), output);
-        IOUtils.closeQuietly(output);
+        responseBodyHandler.handle(httpget.getResponseBodyAsStream());
         return ret;
       }
     } catch (Exception ex) {
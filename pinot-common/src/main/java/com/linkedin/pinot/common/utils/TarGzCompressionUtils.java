@@ -172,15 +172,39 @@ public class TarGzCompressionUtils {
       ArchiveException {
 
     LOGGER.debug(String.format("Untaring %s to dir %s.", inputFile.getAbsolutePath(), outputDir.getAbsolutePath()));
+    return unTar(new FileInputStream(inputFile), outputDir);
+  }
+
+  /** Untar a tar.gz input stream into an output directory, as it is read.
+   *
+   * This allows extracting a tar.gz file while it is being downloaded, without writing it to disk first. The input
+   * stream is closed once fully read.
+   *
+   * @param tarGzInputStream  the input .tar.gz stream
+   * @param outputDir         the output directory file.
+   * @throws IOException
+   *
+   * @return  The {@link List} of {@link File}s with the untared content.
+   * @throws ArchiveException
+   */
+  public static List<File> unTar(final InputStream tarGzInputStream, final File outputDir) throws IOException,
+      ArchiveException {
     TarArchiveInputStream debInputStream = null;
     InputStream is = null;
     final List<File> untaredFiles = new LinkedList<File>();
     try {
-      is = new GzipCompressorInputStream(new BufferedInputStream(new FileInputStream(inputFile)));
+      is = new GzipCompressorInputStream(new BufferedInputStream(tarGzInputStream));
       debInputStream = (TarArchiveInputStream) new ArchiveStreamFactory().createArchiveInputStream("tar", is);
+      String outputDirPath = outputDir.getCanonicalPath();
       TarArchiveEntry entry = null;
       while ((entry = (TarArchiveEntry) debInputStream.getNextEntry()) != null) {
         final File outputFile = new File(outputDir, entry.getName());
+        // Do not write outside of the output directory, the tar file might come from a remote host
+        String outputFilePath = outputFile.getCanonicalPath();
+        if (!outputFilePath.equals(outputDirPath) && !outputFilePath.startsWith(outputDirPath + File.separator)) {
+          throw new IOException(String.format("Tar entry %s is outside of the output directory %s.", entry.getName(),
+              outputDir.getAbsolutePath()));
+        }
         if (entry.isDirectory()) {
           LOGGER.debug(String.format("Attempting to write output directory %s.", outputFile.getAbsolutePath()));
           if (!outputFile.exists()) {
@@ -212,6 +236,7 @@ public class TarGzCompressionUtils {
     } finally {
       IOUtils.closeQuietly(debInputStream);
       IOUtils.closeQuietly(is);
+      IOUtils.closeQuietly(tarGzInputStream);
     }
     return untaredFiles;
   }
@@ -107,6 +107,32 @@ public class RequestUtils {
     return q2;
   }
 
+  /**
+   * Re-numbers the filter query ids of the broker request in tree order.
+   * <p>Filter query ids are not stable across compilations of the same query, this makes two compilations of the same
+   * query produce equal broker requests (e.g. to be used as cache keys).
+   */
+  public static void renumberFilterQueries(BrokerRequest request) {
+    FilterQueryTree filterQueryTree = generateFilterQueryTree(request);
+    if (filterQueryTree != null) {
+      generateFilterFromTree(renumberFilterQueryTree(filterQueryTree, new int[]{0}), request);
+    }
+  }
+
+  private static FilterQueryTree renumberFilterQueryTree(FilterQueryTree filterQueryTree, int[] nextId) {
+    int id = nextId[0]++;
+    List<FilterQueryTree> children = filterQueryTree.getChildren();
+    List<FilterQueryTree> renumberedChildren = null;
+    if (children != null) {
+      renumberedChildren = new ArrayList<>(children.size());
+      for (FilterQueryTree child : children) {
+        renumberedChildren.add(renumberFilterQueryTree(child, nextId));
+      }
+    }
+    return new FilterQueryTree(id, filterQueryTree.getColumn(), filterQueryTree.getValue(),
+        filterQueryTree.getOperator(), renumberedChildren);
+  }
+
   public static final Set<String> ALLOWED_AGGREGATION_FUNCTIONS = ImmutableSet.of("sum", "fasthll");
 
   /**
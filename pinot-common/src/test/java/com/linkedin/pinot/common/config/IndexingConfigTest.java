@@ -41,6 +41,7 @@ public class IndexingConfigTest {
     json.put("invertedIndexColumns", Arrays.asList("a", "b", "c"));
     json.put("sortedColumn", Arrays.asList("d", "e", "f"));
     json.put("loadMode", "MMAP");
+    json.put("varLengthStringDictionary", true);
     json.put("keyThatIsUnknown", "randomValue");
 
     ObjectMapper mapper = new ObjectMapper();
@@ -48,6 +49,7 @@ public class IndexingConfigTest {
     IndexingConfig indexingConfig = mapper.readValue(jsonNode, IndexingConfig.class);
 
     Assert.assertEquals("MMAP", indexingConfig.getLoadMode());
+    Assert.assertTrue(indexingConfig.isVarLengthStringDictionary());
     List<String> invertedIndexColumns = indexingConfig.getInvertedIndexColumns();
     Assert.assertEquals(3, invertedIndexColumns.size());
     Assert.assertEquals("a", invertedIndexColumns.get(0));
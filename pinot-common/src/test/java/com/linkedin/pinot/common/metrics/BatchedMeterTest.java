@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.metrics;
+
+import com.yammer.metrics.core.Meter;
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.core.MetricsRegistry;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests for the BatchedMeter class.
+ */
+public class BatchedMeterTest {
+  @Test
+  public void testFlush() {
+    MetricsRegistry metricsRegistry = new MetricsRegistry();
+    ServerMetrics serverMetrics = new ServerMetrics(metricsRegistry);
+    BatchedMeter tableMeter = serverMetrics.newBatchedTableMeter("myTable", ServerMeter.REALTIME_ROWS_CONSUMED);
+    BatchedMeter globalMeter = serverMetrics.newBatchedGlobalMeter(ServerMeter.REALTIME_ROWS_CONSUMED);
+
+    // Batched meters share the meters of the non batched calls
+    serverMetrics.addMeteredTableValue("myTable", ServerMeter.REALTIME_ROWS_CONSUMED, 1L);
+    serverMetrics.addMeteredGlobalValue(ServerMeter.REALTIME_ROWS_CONSUMED, 1L);
+    Meter tableYammerMeter = getMeter(metricsRegistry, "pinot.server.myTable.realtimeRowsConsumed");
+    Meter globalYammerMeter = getMeter(metricsRegistry, "pinot.server.realtimeRowsConsumed");
+    Assert.assertEquals(tableYammerMeter.count(), 1L);
+    Assert.assertEquals(globalYammerMeter.count(), 1L);
+
+    // Nothing is marked until the flush
+    for (int i = 0; i < 10; i++) {
+      tableMeter.mark();
+      globalMeter.mark(2L);
+    }
+    Assert.assertEquals(tableMeter.getPendingCount(), 10L);
+    Assert.assertEquals(globalMeter.getPendingCount(), 20L);
+    Assert.assertEquals(tableYammerMeter.count(), 1L);
+    Assert.assertEquals(globalYammerMeter.count(), 1L);
+
+    tableMeter.flush();
+    globalMeter.flush();
+    Assert.assertEquals(tableMeter.getPendingCount(), 0L);
+    Assert.assertEquals(globalMeter.getPendingCount(), 0L);
+    Assert.assertEquals(tableYammerMeter.count(), 11L);
+    Assert.assertEquals(globalYammerMeter.count(), 21L);
+
+    // Flushing without pending count is a no-op
+    tableMeter.flush();
+    Assert.assertEquals(tableYammerMeter.count(), 11L);
+  }
+
+  private static Meter getMeter(MetricsRegistry metricsRegistry, String name) {
+    Meter meter = (Meter) metricsRegistry.allMetrics().get(new MetricName(ServerMetrics.class, name));
+    Assert.assertNotNull(meter, name);
+    return meter;
+  }
+}
@@ -16,9 +16,14 @@
 package com.linkedin.pinot.common.utils;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import org.apache.commons.compress.archivers.ArchiveException;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
 import org.apache.commons.io.FileUtils;
 import org.testng.Assert;
 import org.testng.annotations.AfterMethod;
@@ -122,4 +127,42 @@ public class TarGzCompressionUtilsTest {
     Assert.assertEquals(segmentFiles.length, 0);
 
   }
+
+  @Test
+  public void testUnTarStream()
+      throws IOException, ArchiveException {
+    new File(segmentDir, "metadata.properties").createNewFile();
+    File v3Dir = new File(segmentDir, "v3");
+    FileUtils.forceMkdir(v3Dir);
+    FileUtils.writeStringToFile(new File(v3Dir, "creation.meta"), "creation");
+
+    File tarGzPath = new File(tarDir, SEGMENT_NAME + ".tar.gz");
+    TarGzCompressionUtils.createTarGzOfDirectory(segmentDir.getPath(), tarGzPath.getPath());
+    TarGzCompressionUtils.unTar(new FileInputStream(tarGzPath), untarDir);
+    File[] segments = untarDir.listFiles();
+    Assert.assertNotNull(segments);
+    Assert.assertEquals(segments.length, 1);
+    Assert.assertTrue(new File(segments[0], "metadata.properties").isFile());
+    Assert.assertEquals(FileUtils.readFileToString(new File(new File(segments[0], "v3"), "creation.meta")),
+        "creation");
+  }
+
+  @Test(expectedExceptions = IOException.class)
+  public void testUnTarEntryOutsideOfOutputDirectory()
+      throws IOException, ArchiveException {
+    File tarGzPath = new File(tarDir, SEGMENT_NAME + ".tar.gz");
+    TarArchiveOutputStream tarOutputStream =
+        new TarArchiveOutputStream(new GzipCompressorOutputStream(new FileOutputStream(tarGzPath)));
+    try {
+      byte[] content = "content".getBytes("UTF-8");
+      TarArchiveEntry entry = new TarArchiveEntry("../outside");
+      entry.setSize(content.length);
+      tarOutputStream.putArchiveEntry(entry);
+      tarOutputStream.write(content);
+      tarOutputStream.closeArchiveEntry();
+    } finally {
+      tarOutputStream.close();
+    }
+    TarGzCompressionUtils.unTar(new FileInputStream(tarGzPath), untarDir);
+  }
 }
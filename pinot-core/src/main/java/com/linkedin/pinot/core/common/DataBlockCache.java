@@ -17,39 +17,67 @@ package com.linkedin.pinot.core.common;
 
 import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.core.plan.DocIdSetPlanNode;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 
 
 /**
  * This class serves as a single/multi value column block level cache. Using this class can prevent fetching the same column
  * data multiple times. This class allocate resources on demand, and reuse them as much as possible to prevent garbage
  * collection.
+ * <p>Columns are resolved to the column index of the {@link DataFetcher} once, and all the per column buffers are kept
+ * in arrays indexed by column index, so that the block level access does not need any hashing. The single value
+ * buffers are borrowed from a per thread pool and returned with {@link #releaseArrays()} once the segment is done, so
+ * that they can be reused for the next segment processed by the same thread.
  */
 @SuppressWarnings("Duplicates")
 public class DataBlockCache {
-  private final DataFetcher _dataFetcher;
-
-  /** _columnXXLoaded must be cleared in initNewBlock */
-  private final Set<String> _columnDictIdLoaded = new HashSet<>();
-  private final Set<String> _columnValueLoaded = new HashSet<>();
-  private final Set<String> _columnHashCodeLoaded = new HashSet<>();
-  private final Set<String> _columnStringLoaded = new HashSet<>();
-
-  /** _columnToXXsMap must be defined accordingly */
-  private final Map<String, int[]> _columnToDictIdsMap = new HashMap<>();
-  private final Map<String, Object> _columnToValuesMap = new HashMap<>();
-  private final Map<String, String[]> _columnToStringsMap = new HashMap<>();
+  // Max number of arrays of each type kept in the per thread pool.
+  private static final int MAX_POOLED_ARRAYS_PER_TYPE = 16;
 
-  private final Map<String, int[]> _columnToNumberOfEntriesMap = new HashMap<>();
+  private static final ThreadLocal<ReusableArrays> REUSABLE_ARRAYS = new ThreadLocal<ReusableArrays>() {
+    @Override
+    protected ReusableArrays initialValue() {
+      return new ReusableArrays();
+    }
+  };
+
+  private static final int DICT_IDS = 0;
+  private static final int DICT_IDS_MV = 1;
+  private static final int INT_VALUES = 2;
+  private static final int INT_VALUES_MV = 3;
+  private static final int LONG_VALUES = 4;
+  private static final int LONG_VALUES_MV = 5;
+  private static final int FLOAT_VALUES = 6;
+  private static final int FLOAT_VALUES_MV = 7;
+  private static final int DOUBLE_VALUES = 8;
+  private static final int DOUBLE_VALUES_MV = 9;
+  private static final int STRING_VALUES = 10;
+  private static final int STRING_VALUES_MV = 11;
+  private static final int NUM_ENTRIES = 12;
+  private static final int NUM_KINDS = 13;
 
-  private final Map<String, int[][]> _columnToDictIdsArrayMap = new HashMap<>();
-  private final Map<String, Object> _columnToValuesArrayMap = new HashMap<>();
-  private final Map<String, String[][]> _columnToStringsArrayMap = new HashMap<>();
+  private final DataFetcher _dataFetcher;
 
-  private final Map<String, int[]> _columnToTempDictIdsMap = new HashMap<>();
+  // Id of the block in which each kind of values of each column got loaded, indexed by kind then column index.
+  // Bumping the current block id in initNewBlock invalidates all the loaded values at once.
+  private final int[][] _loadedBlockIds;
+  private int _currentBlockId = 0;
+
+  private final int[][] _dictIds;
+  private final int[][][] _dictIdsMV;
+  private final int[][] _intValues;
+  private final int[][][] _intValuesMV;
+  private final long[][] _longValues;
+  private final long[][][] _longValuesMV;
+  private final float[][] _floatValues;
+  private final float[][][] _floatValuesMV;
+  private final double[][] _doubleValues;
+  private final double[][][] _doubleValuesMV;
+  private final String[][] _stringValues;
+  private final String[][][] _stringValuesMV;
+  private final int[][] _numEntries;
+  private final int[][] _tempDictIds;
 
   private int[] _docIds;
   private int _startPos;
@@ -62,6 +90,23 @@ public class DataBlockCache {
    */
   public DataBlockCache(DataFetcher dataFetcher) {
     _dataFetcher = dataFetcher;
+
+    int numColumns = dataFetcher.getNumColumns();
+    _loadedBlockIds = new int[NUM_KINDS][numColumns];
+    _dictIds = new int[numColumns][];
+    _dictIdsMV = new int[numColumns][][];
+    _intValues = new int[numColumns][];
+    _intValuesMV = new int[numColumns][][];
+    _longValues = new long[numColumns][];
+    _longValuesMV = new long[numColumns][][];
+    _floatValues = new float[numColumns][];
+    _floatValuesMV = new float[numColumns][][];
+    _doubleValues = new double[numColumns][];
+    _doubleValuesMV = new double[numColumns][][];
+    _stringValues = new String[numColumns][];
+    _stringValuesMV = new String[numColumns][][];
+    _numEntries = new int[numColumns][];
+    _tempDictIds = new int[numColumns][];
   }
 
   /**
@@ -73,16 +118,68 @@ public class DataBlockCache {
    * @param length length.
    */
   public void initNewBlock(int[] docIds, int startPos, int length) {
-    _columnDictIdLoaded.clear();
-    _columnValueLoaded.clear();
-    _columnHashCodeLoaded.clear();
-    _columnStringLoaded.clear();
+    _currentBlockId++;
 
     _docIds = docIds;
     _startPos = startPos;
     _length = length;
   }
 
+  /**
+   * Returns the single value buffers to the pool of the current thread, so that they can be reused by the next segment
+   * processed by this thread. The cache can still be used afterwards, buffers will be borrowed again on demand.
+   * <p>Should be called by the thread using the cache, once none of the arrays returned by the cache are accessed any
+   * more.
+   */
+  public void releaseArrays() {
+    ReusableArrays reusableArrays = REUSABLE_ARRAYS.get();
+    int numColumns = _dictIds.length;
+    for (int i = 0; i < numColumns; i++) {
+      reusableArrays.releaseIntArray(_dictIds[i]);
+      reusableArrays.releaseIntArray(_intValues[i]);
+      reusableArrays.releaseIntArray(_numEntries[i]);
+      reusableArrays.releaseLongArray(_longValues[i]);
+      reusableArrays.releaseFloatArray(_floatValues[i]);
+      reusableArrays.releaseDoubleArray(_doubleValues[i]);
+      reusableArrays.releaseStringArray(_stringValues[i]);
+      _dictIds[i] = null;
+      _intValues[i] = null;
+      _numEntries[i] = null;
+      _longValues[i] = null;
+      _floatValues[i] = null;
+      _doubleValues[i] = null;
+      _stringValues[i] = null;
+    }
+    for (int[] loadedBlockIds : _loadedBlockIds) {
+      for (int i = 0; i < numColumns; i++) {
+        loadedBlockIds[i] = 0;
+      }
+    }
+  }
+
+  /**
+   * Returns the column index to be used with the index based getters.
+   *
+   * @param column column name.
+   * @return column index.
+   */
+  public int getColumnIndex(String column) {
+    return _dataFetcher.getColumnIndex(column);
+  }
+
+  /**
+   * Returns whether the given kind of values of the given column is already loaded for the current block, and marks it
+   * as loaded if not.
+   */
+  private boolean checkAndMarkLoaded(int kind, int columnIndex) {
+    int[] loadedBlockIds = _loadedBlockIds[kind];
+    if (loadedBlockIds[columnIndex] == _currentBlockId) {
+      return true;
+    }
+    loadedBlockIds[columnIndex] = _currentBlockId;
+    return false;
+  }
+
   /**
    * Get dictionary id array for a given column for the specific block initialized in the initNewBlock.
    *
@@ -90,14 +187,17 @@ public class DataBlockCache {
    * @return dictionary id array associated with this column.
    */
   public int[] getDictIdArrayForColumn(String column) {
-    int[] dictIds = _columnToDictIdsMap.get(column);
-    if (!_columnDictIdLoaded.contains(column)) {
+    return getDictIdArrayForColumn(getColumnIndex(column));
+  }
+
+  public int[] getDictIdArrayForColumn(int columnIndex) {
+    int[] dictIds = _dictIds[columnIndex];
+    if (!checkAndMarkLoaded(DICT_IDS, columnIndex)) {
       if (dictIds == null) {
-        dictIds = new int[DocIdSetPlanNode.MAX_DOC_PER_CALL];
-        _columnToDictIdsMap.put(column, dictIds);
+        dictIds = REUSABLE_ARRAYS.get().acquireIntArray();
+        _dictIds[columnIndex] = dictIds;
       }
-      _dataFetcher.fetchSingleDictIds(column, _docIds, _startPos, _length, dictIds, 0);
-      _columnDictIdLoaded.add(column);
+      _dataFetcher.fetchSingleDictIds(columnIndex, _docIds, _startPos, _length, dictIds, 0);
     }
     return dictIds;
   }
@@ -106,30 +206,29 @@ public class DataBlockCache {
    * Get an array of array representation for dictionary ids for a given column for the
    * specific block initialized in the initNewBlock.
    *
-   * @param column column name.
+   * @param columnIndex column index.
    * @return dictionary ids array associated with this column.
    */
-  private int[][] getDictIdsArrayForColumn(String column) {
-    int[][] dictIdsArray = _columnToDictIdsArrayMap.get(column);
-    if (!_columnDictIdLoaded.contains(column)) {
+  private int[][] getDictIdsArrayForColumn(int columnIndex) {
+    int[][] dictIdsArray = _dictIdsMV[columnIndex];
+    if (!checkAndMarkLoaded(DICT_IDS_MV, columnIndex)) {
       if (dictIdsArray == null) {
         dictIdsArray = new int[DocIdSetPlanNode.MAX_DOC_PER_CALL][];
-        _columnToDictIdsArrayMap.put(column, dictIdsArray);
+        _dictIdsMV[columnIndex] = dictIdsArray;
       }
-      _dataFetcher.fetchMultiValueDictIds(column, _docIds, _startPos, _length, dictIdsArray, 0,
-          getTempDictIdArrayForColumn(column));
-      _columnDictIdLoaded.add(column);
+      _dataFetcher.fetchMultiValueDictIds(columnIndex, _docIds, _startPos, _length, dictIdsArray, 0,
+          getTempDictIdArrayForColumn(columnIndex));
     }
     return dictIdsArray;
   }
 
-  private int[] getTempDictIdArrayForColumn(String column) {
-    if (!_columnToTempDictIdsMap.containsKey(column)) {
-      int maxNumberOfEntries = _dataFetcher.getMaxNumberOfEntriesForColumn(column);
-      int[] tempDictIdArray = new int[maxNumberOfEntries];
-      _columnToTempDictIdsMap.put(column, tempDictIdArray);
+  private int[] getTempDictIdArrayForColumn(int columnIndex) {
+    int[] tempDictIdArray = _tempDictIds[columnIndex];
+    if (tempDictIdArray == null) {
+      tempDictIdArray = new int[_dataFetcher.getMaxNumberOfEntriesForColumn(columnIndex)];
+      _tempDictIds[columnIndex] = tempDictIdArray;
     }
-    return _columnToTempDictIdsMap.get(column);
+    return tempDictIdArray;
   }
 
   /**
@@ -139,15 +238,17 @@ public class DataBlockCache {
    * @return value array associated with this column.
    */
   public int[] getIntValueArrayForColumn(String column) {
-    String key = getKeyForColumnAndType(column, FieldSpec.DataType.INT);
-    int[] intValues = (int []) _columnToValuesMap.get(key);
-    if (!_columnValueLoaded.contains(key)) {
+    return getIntValueArrayForColumn(getColumnIndex(column));
+  }
+
+  public int[] getIntValueArrayForColumn(int columnIndex) {
+    int[] intValues = _intValues[columnIndex];
+    if (!checkAndMarkLoaded(INT_VALUES, columnIndex)) {
       if (intValues == null) {
-        intValues = new int[DocIdSetPlanNode.MAX_DOC_PER_CALL];
-        _columnToValuesMap.put(key, intValues);
+        intValues = REUSABLE_ARRAYS.get().acquireIntArray();
+        _intValues[columnIndex] = intValues;
       }
-      _dataFetcher.fetchIntValues(column, _docIds, _startPos, _length, intValues, 0);
-      _columnValueLoaded.add(key);
+      _dataFetcher.fetchIntValues(columnIndex, _docIds, _startPos, _length, intValues, 0);
     }
     return intValues;
   }
@@ -159,17 +260,17 @@ public class DataBlockCache {
    * @return int values array associated with this column.
    */
   public int[][] getIntValuesArrayForColumn(String column) {
-    String key = getKeyForColumnAndType(column, FieldSpec.DataType.INT_ARRAY);
-    int[][] intValues = (int[][]) _columnToValuesArrayMap.get(key);
+    return getIntValuesArrayForColumn(getColumnIndex(column));
+  }
 
-    if (!_columnValueLoaded.contains(key)) {
+  public int[][] getIntValuesArrayForColumn(int columnIndex) {
+    int[][] intValues = _intValuesMV[columnIndex];
+    if (!checkAndMarkLoaded(INT_VALUES_MV, columnIndex)) {
       if (intValues == null) {
         intValues = new int[DocIdSetPlanNode.MAX_DOC_PER_CALL][];
-        _columnToValuesArrayMap.put(key, intValues);
+        _intValuesMV[columnIndex] = intValues;
       }
-
-      _dataFetcher.fetchIntValues(column, _docIds, _startPos, _length, intValues, 0);
-      _columnValueLoaded.add(key);
+      _dataFetcher.fetchIntValues(columnIndex, _docIds, _startPos, _length, intValues, 0);
     }
     return intValues;
   }
@@ -181,15 +282,17 @@ public class DataBlockCache {
    * @return value array associated with this column.
    */
   public long[] getLongValueArrayForColumn(String column) {
-    String key = getKeyForColumnAndType(column, FieldSpec.DataType.LONG);
-    long[] longValues = (long []) _columnToValuesMap.get(key);
-    if (!_columnValueLoaded.contains(key)) {
+    return getLongValueArrayForColumn(getColumnIndex(column));
+  }
+
+  public long[] getLongValueArrayForColumn(int columnIndex) {
+    long[] longValues = _longValues[columnIndex];
+    if (!checkAndMarkLoaded(LONG_VALUES, columnIndex)) {
       if (longValues == null) {
-        longValues = new long[DocIdSetPlanNode.MAX_DOC_PER_CALL];
-        _columnToValuesMap.put(key, longValues);
+        longValues = REUSABLE_ARRAYS.get().acquireLongArray();
+        _longValues[columnIndex] = longValues;
       }
-      _dataFetcher.fetchLongValues(column, _docIds, _startPos, _length, longValues, 0);
-      _columnValueLoaded.add(key);
+      _dataFetcher.fetchLongValues(columnIndex, _docIds, _startPos, _length, longValues, 0);
     }
     return longValues;
   }
@@ -201,17 +304,17 @@ public class DataBlockCache {
    * @return long values array associated with this column.
    */
   public long[][] getLongValuesArrayForColumn(String column) {
-    String key = getKeyForColumnAndType(column, FieldSpec.DataType.LONG_ARRAY);
-    long[][] longValues = (long[][]) _columnToValuesArrayMap.get(key);
+    return getLongValuesArrayForColumn(getColumnIndex(column));
+  }
 
-    if (!_columnValueLoaded.contains(key)) {
+  public long[][] getLongValuesArrayForColumn(int columnIndex) {
+    long[][] longValues = _longValuesMV[columnIndex];
+    if (!checkAndMarkLoaded(LONG_VALUES_MV, columnIndex)) {
       if (longValues == null) {
         longValues = new long[DocIdSetPlanNode.MAX_DOC_PER_CALL][];
-        _columnToValuesArrayMap.put(key, longValues);
+        _longValuesMV[columnIndex] = longValues;
       }
-
-      _dataFetcher.fetchLongValues(column, _docIds, _startPos, _length, longValues, 0);
-      _columnValueLoaded.add(key);
+      _dataFetcher.fetchLongValues(columnIndex, _docIds, _startPos, _length, longValues, 0);
     }
     return longValues;
   }
@@ -223,15 +326,17 @@ public class DataBlockCache {
    * @return value array associated with this column.
    */
   public float[] getFloatValueArrayForColumn(String column) {
-    String key = getKeyForColumnAndType(column, FieldSpec.DataType.FLOAT);
-    float[] floatValues = (float []) _columnToValuesMap.get(key);
-    if (!_columnValueLoaded.contains(key)) {
+    return getFloatValueArrayForColumn(getColumnIndex(column));
+  }
+
+  public float[] getFloatValueArrayForColumn(int columnIndex) {
+    float[] floatValues = _floatValues[columnIndex];
+    if (!checkAndMarkLoaded(FLOAT_VALUES, columnIndex)) {
       if (floatValues == null) {
-        floatValues = new float[DocIdSetPlanNode.MAX_DOC_PER_CALL];
-        _columnToValuesMap.put(key, floatValues);
+        floatValues = REUSABLE_ARRAYS.get().acquireFloatArray();
+        _floatValues[columnIndex] = floatValues;
       }
-      _dataFetcher.fetchFloatValues(column, _docIds, _startPos, _length, floatValues, 0);
-      _columnValueLoaded.add(key);
+      _dataFetcher.fetchFloatValues(columnIndex, _docIds, _startPos, _length, floatValues, 0);
     }
     return floatValues;
   }
@@ -243,17 +348,17 @@ public class DataBlockCache {
    * @return long values array associated with this column.
    */
   public float[][] getFloatValuesArrayForColumn(String column) {
-    String key = getKeyForColumnAndType(column, FieldSpec.DataType.FLOAT_ARRAY);
-    float[][] floatValues = (float[][]) _columnToValuesArrayMap.get(key);
+    return getFloatValuesArrayForColumn(getColumnIndex(column));
+  }
 
-    if (!_columnValueLoaded.contains(key)) {
+  public float[][] getFloatValuesArrayForColumn(int columnIndex) {
+    float[][] floatValues = _floatValuesMV[columnIndex];
+    if (!checkAndMarkLoaded(FLOAT_VALUES_MV, columnIndex)) {
       if (floatValues == null) {
         floatValues = new float[DocIdSetPlanNode.MAX_DOC_PER_CALL][];
-        _columnToValuesArrayMap.put(key, floatValues);
+        _floatValuesMV[columnIndex] = floatValues;
       }
-
-      _dataFetcher.fetchFloatValues(column, _docIds, _startPos, _length, floatValues, 0);
-      _columnValueLoaded.add(key);
+      _dataFetcher.fetchFloatValues(columnIndex, _docIds, _startPos, _length, floatValues, 0);
     }
     return floatValues;
   }
@@ -265,15 +370,17 @@ public class DataBlockCache {
    * @return value array associated with this column.
    */
   public double[] getDoubleValueArrayForColumn(String column) {
-    String key = getKeyForColumnAndType(column, FieldSpec.DataType.DOUBLE);
-    double[] doubleValues = (double []) _columnToValuesMap.get(key);
-    if (!_columnValueLoaded.contains(key)) {
+    return getDoubleValueArrayForColumn(getColumnIndex(column));
+  }
+
+  public double[] getDoubleValueArrayForColumn(int columnIndex) {
+    double[] doubleValues = _doubleValues[columnIndex];
+    if (!checkAndMarkLoaded(DOUBLE_VALUES, columnIndex)) {
       if (doubleValues == null) {
-        doubleValues = new double[DocIdSetPlanNode.MAX_DOC_PER_CALL];
-        _columnToValuesMap.put(key, doubleValues);
+        doubleValues = REUSABLE_ARRAYS.get().acquireDoubleArray();
+        _doubleValues[columnIndex] = doubleValues;
       }
-      _dataFetcher.fetchDoubleValues(column, _docIds, _startPos, _length, doubleValues, 0);
-      _columnValueLoaded.add(key);
+      _dataFetcher.fetchDoubleValues(columnIndex, _docIds, _startPos, _length, doubleValues, 0);
     }
     return doubleValues;
   }
@@ -285,39 +392,42 @@ public class DataBlockCache {
    * @return double values array associated with this column.
    */
   public double[][] getDoubleValuesArrayForColumn(String column) {
-    String key = getKeyForColumnAndType(column, FieldSpec.DataType.DOUBLE_ARRAY);
-    double[][] doubleValuesArray = (double[][]) _columnToValuesArrayMap.get(key);
+    return getDoubleValuesArrayForColumn(getColumnIndex(column));
+  }
 
-    if (!_columnValueLoaded.contains(key)) {
+  public double[][] getDoubleValuesArrayForColumn(int columnIndex) {
+    double[][] doubleValuesArray = _doubleValuesMV[columnIndex];
+    if (!checkAndMarkLoaded(DOUBLE_VALUES_MV, columnIndex)) {
       if (doubleValuesArray == null) {
         doubleValuesArray = new double[DocIdSetPlanNode.MAX_DOC_PER_CALL][];
-        _columnToValuesArrayMap.put(key, doubleValuesArray);
+        _doubleValuesMV[columnIndex] = doubleValuesArray;
       }
-
-      _dataFetcher.fetchDoubleValues(column, _docIds, _startPos, _length, doubleValuesArray, 0);
-      _columnValueLoaded.add(key);
+      _dataFetcher.fetchDoubleValues(columnIndex, _docIds, _startPos, _length, doubleValuesArray, 0);
     }
     return doubleValuesArray;
   }
 
   /**
-   * Get hash code array for a given column for the specific block initialized in the initNewBlock.
+   * Get number of entries array for a given multi-valued column for the specific block initialized in the initNewBlock.
    *
    * @param column column name.
-   * @return hash codes array associated with this column.
+   * @return number of entries array associated with this column.
    */
   public int[] getNumberOfEntriesArrayForColumn(String column) {
-    int[] numberOfEntriesArray = _columnToNumberOfEntriesMap.get(column);
-    if (!_columnHashCodeLoaded.contains(column)) {
+    return getNumberOfEntriesArrayForColumn(getColumnIndex(column));
+  }
+
+  public int[] getNumberOfEntriesArrayForColumn(int columnIndex) {
+    int[] numberOfEntriesArray = _numEntries[columnIndex];
+    if (!checkAndMarkLoaded(NUM_ENTRIES, columnIndex)) {
       if (numberOfEntriesArray == null) {
-        numberOfEntriesArray = new int[DocIdSetPlanNode.MAX_DOC_PER_CALL];
-        _columnToNumberOfEntriesMap.put(column, numberOfEntriesArray);
+        numberOfEntriesArray = REUSABLE_ARRAYS.get().acquireIntArray();
+        _numEntries[columnIndex] = numberOfEntriesArray;
       }
-      int[][] dictIdsArray = getDictIdsArrayForColumn(column);
+      int[][] dictIdsArray = getDictIdsArrayForColumn(columnIndex);
       for (int pos = 0; pos < _length; ++pos) {
         numberOfEntriesArray[pos] = dictIdsArray[pos].length;
       }
-      _columnHashCodeLoaded.add(column);
     }
     return numberOfEntriesArray;
   }
@@ -329,14 +439,17 @@ public class DataBlockCache {
    * @return value array associated with this column.
    */
   public String[] getStringValueArrayForColumn(String column) {
-    String[] stringValues = _columnToStringsMap.get(column);
-    if (!_columnStringLoaded.contains(column)) {
+    return getStringValueArrayForColumn(getColumnIndex(column));
+  }
+
+  public String[] getStringValueArrayForColumn(int columnIndex) {
+    String[] stringValues = _stringValues[columnIndex];
+    if (!checkAndMarkLoaded(STRING_VALUES, columnIndex)) {
       if (stringValues == null) {
-        stringValues = new String[DocIdSetPlanNode.MAX_DOC_PER_CALL];
-        _columnToStringsMap.put(column, stringValues);
+        stringValues = REUSABLE_ARRAYS.get().acquireStringArray();
+        _stringValues[columnIndex] = stringValues;
       }
-      _dataFetcher.fetchStringValues(column, _docIds, _startPos, _length, stringValues, 0);
-      _columnStringLoaded.add(column);
+      _dataFetcher.fetchStringValues(columnIndex, _docIds, _startPos, _length, stringValues, 0);
     }
     return stringValues;
   }
@@ -348,15 +461,17 @@ public class DataBlockCache {
    * @return string values array associated with this column.
    */
   public String[][] getStringValuesArrayForColumn(String column) {
-    String[][] stringsArray = _columnToStringsArrayMap.get(column);
-    if (!_columnHashCodeLoaded.contains(column)) {
+    return getStringValuesArrayForColumn(getColumnIndex(column));
+  }
+
+  public String[][] getStringValuesArrayForColumn(int columnIndex) {
+    String[][] stringsArray = _stringValuesMV[columnIndex];
+    if (!checkAndMarkLoaded(STRING_VALUES_MV, columnIndex)) {
       if (stringsArray == null) {
         stringsArray = new String[DocIdSetPlanNode.MAX_DOC_PER_CALL][];
-        _columnToStringsArrayMap.put(column, stringsArray);
+        _stringValuesMV[columnIndex] = stringsArray;
       }
-
-      _dataFetcher.fetchStringValues(column, _docIds, _startPos, _length, stringsArray, 0);
-      _columnHashCodeLoaded.add(column);
+      _dataFetcher.fetchStringValues(columnIndex, _docIds, _startPos, _length, stringsArray, 0);
     }
     return stringsArray;
   }
@@ -371,6 +486,10 @@ public class DataBlockCache {
     return _dataFetcher.getDataType(column);
   }
 
+  public FieldSpec.DataType getDataType(int columnIndex) {
+    return _dataFetcher.getDataType(columnIndex);
+  }
+
   /**
    * Returns the block metadata for the given column.
    *
@@ -381,6 +500,10 @@ public class DataBlockCache {
     return _dataFetcher.getBlockMetadataFor(column);
   }
 
+  public BlockMetadata getMetadataFor(int columnIndex) {
+    return _dataFetcher.getBlockMetadataFor(columnIndex);
+  }
+
   /**
    * Returns the data fetcher
    *
@@ -391,17 +514,71 @@ public class DataBlockCache {
   }
 
   /**
-   * Helper method that generates a key for {@link #_columnToValuesMap} using column name and data type
-   * to be fetched for the column.
-   *
-   * @param column Column Name
-   * @param dataType Data Type
-   * @return Key of column name and data type
+   * Per thread pool of the single value buffers, all of size {@link DocIdSetPlanNode#MAX_DOC_PER_CALL}. Only accessed by
+   * the owning thread, so no synchronization is needed.
    */
-  private String getKeyForColumnAndType(String column, FieldSpec.DataType dataType) {
-    StringBuilder builder = new StringBuilder(column);
-    builder.append("_");
-    builder.append(dataType);
-    return builder.toString();
+  private static final class ReusableArrays {
+    private final ArrayDeque<int[]> _intArrays = new ArrayDeque<>();
+    private final ArrayDeque<long[]> _longArrays = new ArrayDeque<>();
+    private final ArrayDeque<float[]> _floatArrays = new ArrayDeque<>();
+    private final ArrayDeque<double[]> _doubleArrays = new ArrayDeque<>();
+    private final ArrayDeque<String[]> _stringArrays = new ArrayDeque<>();
+
+    int[] acquireIntArray() {
+      int[] array = _intArrays.pollFirst();
+      return (array != null) ? array : new int[DocIdSetPlanNode.MAX_DOC_PER_CALL];
+    }
+
+    long[] acquireLongArray() {
+      long[] array = _longArrays.pollFirst();
+      return (array != null) ? array : new long[DocIdSetPlanNode.MAX_DOC_PER_CALL];
+    }
+
+    float[] acquireFloatArray() {
+      float[] array = _floatArrays.pollFirst();
+      return (array != null) ? array : new float[DocIdSetPlanNode.MAX_DOC_PER_CALL];
+    }
+
+    double[] acquireDoubleArray() {
+      double[] array = _doubleArrays.pollFirst();
+      return (array != null) ? array : new double[DocIdSetPlanNode.MAX_DOC_PER_CALL];
+    }
+
+    String[] acquireStringArray() {
+      String[] array = _stringArrays.pollFirst();
+      return (array != null) ? array : new String[DocIdSetPlanNode.MAX_DOC_PER_CALL];
+    }
+
+    void releaseIntArray(int[] array) {
+      if (array != null && _intArrays.size() < MAX_POOLED_ARRAYS_PER_TYPE) {
+        _intArrays.addFirst(array);
+      }
+    }
+
+    void releaseLongArray(long[] array) {
+      if (array != null && _longArrays.size() < MAX_POOLED_ARRAYS_PER_TYPE) {
+        _longArrays.addFirst(array);
+      }
+    }
+
+    void releaseFloatArray(float[] array) {
+      if (array != null && _floatArrays.size() < MAX_POOLED_ARRAYS_PER_TYPE) {
+        _floatArrays.addFirst(array);
+      }
+    }
+
+    void releaseDoubleArray(double[] array) {
+      if (array != null && _doubleArrays.size() < MAX_POOLED_ARRAYS_PER_TYPE) {
+        _doubleArrays.addFirst(array);
+      }
+    }
+
+    void releaseStringArray(String[] array) {
+      if (array != null && _stringArrays.size() < MAX_POOLED_ARRAYS_PER_TYPE) {
+        // Do not keep the values of the previous segment reachable.
+        Arrays.fill(array, null);
+        _stringArrays.addFirst(array);
+      }
+    }
   }
 }
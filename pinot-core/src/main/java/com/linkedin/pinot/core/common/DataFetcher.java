@@ -35,13 +35,15 @@ import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 public class DataFetcher {
   private static final BlockId BLOCK_ZERO = new BlockId(0);
 
-  private final Map<String, Dictionary> _columnToDictionaryMap;
-  private final Map<String, BlockValSet> _columnToBlockValSetMap;
-  private final Map<String, BlockValIterator> _columnToBlockValIteratorMap;
-  private final Map<String, BlockMetadata> _columnToBlockMetadataMap;
+  // Map from column name to column index, all the other per column data structures are indexed by column index.
+  private final Map<String, Integer> _columnToIndexMap;
+  private final Dictionary[] _dictionaries;
+  private final BlockValSet[] _blockValSets;
+  private final BlockValIterator[] _blockValIterators;
+  private final BlockMetadata[] _blockMetadatas;
 
-  // Map from MV column name to max number of entries for the column.
-  private final Map<String, Integer> _columnToMaxNumMultiValuesMap;
+  // Max number of entries for each MV column.
+  private final int[] _maxNumMultiValues;
 
   // Re-usable array for all dictionary ids in the block, of a single valued column
   private final int[] _reusableDictIds;
@@ -55,34 +57,58 @@ public class DataFetcher {
    * @param columnToDataSourceMap Map from column name to data source
    */
   public DataFetcher(Map<String, BaseOperator> columnToDataSourceMap) {
-    _columnToDictionaryMap = new HashMap<>();
-    _columnToBlockValSetMap = new HashMap<>();
-    _columnToBlockValIteratorMap = new HashMap<>();
-    _columnToBlockMetadataMap = new HashMap<>();
+    int numColumns = columnToDataSourceMap.size();
+    _columnToIndexMap = new HashMap<>(numColumns);
+    _dictionaries = new Dictionary[numColumns];
+    _blockValSets = new BlockValSet[numColumns];
+    _blockValIterators = new BlockValIterator[numColumns];
+    _blockMetadatas = new BlockMetadata[numColumns];
+    _maxNumMultiValues = new int[numColumns];
 
     _reusableDictIds = new int[DocIdSetPlanNode.MAX_DOC_PER_CALL];
-    _columnToMaxNumMultiValuesMap = new HashMap<>();
 
     int reusableMVDictIdSize = 0;
-    for (String column : columnToDataSourceMap.keySet()) {
-      BaseOperator dataSource = columnToDataSourceMap.get(column);
-      Block dataSourceBlock = dataSource.nextBlock(BLOCK_ZERO);
+    int columnIndex = 0;
+    for (Map.Entry<String, BaseOperator> entry : columnToDataSourceMap.entrySet()) {
+      _columnToIndexMap.put(entry.getKey(), columnIndex);
+      Block dataSourceBlock = entry.getValue().nextBlock(BLOCK_ZERO);
       BlockMetadata metadata = dataSourceBlock.getMetadata();
-      _columnToDictionaryMap.put(column, metadata.getDictionary());
+      _dictionaries[columnIndex] = metadata.getDictionary();
 
       BlockValSet blockValSet = dataSourceBlock.getBlockValueSet();
-      _columnToBlockValSetMap.put(column, blockValSet);
-      _columnToBlockValIteratorMap.put(column, blockValSet.iterator());
-      _columnToBlockMetadataMap.put(column, metadata);
+      _blockValSets[columnIndex] = blockValSet;
+      _blockValIterators[columnIndex] = blockValSet.iterator();
+      _blockMetadatas[columnIndex] = metadata;
 
       int maxNumberOfMultiValues = metadata.getMaxNumberOfMultiValues();
-      _columnToMaxNumMultiValuesMap.put(column, maxNumberOfMultiValues);
+      _maxNumMultiValues[columnIndex] = maxNumberOfMultiValues;
       reusableMVDictIdSize = Math.max(reusableMVDictIdSize, maxNumberOfMultiValues);
+      columnIndex++;
     }
 
     _reusableMVDictIds = new int[reusableMVDictIdSize];
   }
 
+  /**
+   * Returns the number of columns managed by this data fetcher.
+   */
+  public int getNumColumns() {
+    return _dictionaries.length;
+  }
+
+  /**
+   * Resolves a column to its index, which can be used with all the index based methods. Callers on hot paths should
+   * resolve the column once and reuse the index.
+   *
+   * @param column column name.
+   * @return index of the column.
+   */
+  public int getColumnIndex(String column) {
+    Integer columnIndex = _columnToIndexMap.get(column);
+    Preconditions.checkArgument(columnIndex != null, "Invalid column %s specified in DataFetcher.", column);
+    return columnIndex;
+  }
+
   /**
    * Given a column, fetch its dictionary.
    *
@@ -90,7 +116,12 @@ public class DataFetcher {
    * @return dictionary associated with this column.
    */
   public Dictionary getDictionaryForColumn(String column) {
-    return _columnToDictionaryMap.get(column);
+    Integer columnIndex = _columnToIndexMap.get(column);
+    return (columnIndex != null) ? _dictionaries[columnIndex] : null;
+  }
+
+  public Dictionary getDictionaryForColumn(int columnIndex) {
+    return _dictionaries[columnIndex];
   }
 
   /**
@@ -100,7 +131,8 @@ public class DataFetcher {
    * @return block value set associated with this column.
    */
   public BlockValSet getBlockValSetForColumn(String column) {
-    return _columnToBlockValSetMap.get(column);
+    Integer columnIndex = _columnToIndexMap.get(column);
+    return (columnIndex != null) ? _blockValSets[columnIndex] : null;
   }
 
   /**
@@ -110,11 +142,21 @@ public class DataFetcher {
    * @return BlockValIterator for the column.
    */
   public BlockValIterator getBlockValIteratorForColumn(String column) {
-    return _columnToBlockValIteratorMap.get(column);
+    Integer columnIndex = _columnToIndexMap.get(column);
+    return (columnIndex != null) ? _blockValIterators[columnIndex] : null;
+  }
+
+  public BlockValIterator getBlockValIteratorForColumn(int columnIndex) {
+    return _blockValIterators[columnIndex];
   }
 
   public BlockMetadata getBlockMetadataFor(String column) {
-    return _columnToBlockMetadataMap.get(column);
+    Integer columnIndex = _columnToIndexMap.get(column);
+    return (columnIndex != null) ? _blockMetadatas[columnIndex] : null;
+  }
+
+  public BlockMetadata getBlockMetadataFor(int columnIndex) {
+    return _blockMetadatas[columnIndex];
   }
 
   /**
@@ -128,8 +170,12 @@ public class DataFetcher {
    * @param outStartPos output start position.
    */
   public void fetchSingleDictIds(String column, int[] inDocIds, int inStartPos, int length, int[] outDictIds, int outStartPos) {
-    BlockValSet blockValSet = getBlockValSetForColumn(column);
-    blockValSet.getDictionaryIds(inDocIds, inStartPos, length, outDictIds, outStartPos);
+    fetchSingleDictIds(getColumnIndex(column), inDocIds, inStartPos, length, outDictIds, outStartPos);
+  }
+
+  public void fetchSingleDictIds(int columnIndex, int[] inDocIds, int inStartPos, int length, int[] outDictIds,
+      int outStartPos) {
+    _blockValSets[columnIndex].getDictionaryIds(inDocIds, inStartPos, length, outDictIds, outStartPos);
   }
 
   /**
@@ -146,7 +192,13 @@ public class DataFetcher {
    */
   public void fetchMultiValueDictIds(String column, int[] inDocIds, int inStartPos, int length, int[][] outDictIdsArray, int outStartPos,
       int[] tempDictIdArray) {
-    BlockMultiValIterator iterator = (BlockMultiValIterator) getBlockValIteratorForColumn(column);
+    fetchMultiValueDictIds(getColumnIndex(column), inDocIds, inStartPos, length, outDictIdsArray, outStartPos,
+        tempDictIdArray);
+  }
+
+  public void fetchMultiValueDictIds(int columnIndex, int[] inDocIds, int inStartPos, int length,
+      int[][] outDictIdsArray, int outStartPos, int[] tempDictIdArray) {
+    BlockMultiValIterator iterator = (BlockMultiValIterator) _blockValIterators[columnIndex];
     for (int i = inStartPos; i < inStartPos + length; i++, outStartPos++) {
       iterator.skipTo(inDocIds[i]);
       int dictIdLength = iterator.nextIntVal(tempDictIdArray);
@@ -162,7 +214,11 @@ public class DataFetcher {
    * @return max number of entries for a given column.
    */
   public int getMaxNumberOfEntriesForColumn(String column) {
-    return _columnToMaxNumMultiValuesMap.get(column);
+    return _maxNumMultiValues[getColumnIndex(column)];
+  }
+
+  public int getMaxNumberOfEntriesForColumn(int columnIndex) {
+    return _maxNumMultiValues[columnIndex];
   }
 
   /**
@@ -176,13 +232,17 @@ public class DataFetcher {
    * @param outStartPos output start position.
    */
   public void fetchIntValues(String column, int[] inDocIds, int inStartPos, int length, int[] outValues, int outStartPos) {
-    Dictionary dictionary = getDictionaryForColumn(column);
+    fetchIntValues(getColumnIndex(column), inDocIds, inStartPos, length, outValues, outStartPos);
+  }
+
+  public void fetchIntValues(int columnIndex, int[] inDocIds, int inStartPos, int length, int[] outValues,
+      int outStartPos) {
+    Dictionary dictionary = _dictionaries[columnIndex];
     if (dictionary != null) {
-      fetchSingleDictIds(column, inDocIds, inStartPos, length, _reusableDictIds, 0);
+      fetchSingleDictIds(columnIndex, inDocIds, inStartPos, length, _reusableDictIds, 0);
       dictionary.readIntValues(_reusableDictIds, 0, length, outValues, outStartPos);
     } else {
-      BlockValSet blockValSet = _columnToBlockValSetMap.get(column);
-      blockValSet.getIntValues(inDocIds, inStartPos, length, outValues, outStartPos);
+      _blockValSets[columnIndex].getIntValues(inDocIds, inStartPos, length, outValues, outStartPos);
     }
   }
 
@@ -197,8 +257,13 @@ public class DataFetcher {
    * @param outStartPos output start position.
    */
   public void fetchIntValues(String column, int[] inDocIds, int inStartPos, int length, int[][] outValues, int outStartPos) {
-    Dictionary dictionary = getDictionaryForColumn(column);
-    BlockMultiValIterator iterator = (BlockMultiValIterator) getBlockValIteratorForColumn(column);
+    fetchIntValues(getColumnIndex(column), inDocIds, inStartPos, length, outValues, outStartPos);
+  }
+
+  public void fetchIntValues(int columnIndex, int[] inDocIds, int inStartPos, int length, int[][] outValues,
+      int outStartPos) {
+    Dictionary dictionary = _dictionaries[columnIndex];
+    BlockMultiValIterator iterator = (BlockMultiValIterator) _blockValIterators[columnIndex];
 
     int inEndPos = inStartPos + length;
     for (int i = inStartPos; i < inEndPos; i++, outStartPos++) {
@@ -220,13 +285,17 @@ public class DataFetcher {
    * @param outStartPos output start position.
    */
   public void fetchLongValues(String column, int[] inDocIds, int inStartPos, int length, long[] outValues, int outStartPos) {
-    Dictionary dictionary = getDictionaryForColumn(column);
+    fetchLongValues(getColumnIndex(column), inDocIds, inStartPos, length, outValues, outStartPos);
+  }
+
+  public void fetchLongValues(int columnIndex, int[] inDocIds, int inStartPos, int length, long[] outValues,
+      int outStartPos) {
+    Dictionary dictionary = _dictionaries[columnIndex];
     if (dictionary != null) {
-      fetchSingleDictIds(column, inDocIds, inStartPos, length, _reusableDictIds, 0);
+      fetchSingleDictIds(columnIndex, inDocIds, inStartPos, length, _reusableDictIds, 0);
       dictionary.readLongValues(_reusableDictIds, 0, length, outValues, outStartPos);
     } else {
-      BlockValSet blockValSet = _columnToBlockValSetMap.get(column);
-      blockValSet.getLongValues(inDocIds, inStartPos, length, outValues, outStartPos);
+      _blockValSets[columnIndex].getLongValues(inDocIds, inStartPos, length, outValues, outStartPos);
     }
   }
 
@@ -241,8 +310,13 @@ public class DataFetcher {
    * @param outStartPos output start position.
    */
   public void fetchLongValues(String column, int[] inDocIds, int inStartPos, int length, long[][] outValues, int outStartPos) {
-    Dictionary dictionary = getDictionaryForColumn(column);
-    BlockMultiValIterator iterator = (BlockMultiValIterator) getBlockValIteratorForColumn(column);
+    fetchLongValues(getColumnIndex(column), inDocIds, inStartPos, length, outValues, outStartPos);
+  }
+
+  public void fetchLongValues(int columnIndex, int[] inDocIds, int inStartPos, int length, long[][] outValues,
+      int outStartPos) {
+    Dictionary dictionary = _dictionaries[columnIndex];
+    BlockMultiValIterator iterator = (BlockMultiValIterator) _blockValIterators[columnIndex];
 
     int inEndPos = inStartPos + length;
     for (int i = inStartPos; i < inEndPos; i++, outStartPos++) {
@@ -264,13 +338,17 @@ public class DataFetcher {
    * @param outStartPos output start position.
    */
   public void fetchFloatValues(String column, int[] inDocIds, int inStartPos, int length, float[] outValues, int outStartPos) {
-    Dictionary dictionary = getDictionaryForColumn(column);
+    fetchFloatValues(getColumnIndex(column), inDocIds, inStartPos, length, outValues, outStartPos);
+  }
+
+  public void fetchFloatValues(int columnIndex, int[] inDocIds, int inStartPos, int length, float[] outValues,
+      int outStartPos) {
+    Dictionary dictionary = _dictionaries[columnIndex];
     if (dictionary != null) {
-      fetchSingleDictIds(column, inDocIds, inStartPos, length, _reusableDictIds, 0);
+      fetchSingleDictIds(columnIndex, inDocIds, inStartPos, length, _reusableDictIds, 0);
       dictionary.readFloatValues(_reusableDictIds, 0, length, outValues, outStartPos);
     } else {
-      BlockValSet blockValSet = _columnToBlockValSetMap.get(column);
-      blockValSet.getFloatValues(inDocIds, inStartPos, length, outValues, outStartPos);
+      _blockValSets[columnIndex].getFloatValues(inDocIds, inStartPos, length, outValues, outStartPos);
     }
   }
 
@@ -285,8 +363,13 @@ public class DataFetcher {
    * @param outStartPos output start position.
    */
   public void fetchFloatValues(String column, int[] inDocIds, int inStartPos, int length, float[][] outValues, int outStartPos) {
-    Dictionary dictionary = getDictionaryForColumn(column);
-    BlockMultiValIterator iterator = (BlockMultiValIterator) getBlockValIteratorForColumn(column);
+    fetchFloatValues(getColumnIndex(column), inDocIds, inStartPos, length, outValues, outStartPos);
+  }
+
+  public void fetchFloatValues(int columnIndex, int[] inDocIds, int inStartPos, int length, float[][] outValues,
+      int outStartPos) {
+    Dictionary dictionary = _dictionaries[columnIndex];
+    BlockMultiValIterator iterator = (BlockMultiValIterator) _blockValIterators[columnIndex];
 
     int inEndPos = inStartPos + length;
     for (int i = inStartPos; i < inEndPos; i++, outStartPos++) {
@@ -308,13 +391,17 @@ public class DataFetcher {
    * @param outStartPos output start position.
    */
   public void fetchDoubleValues(String column, int[] inDocIds, int inStartPos, int length, double[] outValues, int outStartPos) {
-    Dictionary dictionary = getDictionaryForColumn(column);
+    fetchDoubleValues(getColumnIndex(column), inDocIds, inStartPos, length, outValues, outStartPos);
+  }
+
+  public void fetchDoubleValues(int columnIndex, int[] inDocIds, int inStartPos, int length, double[] outValues,
+      int outStartPos) {
+    Dictionary dictionary = _dictionaries[columnIndex];
     if (dictionary != null) {
-      fetchSingleDictIds(column, inDocIds, inStartPos, length, _reusableDictIds, 0);
+      fetchSingleDictIds(columnIndex, inDocIds, inStartPos, length, _reusableDictIds, 0);
       dictionary.readDoubleValues(_reusableDictIds, 0, length, outValues, outStartPos);
     } else {
-      BlockValSet blockValSet = _columnToBlockValSetMap.get(column);
-      blockValSet.getDoubleValues(inDocIds, inStartPos, length, outValues, outStartPos);
+      _blockValSets[columnIndex].getDoubleValues(inDocIds, inStartPos, length, outValues, outStartPos);
     }
   }
 
@@ -329,8 +416,13 @@ public class DataFetcher {
    * @param outStartPos output start position.
    */
   public void fetchDoubleValues(String column, int[] inDocIds, int inStartPos, int length, double[][] outValues, int outStartPos) {
-    Dictionary dictionary = getDictionaryForColumn(column);
-    BlockMultiValIterator iterator = (BlockMultiValIterator) getBlockValIteratorForColumn(column);
+    fetchDoubleValues(getColumnIndex(column), inDocIds, inStartPos, length, outValues, outStartPos);
+  }
+
+  public void fetchDoubleValues(int columnIndex, int[] inDocIds, int inStartPos, int length, double[][] outValues,
+      int outStartPos) {
+    Dictionary dictionary = _dictionaries[columnIndex];
+    BlockMultiValIterator iterator = (BlockMultiValIterator) _blockValIterators[columnIndex];
 
     int inEndPos = inStartPos + length;
     for (int i = inStartPos; i < inEndPos; i++, outStartPos++) {
@@ -349,13 +441,17 @@ public class DataFetcher {
    * @param length Length of input docIds
    */
   public void fetchStringValues(String column, int[] inDocIds, int inStartPos, int length, String[] outValues, int outStartPos) {
-    Dictionary dictionary = getDictionaryForColumn(column);
+    fetchStringValues(getColumnIndex(column), inDocIds, inStartPos, length, outValues, outStartPos);
+  }
+
+  public void fetchStringValues(int columnIndex, int[] inDocIds, int inStartPos, int length, String[] outValues,
+      int outStartPos) {
+    Dictionary dictionary = _dictionaries[columnIndex];
     if (dictionary != null) {
-      fetchSingleDictIds(column, inDocIds, inStartPos, length, _reusableDictIds, 0);
+      fetchSingleDictIds(columnIndex, inDocIds, inStartPos, length, _reusableDictIds, 0);
       dictionary.readStringValues(_reusableDictIds, 0, length, outValues, outStartPos);
     } else {
-      BlockValSet blockValSet = _columnToBlockValSetMap.get(column);
-      blockValSet.getStringValues(inDocIds, inStartPos, length, outValues, outStartPos);
+      _blockValSets[columnIndex].getStringValues(inDocIds, inStartPos, length, outValues, outStartPos);
     }
   }
 
@@ -367,8 +463,13 @@ public class DataFetcher {
    * @param length Length of input docIds
    */
   public void fetchStringValues(String column, int[] inDocIds, int inStartPos, int length, String[][] outValues, int outStartPos) {
-    Dictionary dictionary = getDictionaryForColumn(column);
-    BlockMultiValIterator iterator = (BlockMultiValIterator) getBlockValIteratorForColumn(column);
+    fetchStringValues(getColumnIndex(column), inDocIds, inStartPos, length, outValues, outStartPos);
+  }
+
+  public void fetchStringValues(int columnIndex, int[] inDocIds, int inStartPos, int length, String[][] outValues,
+      int outStartPos) {
+    Dictionary dictionary = _dictionaries[columnIndex];
+    BlockMultiValIterator iterator = (BlockMultiValIterator) _blockValIterators[columnIndex];
 
     int inEndPos = inStartPos + length;
     for (int i = inStartPos; i < inEndPos; i++, outStartPos++) {
@@ -386,8 +487,10 @@ public class DataFetcher {
    * @return Data type of the column.
    */
   public FieldSpec.DataType getDataType(String column) {
-    BlockMetadata blockMetadata = _columnToBlockMetadataMap.get(column);
-    Preconditions.checkNotNull(blockMetadata, "Invalid column " + column + " specified in DataFetcher.");
-    return blockMetadata.getDataType();
+    return _blockMetadatas[getColumnIndex(column)].getDataType();
+  }
+
+  public FieldSpec.DataType getDataType(int columnIndex) {
+    return _blockMetadatas[columnIndex].getDataType();
   }
 }
@@ -15,6 +15,7 @@
  */
 package com.linkedin.pinot.core.common.datatable;
 
+import com.google.common.base.Preconditions;
 import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.request.AggregationInfo;
 import com.linkedin.pinot.common.request.BrokerRequest;
@@ -80,9 +81,19 @@ import javax.annotation.Nonnull;
 // TODO:   2. Use one dictionary for all columns (save space).
 // TODO:   3. Given a data schema, write all values one by one instead of using rowId and colId to position (save time).
 public class DataTableBuilder {
+  public static final int VERSION_2 = 2;
+  public static final int VERSION_3 = DataTableImplV3.VERSION;
+
+  // Brokers must be able to read the new version before servers start sending it, so stay on version 2 by default.
+  private static volatile int _currentVersion = VERSION_2;
+
+  private final int _version;
   private final DataSchema _dataSchema;
   private final int[] _columnOffsets;
   private final int _rowSizeInBytes;
+  // For version 3, value size and column-major output stream of each column.
+  private final int[] _columnSizes;
+  private final ByteArrayOutputStream[] _columnByteArrayOutputStreams;
   private final Map<String, Map<String, Integer>> _dictionaryMap = new HashMap<>();
   private final Map<String, Map<Integer, String>> _reverseDictionaryMap = new HashMap<>();
   private final ByteArrayOutputStream _fixedSizeDataByteArrayOutputStream = new ByteArrayOutputStream();
@@ -94,9 +105,36 @@ public class DataTableBuilder {
   private ByteBuffer _currentRowDataByteBuffer;
 
   public DataTableBuilder(@Nonnull DataSchema dataSchema) {
+    _version = _currentVersion;
     _dataSchema = dataSchema;
-    _columnOffsets = new int[dataSchema.size()];
+    int numColumns = dataSchema.size();
+    _columnOffsets = new int[numColumns];
     _rowSizeInBytes = DataTableUtils.computeColumnOffsets(dataSchema, _columnOffsets);
+    if (_version == VERSION_3) {
+      _columnSizes = new int[numColumns];
+      DataTableImplV3.computeColumnLayout(dataSchema, 0, new int[numColumns], _columnSizes);
+      _columnByteArrayOutputStreams = new ByteArrayOutputStream[numColumns];
+      for (int i = 0; i < numColumns; i++) {
+        _columnByteArrayOutputStreams[i] = new ByteArrayOutputStream();
+      }
+    } else {
+      _columnSizes = null;
+      _columnByteArrayOutputStreams = null;
+    }
+  }
+
+  /**
+   * Sets the version of the data tables built from now on. Version 3 can only be read by brokers that include
+   * {@link DataTableImplV3}.
+   */
+  public static void setCurrentDataTableVersion(int version) {
+    Preconditions.checkArgument(version == VERSION_2 || version == VERSION_3, "Unsupported data table version: %s",
+        version);
+    _currentVersion = version;
+  }
+
+  public static int getCurrentDataTableVersion() {
+    return _currentVersion;
   }
 
   public void startRow() {
@@ -273,10 +311,40 @@ public class DataTableBuilder {
 
   public void finishRow()
       throws IOException {
-    _fixedSizeDataByteArrayOutputStream.write(_currentRowDataByteBuffer.array());
+    byte[] rowBytes = _currentRowDataByteBuffer.array();
+    if (_version == VERSION_3) {
+      // FLOAT values take the first 4 bytes of their 8 bytes slot in the row.
+      int numColumns = _columnOffsets.length;
+      for (int i = 0; i < numColumns; i++) {
+        _columnByteArrayOutputStreams[i].write(rowBytes, _columnOffsets[i], _columnSizes[i]);
+      }
+    } else {
+      _fixedSizeDataByteArrayOutputStream.write(rowBytes);
+    }
   }
 
   public DataTable build() {
+    if (_version == VERSION_3) {
+      try {
+        for (ByteArrayOutputStream columnByteArrayOutputStream : _columnByteArrayOutputStreams) {
+          columnByteArrayOutputStream.writeTo(_fixedSizeDataByteArrayOutputStream);
+        }
+      } catch (IOException e) {
+        // Should never happen when writing into a ByteArrayOutputStream.
+        throw new IllegalStateException("Caught exception while concatenating columns.", e);
+      }
+      Map<String, String[]> dictionaryMap = new HashMap<>(_reverseDictionaryMap.size());
+      for (Map.Entry<String, Map<Integer, String>> entry : _reverseDictionaryMap.entrySet()) {
+        Map<Integer, String> reverseDictionary = entry.getValue();
+        String[] dictionary = new String[reverseDictionary.size()];
+        for (Map.Entry<Integer, String> dictionaryEntry : reverseDictionary.entrySet()) {
+          dictionary[dictionaryEntry.getKey()] = dictionaryEntry.getValue();
+        }
+        dictionaryMap.put(entry.getKey(), dictionary);
+      }
+      return new DataTableImplV3(_numRows, _dataSchema, dictionaryMap,
+          _fixedSizeDataByteArrayOutputStream.toByteArray(), _variableSizeDataByteArrayOutputStream.toByteArray());
+    }
     return new DataTableImplV2(_numRows, _dataSchema, _reverseDictionaryMap,
         _fixedSizeDataByteArrayOutputStream.toByteArray(), _variableSizeDataByteArrayOutputStream.toByteArray());
   }
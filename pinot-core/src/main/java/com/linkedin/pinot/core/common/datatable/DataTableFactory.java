@@ -26,11 +26,24 @@ public class DataTableFactory {
 
   public static DataTable getDataTable(byte[] bytes)
       throws IOException {
-    ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
-    int version = byteBuffer.getInt();
+    return getDataTable(ByteBuffer.wrap(bytes));
+  }
+
+  /**
+   * Deserializes the data table from the remaining bytes of the given buffer.
+   * <p>Data tables of version 3 keep views of the buffer instead of copying it, so the buffer must not be modified
+   * while the data table is in use.
+   */
+  public static DataTable getDataTable(ByteBuffer byteBuffer)
+      throws IOException {
+    // All the offsets inside the data table are relative to its start.
+    ByteBuffer dataTableBuffer = byteBuffer.slice();
+    int version = dataTableBuffer.getInt();
     switch (version) {
       case 2:
-        return new DataTableImplV2(byteBuffer);
+        return new DataTableImplV2(dataTableBuffer);
+      case DataTableImplV3.VERSION:
+        return new DataTableImplV3(dataTableBuffer);
       default:
         throw new UnsupportedOperationException("Unsupported data table version: " + version);
     }
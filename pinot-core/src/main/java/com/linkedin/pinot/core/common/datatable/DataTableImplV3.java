@@ -0,0 +1,621 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.common.datatable;
+
+import com.linkedin.pinot.common.response.ProcessingException;
+import com.linkedin.pinot.common.utils.DataSchema;
+import com.linkedin.pinot.common.utils.DataTable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * Column-major data table.
+ * <p>Compared to {@link DataTableImplV2}, the fixed size data is laid out column by column (all the values of the
+ * first column, then all the values of the second column, etc.), the string dictionaries are carried as dense arrays
+ * indexed by dictionary id, and FLOAT values take 4 bytes instead of 8.
+ * <p>On the broker side, the data table keeps views of the sections of the received buffer instead of copying them into
+ * heap arrays, and all the values are read with absolute gets straight off these views. The caller must not release or
+ * reuse the buffer while the data table is in use.
+ */
+public class DataTableImplV3 implements DataTable {
+  public static final int VERSION = 3;
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  // VERSION
+  // NUM_ROWS
+  // NUM_COLUMNS
+  // DICTIONARY_MAP (START|SIZE)
+  // METADATA (START|SIZE)
+  // DATA_SCHEMA (START|SIZE)
+  // FIXED_SIZE_DATA (START|SIZE)
+  // VARIABLE_SIZE_DATA (START|SIZE)
+  private static final int HEADER_SIZE = (Integer.SIZE / Byte.SIZE) * 13;
+
+  private final int _numRows;
+  private final int _numColumns;
+  private final DataSchema _dataSchema;
+  // Start offset of each column inside the fixed size data.
+  private final int[] _columnStartOffsets;
+  private final int[] _columnSizes;
+  private final Map<String, String[]> _dictionaryMap;
+  // Dictionary of each column, null for columns without dictionary.
+  private final String[][] _dictionaries;
+  private final ByteBuffer _fixedSizeData;
+  private final ByteBuffer _variableSizeData;
+  private final Map<String, String> _metadata;
+
+  /**
+   * Construct data table with results. (Server side)
+   *
+   * @param numRows number of rows.
+   * @param dataSchema data schema.
+   * @param dictionaryMap map from column name to dictionary values indexed by dictionary id.
+   * @param fixedSizeDataBytes column-major fixed size data.
+   * @param variableSizeDataBytes variable size data.
+   */
+  public DataTableImplV3(int numRows, @Nonnull DataSchema dataSchema, @Nonnull Map<String, String[]> dictionaryMap,
+      @Nonnull byte[] fixedSizeDataBytes, @Nonnull byte[] variableSizeDataBytes) {
+    _numRows = numRows;
+    _numColumns = dataSchema.size();
+    _dataSchema = dataSchema;
+    _columnStartOffsets = new int[_numColumns];
+    _columnSizes = new int[_numColumns];
+    computeColumnLayout(dataSchema, numRows, _columnStartOffsets, _columnSizes);
+    _dictionaryMap = dictionaryMap;
+    _dictionaries = getDictionaries(dataSchema, dictionaryMap);
+    _fixedSizeData = ByteBuffer.wrap(fixedSizeDataBytes);
+    _variableSizeData = ByteBuffer.wrap(variableSizeDataBytes);
+    _metadata = new HashMap<>();
+  }
+
+  /**
+   * Construct empty data table. (Server side)
+   */
+  public DataTableImplV3() {
+    _numRows = 0;
+    _numColumns = 0;
+    _dataSchema = null;
+    _columnStartOffsets = null;
+    _columnSizes = null;
+    _dictionaryMap = null;
+    _dictionaries = null;
+    _fixedSizeData = null;
+    _variableSizeData = null;
+    _metadata = new HashMap<>();
+  }
+
+  /**
+   * Construct data table from byte buffer, where the version has already been read. (Broker side)
+   * <p>The fixed size data and the variable size data are not copied, the data table keeps views of the byte buffer.
+   */
+  public DataTableImplV3(@Nonnull ByteBuffer byteBuffer)
+      throws IOException {
+    // Read header.
+    _numRows = byteBuffer.getInt();
+    _numColumns = byteBuffer.getInt();
+    int dictionaryMapStart = byteBuffer.getInt();
+    int dictionaryMapLength = byteBuffer.getInt();
+    int metadataStart = byteBuffer.getInt();
+    int metadataLength = byteBuffer.getInt();
+    int dataSchemaStart = byteBuffer.getInt();
+    int dataSchemaLength = byteBuffer.getInt();
+    int fixedSizeDataStart = byteBuffer.getInt();
+    int fixedSizeDataLength = byteBuffer.getInt();
+    int variableSizeDataStart = byteBuffer.getInt();
+    int variableSizeDataLength = byteBuffer.getInt();
+
+    // Read data schema.
+    if (dataSchemaLength != 0) {
+      byte[] schemaBytes = new byte[dataSchemaLength];
+      getSection(byteBuffer, dataSchemaStart, dataSchemaLength).get(schemaBytes);
+      _dataSchema = DataSchema.fromBytes(schemaBytes);
+      _columnStartOffsets = new int[_numColumns];
+      _columnSizes = new int[_numColumns];
+      computeColumnLayout(_dataSchema, _numRows, _columnStartOffsets, _columnSizes);
+    } else {
+      _dataSchema = null;
+      _columnStartOffsets = null;
+      _columnSizes = null;
+    }
+
+    // Read dictionary.
+    if (dictionaryMapLength != 0) {
+      _dictionaryMap = deserializeDictionaryMap(getSection(byteBuffer, dictionaryMapStart, dictionaryMapLength));
+      _dictionaries = getDictionaries(_dataSchema, _dictionaryMap);
+    } else {
+      _dictionaryMap = null;
+      _dictionaries = null;
+    }
+
+    // Read metadata.
+    _metadata = deserializeMetadata(getSection(byteBuffer, metadataStart, metadataLength));
+
+    // Keep views of the fixed size data and the variable size data.
+    if (fixedSizeDataLength != 0) {
+      _fixedSizeData = getSection(byteBuffer, fixedSizeDataStart, fixedSizeDataLength);
+    } else {
+      _fixedSizeData = null;
+    }
+    if (variableSizeDataLength != 0) {
+      _variableSizeData = getSection(byteBuffer, variableSizeDataStart, variableSizeDataLength);
+    } else {
+      _variableSizeData = null;
+    }
+  }
+
+  /**
+   * Given a {@link DataSchema} and the number of rows, compute the start offset and the value size of each column
+   * inside the column-major fixed size data, and return the size of the fixed size data.
+   */
+  static int computeColumnLayout(@Nonnull DataSchema dataSchema, int numRows, @Nonnull int[] columnStartOffsets,
+      @Nonnull int[] columnSizes) {
+    int numColumns = columnStartOffsets.length;
+    assert numColumns == dataSchema.size();
+
+    int fixedSizeDataLength = 0;
+    for (int i = 0; i < numColumns; i++) {
+      int columnSize;
+      switch (dataSchema.getColumnType(i)) {
+        case BOOLEAN:
+        case BYTE:
+          columnSize = 1;
+          break;
+        case CHAR:
+        case SHORT:
+          columnSize = 2;
+          break;
+        case INT:
+        case FLOAT:
+        case STRING:
+          columnSize = 4;
+          break;
+        case LONG:
+        case DOUBLE:
+          columnSize = 8;
+          break;
+        // Object and array. (POSITION|LENGTH)
+        default:
+          columnSize = 8;
+          break;
+      }
+      columnStartOffsets[i] = fixedSizeDataLength;
+      columnSizes[i] = columnSize;
+      fixedSizeDataLength += columnSize * numRows;
+    }
+    return fixedSizeDataLength;
+  }
+
+  private static ByteBuffer getSection(ByteBuffer byteBuffer, int start, int length) {
+    ByteBuffer section = byteBuffer.duplicate();
+    section.limit(start + length);
+    section.position(start);
+    return section.slice();
+  }
+
+  private static String[][] getDictionaries(DataSchema dataSchema, Map<String, String[]> dictionaryMap) {
+    int numColumns = dataSchema.size();
+    String[][] dictionaries = new String[numColumns][];
+    for (int i = 0; i < numColumns; i++) {
+      dictionaries[i] = dictionaryMap.get(dataSchema.getColumnName(i));
+    }
+    return dictionaries;
+  }
+
+  private static Map<String, String[]> deserializeDictionaryMap(ByteBuffer byteBuffer) {
+    int numDictionaries = byteBuffer.getInt();
+    Map<String, String[]> dictionaryMap = new HashMap<>(numDictionaries);
+    for (int i = 0; i < numDictionaries; i++) {
+      String columnName = readString(byteBuffer);
+      int dictionarySize = byteBuffer.getInt();
+      String[] dictionary = new String[dictionarySize];
+      for (int j = 0; j < dictionarySize; j++) {
+        dictionary[j] = readString(byteBuffer);
+      }
+      dictionaryMap.put(columnName, dictionary);
+    }
+    return dictionaryMap;
+  }
+
+  private static Map<String, String> deserializeMetadata(ByteBuffer byteBuffer) {
+    int numEntries = byteBuffer.getInt();
+    Map<String, String> metadata = new HashMap<>(numEntries);
+    for (int i = 0; i < numEntries; i++) {
+      String key = readString(byteBuffer);
+      metadata.put(key, readString(byteBuffer));
+    }
+    return metadata;
+  }
+
+  private static String readString(ByteBuffer byteBuffer) {
+    int length = byteBuffer.getInt();
+    byte[] bytes = new byte[length];
+    byteBuffer.get(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  @Override
+  public void addException(@Nonnull ProcessingException processingException) {
+    _metadata.put(EXCEPTION_METADATA_KEY + processingException.getErrorCode(), processingException.getMessage());
+  }
+
+  @Nonnull
+  @Override
+  public byte[] toBytes()
+      throws IOException {
+    byte[] dictionaryMapBytes = null;
+    if (_dictionaryMap != null) {
+      dictionaryMapBytes = serializeDictionaryMap();
+    }
+    byte[] metadataBytes = serializeMetadata();
+    byte[] dataSchemaBytes = null;
+    if (_dataSchema != null) {
+      dataSchemaBytes = _dataSchema.toBytes();
+    }
+    int fixedSizeDataLength = (_fixedSizeData != null) ? _fixedSizeData.limit() : 0;
+    int variableSizeDataLength = (_variableSizeData != null) ? _variableSizeData.limit() : 0;
+
+    // Compute the size up front so that everything is written into one single array.
+    int dataOffset = HEADER_SIZE;
+    int dictionaryMapLength = (dictionaryMapBytes != null) ? dictionaryMapBytes.length : 0;
+    int dataSchemaLength = (dataSchemaBytes != null) ? dataSchemaBytes.length : 0;
+    ByteBuffer byteBuffer = ByteBuffer.allocate(
+        HEADER_SIZE + dictionaryMapLength + metadataBytes.length + dataSchemaLength + fixedSizeDataLength
+            + variableSizeDataLength);
+
+    // Write header.
+    byteBuffer.putInt(VERSION);
+    byteBuffer.putInt(_numRows);
+    byteBuffer.putInt(_numColumns);
+    byteBuffer.putInt(dataOffset);
+    byteBuffer.putInt(dictionaryMapLength);
+    dataOffset += dictionaryMapLength;
+    byteBuffer.putInt(dataOffset);
+    byteBuffer.putInt(metadataBytes.length);
+    dataOffset += metadataBytes.length;
+    byteBuffer.putInt(dataOffset);
+    byteBuffer.putInt(dataSchemaLength);
+    dataOffset += dataSchemaLength;
+    byteBuffer.putInt(dataOffset);
+    byteBuffer.putInt(fixedSizeDataLength);
+    dataOffset += fixedSizeDataLength;
+    byteBuffer.putInt(dataOffset);
+    byteBuffer.putInt(variableSizeDataLength);
+
+    // Write actual data.
+    if (dictionaryMapBytes != null) {
+      byteBuffer.put(dictionaryMapBytes);
+    }
+    byteBuffer.put(metadataBytes);
+    if (dataSchemaBytes != null) {
+      byteBuffer.put(dataSchemaBytes);
+    }
+    if (_fixedSizeData != null) {
+      byteBuffer.put(_fixedSizeData.duplicate());
+    }
+    if (_variableSizeData != null) {
+      byteBuffer.put(_variableSizeData.duplicate());
+    }
+
+    return byteBuffer.array();
+  }
+
+  private byte[] serializeDictionaryMap() {
+    int numDictionaries = _dictionaryMap.size();
+    byte[][] columnNameBytesArray = new byte[numDictionaries][];
+    byte[][][] valueBytesArrays = new byte[numDictionaries][][];
+    int size = Integer.SIZE / Byte.SIZE;
+    int index = 0;
+    for (Map.Entry<String, String[]> entry : _dictionaryMap.entrySet()) {
+      byte[] columnNameBytes = entry.getKey().getBytes(UTF_8);
+      columnNameBytesArray[index] = columnNameBytes;
+      size += (Integer.SIZE / Byte.SIZE) * 2 + columnNameBytes.length;
+      String[] dictionary = entry.getValue();
+      int dictionarySize = dictionary.length;
+      byte[][] valueBytesArray = new byte[dictionarySize][];
+      for (int i = 0; i < dictionarySize; i++) {
+        byte[] valueBytes = dictionary[i].getBytes(UTF_8);
+        valueBytesArray[i] = valueBytes;
+        size += (Integer.SIZE / Byte.SIZE) + valueBytes.length;
+      }
+      valueBytesArrays[index++] = valueBytesArray;
+    }
+
+    ByteBuffer byteBuffer = ByteBuffer.allocate(size);
+    byteBuffer.putInt(numDictionaries);
+    for (int i = 0; i < numDictionaries; i++) {
+      byteBuffer.putInt(columnNameBytesArray[i].length);
+      byteBuffer.put(columnNameBytesArray[i]);
+      byte[][] valueBytesArray = valueBytesArrays[i];
+      byteBuffer.putInt(valueBytesArray.length);
+      for (byte[] valueBytes : valueBytesArray) {
+        byteBuffer.putInt(valueBytes.length);
+        byteBuffer.put(valueBytes);
+      }
+    }
+    return byteBuffer.array();
+  }
+
+  private byte[] serializeMetadata() {
+    int numEntries = _metadata.size();
+    byte[][] keyBytesArray = new byte[numEntries][];
+    byte[][] valueBytesArray = new byte[numEntries][];
+    int size = Integer.SIZE / Byte.SIZE;
+    int index = 0;
+    for (Map.Entry<String, String> entry : _metadata.entrySet()) {
+      byte[] keyBytes = entry.getKey().getBytes(UTF_8);
+      byte[] valueBytes = entry.getValue().getBytes(UTF_8);
+      keyBytesArray[index] = keyBytes;
+      valueBytesArray[index++] = valueBytes;
+      size += (Integer.SIZE / Byte.SIZE) * 2 + keyBytes.length + valueBytes.length;
+    }
+
+    ByteBuffer byteBuffer = ByteBuffer.allocate(size);
+    byteBuffer.putInt(numEntries);
+    for (int i = 0; i < numEntries; i++) {
+      byteBuffer.putInt(keyBytesArray[i].length);
+      byteBuffer.put(keyBytesArray[i]);
+      byteBuffer.putInt(valueBytesArray[i].length);
+      byteBuffer.put(valueBytesArray[i]);
+    }
+    return byteBuffer.array();
+  }
+
+  @Nonnull
+  @Override
+  public Map<String, String> getMetadata() {
+    return _metadata;
+  }
+
+  @Nullable
+  @Override
+  public DataSchema getDataSchema() {
+    return _dataSchema;
+  }
+
+  @Override
+  public int getNumberOfRows() {
+    return _numRows;
+  }
+
+  private int getOffset(int rowId, int colId) {
+    return _columnStartOffsets[colId] + rowId * _columnSizes[colId];
+  }
+
+  @Override
+  public boolean getBoolean(int rowId, int colId) {
+    return _fixedSizeData.get(getOffset(rowId, colId)) == 1;
+  }
+
+  @Override
+  public char getChar(int rowId, int colId) {
+    return _fixedSizeData.getChar(getOffset(rowId, colId));
+  }
+
+  @Override
+  public byte getByte(int rowId, int colId) {
+    return _fixedSizeData.get(getOffset(rowId, colId));
+  }
+
+  @Override
+  public short getShort(int rowId, int colId) {
+    return _fixedSizeData.getShort(getOffset(rowId, colId));
+  }
+
+  @Override
+  public int getInt(int rowId, int colId) {
+    return _fixedSizeData.getInt(getOffset(rowId, colId));
+  }
+
+  @Override
+  public long getLong(int rowId, int colId) {
+    return _fixedSizeData.getLong(getOffset(rowId, colId));
+  }
+
+  @Override
+  public float getFloat(int rowId, int colId) {
+    return _fixedSizeData.getFloat(getOffset(rowId, colId));
+  }
+
+  @Override
+  public double getDouble(int rowId, int colId) {
+    return _fixedSizeData.getDouble(getOffset(rowId, colId));
+  }
+
+  @Nonnull
+  @Override
+  public String getString(int rowId, int colId) {
+    return _dictionaries[colId][_fixedSizeData.getInt(getOffset(rowId, colId))];
+  }
+
+  @Nonnull
+  @Override
+  public <T> T getObject(int rowId, int colId) {
+    int offset = getOffset(rowId, colId);
+    int position = _fixedSizeData.getInt(offset);
+    int size = _fixedSizeData.getInt(offset + 4);
+    ObjectType objectType = ObjectType.getObjectType(_variableSizeData.getInt(position));
+    byte[] bytes = new byte[size];
+    ByteBuffer variableSizeData = _variableSizeData.duplicate();
+    variableSizeData.position(position + 4);
+    variableSizeData.get(bytes);
+    try {
+      return ObjectCustomSerDe.deserialize(bytes, objectType);
+    } catch (IOException e) {
+      throw new RuntimeException("Caught exception while de-serializing object.", e);
+    }
+  }
+
+  @Nonnull
+  @Override
+  public byte[] getByteArray(int rowId, int colId) {
+    int offset = getOffset(rowId, colId);
+    int position = _fixedSizeData.getInt(offset);
+    int length = _fixedSizeData.getInt(offset + 4);
+    byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++) {
+      bytes[i] = _variableSizeData.get(position + i);
+    }
+    return bytes;
+  }
+
+  @Nonnull
+  @Override
+  public char[] getCharArray(int rowId, int colId) {
+    int offset = getOffset(rowId, colId);
+    int position = _fixedSizeData.getInt(offset);
+    int length = _fixedSizeData.getInt(offset + 4);
+    char[] chars = new char[length];
+    for (int i = 0; i < length; i++) {
+      chars[i] = _variableSizeData.getChar(position + i * 2);
+    }
+    return chars;
+  }
+
+  @Nonnull
+  @Override
+  public short[] getShortArray(int rowId, int colId) {
+    int offset = getOffset(rowId, colId);
+    int position = _fixedSizeData.getInt(offset);
+    int length = _fixedSizeData.getInt(offset + 4);
+    short[] shorts = new short[length];
+    for (int i = 0; i < length; i++) {
+      shorts[i] = _variableSizeData.getShort(position + i * 2);
+    }
+    return shorts;
+  }
+
+  @Nonnull
+  @Override
+  public int[] getIntArray(int rowId, int colId) {
+    int offset = getOffset(rowId, colId);
+    int position = _fixedSizeData.getInt(offset);
+    int length = _fixedSizeData.getInt(offset + 4);
+    int[] ints = new int[length];
+    for (int i = 0; i < length; i++) {
+      ints[i] = _variableSizeData.getInt(position + i * 4);
+    }
+    return ints;
+  }
+
+  @Nonnull
+  @Override
+  public long[] getLongArray(int rowId, int colId) {
+    int offset = getOffset(rowId, colId);
+    int position = _fixedSizeData.getInt(offset);
+    int length = _fixedSizeData.getInt(offset + 4);
+    long[] longs = new long[length];
+    for (int i = 0; i < length; i++) {
+      longs[i] = _variableSizeData.getLong(position + i * 8);
+    }
+    return longs;
+  }
+
+  @Nonnull
+  @Override
+  public float[] getFloatArray(int rowId, int colId) {
+    int offset = getOffset(rowId, colId);
+    int position = _fixedSizeData.getInt(offset);
+    int length = _fixedSizeData.getInt(offset + 4);
+    float[] floats = new float[length];
+    for (int i = 0; i < length; i++) {
+      floats[i] = _variableSizeData.getFloat(position + i * 4);
+    }
+    return floats;
+  }
+
+  @Nonnull
+  @Override
+  public double[] getDoubleArray(int rowId, int colId) {
+    int offset = getOffset(rowId, colId);
+    int position = _fixedSizeData.getInt(offset);
+    int length = _fixedSizeData.getInt(offset + 4);
+    double[] doubles = new double[length];
+    for (int i = 0; i < length; i++) {
+      doubles[i] = _variableSizeData.getDouble(position + i * 8);
+    }
+    return doubles;
+  }
+
+  @Nonnull
+  @Override
+  public String[] getStringArray(int rowId, int colId) {
+    int offset = getOffset(rowId, colId);
+    int position = _fixedSizeData.getInt(offset);
+    int length = _fixedSizeData.getInt(offset + 4);
+    String[] strings = new String[length];
+    String[] dictionary = _dictionaries[colId];
+    for (int i = 0; i < length; i++) {
+      strings[i] = dictionary[_variableSizeData.getInt(position + i * 4)];
+    }
+    return strings;
+  }
+
+  @Override
+  public String toString() {
+    if (_dataSchema == null) {
+      return _metadata.toString();
+    }
+
+    StringBuilder stringBuilder = new StringBuilder();
+    stringBuilder.append(_dataSchema.toString()).append('\n');
+    stringBuilder.append("numRows: ").append(_numRows).append('\n');
+
+    for (int rowId = 0; rowId < _numRows; rowId++) {
+      for (int colId = 0; colId < _numColumns; colId++) {
+        int offset = getOffset(rowId, colId);
+        switch (_dataSchema.getColumnType(colId)) {
+          case BOOLEAN:
+          case BYTE:
+            stringBuilder.append(_fixedSizeData.get(offset));
+            break;
+          case CHAR:
+            stringBuilder.append(_fixedSizeData.getChar(offset));
+            break;
+          case SHORT:
+            stringBuilder.append(_fixedSizeData.getShort(offset));
+            break;
+          case INT:
+          case STRING:
+            stringBuilder.append(_fixedSizeData.getInt(offset));
+            break;
+          case LONG:
+            stringBuilder.append(_fixedSizeData.getLong(offset));
+            break;
+          case FLOAT:
+            stringBuilder.append(_fixedSizeData.getFloat(offset));
+            break;
+          case DOUBLE:
+            stringBuilder.append(_fixedSizeData.getDouble(offset));
+            break;
+          // Object and array.
+          default:
+            stringBuilder.append(
+                String.format("(%s:%s)", _fixedSizeData.getInt(offset), _fixedSizeData.getInt(offset + 4)));
+            break;
+        }
+        stringBuilder.append("\t");
+      }
+      stringBuilder.append("\n");
+    }
+    return stringBuilder.toString();
+  }
+}
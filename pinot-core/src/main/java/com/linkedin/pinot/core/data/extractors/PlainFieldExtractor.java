@@ -241,6 +241,23 @@ public class PlainFieldExtractor implements FieldExtractor {
     return destinationRow;
   }
 
+  /**
+   * Adds the counters of the given field extractor into the counters of this one, then resets the counters of the
+   * given field extractor. Used to aggregate the counters of the field extractors used by multiple threads.
+   */
+  public void mergeCounters(PlainFieldExtractor fieldExtractor) {
+    _totalErrors += fieldExtractor._totalErrors;
+    _totalNulls += fieldExtractor._totalNulls;
+    _totalConversions += fieldExtractor._totalConversions;
+    _totalNullCols += fieldExtractor._totalNullCols;
+    for (Map.Entry<String, Integer> entry : fieldExtractor._errorCount.entrySet()) {
+      String column = entry.getKey();
+      _errorCount.put(column, _errorCount.get(column) + entry.getValue());
+      entry.setValue(0);
+    }
+    fieldExtractor.resetCounters();
+  }
+
   public Map<String, Integer> getErrorCount() {
     return _errorCount;
   }
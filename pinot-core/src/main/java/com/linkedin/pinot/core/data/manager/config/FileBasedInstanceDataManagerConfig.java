@@ -142,6 +142,11 @@ public class FileBasedInstanceDataManagerConfig implements InstanceDataManagerCo
     return null;
   }
 
+  @Override
+  public boolean isRealtimeOffHeapAllocation() {
+    return false;
+  }
+
   @Override
   public boolean isEnableDefaultColumns() {
     return _instanceDataManagerConfiguration.getBoolean(ENABLE_DEFAULT_COLUMNS, false);
@@ -38,5 +38,7 @@ public interface InstanceDataManagerConfig {
 
   String getAvgMultiValueCount();
 
+  boolean isRealtimeOffHeapAllocation();
+
   boolean isEnableDefaultColumns();
 }
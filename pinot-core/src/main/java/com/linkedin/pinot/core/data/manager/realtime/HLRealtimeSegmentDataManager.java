@@ -32,6 +32,7 @@ import com.linkedin.pinot.core.data.manager.offline.SegmentDataManager;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentVersion;
+import com.linkedin.pinot.core.io.compression.ChunkCompressorFactory;
 import com.linkedin.pinot.core.realtime.StreamProvider;
 import com.linkedin.pinot.core.realtime.StreamProviderConfig;
 import com.linkedin.pinot.core.realtime.StreamProviderFactory;
@@ -85,6 +86,8 @@ public class HLRealtimeSegmentDataManager extends SegmentDataManager {
   private final String sortedColumn;
   private final List<String> invertedIndexColumns;
   private final List<String> noDictionaryColumns;
+  private final Map<String, ChunkCompressorFactory.CompressionType> noDictionaryCompressionTypes;
+  private final boolean varLengthStringDictionary;
   private Logger segmentLogger = LOGGER;
   private final SegmentVersion _segmentVersion;
   private final RealtimeTableDataManager _realtimeTableDataManager;
@@ -138,6 +141,8 @@ public class HLRealtimeSegmentDataManager extends SegmentDataManager {
 
     // No DictionaryColumns
     noDictionaryColumns = new ArrayList<>(indexLoadingConfig.getNoDictionaryColumns());
+    noDictionaryCompressionTypes = indexLoadingConfig.getNoDictionaryCompressionTypes();
+    varLengthStringDictionary = indexLoadingConfig.isVarLengthStringDictionary();
 
     // create and init stream provider config
     // TODO : ideally resourceMetatda should create and give back a streamProviderConfig
@@ -169,7 +174,8 @@ public class HLRealtimeSegmentDataManager extends SegmentDataManager {
     realtimeSegment =
         new RealtimeSegmentImpl(schema, kafkaStreamProviderConfig.getSizeThresholdToFlushSegment(), tableName,
             segmentMetadata.getSegmentName(), kafkaStreamProviderConfig.getStreamName(), serverMetrics,
-            this.invertedIndexColumns, indexLoadingConfig.getRealtimeAvgMultiValueCount());
+            this.invertedIndexColumns, indexLoadingConfig.getRealtimeAvgMultiValueCount(),
+            indexLoadingConfig.isRealtimeOffHeapAllocation());
     realtimeSegment.setSegmentMetadata(segmentMetadata, this.schema);
     notifier = realtimeTableDataManager;
 
@@ -263,6 +269,8 @@ public class HLRealtimeSegmentDataManager extends SegmentDataManager {
                   segmentMetadata.getTableName(), segmentMetadata.getSegmentName(), sortedColumn,
                   HLRealtimeSegmentDataManager.this.invertedIndexColumns,
                   noDictionaryColumns, null/*StarTreeIndexSpec*/); // Star tree not supported for HLC.
+          converter.setRawIndexCompressionTypes(noDictionaryCompressionTypes);
+          converter.setVarLengthStringDictionary(varLengthStringDictionary);
 
           segmentLogger.info("Trying to build segment");
           final long buildStartTime = System.nanoTime();
@@ -26,6 +26,7 @@ import com.linkedin.pinot.common.metadata.instance.InstanceZKMetadata;
 import com.linkedin.pinot.common.metadata.segment.LLCRealtimeSegmentZKMetadata;
 import com.linkedin.pinot.common.metadata.segment.RealtimeSegmentZKMetadata;
 import com.linkedin.pinot.common.metadata.stream.KafkaStreamMetadata;
+import com.linkedin.pinot.common.metrics.BatchedMeter;
 import com.linkedin.pinot.common.metrics.ServerGauge;
 import com.linkedin.pinot.common.metrics.ServerMeter;
 import com.linkedin.pinot.common.metrics.ServerMetrics;
@@ -43,8 +44,10 @@ import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.common.config.ColumnPartitionConfig;
 import com.linkedin.pinot.common.config.SegmentPartitionConfig;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentVersion;
+import com.linkedin.pinot.core.io.compression.ChunkCompressorFactory;
 import com.linkedin.pinot.core.realtime.converter.RealtimeSegmentConverter;
 import com.linkedin.pinot.core.realtime.impl.RealtimeSegmentImpl;
+import com.linkedin.pinot.core.realtime.impl.RealtimeSegmentStats;
 import com.linkedin.pinot.core.realtime.impl.kafka.KafkaLowLevelStreamProviderConfig;
 import com.linkedin.pinot.core.realtime.impl.kafka.KafkaMessageDecoder;
 import com.linkedin.pinot.core.realtime.impl.kafka.KafkaSimpleConsumerFactoryImpl;
@@ -54,11 +57,14 @@ import com.linkedin.pinot.server.realtime.ServerSegmentCompletionProtocolHandler
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
@@ -132,6 +138,12 @@ public class LLRealtimeSegmentDataManager extends SegmentDataManager {
   private static final long TIME_THRESHOLD_FOR_LOG_MINUTES = 1;
   private static final long TIME_EXTENSION_ON_EMPTY_SEGMENT_HOURS = 1;
   private static final int MSG_COUNT_THRESHOLD_FOR_LOG = 100000;
+  // Directory under the table data directory holding the stats of the last completed segment of each partition
+  private static final String SEGMENT_STATS_DIR_NAME = "_stats";
+  // Number of messages per batch decoded by the decoder threads
+  private static final int DECODE_BATCH_SIZE = 256;
+  // Bounds the decoded rows waiting to be indexed
+  private static final int MAX_NUM_DECODE_BATCHES_IN_FLIGHT_PER_THREAD = 2;
   private final int MAX_CONSECUTIVE_ERROR_COUNT = 5;
 
   private final LLCRealtimeSegmentZKMetadata _segmentZKMetadata;
@@ -144,6 +156,9 @@ public class LLRealtimeSegmentDataManager extends SegmentDataManager {
   private final Schema _schema;
   private final String _metricKeyName;
   private final ServerMetrics _serverMetrics;
+  // Per-row meters, only accessed by the consumer thread and flushed once per fetched batch of messages
+  private final BatchedMeter _rowsConsumedMeter;
+  private final BatchedMeter _invalidRowsDroppedMeter;
   private final RealtimeSegmentImpl _realtimeSegment;
   private volatile long _currentOffset;
   private volatile State _state;
@@ -169,11 +184,16 @@ public class LLRealtimeSegmentDataManager extends SegmentDataManager {
   final String _clientId;
   private final LLCSegmentName _segmentName;
   private final PlainFieldExtractor _fieldExtractor;
+  // Decodes the messages on multiple threads when configured, null when decoding on the consumer thread
+  private final MessageDecodePipeline _decodePipeline;
   private SimpleConsumerWrapper _consumerWrapper = null;
   private final File _resourceTmpDir;
+  private final File _segmentStatsFile;
   private final String _tableName;
   private final List<String> _invertedIndexColumns;
   private final List<String> _noDictionaryColumns;
+  private final Map<String, ChunkCompressorFactory.CompressionType> _noDictionaryCompressionTypes;
+  private final boolean _varLengthStringDictionary;
   private final StarTreeIndexSpec _starTreeIndexSpec;
   private final String _sortedColumn;
   private Logger segmentLogger = LOGGER;
@@ -310,6 +330,10 @@ public class LLRealtimeSegmentDataManager extends SegmentDataManager {
   }
 
   private void processKafkaEvents(Iterable<MessageAndOffset> messagesAndOffsets, Long highWatermark) {
+    if (_decodePipeline != null) {
+      processKafkaEventsPipelined(messagesAndOffsets, highWatermark);
+      return;
+    }
     Iterator<MessageAndOffset> msgIterator = messagesAndOffsets.iterator();
 
     int indexedMessageCount = 0;
@@ -356,21 +380,120 @@ public class LLRealtimeSegmentDataManager extends SegmentDataManager {
         transformedRow = _fieldExtractor.transform(decodedRow, transformedRow);
 
         if (transformedRow != null) {
-          _serverMetrics.addMeteredTableValue(_metricKeyName, ServerMeter.REALTIME_ROWS_CONSUMED, 1);
+          _rowsConsumedMeter.mark();
           indexedMessageCount++;
         } else {
-          _serverMetrics.addMeteredTableValue(_metricKeyName, ServerMeter.INVALID_REALTIME_ROWS_DROPPED, 1);
+          _invalidRowsDroppedMeter.mark();
         }
 
         canTakeMore = _realtimeSegment.index(transformedRow);
       } else {
-        _serverMetrics.addMeteredTableValue(_metricKeyName, ServerMeter.INVALID_REALTIME_ROWS_DROPPED, 1);
+        _invalidRowsDroppedMeter.mark();
       }
 
       _currentOffset = messageAndOffset.nextOffset();
       _numRowsConsumed++;
       kafkaMessageCount++;
     }
+    finishProcessingKafkaEvents(indexedMessageCount, kafkaMessageCount);
+  }
+
+  /**
+   * Same as {@link #processKafkaEvents(Iterable, Long)}, but the messages are decoded and transformed in batches by
+   * the decoder threads, while the consumer thread indexes the rows of the previous batches. Rows are indexed in
+   * offset order, and {@link #_currentOffset} only moves forward when a row is indexed, so that it is as exact as
+   * with the serial decoding. Messages decoded after the end criteria is reached are dropped, and fetched again by
+   * the next fetch if needed.
+   */
+  private void processKafkaEventsPipelined(Iterable<MessageAndOffset> messagesAndOffsets, Long highWatermark) {
+    Iterator<MessageAndOffset> msgIterator = messagesAndOffsets.iterator();
+    int maxNumBatchesInFlight = MAX_NUM_DECODE_BATCHES_IN_FLIGHT_PER_THREAD * _decodePipeline.getNumThreads();
+    ArrayDeque<Future<MessageDecodePipeline.DecodedBatch>> batchesInFlight = new ArrayDeque<>(maxNumBatchesInFlight);
+
+    int indexedMessageCount = 0;
+    int kafkaMessageCount = 0;
+    boolean canTakeMore = true;
+    try {
+      while (true) {
+        // Keep the decoder threads busy while indexing.
+        while (batchesInFlight.size() < maxNumBatchesInFlight && msgIterator.hasNext()) {
+          List<MessageAndOffset> messages = new ArrayList<>(DECODE_BATCH_SIZE);
+          while (messages.size() < DECODE_BATCH_SIZE && msgIterator.hasNext()) {
+            messages.add(msgIterator.next());
+          }
+          batchesInFlight.addLast(_decodePipeline.submit(messages));
+        }
+        Future<MessageDecodePipeline.DecodedBatch> future = batchesInFlight.pollFirst();
+        if (future == null) {
+          break;
+        }
+
+        MessageDecodePipeline.DecodedBatch decodedBatch = future.get();
+        int numMessages = decodedBatch.size();
+        int i = 0;
+        while (i < numMessages && !_shouldStop && !endCriteriaReached()) {
+          if (!canTakeMore) {
+            // Same as the serial decoding, see processKafkaEvents()
+            segmentLogger.error("Buffer full with {} rows consumed (row limit {})", _numRowsConsumed,
+                _segmentMaxRowCount);
+            throw new RuntimeException("Realtime segment full");
+          }
+          MessageAndOffset messageAndOffset = decodedBatch.getMessage(i);
+
+          // Update lag metric on the first message of each batch
+          if (kafkaMessageCount == 0) {
+            long messageOffset = messageAndOffset.offset();
+            long offsetDifference = highWatermark - messageOffset;
+            _serverMetrics.setValueOfTableGauge(_metricKeyName, ServerGauge.KAFKA_PARTITION_OFFSET_LAG,
+                offsetDifference);
+          }
+
+          if (decodedBatch.isDecoded(i)) {
+            GenericRow transformedRow = decodedBatch.getRow(i);
+            if (transformedRow != null) {
+              _rowsConsumedMeter.mark();
+              indexedMessageCount++;
+            } else {
+              _invalidRowsDroppedMeter.mark();
+            }
+
+            canTakeMore = _realtimeSegment.index(transformedRow);
+          } else {
+            _invalidRowsDroppedMeter.mark();
+          }
+
+          _currentOffset = messageAndOffset.nextOffset();
+          _numRowsConsumed++;
+          kafkaMessageCount++;
+          i++;
+        }
+        if (i < numMessages) {
+          // Stopped or reached the end criteria.
+          break;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while decoding messages", e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Caught exception while decoding messages", e.getCause());
+    } finally {
+      // Wait for the remaining batches before merging the counters of the decoder threads.
+      for (Future<MessageDecodePipeline.DecodedBatch> future : batchesInFlight) {
+        try {
+          Uninterruptibles.getUninterruptibly(future);
+        } catch (ExecutionException e) {
+          // Results are dropped anyway.
+        }
+      }
+      _decodePipeline.mergeCounters(_fieldExtractor);
+    }
+    finishProcessingKafkaEvents(indexedMessageCount, kafkaMessageCount);
+  }
+
+  private void finishProcessingKafkaEvents(int indexedMessageCount, int kafkaMessageCount) {
+    _rowsConsumedMeter.flush();
+    _invalidRowsDroppedMeter.flush();
     updateCurrentDocumentCountMetrics();
     if (kafkaMessageCount != 0) {
       segmentLogger.debug("Indexed {} messages ({} messages read from Kafka) current offset {}", indexedMessageCount,
@@ -536,6 +659,8 @@ public class LLRealtimeSegmentDataManager extends SegmentDataManager {
         new RealtimeSegmentConverter(_realtimeSegment, tempSegmentFolder.getAbsolutePath(), _schema,
             _segmentZKMetadata.getTableName(), _segmentZKMetadata.getSegmentName(), _sortedColumn,
             _invertedIndexColumns, _noDictionaryColumns, _starTreeIndexSpec);
+    converter.setRawIndexCompressionTypes(_noDictionaryCompressionTypes);
+    converter.setVarLengthStringDictionary(_varLengthStringDictionary);
     logStatistics();
     segmentLogger.info("Trying to build segment");
     final long buildStartTime = now();
@@ -548,6 +673,7 @@ public class LLRealtimeSegmentDataManager extends SegmentDataManager {
     }
     final long buildEndTime = now();
     segmentLogger.info("Successfully built segment in {} ms", (buildEndTime - buildStartTime));
+    saveSegmentStats();
     File destDir = makeSegmentDirPath();
     FileUtils.deleteQuietly(destDir);
     try {
@@ -650,7 +776,7 @@ public class LLRealtimeSegmentDataManager extends SegmentDataManager {
       case DISCARDED:
       case ERROR:
         segmentLogger.info("State {}. Downloading to replace", _state.toString());
-        downloadSegmentAndReplace(llcMetadata);
+        replaceWithCommittedSegment(llcMetadata);
         break;
       case CATCHING_UP:
       case HOLDING:
@@ -660,7 +786,7 @@ public class LLRealtimeSegmentDataManager extends SegmentDataManager {
           // We moved ahead of the offset that is committed in ZK.
           segmentLogger.warn("Current offset {} ahead of the offset in zk {}. Downloading to replace", _currentOffset,
               endOffset);
-          downloadSegmentAndReplace(llcMetadata);
+          replaceWithCommittedSegment(llcMetadata);
         } else if (_currentOffset == endOffset) {
           segmentLogger.info("Current offset {} matches offset in zk {}. Replacing segment", _currentOffset, endOffset);
           buildSegmentAndReplace();
@@ -673,17 +799,29 @@ public class LLRealtimeSegmentDataManager extends SegmentDataManager {
             buildSegmentAndReplace();
           } else {
             segmentLogger.info("Could not catch up to offset (current = {}). Downloading to replace", _currentOffset);
-            downloadSegmentAndReplace(llcMetadata);
+            replaceWithCommittedSegment(llcMetadata);
           }
         }
         break;
       default:
         segmentLogger.info("Downloading to replace segment while in state {}", _state.toString());
-        downloadSegmentAndReplace(llcMetadata);
+        replaceWithCommittedSegment(llcMetadata);
         break;
     }
   }
 
+  /**
+   * Replaces the consuming segment with the segment committed by another replica. The committed segment is built from
+   * the same stream, so the stats of the consuming segment are saved to size the next consuming segment, unless nothing
+   * was consumed, in which case the stats of the previous segment are kept.
+   */
+  private void replaceWithCommittedSegment(LLCRealtimeSegmentZKMetadata metadata) {
+    if (_realtimeSegment.getRawDocumentCount() > 0) {
+      saveSegmentStats();
+    }
+    downloadSegmentAndReplace(metadata);
+  }
+
   protected void downloadSegmentAndReplace(LLCRealtimeSegmentZKMetadata metadata) {
     _realtimeTableDataManager.downloadAndReplaceSegment(_segmentNameStr, metadata, _indexLoadingConfig);
   }
@@ -719,6 +857,9 @@ public class LLRealtimeSegmentDataManager extends SegmentDataManager {
     } catch (InterruptedException e) {
       segmentLogger.error("Could not stop consumer thread");
     }
+    if (_decodePipeline != null) {
+      _decodePipeline.shutDown();
+    }
     _realtimeSegment.destroy();
     try {
       _consumerWrapper.close();
@@ -786,6 +927,9 @@ public class LLRealtimeSegmentDataManager extends SegmentDataManager {
     _kafkaPartitionId = _segmentName.getPartitionId();
     _tableName = _tableConfig.getTableName();
     _metricKeyName = _tableName + "-" + _kafkaTopic + "-" + _kafkaPartitionId;
+    _rowsConsumedMeter = _serverMetrics.newBatchedTableMeter(_metricKeyName, ServerMeter.REALTIME_ROWS_CONSUMED);
+    _invalidRowsDroppedMeter =
+        _serverMetrics.newBatchedTableMeter(_metricKeyName, ServerMeter.INVALID_REALTIME_ROWS_DROPPED);
     segmentLogger = LoggerFactory.getLogger(LLRealtimeSegmentDataManager.class.getName() +
         "_" + _segmentNameStr);
     _tableStreamName = _tableName + "_" + kafkaStreamProviderConfig.getStreamName();
@@ -821,6 +965,8 @@ public class LLRealtimeSegmentDataManager extends SegmentDataManager {
 
     // No dictionary Columns
     _noDictionaryColumns = new ArrayList<>(indexLoadingConfig.getNoDictionaryColumns());
+    _noDictionaryCompressionTypes = indexLoadingConfig.getNoDictionaryCompressionTypes();
+    _varLengthStringDictionary = indexLoadingConfig.isVarLengthStringDictionary();
 
     // Read the star tree config
     _starTreeIndexSpec = indexingConfig.getStarTreeIndexSpec();
@@ -834,10 +980,20 @@ public class LLRealtimeSegmentDataManager extends SegmentDataManager {
 
     _segmentMaxRowCount = segmentMaxRowCount;
 
+    // Size the new realtime segment from the stats of the previous segment of the partition
+    _segmentStatsFile =
+        new File(new File(resourceDataDir, SEGMENT_STATS_DIR_NAME), "partition_" + _kafkaPartitionId + ".properties");
+    RealtimeSegmentStats previousSegmentStats = RealtimeSegmentStats.load(_segmentStatsFile);
+    if (previousSegmentStats != null) {
+      segmentLogger.info("Sizing segment from the stats of the previous segment with {} rows",
+          previousSegmentStats.getNumRows());
+    }
+
     // Start new realtime segment
     _realtimeSegment = new RealtimeSegmentImpl(schema, _segmentMaxRowCount, tableConfig.getTableName(),
         segmentZKMetadata.getSegmentName(), _kafkaTopic, _serverMetrics, _invertedIndexColumns,
-        indexLoadingConfig.getRealtimeAvgMultiValueCount());
+        indexLoadingConfig.getRealtimeAvgMultiValueCount(), indexLoadingConfig.isRealtimeOffHeapAllocation(),
+        previousSegmentStats);
     _realtimeSegment.setSegmentMetadata(segmentZKMetadata, schema);
 
     // Create message decoder
@@ -846,6 +1002,19 @@ public class LLRealtimeSegmentDataManager extends SegmentDataManager {
 
     // Create field extractor
     _fieldExtractor = FieldExtractorFactory.getPlainFieldExtractor(schema);
+
+    // Create the decode pipeline, each decoder thread needs its own message decoder
+    int decoderNumThreads = _kafkaStreamMetadata.getDecoderNumThreads();
+    if (decoderNumThreads > 1) {
+      List<KafkaMessageDecoder> messageDecoders = new ArrayList<>(decoderNumThreads);
+      for (int i = 0; i < decoderNumThreads; i++) {
+        messageDecoders.add(kafkaStreamProviderConfig.getDecoder());
+      }
+      _decodePipeline = new MessageDecodePipeline(_segmentNameStr, messageDecoders, schema);
+      segmentLogger.info("Decoding messages with {} decoder threads", decoderNumThreads);
+    } else {
+      _decodePipeline = null;
+    }
     makeConsumerWrapper();
 
     SegmentPartitionConfig segmentPartitionConfig = indexingConfig.getSegmentPartitionConfig();
@@ -874,6 +1043,19 @@ public class LLRealtimeSegmentDataManager extends SegmentDataManager {
     start();
   }
 
+  /**
+   * Saves the stats of the completed segment, whether it is built locally or downloaded, so that the next consuming
+   * segment of the partition can be sized from them. Failures are not fatal, the next segment just starts with the
+   * default sizes.
+   */
+  private void saveSegmentStats() {
+    try {
+      _realtimeSegment.getStats().save(_segmentStatsFile);
+    } catch (Exception e) {
+      segmentLogger.warn("Could not save segment stats into file: {}", _segmentStatsFile, e);
+    }
+  }
+
   private void logStatistics() {
     int numErrors, numConversions, numNulls, numNullCols;
     if ((numErrors = _fieldExtractor.getTotalErrors()) > 0) {
@@ -0,0 +1,188 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.data.manager.realtime;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.data.extractors.FieldExtractorFactory;
+import com.linkedin.pinot.core.data.extractors.PlainFieldExtractor;
+import com.linkedin.pinot.core.realtime.impl.kafka.KafkaMessageDecoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import kafka.message.Message;
+import kafka.message.MessageAndOffset;
+
+
+/**
+ * The <code>MessageDecodePipeline</code> class decodes and transforms batches of Kafka messages on a pool of decoder
+ * threads, so that the consumer thread of a low level realtime segment only has to index the rows.
+ * <p>Message decoders and field extractors are not thread safe, so each decoder thread works with its own pair. The
+ * consumer thread submits the batches in offset order and consumes the results in the same order, so the rows are
+ * still indexed one at a time and in offset order.
+ * <p>Idle decoder threads time out, so a pipeline which is not used anymore does not hold any thread.
+ */
+public class MessageDecodePipeline {
+  private static final long THREAD_KEEP_ALIVE_SECONDS = 60L;
+
+  private final ThreadPoolExecutor _executorService;
+  private final BlockingQueue<DecodeContext> _decodeContexts;
+  private final List<PlainFieldExtractor> _fieldExtractors = new ArrayList<>();
+
+  /**
+   * Constructor for the class, with one decoder thread per message decoder.
+   *
+   * @param name Name of the pipeline, used as prefix of the thread names
+   * @param messageDecoders Message decoders, one per decoder thread
+   * @param schema Schema of the table, used to create the field extractors
+   */
+  public MessageDecodePipeline(final String name, List<KafkaMessageDecoder> messageDecoders, Schema schema) {
+    int numThreads = messageDecoders.size();
+    Preconditions.checkArgument(numThreads > 0, "Need at least one message decoder");
+    _decodeContexts = new ArrayBlockingQueue<>(numThreads);
+    for (KafkaMessageDecoder messageDecoder : messageDecoders) {
+      PlainFieldExtractor fieldExtractor = FieldExtractorFactory.getPlainFieldExtractor(schema);
+      _fieldExtractors.add(fieldExtractor);
+      _decodeContexts.add(new DecodeContext(messageDecoder, fieldExtractor));
+    }
+
+    _executorService = new ThreadPoolExecutor(numThreads, numThreads, THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+      private final AtomicInteger _threadId = new AtomicInteger();
+
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, name + "-decoder-" + _threadId.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    _executorService.allowCoreThreadTimeOut(true);
+  }
+
+  public int getNumThreads() {
+    return _executorService.getMaximumPoolSize();
+  }
+
+  /**
+   * Submits a batch of messages to decode and transform.
+   *
+   * @param messages Messages in offset order
+   * @return Future of the decoded batch
+   */
+  public Future<DecodedBatch> submit(final List<MessageAndOffset> messages) {
+    return _executorService.submit(new Callable<DecodedBatch>() {
+      @Override
+      public DecodedBatch call()
+          throws Exception {
+        // There are as many contexts as threads, so there is always one available.
+        DecodeContext decodeContext = _decodeContexts.take();
+        try {
+          return decodeContext.decode(messages);
+        } finally {
+          _decodeContexts.add(decodeContext);
+        }
+      }
+    });
+  }
+
+  /**
+   * Adds the counters of the field extractors of the decoder threads into the given field extractor, and resets them.
+   * Should only be called when there is no batch being decoded.
+   */
+  public void mergeCounters(PlainFieldExtractor fieldExtractor) {
+    for (PlainFieldExtractor decoderFieldExtractor : _fieldExtractors) {
+      fieldExtractor.mergeCounters(decoderFieldExtractor);
+    }
+  }
+
+  public void shutDown() {
+    _executorService.shutdownNow();
+  }
+
+  private static class DecodeContext {
+    private final KafkaMessageDecoder _messageDecoder;
+    private final PlainFieldExtractor _fieldExtractor;
+
+    DecodeContext(KafkaMessageDecoder messageDecoder, PlainFieldExtractor fieldExtractor) {
+      _messageDecoder = messageDecoder;
+      _fieldExtractor = fieldExtractor;
+    }
+
+    DecodedBatch decode(List<MessageAndOffset> messages) {
+      int numMessages = messages.size();
+      GenericRow[] rows = new GenericRow[numMessages];
+      boolean[] decoded = new boolean[numMessages];
+      for (int i = 0; i < numMessages; i++) {
+        // Rows are not reused, as they are indexed by the consumer thread after the batch is decoded.
+        Message message = messages.get(i).message();
+        GenericRow decodedRow = _messageDecoder.decode(message.payload().array(), message.payload().arrayOffset(),
+            message.payloadSize(), new GenericRow());
+        if (decodedRow != null) {
+          decoded[i] = true;
+          rows[i] = _fieldExtractor.transform(decodedRow, new GenericRow());
+        }
+      }
+      return new DecodedBatch(messages, rows, decoded);
+    }
+  }
+
+  /**
+   * Result of the decoding of a batch of messages.
+   */
+  public static class DecodedBatch {
+    private final List<MessageAndOffset> _messages;
+    private final GenericRow[] _rows;
+    private final boolean[] _decoded;
+
+    DecodedBatch(List<MessageAndOffset> messages, GenericRow[] rows, boolean[] decoded) {
+      _messages = messages;
+      _rows = rows;
+      _decoded = decoded;
+    }
+
+    public int size() {
+      return _messages.size();
+    }
+
+    public MessageAndOffset getMessage(int index) {
+      return _messages.get(index);
+    }
+
+    /**
+     * Returns whether the message could be decoded.
+     */
+    public boolean isDecoded(int index) {
+      return _decoded[index];
+    }
+
+    /**
+     * Returns the transformed row of the message, <code>null</code> if it could not be decoded or transformed.
+     */
+    public GenericRow getRow(int index) {
+      return _rows[index];
+    }
+  }
+}
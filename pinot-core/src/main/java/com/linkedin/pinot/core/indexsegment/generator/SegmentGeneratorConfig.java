@@ -26,6 +26,7 @@ import com.linkedin.pinot.core.data.readers.CSVRecordReaderConfig;
 import com.linkedin.pinot.core.data.readers.FileFormat;
 import com.linkedin.pinot.core.data.readers.RecordReaderConfig;
 import com.linkedin.pinot.core.indexsegment.utils.AvroUtils;
+import com.linkedin.pinot.core.io.compression.ChunkCompressorFactory;
 import com.linkedin.pinot.core.segment.DefaultSegmentNameGenerator;
 import com.linkedin.pinot.core.segment.SegmentNameGenerator;
 import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
@@ -64,7 +65,9 @@ public class SegmentGeneratorConfig {
 
   private Map<String, String> _customProperties = new HashMap<>();
   private Set<String> _rawIndexCreationColumns = new HashSet<>();
+  private Map<String, ChunkCompressorFactory.CompressionType> _rawIndexCompressionTypes = new HashMap<>();
   private List<String> _invertedIndexCreationColumns = new ArrayList<>();
+  private List<String> _bloomFilterCreationColumns = new ArrayList<>();
   private String _dataDir = null;
   private String _inputFilePath = null;
   private FileFormat _format = FileFormat.AVRO;
@@ -88,6 +91,7 @@ public class SegmentGeneratorConfig {
   private StarTreeIndexSpec _starTreeIndexSpec = null;
   private String _creatorVersion = null;
   private char _paddingCharacter = V1Constants.Str.DEFAULT_STRING_PAD_CHAR;
+  private boolean _varLengthStringDictionary = false;
   private HllConfig _hllConfig = null;
   private SegmentNameGenerator _segmentNameGenerator = null;
   private SegmentPartitionConfig _segmentPartitionConfig = null;
@@ -108,7 +112,9 @@ public class SegmentGeneratorConfig {
     Preconditions.checkNotNull(config);
     _customProperties.putAll(config._customProperties);
     _rawIndexCreationColumns.addAll(config._rawIndexCreationColumns);
+    _rawIndexCompressionTypes.putAll(config._rawIndexCompressionTypes);
     _invertedIndexCreationColumns.addAll(config._invertedIndexCreationColumns);
+    _bloomFilterCreationColumns.addAll(config._bloomFilterCreationColumns);
     _dataDir = config._dataDir;
     _inputFilePath = config._inputFilePath;
     _format = config._format;
@@ -132,6 +138,7 @@ public class SegmentGeneratorConfig {
     _starTreeIndexSpec = config._starTreeIndexSpec;
     _creatorVersion = config._creatorVersion;
     _paddingCharacter = config._paddingCharacter;
+    _varLengthStringDictionary = config._varLengthStringDictionary;
     _hllConfig = config._hllConfig;
     _segmentVersion = config._segmentVersion;
     _segmentName = config._segmentName;
@@ -188,11 +195,32 @@ public class SegmentGeneratorConfig {
     _rawIndexCreationColumns.addAll(rawIndexCreationColumns);
   }
 
+  /**
+   * Returns the compression type of the raw index chunks per column. Raw index columns not in the map use Snappy.
+   */
+  public Map<String, ChunkCompressorFactory.CompressionType> getRawIndexCompressionTypes() {
+    return _rawIndexCompressionTypes;
+  }
+
+  public void setRawIndexCompressionTypes(Map<String, ChunkCompressorFactory.CompressionType> rawIndexCompressionTypes) {
+    Preconditions.checkNotNull(rawIndexCompressionTypes);
+    _rawIndexCompressionTypes.putAll(rawIndexCompressionTypes);
+  }
+
   public void setInvertedIndexCreationColumns(List<String> indexCreationColumns) {
     Preconditions.checkNotNull(indexCreationColumns);
     _invertedIndexCreationColumns.addAll(indexCreationColumns);
   }
 
+  public List<String> getBloomFilterCreationColumns() {
+    return _bloomFilterCreationColumns;
+  }
+
+  public void setBloomFilterCreationColumns(List<String> bloomFilterCreationColumns) {
+    Preconditions.checkNotNull(bloomFilterCreationColumns);
+    _bloomFilterCreationColumns.addAll(bloomFilterCreationColumns);
+  }
+
   public void createInvertedIndexForColumn(String column) {
     Preconditions.checkNotNull(column);
     if (_schema != null && _schema.getFieldSpecFor(column) == null) {
@@ -297,6 +325,19 @@ public class SegmentGeneratorConfig {
     _paddingCharacter = paddingCharacter;
   }
 
+  public boolean isVarLengthStringDictionary() {
+    return _varLengthStringDictionary;
+  }
+
+  /**
+   * Creates string dictionaries with variable length entries instead of padded fixed size entries. Segments created
+   * with this option cannot be loaded by servers that do not support dictionary version 2. Consuming segments get it
+   * from the <code>varLengthStringDictionary</code> flag of the table indexing config.
+   */
+  public void setVarLengthStringDictionary(boolean varLengthStringDictionary) {
+    _varLengthStringDictionary = varLengthStringDictionary;
+  }
+
   public String getSegmentNamePostfix() {
     return _segmentNamePostfix;
   }
@@ -35,4 +35,21 @@ public interface ChunkCompressor {
    */
   int compress(ByteBuffer inUncompressed, ByteBuffer outCompressed)
       throws IOException;
+
+  /**
+   * Returns the maximum size of the compressed output for the given size of input data, used to size the output
+   * buffer.
+   *
+   * @param uncompressedSize Size of the input data.
+   * @return Maximum size of the compressed output data.
+   */
+  int maxCompressedSize(int uncompressedSize);
+
+  /**
+   * Returns the compression type of the compressor, recorded in the data file so that the matching
+   * {@link ChunkDecompressor} can be picked when reading.
+   *
+   * @return Compression type.
+   */
+  ChunkCompressorFactory.CompressionType getCompressionType();
 }
@@ -0,0 +1,67 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.io.compression;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+
+
+/**
+ * Implementation of {@link ChunkCompressor} using Deflate (zlib) at best compression level.
+ * <p>The deflater and the scratch arrays are reused across chunks as the compressor is used by a single writer.
+ */
+public class DeflateCompressor implements ChunkCompressor {
+  // zlib header and trailer size.
+  private static final int WRAPPER_SIZE = 6;
+
+  private final Deflater _deflater = new Deflater(Deflater.BEST_COMPRESSION);
+  private final ScratchBuffers _scratchBuffers = new ScratchBuffers();
+
+  @Override
+  public int compress(ByteBuffer inUncompressed, ByteBuffer outCompressed)
+      throws IOException {
+    int uncompressedSize = inUncompressed.remaining();
+    byte[] uncompressed = _scratchBuffers.getInput(uncompressedSize);
+    int maxCompressedSize = maxCompressedSize(uncompressedSize);
+    byte[] compressed = _scratchBuffers.getOutput(maxCompressedSize);
+    inUncompressed.duplicate().get(uncompressed, 0, uncompressedSize);
+
+    _deflater.reset();
+    _deflater.setInput(uncompressed, 0, uncompressedSize);
+    _deflater.finish();
+    int compressedSize = 0;
+    while (!_deflater.finished()) {
+      if (compressedSize == maxCompressedSize) {
+        throw new IOException("Compressed data exceeds the maximum size: " + maxCompressedSize);
+      }
+      compressedSize += _deflater.deflate(compressed, compressedSize, maxCompressedSize - compressedSize);
+    }
+    return ScratchBuffers.putOutput(compressed, compressedSize, outCompressed);
+  }
+
+  @Override
+  public int maxCompressedSize(int uncompressedSize) {
+    // Same bound as zlib compressBound().
+    return uncompressedSize + (uncompressedSize >> 12) + (uncompressedSize >> 14) + (uncompressedSize >> 25) + 13
+        + WRAPPER_SIZE;
+  }
+
+  @Override
+  public ChunkCompressorFactory.CompressionType getCompressionType() {
+    return ChunkCompressorFactory.CompressionType.DEFLATE;
+  }
+}
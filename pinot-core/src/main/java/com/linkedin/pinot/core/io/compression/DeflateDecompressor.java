@@ -0,0 +1,63 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.io.compression;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+
+/**
+ * Implementation of {@link ChunkDecompressor} using Deflate (zlib).
+ * <p>The decompressor is shared by all the threads reading the same column, so the inflater and the scratch arrays are
+ * thread local.
+ */
+public class DeflateDecompressor implements ChunkDecompressor {
+  // Shared by all the decompressors so that each thread holds only one inflater and one set of scratch arrays.
+  private static final ThreadLocal<Inflater> INFLATER = new ThreadLocal<Inflater>() {
+    @Override
+    protected Inflater initialValue() {
+      return new Inflater();
+    }
+  };
+  private static final ThreadLocal<ScratchBuffers> SCRATCH_BUFFERS = ScratchBuffers.newThreadLocal();
+
+  @Override
+  public int decompress(ByteBuffer inCompressed, ByteBuffer outDecompressed)
+      throws IOException {
+    int compressedSize = inCompressed.remaining();
+    int maxDecompressedSize = outDecompressed.remaining();
+    ScratchBuffers scratchBuffers = SCRATCH_BUFFERS.get();
+    byte[] compressed = scratchBuffers.getInput(compressedSize);
+    byte[] decompressed = scratchBuffers.getOutput(maxDecompressedSize);
+    inCompressed.duplicate().get(compressed, 0, compressedSize);
+
+    Inflater inflater = INFLATER.get();
+    inflater.reset();
+    inflater.setInput(compressed, 0, compressedSize);
+    int decompressedSize;
+    try {
+      decompressedSize = inflater.inflate(decompressed, 0, maxDecompressedSize);
+    } catch (DataFormatException e) {
+      throw new IOException(e);
+    }
+    if (!inflater.finished()) {
+      throw new IOException("Decompressed data exceeds the output buffer size: " + maxDecompressedSize);
+    }
+    return ScratchBuffers.putOutput(decompressed, decompressedSize, outDecompressed);
+  }
+}
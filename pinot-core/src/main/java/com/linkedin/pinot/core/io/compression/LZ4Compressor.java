@@ -0,0 +1,54 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.io.compression;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import net.jpountz.lz4.LZ4Factory;
+
+
+/**
+ * Implementation of {@link ChunkCompressor} using LZ4.
+ * <p>LZ4 only works on byte arrays, so the input and output data are copied through scratch arrays, which are reused
+ * across chunks as the compressor is used by a single writer.
+ */
+public class LZ4Compressor implements ChunkCompressor {
+  private static final net.jpountz.lz4.LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+
+  private final ScratchBuffers _scratchBuffers = new ScratchBuffers();
+
+  @Override
+  public int compress(ByteBuffer inUncompressed, ByteBuffer outCompressed)
+      throws IOException {
+    int uncompressedSize = inUncompressed.remaining();
+    byte[] uncompressed = _scratchBuffers.getInput(uncompressedSize);
+    int maxCompressedSize = COMPRESSOR.maxCompressedLength(uncompressedSize);
+    byte[] compressed = _scratchBuffers.getOutput(maxCompressedSize);
+    inUncompressed.duplicate().get(uncompressed, 0, uncompressedSize);
+    int compressedSize = COMPRESSOR.compress(uncompressed, 0, uncompressedSize, compressed, 0, maxCompressedSize);
+    return ScratchBuffers.putOutput(compressed, compressedSize, outCompressed);
+  }
+
+  @Override
+  public int maxCompressedSize(int uncompressedSize) {
+    return COMPRESSOR.maxCompressedLength(uncompressedSize);
+  }
+
+  @Override
+  public ChunkCompressorFactory.CompressionType getCompressionType() {
+    return ChunkCompressorFactory.CompressionType.LZ4;
+  }
+}
@@ -0,0 +1,54 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.io.compression;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+
+/**
+ * Implementation of {@link ChunkDecompressor} using LZ4.
+ * <p>The decompressor is shared by all the threads reading the same column, so the scratch arrays used to copy the
+ * data in and out of the byte buffers are thread local.
+ */
+public class LZ4Decompressor implements ChunkDecompressor {
+  private static final LZ4SafeDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().safeDecompressor();
+
+  // Shared by all the decompressors so that each thread holds only one set of scratch arrays.
+  private static final ThreadLocal<ScratchBuffers> SCRATCH_BUFFERS = ScratchBuffers.newThreadLocal();
+
+  @Override
+  public int decompress(ByteBuffer inCompressed, ByteBuffer outDecompressed)
+      throws IOException {
+    int compressedSize = inCompressed.remaining();
+    int maxDecompressedSize = outDecompressed.remaining();
+    ScratchBuffers scratchBuffers = SCRATCH_BUFFERS.get();
+    byte[] compressed = scratchBuffers.getInput(compressedSize);
+    byte[] decompressed = scratchBuffers.getOutput(maxDecompressedSize);
+    inCompressed.duplicate().get(compressed, 0, compressedSize);
+
+    int decompressedSize;
+    try {
+      decompressedSize = DECOMPRESSOR.decompress(compressed, 0, compressedSize, decompressed, 0, maxDecompressedSize);
+    } catch (LZ4Exception e) {
+      throw new IOException(e);
+    }
+    return ScratchBuffers.putOutput(decompressed, decompressedSize, outDecompressed);
+  }
+}
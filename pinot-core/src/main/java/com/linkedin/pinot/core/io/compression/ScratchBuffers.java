@@ -0,0 +1,65 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.io.compression;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Reusable input/output byte arrays for the codecs that cannot work on (direct) byte buffers.
+ */
+class ScratchBuffers {
+  private byte[] _input = new byte[0];
+  private byte[] _output = new byte[0];
+
+  static ThreadLocal<ScratchBuffers> newThreadLocal() {
+    return new ThreadLocal<ScratchBuffers>() {
+      @Override
+      protected ScratchBuffers initialValue() {
+        return new ScratchBuffers();
+      }
+    };
+  }
+
+  byte[] getInput(int size) {
+    if (_input.length < size) {
+      _input = new byte[size];
+    }
+    return _input;
+  }
+
+  byte[] getOutput(int size) {
+    if (_output.length < size) {
+      _output = new byte[size];
+    }
+    return _output;
+  }
+
+  /**
+   * Copies the output data into the output buffer with the same contract as Snappy: data is put at the position of the
+   * output buffer, the position is left unchanged and the limit is set to the end of the data.
+   *
+   * @return Size of the output data.
+   */
+  static int putOutput(byte[] output, int size, ByteBuffer outBuffer) {
+    int position = outBuffer.position();
+    outBuffer.limit(outBuffer.capacity());
+    outBuffer.put(output, 0, size);
+    outBuffer.limit(position + size);
+    outBuffer.position(position);
+    return size;
+  }
+}
@@ -30,4 +30,14 @@ public class SnappyCompressor implements ChunkCompressor {
       throws IOException {
     return Snappy.compress(inDecompressed, outCompressed);
   }
+
+  @Override
+  public int maxCompressedSize(int uncompressedSize) {
+    return Snappy.maxCompressedLength(uncompressedSize);
+  }
+
+  @Override
+  public ChunkCompressorFactory.CompressionType getCompressionType() {
+    return ChunkCompressorFactory.CompressionType.SNAPPY;
+  }
 }
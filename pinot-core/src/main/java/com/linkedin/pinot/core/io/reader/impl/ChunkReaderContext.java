@@ -23,16 +23,19 @@ import java.nio.ByteBuffer;
  * Information saved in the context can be used by subsequent reads as cache.
  * <ul>
  *   <li> Chunk Buffer from the previous read. Useful if the subsequent read is from the same buffer,
- *        as it avoids chunk decompression. </li>
+ *        as it avoids chunk decompression. It is either the decompression buffer of the context, or a chunk shared
+ *        through the server wide chunk cache. </li>
  *   <li> Id for the chunk </li>
  * </ul>
  */
 public class ChunkReaderContext extends UnSortedValueReaderContext {
   int _chunkId;
   ByteBuffer _chunkBuffer;
+  final ByteBuffer _decompressionBuffer;
 
   public ChunkReaderContext(int maxChunkSize) {
-    _chunkBuffer = ByteBuffer.allocateDirect(maxChunkSize);
+    _decompressionBuffer = ByteBuffer.allocateDirect(maxChunkSize);
+    _chunkBuffer = _decompressionBuffer;
     _chunkId = -1;
   }
 
@@ -40,6 +43,13 @@ public class ChunkReaderContext extends UnSortedValueReaderContext {
     return _chunkBuffer;
   }
 
+  /**
+   * Returns the buffer owned by the context to decompress chunks into.
+   */
+  public ByteBuffer getDecompressionBuffer() {
+    return _decompressionBuffer;
+  }
+
   public int getChunkId() {
     return _chunkId;
   }
@@ -47,4 +57,12 @@ public class ChunkReaderContext extends UnSortedValueReaderContext {
   public void setChunkId(int chunkId) {
     _chunkId = chunkId;
   }
+
+  /**
+   * Sets the current chunk, which can be either the decompression buffer or a shared chunk.
+   */
+  public void setChunk(int chunkId, ByteBuffer chunkBuffer) {
+    _chunkId = chunkId;
+    _chunkBuffer = chunkBuffer;
+  }
 }
@@ -15,12 +15,16 @@
  */
 package com.linkedin.pinot.core.io.reader.impl.v1;
 
+import com.linkedin.pinot.core.io.compression.ChunkCompressorFactory;
 import com.linkedin.pinot.core.io.compression.ChunkDecompressor;
 import com.linkedin.pinot.core.io.reader.BaseSingleColumnSingleValueReader;
 import com.linkedin.pinot.core.io.reader.impl.ChunkReaderContext;
+import com.linkedin.pinot.core.query.cache.ChunkCache;
 import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,6 +42,9 @@ public abstract class BaseChunkSingleValueReader extends BaseSingleColumnSingleV
   protected static final int FLOAT_SIZE = Float.SIZE / Byte.SIZE;
   protected static final int DOUBLE_SIZE = Double.SIZE / Byte.SIZE;
 
+  // Identifies the reader in the chunk cache.
+  private static final AtomicLong READER_ID_GENERATOR = new AtomicLong();
+
   protected final PinotDataBuffer _dataBuffer;
   protected final PinotDataBuffer _header;
   protected final ChunkDecompressor _chunkDecompressor;
@@ -47,17 +54,22 @@ public abstract class BaseChunkSingleValueReader extends BaseSingleColumnSingleV
   protected final int _numChunks;
   protected final int _lengthOfLongestEntry;
 
+  private final long _readerId = READER_ID_GENERATOR.getAndIncrement();
+  private String _tableName;
+
   /**
    * Constructor for the class.
    *
    * @param pinotDataBuffer Data buffer
-   * @param decompressor Data decompressor
+   * @param decompressor Data decompressor for version 1 files, newer files record their compression type in the header
    */
   public BaseChunkSingleValueReader(PinotDataBuffer pinotDataBuffer, ChunkDecompressor decompressor) {
-    _chunkDecompressor = decompressor;
     _dataBuffer = pinotDataBuffer;
 
-    int headerOffset = INT_SIZE; // First entry is the version, which is unused currently.
+    int headerOffset = 0;
+    int version = _dataBuffer.getInt(headerOffset);
+    headerOffset += INT_SIZE;
+
     _numChunks = _dataBuffer.getInt(headerOffset);
     headerOffset += INT_SIZE;
 
@@ -68,21 +80,44 @@ public abstract class BaseChunkSingleValueReader extends BaseSingleColumnSingleV
     headerOffset += INT_SIZE;
     _chunkSize = (_lengthOfLongestEntry * _numDocsPerChunk);
 
+    if (version >= 2) {
+      int compressionType = _dataBuffer.getInt(headerOffset);
+      headerOffset += INT_SIZE;
+      _chunkDecompressor =
+          ChunkCompressorFactory.getDecompressor(ChunkCompressorFactory.CompressionType.fromValue(compressionType));
+    } else {
+      _chunkDecompressor = decompressor;
+    }
+
     // Slice out the header from the data buffer.
     int headerLength = _numChunks * INT_SIZE;
     _header = _dataBuffer.view(headerOffset, headerOffset + headerLength);
   }
 
+  /**
+   * Sets the name of the table of the segment, used to account the decompressed chunks against the quota of the table
+   * in the server wide chunk cache.
+   */
+  public void setTableName(@Nullable String tableName) {
+    _tableName = tableName;
+  }
+
   @Override
   public void close() {
-    // Nothing to close here.
+    // The cached chunks cannot be accessed anymore, drop them.
+    ChunkCache chunkCache = ChunkCache.getInstance();
+    if (chunkCache != null) {
+      chunkCache.invalidate(_readerId);
+    }
   }
 
   /**
    * Helper method to get the chunk for a given row.
    * <ul>
    *   <li> If the chunk already exists in the reader context, returns the same. </li>
-   *   <li> Otherwise, loads the chunk for the row, and sets it in the reader context. </li>
+   *   <li> Otherwise, if the chunk is in the server wide chunk cache, sets the cached chunk in the reader context. </li>
+   *   <li> Otherwise, loads the chunk for the row, sets it in the reader context and offers it to the cache, which only
+   *   keeps the chunks decompressed more than once. </li>
    * </ul>
    * @param row Row for which to get the chunk
    * @param context Reader context
@@ -94,6 +129,15 @@ public abstract class BaseChunkSingleValueReader extends BaseSingleColumnSingleV
       return context.getChunkBuffer();
     }
 
+    ChunkCache chunkCache = ChunkCache.getInstance();
+    if (chunkCache != null) {
+      ByteBuffer cachedChunk = chunkCache.get(_readerId, chunkId);
+      if (cachedChunk != null) {
+        context.setChunk(chunkId, cachedChunk);
+        return cachedChunk;
+      }
+    }
+
     int chunkSize;
     int chunkPosition = getChunkPosition(chunkId);
 
@@ -105,7 +149,7 @@ public abstract class BaseChunkSingleValueReader extends BaseSingleColumnSingleV
       chunkSize = nextChunkOffset - chunkPosition;
     }
 
-    ByteBuffer uncompressedBuffer = context.getChunkBuffer();
+    ByteBuffer uncompressedBuffer = context.getDecompressionBuffer();
     uncompressedBuffer.clear();
 
     try {
@@ -114,7 +158,10 @@ public abstract class BaseChunkSingleValueReader extends BaseSingleColumnSingleV
       LOGGER.error("Exception caught while decompressing data chunk", e);
       throw new RuntimeException(e);
     }
-    context.setChunkId(chunkId);
+    context.setChunk(chunkId, uncompressedBuffer);
+    if (chunkCache != null) {
+      chunkCache.put(_readerId, _tableName, chunkId, uncompressedBuffer);
+    }
     return uncompressedBuffer;
   }
 
@@ -15,6 +15,7 @@
  */
 package com.linkedin.pinot.core.io.reader.impl.v1;
 
+import com.linkedin.pinot.core.io.compression.ChunkCompressorFactory;
 import com.linkedin.pinot.core.io.compression.ChunkDecompressor;
 import com.linkedin.pinot.core.io.reader.impl.ChunkReaderContext;
 import com.linkedin.pinot.core.io.writer.impl.v1.FixedByteChunkSingleValueWriter;
@@ -30,11 +31,22 @@ import java.nio.ByteBuffer;
  */
 public class FixedByteChunkSingleValueReader extends BaseChunkSingleValueReader {
 
+  /**
+   * Constructor for the class, reading the compression type from the header (version 1 files are Snappy compressed).
+   *
+   * @param pinotDataBuffer Data buffer to read from
+   * @throws IOException
+   */
+  public FixedByteChunkSingleValueReader(PinotDataBuffer pinotDataBuffer)
+      throws IOException {
+    this(pinotDataBuffer, ChunkCompressorFactory.getDecompressor(ChunkCompressorFactory.CompressionType.SNAPPY));
+  }
+
   /**
    * Constructor for the class.
    *
    * @param pinotDataBuffer Data buffer to read from
-   * @param uncompressor Chunk uncompressor
+   * @param uncompressor Chunk uncompressor for version 1 files, newer files record their compression type
    * @throws IOException
    */
   public FixedByteChunkSingleValueReader(PinotDataBuffer pinotDataBuffer, ChunkDecompressor uncompressor)
@@ -89,6 +89,20 @@ public class FixedByteSingleColumnMultiValueReaderWriter extends BaseSingleColum
     init(rows, columnSizeInBytes, maxNumberOfMultiValuesPerRow, initialCapacity, incrementalCapacity);
   }
 
+  /**
+   * Constructor with explicit buffer sizes, for callers which know how many values to expect.
+   *
+   * @param rows max number of rows
+   * @param initialCapacity number of values allocated upfront
+   * @param incrementalCapacity number of values allocated every time we run out of capacity
+   */
+  public FixedByteSingleColumnMultiValueReaderWriter(int rows, int columnSizeInBytes, int maxNumberOfMultiValuesPerRow,
+      int initialCapacity, int incrementalCapacity)
+      throws IOException {
+    init(rows, columnSizeInBytes, maxNumberOfMultiValuesPerRow, Math.max(maxNumberOfMultiValuesPerRow, initialCapacity),
+        Math.max(maxNumberOfMultiValuesPerRow, incrementalCapacity));
+  }
+
   private void init(int rows, int columnSizeInBytes, int maxNumberOfMultiValuesPerRow, int initialCapacity,
       int incrementalCapacity) throws IOException {
     this.columnSizeInBytes = columnSizeInBytes;
@@ -57,7 +57,7 @@ public abstract class BaseChunkSingleValueWriter implements SingleColumnSingleVa
    * @param numDocsPerChunk Number of docs per data chunk
    * @param chunkSize Size of chunk
    * @param sizeOfEntry Size of entry (in bytes), max size for variable byte implementation.
-   * @param version Version of file
+   * @param version Version of file, must be at least 2 as the compression type is recorded in the header
    * @throws FileNotFoundException
    */
   protected BaseChunkSingleValueWriter(File file, ChunkCompressor compressor, int totalDocs, int numDocsPerChunk,
@@ -67,17 +67,18 @@ public abstract class BaseChunkSingleValueWriter implements SingleColumnSingleVa
     _chunkCompressor = compressor;
 
     int numChunks = (totalDocs + numDocsPerChunk - 1) / numDocsPerChunk;
-    int headerSize = (numChunks + 4) * INT_SIZE; // 4 items written before chunk indexing.
+    int headerSize = (numChunks + 5) * INT_SIZE; // 5 items written before chunk indexing.
 
     _header = ByteBuffer.allocateDirect(headerSize);
     _header.putInt(version);
     _header.putInt(numChunks);
     _header.putInt(numDocsPerChunk);
     _header.putInt(sizeOfEntry);
+    _header.putInt(compressor.getCompressionType().getValue());
     _dataOffset = headerSize;
 
     _chunkBuffer = ByteBuffer.allocateDirect(chunkSize);
-    _compressedBuffer = ByteBuffer.allocateDirect(chunkSize * 2);
+    _compressedBuffer = ByteBuffer.allocateDirect(compressor.maxCompressedSize(chunkSize));
     _dataFile = new RandomAccessFile(file, "rw").getChannel();
   }
 
@@ -32,6 +32,7 @@ import javax.annotation.concurrent.NotThreadSafe;
  *   <li> Integer: Total number of chunks. </li>
  *   <li> Integer: Number of docs per chunk. </li>
  *   <li> Integer: Length of longest entry (in bytes). </li>
+ *   <li> Integer: Compression type of the chunks (since version 2, chunks of version 1 files are Snappy compressed). </li>
  *   <li> Integer array: Integer offsets for all chunks in the data .</li>
  * </ul>
  *
@@ -48,7 +49,7 @@ public class VarByteChunkSingleValueWriter extends BaseChunkSingleValueWriter {
 
   private static final int INT_SIZE = Integer.SIZE / Byte.SIZE;
   private static final Charset UTF_8 = Charset.forName("UTF-8");
-  private static final int VERSION = 1;
+  private static final int VERSION = 2;
 
   private final int _chunkHeaderSize;
   private int _chunkHeaderOffset;
@@ -22,7 +22,9 @@ import com.linkedin.pinot.core.common.BlockId;
 import com.linkedin.pinot.core.common.Constants;
 import com.linkedin.pinot.core.common.Operator;
 import com.linkedin.pinot.core.operator.blocks.DocIdSetBlock;
+import com.linkedin.pinot.core.operator.docidsets.CompositeFilterBlockDocIdSet;
 import com.linkedin.pinot.core.operator.docidsets.FilterBlockDocIdSet;
+import com.linkedin.pinot.core.operator.docidsets.SizeBasedDocIdSet;
 import com.linkedin.pinot.core.operator.filter.BaseFilterOperator;
 import com.linkedin.pinot.core.plan.DocIdSetPlanNode;
 
@@ -43,6 +45,9 @@ public class BReusableFilteredDocIdSetOperator extends BaseOperator {
 
   private final BaseFilterOperator _filterOperator;
   private final int _maxSizeOfDocIdSet;
+  // Range of documents to return, used to split one segment into several sub-tasks.
+  private final int _startDocId;
+  private final int _endDocId;
   private FilterBlockDocIdSet _filterBlockDocIdSet;
   private BlockDocIdIterator _blockDocIdIterator;
   private int _currentDocId = 0;
@@ -55,9 +60,37 @@ public class BReusableFilteredDocIdSetOperator extends BaseOperator {
    */
   public BReusableFilteredDocIdSetOperator(Operator filterOperator, int docSize,
       int maxSizeOfDocIdSet) {
+    this(filterOperator, 0, Integer.MAX_VALUE, maxSizeOfDocIdSet);
+  }
+
+  /**
+   * Constructor for the operator only returning the matched documents within the given range.
+   *
+   * @param filterOperator
+   * @param startDocId first document to return (inclusive)
+   * @param endDocId last document to return (inclusive)
+   * @param maxSizeOfDocIdSet must be less than {@link DocIdSetPlanNode}. MAX_DOC_PER_CALL which is 10000
+   */
+  public BReusableFilteredDocIdSetOperator(Operator filterOperator, int startDocId, int endDocId,
+      int maxSizeOfDocIdSet) {
     Preconditions.checkArgument(maxSizeOfDocIdSet <= DocIdSetPlanNode.MAX_DOC_PER_CALL);
     _maxSizeOfDocIdSet = maxSizeOfDocIdSet;
     _filterOperator = (BaseFilterOperator) filterOperator;
+    _startDocId = startDocId;
+    _endDocId = endDocId;
+  }
+
+  /**
+   * Constructor for sub-classes which do not iterate over a single filter operator.
+   *
+   * @param maxSizeOfDocIdSet must be less than {@link DocIdSetPlanNode}. MAX_DOC_PER_CALL which is 10000
+   */
+  protected BReusableFilteredDocIdSetOperator(int maxSizeOfDocIdSet) {
+    Preconditions.checkArgument(maxSizeOfDocIdSet <= DocIdSetPlanNode.MAX_DOC_PER_CALL);
+    _maxSizeOfDocIdSet = maxSizeOfDocIdSet;
+    _filterOperator = null;
+    _startDocId = 0;
+    _endDocId = Integer.MAX_VALUE;
   }
 
   @Override
@@ -75,16 +108,35 @@ public class BReusableFilteredDocIdSetOperator extends BaseOperator {
     }
     int[] docIdArray = DOC_ID_ARRAY.get();
     // Initialize filter block doc id set.
+    boolean first = false;
     if (_filterBlockDocIdSet == null) {
       _filterBlockDocIdSet = (FilterBlockDocIdSet) _filterOperator.nextBlock().getBlockDocIdSet();
+      // Narrow down the filter to the document range when supported, the range is checked below anyway.
+      if (_startDocId > 0 || _endDocId != Integer.MAX_VALUE) {
+        if (!(_filterBlockDocIdSet instanceof SizeBasedDocIdSet)
+            && !(_filterBlockDocIdSet instanceof CompositeFilterBlockDocIdSet)) {
+          _filterBlockDocIdSet.setStartDocId(_startDocId);
+          _filterBlockDocIdSet.setEndDocId(_endDocId);
+        }
+      }
       _blockDocIdIterator = _filterBlockDocIdSet.iterator();
+      first = true;
     }
     int pos = 0;
     for (int i = 0; i < _maxSizeOfDocIdSet; i++) {
-      _currentDocId = _blockDocIdIterator.next();
+      if (first && _startDocId > 0) {
+        _currentDocId = _blockDocIdIterator.advance(_startDocId);
+      } else {
+        _currentDocId = _blockDocIdIterator.next();
+      }
+      first = false;
       if (_currentDocId == Constants.EOF) {
         break;
       }
+      if (_currentDocId > _endDocId) {
+        _currentDocId = Constants.EOF;
+        break;
+      }
       docIdArray[pos++] = _currentDocId;
     }
     if (pos > 0) {
@@ -28,18 +28,22 @@ import com.linkedin.pinot.core.query.aggregation.AggregationFunctionContext;
 import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionUtils;
 import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
 import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByTrimmingService;
+import com.linkedin.pinot.core.query.aggregation.groupby.BinaryGroupKeyEncoder;
+import com.linkedin.pinot.core.query.aggregation.groupby.BinaryGroupKeyTable;
 import com.linkedin.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
 import com.linkedin.pinot.core.util.trace.TraceRunnable;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,19 +55,12 @@ public class MCombineGroupByOperator extends BaseOperator {
   private static final Logger LOGGER = LoggerFactory.getLogger(MCombineGroupByOperator.class);
   private static final String OPERATOR_NAME = "MCombineGroupByOperator";
 
-  // TODO: check whether it is better to use thread local.
-  // Choose a proper prime number for the number of locks.
-  // Use prime number to reduce the conflict rate of different hashcodes.
-  // Too small number of locks will cause high conflict rate.
-  // Too large number of locks will consume too much memory.
-  private static final int NUM_LOCKS = 10007;
-  private static final Object[] LOCKS = new Object[NUM_LOCKS];
-
-  static {
-    for (int i = 0; i < NUM_LOCKS; i++) {
-      LOCKS[i] = new Object();
-    }
-  }
+  // Maximum number of partitions (must be power of 2) for the group keys. Each partition is merged by one thread
+  // without any synchronization.
+  private static final int MAX_NUM_PARTITIONS = 16;
+
+  // Maximum number of tasks fetching and partitioning the result blocks for one query.
+  private static final int MAX_NUM_TASKS = Math.max(1, Runtime.getRuntime().availableProcessors());
 
   private final List<Operator> _operators;
   private final ExecutorService _executorService;
@@ -72,7 +69,6 @@ public class MCombineGroupByOperator extends BaseOperator {
 
   /**
    * Constructor for the class.
-   * - Initializes lock objects to synchronize updating aggregation group-by results.
    *
    * @param operators List of operators, whose result needs to be combined.
    * @param executorService Executor service to use for multi-threaded portions of combine.
@@ -126,25 +122,28 @@ public class MCombineGroupByOperator extends BaseOperator {
   /**
    * This method combines the result blocks from underlying operators and builds a
    * merged, sorted and trimmed result block.
-   * 1. Result blocks from underlying operators are merged concurrently into a
-   *   HashMap, with appropriate synchronizations. Result blocks themselves are stored
-   *   in the specified blocks[].
-   *   - The key in this concurrent map is the group-by key, and value is an array of
-   *     Objects (one for each aggregation function).
-   *   - Synchronization is provided by locking the group-key that is to be modified.
+   * 1. Result blocks from underlying operators are fetched concurrently by a bounded number of tasks, each claiming
+   *   the next unclaimed operator. The group keys of each result block are converted into dictionary-independent
+   *   binary keys, and partitioned on the hash of the binary key into the partitions of the task.
+   *
+   * 2. Each partition is merged by its own thread into an open-addressing table keyed by the binary group key, so no
+   *   synchronization is needed.
+   *   - The value in the table is an array of Objects (one for each aggregation function).
    *
-   * 2. The result of the concurrent map is then translated into what is expected by
-   *    the broker (List<Map<String, Object>>).
+   * 3. The merged binary keys are converted into string keys (only once per group), and translated into what is
+   *    expected by the broker (List<Map<String, Object>>).
    *
-   * 3. This result is then sorted and then trimmed as per 'TOP N' in the brokerRequest.
+   * 4. This result is then sorted and then trimmed as per 'TOP N' in the brokerRequest.
    *
    * @return IntermediateResultBlock containing the final results from combine operation.
    */
   private IntermediateResultsBlock combineBlocks()
       throws InterruptedException {
-    int numOperators = _operators.size();
-    final CountDownLatch operatorLatch = new CountDownLatch(numOperators);
-    final Map<String, Object[]> resultsMap = new ConcurrentHashMap<>();
+    long endTimeMs = System.currentTimeMillis() + _timeOutMs;
+    final int numOperators = _operators.size();
+    final int numPartitions = Math.min(MAX_NUM_PARTITIONS, Integer.highestOneBit(Math.max(numOperators, 1)));
+    final int numTasks = Math.min(numOperators, MAX_NUM_TASKS);
+    final GroupKeyPartition[][] taskPartitions = new GroupKeyPartition[numTasks][];
     final ConcurrentLinkedQueue<ProcessingException> mergedProcessingExceptions = new ConcurrentLinkedQueue<>();
 
     List<AggregationInfo> aggregationInfos = _brokerRequest.getAggregationsInfo();
@@ -152,72 +151,154 @@ public class MCombineGroupByOperator extends BaseOperator {
         AggregationFunctionUtils.getAggregationFunctionContexts(aggregationInfos, null);
     final int numAggregationFunctions = aggregationFunctionContexts.length;
 
-    for (int i = 0; i < numOperators; i++) {
-      final int index = i;
+    // Fetch the result blocks, and partition the group keys. Each task keeps taking the next unclaimed operator until
+    // all operators are taken, and partitions the group keys of all its operators into its own partitions.
+    final AtomicInteger nextOperatorIndex = new AtomicInteger();
+    final CountDownLatch operatorLatch = new CountDownLatch(numTasks);
+    for (int i = 0; i < numTasks; i++) {
+      final int taskId = i;
 
       _executorService.execute(new TraceRunnable() {
         @SuppressWarnings("unchecked")
         @Override
         public void runJob() {
-          AggregationGroupByResult aggregationGroupByResult;
+          GroupKeyPartition[] partitions = null;
+          int index;
+          while ((index = nextOperatorIndex.getAndIncrement()) < numOperators) {
+            try {
+              IntermediateResultsBlock intermediateResultsBlock =
+                  (IntermediateResultsBlock) _operators.get(index).nextBlock();
 
-          try {
-            IntermediateResultsBlock intermediateResultsBlock =
-                (IntermediateResultsBlock) _operators.get(index).nextBlock();
+              // Merge processing exceptions.
+              List<ProcessingException> processingExceptionsToMerge =
+                  intermediateResultsBlock.getProcessingExceptions();
+              if (processingExceptionsToMerge != null) {
+                mergedProcessingExceptions.addAll(processingExceptionsToMerge);
+              }
 
-            // Merge processing exceptions.
-            List<ProcessingException> processingExceptionsToMerge = intermediateResultsBlock.getProcessingExceptions();
-            if (processingExceptionsToMerge != null) {
-              mergedProcessingExceptions.addAll(processingExceptionsToMerge);
-            }
+              // Partition aggregation group-by result.
+              AggregationGroupByResult aggregationGroupByResult =
+                  intermediateResultsBlock.getAggregationGroupByResult();
+              if (aggregationGroupByResult != null) {
+                if (partitions == null) {
+                  partitions = new GroupKeyPartition[numPartitions];
+                  for (int j = 0; j < numPartitions; j++) {
+                    partitions[j] = new GroupKeyPartition();
+                  }
+                }
 
-            // Merge aggregation group-by result.
-            aggregationGroupByResult = intermediateResultsBlock.getAggregationGroupByResult();
-            if (aggregationGroupByResult != null) {
-              // Iterate over the group-by keys, for each key, update the group-by result in the resultsMap.
-              Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = aggregationGroupByResult.getGroupKeyIterator();
-              while (groupKeyIterator.hasNext()) {
-                GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
-                String groupKeyString = groupKey.getStringKey();
-
-                // HashCode method might return negative value, make it non-negative
-                int lockIndex = (groupKeyString.hashCode() & Integer.MAX_VALUE) % NUM_LOCKS;
-                synchronized (LOCKS[lockIndex]) {
-                  Object[] results = resultsMap.get(groupKeyString);
-
-                  if (results == null) {
-                    results = new Object[numAggregationFunctions];
-                    for (int j = 0; j < numAggregationFunctions; j++) {
-                      results[j] = aggregationGroupByResult.getResultForKey(groupKey, j);
-                    }
-                    resultsMap.put(groupKeyString, results);
-                  } else {
-                    for (int j = 0; j < numAggregationFunctions; j++) {
-                      results[j] = aggregationFunctionContexts[j].getAggregationFunction()
-                          .merge(results[j], aggregationGroupByResult.getResultForKey(groupKey, j));
-                    }
+                Iterator<GroupKeyGenerator.BinaryGroupKey> groupKeyIterator =
+                    aggregationGroupByResult.getBinaryGroupKeyIterator();
+                while (groupKeyIterator.hasNext()) {
+                  GroupKeyGenerator.BinaryGroupKey groupKey = groupKeyIterator.next();
+                  byte[] binaryKey = groupKey.getBinaryKey();
+                  int hash = BinaryGroupKeyEncoder.hash(binaryKey);
+
+                  Object[] results = new Object[numAggregationFunctions];
+                  for (int j = 0; j < numAggregationFunctions; j++) {
+                    results[j] = aggregationGroupByResult.getResultForKey(groupKey, j);
                   }
+                  partitions[getPartition(hash, numPartitions)].add(binaryKey, hash, results);
                 }
               }
+            } catch (Exception e) {
+              LOGGER.error("Exception processing CombineGroupBy for index {}, operator {}", index,
+                  _operators.get(index).getClass().getName(), e);
+              mergedProcessingExceptions.add(QueryException.getException(QueryException.QUERY_EXECUTION_ERROR, e));
             }
-          } catch (Exception e) {
-            LOGGER.error("Exception processing CombineGroupBy for index {}, operator {}", index,
-                _operators.get(index).getClass().getName(), e);
-            mergedProcessingExceptions.add(QueryException.getException(QueryException.QUERY_EXECUTION_ERROR, e));
           }
+          taskPartitions[taskId] = partitions;
 
           operatorLatch.countDown();
         }
       });
     }
 
-    boolean opCompleted = operatorLatch.await(_timeOutMs, TimeUnit.MILLISECONDS);
+    boolean opCompleted = operatorLatch.await(endTimeMs - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
     if (!opCompleted) {
       // If this happens, the broker side should already timed out, just log the error in server side.
       LOGGER.error("Timed out while combining group-by results, after {}ms.", _timeOutMs);
       return new IntermediateResultsBlock(new TimeoutException("CombineGroupBy timed out."));
     }
 
+    // Merge each partition in its own thread.
+    final BinaryGroupKeyTable[] mergedTables = new BinaryGroupKeyTable[numPartitions];
+    final CountDownLatch partitionLatch = new CountDownLatch(numPartitions);
+    for (int i = 0; i < numPartitions; i++) {
+      final int partitionId = i;
+
+      _executorService.execute(new TraceRunnable() {
+        @Override
+        public void runJob() {
+          try {
+            BinaryGroupKeyTable mergedTable = new BinaryGroupKeyTable();
+            for (GroupKeyPartition[] partitions : taskPartitions) {
+              if (partitions == null) {
+                continue;
+              }
+              GroupKeyPartition partition = partitions[partitionId];
+              int numKeys = partition._keys.size();
+              for (int j = 0; j < numKeys; j++) {
+                byte[] binaryKey = partition._keys.get(j);
+                int hash = partition._hashes.getInt(j);
+                Object[] resultsToMerge = partition._results.get(j);
+
+                int entryIndex = mergedTable.indexOf(binaryKey, hash);
+                if (entryIndex < 0) {
+                  mergedTable.add(binaryKey, hash, resultsToMerge);
+                } else {
+                  Object[] results = mergedTable.getValues(entryIndex);
+                  for (int k = 0; k < numAggregationFunctions; k++) {
+                    results[k] =
+                        aggregationFunctionContexts[k].getAggregationFunction().merge(results[k], resultsToMerge[k]);
+                  }
+                }
+              }
+            }
+            mergedTables[partitionId] = mergedTable;
+          } catch (Exception e) {
+            LOGGER.error("Exception merging CombineGroupBy partition {}", partitionId, e);
+            mergedProcessingExceptions.add(QueryException.getException(QueryException.QUERY_EXECUTION_ERROR, e));
+          }
+
+          partitionLatch.countDown();
+        }
+      });
+    }
+
+    boolean mergeCompleted = partitionLatch.await(endTimeMs - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+    if (!mergeCompleted) {
+      LOGGER.error("Timed out while merging group-by results, after {}ms.", _timeOutMs);
+      return new IntermediateResultsBlock(new TimeoutException("CombineGroupBy timed out."));
+    }
+
+    // Convert the binary keys into string keys. Different binary keys can map to the same string key when the data
+    // type of a group-by column differs across segments, so merge them if needed.
+    int numMergedKeys = 0;
+    for (BinaryGroupKeyTable mergedTable : mergedTables) {
+      if (mergedTable != null) {
+        numMergedKeys += mergedTable.size();
+      }
+    }
+    Map<String, Object[]> resultsMap = new HashMap<>(numMergedKeys * 2);
+    for (BinaryGroupKeyTable mergedTable : mergedTables) {
+      if (mergedTable == null) {
+        continue;
+      }
+      int size = mergedTable.size();
+      for (int i = 0; i < size; i++) {
+        String groupKeyString = BinaryGroupKeyEncoder.toStringGroupKey(mergedTable.getKey(i));
+        Object[] resultsToMerge = mergedTable.getValues(i);
+        Object[] results = resultsMap.put(groupKeyString, resultsToMerge);
+        if (results != null) {
+          for (int j = 0; j < numAggregationFunctions; j++) {
+            resultsToMerge[j] =
+                aggregationFunctionContexts[j].getAggregationFunction().merge(results[j], resultsToMerge[j]);
+          }
+        }
+      }
+    }
+
     // Trim the results map.
     AggregationGroupByTrimmingService aggregationGroupByTrimmingService =
         new AggregationGroupByTrimmingService(aggregationFunctionContexts, (int) _brokerRequest.getGroupBy().getTopN());
@@ -246,6 +327,17 @@ public class MCombineGroupByOperator extends BaseOperator {
     return mergedBlock;
   }
 
+  /**
+   * Helper method to get the partition for a group key from its hash. Use the high bits so that the low bits can
+   * still be used for hashing inside the partition.
+   */
+  private static int getPartition(int hash, int numPartitions) {
+    if (numPartitions == 1) {
+      return 0;
+    }
+    return hash >>> (Integer.SIZE - Integer.numberOfTrailingZeros(numPartitions));
+  }
+
   @Override
   public Block getNextBlock(BlockId blockId) {
     throw new UnsupportedOperationException();
@@ -263,4 +355,19 @@ public class MCombineGroupByOperator extends BaseOperator {
     }
     return true;
   }
+
+  /**
+   * Group keys and results from the operators of one task that belong to one partition.
+   */
+  private static class GroupKeyPartition {
+    final List<byte[]> _keys = new ArrayList<>();
+    final IntArrayList _hashes = new IntArrayList();
+    final List<Object[]> _results = new ArrayList<>();
+
+    void add(byte[] key, int hash, Object[] results) {
+      _keys.add(key);
+      _hashes.add(hash);
+      _results.add(results);
+    }
+  }
 }
@@ -17,15 +17,22 @@ package com.linkedin.pinot.core.operator;
 
 import com.linkedin.pinot.common.exception.QueryException;
 import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.Selection;
 import com.linkedin.pinot.core.common.Block;
 import com.linkedin.pinot.core.common.BlockId;
 import com.linkedin.pinot.core.common.Operator;
 import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.operator.query.MSelectionOrderByOperator;
 import com.linkedin.pinot.core.query.reduce.CombineService;
 import com.linkedin.pinot.core.util.trace.TraceCallable;
 import com.linkedin.pinot.core.util.trace.TraceRunnable;
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutionException;
@@ -33,6 +40,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,6 +56,9 @@ public class MCombineOperator extends BaseOperator {
   private final BrokerRequest _brokerRequest;
   private final ExecutorService _executorService;
   private final long _timeOutMs;
+  private final boolean _isSelectionOrderBy;
+  private final boolean _isFirstSortColumnAscending;
+  private final int _maxNumSelectionRows;
   //Make this configurable
   //These two control the parallelism on a per query basis, depending on the number of segments to process
   private static final int MIN_THREADS_PER_QUERY;
@@ -67,6 +78,18 @@ public class MCombineOperator extends BaseOperator {
     _executorService = executorService;
     _brokerRequest = brokerRequest;
     _timeOutMs = timeOutMs;
+
+    Selection selection = brokerRequest.getSelections();
+    if (selection != null && selection.isSetSelectionSortSequence() && !selection.getSelectionSortSequence().isEmpty()
+        && selection.getSize() > 0) {
+      _isSelectionOrderBy = true;
+      _isFirstSortColumnAscending = selection.getSelectionSortSequence().get(0).isIsAsc();
+      _maxNumSelectionRows = selection.getOffset() + selection.getSize();
+    } else {
+      _isSelectionOrderBy = false;
+      _isFirstSortColumnAscending = false;
+      _maxNumSelectionRows = 0;
+    }
   }
 
   @Override
@@ -81,28 +104,34 @@ public class MCombineOperator extends BaseOperator {
   public Block getNextBlock() {
     final long startTime = System.currentTimeMillis();
     final long queryEndTime = System.currentTimeMillis() + _timeOutMs;
-    final int numOperators = _operators.size();
-    // Ensure that the number of groups is not more than the number of segments
+    // For selection order-by, process the most promising segments first so that the others are more likely skipped.
+    final List<Operator> operators = _isSelectionOrderBy ? sortByBestValueOfFirstSortColumn(_operators) : _operators;
+    final int numOperators = operators.size();
+    // Ensure that the number of tasks is not more than the number of segments
     final int numGroups = Math.min(numOperators, Math.max(MIN_THREADS_PER_QUERY,
         Math.min(MAX_THREADS_PER_QUERY, (numOperators + MIN_SEGMENTS_PER_THREAD - 1) / MIN_SEGMENTS_PER_THREAD)));
 
-    final List<List<Operator>> operatorGroups = new ArrayList<>(numGroups);
-    for (int i = 0; i < numGroups; i++) {
-      operatorGroups.add(new ArrayList<Operator>());
-    }
-    for (int i = 0; i < numOperators; i++) {
-      operatorGroups.get(i % numGroups).add(_operators.get(i));
-    }
-
+    // Each task starts with its own operator, then keeps taking the next unclaimed operator until all operators are
+    // taken, so that the tasks finishing early take over the remaining work instead of waiting on a fixed assignment.
+    // Each task merges its own results.
+    final AtomicInteger nextOperatorIndex = new AtomicInteger(numGroups);
     final BlockingQueue<Block> blockingQueue = new ArrayBlockingQueue<>(numGroups);
-    // Submit operators.
-    for (final List<Operator> operatorGroup : operatorGroups) {
+    // Submit tasks.
+    for (int i = 0; i < numGroups; i++) {
+      final int firstOperatorIndex = i;
       _executorService.submit(new TraceRunnable() {
         @Override
         public void runJob() {
           IntermediateResultsBlock mergedBlock = null;
           try {
-            for (Operator operator : operatorGroup) {
+            int operatorIndex = firstOperatorIndex;
+            while (operatorIndex < numOperators) {
+              Operator operator = operators.get(operatorIndex);
+              operatorIndex = nextOperatorIndex.getAndIncrement();
+              if (mergedBlock != null && canSkip(operator, mergedBlock)) {
+                ((MSelectionOrderByOperator) operator).skip();
+                continue;
+              }
               IntermediateResultsBlock blockToMerge = (IntermediateResultsBlock) operator.nextBlock();
               if (mergedBlock == null) {
                 mergedBlock = blockToMerge;
@@ -200,6 +229,70 @@ public class MCombineOperator extends BaseOperator {
     return mergedBlock;
   }
 
+  /**
+   * Helper method to sort the selection order-by operators from the one with the best value of the first sort column
+   * in segment metadata. Operators without such value are put at the end.
+   */
+  private List<Operator> sortByBestValueOfFirstSortColumn(List<Operator> operators) {
+    int numOperators = operators.size();
+    final Operator[] sortedOperators = operators.toArray(new Operator[numOperators]);
+    final Number[] bestValues = new Number[numOperators];
+    Integer[] indices = new Integer[numOperators];
+    for (int i = 0; i < numOperators; i++) {
+      indices[i] = i;
+      if (sortedOperators[i] instanceof MSelectionOrderByOperator) {
+        Comparable bestValue = ((MSelectionOrderByOperator) sortedOperators[i]).getBestValueOfFirstSortColumn();
+        if (bestValue instanceof Number) {
+          bestValues[i] = (Number) bestValue;
+        }
+      }
+    }
+    Arrays.sort(indices, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer o1, Integer o2) {
+        Number value1 = bestValues[o1];
+        Number value2 = bestValues[o2];
+        if (value1 == null) {
+          return (value2 == null) ? 0 : 1;
+        }
+        if (value2 == null) {
+          return -1;
+        }
+        int result = Double.compare(value1.doubleValue(), value2.doubleValue());
+        return _isFirstSortColumnAscending ? result : -result;
+      }
+    });
+    List<Operator> result = new ArrayList<>(numOperators);
+    for (int index : indices) {
+      result.add(sortedOperators[index]);
+    }
+    return result;
+  }
+
+  /**
+   * Helper method to check whether a selection order-by operator can be skipped, i.e. the merged block already holds
+   * enough rows and the best value of the first sort column in segment metadata cannot beat the worst of them.
+   * <p>Only numeric values are compared, as they are stored in segment metadata the same way as in the rows.
+   */
+  @SuppressWarnings("unchecked")
+  private boolean canSkip(Operator operator, IntermediateResultsBlock mergedBlock) {
+    if (!_isSelectionOrderBy || !(operator instanceof MSelectionOrderByOperator)) {
+      return false;
+    }
+    Collection<Serializable[]> rows = mergedBlock.getSelectionResult();
+    if (!(rows instanceof PriorityQueue) || rows.size() < _maxNumSelectionRows) {
+      return false;
+    }
+    Comparable bestValue = ((MSelectionOrderByOperator) operator).getBestValueOfFirstSortColumn();
+    // The head of the priority queue is the worst row, and the first column is the first sort column.
+    Serializable worstValue = ((PriorityQueue<Serializable[]>) rows).peek()[0];
+    if (!(bestValue instanceof Number) || !(worstValue instanceof Number)) {
+      return false;
+    }
+    int result = Double.compare(((Number) bestValue).doubleValue(), ((Number) worstValue).doubleValue());
+    return _isFirstSortColumnAscending ? result > 0 : result < 0;
+  }
+
   @Override
   public Block getNextBlock(BlockId blockId) {
     throw new UnsupportedOperationException();
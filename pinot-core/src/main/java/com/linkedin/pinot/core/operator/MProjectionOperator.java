@@ -17,6 +17,7 @@ package com.linkedin.pinot.core.operator;
 
 import com.linkedin.pinot.core.common.Block;
 import com.linkedin.pinot.core.common.BlockId;
+import com.linkedin.pinot.core.common.BlockValSet;
 import com.linkedin.pinot.core.common.DataBlockCache;
 import com.linkedin.pinot.core.common.DataFetcher;
 import com.linkedin.pinot.core.operator.blocks.DocIdSetBlock;
@@ -32,18 +33,22 @@ import java.util.Map;
  */
 public class MProjectionOperator extends BaseOperator {
   private static final String OPERATOR_NAME = "MProjectionOperator";
+  private static final BlockId BLOCK_ZERO = new BlockId(0);
 
   private final BReusableFilteredDocIdSetOperator _docIdSetOperator;
   private final Map<String, BaseOperator> _columnToDataSourceMap;
   private ProjectionBlock _currentBlock = null;
-  private Map<String, Block> _blockMap;
-  private DataBlockCache _dataBlockCache;
+  private final Map<String, Block> _blockMap;
+  // Block value sets are shared by all the projection blocks of the segment.
+  private final Map<String, BlockValSet> _blockValSetMap;
+  private final DataBlockCache _dataBlockCache;
   private final DataFetcher _dataFetcher;
 
   public MProjectionOperator(Map<String, BaseOperator> dataSourceMap, BReusableFilteredDocIdSetOperator docIdSetOperator) {
     _docIdSetOperator = docIdSetOperator;
     _columnToDataSourceMap = dataSourceMap;
     _blockMap = new HashMap<>();
+    _blockValSetMap = new HashMap<>();
     _dataFetcher = new DataFetcher(_columnToDataSourceMap);
     _dataBlockCache = new DataBlockCache(_dataFetcher);
   }
@@ -71,12 +76,14 @@ public class MProjectionOperator extends BaseOperator {
     DocIdSetBlock docIdSetBlock = (DocIdSetBlock) _docIdSetOperator.nextBlock();
     if (docIdSetBlock == null) {
       _currentBlock = null;
+      // All the blocks are processed, give the buffers back for the next segment processed by this thread.
+      _dataBlockCache.releaseArrays();
     } else {
       _blockMap.put("_docIdSet", docIdSetBlock);
-      for (String column : _columnToDataSourceMap.keySet()) {
-        _blockMap.put(column, _columnToDataSourceMap.get(column).nextBlock(new BlockId(0)));
+      for (Map.Entry<String, BaseOperator> entry : _columnToDataSourceMap.entrySet()) {
+        _blockMap.put(entry.getKey(), entry.getValue().nextBlock(BLOCK_ZERO));
       }
-      _currentBlock = new ProjectionBlock(_blockMap, _dataBlockCache, docIdSetBlock);
+      _currentBlock = new ProjectionBlock(_blockMap, _blockValSetMap, _dataBlockCache, docIdSetBlock);
     }
     return _currentBlock;
   }
@@ -0,0 +1,215 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.utils.Pairs.IntPair;
+import com.linkedin.pinot.core.common.BlockDocIdIterator;
+import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.blocks.DocIdSetBlock;
+import com.linkedin.pinot.core.operator.docidsets.FilterBlockDocIdSet;
+import com.linkedin.pinot.core.operator.docidsets.SizeBasedDocIdSet;
+import com.linkedin.pinot.core.operator.filter.BaseFilterOperator;
+import com.linkedin.pinot.core.plan.FilterPlanNode;
+import com.linkedin.pinot.core.segment.index.readers.SortedInvertedIndexReader;
+import java.util.Arrays;
+
+
+/**
+ * The <code>SortedColumnDocIdSetOperator</code> class returns the matching document ids of a segment in the order of
+ * its sorted column, and stops once enough documents are returned for selection queries with <code>ORDER BY</code> on
+ * the sorted column.
+ * <p>Documents are collected in windows of growing size, starting from the first document for ascending order and
+ * from the last document for descending order. Each window is filtered with a new filter operator restricted to the
+ * window. Once the number of collected documents reaches the number of rows to select, no more window is collected.
+ * <p>If the query has other sort columns, the windows are extended to whole dictionary id ranges of the sorted column,
+ * so that all the documents tied with the last collected ones are collected as well.
+ */
+public class SortedColumnDocIdSetOperator extends BReusableFilteredDocIdSetOperator {
+  private static final String OPERATOR_NAME = "SortedColumnDocIdSetOperator";
+  private static final int MIN_WINDOW_SIZE = 1024;
+
+  private final IndexSegment _indexSegment;
+  private final BrokerRequest _brokerRequest;
+  private final SortedInvertedIndexReader _sortedIndex;
+  private final int _cardinality;
+  private final int _numDocs;
+  private final boolean _ascending;
+  private final boolean _alignToDictIdRanges;
+  private final int _numDocsToCollect;
+  private final int _maxSizeOfDocIdSet;
+  private final int[] _docIdArray;
+
+  private int _windowSize;
+  // Next document to collect, moves forward for ascending order and backward for descending order.
+  private int _nextDocId;
+  private int[] _collectedDocIds = new int[MIN_WINDOW_SIZE];
+  private int _numCollectedDocIdsInWindow = 0;
+  private int _returnedPosition = 0;
+  private long _numCollectedDocs = 0;
+  private long _numEntriesScannedInFilter = 0;
+  private boolean _done = false;
+
+  /**
+   * Constructor for the class.
+   *
+   * @param indexSegment index segment.
+   * @param brokerRequest broker request, used to create the filter operator of each window.
+   * @param sortedIndex sorted inverted index of the sorted column.
+   * @param cardinality cardinality of the sorted column.
+   * @param ascending whether the documents are returned in ascending order of the sorted column.
+   * @param alignToDictIdRanges whether the windows are extended to whole dictionary id ranges.
+   * @param numDocsToCollect number of documents to collect before stopping.
+   * @param maxSizeOfDocIdSet maximum number of documents per block.
+   */
+  public SortedColumnDocIdSetOperator(IndexSegment indexSegment, BrokerRequest brokerRequest,
+      SortedInvertedIndexReader sortedIndex, int cardinality, boolean ascending, boolean alignToDictIdRanges,
+      int numDocsToCollect, int maxSizeOfDocIdSet) {
+    super(maxSizeOfDocIdSet);
+    _indexSegment = indexSegment;
+    _brokerRequest = brokerRequest;
+    _sortedIndex = sortedIndex;
+    _cardinality = cardinality;
+    _numDocs = indexSegment.getSegmentMetadata().getTotalDocs();
+    _ascending = ascending;
+    _alignToDictIdRanges = alignToDictIdRanges;
+    _numDocsToCollect = numDocsToCollect;
+    _maxSizeOfDocIdSet = maxSizeOfDocIdSet;
+    _docIdArray = new int[maxSizeOfDocIdSet];
+    _windowSize = Math.max(numDocsToCollect, MIN_WINDOW_SIZE);
+    _nextDocId = ascending ? 0 : _numDocs - 1;
+    _done = (numDocsToCollect == 0) || (_numDocs == 0);
+  }
+
+  @Override
+  public boolean open() {
+    return true;
+  }
+
+  @Override
+  public DocIdSetBlock getNextBlock() {
+    while (_returnedPosition == _numCollectedDocIdsInWindow) {
+      if (_done) {
+        return null;
+      }
+      collectNextWindow();
+    }
+    int length = Math.min(_maxSizeOfDocIdSet, _numCollectedDocIdsInWindow - _returnedPosition);
+    System.arraycopy(_collectedDocIds, _returnedPosition, _docIdArray, 0, length);
+    _returnedPosition += length;
+    return new DocIdSetBlock(_docIdArray, length);
+  }
+
+  /**
+   * Collects the matching documents of the next window, and decides whether more windows are needed.
+   */
+  private void collectNextWindow() {
+    int startDocId;
+    int endDocId;
+    if (_ascending) {
+      startDocId = _nextDocId;
+      endDocId = (int) Math.min((long) startDocId + _windowSize, _numDocs) - 1;
+      if (_alignToDictIdRanges) {
+        endDocId = getDocIdRange(endDocId).getRight();
+      }
+      _nextDocId = endDocId + 1;
+      _done = _nextDocId >= _numDocs;
+    } else {
+      endDocId = _nextDocId;
+      startDocId = Math.max(endDocId - _windowSize + 1, 0);
+      if (_alignToDictIdRanges) {
+        startDocId = getDocIdRange(startDocId).getLeft();
+      }
+      _nextDocId = startDocId - 1;
+      _done = _nextDocId < 0;
+    }
+    _windowSize = (int) Math.min(2L * _windowSize, Integer.MAX_VALUE);
+
+    _numCollectedDocIdsInWindow = 0;
+    _returnedPosition = 0;
+    BaseFilterOperator filterOperator = (BaseFilterOperator) new FilterPlanNode(_indexSegment, _brokerRequest).run();
+    filterOperator.open();
+    try {
+      FilterBlockDocIdSet filterBlockDocIdSet = (FilterBlockDocIdSet) filterOperator.nextBlock().getBlockDocIdSet();
+      if (filterBlockDocIdSet instanceof SizeBasedDocIdSet) {
+        // All documents match, no need to iterate over the filter.
+        int numDocsInWindow = endDocId - startDocId + 1;
+        if (numDocsInWindow > _collectedDocIds.length) {
+          _collectedDocIds = new int[numDocsInWindow];
+        }
+        for (int docId = startDocId; docId <= endDocId; docId++) {
+          _collectedDocIds[_numCollectedDocIdsInWindow++] = docId;
+        }
+      } else {
+        filterBlockDocIdSet.setStartDocId(startDocId);
+        filterBlockDocIdSet.setEndDocId(endDocId);
+        BlockDocIdIterator blockDocIdIterator = filterBlockDocIdSet.iterator();
+        int docId = blockDocIdIterator.advance(startDocId);
+        while (docId != Constants.EOF && docId <= endDocId) {
+          if (_numCollectedDocIdsInWindow == _collectedDocIds.length) {
+            _collectedDocIds = Arrays.copyOf(_collectedDocIds, 2 * _numCollectedDocIdsInWindow);
+          }
+          _collectedDocIds[_numCollectedDocIdsInWindow++] = docId;
+          docId = blockDocIdIterator.next();
+        }
+        _numEntriesScannedInFilter += filterBlockDocIdSet.getNumEntriesScannedInFilter();
+      }
+    } finally {
+      filterOperator.close();
+    }
+
+    _numCollectedDocs += _numCollectedDocIdsInWindow;
+    if (_numCollectedDocs >= _numDocsToCollect) {
+      _done = true;
+    }
+  }
+
+  /**
+   * Returns the document id range of the dictionary id of the sorted column for the given document.
+   */
+  private IntPair getDocIdRange(int docId) {
+    int low = 0;
+    int high = _cardinality - 1;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      IntPair docIdRange = _sortedIndex.getMinMaxRangeFor(mid);
+      if (docIdRange.getRight() < docId) {
+        low = mid + 1;
+      } else if (docIdRange.getLeft() > docId) {
+        high = mid - 1;
+      } else {
+        return docIdRange;
+      }
+    }
+    return _sortedIndex.getMinMaxRangeFor(low);
+  }
+
+  @Override
+  public String getOperatorName() {
+    return OPERATOR_NAME;
+  }
+
+  @Override
+  public boolean close() {
+    return true;
+  }
+
+  @Override
+  public ExecutionStatistics getExecutionStatistics() {
+    return new ExecutionStatistics(0L, _numEntriesScannedInFilter, 0L, 0L);
+  }
+}
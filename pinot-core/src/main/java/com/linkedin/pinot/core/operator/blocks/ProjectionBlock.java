@@ -24,6 +24,7 @@ import com.linkedin.pinot.core.common.BlockValSet;
 import com.linkedin.pinot.core.common.DataBlockCache;
 import com.linkedin.pinot.core.common.Predicate;
 import com.linkedin.pinot.core.operator.docvalsets.ProjectionBlockValSet;
+import java.util.HashMap;
 import java.util.Map;
 
 
@@ -36,9 +37,26 @@ public class ProjectionBlock implements Block {
   private final Map<String, Block> _blockMap;
   private final DocIdSetBlock _docIdSetBlock;
   private final DataBlockCache _dataBlockCache;
+  private final Map<String, BlockValSet> _blockValSetMap;
 
   public ProjectionBlock(Map<String, Block> blockMap, DataBlockCache dataBlockCache, DocIdSetBlock docIdSetBlock) {
+    this(blockMap, new HashMap<String, BlockValSet>(), dataBlockCache, docIdSetBlock);
+  }
+
+  /**
+   * Constructor for the class.
+   * The blockValSetMap is a cache of {@link ProjectionBlockValSet} for the columns, which can be shared by all the
+   * projection blocks backed by the same data block cache, so that the value sets are not re-created for every block.
+   *
+   * @param blockMap Map from column to block
+   * @param blockValSetMap Map from column to block value set, populated on demand
+   * @param dataBlockCache Data block cache
+   * @param docIdSetBlock Doc id set block
+   */
+  public ProjectionBlock(Map<String, Block> blockMap, Map<String, BlockValSet> blockValSetMap,
+      DataBlockCache dataBlockCache, DocIdSetBlock docIdSetBlock) {
     _blockMap = blockMap;
+    _blockValSetMap = blockValSetMap;
     _docIdSetBlock = docIdSetBlock;
     _dataBlockCache = dataBlockCache;
     _dataBlockCache.initNewBlock(docIdSetBlock.getDocIdSet(), 0, docIdSetBlock.getSearchableLength());
@@ -79,7 +97,12 @@ public class ProjectionBlock implements Block {
   }
 
   public BlockValSet getBlockValueSet(String column) {
-    return new ProjectionBlockValSet(_dataBlockCache, column);
+    BlockValSet blockValSet = _blockValSetMap.get(column);
+    if (blockValSet == null) {
+      blockValSet = new ProjectionBlockValSet(_dataBlockCache, column);
+      _blockValSetMap.put(column, blockValSet);
+    }
+    return blockValSet;
   }
 
   public BlockMetadata getMetadata(String column) {
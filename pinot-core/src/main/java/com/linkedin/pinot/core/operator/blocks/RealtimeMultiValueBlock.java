@@ -26,7 +26,7 @@ import com.linkedin.pinot.core.common.BlockValSet;
 import com.linkedin.pinot.core.common.Predicate;
 import com.linkedin.pinot.core.io.readerwriter.impl.FixedByteSingleColumnMultiValueReaderWriter;
 import com.linkedin.pinot.core.operator.docvalsets.RealtimeMultiValueSet;
-import com.linkedin.pinot.core.realtime.impl.dictionary.BaseOnHeapMutableDictionary;
+import com.linkedin.pinot.core.realtime.impl.dictionary.BaseMutableDictionary;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import org.roaringbitmap.buffer.MutableRoaringBitmap;
 
@@ -35,13 +35,13 @@ public class RealtimeMultiValueBlock implements Block {
 
   private final MutableRoaringBitmap filteredBitmap;
   final FieldSpec spec;
-  private final BaseOnHeapMutableDictionary dictionary;
+  private final BaseMutableDictionary dictionary;
   final int docIdSearchableOffset;
   final FixedByteSingleColumnMultiValueReaderWriter reader;
   private Predicate p;
   private final int maxNumberOfMultiValues;
 
-  public RealtimeMultiValueBlock(FieldSpec spec, BaseOnHeapMutableDictionary dictionary, MutableRoaringBitmap filteredDocids,
+  public RealtimeMultiValueBlock(FieldSpec spec, BaseMutableDictionary dictionary, MutableRoaringBitmap filteredDocids,
       int docIdOffset, int maxNumberOfMultiValues, FixedByteSingleColumnMultiValueReaderWriter indexReader) {
     this.spec = spec;
     this.dictionary = dictionary;
@@ -26,7 +26,7 @@ import com.linkedin.pinot.core.common.BlockValSet;
 import com.linkedin.pinot.core.common.Predicate;
 import com.linkedin.pinot.core.io.readerwriter.impl.FixedByteSingleColumnSingleValueReaderWriter;
 import com.linkedin.pinot.core.operator.docvalsets.RealtimeSingleValueSet;
-import com.linkedin.pinot.core.realtime.impl.dictionary.BaseOnHeapMutableDictionary;
+import com.linkedin.pinot.core.realtime.impl.dictionary.BaseMutableDictionary;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import org.roaringbitmap.buffer.MutableRoaringBitmap;
 
@@ -35,12 +35,12 @@ public class RealtimeSingleValueBlock implements Block {
 
   private final MutableRoaringBitmap filteredBitmap;
   final FieldSpec spec;
-  private final BaseOnHeapMutableDictionary dictionary;
+  private final BaseMutableDictionary dictionary;
   final int docIdSearchableOffset;
   final FixedByteSingleColumnSingleValueReaderWriter reader;
   private Predicate p;
 
-  public RealtimeSingleValueBlock(MutableRoaringBitmap filteredBitmap, FieldSpec spec, BaseOnHeapMutableDictionary dictionary,
+  public RealtimeSingleValueBlock(MutableRoaringBitmap filteredBitmap, FieldSpec spec, BaseMutableDictionary dictionary,
       int offset, FixedByteSingleColumnSingleValueReaderWriter indexReader) {
     this.spec = spec;
     this.dictionary = dictionary;
@@ -33,8 +33,9 @@ public final class SizeBasedDocIdIterator implements BlockDocIdIterator {
   @Override
   public int advance(int targetDocId) {
     if (targetDocId < maxDocId) {
-      counter = targetDocId;
-      return counter;
+      // Move past the target document, so that the next call to next() returns the document after it.
+      counter = targetDocId + 1;
+      return targetDocId;
     } else {
       return Constants.EOF;
     }
@@ -16,6 +16,8 @@
 package com.linkedin.pinot.core.operator.docidsets;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 import org.roaringbitmap.IntIterator;
@@ -188,7 +190,15 @@ public final class AndBlockDocIdSet implements FilterBlockDocIdSet {
           answer.add(pair.getLeft(), pair.getRight() + 1);
         }
       }
-      // handle bitmaps
+      // handle bitmaps, intersect from the smallest one so that the intermediate results stay small
+      if (childBitmaps.size() > 1) {
+        Collections.sort(childBitmaps, new Comparator<ImmutableRoaringBitmap>() {
+          @Override
+          public int compare(ImmutableRoaringBitmap o1, ImmutableRoaringBitmap o2) {
+            return Integer.compare(o1.getCardinality(), o2.getCardinality());
+          }
+        });
+      }
       if (childBitmaps.size() > 0) {
         if (answer == null) {
           answer = childBitmaps.get(0).toMutableRoaringBitmap();
@@ -205,8 +215,12 @@ public final class AndBlockDocIdSet implements FilterBlockDocIdSet {
       // At this point, we must have 'answer' to be non-null.
       assert (answer != null) : "sortedRangeSets=" + sortedRangeSets.size() + ",childBitmaps=" + childBitmaps.size();
 
-      // handle raw iterators
+      // handle raw iterators, in the order of the children which puts the most selective ones first
       for (FilterBlockDocIdSet scanBasedDocIdSet : scanBasedDocIdSets) {
+        if (answer.isEmpty()) {
+          // No need to scan if the index based children already match nothing
+          break;
+        }
         ScanBasedDocIdIterator iterator = (ScanBasedDocIdIterator) scanBasedDocIdSet.iterator();
         MutableRoaringBitmap scanAnswer = iterator.applyAnd(answer);
         answer.and(scanAnswer);
@@ -30,14 +30,13 @@ import com.linkedin.pinot.core.operator.MProjectionOperator;
  */
 public class ProjectionBlockValSet extends BaseBlockValSet {
 
-  private DataBlockCache _dataBlockCache;
+  private final DataBlockCache _dataBlockCache;
   private final BlockValIterator _blockValIterator;
   private final FieldSpec.DataType _columnDataType;
-  private String _column;
+  // Column is resolved to its index in the data block cache once, so that fetching values for a block needs no lookup.
+  private final int _columnIndex;
 
   /**
-
-
    * Constructor for the class.
    * The dataBlockCache argument is initialized in {@link com.linkedin.pinot.core.operator.MProjectionOperator},
    * so that it can be reused across multiple calls to {@link MProjectionOperator#getNextBlock()}.
@@ -47,39 +46,39 @@ public class ProjectionBlockValSet extends BaseBlockValSet {
    */
   public ProjectionBlockValSet(DataBlockCache dataBlockCache, String column) {
     _dataBlockCache = dataBlockCache;
-    _column = column;
-    _columnDataType = _dataBlockCache.getDataType(column);
-    _blockValIterator = _dataBlockCache.getDataFetcher().getBlockValIteratorForColumn(column);
+    _columnIndex = dataBlockCache.getColumnIndex(column);
+    _columnDataType = dataBlockCache.getDataType(_columnIndex);
+    _blockValIterator = dataBlockCache.getDataFetcher().getBlockValIteratorForColumn(_columnIndex);
   }
 
   @Override
   public int[] getIntValuesSV() {
-    return _dataBlockCache.getIntValueArrayForColumn(_column);
+    return _dataBlockCache.getIntValueArrayForColumn(_columnIndex);
   }
 
   @Override
   public int[][] getIntValuesMV() {
-    return _dataBlockCache.getIntValuesArrayForColumn(_column);
+    return _dataBlockCache.getIntValuesArrayForColumn(_columnIndex);
   }
 
   @Override
   public long[] getLongValuesSV() {
-    return _dataBlockCache.getLongValueArrayForColumn(_column);
+    return _dataBlockCache.getLongValueArrayForColumn(_columnIndex);
   }
 
   @Override
   public long[][] getLongValuesMV() {
-    return _dataBlockCache.getLongValuesArrayForColumn(_column);
+    return _dataBlockCache.getLongValuesArrayForColumn(_columnIndex);
   }
 
   @Override
   public float[] getFloatValuesSV() {
-    return _dataBlockCache.getFloatValueArrayForColumn(_column);
+    return _dataBlockCache.getFloatValueArrayForColumn(_columnIndex);
   }
 
   @Override
   public float[][] getFloatValuesMV() {
-    return _dataBlockCache.getFloatValuesArrayForColumn(_column);
+    return _dataBlockCache.getFloatValuesArrayForColumn(_columnIndex);
   }
 
   /**
@@ -90,7 +89,7 @@ public class ProjectionBlockValSet extends BaseBlockValSet {
    */
   @Override
   public double[] getDoubleValuesSV() {
-    return _dataBlockCache.getDoubleValueArrayForColumn(_column);
+    return _dataBlockCache.getDoubleValueArrayForColumn(_columnIndex);
   }
 
   /**
@@ -101,18 +100,18 @@ public class ProjectionBlockValSet extends BaseBlockValSet {
    */
   @Override
   public double[][] getDoubleValuesMV() {
-    return _dataBlockCache.getDoubleValuesArrayForColumn(_column);
+    return _dataBlockCache.getDoubleValuesArrayForColumn(_columnIndex);
   }
 
 
   @Override
   public String[] getStringValuesSV() {
-    return _dataBlockCache.getStringValueArrayForColumn(_column);
+    return _dataBlockCache.getStringValueArrayForColumn(_columnIndex);
   }
 
   @Override
   public String[][] getStringValuesMV() {
-    return _dataBlockCache.getStringValuesArrayForColumn(_column);
+    return _dataBlockCache.getStringValuesArrayForColumn(_columnIndex);
   }
 
   @Override
@@ -129,7 +128,7 @@ public class ProjectionBlockValSet extends BaseBlockValSet {
 
   @Override
   public int[] getDictionaryIds() {
-    return _dataBlockCache.getDictIdArrayForColumn(_column);
+    return _dataBlockCache.getDictIdArrayForColumn(_columnIndex);
   }
 
   @Override
@@ -141,6 +140,6 @@ public class ProjectionBlockValSet extends BaseBlockValSet {
 
   @Override
   public int[] getNumberOfMVEntriesArray() {
-    return _dataBlockCache.getNumberOfEntriesArrayForColumn(_column);
+    return _dataBlockCache.getNumberOfEntriesArrayForColumn(_columnIndex);
   }
 }
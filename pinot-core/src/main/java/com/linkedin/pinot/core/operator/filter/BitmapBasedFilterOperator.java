@@ -23,6 +23,7 @@ import com.linkedin.pinot.core.operator.blocks.BaseFilterBlock;
 import com.linkedin.pinot.core.operator.blocks.BitmapBlock;
 import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluator;
 import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluatorProvider;
+import com.linkedin.pinot.core.segment.index.readers.BitmapInvertedIndexReader;
 import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
 import java.util.ArrayList;
 import java.util.List;
@@ -52,8 +53,21 @@ public class BitmapBasedFilterOperator extends BaseFilterOperator {
    * @param endDocId inclusive
    */
   public BitmapBasedFilterOperator(Predicate predicate, DataSource dataSource, int startDocId, int endDocId) {
+    this(predicate, PredicateEvaluatorProvider.getPredicateFunctionFor(predicate, dataSource), dataSource, startDocId,
+        endDocId);
+  }
+
+  /**
+   * @param predicate
+   * @param predicateEvaluator predicate evaluator already built for the data source
+   * @param dataSource
+   * @param startDocId inclusive
+   * @param endDocId inclusive
+   */
+  public BitmapBasedFilterOperator(Predicate predicate, PredicateEvaluator predicateEvaluator, DataSource dataSource,
+      int startDocId, int endDocId) {
     this.predicate = predicate;
-    this.predicateEvaluator = PredicateEvaluatorProvider.getPredicateFunctionFor(predicate, dataSource);
+    this.predicateEvaluator = predicateEvaluator;
     this.dataSource = dataSource;
     this.startDocId = startDocId;
     this.endDocId = endDocId;
@@ -87,6 +101,14 @@ public class BitmapBasedFilterOperator extends BaseFilterOperator {
         throw new UnsupportedOperationException("Regex is not supported");
     }
 
+    // The union of the bitmaps of an offline segment can be served from the bitmap cache.
+    if (invertedIndex instanceof BitmapInvertedIndexReader && dictionaryIds.length > 0) {
+      ImmutableRoaringBitmap union = ((BitmapInvertedIndexReader) invertedIndex).getUnion(dictionaryIds);
+      bitmapBlock = new BitmapBlock(dataSource.getOperatorName(), dataSourceBlock.getMetadata(), startDocId, endDocId,
+          new ImmutableRoaringBitmap[]{union}, exclusion);
+      return bitmapBlock;
+    }
+
     // For realtime use case, it is possible that inverted index has not yet generated for the given dict id, so we
     // filter out null bitmaps
     int length = dictionaryIds.length;
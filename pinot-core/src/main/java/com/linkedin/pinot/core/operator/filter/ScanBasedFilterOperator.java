@@ -50,7 +50,18 @@ public class ScanBasedFilterOperator extends BaseFilterOperator {
    * @param endDocId inclusive
    */
   public ScanBasedFilterOperator(Predicate predicate, DataSource dataSource, Integer startDocId, Integer endDocId) {
-    this.predicateEvaluator = PredicateEvaluatorProvider.getPredicateFunctionFor(predicate, dataSource);
+    this(PredicateEvaluatorProvider.getPredicateFunctionFor(predicate, dataSource), dataSource, startDocId, endDocId);
+  }
+
+  /**
+   * @param predicateEvaluator predicate evaluator already built for the data source
+   * @param dataSource
+   * @param startDocId inclusive
+   * @param endDocId inclusive
+   */
+  public ScanBasedFilterOperator(PredicateEvaluator predicateEvaluator, DataSource dataSource, Integer startDocId,
+      Integer endDocId) {
+    this.predicateEvaluator = predicateEvaluator;
     this.dataSource = dataSource;
     this.startDocId = startDocId;
     this.endDocId = endDocId;
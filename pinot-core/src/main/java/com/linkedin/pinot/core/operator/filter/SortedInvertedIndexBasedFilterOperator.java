@@ -59,8 +59,21 @@ public class SortedInvertedIndexBasedFilterOperator extends BaseFilterOperator {
    * @param endDocId inclusive
    */
   public SortedInvertedIndexBasedFilterOperator(Predicate predicate, DataSource dataSource, int startDocId, int endDocId) {
+    this(predicate, PredicateEvaluatorProvider.getPredicateFunctionFor(predicate, dataSource), dataSource, startDocId,
+        endDocId);
+  }
+
+  /**
+   *
+   * @param predicateEvaluator predicate evaluator already built for the data source
+   * @param dataSource
+   * @param startDocId inclusive
+   * @param endDocId inclusive
+   */
+  public SortedInvertedIndexBasedFilterOperator(Predicate predicate, PredicateEvaluator predicateEvaluator,
+      DataSource dataSource, int startDocId, int endDocId) {
     this.predicate = predicate;
-    this.predicateEvaluator = PredicateEvaluatorProvider.getPredicateFunctionFor(predicate, dataSource);
+    this.predicateEvaluator = predicateEvaluator;
     this.dataSource = dataSource;
     this.startDocId = startDocId;
     this.endDocId = endDocId;
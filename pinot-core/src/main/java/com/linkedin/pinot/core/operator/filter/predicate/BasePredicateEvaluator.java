@@ -45,6 +45,11 @@ public abstract class BasePredicateEvaluator implements PredicateEvaluator {
     throw new UnsupportedOperationException(EXCEPTION_MESSAGE);
   }
 
+  @Override
+  public int getNumMatchingDictionaryIds() {
+    return -1;
+  }
+
   @Override
   public boolean alwaysFalse() {
     return false;
@@ -306,6 +306,11 @@ public class EqualsPredicateEvaluatorFactory {
       return false;
     }
 
+    @Override
+    public int getNumMatchingDictionaryIds() {
+      return _matchingIds.length;
+    }
+
     @Override
     public boolean alwaysFalse() {
       return _equalsMatchDictId < 0;
@@ -145,6 +145,11 @@ public class InPredicateEvaluatorFactory extends BasePredicateEvaluator {
       return false;
     }
 
+    @Override
+    public int getNumMatchingDictionaryIds() {
+      return _matchingIds.length;
+    }
+
     @Override
     public boolean alwaysFalse() {
       return _matchingIds == null || _matchingIds.length == 0;
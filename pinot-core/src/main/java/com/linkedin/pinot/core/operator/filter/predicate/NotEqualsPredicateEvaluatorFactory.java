@@ -322,6 +322,11 @@ public class NotEqualsPredicateEvaluatorFactory {
       return true;
     }
 
+    @Override
+    public int getNumMatchingDictionaryIds() {
+      return _dictionary.length() - _nonMatchingDictIds.length;
+    }
+
     @Override
     public boolean alwaysFalse() {
       return _nonMatchingDictIds.length == _dictionary.length();
@@ -157,6 +157,11 @@ public class NotInPredicateEvaluatorFactory {
       return true;
     }
 
+    @Override
+    public int getNumMatchingDictionaryIds() {
+      return _dictionary.length() - _nonMatchingIds.length;
+    }
+
     @Override
     public boolean alwaysFalse() {
       return _nonMatchingIds.length == _dictionary.length();
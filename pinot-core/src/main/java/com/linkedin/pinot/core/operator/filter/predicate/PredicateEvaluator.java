@@ -46,6 +46,12 @@ public interface PredicateEvaluator {
    */
   public int[] getNonMatchingDictionaryIds();
 
+  /**
+   * @return number of matching dictionary Ids without materializing them, or -1 if it cannot be computed cheaply (e.g.
+   * REGEXP_LIKE, or no dictionary)
+   */
+  public int getNumMatchingDictionaryIds();
+
   /**
    * Will return true if the predicate is evaluated as false all the time. Useful to skip the
    * segment. e.g if country=zm and segment contains no record for "zm" country we can skip the
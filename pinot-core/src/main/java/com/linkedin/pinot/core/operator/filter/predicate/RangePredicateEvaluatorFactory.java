@@ -17,7 +17,7 @@ package com.linkedin.pinot.core.operator.filter.predicate;
 
 import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.core.common.predicate.RangePredicate;
-import com.linkedin.pinot.core.realtime.impl.dictionary.BaseOnHeapMutableDictionary;
+import com.linkedin.pinot.core.realtime.impl.dictionary.BaseMutableDictionary;
 import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import it.unimi.dsi.fastutil.ints.IntSet;
@@ -53,7 +53,7 @@ public class RangePredicateEvaluatorFactory {
    * @return Dictionary based equality _predicate evaluator
    */
   public static PredicateEvaluator newRealtimeDictionaryBasedEvaluator(RangePredicate predicate,
-      BaseOnHeapMutableDictionary dictionary) {
+      BaseMutableDictionary dictionary) {
     return new RealtimeDictionaryBasedPredicateEvaluator(predicate, dictionary);
   }
 
@@ -175,6 +175,11 @@ public class RangePredicateEvaluatorFactory {
       return false;
     }
 
+    @Override
+    public int getNumMatchingDictionaryIds() {
+      return _matchingSize;
+    }
+
     @Override
     public boolean alwaysFalse() {
       return ((_rangeEndIndex - _rangeStartIndex) + 1) <= 0;
@@ -187,7 +192,7 @@ public class RangePredicateEvaluatorFactory {
     private IntSet _dictIdSet;
     private RangePredicate _predicate;
 
-    public RealtimeDictionaryBasedPredicateEvaluator(RangePredicate predicate, BaseOnHeapMutableDictionary dictionary) {
+    public RealtimeDictionaryBasedPredicateEvaluator(RangePredicate predicate, BaseMutableDictionary dictionary) {
       this._predicate = predicate;
       List<Integer> ids = new ArrayList<>();
       String rangeStart;
@@ -265,6 +270,11 @@ public class RangePredicateEvaluatorFactory {
       return false;
     }
 
+    @Override
+    public int getNumMatchingDictionaryIds() {
+      return _matchingIds.length;
+    }
+
     @Override
     public boolean alwaysFalse() {
       return _matchingIds.length == 0;
@@ -0,0 +1,203 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.query;
+
+import com.clearspring.analytics.stream.cardinality.HyperLogLog;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockId;
+import com.linkedin.pinot.core.common.DataSource;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.BaseOperator;
+import com.linkedin.pinot.core.operator.ExecutionStatistics;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluator;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionContext;
+import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionFactory;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.core.startree.hll.HllConstants;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * The <code>DictionaryBasedAggregationOperator</code> class provides the operator for <code>DISTINCTCOUNT</code> and
+ * <code>DISTINCTCOUNTHLL</code> aggregation only query on a single segment by iterating over the dictionary of the
+ * aggregation column instead of the documents.
+ * <p>Each dictionary id of an offline segment appears in at least one document, so the distinct values of the matching
+ * documents are:
+ * <ul>
+ *   <li>All the dictionary values if all documents match the filter.</li>
+ *   <li>The dictionary values accepted by the predicate evaluator if the filter is a single predicate on the
+ *   aggregation column.</li>
+ * </ul>
+ */
+public class DictionaryBasedAggregationOperator extends BaseOperator {
+  private static final String OPERATOR_NAME = "DictionaryBasedAggregationOperator";
+
+  private final AggregationFunctionContext[] _aggregationFunctionContexts;
+  private final IndexSegment _indexSegment;
+  private final PredicateEvaluator _predicateEvaluator;
+  private final long _numDocsMatched;
+  private final long _numTotalRawDocs;
+  private ExecutionStatistics _executionStatistics;
+
+  /**
+   * Constructor for the class.
+   *
+   * @param aggregationFunctionContexts aggregation function contexts.
+   * @param indexSegment index segment.
+   * @param predicateEvaluator predicate evaluator on the aggregation column, or <code>null</code> if all documents
+   *                           match the filter.
+   * @param numDocsMatched number of documents matching the filter.
+   * @param numTotalRawDocs number of total raw documents.
+   */
+  public DictionaryBasedAggregationOperator(@Nonnull AggregationFunctionContext[] aggregationFunctionContexts,
+      @Nonnull IndexSegment indexSegment, @Nullable PredicateEvaluator predicateEvaluator, long numDocsMatched,
+      long numTotalRawDocs) {
+    _aggregationFunctionContexts = aggregationFunctionContexts;
+    _indexSegment = indexSegment;
+    _predicateEvaluator = predicateEvaluator;
+    _numDocsMatched = numDocsMatched;
+    _numTotalRawDocs = numTotalRawDocs;
+  }
+
+  @Override
+  public boolean open() {
+    return true;
+  }
+
+  @Override
+  public Block getNextBlock() {
+    int numAggregationFunctions = _aggregationFunctionContexts.length;
+    List<Object> aggregationResults = new ArrayList<>(numAggregationFunctions);
+    for (AggregationFunctionContext aggregationFunctionContext : _aggregationFunctionContexts) {
+      AggregationFunctionFactory.AggregationFunctionType functionType = AggregationFunctionFactory.AggregationFunctionType
+          .valueOf(aggregationFunctionContext.getAggregationFunction().getName().toUpperCase());
+      DataSource dataSource = _indexSegment.getDataSource(aggregationFunctionContext.getAggregationColumns()[0]);
+      Dictionary dictionary = dataSource.getDictionary();
+      FieldSpec.DataType dataType = dataSource.getDataSourceMetadata().getDataType();
+      switch (functionType) {
+        case DISTINCTCOUNT:
+          aggregationResults.add(getDistinctValueHashCodes(dictionary, dataType));
+          break;
+        case DISTINCTCOUNTHLL:
+          aggregationResults.add(getHyperLogLog(dictionary, dataType));
+          break;
+        default:
+          throw new IllegalStateException(
+              "Aggregation function: " + functionType + " is not supported in DictionaryBasedAggregationOperator");
+      }
+    }
+
+    // Only dictionary entries are scanned.
+    _executionStatistics = new ExecutionStatistics(_numDocsMatched, 0L, 0L, _numTotalRawDocs);
+
+    return new IntermediateResultsBlock(_aggregationFunctionContexts, aggregationResults, false);
+  }
+
+  /**
+   * Helper method to get the hash codes of the matching dictionary values, the same way as
+   * <code>DistinctCountAggregationFunction</code>.
+   */
+  private IntOpenHashSet getDistinctValueHashCodes(Dictionary dictionary, FieldSpec.DataType dataType) {
+    int length = dictionary.length();
+    IntOpenHashSet valueSet = new IntOpenHashSet(length);
+    for (int dictId = 0; dictId < length; dictId++) {
+      if (_predicateEvaluator != null && !_predicateEvaluator.apply(dictId)) {
+        continue;
+      }
+      switch (dataType) {
+        case INT:
+          valueSet.add(dictionary.getIntValue(dictId));
+          break;
+        case LONG:
+          valueSet.add(Long.valueOf(dictionary.getLongValue(dictId)).hashCode());
+          break;
+        case FLOAT:
+          valueSet.add(Float.valueOf(dictionary.getFloatValue(dictId)).hashCode());
+          break;
+        case DOUBLE:
+          valueSet.add(Double.valueOf(dictionary.getDoubleValue(dictId)).hashCode());
+          break;
+        case STRING:
+          valueSet.add(dictionary.getStringValue(dictId).hashCode());
+          break;
+        default:
+          throw new IllegalArgumentException("Illegal data type for distinct count aggregation function: " + dataType);
+      }
+    }
+    return valueSet;
+  }
+
+  /**
+   * Helper method to offer the matching dictionary values into a {@link HyperLogLog}, the same way as
+   * <code>DistinctCountHLLAggregationFunction</code>.
+   */
+  private HyperLogLog getHyperLogLog(Dictionary dictionary, FieldSpec.DataType dataType) {
+    HyperLogLog hyperLogLog = new HyperLogLog(HllConstants.DEFAULT_LOG2M);
+    int length = dictionary.length();
+    for (int dictId = 0; dictId < length; dictId++) {
+      if (_predicateEvaluator != null && !_predicateEvaluator.apply(dictId)) {
+        continue;
+      }
+      switch (dataType) {
+        case INT:
+          hyperLogLog.offer(dictionary.getIntValue(dictId));
+          break;
+        case LONG:
+          hyperLogLog.offer(Long.valueOf(dictionary.getLongValue(dictId)).hashCode());
+          break;
+        case FLOAT:
+          hyperLogLog.offer(Float.valueOf(dictionary.getFloatValue(dictId)).hashCode());
+          break;
+        case DOUBLE:
+          hyperLogLog.offer(Double.valueOf(dictionary.getDoubleValue(dictId)).hashCode());
+          break;
+        case STRING:
+          hyperLogLog.offer(dictionary.getStringValue(dictId));
+          break;
+        default:
+          throw new IllegalArgumentException(
+              "Illegal data type for distinct count HLL aggregation function: " + dataType);
+      }
+    }
+    return hyperLogLog;
+  }
+
+  @Override
+  public Block getNextBlock(BlockId blockId) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public String getOperatorName() {
+    return OPERATOR_NAME;
+  }
+
+  @Override
+  public boolean close() {
+    return true;
+  }
+
+  @Override
+  public ExecutionStatistics getExecutionStatistics() {
+    return _executionStatistics;
+  }
+}
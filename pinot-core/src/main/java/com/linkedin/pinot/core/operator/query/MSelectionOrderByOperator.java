@@ -17,6 +17,7 @@ package com.linkedin.pinot.core.operator.query;
 
 import com.linkedin.pinot.common.request.Selection;
 import com.linkedin.pinot.common.request.SelectionSort;
+import com.linkedin.pinot.common.segment.SegmentMetadata;
 import com.linkedin.pinot.common.utils.DataSchema;
 import com.linkedin.pinot.core.common.Block;
 import com.linkedin.pinot.core.common.BlockId;
@@ -25,13 +26,17 @@ import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.operator.BaseOperator;
 import com.linkedin.pinot.core.operator.ExecutionStatistics;
 import com.linkedin.pinot.core.operator.MProjectionOperator;
-import com.linkedin.pinot.core.operator.blocks.DocIdSetBlock;
 import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
 import com.linkedin.pinot.core.operator.blocks.ProjectionBlock;
 import com.linkedin.pinot.core.query.selection.SelectionOperatorService;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -94,9 +99,10 @@ public class MSelectionOrderByOperator extends BaseOperator {
       for (int i = 0; i < _dataSchema.size(); i++) {
         _blocks[i] = projectionBlock.getBlock(_dataSchema.getColumnName(i));
       }
-      DocIdSetBlock docIdSetBlock = projectionBlock.getDocIdSetBlock();
-      _selectionOperatorService.iterateOnBlocksWithOrdering(docIdSetBlock.getBlockDocIdSet().iterator(), _blocks);
+      _selectionOperatorService.collectWithOrdering(projectionBlock);
     }
+    // Rows are only extracted for the top document ids of the segment.
+    _selectionOperatorService.mergeCollectedRowsWithOrdering(_blocks);
 
     // Create execution statistics.
     numDocsScanned += _selectionOperatorService.getNumDocsScanned();
@@ -110,6 +116,45 @@ public class MSelectionOrderByOperator extends BaseOperator {
     return new IntermediateResultsBlock(_selectionOperatorService.getDataSchema(), _selectionOperatorService.getRows());
   }
 
+  /**
+   * Get the best possible value of the first sort column in the segment, based on the column min/max value in segment
+   * metadata. Used by the combine step to process the segments from the most promising one, and skip the segments
+   * that cannot make it into the top rows.
+   *
+   * @return min value for ascending order, max value for descending order, or <code>null</code> if not available.
+   */
+  @Nullable
+  public Comparable getBestValueOfFirstSortColumn() {
+    List<SelectionSort> sortSequence = _selection.getSelectionSortSequence();
+    if (sortSequence == null || sortSequence.isEmpty()) {
+      return null;
+    }
+    SegmentMetadata segmentMetadata = _indexSegment.getSegmentMetadata();
+    if (!(segmentMetadata instanceof SegmentMetadataImpl)) {
+      return null;
+    }
+    // For realtime segment, this map can be null.
+    Map<String, ColumnMetadata> columnMetadataMap = ((SegmentMetadataImpl) segmentMetadata).getColumnMetadataMap();
+    if (columnMetadataMap == null) {
+      return null;
+    }
+    SelectionSort firstSelectionSort = sortSequence.get(0);
+    ColumnMetadata columnMetadata = columnMetadataMap.get(firstSelectionSort.getColumn());
+    if (columnMetadata == null || !columnMetadata.isSingleValue()) {
+      return null;
+    }
+    return firstSelectionSort.isIsAsc() ? columnMetadata.getMinValue() : columnMetadata.getMaxValue();
+  }
+
+  /**
+   * Skip the segment without scanning any document, used by the combine step when no row of the segment can make it
+   * into the top rows. {@link #nextBlock()} should not be called afterwards.
+   */
+  public void skip() {
+    long numTotalRawDocs = _indexSegment.getSegmentMetadata().getTotalRawDocs();
+    _executionStatistics = new ExecutionStatistics(0L, 0L, 0L, numTotalRawDocs);
+  }
+
   @Override
   public Block getNextBlock(BlockId blockId) {
     throw new UnsupportedOperationException();
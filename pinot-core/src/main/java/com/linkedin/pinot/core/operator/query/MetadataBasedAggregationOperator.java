@@ -0,0 +1,118 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.query;
+
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockId;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.BaseOperator;
+import com.linkedin.pinot.core.operator.ExecutionStatistics;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionContext;
+import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionFactory;
+import com.linkedin.pinot.core.query.aggregation.function.customobject.MinMaxRangePair;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nonnull;
+
+
+/**
+ * The <code>MetadataBasedAggregationOperator</code> class provides the operator for aggregation only query on a
+ * single segment when all documents match the filter, and all aggregation functions can be answered from the segment
+ * metadata and the sorted dictionaries without reading the forward indexes.
+ * <p>Supported aggregation functions are <code>COUNT</code>, <code>MIN</code>, <code>MAX</code> and
+ * <code>MINMAXRANGE</code>.
+ */
+public class MetadataBasedAggregationOperator extends BaseOperator {
+  private static final String OPERATOR_NAME = "MetadataBasedAggregationOperator";
+
+  private final AggregationFunctionContext[] _aggregationFunctionContexts;
+  private final IndexSegment _indexSegment;
+  private final long _numTotalRawDocs;
+  private ExecutionStatistics _executionStatistics;
+
+  public MetadataBasedAggregationOperator(@Nonnull AggregationFunctionContext[] aggregationFunctionContexts,
+      @Nonnull IndexSegment indexSegment, long numTotalRawDocs) {
+    _aggregationFunctionContexts = aggregationFunctionContexts;
+    _indexSegment = indexSegment;
+    _numTotalRawDocs = numTotalRawDocs;
+  }
+
+  @Override
+  public boolean open() {
+    return true;
+  }
+
+  @Override
+  public Block getNextBlock() {
+    int numAggregationFunctions = _aggregationFunctionContexts.length;
+    List<Object> aggregationResults = new ArrayList<>(numAggregationFunctions);
+    for (AggregationFunctionContext aggregationFunctionContext : _aggregationFunctionContexts) {
+      AggregationFunctionFactory.AggregationFunctionType functionType = AggregationFunctionFactory.AggregationFunctionType
+          .valueOf(aggregationFunctionContext.getAggregationFunction().getName().toUpperCase());
+      if (functionType == AggregationFunctionFactory.AggregationFunctionType.COUNT) {
+        aggregationResults.add(_numTotalRawDocs);
+        continue;
+      }
+
+      // Dictionary is sorted, so the first value is the min value and the last value is the max value.
+      String column = aggregationFunctionContext.getAggregationColumns()[0];
+      Dictionary dictionary = _indexSegment.getDataSource(column).getDictionary();
+      double minValue = dictionary.getDoubleValue(0);
+      double maxValue = dictionary.getDoubleValue(dictionary.length() - 1);
+      switch (functionType) {
+        case MIN:
+          aggregationResults.add(minValue);
+          break;
+        case MAX:
+          aggregationResults.add(maxValue);
+          break;
+        case MINMAXRANGE:
+          aggregationResults.add(new MinMaxRangePair(minValue, maxValue));
+          break;
+        default:
+          throw new IllegalStateException(
+              "Aggregation function: " + functionType + " is not supported in MetadataBasedAggregationOperator");
+      }
+    }
+
+    // All documents match the filter, but no entry is scanned.
+    _executionStatistics = new ExecutionStatistics(_numTotalRawDocs, 0L, 0L, _numTotalRawDocs);
+
+    return new IntermediateResultsBlock(_aggregationFunctionContexts, aggregationResults, false);
+  }
+
+  @Override
+  public Block getNextBlock(BlockId blockId) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public String getOperatorName() {
+    return OPERATOR_NAME;
+  }
+
+  @Override
+  public boolean close() {
+    return true;
+  }
+
+  @Override
+  public ExecutionStatistics getExecutionStatistics() {
+    return _executionStatistics;
+  }
+}
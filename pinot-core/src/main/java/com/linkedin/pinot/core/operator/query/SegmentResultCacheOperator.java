@@ -0,0 +1,121 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.query;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.segment.SegmentMetadata;
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockId;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.BaseOperator;
+import com.linkedin.pinot.core.operator.ExecutionStatistics;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.plan.PlanNode;
+import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionUtils;
+import com.linkedin.pinot.core.query.cache.CachedSegmentResult;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
+import javax.annotation.Nonnull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The <code>SegmentResultCacheOperator</code> class provides the operator for aggregation queries on a single
+ * immutable segment backed by the {@link SegmentResultCache}.
+ * <p>On cache hit, the result block is built from the cached result without running the underlying plan. On cache
+ * miss, the underlying plan is run and its result is put into the cache.
+ */
+public class SegmentResultCacheOperator extends BaseOperator {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentResultCacheOperator.class);
+  private static final String OPERATOR_NAME = "SegmentResultCacheOperator";
+
+  private final SegmentResultCache _segmentResultCache;
+  private final BrokerRequest _brokerRequest;
+  private final BrokerRequest _normalizedRequest;
+  private final IndexSegment _indexSegment;
+  private final PlanNode _planNode;
+
+  private Operator _operator;
+  private ExecutionStatistics _executionStatistics;
+
+  public SegmentResultCacheOperator(@Nonnull SegmentResultCache segmentResultCache,
+      @Nonnull BrokerRequest brokerRequest, @Nonnull BrokerRequest normalizedRequest,
+      @Nonnull IndexSegment indexSegment, @Nonnull PlanNode planNode) {
+    _segmentResultCache = segmentResultCache;
+    _brokerRequest = brokerRequest;
+    _normalizedRequest = normalizedRequest;
+    _indexSegment = indexSegment;
+    _planNode = planNode;
+  }
+
+  @Override
+  public boolean open() {
+    // The underlying plan is only run on cache miss.
+    return true;
+  }
+
+  @Override
+  public Block getNextBlock() {
+    SegmentMetadata segmentMetadata = _indexSegment.getSegmentMetadata();
+    CachedSegmentResult cachedResult = _segmentResultCache.get(_normalizedRequest, segmentMetadata);
+    if (cachedResult != null) {
+      try {
+        IntermediateResultsBlock resultsBlock = cachedResult.toResultsBlock(
+            AggregationFunctionUtils.getAggregationFunctionContexts(_brokerRequest.getAggregationsInfo(),
+                segmentMetadata));
+        _executionStatistics = cachedResult.getExecutionStatistics();
+        return resultsBlock;
+      } catch (Exception e) {
+        LOGGER.warn("Caught exception while reading cached result for segment: {}, running the query",
+            _indexSegment.getSegmentName(), e);
+      }
+    }
+
+    _operator = _planNode.run();
+    _operator.open();
+    IntermediateResultsBlock resultsBlock = (IntermediateResultsBlock) _operator.nextBlock();
+    _executionStatistics = _operator.getExecutionStatistics();
+    CachedSegmentResult resultToCache = CachedSegmentResult.fromResultsBlock(resultsBlock, _executionStatistics);
+    if (resultToCache != null) {
+      _segmentResultCache.put(_normalizedRequest, segmentMetadata, resultToCache);
+    }
+    return resultsBlock;
+  }
+
+  @Override
+  public Block getNextBlock(BlockId blockId) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public String getOperatorName() {
+    return OPERATOR_NAME;
+  }
+
+  @Override
+  public boolean close() {
+    if (_operator != null) {
+      _operator.close();
+    }
+    return true;
+  }
+
+  @Override
+  public ExecutionStatistics getExecutionStatistics() {
+    return _executionStatistics;
+  }
+}
@@ -42,6 +42,7 @@ public class AggregationGroupByPlanNode implements PlanNode {
   private final GroupBy _groupBy;
   private final TransformPlanNode _transformPlanNode;
   private final int _numGroupsLimit;
+  private final long _numTotalRawDocs;
 
   public AggregationGroupByPlanNode(@Nonnull IndexSegment indexSegment, @Nonnull BrokerRequest brokerRequest,
       int numGroupsLimit) {
@@ -50,6 +51,28 @@ public class AggregationGroupByPlanNode implements PlanNode {
     _groupBy = brokerRequest.getGroupBy();
     _numGroupsLimit = numGroupsLimit;
     _transformPlanNode = new TransformPlanNode(_indexSegment, brokerRequest);
+    _numTotalRawDocs = indexSegment.getSegmentMetadata().getTotalRawDocs();
+  }
+
+  /**
+   * Constructor for the plan node only processing the documents within the given range of the segment. The total raw
+   * documents of the segment are only counted by the plan node starting from the first document.
+   *
+   * @param indexSegment index segment.
+   * @param brokerRequest broker request.
+   * @param numGroupsLimit limit on number of groups.
+   * @param startDocId first document to process (inclusive).
+   * @param endDocId last document to process (inclusive).
+   */
+  public AggregationGroupByPlanNode(@Nonnull IndexSegment indexSegment, @Nonnull BrokerRequest brokerRequest,
+      int numGroupsLimit, int startDocId, int endDocId) {
+    _indexSegment = indexSegment;
+    _aggregationInfos = brokerRequest.getAggregationsInfo();
+    _groupBy = brokerRequest.getGroupBy();
+    _numGroupsLimit = numGroupsLimit;
+    _transformPlanNode = new TransformPlanNode(_indexSegment, brokerRequest,
+        new DocIdSetPlanNode(indexSegment, brokerRequest, DocIdSetPlanNode.MAX_DOC_PER_CALL, startDocId, endDocId));
+    _numTotalRawDocs = (startDocId == 0) ? indexSegment.getSegmentMetadata().getTotalRawDocs() : 0L;
   }
 
   @Override
@@ -58,7 +81,7 @@ public class AggregationGroupByPlanNode implements PlanNode {
     SegmentMetadata segmentMetadata = _indexSegment.getSegmentMetadata();
     return new AggregationGroupByOperator(
         AggregationFunctionUtils.getAggregationFunctionContexts(_aggregationInfos, segmentMetadata), _groupBy,
-        _numGroupsLimit, transformOperator, segmentMetadata.getTotalRawDocs());
+        _numGroupsLimit, transformOperator, _numTotalRawDocs);
   }
 
   @Override
@@ -39,11 +39,31 @@ public class AggregationPlanNode implements PlanNode {
   private final IndexSegment _indexSegment;
   private final List<AggregationInfo> _aggregationInfos;
   private final TransformPlanNode _transformPlanNode;
+  private final long _numTotalRawDocs;
 
   public AggregationPlanNode(@Nonnull IndexSegment indexSegment, @Nonnull BrokerRequest brokerRequest) {
     _indexSegment = indexSegment;
     _aggregationInfos = brokerRequest.getAggregationsInfo();
     _transformPlanNode = new TransformPlanNode(_indexSegment, brokerRequest);
+    _numTotalRawDocs = indexSegment.getSegmentMetadata().getTotalRawDocs();
+  }
+
+  /**
+   * Constructor for the plan node only processing the documents within the given range of the segment. The total raw
+   * documents of the segment are only counted by the plan node starting from the first document.
+   *
+   * @param indexSegment index segment.
+   * @param brokerRequest broker request.
+   * @param startDocId first document to process (inclusive).
+   * @param endDocId last document to process (inclusive).
+   */
+  public AggregationPlanNode(@Nonnull IndexSegment indexSegment, @Nonnull BrokerRequest brokerRequest, int startDocId,
+      int endDocId) {
+    _indexSegment = indexSegment;
+    _aggregationInfos = brokerRequest.getAggregationsInfo();
+    _transformPlanNode = new TransformPlanNode(_indexSegment, brokerRequest,
+        new DocIdSetPlanNode(indexSegment, brokerRequest, DocIdSetPlanNode.MAX_DOC_PER_CALL, startDocId, endDocId));
+    _numTotalRawDocs = (startDocId == 0) ? indexSegment.getSegmentMetadata().getTotalRawDocs() : 0L;
   }
 
   @Override
@@ -52,7 +72,7 @@ public class AggregationPlanNode implements PlanNode {
     SegmentMetadata segmentMetadata = _indexSegment.getSegmentMetadata();
     return new AggregationOperator(
         AggregationFunctionUtils.getAggregationFunctionContexts(_aggregationInfos, segmentMetadata), transformOperator,
-        segmentMetadata.getTotalRawDocs());
+        _numTotalRawDocs);
   }
 
   @Override
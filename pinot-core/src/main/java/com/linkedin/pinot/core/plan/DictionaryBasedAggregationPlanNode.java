@@ -0,0 +1,179 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.plan;
+
+import com.linkedin.pinot.common.request.AggregationInfo;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.segment.SegmentMetadata;
+import com.linkedin.pinot.common.utils.Pairs.IntPair;
+import com.linkedin.pinot.common.utils.request.FilterQueryTree;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
+import com.linkedin.pinot.core.common.DataSource;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.common.Predicate;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluator;
+import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluatorProvider;
+import com.linkedin.pinot.core.operator.query.DictionaryBasedAggregationOperator;
+import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionFactory;
+import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionUtils;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
+import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.SortedInvertedIndexReader;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The <code>DictionaryBasedAggregationPlanNode</code> class provides the execution plan for <code>DISTINCTCOUNT</code>
+ * and <code>DISTINCTCOUNTHLL</code> aggregation only query on a single segment which can be answered from the
+ * dictionary of the aggregation column, see {@link DictionaryBasedAggregationOperator}.
+ */
+public class DictionaryBasedAggregationPlanNode implements PlanNode {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DictionaryBasedAggregationPlanNode.class);
+
+  private final IndexSegment _indexSegment;
+  private final BrokerRequest _brokerRequest;
+  private final List<AggregationInfo> _aggregationInfos;
+
+  public DictionaryBasedAggregationPlanNode(@Nonnull IndexSegment indexSegment, @Nonnull BrokerRequest brokerRequest) {
+    _indexSegment = indexSegment;
+    _brokerRequest = brokerRequest;
+    _aggregationInfos = brokerRequest.getAggregationsInfo();
+  }
+
+  /**
+   * Returns whether the aggregation only query can be answered from the dictionary of the aggregation column.
+   * <p>This requires:
+   * <ul>
+   *   <li>An offline segment without star tree.</li>
+   *   <li>All aggregation functions are <code>DISTINCTCOUNT</code> or <code>DISTINCTCOUNTHLL</code> on single-value
+   *   columns with sorted dictionary.</li>
+   *   <li>No filter, a filter matching all documents based on the column min/max values, or a single predicate on the
+   *   aggregation column which has an inverted index.</li>
+   * </ul>
+   *
+   * @param indexSegment index segment.
+   * @param brokerRequest aggregation only broker request.
+   * @return whether the query can use this plan node.
+   */
+  public static boolean isFitForDictionaryBasedPlan(@Nonnull IndexSegment indexSegment,
+      @Nonnull BrokerRequest brokerRequest) {
+    SegmentMetadata segmentMetadata = indexSegment.getSegmentMetadata();
+    if (segmentMetadata.hasStarTree() || !(segmentMetadata instanceof SegmentMetadataImpl)) {
+      return false;
+    }
+    // For realtime segment, this map can be null.
+    Map<String, ColumnMetadata> columnMetadataMap = ((SegmentMetadataImpl) segmentMetadata).getColumnMetadataMap();
+    if (columnMetadataMap == null) {
+      return false;
+    }
+
+    String firstColumn = null;
+    boolean onSingleColumn = true;
+    for (AggregationInfo aggregationInfo : brokerRequest.getAggregationsInfo()) {
+      String functionName = aggregationInfo.getAggregationType().toUpperCase();
+      if (!functionName.equals(AggregationFunctionFactory.AggregationFunctionType.DISTINCTCOUNT.name())
+          && !functionName.equals(AggregationFunctionFactory.AggregationFunctionType.DISTINCTCOUNTHLL.name())) {
+        return false;
+      }
+      String column = aggregationInfo.getAggregationParams().get("column").trim();
+      ColumnMetadata columnMetadata = columnMetadataMap.get(column);
+      if (columnMetadata == null || !columnMetadata.isSingleValue() || !columnMetadata.hasDictionary()) {
+        return false;
+      }
+      DataSource dataSource = indexSegment.getDataSource(column);
+      if (dataSource == null || !(dataSource.getDictionary() instanceof ImmutableDictionaryReader)) {
+        return false;
+      }
+      if (firstColumn == null) {
+        firstColumn = column;
+      } else if (!firstColumn.equals(column)) {
+        onSingleColumn = false;
+      }
+    }
+
+    FilterQueryTree filterQueryTree = RequestUtils.generateFilterQueryTree(brokerRequest);
+    if (filterQueryTree == null || MetadataBasedAggregationPlanNode.isMatchingAllDocs(indexSegment, filterQueryTree,
+        columnMetadataMap)) {
+      return true;
+    }
+    List<FilterQueryTree> children = filterQueryTree.getChildren();
+    if (!onSingleColumn || (children != null && !children.isEmpty()) || !filterQueryTree.getColumn()
+        .equals(firstColumn)) {
+      return false;
+    }
+    // The inverted index is used to count the matching documents.
+    return indexSegment.getDataSource(firstColumn).getInvertedIndex() != null;
+  }
+
+  @Override
+  public Operator run() {
+    SegmentMetadata segmentMetadata = _indexSegment.getSegmentMetadata();
+    long numTotalRawDocs = segmentMetadata.getTotalRawDocs();
+    PredicateEvaluator predicateEvaluator = null;
+    long numDocsMatched = numTotalRawDocs;
+
+    FilterQueryTree filterQueryTree = RequestUtils.generateFilterQueryTree(_brokerRequest);
+    if (filterQueryTree != null && !MetadataBasedAggregationPlanNode.isMatchingAllDocs(_indexSegment,
+        filterQueryTree, ((SegmentMetadataImpl) segmentMetadata).getColumnMetadataMap())) {
+      DataSource dataSource = _indexSegment.getDataSource(filterQueryTree.getColumn());
+      predicateEvaluator =
+          PredicateEvaluatorProvider.getPredicateFunctionFor(Predicate.newPredicate(filterQueryTree), dataSource);
+      numDocsMatched = getNumDocsMatched(dataSource, predicateEvaluator);
+    }
+
+    return new DictionaryBasedAggregationOperator(
+        AggregationFunctionUtils.getAggregationFunctionContexts(_aggregationInfos, segmentMetadata), _indexSegment,
+        predicateEvaluator, numDocsMatched, numTotalRawDocs);
+  }
+
+  /**
+   * Helper method to count the documents matching the predicate from the inverted index, without reading the bitmaps
+   * for sorted column.
+   */
+  private static long getNumDocsMatched(DataSource dataSource, PredicateEvaluator predicateEvaluator) {
+    Dictionary dictionary = dataSource.getDictionary();
+    InvertedIndexReader invertedIndex = dataSource.getInvertedIndex();
+    long numDocsMatched = 0;
+    int length = dictionary.length();
+    for (int dictId = 0; dictId < length; dictId++) {
+      if (predicateEvaluator.apply(dictId)) {
+        if (invertedIndex instanceof SortedInvertedIndexReader) {
+          IntPair docIdRange = invertedIndex.getMinMaxRangeFor(dictId);
+          numDocsMatched += docIdRange.getRight() - docIdRange.getLeft() + 1;
+        } else {
+          numDocsMatched += invertedIndex.getImmutable(dictId).getCardinality();
+        }
+      }
+    }
+    return numDocsMatched;
+  }
+
+  @Override
+  public void showTree(String prefix) {
+    LOGGER.debug(prefix + "Segment Level Inner-Segment Plan Node:");
+    LOGGER.debug(prefix + "Operator: DictionaryBasedAggregationOperator");
+    LOGGER.debug(prefix + "Argument 0: IndexSegment - " + _indexSegment.getSegmentName());
+    LOGGER.debug(prefix + "Argument 1: Aggregations - " + _aggregationInfos);
+  }
+}
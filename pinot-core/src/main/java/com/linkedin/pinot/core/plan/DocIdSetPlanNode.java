@@ -35,6 +35,8 @@ public class DocIdSetPlanNode implements PlanNode {
   private final BrokerRequest _brokerRequest;
   private final PlanNode _filterNode;
   private final int _maxDocPerCall;
+  private final int _startDocId;
+  private final int _endDocId;
   private BReusableFilteredDocIdSetOperator _projectOp = null;
 
   public DocIdSetPlanNode(IndexSegment indexSegment, BrokerRequest query) {
@@ -47,10 +49,24 @@ public class DocIdSetPlanNode implements PlanNode {
    * @param maxDocPerCall must be <= MAX_DOC_PER_CALL
    */
   public DocIdSetPlanNode(IndexSegment indexSegment, BrokerRequest query, int maxDocPerCall) {
+    this(indexSegment, query, maxDocPerCall, 0, Integer.MAX_VALUE);
+  }
+
+  /**
+   * @param indexSegment
+   * @param query
+   * @param maxDocPerCall must be <= MAX_DOC_PER_CALL
+   * @param startDocId first document to process (inclusive)
+   * @param endDocId last document to process (inclusive)
+   */
+  public DocIdSetPlanNode(IndexSegment indexSegment, BrokerRequest query, int maxDocPerCall, int startDocId,
+      int endDocId) {
     _maxDocPerCall = Math.min(maxDocPerCall, MAX_DOC_PER_CALL);
     _indexSegment = indexSegment;
     _brokerRequest = query;
     _filterNode = new FilterPlanNode(_indexSegment, _brokerRequest);
+    _startDocId = startDocId;
+    _endDocId = endDocId;
   }
 
   @Override
@@ -58,7 +74,12 @@ public class DocIdSetPlanNode implements PlanNode {
     int totalRawDocs = _indexSegment.getSegmentMetadata().getTotalDocs();
     long start = System.currentTimeMillis();
     if (_projectOp == null) {
-      _projectOp = new BReusableFilteredDocIdSetOperator(_filterNode.run(), totalRawDocs, _maxDocPerCall);
+      if (_startDocId == 0 && _endDocId == Integer.MAX_VALUE) {
+        _projectOp = new BReusableFilteredDocIdSetOperator(_filterNode.run(), totalRawDocs, _maxDocPerCall);
+      } else {
+        _projectOp =
+            new BReusableFilteredDocIdSetOperator(_filterNode.run(), _startDocId, _endDocId, _maxDocPerCall);
+      }
       long end = System.currentTimeMillis();
       LOGGER.debug("DocIdSetPlanNode.run took:" + (end - start));
       return _projectOp;
@@ -18,6 +18,7 @@ package com.linkedin.pinot.core.plan;
 import com.google.common.annotations.VisibleForTesting;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.request.FilterOperator;
+import com.linkedin.pinot.common.utils.Pairs.IntPair;
 import com.linkedin.pinot.common.utils.request.FilterQueryTree;
 import com.linkedin.pinot.common.utils.request.RequestUtils;
 import com.linkedin.pinot.core.common.DataSource;
@@ -34,10 +35,16 @@ import com.linkedin.pinot.core.operator.filter.OrOperator;
 import com.linkedin.pinot.core.operator.filter.ScanBasedFilterOperator;
 import com.linkedin.pinot.core.operator.filter.SortedInvertedIndexBasedFilterOperator;
 import com.linkedin.pinot.core.operator.filter.StarTreeIndexOperator;
+import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluator;
+import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluatorProvider;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.SortedInvertedIndexReader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import org.slf4j.Logger;
@@ -48,6 +55,9 @@ import org.slf4j.LoggerFactory;
  */
 public class FilterPlanNode implements PlanNode {
   private static final Logger LOGGER = LoggerFactory.getLogger(FilterPlanNode.class);
+  // Above this number of dictionary ids, estimate the number of matching documents from the fraction of matching
+  // dictionary ids instead of reading the inverted index bitmaps (or materializing the dictionary ids of a RANGE).
+  private static final int MAX_NUM_DICT_IDS_FOR_ESTIMATION = 100;
   private final BrokerRequest _brokerRequest;
   private final IndexSegment _segment;
   private boolean _optimizeAlwaysFalse;
@@ -84,12 +94,30 @@ public class FilterPlanNode implements PlanNode {
   @VisibleForTesting
   public static BaseFilterOperator constructPhysicalOperator(FilterQueryTree filterQueryTree, IndexSegment segment,
       boolean optimizeAlwaysFalse) {
+    return constructPhysicalOperator(filterQueryTree, segment, optimizeAlwaysFalse,
+        new IdentityHashMap<BaseFilterOperator, Long>());
+  }
+
+  /**
+   * Helper method to build the operator tree from the filter query tree, recording the estimated number of matching
+   * documents of each operator created (used to order the children of AND).
+   * @param filterQueryTree
+   * @param segment Index segment
+   * @param optimizeAlwaysFalse Optimize isResultEmpty predicates
+   * @param estimatedNumDocsMap Map from operator to its estimated number of matching documents
+   * @return Filter Operator created
+   */
+  private static BaseFilterOperator constructPhysicalOperator(FilterQueryTree filterQueryTree, IndexSegment segment,
+      boolean optimizeAlwaysFalse, Map<BaseFilterOperator, Long> estimatedNumDocsMap) {
     BaseFilterOperator ret;
 
     if (null == filterQueryTree) {
       return new MatchEntireSegmentOperator(segment.getSegmentMetadata().getTotalRawDocs());
     }
 
+    long numDocs = segment.getSegmentMetadata().getTotalRawDocs();
+    long estimatedNumDocs;
+
     final List<FilterQueryTree> childFilters = filterQueryTree.getChildren();
     final boolean isLeaf = (childFilters == null) || childFilters.isEmpty();
 
@@ -99,8 +127,17 @@ public class FilterPlanNode implements PlanNode {
       List<BaseFilterOperator> operators = new ArrayList<>();
 
       final FilterOperator filterType = filterQueryTree.getOperator();
+      // AND: the minimum of its children; OR: the sum of its children capped by the number of documents.
+      estimatedNumDocs = (filterType == FilterOperator.AND) ? numDocs : 0;
       for (final FilterQueryTree query : childFilters) {
-        BaseFilterOperator childOperator = constructPhysicalOperator(query, segment, optimizeAlwaysFalse);
+        BaseFilterOperator childOperator =
+            constructPhysicalOperator(query, segment, optimizeAlwaysFalse, estimatedNumDocsMap);
+        long childEstimatedNumDocs = estimatedNumDocsMap.get(childOperator);
+        if (filterType == FilterOperator.AND) {
+          estimatedNumDocs = Math.min(estimatedNumDocs, childEstimatedNumDocs);
+        } else {
+          estimatedNumDocs = Math.min(estimatedNumDocs + childEstimatedNumDocs, numDocs);
+        }
 
         // Count number of always false children.
         if (optimizeAlwaysFalse && childOperator.isResultEmpty()) {
@@ -114,7 +151,8 @@ public class FilterPlanNode implements PlanNode {
         operators.add(childOperator);
       }
 
-      ret = buildNonLeafOperator(filterType, operators, numChildrenAlwaysFalse, numChildren, optimizeAlwaysFalse);
+      ret = buildNonLeafOperator(filterType, operators, estimatedNumDocsMap, numChildrenAlwaysFalse, numChildren,
+          optimizeAlwaysFalse);
     } else {
       final FilterOperator filterType = filterQueryTree.getOperator();
       final String column = filterQueryTree.getColumn();
@@ -123,6 +161,8 @@ public class FilterPlanNode implements PlanNode {
       DataSource ds;
       ds = segment.getDataSource(column);
       DataSourceMetadata dataSourceMetadata = ds.getDataSourceMetadata();
+      // The same predicate evaluator is used by the filter operator and to estimate the number of matching documents.
+      PredicateEvaluator predicateEvaluator = PredicateEvaluatorProvider.getPredicateFunctionFor(predicate, ds);
       BaseFilterOperator baseFilterOperator;
       int startDocId = 0;
       int endDocId = segment.getSegmentMetadata().getTotalRawDocs() - 1; //end is inclusive
@@ -132,22 +172,27 @@ public class FilterPlanNode implements PlanNode {
         if (!filterType.equals(FilterOperator.RANGE) && !filterType.equals(FilterOperator.REGEXP_LIKE)) {
           if (dataSourceMetadata.isSingleValue() && dataSourceMetadata.isSorted()) {
             // if the column is sorted use sorted inverted index based implementation
-            baseFilterOperator = new SortedInvertedIndexBasedFilterOperator(predicate, ds, startDocId, endDocId);
+            baseFilterOperator =
+                new SortedInvertedIndexBasedFilterOperator(predicate, predicateEvaluator, ds, startDocId, endDocId);
           } else {
-            baseFilterOperator = new BitmapBasedFilterOperator(predicate, ds, startDocId, endDocId);
+            baseFilterOperator =
+                new BitmapBasedFilterOperator(predicate, predicateEvaluator, ds, startDocId, endDocId);
           }
         } else {
-          baseFilterOperator = new ScanBasedFilterOperator(predicate, ds, startDocId, endDocId);
+          baseFilterOperator = new ScanBasedFilterOperator(predicateEvaluator, ds, startDocId, endDocId);
         }
       } else {
-        baseFilterOperator = new ScanBasedFilterOperator(predicate, ds, startDocId, endDocId);
+        baseFilterOperator = new ScanBasedFilterOperator(predicateEvaluator, ds, startDocId, endDocId);
       }
       ret = baseFilterOperator;
+      estimatedNumDocs = estimateNumMatchingDocs(predicate, predicateEvaluator, ds, numDocs);
     }
     // If operator evaluates to false, then just return an empty operator.
     if (ret.isResultEmpty()) {
       ret = new EmptyFilterOperator();
+      estimatedNumDocs = 0;
     }
+    estimatedNumDocsMap.put(ret, estimatedNumDocs);
     return ret;
   }
 
@@ -160,14 +205,15 @@ public class FilterPlanNode implements PlanNode {
    * </ul>
    * @param filterType AND/OR
    * @param nonFalseChildren Children that are not alwaysFalse.
+   * @param estimatedNumDocsMap Estimated number of matching documents for the children of AND.
    * @param numChildrenAlwaysFalse Number of children that are always false.
    * @param numChildren Total number of children.
    * @param optimizeAlwaysFalse Optimize alwaysFalse predicates
    * @return Filter Operator created
    */
   private static BaseFilterOperator buildNonLeafOperator(FilterOperator filterType,
-      List<BaseFilterOperator> nonFalseChildren, int numChildrenAlwaysFalse, int numChildren,
-      boolean optimizeAlwaysFalse) {
+      List<BaseFilterOperator> nonFalseChildren, Map<BaseFilterOperator, Long> estimatedNumDocsMap,
+      int numChildrenAlwaysFalse, int numChildren, boolean optimizeAlwaysFalse) {
     BaseFilterOperator operator;
 
     switch (filterType) {
@@ -175,7 +221,7 @@ public class FilterPlanNode implements PlanNode {
         if (optimizeAlwaysFalse && numChildrenAlwaysFalse > 0) {
           operator = new EmptyFilterOperator();
         } else {
-          reorder(nonFalseChildren);
+          reorderAndChildren(nonFalseChildren, estimatedNumDocsMap);
           operator = new AndOperator(nonFalseChildren);
         }
         break;
@@ -196,27 +242,14 @@ public class FilterPlanNode implements PlanNode {
   }
 
   /**
-   * Re orders operators, puts Sorted -> Inverted and then Raw scan. TODO: With Inverted, we can
-   * further optimize based on cardinality
+   * Re orders operators, puts Sorted -> Inverted and then Raw scan.
    * @param operators
    */
   private static void reorder(List<BaseFilterOperator> operators) {
 
     final Map<Operator, Integer> operatorPriorityMap = new HashMap<Operator, Integer>();
     for (Operator operator : operators) {
-      Integer priority = Integer.MAX_VALUE;
-      if (operator instanceof SortedInvertedIndexBasedFilterOperator) {
-        priority = 0;
-      } else if (operator instanceof AndOperator) {
-        priority = 1;
-      } else if (operator instanceof BitmapBasedFilterOperator) {
-        priority = 2;
-      } else if (operator instanceof ScanBasedFilterOperator) {
-        priority = 3;
-      } else if (operator instanceof OrOperator) {
-        priority = 4;
-      }
-      operatorPriorityMap.put(operator, priority);
+      operatorPriorityMap.put(operator, getPriority(operator));
     }
 
     Comparator<? super Operator> comparator = new Comparator<Operator>() {
@@ -228,6 +261,107 @@ public class FilterPlanNode implements PlanNode {
     Collections.sort(operators, comparator);
   }
 
+  /**
+   * Helper method to get the evaluation priority of a filter operator, lower is evaluated first.
+   */
+  private static int getPriority(Operator operator) {
+    if (operator instanceof SortedInvertedIndexBasedFilterOperator) {
+      return 0;
+    } else if (operator instanceof AndOperator) {
+      return 1;
+    } else if (operator instanceof BitmapBasedFilterOperator) {
+      return 2;
+    } else if (operator instanceof ScanBasedFilterOperator) {
+      return 3;
+    } else if (operator instanceof OrOperator) {
+      return 4;
+    }
+    return Integer.MAX_VALUE;
+  }
+
+  /**
+   * Re orders the children of AND based on their cost: index based operators (sorted and inverted index) are evaluated
+   * before the scan based ones, and within the same kind of operators, the ones with less estimated matching documents
+   * are evaluated first so that the following children have fewer documents to check.
+   * <p>Sorted ranges and inverted index bitmaps are always intersected before any scan in
+   * {@link com.linkedin.pinot.core.operator.docidsets.AndBlockDocIdSet}, so the order mostly matters among the scan
+   * based children and when falling back to iterator style intersection.
+   *
+   * @param operators children of AND.
+   * @param estimatedNumDocsMap estimated number of matching documents for each child.
+   */
+  private static void reorderAndChildren(List<BaseFilterOperator> operators,
+      final Map<BaseFilterOperator, Long> estimatedNumDocsMap) {
+    final Map<Operator, Integer> operatorPriorityMap = new IdentityHashMap<>();
+    for (Operator operator : operators) {
+      int priority = getPriority(operator);
+      // Sorted and inverted index based operators both materialize their matching documents without scanning.
+      if (priority == 2) {
+        priority = 0;
+      }
+      operatorPriorityMap.put(operator, priority);
+    }
+
+    Collections.sort(operators, new Comparator<BaseFilterOperator>() {
+      @Override
+      public int compare(BaseFilterOperator o1, BaseFilterOperator o2) {
+        int result = Integer.compare(operatorPriorityMap.get(o1), operatorPriorityMap.get(o2));
+        if (result != 0) {
+          return result;
+        }
+        return Long.compare(estimatedNumDocsMap.get(o1), estimatedNumDocsMap.get(o2));
+      }
+    });
+  }
+
+  /**
+   * Helper method to estimate the number of documents matching a predicate.
+   * <ul>
+   *   <li>Sorted column: sum of the sorted document ranges of the matching dictionary ids.</li>
+   *   <li>Column with inverted index: sum of the cardinalities of the bitmaps of the matching dictionary ids, if there
+   *   are not too many of them.</li>
+   *   <li>Otherwise for column with dictionary: number of documents times the fraction of matching dictionary ids.</li>
+   *   <li>Otherwise (e.g. REGEXP_LIKE, or column without dictionary), all documents are assumed to match.</li>
+   * </ul>
+   * For NEQ and NOT_IN, the documents of the non-matching dictionary ids are counted and subtracted instead.
+   */
+  private static long estimateNumMatchingDocs(Predicate predicate, PredicateEvaluator predicateEvaluator,
+      DataSource dataSource, long numDocs) {
+    if (predicateEvaluator.alwaysFalse()) {
+      return 0;
+    }
+    int numMatchingDictIds = predicateEvaluator.getNumMatchingDictionaryIds();
+    Dictionary dictionary = dataSource.getDictionary();
+    if (numMatchingDictIds < 0 || dictionary == null || dictionary.length() == 0) {
+      return numDocs;
+    }
+
+    Predicate.Type predicateType = predicate.getType();
+    boolean isNegative = predicateType == Predicate.Type.NEQ || predicateType == Predicate.Type.NOT_IN;
+    int numDictIds = isNegative ? dictionary.length() - numMatchingDictIds : numMatchingDictIds;
+    InvertedIndexReader invertedIndex = dataSource.getInvertedIndex();
+    if (dataSource.getDataSourceMetadata().hasInvertedIndex() && invertedIndex != null) {
+      // Looking up a sorted document range is cheap, only the dictionary ids of a RANGE are materialized on demand.
+      boolean isSorted = invertedIndex instanceof SortedInvertedIndexReader;
+      if ((isSorted && predicateType != Predicate.Type.RANGE) || numDictIds <= MAX_NUM_DICT_IDS_FOR_ESTIMATION) {
+        int[] dictIds = isNegative ? predicateEvaluator.getNonMatchingDictionaryIds()
+            : predicateEvaluator.getMatchingDictionaryIds();
+        long numDocsForDictIds = 0;
+        for (int dictId : dictIds) {
+          if (isSorted) {
+            IntPair docIdRange = invertedIndex.getMinMaxRangeFor(dictId);
+            numDocsForDictIds += docIdRange.getRight() - docIdRange.getLeft() + 1;
+          } else {
+            numDocsForDictIds += invertedIndex.getImmutable(dictId).getCardinality();
+          }
+        }
+        long estimatedNumDocs = isNegative ? numDocs - numDocsForDictIds : numDocsForDictIds;
+        return Math.max(0, Math.min(estimatedNumDocs, numDocs));
+      }
+    }
+    return Math.min(numDocs * numMatchingDictIds / dictionary.length(), numDocs);
+  }
+
   @Override
   public void showTree(String prefix) {
     final String treeStructure = prefix + "Filter Plan Node\n" + prefix + "Operator: Filter\n" + prefix + "Argument 0: "
@@ -0,0 +1,238 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.plan;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.request.AggregationInfo;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.FilterOperator;
+import com.linkedin.pinot.common.segment.SegmentMetadata;
+import com.linkedin.pinot.common.utils.request.FilterQueryTree;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
+import com.linkedin.pinot.core.common.DataSource;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.common.predicate.RangePredicate;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.query.MetadataBasedAggregationOperator;
+import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionFactory;
+import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionUtils;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The <code>MetadataBasedAggregationPlanNode</code> class provides the execution plan for aggregation only query on a
+ * single segment which can be answered from the segment metadata and the sorted dictionaries, see
+ * {@link MetadataBasedAggregationOperator}.
+ */
+public class MetadataBasedAggregationPlanNode implements PlanNode {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MetadataBasedAggregationPlanNode.class);
+
+  private final IndexSegment _indexSegment;
+  private final List<AggregationInfo> _aggregationInfos;
+
+  public MetadataBasedAggregationPlanNode(@Nonnull IndexSegment indexSegment, @Nonnull BrokerRequest brokerRequest) {
+    _indexSegment = indexSegment;
+    _aggregationInfos = brokerRequest.getAggregationsInfo();
+  }
+
+  /**
+   * Returns whether the aggregation only query can be answered from the segment metadata and the sorted dictionaries.
+   * <p>This requires:
+   * <ul>
+   *   <li>An offline segment without star tree.</li>
+   *   <li>All aggregation functions are <code>COUNT</code>, or <code>MIN</code>, <code>MAX</code>,
+   *   <code>MINMAXRANGE</code> on single-value numeric columns with sorted dictionary.</li>
+   *   <li>No filter, or a filter matching all documents based on the column min/max values.</li>
+   * </ul>
+   *
+   * @param indexSegment index segment.
+   * @param brokerRequest aggregation only broker request.
+   * @return whether the query can use this plan node.
+   */
+  public static boolean isFitForMetadataBasedPlan(@Nonnull IndexSegment indexSegment,
+      @Nonnull BrokerRequest brokerRequest) {
+    SegmentMetadata segmentMetadata = indexSegment.getSegmentMetadata();
+    if (segmentMetadata.hasStarTree() || !(segmentMetadata instanceof SegmentMetadataImpl)
+        || segmentMetadata.getTotalRawDocs() == 0) {
+      return false;
+    }
+    // For realtime segment, this map can be null.
+    Map<String, ColumnMetadata> columnMetadataMap = ((SegmentMetadataImpl) segmentMetadata).getColumnMetadataMap();
+    if (columnMetadataMap == null) {
+      return false;
+    }
+
+    for (AggregationInfo aggregationInfo : brokerRequest.getAggregationsInfo()) {
+      String functionName = aggregationInfo.getAggregationType().toUpperCase();
+      if (functionName.equals(AggregationFunctionFactory.AggregationFunctionType.COUNT.name())) {
+        continue;
+      }
+      if (!functionName.equals(AggregationFunctionFactory.AggregationFunctionType.MIN.name())
+          && !functionName.equals(AggregationFunctionFactory.AggregationFunctionType.MAX.name())
+          && !functionName.equals(AggregationFunctionFactory.AggregationFunctionType.MINMAXRANGE.name())) {
+        return false;
+      }
+      String column = aggregationInfo.getAggregationParams().get("column").trim();
+      if (getSortedDictionary(indexSegment, columnMetadataMap.get(column)) == null) {
+        return false;
+      }
+    }
+
+    FilterQueryTree filterQueryTree = RequestUtils.generateFilterQueryTree(brokerRequest);
+    return (filterQueryTree == null) || isMatchingAllDocs(indexSegment, filterQueryTree, columnMetadataMap);
+  }
+
+  /**
+   * Helper method to get the sorted dictionary of a single-value numeric column, or <code>null</code> if the column
+   * does not have one.
+   */
+  @Nullable
+  private static Dictionary getSortedDictionary(@Nonnull IndexSegment indexSegment,
+      @Nullable ColumnMetadata columnMetadata) {
+    if (columnMetadata == null || !columnMetadata.isSingleValue() || !columnMetadata.hasDictionary()
+        || columnMetadata.getDataType() == FieldSpec.DataType.STRING) {
+      return null;
+    }
+    DataSource dataSource = indexSegment.getDataSource(columnMetadata.getColumnName());
+    if (dataSource == null) {
+      return null;
+    }
+    Dictionary dictionary = dataSource.getDictionary();
+    if (!(dictionary instanceof ImmutableDictionaryReader) || dictionary.length() == 0) {
+      return null;
+    }
+    return dictionary;
+  }
+
+  /**
+   * Helper method to determine whether the filter matches all documents of the segment:
+   * <ul>
+   *   <li>For leaf node: True if it is a <code>RANGE</code> predicate covering the min/max values of the column.</li>
+   *   <li>For non-leaf AND node: True if all its children returned true.</li>
+   *   <li>For non-leaf OR node: True if any of its children returned true.</li>
+   * </ul>
+   */
+  static boolean isMatchingAllDocs(@Nonnull IndexSegment indexSegment,
+      @Nonnull FilterQueryTree filterQueryTree, @Nonnull Map<String, ColumnMetadata> columnMetadataMap) {
+    List<FilterQueryTree> children = filterQueryTree.getChildren();
+    if (children != null && !children.isEmpty()) {
+      switch (filterQueryTree.getOperator()) {
+        case AND:
+          for (FilterQueryTree child : children) {
+            if (!isMatchingAllDocs(indexSegment, child, columnMetadataMap)) {
+              return false;
+            }
+          }
+          return true;
+        case OR:
+          for (FilterQueryTree child : children) {
+            if (isMatchingAllDocs(indexSegment, child, columnMetadataMap)) {
+              return true;
+            }
+          }
+          return false;
+        default:
+          return false;
+      }
+    }
+
+    if (filterQueryTree.getOperator() != FilterOperator.RANGE) {
+      return false;
+    }
+    ColumnMetadata columnMetadata = columnMetadataMap.get(filterQueryTree.getColumn());
+    Dictionary dictionary = getSortedDictionary(indexSegment, columnMetadata);
+    if (dictionary == null) {
+      return false;
+    }
+    FieldSpec.DataType dataType = columnMetadata.getDataType();
+    RangePredicate rangePredicate = new RangePredicate(null, filterQueryTree.getValue());
+
+    String lowerBoundary = rangePredicate.getLowerBoundary();
+    if (!lowerBoundary.equals(RangePredicate.UNBOUNDED)) {
+      Comparable<Object> lowerValue = getValue(lowerBoundary, dataType);
+      if (lowerValue == null) {
+        return false;
+      }
+      int result = lowerValue.compareTo(dictionary.get(0));
+      if (result > 0 || (result == 0 && !rangePredicate.includeLowerBoundary())) {
+        return false;
+      }
+    }
+    String upperBoundary = rangePredicate.getUpperBoundary();
+    if (!upperBoundary.equals(RangePredicate.UNBOUNDED)) {
+      Comparable<Object> upperValue = getValue(upperBoundary, dataType);
+      if (upperValue == null) {
+        return false;
+      }
+      int result = upperValue.compareTo(dictionary.get(dictionary.length() - 1));
+      if (result < 0 || (result == 0 && !rangePredicate.includeUpperBoundary())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Helper method to get the value of the given numeric data type from the given string, or <code>null</code> if the
+   * string cannot be parsed as this data type (e.g. decimal boundary on an <code>INT</code> column), in which case
+   * the query falls back to the regular aggregation plan.
+   */
+  @Nullable
+  @SuppressWarnings("unchecked")
+  private static Comparable<Object> getValue(@Nonnull String input, @Nonnull FieldSpec.DataType dataType) {
+    try {
+      switch (dataType) {
+        case INT:
+          return (Comparable) Integer.valueOf(input);
+        case LONG:
+          return (Comparable) Long.valueOf(input);
+        case FLOAT:
+          return (Comparable) Float.valueOf(input);
+        case DOUBLE:
+          return (Comparable) Double.valueOf(input);
+        default:
+          return null;
+      }
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public Operator run() {
+    SegmentMetadata segmentMetadata = _indexSegment.getSegmentMetadata();
+    return new MetadataBasedAggregationOperator(
+        AggregationFunctionUtils.getAggregationFunctionContexts(_aggregationInfos, segmentMetadata), _indexSegment,
+        segmentMetadata.getTotalRawDocs());
+  }
+
+  @Override
+  public void showTree(String prefix) {
+    LOGGER.debug(prefix + "Segment Level Inner-Segment Plan Node:");
+    LOGGER.debug(prefix + "Operator: MetadataBasedAggregationOperator");
+    LOGGER.debug(prefix + "Argument 0: IndexSegment - " + _indexSegment.getSegmentName());
+    LOGGER.debug(prefix + "Argument 1: Aggregations - " + _aggregationInfos);
+  }
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.plan;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.query.SegmentResultCacheOperator;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
+import javax.annotation.Nonnull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The <code>SegmentResultCachePlanNode</code> class provides the execution plan for aggregation queries on a single
+ * immutable segment, looking up the {@link SegmentResultCache} before running the underlying plan.
+ */
+public class SegmentResultCachePlanNode implements PlanNode {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentResultCachePlanNode.class);
+
+  private final SegmentResultCache _segmentResultCache;
+  private final BrokerRequest _brokerRequest;
+  private final BrokerRequest _normalizedRequest;
+  private final IndexSegment _indexSegment;
+  private final PlanNode _planNode;
+
+  public SegmentResultCachePlanNode(@Nonnull SegmentResultCache segmentResultCache,
+      @Nonnull BrokerRequest brokerRequest, @Nonnull BrokerRequest normalizedRequest,
+      @Nonnull IndexSegment indexSegment, @Nonnull PlanNode planNode) {
+    _segmentResultCache = segmentResultCache;
+    _brokerRequest = brokerRequest;
+    _normalizedRequest = normalizedRequest;
+    _indexSegment = indexSegment;
+    _planNode = planNode;
+  }
+
+  @Override
+  public Operator run() {
+    return new SegmentResultCacheOperator(_segmentResultCache, _brokerRequest, _normalizedRequest, _indexSegment,
+        _planNode);
+  }
+
+  @Override
+  public void showTree(String prefix) {
+    LOGGER.debug(prefix + "Segment Level Inner-Segment Plan Node:");
+    LOGGER.debug(prefix + "Operator: SegmentResultCacheOperator");
+    LOGGER.debug(prefix + "Argument 0: IndexSegment - " + _indexSegment.getSegmentName());
+    LOGGER.debug(prefix + "Argument 1: Underlying Plan -");
+    _planNode.showTree(prefix + "    ");
+  }
+}
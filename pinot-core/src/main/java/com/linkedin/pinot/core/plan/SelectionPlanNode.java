@@ -37,18 +37,29 @@ public class SelectionPlanNode implements PlanNode {
   private final ProjectionPlanNode _projectionPlanNode;
 
   public SelectionPlanNode(IndexSegment indexSegment, BrokerRequest brokerRequest) {
+    this(indexSegment, brokerRequest, createDocIdSetPlanNode(indexSegment, brokerRequest));
+  }
+
+  /**
+   * Constructor with the plan node for the matching document ids, e.g. {@link SortedColumnDocIdSetPlanNode}.
+   */
+  public SelectionPlanNode(IndexSegment indexSegment, BrokerRequest brokerRequest, DocIdSetPlanNode docIdSetPlanNode) {
     _indexSegment = indexSegment;
     _selection = brokerRequest.getSelections();
+    _projectionPlanNode = new ProjectionPlanNode(_indexSegment,
+        SelectionOperatorUtils.extractSelectionRelatedColumns(_selection, indexSegment), docIdSetPlanNode);
+  }
+
+  private static DocIdSetPlanNode createDocIdSetPlanNode(IndexSegment indexSegment, BrokerRequest brokerRequest) {
+    Selection selection = brokerRequest.getSelections();
     int maxDocPerNextCall = DocIdSetPlanNode.MAX_DOC_PER_CALL;
 
-    if ((_selection.getSelectionSortSequence() == null) || _selection.getSelectionSortSequence().isEmpty()) {
+    if ((selection.getSelectionSortSequence() == null) || selection.getSelectionSortSequence().isEmpty()) {
       //since no ordering is required, we can just get the minimum number of docs that matches the filter criteria
-      maxDocPerNextCall = Math.min(_selection.getOffset() + _selection.getSize(), maxDocPerNextCall);
+      maxDocPerNextCall = Math.min(selection.getOffset() + selection.getSize(), maxDocPerNextCall);
     }
 
-    DocIdSetPlanNode docIdSetPlanNode = new DocIdSetPlanNode(_indexSegment, brokerRequest, maxDocPerNextCall);
-    _projectionPlanNode = new ProjectionPlanNode(_indexSegment,
-        SelectionOperatorUtils.extractSelectionRelatedColumns(_selection, indexSegment), docIdSetPlanNode);
+    return new DocIdSetPlanNode(indexSegment, brokerRequest, maxDocPerNextCall);
   }
 
   @Override
@@ -0,0 +1,116 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.plan;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.Selection;
+import com.linkedin.pinot.common.request.SelectionSort;
+import com.linkedin.pinot.common.segment.SegmentMetadata;
+import com.linkedin.pinot.core.common.DataSource;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.SortedColumnDocIdSetOperator;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.SortedInvertedIndexReader;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The <code>SortedColumnDocIdSetPlanNode</code> class provides the execution plan for the matching document ids of
+ * selection queries with <code>ORDER BY</code> on the sorted column of a segment, see
+ * {@link SortedColumnDocIdSetOperator}.
+ */
+public class SortedColumnDocIdSetPlanNode extends DocIdSetPlanNode {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SortedColumnDocIdSetPlanNode.class);
+
+  private final IndexSegment _indexSegment;
+  private final BrokerRequest _brokerRequest;
+  private final SelectionSort _firstSelectionSort;
+  private final int _numSortColumns;
+  private final int _numDocsToCollect;
+  private SortedColumnDocIdSetOperator _docIdSetOperator = null;
+
+  public SortedColumnDocIdSetPlanNode(IndexSegment indexSegment, BrokerRequest brokerRequest) {
+    super(indexSegment, brokerRequest);
+    _indexSegment = indexSegment;
+    _brokerRequest = brokerRequest;
+    Selection selection = brokerRequest.getSelections();
+    List<SelectionSort> sortSequence = selection.getSelectionSortSequence();
+    _firstSelectionSort = sortSequence.get(0);
+    _numSortColumns = sortSequence.size();
+    _numDocsToCollect = selection.getOffset() + selection.getSize();
+  }
+
+  /**
+   * Returns whether the first sort column of the selection query is the sorted column of the segment, with a sorted
+   * inverted index.
+   *
+   * @param indexSegment index segment.
+   * @param selection selection query.
+   * @return whether the selection query can use this plan node.
+   */
+  public static boolean isApplicable(@Nonnull IndexSegment indexSegment, @Nonnull Selection selection) {
+    List<SelectionSort> sortSequence = selection.getSelectionSortSequence();
+    if (sortSequence == null || sortSequence.isEmpty() || selection.getSize() == 0) {
+      return false;
+    }
+    SegmentMetadata segmentMetadata = indexSegment.getSegmentMetadata();
+    if (segmentMetadata.hasStarTree() || !(segmentMetadata instanceof SegmentMetadataImpl)) {
+      return false;
+    }
+    // For realtime segment, this map can be null.
+    Map<String, ColumnMetadata> columnMetadataMap = ((SegmentMetadataImpl) segmentMetadata).getColumnMetadataMap();
+    if (columnMetadataMap == null) {
+      return false;
+    }
+    String column = sortSequence.get(0).getColumn();
+    ColumnMetadata columnMetadata = columnMetadataMap.get(column);
+    if (columnMetadata == null || !columnMetadata.isSorted() || !columnMetadata.isSingleValue()
+        || !columnMetadata.hasDictionary()) {
+      return false;
+    }
+    DataSource dataSource = indexSegment.getDataSource(column);
+    return (dataSource != null) && (dataSource.getInvertedIndex() instanceof SortedInvertedIndexReader);
+  }
+
+  @Override
+  public Operator run() {
+    if (_docIdSetOperator == null) {
+      String column = _firstSelectionSort.getColumn();
+      InvertedIndexReader invertedIndex = _indexSegment.getDataSource(column).getInvertedIndex();
+      int cardinality =
+          ((SegmentMetadataImpl) _indexSegment.getSegmentMetadata()).getColumnMetadataFor(column).getCardinality();
+      _docIdSetOperator =
+          new SortedColumnDocIdSetOperator(_indexSegment, _brokerRequest, (SortedInvertedIndexReader) invertedIndex,
+              cardinality, _firstSelectionSort.isIsAsc(), _numSortColumns > 1, _numDocsToCollect, MAX_DOC_PER_CALL);
+    }
+    return _docIdSetOperator;
+  }
+
+  @Override
+  public void showTree(String prefix) {
+    LOGGER.debug(prefix + "SortedColumnDocIdSetPlanNode Plan Node :");
+    LOGGER.debug(prefix + "Operator: SortedColumnDocIdSetOperator");
+    LOGGER.debug(prefix + "Argument 0: IndexSegment - " + _indexSegment.getSegmentName());
+    LOGGER.debug(prefix + "Argument 1: Sorted Column - " + _firstSelectionSort.getColumn());
+  }
+}
@@ -59,6 +59,18 @@ public class TransformPlanNode implements PlanNode {
    * @param brokerRequest BrokerRequest to process
    */
   public TransformPlanNode(@Nonnull IndexSegment indexSegment, @Nonnull BrokerRequest brokerRequest) {
+    this(indexSegment, brokerRequest, new DocIdSetPlanNode(indexSegment, brokerRequest));
+  }
+
+  /**
+   * Constructor for the class with the given document id set plan node.
+   *
+   * @param indexSegment Segment to process
+   * @param brokerRequest BrokerRequest to process
+   * @param docIdSetPlanNode Plan node for the documents to process
+   */
+  public TransformPlanNode(@Nonnull IndexSegment indexSegment, @Nonnull BrokerRequest brokerRequest,
+      @Nonnull DocIdSetPlanNode docIdSetPlanNode) {
 
     Set<String> projectionColumns = new HashSet<>();
     Set<String> transformExpressions = new HashSet<>();
@@ -75,7 +87,7 @@ public class TransformPlanNode implements PlanNode {
 
     _projectionPlanNode =
         new ProjectionPlanNode(indexSegment, projectionColumns.toArray(new String[projectionColumns.size()]),
-            new DocIdSetPlanNode(indexSegment, brokerRequest));
+            docIdSetPlanNode);
   }
 
   /**
@@ -16,20 +16,29 @@
 package com.linkedin.pinot.core.plan.maker;
 
 import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.segment.SegmentMetadata;
+import com.linkedin.pinot.core.data.manager.offline.OfflineSegmentDataManager;
 import com.linkedin.pinot.core.data.manager.offline.SegmentDataManager;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.plan.AggregationGroupByPlanNode;
 import com.linkedin.pinot.core.plan.AggregationPlanNode;
 import com.linkedin.pinot.core.plan.CombinePlanNode;
+import com.linkedin.pinot.core.plan.DictionaryBasedAggregationPlanNode;
 import com.linkedin.pinot.core.plan.GlobalPlanImplV0;
 import com.linkedin.pinot.core.plan.InstanceResponsePlanNode;
+import com.linkedin.pinot.core.plan.MetadataBasedAggregationPlanNode;
 import com.linkedin.pinot.core.plan.Plan;
 import com.linkedin.pinot.core.plan.PlanNode;
+import com.linkedin.pinot.core.plan.SegmentResultCachePlanNode;
 import com.linkedin.pinot.core.plan.SelectionPlanNode;
+import com.linkedin.pinot.core.plan.SortedColumnDocIdSetPlanNode;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
 import com.linkedin.pinot.core.query.config.QueryExecutorConfig;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,11 +56,22 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
   // private static final int DEFAULT_NUM_AGGR_GROUPS_LIMIT = 100_000;
   private final int _numAggrGroupsLimit = Integer.MAX_VALUE;
 
+  // Cache of the segment level results for offline segments, null if disabled.
+  private final SegmentResultCache _segmentResultCache;
+
+  // Large offline segments are split into document ranges processed as separate sub-tasks, when there are fewer
+  // segments than the parallelism.
+  private final int _splitMinNumDocsPerSplit;
+  private final int _splitParallelism;
+
   /**
    * Default constructor.
    */
   public InstancePlanMakerImplV2() {
 //    _numAggrGroupsLimit = DEFAULT_NUM_AGGR_GROUPS_LIMIT;
+    _segmentResultCache = null;
+    _splitMinNumDocsPerSplit = QueryExecutorConfig.DEFAULT_SPLIT_MIN_NUM_DOCS_PER_SPLIT;
+    _splitParallelism = Runtime.getRuntime().availableProcessors();
   }
 
   /**
@@ -63,9 +83,24 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
    * @param queryExecutorConfig query executor configuration.
    */
   public InstancePlanMakerImplV2(QueryExecutorConfig queryExecutorConfig) {
+    this(queryExecutorConfig, null);
+  }
+
+  /**
+   * Constructor for usage when client requires to pass {@link QueryExecutorConfig} and {@link SegmentResultCache} to
+   * this class.
+   *
+   * @param queryExecutorConfig query executor configuration.
+   * @param segmentResultCache cache of the segment level results, or <code>null</code> to disable caching.
+   */
+  public InstancePlanMakerImplV2(QueryExecutorConfig queryExecutorConfig,
+      @Nullable SegmentResultCache segmentResultCache) {
     // TODO: Read the limit on number of aggregation groups in query result from config.
     // _numAggrGroupsLimit = queryExecutorConfig.getConfig().getInt(NUM_AGGR_GROUPS_LIMIT, DEFAULT_NUM_AGGR_GROUPS_LIMIT);
     // LOGGER.info("Maximum number of allowed groups for group-by query results: '{}'", _numAggrGroupsLimit);
+    _segmentResultCache = segmentResultCache;
+    _splitMinNumDocsPerSplit = queryExecutorConfig.getSplitMinNumDocsPerSplit();
+    _splitParallelism = queryExecutorConfig.getSplitParallelism();
   }
 
   @Override
@@ -77,12 +112,23 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
         return new AggregationGroupByPlanNode(indexSegment, brokerRequest, _numAggrGroupsLimit);
       } else {
         // Aggregation only query.
+        if (MetadataBasedAggregationPlanNode.isFitForMetadataBasedPlan(indexSegment, brokerRequest)) {
+          return new MetadataBasedAggregationPlanNode(indexSegment, brokerRequest);
+        }
+        if (DictionaryBasedAggregationPlanNode.isFitForDictionaryBasedPlan(indexSegment, brokerRequest)) {
+          return new DictionaryBasedAggregationPlanNode(indexSegment, brokerRequest);
+        }
         return new AggregationPlanNode(indexSegment, brokerRequest);
       }
     }
 
     // Selection query.
     if (brokerRequest.isSetSelections()) {
+      if (SortedColumnDocIdSetPlanNode.isApplicable(indexSegment, brokerRequest.getSelections())) {
+        // Ordered by the sorted column of the segment, walk the sorted column and stop once enough rows are collected.
+        return new SelectionPlanNode(indexSegment, brokerRequest,
+            new SortedColumnDocIdSetPlanNode(indexSegment, brokerRequest));
+      }
       return new SelectionPlanNode(indexSegment, brokerRequest);
     }
 
@@ -99,12 +145,75 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
     }
     BrokerRequestPreProcessor.preProcess(indexSegments, brokerRequest);
 
+    // Results on offline segments never change until the segment gets refreshed, so they can be cached.
+    BrokerRequest normalizedRequest = null;
+    if (_segmentResultCache != null && SegmentResultCache.isCacheable(brokerRequest)) {
+      normalizedRequest = SegmentResultCache.normalize(brokerRequest);
+    }
+
+    int numSegments = segmentDataManagers.size();
+    int maxNumSplitsPerSegment = 1;
+    if (_splitMinNumDocsPerSplit > 0 && numSegments > 0 && numSegments < _splitParallelism) {
+      maxNumSplitsPerSegment = (_splitParallelism + numSegments - 1) / numSegments;
+    }
+
     List<PlanNode> planNodes = new ArrayList<>();
-    for (IndexSegment indexSegment : indexSegments) {
-      planNodes.add(makeInnerSegmentPlan(indexSegment, brokerRequest));
+    for (SegmentDataManager segmentDataManager : segmentDataManagers) {
+      IndexSegment indexSegment = segmentDataManager.getSegment();
+      if (maxNumSplitsPerSegment > 1 && normalizedRequest == null
+          && addSplitInnerSegmentPlans(indexSegment, brokerRequest, maxNumSplitsPerSegment, planNodes)) {
+        continue;
+      }
+      PlanNode planNode = makeInnerSegmentPlan(indexSegment, brokerRequest);
+      if (normalizedRequest != null && segmentDataManager instanceof OfflineSegmentDataManager) {
+        planNode = new SegmentResultCachePlanNode(_segmentResultCache, brokerRequest, normalizedRequest, indexSegment,
+            planNode);
+      }
+      planNodes.add(planNode);
     }
     CombinePlanNode combinePlanNode = new CombinePlanNode(planNodes, brokerRequest, executorService, timeOutMs);
 
     return new GlobalPlanImplV0(new InstanceResponsePlanNode(combinePlanNode));
   }
+
+  /**
+   * Helper method to split a large offline segment into document ranges for aggregation queries scanning the
+   * documents, so that the ranges can be processed in parallel by the combine operator.
+   *
+   * @return whether the segment is split and the plan nodes for the document ranges are added.
+   */
+  private boolean addSplitInnerSegmentPlans(IndexSegment indexSegment, BrokerRequest brokerRequest,
+      int maxNumSplits, List<PlanNode> planNodes) {
+    if (!brokerRequest.isSetAggregationsInfo()) {
+      return false;
+    }
+    SegmentMetadata segmentMetadata = indexSegment.getSegmentMetadata();
+    // Only split offline segments, as the number of documents of consuming segments keeps growing.
+    if (segmentMetadata.hasStarTree() || !(segmentMetadata instanceof SegmentMetadataImpl)
+        || ((SegmentMetadataImpl) segmentMetadata).getColumnMetadataMap() == null) {
+      return false;
+    }
+    boolean isGroupBy = brokerRequest.isSetGroupBy();
+    if (!isGroupBy && (MetadataBasedAggregationPlanNode.isFitForMetadataBasedPlan(indexSegment, brokerRequest)
+        || DictionaryBasedAggregationPlanNode.isFitForDictionaryBasedPlan(indexSegment, brokerRequest))) {
+      return false;
+    }
+    int numDocs = segmentMetadata.getTotalRawDocs();
+    int numSplits = Math.min(maxNumSplits, numDocs / _splitMinNumDocsPerSplit);
+    if (numSplits <= 1) {
+      return false;
+    }
+
+    int numDocsPerSplit = (numDocs + numSplits - 1) / numSplits;
+    for (int startDocId = 0; startDocId < numDocs; startDocId += numDocsPerSplit) {
+      int endDocId = Math.min(startDocId + numDocsPerSplit, numDocs) - 1;
+      if (isGroupBy) {
+        planNodes.add(
+            new AggregationGroupByPlanNode(indexSegment, brokerRequest, _numAggrGroupsLimit, startDocId, endDocId));
+      } else {
+        planNodes.add(new AggregationPlanNode(indexSegment, brokerRequest, startDocId, endDocId));
+      }
+    }
+    return true;
+  }
 }
@@ -44,6 +44,14 @@ public class AggregationGroupByResult {
     return _groupKeyGenerator.getUniqueGroupKeys();
   }
 
+  /**
+   * Returns an iterator for dictionary-independent binary group-by keys.
+   * @return
+   */
+  public Iterator<GroupKeyGenerator.BinaryGroupKey> getBinaryGroupKeyIterator() {
+    return _groupKeyGenerator.getUniqueBinaryGroupKeys();
+  }
+
   /**
    *
    * Given a group-by key and an index into the result holder array, returns
@@ -64,4 +72,16 @@ public class AggregationGroupByResult {
   public Object getResultForKey(GroupKeyGenerator.GroupKey groupKey, int index) {
     return _aggregationFunctions[index].extractGroupByResult(_resultHolders[index], groupKey.getFirst());
   }
+
+  /**
+   * Given a binary group-by key and an index into the result holder array, returns the corresponding aggregation
+   * result.
+   *
+   * @param groupKey
+   * @param index
+   * @return
+   */
+  public Object getResultForKey(GroupKeyGenerator.BinaryGroupKey groupKey, int index) {
+    return _aggregationFunctions[index].extractGroupByResult(_resultHolders[index], groupKey.getFirst());
+  }
 }
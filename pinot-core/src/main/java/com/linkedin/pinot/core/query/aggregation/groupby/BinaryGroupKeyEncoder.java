@@ -0,0 +1,224 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.aggregation.groupby;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+
+/**
+ * Builder for dictionary-independent binary group keys.
+ *
+ * A binary group key is the concatenation of the values of all group-by columns, each value prefixed with a one byte
+ * type tag:
+ * <ul>
+ *   <li>INT: 4 bytes big-endian.</li>
+ *   <li>LONG: 8 bytes big-endian.</li>
+ *   <li>FLOAT: 4 bytes of the raw int bits, big-endian.</li>
+ *   <li>DOUBLE: 8 bytes of the raw long bits, big-endian.</li>
+ *   <li>STRING: 4 bytes length followed by the UTF-8 encoded bytes.</li>
+ * </ul>
+ *
+ * Two segments generate the same binary key for the same group-by values regardless of their dictionaries, so the
+ * keys can be merged across segments without building the tab-delimited string keys. The string key is built only
+ * once per merged group via {@link #toStringGroupKey(byte[])}.
+ *
+ * This class is not thread-safe, each group key generator should keep its own instance.
+ */
+public class BinaryGroupKeyEncoder {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final byte INT_TAG = 0;
+  private static final byte LONG_TAG = 1;
+  private static final byte FLOAT_TAG = 2;
+  private static final byte DOUBLE_TAG = 3;
+  private static final byte STRING_TAG = 4;
+
+  private static final int DEFAULT_INITIAL_CAPACITY = 64;
+
+  private byte[] _buffer = new byte[DEFAULT_INITIAL_CAPACITY];
+  private int _size = 0;
+
+  /**
+   * Resets the encoder to start a new group key.
+   */
+  public void reset() {
+    _size = 0;
+  }
+
+  public void addInt(int value) {
+    ensureCapacity(5);
+    _buffer[_size++] = INT_TAG;
+    writeInt(value);
+  }
+
+  public void addLong(long value) {
+    ensureCapacity(9);
+    _buffer[_size++] = LONG_TAG;
+    writeLong(value);
+  }
+
+  public void addFloat(float value) {
+    ensureCapacity(5);
+    _buffer[_size++] = FLOAT_TAG;
+    writeInt(Float.floatToIntBits(value));
+  }
+
+  public void addDouble(double value) {
+    ensureCapacity(9);
+    _buffer[_size++] = DOUBLE_TAG;
+    writeLong(Double.doubleToLongBits(value));
+  }
+
+  public void addString(String value) {
+    byte[] bytes = value.getBytes(UTF_8);
+    ensureCapacity(5 + bytes.length);
+    _buffer[_size++] = STRING_TAG;
+    writeInt(bytes.length);
+    System.arraycopy(bytes, 0, _buffer, _size, bytes.length);
+    _size += bytes.length;
+  }
+
+  /**
+   * Appends the value for the given dictionary id, read with the primitive getter matching the data type.
+   *
+   * @param dictionary dictionary of the group-by column.
+   * @param dataType data type of the group-by column.
+   * @param dictId dictionary id of the value.
+   */
+  public void addDictionaryValue(Dictionary dictionary, FieldSpec.DataType dataType, int dictId) {
+    switch (dataType) {
+      case INT:
+        addInt(dictionary.getIntValue(dictId));
+        break;
+      case LONG:
+        addLong(dictionary.getLongValue(dictId));
+        break;
+      case FLOAT:
+        addFloat(dictionary.getFloatValue(dictId));
+        break;
+      case DOUBLE:
+        addDouble(dictionary.getDoubleValue(dictId));
+        break;
+      default:
+        addString(dictionary.getStringValue(dictId));
+        break;
+    }
+  }
+
+  /**
+   * Returns a copy of the current group key.
+   *
+   * @return binary group key.
+   */
+  public byte[] toBytes() {
+    return Arrays.copyOf(_buffer, _size);
+  }
+
+  /**
+   * Converts a binary group key into the string group key, with values separated by
+   * {@link AggregationGroupByTrimmingService#GROUP_KEY_DELIMITER}.
+   *
+   * @param groupKey binary group key.
+   * @return string group key.
+   */
+  public static String toStringGroupKey(byte[] groupKey) {
+    StringBuilder builder = new StringBuilder();
+    int offset = 0;
+    int length = groupKey.length;
+    while (offset < length) {
+      if (offset > 0) {
+        builder.append(AggregationGroupByTrimmingService.GROUP_KEY_DELIMITER);
+      }
+      byte tag = groupKey[offset++];
+      switch (tag) {
+        case INT_TAG:
+          builder.append(readInt(groupKey, offset));
+          offset += 4;
+          break;
+        case LONG_TAG:
+          builder.append(readLong(groupKey, offset));
+          offset += 8;
+          break;
+        case FLOAT_TAG:
+          builder.append(Float.intBitsToFloat(readInt(groupKey, offset)));
+          offset += 4;
+          break;
+        case DOUBLE_TAG:
+          builder.append(Double.longBitsToDouble(readLong(groupKey, offset)));
+          offset += 8;
+          break;
+        case STRING_TAG:
+          int numBytes = readInt(groupKey, offset);
+          offset += 4;
+          builder.append(new String(groupKey, offset, numBytes, UTF_8));
+          offset += numBytes;
+          break;
+        default:
+          throw new IllegalStateException("Illegal type tag in binary group key: " + tag);
+      }
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Hash function for binary group keys, with good distribution on the lower bits so that it can be used for both
+   * partitioning and open-addressing.
+   *
+   * @param groupKey binary group key.
+   * @return hash code.
+   */
+  public static int hash(byte[] groupKey) {
+    int hash = Arrays.hashCode(groupKey);
+    // Murmur3 finalizer to spread the bits.
+    hash ^= hash >>> 16;
+    hash *= 0x85ebca6b;
+    hash ^= hash >>> 13;
+    hash *= 0xc2b2ae35;
+    hash ^= hash >>> 16;
+    return hash;
+  }
+
+  private void ensureCapacity(int numBytesToAdd) {
+    int required = _size + numBytesToAdd;
+    if (required > _buffer.length) {
+      _buffer = Arrays.copyOf(_buffer, Math.max(required, _buffer.length * 2));
+    }
+  }
+
+  private void writeInt(int value) {
+    _buffer[_size++] = (byte) (value >>> 24);
+    _buffer[_size++] = (byte) (value >>> 16);
+    _buffer[_size++] = (byte) (value >>> 8);
+    _buffer[_size++] = (byte) value;
+  }
+
+  private void writeLong(long value) {
+    writeInt((int) (value >>> 32));
+    writeInt((int) value);
+  }
+
+  private static int readInt(byte[] bytes, int offset) {
+    return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16) | ((bytes[offset + 2] & 0xFF) << 8) | (
+        bytes[offset + 3] & 0xFF);
+  }
+
+  private static long readLong(byte[] bytes, int offset) {
+    return ((long) readInt(bytes, offset) << 32) | (readInt(bytes, offset + 4) & 0xFFFFFFFFL);
+  }
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.aggregation.groupby;
+
+import java.util.Arrays;
+
+
+/**
+ * Open-addressing (linear probing) hash table from binary group keys (see {@link BinaryGroupKeyEncoder}) to
+ * aggregation results.
+ *
+ * Entries are stored in insertion order in parallel arrays, and the hash slots only keep the entry index, so that
+ * iterating over the entries does not need to scan empty slots. The caller passes in the hash of the key so that it is
+ * computed only once for both partitioning and probing.
+ *
+ * This class is not thread-safe, callers are expected to partition the keys so that each table is only accessed by
+ * one thread.
+ */
+public class BinaryGroupKeyTable {
+  private static final int EMPTY_SLOT = -1;
+  private static final float LOAD_FACTOR = 0.5f;
+  private static final int DEFAULT_INITIAL_CAPACITY = 1024;
+
+  private int[] _slots;
+  private int _mask;
+
+  private byte[][] _keys;
+  private int[] _hashes;
+  private Object[][] _values;
+  private int _size = 0;
+
+  public BinaryGroupKeyTable() {
+    this(DEFAULT_INITIAL_CAPACITY);
+  }
+
+  /**
+   * Constructor for the class.
+   *
+   * @param expectedSize expected number of entries.
+   */
+  public BinaryGroupKeyTable(int expectedSize) {
+    int numSlots = Integer.highestOneBit(Math.max((int) (expectedSize / LOAD_FACTOR), 2) - 1) << 1;
+    _slots = new int[numSlots];
+    Arrays.fill(_slots, EMPTY_SLOT);
+    _mask = numSlots - 1;
+
+    int capacity = Math.max(expectedSize, 1);
+    _keys = new byte[capacity][];
+    _hashes = new int[capacity];
+    _values = new Object[capacity][];
+  }
+
+  /**
+   * Returns the index of the entry for the given key, or <code>-1</code> if the key does not exist.
+   *
+   * @param key binary group key.
+   * @param hash hash of the key, computed with {@link BinaryGroupKeyEncoder#hash(byte[])}.
+   * @return index of the entry.
+   */
+  public int indexOf(byte[] key, int hash) {
+    int slot = hash & _mask;
+    while (true) {
+      int index = _slots[slot];
+      if (index == EMPTY_SLOT) {
+        return EMPTY_SLOT;
+      }
+      if (_hashes[index] == hash && Arrays.equals(_keys[index], key)) {
+        return index;
+      }
+      slot = (slot + 1) & _mask;
+    }
+  }
+
+  /**
+   * Adds a new entry. The caller should ensure the key does not exist in the table.
+   *
+   * @param key binary group key.
+   * @param hash hash of the key, computed with {@link BinaryGroupKeyEncoder#hash(byte[])}.
+   * @param values aggregation results for the key.
+   */
+  public void add(byte[] key, int hash, Object[] values) {
+    if (_size >= _slots.length * LOAD_FACTOR) {
+      rehash(_slots.length << 1);
+    }
+    if (_size == _keys.length) {
+      int newCapacity = _size << 1;
+      _keys = Arrays.copyOf(_keys, newCapacity);
+      _hashes = Arrays.copyOf(_hashes, newCapacity);
+      _values = Arrays.copyOf(_values, newCapacity);
+    }
+
+    int index = _size++;
+    _keys[index] = key;
+    _hashes[index] = hash;
+    _values[index] = values;
+
+    int slot = hash & _mask;
+    while (_slots[slot] != EMPTY_SLOT) {
+      slot = (slot + 1) & _mask;
+    }
+    _slots[slot] = index;
+  }
+
+  public int size() {
+    return _size;
+  }
+
+  public byte[] getKey(int index) {
+    return _keys[index];
+  }
+
+  public Object[] getValues(int index) {
+    return _values[index];
+  }
+
+  private void rehash(int numSlots) {
+    _slots = new int[numSlots];
+    Arrays.fill(_slots, EMPTY_SLOT);
+    _mask = numSlots - 1;
+    for (int index = 0; index < _size; index++) {
+      int slot = _hashes[index] & _mask;
+      while (_slots[slot] != EMPTY_SLOT) {
+        slot = (slot + 1) & _mask;
+      }
+      _slots[slot] = index;
+    }
+  }
+}
@@ -15,6 +15,7 @@
  */
 package com.linkedin.pinot.core.query.aggregation.groupby;
 
+import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.core.common.BlockMetadata;
 import com.linkedin.pinot.core.common.BlockValSet;
 import com.linkedin.pinot.core.operator.blocks.TransformBlock;
@@ -66,6 +67,10 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
   private final StorageType _storageType;
 
   private final Dictionary[] _dictionaries;
+  private final FieldSpec.DataType[] _dataTypes;
+
+  // For building dictionary-independent binary group keys.
+  private final BinaryGroupKeyEncoder _binaryGroupKeyEncoder = new BinaryGroupKeyEncoder();
 
   // For transformBlockValSet of columns.
   private final BlockValSet[] _blockValSets;
@@ -74,6 +79,8 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
   private final int[][] _reusableSingleDictIds;
   // Reusable buffer for multi value columns.
   private final int[] _reusableMultiValDictIdBuffer;
+  // Reusable raw key to look up the group keys for single value columns (ARRAY_MAP_BASED storage type).
+  private final IntArrayList _reusableRawKey;
 
   // For ARRAY_BASED storage type.
   private boolean[] _groupKeyFlags;
@@ -116,6 +123,7 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
     _cardinalities = new int[_numGroupByColumns];
     _isSingleValueGroupByColumn = new boolean[_numGroupByColumns];
     _dictionaries = new Dictionary[_numGroupByColumns];
+    _dataTypes = new FieldSpec.DataType[_numGroupByColumns];
     _blockValSets = new BlockValSet[_numGroupByColumns];
     _reusableSingleDictIds = new int[_numGroupByColumns][];
 
@@ -128,6 +136,7 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
 
       // Store group-by column cardinalities and update cardinality product.
       _dictionaries[i] = blockMetadata.getDictionary();
+      _dataTypes[i] = blockMetadata.getDataType();
       int cardinality = _dictionaries[i].length();
       _cardinalities[i] = cardinality;
       if (!longOverflow) {
@@ -150,6 +159,8 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
 
     // Allocate a big enough buffer for all the multi value group-by columns.
     _reusableMultiValDictIdBuffer = new int[maxNumMultiValues];
+    _reusableRawKey = new IntArrayList(_numGroupByColumns);
+    _reusableRawKey.size(_numGroupByColumns);
 
     // We do not trim group keys unless we exceed the _maxCapacity for the holder.
     _trimMode = TrimMode.OFF;
@@ -227,14 +238,12 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
         }
         break;
       case ARRAY_MAP_BASED:
+        int[] rawKeyArray = _reusableRawKey.elements();
         for (int i = startIndex; i < endIndex; i++) {
-          IntArrayList rawKey = new IntArrayList(_numGroupByColumns);
-          rawKey.size(_numGroupByColumns);
-          int[] rawKeyArray = rawKey.elements();
           for (int j = 0; j < _numGroupByColumns; j++) {
             rawKeyArray[j] = _reusableSingleDictIds[j][i];
           }
-          outGroupKeys[outIndex++] = updateRawKeyToGroupKeyMapping(rawKey);
+          outGroupKeys[outIndex++] = updateRawKeyToGroupKeyMapping(_reusableRawKey);
         }
         break;
       default:
@@ -315,6 +324,23 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
     }
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Iterator<BinaryGroupKey> getUniqueBinaryGroupKeys() {
+    switch (_storageType) {
+      case ARRAY_BASED:
+        return new ArrayBasedBinaryGroupKeyIterator();
+      case LONG_MAP_BASED:
+        return new LongMapBasedBinaryGroupKeyIterator();
+      case ARRAY_MAP_BASED:
+        return new ArrayMapBasedBinaryGroupKeyIterator();
+      default:
+        throw new RuntimeException("Unsupported storage type for key generator " + _storageType);
+    }
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -421,7 +447,8 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
 
   /**
    * Helper function to get the group key associated to the IntArrayList type raw key. If there is no one, generate a
-   * new group key for this raw key and put them into the map.
+   * new group key for this raw key and put them into the map. The raw key is only used for lookup, a copy of it is put
+   * into the map, so that the caller can reuse it.
    * (ARRAY_MAP_BASED storage type)
    *
    * @param rawKey raw key.
@@ -432,11 +459,12 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
     int id = _arrayGroupKeyToId.getInt(rawKey);
     if (id == INVALID_ID) {
       id = _numGroupKeys++;
-      _arrayGroupKeyToId.put(rawKey, id);
+      IntArrayList groupKey = rawKey.clone();
+      _arrayGroupKeyToId.put(groupKey, id);
 
       // We are in trim mode, so we need reverse map from id to group key
       if (_trimMode == TrimMode.ON) {
-        _idToArrayGroupKey.put(id, rawKey);
+        _idToArrayGroupKey.put(id, groupKey);
       }
     }
     return id;
@@ -679,6 +707,99 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
     }
   }
 
+  /**
+   * Inner class to implement binary group key iterator for ARRAY_BASED storage.
+   */
+  private class ArrayBasedBinaryGroupKeyIterator implements Iterator<BinaryGroupKey> {
+    final int _length = _groupKeyFlags.length;
+    int _index = 0;
+    final BinaryGroupKey _groupKey = new BinaryGroupKey(INVALID_ID, null);
+
+    @Override
+    public boolean hasNext() {
+      while (_index < _length) {
+        if (_groupKeyFlags[_index]) {
+          return true;
+        }
+        _index++;
+      }
+      return false;
+    }
+
+    @Override
+    public BinaryGroupKey next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      byte[] binaryGroupKey = rawKeyToBinaryGroupKey(_index);
+      _groupKey.setFirst(_index++);
+      _groupKey.setSecond(binaryGroupKey);
+      return _groupKey;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /**
+   * Inner class to implement binary group key iterator for LONG_MAP_BASED storage.
+   */
+  private class LongMapBasedBinaryGroupKeyIterator implements Iterator<BinaryGroupKey> {
+    final ObjectIterator<Long2IntMap.Entry> _iterator = _groupKeyToId.long2IntEntrySet().fastIterator();
+    final BinaryGroupKey _groupKey = new BinaryGroupKey(INVALID_ID, null);
+
+    @Override
+    public boolean hasNext() {
+      return _iterator.hasNext();
+    }
+
+    @Override
+    public BinaryGroupKey next() {
+      Long2IntMap.Entry entry = _iterator.next();
+
+      byte[] binaryGroupKey = rawKeyToBinaryGroupKey(entry.getLongKey());
+      _groupKey.setFirst(entry.getIntValue());
+      _groupKey.setSecond(binaryGroupKey);
+      return _groupKey;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /**
+   * Inner class to implement binary group key iterator for ARRAY_MAP_BASED storage.
+   */
+  private class ArrayMapBasedBinaryGroupKeyIterator implements Iterator<BinaryGroupKey> {
+    final ObjectIterator<Object2IntMap.Entry<IntArrayList>> _iterator =
+        _arrayGroupKeyToId.object2IntEntrySet().fastIterator();
+    final BinaryGroupKey _groupKey = new BinaryGroupKey(INVALID_ID, null);
+
+    @Override
+    public boolean hasNext() {
+      return _iterator.hasNext();
+    }
+
+    @Override
+    public BinaryGroupKey next() {
+      Object2IntMap.Entry<IntArrayList> entry = _iterator.next();
+
+      byte[] binaryGroupKey = rawKeyToBinaryGroupKey(entry.getKey());
+      _groupKey.setFirst(entry.getIntValue());
+      _groupKey.setSecond(binaryGroupKey);
+      return _groupKey;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+
   /**
    * With an integer group key, convert group key from dictId based to string based, using actually values corresponding
    * to dictionary id's.
@@ -750,4 +871,38 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
     }
     return builder.toString();
   }
+
+  /**
+   * With a long raw key (integer group key for ARRAY_BASED storage type), convert raw key from dictId based to binary
+   * group key.
+   * (ARRAY_BASED and LONG_MAP_BASED storage type)
+   *
+   * @param rawKey long raw key.
+   * @return binary group key.
+   */
+  private byte[] rawKeyToBinaryGroupKey(long rawKey) {
+    _binaryGroupKeyEncoder.reset();
+    for (int i = 0; i < _numGroupByColumns; i++) {
+      int cardinality = _cardinalities[i];
+      _binaryGroupKeyEncoder.addDictionaryValue(_dictionaries[i], _dataTypes[i], (int) (rawKey % cardinality));
+      rawKey /= cardinality;
+    }
+    return _binaryGroupKeyEncoder.toBytes();
+  }
+
+  /**
+   * With a IntArrayList raw key, convert raw key from dictId based to binary group key.
+   * (ARRAY_MAP_BASED storage type)
+   *
+   * @param rawKey IntArrayList raw key.
+   * @return binary group key.
+   */
+  private byte[] rawKeyToBinaryGroupKey(IntArrayList rawKey) {
+    int[] rawKeyArray = rawKey.elements();
+    _binaryGroupKeyEncoder.reset();
+    for (int i = 0; i < _numGroupByColumns; i++) {
+      _binaryGroupKeyEncoder.addDictionaryValue(_dictionaries[i], _dataTypes[i], rawKeyArray[i]);
+    }
+    return _binaryGroupKeyEncoder.toBytes();
+  }
 }
@@ -70,6 +70,15 @@ public interface GroupKeyGenerator {
    */
   Iterator<GroupKey> getUniqueGroupKeys();
 
+  /**
+   * Returns an iterator of binary group keys. The binary keys are dictionary-independent (see
+   * {@link BinaryGroupKeyEncoder}), use this interface to merge group keys across segments without building string
+   * keys.
+   *
+   * @return iterator of binary group keys.
+   */
+  Iterator<BinaryGroupKey> getUniqueBinaryGroupKeys();
+
   /**
    * Purge the given group keys.
    * @param keysToPurge Group keys to purge
@@ -89,4 +98,18 @@ public interface GroupKeyGenerator {
       return getSecond();
     }
   }
+
+  /**
+   * This class encapsulates the integer group key and the binary group key.
+   */
+  class BinaryGroupKey extends Pair<Integer, byte[]> {
+
+    public BinaryGroupKey(Integer first, byte[] second) {
+      super(first, second);
+    }
+
+    public byte[] getBinaryKey() {
+      return getSecond();
+    }
+  }
 }
@@ -46,6 +46,7 @@ public class NoDictionaryMultiColumnGroupKeyGenerator implements GroupKeyGenerat
 
   private Dictionary[] _dictionaries;
   private ValueToIdMap[] _onTheFlyDictionaries;
+  private FieldSpec.DataType[] _dataTypes;
 
   /**
    * Constructor for the class.
@@ -59,9 +60,11 @@ public class NoDictionaryMultiColumnGroupKeyGenerator implements GroupKeyGenerat
     _hasDictionary = new boolean[groupByColumns.length];
     _dictionaries = new Dictionary[groupByColumns.length];
     _onTheFlyDictionaries = new ValueToIdMap[groupByColumns.length];
+    _dataTypes = new FieldSpec.DataType[groupByColumns.length];
 
     for (int i = 0; i < groupByColumns.length; i++) {
       BlockMetadata blockMetadata = transformBlock.getBlockMetadata(groupByColumns[i]);
+      _dataTypes[i] = blockMetadata.getDataType();
       if (blockMetadata.hasDictionary()) {
         _dictionaries[i] = blockMetadata.getDictionary();
         _hasDictionary[i] = true;
@@ -165,6 +168,11 @@ public class NoDictionaryMultiColumnGroupKeyGenerator implements GroupKeyGenerat
     return new GroupKeyIterator(_groupKeyMap);
   }
 
+  @Override
+  public Iterator<BinaryGroupKey> getUniqueBinaryGroupKeys() {
+    return new BinaryGroupKeyIterator(_groupKeyMap);
+  }
+
   @Override
   public void purgeKeys(int[] keysToPurge) {
     // TODO: Implement purging.
@@ -217,6 +225,73 @@ public class NoDictionaryMultiColumnGroupKeyGenerator implements GroupKeyGenerat
     }
   }
 
+  /**
+   * Iterator for {Binary-Group-Key, Group-id) pair.
+   */
+  class BinaryGroupKeyIterator implements Iterator<BinaryGroupKey> {
+    Iterator<Map.Entry<FixedIntArray, Integer>> _iterator;
+    BinaryGroupKey _groupKey;
+    BinaryGroupKeyEncoder _encoder;
+
+    public BinaryGroupKeyIterator(Map<FixedIntArray, Integer> map) {
+      _iterator = map.entrySet().iterator();
+      _groupKey = new BinaryGroupKey(INVALID_ID, null);
+      _encoder = new BinaryGroupKeyEncoder();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return _iterator.hasNext();
+    }
+
+    @Override
+    public BinaryGroupKey next() {
+      Map.Entry<FixedIntArray, Integer> entry = _iterator.next();
+      _groupKey.setFirst(entry.getValue());
+      _groupKey.setSecond(buildBinaryKeyFromIds(entry.getKey(), _encoder));
+      return _groupKey;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  private byte[] buildBinaryKeyFromIds(FixedIntArray keyList, BinaryGroupKeyEncoder encoder) {
+    encoder.reset();
+    int[] keys = keyList.elements();
+    for (int i = 0; i < keyList.size(); i++) {
+      int id = keys[i];
+
+      if (_hasDictionary[i]) {
+        encoder.addDictionaryValue(_dictionaries[i], _dataTypes[i], id);
+      } else {
+        ValueToIdMap onTheFlyDictionary = _onTheFlyDictionaries[i];
+        switch (_dataTypes[i]) {
+          case INT:
+            encoder.addInt(onTheFlyDictionary.getInt(id));
+            break;
+          case LONG:
+            encoder.addLong(onTheFlyDictionary.getLong(id));
+            break;
+          case FLOAT:
+            encoder.addFloat(onTheFlyDictionary.getFloat(id));
+            break;
+          case DOUBLE:
+            encoder.addDouble(onTheFlyDictionary.getDouble(id));
+            break;
+          case STRING:
+            encoder.addString(onTheFlyDictionary.getString(id));
+            break;
+          default:
+            throw new IllegalArgumentException("Illegal data type for no-dictionary key generator: " + _dataTypes[i]);
+        }
+      }
+    }
+    return encoder.toBytes();
+  }
+
   private String buildStringKeyFromIds(FixedIntArray keyList) {
     StringBuilder builder = new StringBuilder();
     int[] keys = keyList.elements();
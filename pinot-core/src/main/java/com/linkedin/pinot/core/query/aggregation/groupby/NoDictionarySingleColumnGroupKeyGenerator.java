@@ -40,6 +40,7 @@ import java.util.Map;
 public class NoDictionarySingleColumnGroupKeyGenerator implements GroupKeyGenerator {
 
   private final String _groupByColumn;
+  private final FieldSpec.DataType _dataType;
   private final Map _groupKeyMap;
   private int _numGroupKeys = 0;
 
@@ -50,6 +51,7 @@ public class NoDictionarySingleColumnGroupKeyGenerator implements GroupKeyGenera
    */
   public NoDictionarySingleColumnGroupKeyGenerator(String groupByColumn, FieldSpec.DataType dataType) {
     _groupByColumn = groupByColumn;
+    _dataType = dataType;
     _groupKeyMap = createGroupKeyMap(dataType);
   }
 
@@ -168,6 +170,11 @@ public class NoDictionarySingleColumnGroupKeyGenerator implements GroupKeyGenera
     return new GroupKeyIterator(_groupKeyMap);
   }
 
+  @Override
+  public Iterator<BinaryGroupKey> getUniqueBinaryGroupKeys() {
+    return new BinaryGroupKeyIterator(_groupKeyMap);
+  }
+
   @Override
   public void purgeKeys(int[] keysToPurge) {
     // TODO: Implement purging.
@@ -260,4 +267,59 @@ public class NoDictionarySingleColumnGroupKeyGenerator implements GroupKeyGenera
       throw new UnsupportedOperationException();
     }
   }
+
+  /**
+   * Iterator for {Binary-Group-Key, Group-id) pair.
+   */
+  class BinaryGroupKeyIterator implements Iterator<BinaryGroupKey> {
+    Iterator<Map.Entry<Object, Integer>> _iterator;
+    BinaryGroupKey _groupKey;
+    BinaryGroupKeyEncoder _encoder;
+
+    @SuppressWarnings("unchecked")
+    public BinaryGroupKeyIterator(Map map) {
+      _iterator = (Iterator<Map.Entry<Object, Integer>>) map.entrySet().iterator();
+      _groupKey = new BinaryGroupKey(INVALID_ID, null);
+      _encoder = new BinaryGroupKeyEncoder();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return _iterator.hasNext();
+    }
+
+    @Override
+    public BinaryGroupKey next() {
+      Map.Entry<Object, Integer> entry = _iterator.next();
+      Object value = entry.getKey();
+      _encoder.reset();
+      switch (_dataType) {
+        case INT:
+          _encoder.addInt((Integer) value);
+          break;
+        case LONG:
+          _encoder.addLong((Long) value);
+          break;
+        case FLOAT:
+          _encoder.addFloat((Float) value);
+          break;
+        case DOUBLE:
+          _encoder.addDouble((Double) value);
+          break;
+        case STRING:
+          _encoder.addString((String) value);
+          break;
+        default:
+          throw new IllegalArgumentException("Illegal data type for no-dictionary key generator: " + _dataType);
+      }
+      _groupKey.setFirst(entry.getValue());
+      _groupKey.setSecond(_encoder.toBytes());
+      return _groupKey;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
 }
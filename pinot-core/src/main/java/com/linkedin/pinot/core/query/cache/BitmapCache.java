@@ -0,0 +1,196 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.cache;
+
+import com.google.common.base.Predicate;
+import com.linkedin.pinot.common.metrics.ServerGauge;
+import com.linkedin.pinot.common.metrics.ServerMeter;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The <code>BitmapCache</code> class is a server wide cache of the inverted index bitmaps used by the filters, keyed on
+ * the inverted index reader and the sorted dictionary ids. It holds both the bitmaps of single dictionary ids and the
+ * unions of the bitmaps of a few dictionary ids (IN and small RANGE predicates).
+ * <p>Bitmaps of single dictionary ids are views on the index buffer of the segment, so only a fixed overhead is
+ * accounted for them. Unions are materialized into direct buffers, and accounted with their serialized size.
+ */
+public class BitmapCache extends ClockCache<BitmapCache.Key, ImmutableRoaringBitmap> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BitmapCache.class);
+
+  // Only unions of up to this number of dictionary ids are cached, bigger ones are usually not repeated.
+  public static final int MAX_NUM_DICT_IDS_PER_ENTRY = 32;
+
+  // Approximate heap overhead of one entry (key, entry, map node and bitmap object).
+  private static final int ENTRY_OVERHEAD_IN_BYTES = 128;
+
+  private static volatile BitmapCache _instance = null;
+
+  private final ServerMetrics _serverMetrics;
+  private final AtomicLong _numHits = new AtomicLong();
+  private final AtomicLong _numMisses = new AtomicLong();
+
+  public BitmapCache(long maxSizeInBytes, @Nonnull ServerMetrics serverMetrics) {
+    super(maxSizeInBytes);
+    _serverMetrics = serverMetrics;
+    serverMetrics.addCallbackGauge("bitmapCacheHitRatioPercent", new Callable<Long>() {
+      @Override
+      public Long call()
+          throws Exception {
+        long numHits = _numHits.get();
+        long numLookups = numHits + _numMisses.get();
+        return (numLookups > 0) ? numHits * 100 / numLookups : 0L;
+      }
+    });
+    LOGGER.info("Initialized bitmap cache with max size: {} bytes", maxSizeInBytes);
+  }
+
+  /**
+   * Returns the server wide bitmap cache, or <code>null</code> if it is disabled.
+   */
+  @Nullable
+  public static BitmapCache getInstance() {
+    return _instance;
+  }
+
+  /**
+   * Sets the server wide bitmap cache, <code>null</code> disables the cache.
+   */
+  public static void setInstance(@Nullable BitmapCache bitmapCache) {
+    _instance = bitmapCache;
+  }
+
+  /**
+   * Returns the cached bitmap for the given inverted index reader and sorted dictionary ids, or <code>null</code> if
+   * it is not cached.
+   */
+  @Nullable
+  public ImmutableRoaringBitmap get(long readerId, @Nonnull int[] sortedDictIds) {
+    ImmutableRoaringBitmap bitmap = getValue(new Key(readerId, sortedDictIds));
+    if (bitmap != null) {
+      _numHits.incrementAndGet();
+      _serverMetrics.addMeteredGlobalValue(ServerMeter.BITMAP_CACHE_HITS, 1L);
+    } else {
+      _numMisses.incrementAndGet();
+      _serverMetrics.addMeteredGlobalValue(ServerMeter.BITMAP_CACHE_MISSES, 1L);
+    }
+    return bitmap;
+  }
+
+  /**
+   * Caches the bitmap of a single dictionary id, which should be a view on the index buffer of the segment.
+   */
+  public void putSingle(long readerId, int dictId, @Nonnull ImmutableRoaringBitmap bitmap) {
+    putValue(new Key(readerId, new int[]{dictId}), bitmap, ENTRY_OVERHEAD_IN_BYTES);
+  }
+
+  /**
+   * Caches the union of the bitmaps of the given sorted dictionary ids. The union is copied into a direct buffer, and
+   * the cached copy is returned.
+   */
+  @Nonnull
+  public ImmutableRoaringBitmap putUnion(long readerId, @Nonnull int[] sortedDictIds,
+      @Nonnull MutableRoaringBitmap union) {
+    int serializedSizeInBytes = union.serializedSizeInBytes();
+    long entrySizeInBytes = serializedSizeInBytes + ENTRY_OVERHEAD_IN_BYTES + 4L * sortedDictIds.length;
+    if (!isCacheable(entrySizeInBytes)) {
+      return union;
+    }
+
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(serializedSizeInBytes);
+    try {
+      union.serialize(new DataOutputStream(byteArrayOutputStream));
+    } catch (IOException e) {
+      throw new IllegalStateException("Should never happen when writing into a ByteArrayOutputStream", e);
+    }
+    ByteBuffer byteBuffer = ByteBuffer.allocateDirect(serializedSizeInBytes);
+    byteBuffer.put(byteArrayOutputStream.toByteArray());
+    byteBuffer.flip();
+    ImmutableRoaringBitmap offHeapUnion = new ImmutableRoaringBitmap(byteBuffer);
+    putValue(new Key(readerId, sortedDictIds.clone()), offHeapUnion, entrySizeInBytes);
+    return offHeapUnion;
+  }
+
+  /**
+   * Removes all the cached bitmaps of the given inverted index reader. Must be called before the index buffer is
+   * closed, as the cached bitmaps may be views on it.
+   */
+  public void invalidate(final long readerId) {
+    removeValues(new Predicate<Key>() {
+      @Override
+      public boolean apply(Key key) {
+        return key._readerId == readerId;
+      }
+    });
+  }
+
+  public long getNumHits() {
+    return _numHits.get();
+  }
+
+  public long getNumMisses() {
+    return _numMisses.get();
+  }
+
+  @Override
+  protected void updateGauges() {
+    _serverMetrics.setValueOfGlobalGauge(ServerGauge.BITMAP_CACHE_ENTRIES, getNumEntries());
+    _serverMetrics.setValueOfGlobalGauge(ServerGauge.BITMAP_CACHE_SIZE_IN_BYTES, getSizeInBytes());
+  }
+
+  static final class Key {
+    private final long _readerId;
+    private final int[] _sortedDictIds;
+    private final int _hashCode;
+
+    Key(long readerId, int[] sortedDictIds) {
+      _readerId = readerId;
+      _sortedDictIds = sortedDictIds;
+      _hashCode = 31 * (int) (readerId ^ (readerId >>> 32)) + Arrays.hashCode(sortedDictIds);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) o;
+      return _hashCode == that._hashCode && _readerId == that._readerId && Arrays.equals(_sortedDictIds,
+          that._sortedDictIds);
+    }
+
+    @Override
+    public int hashCode() {
+      return _hashCode;
+    }
+  }
+}
@@ -0,0 +1,248 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.cache;
+
+import com.linkedin.pinot.core.common.datatable.ObjectCustomSerDe;
+import com.linkedin.pinot.core.common.datatable.ObjectType;
+import com.linkedin.pinot.core.operator.ExecutionStatistics;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionContext;
+import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
+import com.linkedin.pinot.core.query.aggregation.groupby.BinaryGroupKeyEncoder;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * The <code>CachedSegmentResult</code> class holds the serialized intermediate result of an aggregation (only or
+ * group-by) query on one segment.
+ * <p>The intermediate results are stored serialized because the combine operators merge results in place, so each
+ * cache hit needs its own copy of the objects.
+ */
+public class CachedSegmentResult {
+  // Rough estimation of the per-array overhead on the heap.
+  private static final long ARRAY_OVERHEAD_IN_BYTES = 16L;
+
+  private final ObjectType[] _objectTypes;
+  // For aggregation only, results are stored as one row. For aggregation group-by, there is one row per group.
+  private final byte[][][] _results;
+  @Nullable
+  private final byte[][] _groupKeys;
+  private final long _numDocsScanned;
+  private final long _numTotalRawDocs;
+  private final long _sizeInBytes;
+
+  private CachedSegmentResult(ObjectType[] objectTypes, byte[][][] results, @Nullable byte[][] groupKeys,
+      long numDocsScanned, long numTotalRawDocs) {
+    _objectTypes = objectTypes;
+    _results = results;
+    _groupKeys = groupKeys;
+    _numDocsScanned = numDocsScanned;
+    _numTotalRawDocs = numTotalRawDocs;
+
+    long sizeInBytes = ARRAY_OVERHEAD_IN_BYTES * (results.length + 1);
+    for (byte[][] row : results) {
+      for (byte[] value : row) {
+        sizeInBytes += value.length + ARRAY_OVERHEAD_IN_BYTES;
+      }
+    }
+    if (groupKeys != null) {
+      for (byte[] groupKey : groupKeys) {
+        sizeInBytes += groupKey.length + ARRAY_OVERHEAD_IN_BYTES;
+      }
+    }
+    _sizeInBytes = sizeInBytes;
+  }
+
+  /**
+   * Builds the cached result from the result block of an aggregation (only or group-by) operator.
+   *
+   * @return Cached result, or <code>null</code> if the result block cannot be cached.
+   */
+  @Nullable
+  public static CachedSegmentResult fromResultsBlock(@Nonnull IntermediateResultsBlock resultsBlock,
+      @Nonnull ExecutionStatistics executionStatistics) {
+    List<?> processingExceptions = resultsBlock.getProcessingExceptions();
+    if (processingExceptions != null && !processingExceptions.isEmpty()) {
+      return null;
+    }
+
+    try {
+      List<Object> aggregationResult = resultsBlock.getAggregationResult();
+      if (aggregationResult != null) {
+        int numAggregationFunctions = aggregationResult.size();
+        ObjectType[] objectTypes = new ObjectType[numAggregationFunctions];
+        byte[][] row = new byte[numAggregationFunctions][];
+        for (int i = 0; i < numAggregationFunctions; i++) {
+          Object result = aggregationResult.get(i);
+          objectTypes[i] = ObjectCustomSerDe.getObjectType(result);
+          row[i] = ObjectCustomSerDe.serialize(result);
+        }
+        return new CachedSegmentResult(objectTypes, new byte[][][]{row}, null,
+            executionStatistics.getNumDocsScanned(), executionStatistics.getNumTotalRawDocs());
+      }
+
+      AggregationGroupByResult aggregationGroupByResult = resultsBlock.getAggregationGroupByResult();
+      AggregationFunctionContext[] aggregationFunctionContexts = resultsBlock.getAggregationFunctionContexts();
+      if (aggregationGroupByResult != null && aggregationFunctionContexts != null) {
+        int numAggregationFunctions = aggregationFunctionContexts.length;
+        ObjectType[] objectTypes = new ObjectType[numAggregationFunctions];
+        List<byte[]> groupKeys = new ArrayList<>();
+        List<byte[][]> rows = new ArrayList<>();
+        Iterator<GroupKeyGenerator.BinaryGroupKey> groupKeyIterator =
+            aggregationGroupByResult.getBinaryGroupKeyIterator();
+        while (groupKeyIterator.hasNext()) {
+          GroupKeyGenerator.BinaryGroupKey groupKey = groupKeyIterator.next();
+          byte[][] row = new byte[numAggregationFunctions][];
+          for (int i = 0; i < numAggregationFunctions; i++) {
+            Object result = aggregationGroupByResult.getResultForKey(groupKey, i);
+            ObjectType objectType = ObjectCustomSerDe.getObjectType(result);
+            if (objectTypes[i] == null) {
+              objectTypes[i] = objectType;
+            } else if (objectTypes[i] != objectType) {
+              return null;
+            }
+            row[i] = ObjectCustomSerDe.serialize(result);
+          }
+          groupKeys.add(groupKey.getBinaryKey());
+          rows.add(row);
+        }
+        return new CachedSegmentResult(objectTypes, rows.toArray(new byte[rows.size()][][]),
+            groupKeys.toArray(new byte[groupKeys.size()][]), executionStatistics.getNumDocsScanned(),
+            executionStatistics.getNumTotalRawDocs());
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      // Results that cannot be serialized are not cached.
+      return null;
+    }
+
+    // Selection results are not cached.
+    return null;
+  }
+
+  /**
+   * Builds a new result block (with its own copy of the intermediate results) from the cached result.
+   */
+  @Nonnull
+  public IntermediateResultsBlock toResultsBlock(@Nonnull AggregationFunctionContext[] aggregationFunctionContexts)
+      throws IOException {
+    if (_groupKeys == null) {
+      int numAggregationFunctions = _objectTypes.length;
+      List<Object> aggregationResult = new ArrayList<>(numAggregationFunctions);
+      for (int i = 0; i < numAggregationFunctions; i++) {
+        aggregationResult.add(ObjectCustomSerDe.deserialize(_results[0][i], _objectTypes[i]));
+      }
+      return new IntermediateResultsBlock(aggregationFunctionContexts, aggregationResult, false);
+    } else {
+      return new IntermediateResultsBlock(aggregationFunctionContexts, new CachedAggregationGroupByResult());
+    }
+  }
+
+  /**
+   * Returns the execution statistics to report for a cache hit. The entries scanned are <code>0</code> because no
+   * index is accessed.
+   */
+  @Nonnull
+  public ExecutionStatistics getExecutionStatistics() {
+    return new ExecutionStatistics(_numDocsScanned, 0L, 0L, _numTotalRawDocs);
+  }
+
+  public long getSizeInBytes() {
+    return _sizeInBytes;
+  }
+
+  /**
+   * Group-by result backed by the cached group keys and serialized results.
+   */
+  private class CachedAggregationGroupByResult extends AggregationGroupByResult {
+
+    CachedAggregationGroupByResult() {
+      super(null, null, null);
+    }
+
+    @Override
+    public Iterator<GroupKeyGenerator.GroupKey> getGroupKeyIterator() {
+      return new Iterator<GroupKeyGenerator.GroupKey>() {
+        private int _index = 0;
+
+        @Override
+        public boolean hasNext() {
+          return _index < _groupKeys.length;
+        }
+
+        @Override
+        public GroupKeyGenerator.GroupKey next() {
+          GroupKeyGenerator.GroupKey groupKey =
+              new GroupKeyGenerator.GroupKey(_index, BinaryGroupKeyEncoder.toStringGroupKey(_groupKeys[_index]));
+          _index++;
+          return groupKey;
+        }
+
+        @Override
+        public void remove() {
+          throw new UnsupportedOperationException();
+        }
+      };
+    }
+
+    @Override
+    public Iterator<GroupKeyGenerator.BinaryGroupKey> getBinaryGroupKeyIterator() {
+      return new Iterator<GroupKeyGenerator.BinaryGroupKey>() {
+        private int _index = 0;
+
+        @Override
+        public boolean hasNext() {
+          return _index < _groupKeys.length;
+        }
+
+        @Override
+        public GroupKeyGenerator.BinaryGroupKey next() {
+          GroupKeyGenerator.BinaryGroupKey groupKey = new GroupKeyGenerator.BinaryGroupKey(_index, _groupKeys[_index]);
+          _index++;
+          return groupKey;
+        }
+
+        @Override
+        public void remove() {
+          throw new UnsupportedOperationException();
+        }
+      };
+    }
+
+    @Override
+    public Object getResultForKey(GroupKeyGenerator.GroupKey groupKey, int index) {
+      return getResult(groupKey.getFirst(), index);
+    }
+
+    @Override
+    public Object getResultForKey(GroupKeyGenerator.BinaryGroupKey groupKey, int index) {
+      return getResult(groupKey.getFirst(), index);
+    }
+
+    private Object getResult(int groupIndex, int index) {
+      try {
+        return ObjectCustomSerDe.deserialize(_results[groupIndex][index], _objectTypes[index]);
+      } catch (IOException e) {
+        throw new RuntimeException("Caught exception while de-serializing cached group-by result", e);
+      }
+    }
+  }
+}
@@ -0,0 +1,303 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.cache;
+
+import com.google.common.base.Predicate;
+import com.linkedin.pinot.common.metrics.ServerGauge;
+import com.linkedin.pinot.common.metrics.ServerMeter;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The <code>ChunkCache</code> class is a server wide cache of the decompressed chunks of the raw (no dictionary)
+ * forward indexes, keyed on the chunk reader and the chunk id, so that concurrent queries on the same hot segments do
+ * not decompress the same chunks again and again.
+ * <p>A chunk is only cached the second time it gets decompressed within a short window. The first reads are only
+ * recorded into a small lock-free filter of recently decompressed chunks, so full scans neither copy their chunks nor
+ * take the cache lock, and cannot replace the hot chunks with chunks read only once. A chunk is not cached either if
+ * another thread is inserting into the cache at the same time, so that scans never wait on the cache.
+ * <p>Each table can use at most its quota of the cache. Once a table reaches its quota, one of its own chunks close
+ * to the clock hand must be evicted before a new one is cached, otherwise the new chunk is not cached.
+ */
+public class ChunkCache extends ClockCache<ChunkCache.Key, ChunkCache.CachedChunk> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ChunkCache.class);
+
+  // Approximate heap overhead of one entry (key, entry, map node and buffer object).
+  private static final int ENTRY_OVERHEAD_IN_BYTES = 128;
+  // Table name used for the readers without table, which are only bounded by the cache size.
+  private static final String UNKNOWN_TABLE = "";
+  // Max number of entries looked at when evicting a chunk of a table over its quota.
+  private static final int MAX_NUM_QUOTA_EVICTION_CANDIDATES = 64;
+  // Bounds of the number of slots of the filter of recently decompressed chunks, each slot takes 8 bytes.
+  private static final int MIN_NUM_RECENT_CHUNK_SLOTS = 1 << 10;
+  private static final int MAX_NUM_RECENT_CHUNK_SLOTS = 1 << 20;
+  // Cache size for each slot of the filter of recently decompressed chunks.
+  private static final long BYTES_PER_RECENT_CHUNK_SLOT = 4096L;
+
+  private static volatile ChunkCache _instance = null;
+
+  private final long _defaultTableQuotaInBytes;
+  private final Map<String, Long> _tableQuotasInBytes;
+  private final ServerMetrics _serverMetrics;
+  private final ConcurrentHashMap<String, AtomicLong> _tableSizesInBytes = new ConcurrentHashMap<>();
+  private final AtomicLong _numHits = new AtomicLong();
+  private final AtomicLong _numMisses = new AtomicLong();
+
+  // Hashes of the recently decompressed chunks, 0 for empty slots.
+  private final AtomicLongArray _recentChunks;
+  private final int _recentChunkSlotMask;
+
+  /**
+   * Constructor for the class.
+   *
+   * @param maxSizeInBytes Max size of the cache
+   * @param defaultTableQuotaInBytes Max size of the cached chunks of one table
+   * @param tableQuotasInBytes Map from table name to max size of its cached chunks, overriding the default quota
+   * @param serverMetrics Server metrics
+   */
+  public ChunkCache(long maxSizeInBytes, long defaultTableQuotaInBytes, @Nonnull Map<String, Long> tableQuotasInBytes,
+      @Nonnull ServerMetrics serverMetrics) {
+    super(maxSizeInBytes);
+    _defaultTableQuotaInBytes = defaultTableQuotaInBytes;
+    _tableQuotasInBytes = new HashMap<>(tableQuotasInBytes);
+    _serverMetrics = serverMetrics;
+    long numSlots = Math.max(Math.min(maxSizeInBytes / BYTES_PER_RECENT_CHUNK_SLOT, MAX_NUM_RECENT_CHUNK_SLOTS),
+        MIN_NUM_RECENT_CHUNK_SLOTS);
+    int numRecentChunkSlots = Integer.highestOneBit((int) numSlots);
+    _recentChunks = new AtomicLongArray(numRecentChunkSlots);
+    _recentChunkSlotMask = numRecentChunkSlots - 1;
+    serverMetrics.addCallbackGauge("chunkCacheHitRatioPercent", new Callable<Long>() {
+      @Override
+      public Long call()
+          throws Exception {
+        long numHits = _numHits.get();
+        long numLookups = numHits + _numMisses.get();
+        return (numLookups > 0) ? numHits * 100 / numLookups : 0L;
+      }
+    });
+    LOGGER.info("Initialized chunk cache with max size: {} bytes, default table quota: {} bytes, table quotas: {}",
+        maxSizeInBytes, defaultTableQuotaInBytes, tableQuotasInBytes);
+  }
+
+  /**
+   * Returns the server wide chunk cache, or <code>null</code> if it is disabled.
+   */
+  @Nullable
+  public static ChunkCache getInstance() {
+    return _instance;
+  }
+
+  /**
+   * Sets the server wide chunk cache, <code>null</code> disables the cache.
+   */
+  public static void setInstance(@Nullable ChunkCache chunkCache) {
+    _instance = chunkCache;
+  }
+
+  /**
+   * Returns the cached decompressed chunk for the given chunk reader and chunk id, or <code>null</code> if it is not
+   * cached. The returned buffer is shared, and should only be accessed with absolute gets or through duplicates.
+   */
+  @Nullable
+  public ByteBuffer get(long readerId, int chunkId) {
+    CachedChunk cachedChunk = getValue(new Key(readerId, chunkId));
+    if (cachedChunk != null) {
+      _numHits.incrementAndGet();
+      _serverMetrics.addMeteredGlobalValue(ServerMeter.CHUNK_CACHE_HITS, 1L);
+      return cachedChunk._chunk;
+    } else {
+      _numMisses.incrementAndGet();
+      _serverMetrics.addMeteredGlobalValue(ServerMeter.CHUNK_CACHE_MISSES, 1L);
+      return null;
+    }
+  }
+
+  /**
+   * Offers the given decompressed chunk, from its position to its limit, to the cache. A copy of the chunk is cached
+   * only if the same chunk was recently decompressed. The position of the given buffer is not modified.
+   *
+   * @param readerId Id of the chunk reader
+   * @param tableName Name of the table of the segment, <code>null</code> if unknown
+   * @param chunkId Id of the chunk
+   * @param chunk Decompressed chunk
+   * @return Whether the chunk got cached
+   */
+  public boolean put(long readerId, @Nullable String tableName, int chunkId, @Nonnull ByteBuffer chunk) {
+    if (!isRecentChunk(readerId, chunkId)) {
+      return false;
+    }
+
+    if (tableName == null) {
+      tableName = UNKNOWN_TABLE;
+    }
+    int chunkSize = chunk.remaining();
+    long entrySizeInBytes = chunkSize + ENTRY_OVERHEAD_IN_BYTES;
+    long tableQuota = getTableQuota(tableName);
+    if (!isCacheable(entrySizeInBytes) || entrySizeInBytes > tableQuota) {
+      return false;
+    }
+
+    // Make room within the table quota.
+    AtomicLong tableSizeInBytes = _tableSizesInBytes.get(tableName);
+    if (tableSizeInBytes != null && tableSizeInBytes.get() + entrySizeInBytes > tableQuota) {
+      final String tableToEvict = tableName;
+      boolean evicted = evictValue(new Predicate<CachedChunk>() {
+        @Override
+        public boolean apply(CachedChunk cachedChunk) {
+          return cachedChunk._tableName.equals(tableToEvict);
+        }
+      }, MAX_NUM_QUOTA_EVICTION_CANDIDATES);
+      if (!evicted) {
+        return false;
+      }
+    }
+
+    ByteBuffer copy = ByteBuffer.allocate(chunkSize);
+    copy.put(chunk.duplicate());
+    copy.flip();
+    return tryPutValue(new Key(readerId, chunkId), new CachedChunk(tableName, copy), entrySizeInBytes);
+  }
+
+  /**
+   * Records the chunk into the filter of recently decompressed chunks, and returns whether it was already there. Two
+   * chunks might share the same slot, in which case the most recent one replaces the other one.
+   */
+  private boolean isRecentChunk(long readerId, int chunkId) {
+    // Mix the bits of the key (MurmurHash3 finalizer), and keep 0 for the empty slots.
+    long hash = readerId * 31 + chunkId;
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    if (hash == 0L) {
+      hash = 1L;
+    }
+    int slot = (int) hash & _recentChunkSlotMask;
+    if (_recentChunks.get(slot) == hash) {
+      return true;
+    }
+    _recentChunks.set(slot, hash);
+    return false;
+  }
+
+  private long getTableQuota(String tableName) {
+    Long tableQuota = _tableQuotasInBytes.get(tableName);
+    if (tableQuota != null) {
+      return tableQuota;
+    }
+    return tableName.equals(UNKNOWN_TABLE) ? getMaxSizeInBytes() : _defaultTableQuotaInBytes;
+  }
+
+  /**
+   * Removes all the cached chunks of the given chunk reader. Should be called when the reader is closed, as its
+   * chunks cannot be accessed anymore.
+   */
+  public void invalidate(final long readerId) {
+    removeValues(new Predicate<Key>() {
+      @Override
+      public boolean apply(Key key) {
+        return key._readerId == readerId;
+      }
+    });
+  }
+
+  @Override
+  protected void onAdded(@Nonnull CachedChunk cachedChunk, long entrySizeInBytes) {
+    AtomicLong tableSizeInBytes = _tableSizesInBytes.get(cachedChunk._tableName);
+    if (tableSizeInBytes == null) {
+      tableSizeInBytes = new AtomicLong();
+      AtomicLong existingTableSizeInBytes = _tableSizesInBytes.putIfAbsent(cachedChunk._tableName, tableSizeInBytes);
+      if (existingTableSizeInBytes != null) {
+        tableSizeInBytes = existingTableSizeInBytes;
+      }
+    }
+    tableSizeInBytes.addAndGet(entrySizeInBytes);
+  }
+
+  @Override
+  protected void onRemoved(@Nonnull CachedChunk cachedChunk, long entrySizeInBytes) {
+    // Entries are only removed after being added, so the table size exists.
+    _tableSizesInBytes.get(cachedChunk._tableName).addAndGet(-entrySizeInBytes);
+  }
+
+  public long getTableSizeInBytes(@Nonnull String tableName) {
+    AtomicLong tableSizeInBytes = _tableSizesInBytes.get(tableName);
+    return (tableSizeInBytes == null) ? 0L : tableSizeInBytes.get();
+  }
+
+  public long getNumHits() {
+    return _numHits.get();
+  }
+
+  public long getNumMisses() {
+    return _numMisses.get();
+  }
+
+  @Override
+  protected void updateGauges() {
+    _serverMetrics.setValueOfGlobalGauge(ServerGauge.CHUNK_CACHE_ENTRIES, getNumEntries());
+    _serverMetrics.setValueOfGlobalGauge(ServerGauge.CHUNK_CACHE_SIZE_IN_BYTES, getSizeInBytes());
+  }
+
+  static final class CachedChunk {
+    private final String _tableName;
+    private final ByteBuffer _chunk;
+
+    CachedChunk(String tableName, ByteBuffer chunk) {
+      _tableName = tableName;
+      _chunk = chunk;
+    }
+  }
+
+  static final class Key {
+    private final long _readerId;
+    private final int _chunkId;
+
+    Key(long readerId, int chunkId) {
+      _readerId = readerId;
+      _chunkId = chunkId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) o;
+      return _readerId == that._readerId && _chunkId == that._chunkId;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (int) (_readerId ^ (_readerId >>> 32)) + _chunkId;
+    }
+  }
+}
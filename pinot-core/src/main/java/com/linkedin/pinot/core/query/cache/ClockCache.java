@@ -0,0 +1,289 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.cache;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Predicate;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * The <code>ClockCache</code> class is the base of the size-bounded caches, which owns the cached entries, the
+ * accounting of their sizes and the eviction. Sub-classes only define the key, the value and which values get cached.
+ * <p>Lookups and removals do not take any lock. Insertions are serialized, and evict entries with the CLOCK (second
+ * chance) algorithm once the cache is full: entries are kept in insertion order, and the ones referenced since the
+ * last sweep are moved to the back instead of being evicted. Removed entries are dropped from the clock when the
+ * sweep reaches them.
+ * <p>Entries larger than a tenth of the cache size are never cached, as they would evict too many other entries.
+ *
+ * @param <K> Type of the keys
+ * @param <V> Type of the cached values
+ */
+public abstract class ClockCache<K, V> {
+  private static final int MAX_ENTRY_SIZE_FRACTION = 10;
+  private static final int MIN_NUM_REMOVED_ENTRIES_TO_CLEAN_UP = 1024;
+
+  private final long _maxSizeInBytes;
+  private final ConcurrentHashMap<K, Entry<K, V>> _cache = new ConcurrentHashMap<>();
+  private final AtomicLong _sizeInBytes = new AtomicLong();
+
+  // Guards the clock
+  private final ReentrantLock _lock = new ReentrantLock();
+  private final ArrayDeque<Entry<K, V>> _clock = new ArrayDeque<>();
+
+  protected ClockCache(long maxSizeInBytes) {
+    Preconditions.checkArgument(maxSizeInBytes > 0, "Cache size must be positive");
+    _maxSizeInBytes = maxSizeInBytes;
+  }
+
+  public long getMaxSizeInBytes() {
+    return _maxSizeInBytes;
+  }
+
+  /**
+   * Returns whether an entry of the given size can be cached. Can be used to skip building the value to cache.
+   */
+  protected boolean isCacheable(long entrySizeInBytes) {
+    return entrySizeInBytes <= _maxSizeInBytes / MAX_ENTRY_SIZE_FRACTION;
+  }
+
+  /**
+   * Returns the cached value for the given key and marks it as referenced, or <code>null</code> if it is not cached.
+   */
+  @Nullable
+  protected V getValue(@Nonnull K key) {
+    Entry<K, V> entry = _cache.get(key);
+    if (entry == null) {
+      return null;
+    }
+    // Avoid writing the shared entry on every hit.
+    if (!entry._referenced) {
+      entry._referenced = true;
+    }
+    return entry._value;
+  }
+
+  /**
+   * Caches the value, replacing the value cached for the same key if any, then evicts entries until the cache fits in
+   * its max size.
+   *
+   * @return Whether the value got cached
+   */
+  protected boolean putValue(@Nonnull K key, @Nonnull V value, long entrySizeInBytes) {
+    if (!isCacheable(entrySizeInBytes)) {
+      return false;
+    }
+    _lock.lock();
+    try {
+      insert(key, value, entrySizeInBytes);
+    } finally {
+      _lock.unlock();
+    }
+    return true;
+  }
+
+  /**
+   * Same as {@link #putValue(Object, Object, long)}, but does not cache the value if another thread is inserting into
+   * the cache, so that the caller never waits on the lock.
+   *
+   * @return Whether the value got cached
+   */
+  protected boolean tryPutValue(@Nonnull K key, @Nonnull V value, long entrySizeInBytes) {
+    if (!isCacheable(entrySizeInBytes) || !_lock.tryLock()) {
+      return false;
+    }
+    try {
+      insert(key, value, entrySizeInBytes);
+    } finally {
+      _lock.unlock();
+    }
+    return true;
+  }
+
+  /**
+   * Should be called while holding the lock.
+   */
+  private void insert(K key, V value, long entrySizeInBytes) {
+    Entry<K, V> entry = new Entry<>(key, value, entrySizeInBytes);
+    Entry<K, V> oldEntry = _cache.put(key, entry);
+    if (oldEntry != null) {
+      release(oldEntry);
+    }
+    _clock.addLast(entry);
+    _sizeInBytes.addAndGet(entrySizeInBytes);
+    onAdded(value, entrySizeInBytes);
+
+    // Amortized clean up of the removed entries, which are otherwise only dropped when the cache is full.
+    if (_clock.size() > 2 * _cache.size() + MIN_NUM_REMOVED_ENTRIES_TO_CLEAN_UP) {
+      Iterator<Entry<K, V>> iterator = _clock.iterator();
+      while (iterator.hasNext()) {
+        if (iterator.next()._value == null) {
+          iterator.remove();
+        }
+      }
+    }
+
+    // Entries referenced since the last sweep get a second chance, but at most one per entry in the cache, so that
+    // hot entries cannot prevent the eviction.
+    int numSecondChances = _clock.size();
+    while (_sizeInBytes.get() > _maxSizeInBytes && !_clock.isEmpty()) {
+      Entry<K, V> candidate = _clock.pollFirst();
+      if (candidate._value == null) {
+        continue;
+      }
+      if (candidate._referenced && numSecondChances-- > 0) {
+        candidate._referenced = false;
+        _clock.addLast(candidate);
+      } else {
+        remove(candidate);
+      }
+    }
+    updateGauges();
+  }
+
+  /**
+   * Evicts one entry whose value matches the given predicate, looking at no more than the given number of entries from
+   * the clock hand. Matching entries referenced since the last sweep get a second chance, other entries are skipped
+   * without losing their reference.
+   *
+   * @return Whether an entry got evicted
+   */
+  protected boolean evictValue(@Nonnull Predicate<? super V> predicate, int maxNumCandidates) {
+    _lock.lock();
+    try {
+      int numCandidates = Math.min(maxNumCandidates, _clock.size());
+      for (int i = 0; i < numCandidates; i++) {
+        Entry<K, V> candidate = _clock.pollFirst();
+        V value = candidate._value;
+        if (value == null) {
+          continue;
+        }
+        if (predicate.apply(value)) {
+          if (!candidate._referenced) {
+            remove(candidate);
+            updateGauges();
+            return true;
+          }
+          candidate._referenced = false;
+        }
+        _clock.addLast(candidate);
+      }
+      return false;
+    } finally {
+      _lock.unlock();
+    }
+  }
+
+  /**
+   * Removes the given value if it is still cached for the given key.
+   */
+  protected void removeValue(@Nonnull K key, @Nonnull V value) {
+    Entry<K, V> entry = _cache.get(key);
+    if (entry != null && entry._value == value && remove(entry)) {
+      updateGauges();
+    }
+  }
+
+  /**
+   * Removes all the cached values whose key matches the given predicate. Iterates over all the entries, but without
+   * blocking the lookups and the insertions.
+   *
+   * @return Number of removed values
+   */
+  protected int removeValues(@Nonnull Predicate<? super K> predicate) {
+    int numRemovedValues = 0;
+    Iterator<Map.Entry<K, Entry<K, V>>> iterator = _cache.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Entry<K, V> entry = iterator.next().getValue();
+      if (predicate.apply(entry._key) && remove(entry)) {
+        numRemovedValues++;
+      }
+    }
+    updateGauges();
+    return numRemovedValues;
+  }
+
+  /**
+   * Removes the entry from the map if it is still cached. The entry stays in the clock until the sweep reaches it.
+   *
+   * @return Whether the entry got removed by this call
+   */
+  private boolean remove(Entry<K, V> entry) {
+    if (_cache.remove(entry._key, entry)) {
+      release(entry);
+      return true;
+    } else {
+      return false;
+    }
+  }
+
+  /**
+   * Should be called exactly once per entry, after removing it from the map.
+   */
+  private void release(Entry<K, V> entry) {
+    V value = entry._value;
+    entry._value = null;
+    _sizeInBytes.addAndGet(-entry._sizeInBytes);
+    onRemoved(value, entry._sizeInBytes);
+  }
+
+  /**
+   * Invoked after a value is cached, while holding the lock.
+   */
+  protected void onAdded(@Nonnull V value, long entrySizeInBytes) {
+  }
+
+  /**
+   * Invoked after a cached value is removed or evicted, not necessarily while holding the lock.
+   */
+  protected void onRemoved(@Nonnull V value, long entrySizeInBytes) {
+  }
+
+  /**
+   * Invoked after the content of the cache changes, to publish the number of entries and the size of the cache.
+   */
+  protected void updateGauges() {
+  }
+
+  public int getNumEntries() {
+    return _cache.size();
+  }
+
+  public long getSizeInBytes() {
+    return _sizeInBytes.get();
+  }
+
+  private static final class Entry<K, V> {
+    private final K _key;
+    private final long _sizeInBytes;
+    // Set to null once the entry is removed
+    private volatile V _value;
+    private volatile boolean _referenced = false;
+
+    Entry(K key, V value, long sizeInBytes) {
+      _key = key;
+      _value = value;
+      _sizeInBytes = sizeInBytes;
+    }
+  }
+}
@@ -0,0 +1,152 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.cache;
+
+import com.google.common.base.Predicate;
+import com.linkedin.pinot.common.metrics.ServerGauge;
+import com.linkedin.pinot.common.metrics.ServerMeter;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.segment.SegmentMetadata;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The <code>SegmentResultCache</code> class is a cache of the intermediate results of aggregation queries on
+ * immutable segments.
+ * <p>The cache key is the normalized broker request (see {@link #normalize(BrokerRequest)}) plus the segment name and
+ * CRC, so a segment replaced with new data never hits the results of its previous version. Entries of a segment are
+ * also explicitly invalidated when the segment gets refreshed or reloaded.
+ */
+public class SegmentResultCache extends ClockCache<SegmentResultCache.Key, CachedSegmentResult> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentResultCache.class);
+
+  private final ServerMetrics _serverMetrics;
+
+  public SegmentResultCache(long maxSizeInBytes, @Nonnull ServerMetrics serverMetrics) {
+    super(maxSizeInBytes);
+    _serverMetrics = serverMetrics;
+    LOGGER.info("Initialized segment result cache with max size: {} bytes", maxSizeInBytes);
+  }
+
+  /**
+   * Returns whether the results of the query can be cached. Only aggregation (only or group-by) queries are cached,
+   * selection results are usually small and cheap to compute.
+   */
+  public static boolean isCacheable(@Nonnull BrokerRequest brokerRequest) {
+    return brokerRequest.isSetAggregationsInfo() && !brokerRequest.isSetSelections();
+  }
+
+  /**
+   * Returns a copy of the broker request with only the parts affecting the segment level results (table, filter,
+   * aggregations, group-by columns), to be used as part of the cache key.
+   */
+  @Nonnull
+  public static BrokerRequest normalize(@Nonnull BrokerRequest brokerRequest) {
+    BrokerRequest normalizedRequest = brokerRequest.deepCopy();
+    normalizedRequest.unsetBucketHashKey();
+    normalizedRequest.unsetEnableTrace();
+    normalizedRequest.unsetResponseFormat();
+    normalizedRequest.unsetDebugOptions();
+    // TOP N is only applied when combining the segment results.
+    if (normalizedRequest.isSetGroupBy()) {
+      normalizedRequest.getGroupBy().unsetTopN();
+    }
+    // Filter query ids are not stable across compilations of the same query.
+    RequestUtils.renumberFilterQueries(normalizedRequest);
+    return normalizedRequest;
+  }
+
+  @Nullable
+  public CachedSegmentResult get(@Nonnull BrokerRequest normalizedRequest, @Nonnull SegmentMetadata segmentMetadata) {
+    CachedSegmentResult cachedResult = getValue(new Key(normalizedRequest, segmentMetadata));
+    String tableName = normalizedRequest.getQuerySource().getTableName();
+    if (cachedResult != null) {
+      _serverMetrics.addMeteredTableValue(tableName, ServerMeter.SEGMENT_RESULT_CACHE_HITS, 1L);
+    } else {
+      _serverMetrics.addMeteredTableValue(tableName, ServerMeter.SEGMENT_RESULT_CACHE_MISSES, 1L);
+    }
+    return cachedResult;
+  }
+
+  public void put(@Nonnull BrokerRequest normalizedRequest, @Nonnull SegmentMetadata segmentMetadata,
+      @Nonnull CachedSegmentResult cachedResult) {
+    putValue(new Key(normalizedRequest, segmentMetadata), cachedResult, cachedResult.getSizeInBytes());
+  }
+
+  /**
+   * Removes all the cached results of the given segment.
+   */
+  public void invalidate(@Nonnull final String tableName, @Nonnull final String segmentName) {
+    int numInvalidatedEntries = removeValues(new Predicate<Key>() {
+      @Override
+      public boolean apply(Key key) {
+        return key._segmentName.equals(segmentName) && tableName.equals(key.getTableName());
+      }
+    });
+    LOGGER.info("Invalidated {} cached results for segment: {} of table: {}", numInvalidatedEntries, segmentName,
+        tableName);
+  }
+
+  @Override
+  protected void updateGauges() {
+    _serverMetrics.setValueOfGlobalGauge(ServerGauge.SEGMENT_RESULT_CACHE_ENTRIES, getNumEntries());
+    _serverMetrics.setValueOfGlobalGauge(ServerGauge.SEGMENT_RESULT_CACHE_SIZE_IN_BYTES, getSizeInBytes());
+  }
+
+  static final class Key {
+    private final BrokerRequest _normalizedRequest;
+    private final String _segmentName;
+    private final String _crc;
+    private final int _hashCode;
+
+    Key(BrokerRequest normalizedRequest, SegmentMetadata segmentMetadata) {
+      _normalizedRequest = normalizedRequest;
+      _segmentName = segmentMetadata.getName();
+      _crc = segmentMetadata.getCrc();
+      int hashCode = normalizedRequest.hashCode();
+      hashCode = 31 * hashCode + _segmentName.hashCode();
+      hashCode = 31 * hashCode + (_crc != null ? _crc.hashCode() : 0);
+      _hashCode = hashCode;
+    }
+
+    String getTableName() {
+      return _normalizedRequest.getQuerySource().getTableName();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) o;
+      return _hashCode == that._hashCode && _segmentName.equals(that._segmentName) && (_crc != null ? _crc.equals(
+          that._crc) : that._crc == null) && _normalizedRequest.equals(that._normalizedRequest);
+    }
+
+    @Override
+    public int hashCode() {
+      return _hashCode;
+    }
+  }
+}
@@ -15,6 +15,10 @@
  */
 package com.linkedin.pinot.core.query.config;
 
+import com.linkedin.pinot.core.common.datatable.DataTableBuilder;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationException;
 
@@ -32,6 +36,26 @@ public class QueryExecutorConfig {
   public static final String QUERY_PLANNER = "queryPlanner";
   // Prefix key of TimeOut
   public static final String TIME_OUT = "timeout";
+  // Max size in bytes of the segment level result cache, non-positive value disables the cache
+  public static final String SEGMENT_RESULT_CACHE_SIZE_IN_BYTES = "segmentResultCache.sizeInBytes";
+  // Max size in bytes of the server wide inverted index bitmap cache, non-positive value disables the cache
+  public static final String BITMAP_CACHE_SIZE_IN_BYTES = "bitmapCache.sizeInBytes";
+  public static final long DEFAULT_BITMAP_CACHE_SIZE_IN_BYTES = 64L * 1024 * 1024;
+  // Max size in bytes of the server wide decompressed raw index chunk cache, non-positive value disables the cache
+  public static final String CHUNK_CACHE_SIZE_IN_BYTES = "chunkCache.sizeInBytes";
+  public static final long DEFAULT_CHUNK_CACHE_SIZE_IN_BYTES = 64L * 1024 * 1024;
+  // Default max percentage of the chunk cache used by one table
+  public static final String CHUNK_CACHE_TABLE_QUOTA_PERCENT = "chunkCache.tableQuotaPercent";
+  public static final int DEFAULT_CHUNK_CACHE_TABLE_QUOTA_PERCENT = 50;
+  // Prefix key of the per table max size in bytes of the chunk cache, e.g. chunkCache.tableQuotaInBytes.myTable
+  public static final String CHUNK_CACHE_TABLE_QUOTA_IN_BYTES = "chunkCache.tableQuotaInBytes";
+  // Version of the data tables sent to the brokers, only switch to version 3 after all the brokers can read it
+  public static final String DATA_TABLE_VERSION = "dataTable.version";
+  // Minimum number of documents of each sub-task when splitting large segments, non-positive value disables splitting
+  public static final String SPLIT_MIN_NUM_DOCS_PER_SPLIT = "split.minNumDocsPerSplit";
+  public static final int DEFAULT_SPLIT_MIN_NUM_DOCS_PER_SPLIT = 1_000_000;
+  // Number of sub-tasks to reach for each query when splitting large segments, default to the number of cores
+  public static final String SPLIT_PARALLELISM = "split.parallelism";
 
   private static final String[] REQUIRED_KEYS = {};
 
@@ -39,6 +63,14 @@ public class QueryExecutorConfig {
   private SegmentPrunerConfig _segmentPrunerConfig;
   private QueryPlannerConfig _queryPlannerConfig;
   private final long _timeOutMs;
+  private final long _segmentResultCacheSizeInBytes;
+  private final long _bitmapCacheSizeInBytes;
+  private final long _chunkCacheSizeInBytes;
+  private final int _chunkCacheTableQuotaPercent;
+  private final Map<String, Long> _chunkCacheTableQuotasInBytes = new HashMap<>();
+  private final int _dataTableVersion;
+  private final int _splitMinNumDocsPerSplit;
+  private final int _splitParallelism;
 
   public QueryExecutorConfig(Configuration config) throws ConfigurationException {
     _queryExecutorConfig = config;
@@ -46,6 +78,22 @@ public class QueryExecutorConfig {
     _segmentPrunerConfig = new SegmentPrunerConfig(_queryExecutorConfig.subset(QUERY_PRUNER));
     _queryPlannerConfig = new QueryPlannerConfig(_queryExecutorConfig.subset(QUERY_PLANNER));
     _timeOutMs = _queryExecutorConfig.getLong(TIME_OUT, -1);
+    _segmentResultCacheSizeInBytes = _queryExecutorConfig.getLong(SEGMENT_RESULT_CACHE_SIZE_IN_BYTES, -1);
+    _bitmapCacheSizeInBytes =
+        _queryExecutorConfig.getLong(BITMAP_CACHE_SIZE_IN_BYTES, DEFAULT_BITMAP_CACHE_SIZE_IN_BYTES);
+    _chunkCacheSizeInBytes = _queryExecutorConfig.getLong(CHUNK_CACHE_SIZE_IN_BYTES, DEFAULT_CHUNK_CACHE_SIZE_IN_BYTES);
+    _chunkCacheTableQuotaPercent =
+        _queryExecutorConfig.getInt(CHUNK_CACHE_TABLE_QUOTA_PERCENT, DEFAULT_CHUNK_CACHE_TABLE_QUOTA_PERCENT);
+    Configuration chunkCacheTableQuotaConfig = _queryExecutorConfig.subset(CHUNK_CACHE_TABLE_QUOTA_IN_BYTES);
+    Iterator<String> tableNames = chunkCacheTableQuotaConfig.getKeys();
+    while (tableNames.hasNext()) {
+      String tableName = tableNames.next();
+      _chunkCacheTableQuotasInBytes.put(tableName, chunkCacheTableQuotaConfig.getLong(tableName));
+    }
+    _dataTableVersion = _queryExecutorConfig.getInt(DATA_TABLE_VERSION, DataTableBuilder.VERSION_2);
+    _splitMinNumDocsPerSplit =
+        _queryExecutorConfig.getInt(SPLIT_MIN_NUM_DOCS_PER_SPLIT, DEFAULT_SPLIT_MIN_NUM_DOCS_PER_SPLIT);
+    _splitParallelism = _queryExecutorConfig.getInt(SPLIT_PARALLELISM, Runtime.getRuntime().availableProcessors());
   }
 
   private void checkRequiredKeys() throws ConfigurationException {
@@ -71,4 +119,36 @@ public class QueryExecutorConfig {
   public long getTimeOut() {
     return _timeOutMs;
   }
+
+  public long getSegmentResultCacheSizeInBytes() {
+    return _segmentResultCacheSizeInBytes;
+  }
+
+  public long getBitmapCacheSizeInBytes() {
+    return _bitmapCacheSizeInBytes;
+  }
+
+  public long getChunkCacheSizeInBytes() {
+    return _chunkCacheSizeInBytes;
+  }
+
+  public long getChunkCacheDefaultTableQuotaInBytes() {
+    return _chunkCacheSizeInBytes * _chunkCacheTableQuotaPercent / 100;
+  }
+
+  public Map<String, Long> getChunkCacheTableQuotasInBytes() {
+    return _chunkCacheTableQuotasInBytes;
+  }
+
+  public int getDataTableVersion() {
+    return _dataTableVersion;
+  }
+
+  public int getSplitMinNumDocsPerSplit() {
+    return _splitMinNumDocsPerSplit;
+  }
+
+  public int getSplitParallelism() {
+    return _splitParallelism;
+  }
 }
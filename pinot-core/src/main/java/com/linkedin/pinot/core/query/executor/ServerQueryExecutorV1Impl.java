@@ -35,6 +35,9 @@ import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.plan.Plan;
 import com.linkedin.pinot.core.plan.maker.InstancePlanMakerImplV2;
 import com.linkedin.pinot.core.plan.maker.PlanMaker;
+import com.linkedin.pinot.core.query.cache.BitmapCache;
+import com.linkedin.pinot.core.query.cache.ChunkCache;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
 import com.linkedin.pinot.core.query.config.QueryExecutorConfig;
 import com.linkedin.pinot.core.query.exception.BadQueryRequestException;
 import com.linkedin.pinot.core.query.pruner.SegmentPrunerService;
@@ -58,6 +61,7 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
   private InstanceDataManager _instanceDataManager = null;
   private SegmentPrunerService _segmentPrunerService = null;
   private PlanMaker _planMaker = null;
+  private SegmentResultCache _segmentResultCache = null;
   private volatile boolean _isStarted = false;
   private long _defaultTimeOutMs = 15000;
   private boolean _printQueryPlan = false;
@@ -83,8 +87,29 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
     LOGGER.info("Default timeout for query executor : {}", _defaultTimeOutMs);
     LOGGER.info("Trying to build SegmentPrunerService");
     _segmentPrunerService = new SegmentPrunerServiceImpl(queryExecutorConfig.getPrunerConfig());
+    if (queryExecutorConfig.getSegmentResultCacheSizeInBytes() > 0) {
+      LOGGER.info("Trying to build SegmentResultCache");
+      _segmentResultCache =
+          new SegmentResultCache(queryExecutorConfig.getSegmentResultCacheSizeInBytes(), serverMetrics);
+    }
+    if (queryExecutorConfig.getBitmapCacheSizeInBytes() > 0) {
+      LOGGER.info("Trying to build BitmapCache");
+      BitmapCache.setInstance(new BitmapCache(queryExecutorConfig.getBitmapCacheSizeInBytes(), serverMetrics));
+    } else {
+      BitmapCache.setInstance(null);
+    }
+    if (queryExecutorConfig.getChunkCacheSizeInBytes() > 0) {
+      LOGGER.info("Trying to build ChunkCache");
+      ChunkCache.setInstance(new ChunkCache(queryExecutorConfig.getChunkCacheSizeInBytes(),
+          queryExecutorConfig.getChunkCacheDefaultTableQuotaInBytes(),
+          queryExecutorConfig.getChunkCacheTableQuotasInBytes(), serverMetrics));
+    } else {
+      ChunkCache.setInstance(null);
+    }
+    LOGGER.info("Using data table version: {}", queryExecutorConfig.getDataTableVersion());
+    DataTableBuilder.setCurrentDataTableVersion(queryExecutorConfig.getDataTableVersion());
     LOGGER.info("Trying to build QueryPlanMaker");
-    _planMaker = new InstancePlanMakerImplV2(queryExecutorConfig);
+    _planMaker = new InstancePlanMakerImplV2(queryExecutorConfig, _segmentResultCache);
     LOGGER.info("Trying to build QueryExecutorTimer");
   }
 
@@ -262,6 +287,13 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
     _resourceTimeOutMsMap.put(resource, timeOutMs);
   }
 
+  @Override
+  public void invalidateSegmentResults(String tableName, String segmentName) {
+    if (_segmentResultCache != null) {
+      _segmentResultCache.invalidate(tableName, segmentName);
+    }
+  }
+
   private long getResourceTimeOut(BrokerRequest brokerRequest) {
     try {
       String resourceName = brokerRequest.getQuerySource().getTableName();
@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.pruner;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.FilterOperator;
+import com.linkedin.pinot.common.utils.request.FilterQueryTree;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
+import com.linkedin.pinot.core.common.DataSource;
+import com.linkedin.pinot.core.common.predicate.InPredicate;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
+import java.util.List;
+import javax.annotation.Nonnull;
+import org.apache.commons.configuration.Configuration;
+
+
+/**
+ * Implementation of {@link SegmentPruner} that uses the column bloom filters to prune segments for point lookups.
+ * <p>Only columns with bloom filter loaded (configured in the table indexing config) can be used for pruning.
+ * <p>Pruning only happens on the servers: the broker does not read the bloom filters, and still routes the query to
+ * all the segments.
+ */
+public class BloomFilterSegmentPruner implements SegmentPruner {
+
+  @Override
+  public void init(Configuration config) {
+  }
+
+  @Override
+  public boolean prune(@Nonnull IndexSegment segment, @Nonnull BrokerRequest brokerRequest) {
+    FilterQueryTree filterQueryTree = RequestUtils.generateFilterQueryTree(brokerRequest);
+    return (filterQueryTree != null) && pruneSegment(segment, filterQueryTree);
+  }
+
+  @Override
+  public String toString() {
+    return "BloomFilterSegmentPruner";
+  }
+
+  /**
+   * Helper method to determine if a segment can be pruned based on the column bloom filters. The algorithm is as
+   * follows:
+   *
+   * <ul>
+   *   <li> For leaf node: Returns true if it is an EQUALITY or IN predicate on a column with bloom filter, and none of
+   *   the values might be contained in the column, false otherwise. </li>
+   *   <li> For non-leaf AND node: True if any of its children returned true, false otherwise. </li>
+   *   <li> For non-leaf OR node: True if all its children returned true, false otherwise. </li>
+   * </ul>
+   *
+   * @param segment Index segment.
+   * @param filterQueryTree Filter tree for the query.
+   * @return True if segment can be pruned out, false otherwise.
+   */
+  private boolean pruneSegment(@Nonnull IndexSegment segment, @Nonnull FilterQueryTree filterQueryTree) {
+    FilterOperator filterOperator = filterQueryTree.getOperator();
+    List<FilterQueryTree> children = filterQueryTree.getChildren();
+
+    if (children != null && !children.isEmpty()) {
+      // Parent node
+      switch (filterOperator) {
+        case AND:
+          for (FilterQueryTree child : children) {
+            if (pruneSegment(segment, child)) {
+              return true;
+            }
+          }
+          return false;
+        case OR:
+          for (FilterQueryTree child : children) {
+            if (!pruneSegment(segment, child)) {
+              return false;
+            }
+          }
+          return true;
+        default:
+          throw new IllegalStateException("Unsupported filter operator: " + filterOperator);
+      }
+    }
+
+    // Leaf Node
+
+    // Skip operator other than EQUALITY and IN
+    if ((filterOperator != FilterOperator.EQUALITY) && (filterOperator != FilterOperator.IN)) {
+      return false;
+    }
+
+    DataSource dataSource = segment.getDataSource(filterQueryTree.getColumn());
+    if (dataSource == null) {
+      return false;
+    }
+    BloomFilterReader bloomFilter = dataSource.getBloomFilter();
+    if (bloomFilter == null) {
+      return false;
+    }
+
+    // Convert the values to the data type of the column so that they have the same string representation as the
+    // values added into the bloom filter.
+    FieldSpec.DataType dataType = dataSource.getDataSourceMetadata().getDataType();
+    switch (dataType) {
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+      case STRING:
+        break;
+      default:
+        return false;
+    }
+    for (String values : filterQueryTree.getValue()) {
+      for (String value : values.split(InPredicate.DELIMITER)) {
+        if (bloomFilter.mightContain(AbstractSegmentPruner.getValue(value, dataType).toString())) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.scheduler;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+
+
+/**
+ * Per-query view of the shared query worker pool.
+ * - At most 'maxConcurrentTasks' tasks of the query run on the underlying executor at the same time, the remaining
+ *   tasks are queued locally (without blocking the submitter) and dispatched as running tasks complete.
+ * - The wall time spent by the tasks on worker threads is accounted, so that schedulers can charge the query's
+ *   resource usage to its scheduler group.
+ */
+public class BoundedAccountingExecutor extends AbstractExecutorService {
+  private final Executor _delegate;
+  private final int _maxConcurrentTasks;
+  private final AtomicLong _totalTaskTimeNs = new AtomicLong();
+
+  // Guarded by 'this'
+  private final Queue<Runnable> _pendingTasks = new ArrayDeque<>();
+  private int _numRunningTasks = 0;
+  private boolean _shutdown = false;
+
+  public BoundedAccountingExecutor(@Nonnull Executor delegate, int maxConcurrentTasks) {
+    Preconditions.checkNotNull(delegate);
+    Preconditions.checkArgument(maxConcurrentTasks > 0);
+    _delegate = delegate;
+    _maxConcurrentTasks = maxConcurrentTasks;
+  }
+
+  @Override
+  public void execute(@Nonnull Runnable task) {
+    synchronized (this) {
+      if (_shutdown) {
+        throw new RejectedExecutionException("Executor has been shut down");
+      }
+      if (_numRunningTasks >= _maxConcurrentTasks) {
+        _pendingTasks.add(task);
+        return;
+      }
+      _numRunningTasks++;
+    }
+    dispatch(task);
+  }
+
+  /**
+   * Returns the total wall time (in nanoseconds) spent by the completed tasks on worker threads.
+   */
+  public long getTotalTaskTimeNs() {
+    return _totalTaskTimeNs.get();
+  }
+
+  public int getMaxConcurrentTasks() {
+    return _maxConcurrentTasks;
+  }
+
+  private void dispatch(final Runnable task) {
+    try {
+      _delegate.execute(new Runnable() {
+        @Override
+        public void run() {
+          long startTimeNs = System.nanoTime();
+          try {
+            task.run();
+          } finally {
+            _totalTaskTimeNs.addAndGet(System.nanoTime() - startTimeNs);
+            onTaskComplete();
+          }
+        }
+      });
+    } catch (RuntimeException e) {
+      onTaskComplete();
+      throw e;
+    }
+  }
+
+  private void onTaskComplete() {
+    Runnable nextTask;
+    synchronized (this) {
+      nextTask = _pendingTasks.poll();
+      if (nextTask == null) {
+        _numRunningTasks--;
+        notifyAll();
+        return;
+      }
+    }
+    dispatch(nextTask);
+  }
+
+  @Override
+  public synchronized void shutdown() {
+    _shutdown = true;
+  }
+
+  @Nonnull
+  @Override
+  public synchronized List<Runnable> shutdownNow() {
+    _shutdown = true;
+    List<Runnable> pendingTasks = new ArrayList<>(_pendingTasks);
+    _pendingTasks.clear();
+    return pendingTasks;
+  }
+
+  @Override
+  public synchronized boolean isShutdown() {
+    return _shutdown;
+  }
+
+  @Override
+  public synchronized boolean isTerminated() {
+    return _shutdown && _numRunningTasks == 0;
+  }
+
+  @Override
+  public synchronized boolean awaitTermination(long timeout, @Nonnull TimeUnit unit)
+      throws InterruptedException {
+    long endTimeNs = System.nanoTime() + unit.toNanos(timeout);
+    while (!isTerminated()) {
+      long remainingNs = endTimeNs - System.nanoTime();
+      if (remainingNs <= 0) {
+        return false;
+      }
+      TimeUnit.NANOSECONDS.timedWait(this, remainingNs);
+    }
+    return true;
+  }
+}
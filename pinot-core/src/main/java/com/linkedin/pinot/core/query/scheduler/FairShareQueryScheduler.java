@@ -0,0 +1,386 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.scheduler;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.linkedin.pinot.common.exception.QueryException;
+import com.linkedin.pinot.common.metrics.ServerGauge;
+import com.linkedin.pinot.common.metrics.ServerMeter;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.metrics.ServerQueryPhase;
+import com.linkedin.pinot.common.query.QueryExecutor;
+import com.linkedin.pinot.common.query.QueryRequest;
+import com.linkedin.pinot.common.query.context.TimerContext;
+import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.core.common.datatable.DataTableImplV2;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.Nonnull;
+import org.apache.commons.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Query scheduler providing weighted fair share of the query runner and worker threads between tables.
+ * <ul>
+ *   <li>Queries are queued per table in a bounded queue, queries arriving at a full queue are rejected right away.</li>
+ *   <li>Each table has an optional token bucket limiting the rate at which its queries are started.</li>
+ *   <li>When a query runner thread is available, the query from the table with the lowest weighted resource usage
+ *   (runner and worker thread time divided by the table weight) is started.</li>
+ *   <li>Each query can run at most 'threads_per_query' tasks on the query worker threads at the same time.</li>
+ *   <li>Tables without pending or running queries are dropped once forgetting them cannot change their share, so the
+ *   scheduling state only covers the recently queried tables.</li>
+ * </ul>
+ *
+ * Configuration (under 'pinot.query.scheduler'):
+ * <ul>
+ *   <li>'max_pending_per_table': maximum number of queued queries per table (default: 50).</li>
+ *   <li>'table_tokens_per_second': rate at which queries of one table can be started, non-positive value disables
+ *   the token bucket (default: -1).</li>
+ *   <li>'table_token_bucket_size': maximum burst of queries of one table (default: 'table_tokens_per_second').</li>
+ *   <li>'threads_per_query': maximum number of concurrent worker threads per query (default: half of the worker
+ *   threads).</li>
+ *   <li>'table_weights.&lt;tableName&gt;': weight of the table for fair share (default: 1.0).</li>
+ * </ul>
+ */
+public class FairShareQueryScheduler extends QueryScheduler {
+  private static final Logger LOGGER = LoggerFactory.getLogger(FairShareQueryScheduler.class);
+
+  public static final String MAX_PENDING_PER_TABLE_CONFIG_KEY = "max_pending_per_table";
+  public static final String TABLE_TOKENS_PER_SECOND_CONFIG_KEY = "table_tokens_per_second";
+  public static final String TABLE_TOKEN_BUCKET_SIZE_CONFIG_KEY = "table_token_bucket_size";
+  public static final String THREADS_PER_QUERY_CONFIG_KEY = "threads_per_query";
+  public static final String TABLE_WEIGHTS_CONFIG_PREFIX = "table_weights";
+
+  private static final int DEFAULT_MAX_PENDING_PER_TABLE = 50;
+  private static final double DEFAULT_TABLE_TOKENS_PER_SECOND = -1;
+  private static final double DEFAULT_TABLE_WEIGHT = 1.0;
+
+  private final int _maxPendingPerTable;
+  private final double _tableTokensPerSecond;
+  private final double _tableTokenBucketSize;
+  private final int _threadsPerQuery;
+  private final Configuration _tableWeights;
+
+  private final Lock _lock = new ReentrantLock();
+  private final Condition _queryAvailable = _lock.newCondition();
+  // Guarded by _lock
+  private final Map<String, SchedulerGroup> _schedulerGroups = new HashMap<>();
+  private int _numPendingQueries = 0;
+
+  private final Semaphore _runnerPermits;
+  private final Thread _dispatcherThread;
+  private volatile boolean _running = true;
+
+  public FairShareQueryScheduler(@Nonnull Configuration schedulerConfig, @Nonnull QueryExecutor queryExecutor) {
+    super(schedulerConfig, queryExecutor);
+
+    _maxPendingPerTable = schedulerConfig.getInt(MAX_PENDING_PER_TABLE_CONFIG_KEY, DEFAULT_MAX_PENDING_PER_TABLE);
+    _tableTokensPerSecond =
+        schedulerConfig.getDouble(TABLE_TOKENS_PER_SECOND_CONFIG_KEY, DEFAULT_TABLE_TOKENS_PER_SECOND);
+    _tableTokenBucketSize =
+        Math.max(1, schedulerConfig.getDouble(TABLE_TOKEN_BUCKET_SIZE_CONFIG_KEY, _tableTokensPerSecond));
+    _threadsPerQuery = schedulerConfig.getInt(THREADS_PER_QUERY_CONFIG_KEY, Math.max(1, numQueryWorkerThreads / 2));
+    Preconditions.checkArgument(_maxPendingPerTable > 0, "Max pending queries per table must be positive");
+    Preconditions.checkArgument(_threadsPerQuery > 0, "Threads per query must be positive");
+    _tableWeights = schedulerConfig.subset(TABLE_WEIGHTS_CONFIG_PREFIX);
+    LOGGER.info("Max pending queries per table: {}, table tokens per second: {}, token bucket size: {}, "
+            + "threads per query: {}", _maxPendingPerTable, _tableTokensPerSecond, _tableTokenBucketSize,
+        _threadsPerQuery);
+
+    _runnerPermits = new Semaphore(numQueryRunnerThreads);
+    _dispatcherThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        dispatchQueries();
+      }
+    }, "pqs-dispatcher");
+    _dispatcherThread.setDaemon(true);
+    _dispatcherThread.start();
+  }
+
+  @Override
+  public ListenableFuture<DataTable> submit(@Nonnull QueryRequest queryRequest) {
+    Preconditions.checkNotNull(queryRequest);
+
+    TimerContext.Timer schedulerWaitTimer =
+        queryRequest.getTimerContext().startNewPhaseTimer(ServerQueryPhase.SCHEDULER_WAIT);
+    String tableName = queryRequest.getTableName();
+    SchedulerQueryContext queryContext = new SchedulerQueryContext(queryRequest);
+    int numPendingQueries;
+
+    _lock.lock();
+    try {
+      SchedulerGroup schedulerGroup = getOrCreateSchedulerGroup(tableName);
+      if (!schedulerGroup.isActive()) {
+        schedulerGroup.catchUpVirtualTime(getMinActiveVirtualTimeNs());
+      }
+      if (!schedulerGroup.addQuery(queryContext)) {
+        LOGGER.warn("Rejecting query for table: {}, {} queries already pending", tableName,
+            schedulerGroup.getNumPendingQueries());
+        schedulerWaitTimer.stopAndRecord();
+        queryRequest.getServerMetrics().addMeteredTableValue(tableName, ServerMeter.SCHEDULER_REJECTED_QUERIES, 1);
+        DataTable result = new DataTableImplV2();
+        result.addException(QueryException.getException(QueryException.QUERY_SCHEDULING_ERROR,
+            "Too many pending queries for table: " + tableName));
+        return Futures.immediateFuture(result);
+      }
+      numPendingQueries = schedulerGroup.getNumPendingQueries();
+      _numPendingQueries++;
+      _queryAvailable.signal();
+    } finally {
+      _lock.unlock();
+    }
+
+    ServerMetrics serverMetrics = queryRequest.getServerMetrics();
+    serverMetrics.setValueOfTableGauge(tableName, ServerGauge.SCHEDULER_PENDING_QUERIES, numPendingQueries);
+    return queryContext.getResultFuture();
+  }
+
+  /**
+   * Stops dispatching queries. Queries already running are not affected.
+   */
+  public void stop() {
+    _running = false;
+    _dispatcherThread.interrupt();
+  }
+
+  /**
+   * Main loop of the dispatcher thread: waits for a query runner thread to become available, then picks the next query
+   * to run.
+   */
+  private void dispatchQueries() {
+    while (_running) {
+      try {
+        _runnerPermits.acquire();
+        SchedulerGroup schedulerGroup;
+        SchedulerQueryContext queryContext;
+        _lock.lock();
+        try {
+          while ((schedulerGroup = selectSchedulerGroup()) == null) {
+            // Nothing can be started yet, wait for new queries or tokens.
+            long waitTimeNs = getNanosUntilToken();
+            if (waitTimeNs > 0) {
+              _queryAvailable.awaitNanos(waitTimeNs);
+            } else {
+              _queryAvailable.await();
+            }
+          }
+          queryContext = schedulerGroup.startQuery();
+          _numPendingQueries--;
+        } catch (InterruptedException e) {
+          _runnerPermits.release();
+          throw e;
+        } finally {
+          _lock.unlock();
+        }
+        // The runner permit is released when the query ends.
+        startQuery(schedulerGroup, queryContext);
+      } catch (InterruptedException e) {
+        if (_running) {
+          LOGGER.warn("Query dispatcher thread got interrupted, continue dispatching", e);
+        }
+      } catch (Throwable t) {
+        LOGGER.error("Caught exception while dispatching queries", t);
+      }
+    }
+    LOGGER.info("Query dispatcher thread stopped");
+  }
+
+  /**
+   * Selects the active scheduler group with available tokens and lowest weighted resource usage.
+   * Should be called with the lock held.
+   */
+  private SchedulerGroup selectSchedulerGroup() {
+    long nowNs = System.nanoTime();
+    SchedulerGroup selectedGroup = null;
+    for (SchedulerGroup schedulerGroup : _schedulerGroups.values()) {
+      if (schedulerGroup.peekQuery() == null || schedulerGroup.getNanosUntilToken(nowNs) > 0) {
+        continue;
+      }
+      if (selectedGroup == null || schedulerGroup.getVirtualTimeNs() < selectedGroup.getVirtualTimeNs()) {
+        selectedGroup = schedulerGroup;
+      }
+    }
+    return selectedGroup;
+  }
+
+  /**
+   * Returns the minimum time until one of the groups with pending queries gets a token, <code>0</code> if there is no
+   * pending query. Should be called with the lock held.
+   */
+  private long getNanosUntilToken() {
+    long nowNs = System.nanoTime();
+    long minWaitTimeNs = 0;
+    for (SchedulerGroup schedulerGroup : _schedulerGroups.values()) {
+      if (schedulerGroup.peekQuery() != null) {
+        long waitTimeNs = schedulerGroup.getNanosUntilToken(nowNs);
+        if (minWaitTimeNs == 0 || waitTimeNs < minWaitTimeNs) {
+          minWaitTimeNs = waitTimeNs;
+        }
+      }
+    }
+    return minWaitTimeNs;
+  }
+
+  private void startQuery(final SchedulerGroup schedulerGroup, SchedulerQueryContext queryContext) {
+    final QueryRequest queryRequest = queryContext.getQueryRequest();
+    final BoundedAccountingExecutor queryWorkerExecutor = new BoundedAccountingExecutor(queryWorkers, _threadsPerQuery);
+    updateGauges(queryRequest.getServerMetrics(), schedulerGroup);
+
+    ListenableFuture<DataTable> queryResultFuture;
+    try {
+      queryResultFuture = queryRunners.submit(new Callable<DataTable>() {
+        @Override
+        public DataTable call() {
+          long startTimeNs = System.nanoTime();
+          try {
+            return queryExecutor.processQuery(queryRequest, queryWorkerExecutor);
+          } finally {
+            long usedTimeNs = System.nanoTime() - startTimeNs + queryWorkerExecutor.getTotalTaskTimeNs();
+            endQuery(schedulerGroup, queryRequest.getServerMetrics(), usedTimeNs);
+          }
+        }
+      });
+    } catch (RuntimeException e) {
+      LOGGER.error("Caught exception while submitting query for table: {}", schedulerGroup.getName(), e);
+      TimerContext.Timer schedulerWaitTimer =
+          queryRequest.getTimerContext().getPhaseTimer(ServerQueryPhase.SCHEDULER_WAIT);
+      if (schedulerWaitTimer != null) {
+        schedulerWaitTimer.stopAndRecord();
+      }
+      endQuery(schedulerGroup, queryRequest.getServerMetrics(), 0);
+      queryContext.getResultFuture().setException(e);
+      return;
+    }
+    queryContext.getResultFuture().setFuture(queryResultFuture);
+  }
+
+  private void endQuery(SchedulerGroup schedulerGroup, ServerMetrics serverMetrics, long usedTimeNs) {
+    _lock.lock();
+    try {
+      schedulerGroup.endQuery(usedTimeNs);
+      if (!schedulerGroup.isActive()) {
+        removeIdleSchedulerGroups();
+      }
+    } finally {
+      _lock.unlock();
+    }
+    _runnerPermits.release();
+    updateGauges(serverMetrics, schedulerGroup);
+  }
+
+  private void updateGauges(ServerMetrics serverMetrics, SchedulerGroup schedulerGroup) {
+    int numPendingQueries;
+    int numRunningQueries;
+    _lock.lock();
+    try {
+      numPendingQueries = schedulerGroup.getNumPendingQueries();
+      numRunningQueries = schedulerGroup.getNumRunningQueries();
+    } finally {
+      _lock.unlock();
+    }
+    String tableName = schedulerGroup.getName();
+    serverMetrics.setValueOfTableGauge(tableName, ServerGauge.SCHEDULER_PENDING_QUERIES, numPendingQueries);
+    serverMetrics.setValueOfTableGauge(tableName, ServerGauge.SCHEDULER_RUNNING_QUERIES, numRunningQueries);
+  }
+
+  /**
+   * Should be called with the lock held.
+   */
+  private SchedulerGroup getOrCreateSchedulerGroup(String tableName) {
+    SchedulerGroup schedulerGroup = _schedulerGroups.get(tableName);
+    if (schedulerGroup == null) {
+      // Also drops the idle rate limited groups whose token bucket got refilled since their last query ended.
+      removeIdleSchedulerGroups();
+      double weight = _tableWeights.getDouble(tableName, DEFAULT_TABLE_WEIGHT);
+      if (weight <= 0) {
+        LOGGER.warn("Invalid weight: {} for table: {}, using default weight", weight, tableName);
+        weight = DEFAULT_TABLE_WEIGHT;
+      }
+      schedulerGroup =
+          new SchedulerGroup(tableName, weight, _maxPendingPerTable, _tableTokensPerSecond, _tableTokenBucketSize);
+      _schedulerGroups.put(tableName, schedulerGroup);
+    }
+    return schedulerGroup;
+  }
+
+  /**
+   * Removes the groups without pending or running queries which would be recreated in the same state: full token
+   * bucket, and virtual time not above the minimum virtual time of the active groups (which is where a reactivated
+   * group catches up to). When no group is active, the virtual times only matter relative to each other and are all
+   * dropped. Should be called with the lock held.
+   */
+  private void removeIdleSchedulerGroups() {
+    long nowNs = System.nanoTime();
+    double minActiveVirtualTimeNs = Double.MAX_VALUE;
+    for (SchedulerGroup schedulerGroup : _schedulerGroups.values()) {
+      if (schedulerGroup.isActive()) {
+        minActiveVirtualTimeNs = Math.min(minActiveVirtualTimeNs, schedulerGroup.getVirtualTimeNs());
+      }
+    }
+    Iterator<SchedulerGroup> iterator = _schedulerGroups.values().iterator();
+    while (iterator.hasNext()) {
+      SchedulerGroup schedulerGroup = iterator.next();
+      if (!schedulerGroup.isActive() && schedulerGroup.hasFullTokenBucket(nowNs)
+          && schedulerGroup.getVirtualTimeNs() <= minActiveVirtualTimeNs) {
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Should be called with the lock held.
+   */
+  private double getMinActiveVirtualTimeNs() {
+    double minVirtualTimeNs = 0;
+    boolean found = false;
+    for (SchedulerGroup schedulerGroup : _schedulerGroups.values()) {
+      if (schedulerGroup.isActive() && (!found || schedulerGroup.getVirtualTimeNs() < minVirtualTimeNs)) {
+        minVirtualTimeNs = schedulerGroup.getVirtualTimeNs();
+        found = true;
+      }
+    }
+    return minVirtualTimeNs;
+  }
+
+  int getNumSchedulerGroups() {
+    _lock.lock();
+    try {
+      return _schedulerGroups.size();
+    } finally {
+      _lock.unlock();
+    }
+  }
+
+  int getNumPendingQueries() {
+    _lock.lock();
+    try {
+      return _numPendingQueries;
+    } finally {
+      _lock.unlock();
+    }
+  }
+}
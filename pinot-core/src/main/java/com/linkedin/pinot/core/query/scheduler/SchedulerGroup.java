@@ -0,0 +1,155 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.scheduler;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+
+/**
+ * Scheduling state of one group of queries (one table) in {@link FairShareQueryScheduler}:
+ * - Bounded queue of pending queries.
+ * - Token bucket limiting the rate at which queries of the group are started.
+ * - Resource usage (runner and worker thread time) used for weighted fair share between groups.
+ *
+ * This class is not thread-safe, all accesses are guarded by the scheduler lock.
+ */
+class SchedulerGroup {
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+  private final String _name;
+  private final double _weight;
+  private final int _maxPendingQueries;
+  private final Queue<SchedulerQueryContext> _pendingQueries = new ArrayDeque<>();
+
+  // Token bucket, disabled if tokens per second is not positive.
+  private final double _tokensPerNs;
+  private final double _maxTokens;
+  private double _tokens;
+  private long _lastRefillTimeNs;
+
+  // Weighted resource usage in nanoseconds.
+  private double _virtualTimeNs = 0;
+  private int _numRunningQueries = 0;
+
+  SchedulerGroup(String name, double weight, int maxPendingQueries, double tokensPerSecond, double maxTokens) {
+    _name = name;
+    _weight = weight;
+    _maxPendingQueries = maxPendingQueries;
+    _tokensPerNs = tokensPerSecond / NANOS_PER_SECOND;
+    _maxTokens = maxTokens;
+    _tokens = maxTokens;
+    _lastRefillTimeNs = System.nanoTime();
+  }
+
+  String getName() {
+    return _name;
+  }
+
+  /**
+   * Adds a query into the pending queue.
+   *
+   * @return false if the pending queue is full.
+   */
+  boolean addQuery(SchedulerQueryContext queryContext) {
+    if (_pendingQueries.size() >= _maxPendingQueries) {
+      return false;
+    }
+    _pendingQueries.add(queryContext);
+    return true;
+  }
+
+  SchedulerQueryContext peekQuery() {
+    return _pendingQueries.peek();
+  }
+
+  /**
+   * Removes the first pending query, consumes one token and marks the query as running.
+   */
+  SchedulerQueryContext startQuery() {
+    SchedulerQueryContext queryContext = _pendingQueries.poll();
+    if (queryContext != null) {
+      if (isRateLimited()) {
+        _tokens -= 1;
+      }
+      _numRunningQueries++;
+    }
+    return queryContext;
+  }
+
+  /**
+   * Marks a query as finished, and charges its resource usage to the group.
+   */
+  void endQuery(long usedTimeNs) {
+    _numRunningQueries--;
+    _virtualTimeNs += usedTimeNs / _weight;
+  }
+
+  int getNumPendingQueries() {
+    return _pendingQueries.size();
+  }
+
+  int getNumRunningQueries() {
+    return _numRunningQueries;
+  }
+
+  boolean isActive() {
+    return !_pendingQueries.isEmpty() || _numRunningQueries > 0;
+  }
+
+  double getVirtualTimeNs() {
+    return _virtualTimeNs;
+  }
+
+  /**
+   * Groups becoming active again should not claim the time they were idle, so bump their virtual time to the minimum
+   * virtual time of the active groups.
+   */
+  void catchUpVirtualTime(double minActiveVirtualTimeNs) {
+    _virtualTimeNs = Math.max(_virtualTimeNs, minActiveVirtualTimeNs);
+  }
+
+  /**
+   * Returns the number of nanoseconds until a token is available, <code>0</code> if there is one already.
+   */
+  long getNanosUntilToken(long nowNs) {
+    if (!isRateLimited()) {
+      return 0;
+    }
+    _tokens = Math.min(_maxTokens, _tokens + (nowNs - _lastRefillTimeNs) * _tokensPerNs);
+    _lastRefillTimeNs = nowNs;
+    if (_tokens >= 1) {
+      return 0;
+    }
+    return (long) Math.ceil((1 - _tokens) / _tokensPerNs);
+  }
+
+  /**
+   * Returns true if the token bucket is disabled or full, i.e. the group can be dropped and recreated without granting
+   * it extra tokens.
+   */
+  boolean hasFullTokenBucket(long nowNs) {
+    if (!isRateLimited()) {
+      return true;
+    }
+    getNanosUntilToken(nowNs);
+    return _tokens >= _maxTokens;
+  }
+
+  private boolean isRateLimited() {
+    return _tokensPerNs > 0;
+  }
+}
@@ -0,0 +1,42 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.scheduler;
+
+import com.google.common.util.concurrent.SettableFuture;
+import com.linkedin.pinot.common.query.QueryRequest;
+import com.linkedin.pinot.common.utils.DataTable;
+
+
+/**
+ * Query waiting in a {@link SchedulerGroup}, with the future returned to the caller of
+ * {@link QueryScheduler#submit(QueryRequest)}.
+ */
+class SchedulerQueryContext {
+  private final QueryRequest _queryRequest;
+  private final SettableFuture<DataTable> _resultFuture = SettableFuture.create();
+
+  SchedulerQueryContext(QueryRequest queryRequest) {
+    _queryRequest = queryRequest;
+  }
+
+  QueryRequest getQueryRequest() {
+    return _queryRequest;
+  }
+
+  SettableFuture<DataTable> getResultFuture() {
+    return _resultFuture;
+  }
+}
@@ -22,10 +22,8 @@ import com.linkedin.pinot.common.response.broker.SelectionResults;
 import com.linkedin.pinot.common.utils.DataSchema;
 import com.linkedin.pinot.common.utils.DataTable;
 import com.linkedin.pinot.core.common.Block;
-import com.linkedin.pinot.core.common.BlockDocIdIterator;
-import com.linkedin.pinot.core.common.Constants;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
-import com.linkedin.pinot.core.query.selection.comparator.CompositeDocIdValComparator;
+import com.linkedin.pinot.core.operator.blocks.ProjectionBlock;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -74,6 +72,7 @@ public class SelectionOperatorService {
   private final PriorityQueue<Serializable[]> _rows;
 
   private long _numDocsScanned = 0;
+  private SelectionTopKCollector _topKCollector;
 
   /**
    * Constructor for <code>SelectionOperatorService</code> with {@link IndexSegment}. (Inner segment)
@@ -266,25 +265,40 @@ public class SelectionOperatorService {
   }
 
   /**
-   * Iterate over {@link Block}s, extract values from them and merge the values to the selection results for selection
+   * Collect the top rows of a {@link ProjectionBlock} for selection queries with <code>ORDER BY</code>, only the sort
+   * columns are read. (Inner segment)
+   * <p>Should be followed by method "mergeCollectedRowsWithOrdering()" once all the blocks are collected.
+   *
+   * @param projectionBlock projection block.
+   */
+  public void collectWithOrdering(@Nonnull ProjectionBlock projectionBlock) {
+    if (_topKCollector == null) {
+      _topKCollector = new SelectionTopKCollector(_sortSequence, _maxNumRows);
+    }
+    _topKCollector.collect(projectionBlock);
+  }
+
+  /**
+   * Extract the collected top rows from the {@link Block}s and merge them to the selection results for selection
    * queries with <code>ORDER BY</code>. (Inner segment)
    *
-   * @param blockDocIdIterator block document id iterator.
-   * @param blocks {@link Block} array.
+   * @param blocks {@link Block} array of the columns in data schema.
    */
-  public void iterateOnBlocksWithOrdering(@Nonnull BlockDocIdIterator blockDocIdIterator, @Nonnull Block[] blocks) {
-    Comparator<Integer> rowDocIdComparator = new CompositeDocIdValComparator(_sortSequence, blocks);
-    PriorityQueue<Integer> rowDocIdPriorityQueue = new PriorityQueue<>(_maxNumRows, rowDocIdComparator);
-    int docId;
-    while ((docId = blockDocIdIterator.next()) != Constants.EOF) {
-      _numDocsScanned++;
-      SelectionOperatorUtils.addToPriorityQueue(docId, rowDocIdPriorityQueue, _maxNumRows);
+  public void mergeCollectedRowsWithOrdering(@Nonnull Block[] blocks) {
+    if (_topKCollector == null) {
+      return;
+    }
+    _numDocsScanned += _topKCollector.getNumDocsScanned();
+    int[] docIds = _topKCollector.getDocIds();
+    _topKCollector = null;
+    if (docIds.length == 0) {
+      return;
     }
 
     SelectionFetcher selectionFetcher = new SelectionFetcher(blocks, _dataSchema);
-    Collection<Serializable[]> rows = new ArrayList<>(rowDocIdPriorityQueue.size());
-    for (int rowDocId : rowDocIdPriorityQueue) {
-      rows.add(selectionFetcher.getRow(rowDocId));
+    Collection<Serializable[]> rows = new ArrayList<>(docIds.length);
+    for (int docId : docIds) {
+      rows.add(selectionFetcher.getRow(docId));
     }
     SelectionOperatorUtils.mergeWithOrdering(_rows, rows, _maxNumRows);
   }
@@ -297,11 +311,21 @@ public class SelectionOperatorService {
    */
   public void reduceWithOrdering(@Nonnull Map<ServerInstance, DataTable> selectionResults) {
     for (DataTable dataTable : selectionResults.values()) {
-      int numRows = dataTable.getNumberOfRows();
-      for (int rowId = 0; rowId < numRows; rowId++) {
-        Serializable[] row = SelectionOperatorUtils.extractRowFromDataTable(dataTable, rowId);
-        SelectionOperatorUtils.addToPriorityQueue(row, _rows, _maxNumRows);
-      }
+      reduceWithOrdering(dataTable);
+    }
+  }
+
+  /**
+   * Reduce one {@link DataTable} to selection rows for selection queries with <code>ORDER BY</code>, so that data
+   * tables can be reduced as they arrive. (Broker side)
+   *
+   * @param dataTable {@link DataTable} from one server.
+   */
+  public void reduceWithOrdering(@Nonnull DataTable dataTable) {
+    int numRows = dataTable.getNumberOfRows();
+    for (int rowId = 0; rowId < numRows; rowId++) {
+      Serializable[] row = SelectionOperatorUtils.extractRowFromDataTable(dataTable, rowId);
+      SelectionOperatorUtils.addToPriorityQueue(row, _rows, _maxNumRows);
     }
   }
 
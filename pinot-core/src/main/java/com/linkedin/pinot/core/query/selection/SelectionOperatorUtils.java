@@ -393,18 +393,35 @@ public class SelectionOperatorUtils {
       int selectionSize) {
     List<Serializable[]> rows = new ArrayList<>(selectionSize);
     for (DataTable dataTable : selectionResults.values()) {
-      int numRows = dataTable.getNumberOfRows();
-      for (int rowId = 0; rowId < numRows; rowId++) {
-        if (rows.size() < selectionSize) {
-          rows.add(extractRowFromDataTable(dataTable, rowId));
-        } else {
-          return rows;
-        }
+      if (!reduceWithoutOrdering(dataTable, selectionSize, rows)) {
+        return rows;
       }
     }
     return rows;
   }
 
+  /**
+   * Reduce one {@link DataTable} into the selection rows for selection queries without <code>ORDER BY</code>, so that
+   * data tables can be reduced as they arrive. (Broker side)
+   *
+   * @param dataTable {@link DataTable} from one server.
+   * @param selectionSize size of the selection.
+   * @param rows selection rows to add into.
+   * @return whether more rows can be added.
+   */
+  public static boolean reduceWithoutOrdering(@Nonnull DataTable dataTable, int selectionSize,
+      @Nonnull List<Serializable[]> rows) {
+    int numRows = dataTable.getNumberOfRows();
+    for (int rowId = 0; rowId < numRows; rowId++) {
+      if (rows.size() < selectionSize) {
+        rows.add(extractRowFromDataTable(dataTable, rowId));
+      } else {
+        return false;
+      }
+    }
+    return rows.size() < selectionSize;
+  }
+
   /**
    * Render the unformatted selection rows to a formatted {@link SelectionResults} object for selection queries without
    * <code>ORDER BY</code>. (Broker side)
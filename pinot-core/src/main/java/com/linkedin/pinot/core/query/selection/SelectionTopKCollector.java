@@ -0,0 +1,488 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.selection;
+
+import com.linkedin.pinot.common.request.SelectionSort;
+import com.linkedin.pinot.core.common.BlockMetadata;
+import com.linkedin.pinot.core.common.BlockValSet;
+import com.linkedin.pinot.core.operator.blocks.ProjectionBlock;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nonnull;
+
+
+/**
+ * The <code>SelectionTopKCollector</code> class collects the document ids of the top K rows of one segment for
+ * selection queries with <code>ORDER BY</code>. (Inner segment)
+ * <p>Works one {@link ProjectionBlock} at a time on primitive arrays:
+ * <ul>
+ *   <li>
+ *     The sort keys of the collected rows are stored column by column in primitive arrays, and the rows are kept in a
+ *     bounded heap of slot ids whose root is the worst collected row.
+ *   </li>
+ *   <li>
+ *     Columns with a sorted dictionary are compared on their dictionary ids, other columns on their values.
+ *   </li>
+ *   <li>
+ *     Once K rows are collected, a block is skipped without reading the other sort columns if none of its values on the
+ *     first sort column can beat the worst collected row.
+ *   </li>
+ * </ul>
+ * <p>Multi-value sort columns are not compared, same as before.
+ */
+public class SelectionTopKCollector {
+  private final List<SelectionSort> _sortSequence;
+  private final int _maxNumRows;
+
+  private SortKey[] _sortKeys;
+  private int _numSortKeys;
+  private int[] _docIds;
+  // Heap of slot ids, the root is the worst collected row.
+  private int[] _heap;
+  private int _numRows = 0;
+  private long _numDocsScanned = 0;
+
+  public SelectionTopKCollector(@Nonnull List<SelectionSort> sortSequence, int maxNumRows) {
+    _sortSequence = sortSequence;
+    _maxNumRows = maxNumRows;
+  }
+
+  /**
+   * Collect the rows of one {@link ProjectionBlock}.
+   *
+   * @param projectionBlock projection block.
+   */
+  public void collect(@Nonnull ProjectionBlock projectionBlock) {
+    int numDocs = projectionBlock.getNumDocs();
+    _numDocsScanned += numDocs;
+    if (_maxNumRows == 0 || numDocs == 0) {
+      return;
+    }
+    if (_sortKeys == null) {
+      init(projectionBlock);
+    }
+
+    if (_numRows == _maxNumRows) {
+      if (_numSortKeys == 0) {
+        // Without comparable sort column, the first rows are kept.
+        return;
+      }
+      // Prune the block on the first sort column, ties can only win on the other sort columns.
+      SortKey firstSortKey = _sortKeys[0];
+      firstSortKey.fetch(projectionBlock);
+      int minResult = (_numSortKeys == 1) ? 1 : 0;
+      if (firstSortKey.compareBestToSlot(numDocs, _heap[0]) < minResult) {
+        return;
+      }
+      for (int i = 1; i < _numSortKeys; i++) {
+        _sortKeys[i].fetch(projectionBlock);
+      }
+    } else {
+      for (int i = 0; i < _numSortKeys; i++) {
+        _sortKeys[i].fetch(projectionBlock);
+      }
+    }
+
+    int[] docIds = projectionBlock.getDocIdSetBlock().getDocIdSet();
+    for (int i = 0; i < numDocs; i++) {
+      if (_numRows < _maxNumRows) {
+        int slot = _numRows++;
+        copyToSlot(i, slot, docIds[i]);
+        _heap[slot] = slot;
+        siftUp(slot);
+      } else if (compareToSlot(i, _heap[0]) > 0) {
+        copyToSlot(i, _heap[0], docIds[i]);
+        siftDown(0);
+      }
+    }
+  }
+
+  /**
+   * Get the document ids of the collected rows, in no particular order.
+   *
+   * @return document ids of the collected rows.
+   */
+  @Nonnull
+  public int[] getDocIds() {
+    if (_numRows == 0) {
+      return new int[0];
+    }
+    return Arrays.copyOf(_docIds, _numRows);
+  }
+
+  /**
+   * Get number of documents scanned.
+   *
+   * @return number of documents scanned.
+   */
+  public long getNumDocsScanned() {
+    return _numDocsScanned;
+  }
+
+  private void init(ProjectionBlock projectionBlock) {
+    List<SortKey> sortKeys = new ArrayList<>(_sortSequence.size());
+    for (SelectionSort selectionSort : _sortSequence) {
+      SortKey sortKey = createSortKey(projectionBlock, selectionSort.getColumn(), selectionSort.isIsAsc());
+      if (sortKey != null) {
+        sortKeys.add(sortKey);
+      }
+    }
+    _sortKeys = sortKeys.toArray(new SortKey[sortKeys.size()]);
+    _numSortKeys = _sortKeys.length;
+    _docIds = new int[_maxNumRows];
+    _heap = new int[_maxNumRows];
+  }
+
+  private SortKey createSortKey(ProjectionBlock projectionBlock, String column, boolean ascending) {
+    BlockMetadata blockMetadata = projectionBlock.getMetadata(column);
+    if (!blockMetadata.isSingleValue()) {
+      return null;
+    }
+    Dictionary dictionary = blockMetadata.hasDictionary() ? blockMetadata.getDictionary() : null;
+    if (dictionary instanceof ImmutableDictionaryReader) {
+      // Dictionary ids of sorted dictionaries follow the order of the values.
+      return new IntSortKey(column, ascending, _maxNumRows, true);
+    }
+    switch (blockMetadata.getDataType()) {
+      case INT:
+        return new IntSortKey(column, ascending, _maxNumRows, false);
+      case LONG:
+        return new LongSortKey(column, ascending, _maxNumRows);
+      case FLOAT:
+        return new FloatSortKey(column, ascending, _maxNumRows);
+      case DOUBLE:
+        return new DoubleSortKey(column, ascending, _maxNumRows);
+      case STRING:
+        return new StringSortKey(column, ascending, _maxNumRows);
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Returns a positive value if the row at the given position of the current block ranks before the collected row.
+   */
+  private int compareToSlot(int position, int slot) {
+    for (int i = 0; i < _numSortKeys; i++) {
+      int result = _sortKeys[i].compareToSlot(position, slot);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Returns a positive value if the first collected row ranks before the second one.
+   */
+  private int compareSlots(int slot1, int slot2) {
+    for (int i = 0; i < _numSortKeys; i++) {
+      int result = _sortKeys[i].compareSlots(slot1, slot2);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return 0;
+  }
+
+  private void copyToSlot(int position, int slot, int docId) {
+    _docIds[slot] = docId;
+    for (int i = 0; i < _numSortKeys; i++) {
+      _sortKeys[i].copyToSlot(position, slot);
+    }
+  }
+
+  private void siftUp(int index) {
+    int slot = _heap[index];
+    while (index > 0) {
+      int parentIndex = (index - 1) >>> 1;
+      int parentSlot = _heap[parentIndex];
+      if (compareSlots(parentSlot, slot) <= 0) {
+        break;
+      }
+      _heap[index] = parentSlot;
+      index = parentIndex;
+    }
+    _heap[index] = slot;
+  }
+
+  private void siftDown(int index) {
+    int slot = _heap[index];
+    int half = _numRows >>> 1;
+    while (index < half) {
+      int childIndex = 2 * index + 1;
+      int childSlot = _heap[childIndex];
+      int rightIndex = childIndex + 1;
+      if (rightIndex < _numRows && compareSlots(childSlot, _heap[rightIndex]) > 0) {
+        childIndex = rightIndex;
+        childSlot = _heap[rightIndex];
+      }
+      if (compareSlots(slot, childSlot) <= 0) {
+        break;
+      }
+      _heap[index] = childSlot;
+      index = childIndex;
+    }
+    _heap[index] = slot;
+  }
+
+  /**
+   * Sort key of one column, holds the values of the current block and the values of the collected rows.
+   * <p>All the comparisons return a positive value if the first value ranks before the second one.
+   */
+  private static abstract class SortKey {
+    protected final String _column;
+    // 1 for descending order, -1 for ascending order.
+    protected final int _multiplier;
+
+    SortKey(String column, boolean ascending) {
+      _column = column;
+      _multiplier = ascending ? -1 : 1;
+    }
+
+    abstract void fetch(ProjectionBlock projectionBlock);
+
+    /**
+     * Compares the best value among the first <code>numDocs</code> values of the current block to the collected row.
+     */
+    abstract int compareBestToSlot(int numDocs, int slot);
+
+    abstract int compareToSlot(int position, int slot);
+
+    abstract int compareSlots(int slot1, int slot2);
+
+    abstract void copyToSlot(int position, int slot);
+  }
+
+  private static final class IntSortKey extends SortKey {
+    private final boolean _useDictIds;
+    private final int[] _slotValues;
+    private int[] _blockValues;
+
+    IntSortKey(String column, boolean ascending, int maxNumRows, boolean useDictIds) {
+      super(column, ascending);
+      _useDictIds = useDictIds;
+      _slotValues = new int[maxNumRows];
+    }
+
+    @Override
+    void fetch(ProjectionBlock projectionBlock) {
+      BlockValSet blockValSet = projectionBlock.getBlockValueSet(_column);
+      _blockValues = _useDictIds ? blockValSet.getDictionaryIds() : blockValSet.getIntValuesSV();
+    }
+
+    @Override
+    int compareBestToSlot(int numDocs, int slot) {
+      int best = _blockValues[0];
+      if (_multiplier > 0) {
+        for (int i = 1; i < numDocs; i++) {
+          best = Math.max(best, _blockValues[i]);
+        }
+      } else {
+        for (int i = 1; i < numDocs; i++) {
+          best = Math.min(best, _blockValues[i]);
+        }
+      }
+      return Integer.compare(best, _slotValues[slot]) * _multiplier;
+    }
+
+    @Override
+    int compareToSlot(int position, int slot) {
+      return Integer.compare(_blockValues[position], _slotValues[slot]) * _multiplier;
+    }
+
+    @Override
+    int compareSlots(int slot1, int slot2) {
+      return Integer.compare(_slotValues[slot1], _slotValues[slot2]) * _multiplier;
+    }
+
+    @Override
+    void copyToSlot(int position, int slot) {
+      _slotValues[slot] = _blockValues[position];
+    }
+  }
+
+  private static final class LongSortKey extends SortKey {
+    private final long[] _slotValues;
+    private long[] _blockValues;
+
+    LongSortKey(String column, boolean ascending, int maxNumRows) {
+      super(column, ascending);
+      _slotValues = new long[maxNumRows];
+    }
+
+    @Override
+    void fetch(ProjectionBlock projectionBlock) {
+      _blockValues = projectionBlock.getBlockValueSet(_column).getLongValuesSV();
+    }
+
+    @Override
+    int compareBestToSlot(int numDocs, int slot) {
+      long best = _blockValues[0];
+      if (_multiplier > 0) {
+        for (int i = 1; i < numDocs; i++) {
+          best = Math.max(best, _blockValues[i]);
+        }
+      } else {
+        for (int i = 1; i < numDocs; i++) {
+          best = Math.min(best, _blockValues[i]);
+        }
+      }
+      return Long.compare(best, _slotValues[slot]) * _multiplier;
+    }
+
+    @Override
+    int compareToSlot(int position, int slot) {
+      return Long.compare(_blockValues[position], _slotValues[slot]) * _multiplier;
+    }
+
+    @Override
+    int compareSlots(int slot1, int slot2) {
+      return Long.compare(_slotValues[slot1], _slotValues[slot2]) * _multiplier;
+    }
+
+    @Override
+    void copyToSlot(int position, int slot) {
+      _slotValues[slot] = _blockValues[position];
+    }
+  }
+
+  private static final class FloatSortKey extends SortKey {
+    private final float[] _slotValues;
+    private float[] _blockValues;
+
+    FloatSortKey(String column, boolean ascending, int maxNumRows) {
+      super(column, ascending);
+      _slotValues = new float[maxNumRows];
+    }
+
+    @Override
+    void fetch(ProjectionBlock projectionBlock) {
+      _blockValues = projectionBlock.getBlockValueSet(_column).getFloatValuesSV();
+    }
+
+    @Override
+    int compareBestToSlot(int numDocs, int slot) {
+      float best = _blockValues[0];
+      for (int i = 1; i < numDocs; i++) {
+        if (Float.compare(_blockValues[i], best) * _multiplier > 0) {
+          best = _blockValues[i];
+        }
+      }
+      return Float.compare(best, _slotValues[slot]) * _multiplier;
+    }
+
+    @Override
+    int compareToSlot(int position, int slot) {
+      return Float.compare(_blockValues[position], _slotValues[slot]) * _multiplier;
+    }
+
+    @Override
+    int compareSlots(int slot1, int slot2) {
+      return Float.compare(_slotValues[slot1], _slotValues[slot2]) * _multiplier;
+    }
+
+    @Override
+    void copyToSlot(int position, int slot) {
+      _slotValues[slot] = _blockValues[position];
+    }
+  }
+
+  private static final class DoubleSortKey extends SortKey {
+    private final double[] _slotValues;
+    private double[] _blockValues;
+
+    DoubleSortKey(String column, boolean ascending, int maxNumRows) {
+      super(column, ascending);
+      _slotValues = new double[maxNumRows];
+    }
+
+    @Override
+    void fetch(ProjectionBlock projectionBlock) {
+      _blockValues = projectionBlock.getBlockValueSet(_column).getDoubleValuesSV();
+    }
+
+    @Override
+    int compareBestToSlot(int numDocs, int slot) {
+      double best = _blockValues[0];
+      for (int i = 1; i < numDocs; i++) {
+        if (Double.compare(_blockValues[i], best) * _multiplier > 0) {
+          best = _blockValues[i];
+        }
+      }
+      return Double.compare(best, _slotValues[slot]) * _multiplier;
+    }
+
+    @Override
+    int compareToSlot(int position, int slot) {
+      return Double.compare(_blockValues[position], _slotValues[slot]) * _multiplier;
+    }
+
+    @Override
+    int compareSlots(int slot1, int slot2) {
+      return Double.compare(_slotValues[slot1], _slotValues[slot2]) * _multiplier;
+    }
+
+    @Override
+    void copyToSlot(int position, int slot) {
+      _slotValues[slot] = _blockValues[position];
+    }
+  }
+
+  private static final class StringSortKey extends SortKey {
+    private final String[] _slotValues;
+    private String[] _blockValues;
+
+    StringSortKey(String column, boolean ascending, int maxNumRows) {
+      super(column, ascending);
+      _slotValues = new String[maxNumRows];
+    }
+
+    @Override
+    void fetch(ProjectionBlock projectionBlock) {
+      _blockValues = projectionBlock.getBlockValueSet(_column).getStringValuesSV();
+    }
+
+    @Override
+    int compareBestToSlot(int numDocs, int slot) {
+      String best = _blockValues[0];
+      for (int i = 1; i < numDocs; i++) {
+        if (_blockValues[i].compareTo(best) * _multiplier > 0) {
+          best = _blockValues[i];
+        }
+      }
+      return Integer.signum(best.compareTo(_slotValues[slot])) * _multiplier;
+    }
+
+    @Override
+    int compareToSlot(int position, int slot) {
+      return Integer.signum(_blockValues[position].compareTo(_slotValues[slot])) * _multiplier;
+    }
+
+    @Override
+    int compareSlots(int slot1, int slot2) {
+      return Integer.signum(_slotValues[slot1].compareTo(_slotValues[slot2])) * _multiplier;
+    }
+
+    @Override
+    void copyToSlot(int position, int slot) {
+      _slotValues[slot] = _blockValues[position];
+    }
+  }
+}
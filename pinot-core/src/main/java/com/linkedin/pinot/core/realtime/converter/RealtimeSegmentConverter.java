@@ -18,13 +18,16 @@ package com.linkedin.pinot.core.realtime.converter;
 import com.linkedin.pinot.common.data.StarTreeIndexSpec;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import com.linkedin.pinot.common.data.Schema;
 import com.linkedin.pinot.common.data.TimeFieldSpec;
 import com.linkedin.pinot.common.data.TimeGranularitySpec;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentVersion;
+import com.linkedin.pinot.core.io.compression.ChunkCompressorFactory;
 import com.linkedin.pinot.core.realtime.converter.stats.RealtimeSegmentSegmentCreationDataSource;
 import com.linkedin.pinot.core.realtime.impl.RealtimeSegmentImpl;
 import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
@@ -40,7 +43,9 @@ public class RealtimeSegmentConverter {
   private String sortedColumn;
   private List<String> invertedIndexColumns;
   private List<String> noDictionaryColumns;
+  private Map<String, ChunkCompressorFactory.CompressionType> rawIndexCompressionTypes = Collections.emptyMap();
   private StarTreeIndexSpec starTreeIndexSpec;
+  private boolean varLengthStringDictionary = false;
 
   public RealtimeSegmentConverter(RealtimeSegmentImpl realtimeSegment, String outputPath, Schema schema,
       String tableName, String segmentName, String sortedColumn, List<String> invertedIndexColumns,
@@ -83,6 +88,20 @@ public class RealtimeSegmentConverter {
         new ArrayList<String>(), null/*StarTreeIndexSpec*/);
   }
 
+  /**
+   * Sets the compression type of the raw index chunks for the no dictionary columns.
+   */
+  public void setRawIndexCompressionTypes(Map<String, ChunkCompressorFactory.CompressionType> rawIndexCompressionTypes) {
+    this.rawIndexCompressionTypes = rawIndexCompressionTypes;
+  }
+
+  /**
+   * Sets whether to create string dictionaries with variable length entries instead of padded fixed size entries.
+   */
+  public void setVarLengthStringDictionary(boolean varLengthStringDictionary) {
+    this.varLengthStringDictionary = varLengthStringDictionary;
+  }
+
   public void build(SegmentVersion segmentVersion) throws Exception {
     // lets create a record reader
     RealtimeSegmentRecordReader reader;
@@ -99,6 +118,7 @@ public class RealtimeSegmentConverter {
     }
     if (noDictionaryColumns != null) {
       genConfig.setRawIndexCreationColumns(noDictionaryColumns);
+      genConfig.setRawIndexCompressionTypes(rawIndexCompressionTypes);
     }
 
     // Presence of the spec enables star tree generation.
@@ -114,6 +134,7 @@ public class RealtimeSegmentConverter {
     genConfig.setOutDir(outputPath);
     genConfig.setSegmentName(segmentName);
     genConfig.setSegmentPartitionConfig(realtimeSegmentImpl.getSegmentPartitionConfig());
+    genConfig.setVarLengthStringDictionary(varLengthStringDictionary);
     final SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
     driver.init(genConfig, new RealtimeSegmentSegmentCreationDataSource(realtimeSegmentImpl, reader, dataSchema));
     driver.build();
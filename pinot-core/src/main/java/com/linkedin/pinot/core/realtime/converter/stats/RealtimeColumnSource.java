@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.converter.stats;
+
+import com.linkedin.pinot.core.io.readerwriter.impl.FixedByteSingleColumnMultiValueReaderWriter;
+import com.linkedin.pinot.core.io.readerwriter.impl.FixedByteSingleColumnSingleValueReaderWriter;
+import com.linkedin.pinot.core.realtime.impl.datasource.RealtimeColumnDataSource;
+import com.linkedin.pinot.core.realtime.impl.dictionary.BaseMutableDictionary;
+import com.linkedin.pinot.core.segment.creator.DictionaryEncodedColumnSource;
+import javax.annotation.Nullable;
+
+
+/**
+ * Column source for a column coming from an in-memory realtime segment, which reads the dictionary ids straight from
+ * its mutable forward index. When the segment is sorted on a column, the documents are read in the sorted order.
+ */
+public class RealtimeColumnSource implements DictionaryEncodedColumnSource {
+  private final BaseMutableDictionary _dictionary;
+  private final FixedByteSingleColumnSingleValueReaderWriter _singleValueForwardIndex;
+  private final FixedByteSingleColumnMultiValueReaderWriter _multiValueForwardIndex;
+  private final int _maxNumberOfMultiValues;
+  private final int[] _sortedDocIdIterationOrder;
+
+  public RealtimeColumnSource(RealtimeColumnDataSource dataSource, @Nullable int[] sortedDocIdIterationOrder) {
+    _dictionary = dataSource.getDictionary();
+    if (dataSource.getDataSourceMetadata().isSingleValue()) {
+      _singleValueForwardIndex = (FixedByteSingleColumnSingleValueReaderWriter) dataSource.getForwardIndex();
+      _multiValueForwardIndex = null;
+      _maxNumberOfMultiValues = 1;
+    } else {
+      _singleValueForwardIndex = null;
+      _multiValueForwardIndex = (FixedByteSingleColumnMultiValueReaderWriter) dataSource.getForwardIndex();
+      _maxNumberOfMultiValues = dataSource.getMaxNumberOfMultiValues();
+    }
+    _sortedDocIdIterationOrder = sortedDocIdIterationOrder;
+  }
+
+  @Override
+  public int getDictionarySize() {
+    return _dictionary.length();
+  }
+
+  @Override
+  public Object getDictionaryValue(int dictId) {
+    return _dictionary.get(dictId);
+  }
+
+  @Override
+  public int getDictId(int docId) {
+    return _singleValueForwardIndex.getInt(getRealtimeDocId(docId));
+  }
+
+  @Override
+  public int getDictIds(int docId, int[] dictIds) {
+    return _multiValueForwardIndex.getIntArray(getRealtimeDocId(docId), dictIds);
+  }
+
+  @Override
+  public int getMaxNumberOfMultiValues() {
+    return _maxNumberOfMultiValues;
+  }
+
+  private int getRealtimeDocId(int docId) {
+    return (_sortedDocIdIterationOrder != null) ? _sortedDocIdIterationOrder[docId] : docId;
+  }
+}
@@ -16,19 +16,25 @@
 
 package com.linkedin.pinot.core.realtime.converter.stats;
 
+import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.data.Schema;
 import com.linkedin.pinot.core.data.readers.RecordReader;
 import com.linkedin.pinot.core.realtime.converter.RealtimeSegmentRecordReader;
 import com.linkedin.pinot.core.realtime.impl.RealtimeSegmentImpl;
-import com.linkedin.pinot.core.segment.creator.SegmentCreationDataSource;
+import com.linkedin.pinot.core.realtime.impl.datasource.RealtimeColumnDataSource;
+import com.linkedin.pinot.core.segment.creator.ColumnarSegmentCreationDataSource;
+import com.linkedin.pinot.core.segment.creator.DictionaryEncodedColumnSource;
 import com.linkedin.pinot.core.segment.creator.SegmentPreIndexStatsContainer;
 import com.linkedin.pinot.core.segment.creator.StatsCollectorConfig;
+import java.util.Arrays;
+import javax.annotation.Nullable;
 
 
 /**
- * Segment creation data source that is based on an in-memory realtime segment.
+ * Segment creation data source that is based on an in-memory realtime segment. The columns are provided straight from
+ * the mutable dictionaries and forward indexes, so that the segment can be built without reading the rows.
  */
-public class RealtimeSegmentSegmentCreationDataSource implements SegmentCreationDataSource {
+public class RealtimeSegmentSegmentCreationDataSource implements ColumnarSegmentCreationDataSource {
   private final RealtimeSegmentImpl _realtimeSegment;
   private final RealtimeSegmentRecordReader _realtimeSegmentRecordReader;
   private final Schema _schema;
@@ -52,4 +58,20 @@ public class RealtimeSegmentSegmentCreationDataSource implements SegmentCreation
   public RecordReader getRecordReader() {
     return _realtimeSegmentRecordReader;
   }
+
+  @Nullable
+  @Override
+  public DictionaryEncodedColumnSource getColumnSource(String column) {
+    // The values are indexed as is, so the column must have the same type in the realtime segment.
+    if (!Arrays.asList(_realtimeSegment.getColumnNames()).contains(column)) {
+      return null;
+    }
+    FieldSpec fieldSpec = _schema.getFieldSpecFor(column);
+    RealtimeColumnDataSource dataSource = _realtimeSegment.getDataSource(column);
+    if (fieldSpec.getDataType() != dataSource.getDataSourceMetadata().getDataType()
+        || fieldSpec.isSingleValueField() != dataSource.getDataSourceMetadata().isSingleValue()) {
+      return null;
+    }
+    return new RealtimeColumnSource(dataSource, _realtimeSegmentRecordReader.getSortedDocIdIterationOrder());
+  }
 }
@@ -37,7 +37,7 @@ import com.linkedin.pinot.core.io.readerwriter.impl.FixedByteSingleColumnMultiVa
 import com.linkedin.pinot.core.io.readerwriter.impl.FixedByteSingleColumnSingleValueReaderWriter;
 import com.linkedin.pinot.core.realtime.RealtimeSegment;
 import com.linkedin.pinot.core.realtime.impl.datasource.RealtimeColumnDataSource;
-import com.linkedin.pinot.core.realtime.impl.dictionary.BaseOnHeapMutableDictionary;
+import com.linkedin.pinot.core.realtime.impl.dictionary.BaseMutableDictionary;
 import com.linkedin.pinot.core.realtime.impl.dictionary.MutableDictionaryFactory;
 import com.linkedin.pinot.core.realtime.impl.invertedIndex.DimensionInvertertedIndex;
 import com.linkedin.pinot.core.realtime.impl.invertedIndex.MetricInvertedIndex;
@@ -48,16 +48,14 @@ import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
 import com.linkedin.pinot.core.startree.StarTree;
 import com.linkedin.pinot.core.startree.StarTreeBuilderConfig;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
+import java.lang.reflect.Array;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
 import org.joda.time.DateTime;
 import org.joda.time.Interval;
-import org.roaringbitmap.IntIterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -66,12 +64,17 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
   private final Logger LOGGER;
   public static final int[] EMPTY_DICTIONARY_IDS_ARRAY = new int[0];
 
+  // Headroom added to the sizes estimated from the previous segment
+  private static final float ESTIMATE_HEADROOM = 1.1f;
+  // Keep the size in bytes of the multi-value buffers within an int
+  private static final int MAX_ESTIMATED_NUM_MULTI_VALUES = Integer.MAX_VALUE / (Integer.SIZE / 8);
+
   private SegmentMetadataImpl _segmentMetadata;
   private final Schema dataSchema;
 
   private String segmentName;
 
-  private final Map<String, BaseOnHeapMutableDictionary> dictionaryMap;
+  private final Map<String, BaseMutableDictionary> dictionaryMap;
   private final Map<String, RealtimeInvertedIndex> invertedIndexMap;
 
   private final TimeConverter timeConverter;
@@ -81,6 +84,7 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
   private TimeGranularitySpec outgoingGranularitySpec;
 
   private Map<String, Integer> maxNumberOfMultivaluesMap;
+  private Map<String, Long> totalNumberOfMultivaluesMap;
 
   private int docIdSearchableOffset = -1;
   private int numDocsIndexed = 0;
@@ -102,31 +106,72 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
   public RealtimeSegmentImpl(Schema schema, int capacity, String tableName, String segmentName, String streamName,
       ServerMetrics serverMetrics, List<String> invertedIndexColumns, int avgMultiValueCount)
       throws IOException {
+    this(schema, capacity, tableName, segmentName, streamName, serverMetrics, invertedIndexColumns, avgMultiValueCount,
+        false);
+  }
+
+  /**
+   * @param offHeapDictionaries whether to keep the dictionaries off heap (forward indexes are always off heap).
+   */
+  public RealtimeSegmentImpl(Schema schema, int capacity, String tableName, String segmentName, String streamName,
+      ServerMetrics serverMetrics, List<String> invertedIndexColumns, int avgMultiValueCount,
+      boolean offHeapDictionaries)
+      throws IOException {
+    this(schema, capacity, tableName, segmentName, streamName, serverMetrics, invertedIndexColumns, avgMultiValueCount,
+        offHeapDictionaries, null);
+  }
+
+  /**
+   * @param offHeapDictionaries whether to keep the dictionaries off heap (forward indexes are always off heap).
+   * @param previousSegmentStats stats of the previous segment of the same stream partition if known, used to size the
+   *                             dictionaries and indexes upfront, see {@link RealtimeSegmentStats}.
+   */
+  public RealtimeSegmentImpl(Schema schema, int capacity, String tableName, String segmentName, String streamName,
+      ServerMetrics serverMetrics, List<String> invertedIndexColumns, int avgMultiValueCount,
+      boolean offHeapDictionaries, @Nullable RealtimeSegmentStats previousSegmentStats)
+      throws IOException {
     // initial variable setup
     this.segmentName = segmentName;
     this.serverMetrics = serverMetrics;
     LOGGER = LoggerFactory.getLogger(RealtimeSegmentImpl.class.getName() + "_" + segmentName + "_" + streamName);
     dataSchema = schema;
-    dictionaryMap = new HashMap<String, BaseOnHeapMutableDictionary>();
+    dictionaryMap = new HashMap<String, BaseMutableDictionary>();
     maxNumberOfMultivaluesMap = new HashMap<String, Integer>();
+    totalNumberOfMultivaluesMap = new HashMap<String, Long>();
     outgoingTimeColumnName = dataSchema.getTimeFieldSpec().getOutgoingTimeColumnName();
     this.capacity = capacity;
 
     for (FieldSpec col : dataSchema.getAllFieldSpecs()) {
       maxNumberOfMultivaluesMap.put(col.getName(), 0);
+      if (!col.isSingleValueField()) {
+        totalNumberOfMultivaluesMap.put(col.getName(), 0L);
+      }
+    }
+
+    // Size the dictionaries and indexes from the stats of the previous segment, so that they are not grown over and
+    // over while consuming (0 means unknown, in which case the defaults are used)
+    Map<String, Integer> estimatedCardinalities = new HashMap<String, Integer>();
+    if (previousSegmentStats != null) {
+      for (FieldSpec col : dataSchema.getAllFieldSpecs()) {
+        estimatedCardinalities.put(col.getName(), getEstimatedCardinality(previousSegmentStats, col, capacity));
+      }
     }
+
     // dictionary assignment for dimensions and time column
     for (String column : dataSchema.getDimensionNames()) {
-      dictionaryMap.put(column,
-          MutableDictionaryFactory.getMutableDictionary(dataSchema.getFieldSpecFor(column).getDataType()));
+      dictionaryMap.put(column, MutableDictionaryFactory.getMutableDictionary(
+          dataSchema.getFieldSpecFor(column).getDataType(), offHeapDictionaries,
+          getOrZero(estimatedCardinalities, column)));
     }
 
     dictionaryMap.put(outgoingTimeColumnName, MutableDictionaryFactory.getMutableDictionary(
-        dataSchema.getFieldSpecFor(outgoingTimeColumnName).getDataType()));
+        dataSchema.getFieldSpecFor(outgoingTimeColumnName).getDataType(), offHeapDictionaries,
+        getOrZero(estimatedCardinalities, outgoingTimeColumnName)));
 
     for (String metric : dataSchema.getMetricNames()) {
-      dictionaryMap.put(metric,
-          MutableDictionaryFactory.getMutableDictionary(dataSchema.getFieldSpecFor(metric).getDataType()));
+      dictionaryMap.put(metric, MutableDictionaryFactory.getMutableDictionary(
+          dataSchema.getFieldSpecFor(metric).getDataType(), offHeapDictionaries,
+          getOrZero(estimatedCardinalities, metric)));
     }
 
     // docId generator and time granularity converter
@@ -141,28 +186,39 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
 
     for (String dimension : schema.getDimensionNames()) {
       if (invertedIndexColumns.contains(dimension)) {
-        invertedIndexMap.put(dimension, new DimensionInvertertedIndex(dimension));
+        invertedIndexMap.put(dimension,
+            new DimensionInvertertedIndex(dimension, getOrZero(estimatedCardinalities, dimension)));
       }
       if (schema.getFieldSpecFor(dimension).isSingleValueField()) {
         columnIndexReaderWriterMap.put(dimension,
             new FixedByteSingleColumnSingleValueReaderWriter(capacity, V1Constants.Dict.INT_DICTIONARY_COL_SIZE));
       } else {
-        columnIndexReaderWriterMap.put(dimension,
-            new FixedByteSingleColumnMultiValueReaderWriter(capacity, Integer.SIZE / 8,
-                FixedByteSingleColumnMultiValueReaderWriter.DEFAULT_MAX_NUMBER_OF_MULTIVALUES, avgMultiValueCount));
+        int estimatedNumValues = getEstimatedNumMultiValues(previousSegmentStats, dimension, capacity);
+        if (estimatedNumValues > 0) {
+          // Estimate is already padded, only add small buffers if it is exceeded
+          columnIndexReaderWriterMap.put(dimension,
+              new FixedByteSingleColumnMultiValueReaderWriter(capacity, Integer.SIZE / 8,
+                  FixedByteSingleColumnMultiValueReaderWriter.DEFAULT_MAX_NUMBER_OF_MULTIVALUES, estimatedNumValues,
+                  estimatedNumValues / 4));
+        } else {
+          columnIndexReaderWriterMap.put(dimension,
+              new FixedByteSingleColumnMultiValueReaderWriter(capacity, Integer.SIZE / 8,
+                  FixedByteSingleColumnMultiValueReaderWriter.DEFAULT_MAX_NUMBER_OF_MULTIVALUES, avgMultiValueCount));
+        }
       }
     }
 
     for (String metric : schema.getMetricNames()) {
       if (invertedIndexColumns.contains(metric)) {
-        invertedIndexMap.put(metric, new MetricInvertedIndex(metric));
+        invertedIndexMap.put(metric, new MetricInvertedIndex(metric, getOrZero(estimatedCardinalities, metric)));
       }
       columnIndexReaderWriterMap.put(metric,
           new FixedByteSingleColumnSingleValueReaderWriter(capacity, V1Constants.Dict.INT_DICTIONARY_COL_SIZE));
     }
 
     if (invertedIndexColumns.contains(outgoingTimeColumnName)) {
-      invertedIndexMap.put(outgoingTimeColumnName, new TimeInvertedIndex(outgoingTimeColumnName));
+      invertedIndexMap.put(outgoingTimeColumnName,
+          new TimeInvertedIndex(outgoingTimeColumnName, getOrZero(estimatedCardinalities, outgoingTimeColumnName)));
     }
     columnIndexReaderWriterMap.put(outgoingTimeColumnName,
         new FixedByteSingleColumnSingleValueReaderWriter(capacity, V1Constants.Dict.INT_DICTIONARY_COL_SIZE));
@@ -170,6 +226,47 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
     tableAndStreamName = tableName + "-" + streamName;
   }
 
+  /**
+   * Returns the expected cardinality of the given column from the stats of the previous segment plus some headroom,
+   * bounded by the max number of values the segment can hold, or 0 if unknown.
+   */
+  private static int getEstimatedCardinality(RealtimeSegmentStats previousSegmentStats, FieldSpec fieldSpec,
+      int capacity) {
+    int cardinality = previousSegmentStats.getCardinality(fieldSpec.getName());
+    if (cardinality <= 0) {
+      return 0;
+    }
+    long maxCardinality = capacity;
+    if (!fieldSpec.isSingleValueField()) {
+      maxCardinality *= Math.max(1, (int) Math.ceil(previousSegmentStats.getAvgMultiValueCount(fieldSpec.getName())));
+    }
+    return (int) Math.min((long) (cardinality * ESTIMATE_HEADROOM), Math.min(maxCardinality, Integer.MAX_VALUE));
+  }
+
+  /**
+   * Returns the expected total number of values of the given multi-value column from the stats of the previous
+   * segment plus some headroom, or 0 if unknown.
+   */
+  private static int getEstimatedNumMultiValues(@Nullable RealtimeSegmentStats previousSegmentStats, String column,
+      int capacity) {
+    if (previousSegmentStats == null) {
+      return 0;
+    }
+    float avgMultiValueCount = previousSegmentStats.getAvgMultiValueCount(column);
+    int numRows = previousSegmentStats.getNumRows();
+    if (avgMultiValueCount <= 0 || numRows <= 0) {
+      return 0;
+    }
+    // Segments flushed on time usually have less rows than the capacity, size for the rows we expect to consume
+    long numValues = (long) Math.ceil(Math.min(numRows, capacity) * avgMultiValueCount * ESTIMATE_HEADROOM);
+    return (int) Math.min(numValues, MAX_ESTIMATED_NUM_MULTI_VALUES);
+  }
+
+  private static int getOrZero(Map<String, Integer> map, String key) {
+    Integer value = map.get(key);
+    return (value == null) ? 0 : value;
+  }
+
   @Override
   public Interval getTimeInterval() {
     DateTime start = outgoingGranularitySpec.toDateTime(minTimeVal);
@@ -236,8 +333,11 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
       dictionaryMap.get(dimension).index(row.getValue(dimension));
       if (!dataSchema.getFieldSpecFor(dimension).isSingleValueField()) {
         Object[] entries = (Object[]) row.getValue(dimension);
-        if ((entries != null) && (maxNumberOfMultivaluesMap.get(dimension) < entries.length)) {
-          maxNumberOfMultivaluesMap.put(dimension, entries.length);
+        if (entries != null) {
+          if (maxNumberOfMultivaluesMap.get(dimension) < entries.length) {
+            maxNumberOfMultivaluesMap.put(dimension, entries.length);
+          }
+          totalNumberOfMultivaluesMap.put(dimension, totalNumberOfMultivaluesMap.get(dimension) + entries.length);
         }
       }
     }
@@ -407,6 +507,24 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
     return numSuccessIndexed;
   }
 
+  /**
+   * Returns the stats of the rows indexed so far, used to size the next consuming segment of the same stream
+   * partition. Should be called from the consumer thread.
+   */
+  public RealtimeSegmentStats getStats() {
+    Map<String, Integer> cardinalities = new HashMap<String, Integer>();
+    for (Map.Entry<String, BaseMutableDictionary> entry : dictionaryMap.entrySet()) {
+      cardinalities.put(entry.getKey(), entry.getValue().length());
+    }
+    Map<String, Float> avgMultiValueCounts = new HashMap<String, Float>();
+    if (numDocsIndexed > 0) {
+      for (Map.Entry<String, Long> entry : totalNumberOfMultivaluesMap.entrySet()) {
+        avgMultiValueCounts.put(entry.getKey(), (float) entry.getValue() / numDocsIndexed);
+      }
+    }
+    return new RealtimeSegmentStats(numDocsIndexed, cardinalities, avgMultiValueCounts);
+  }
+
   @Override
   public void destroy() {
     LOGGER.info("Trying to close RealtimeSegmentImpl : {}", this.getSegmentName());
@@ -429,167 +547,49 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
       }
     }
     invertedIndexMap.clear();
-    _segmentMetadata.close();
-  }
-
-  private IntIterator[] getSortedBitmapIntIteratorsForStringColumn(final String columnToSortOn) {
-    final RealtimeInvertedIndex index = invertedIndexMap.get(columnToSortOn);
-    final BaseOnHeapMutableDictionary dictionary = dictionaryMap.get(columnToSortOn);
-    final IntIterator[] intIterators = new IntIterator[dictionary.length()];
 
-    final List<String> rawValues = new ArrayList<String>();
-    for (int i = 0; i < dictionary.length(); i++) {
-      rawValues.add((String) dictionary.get(i));
+    for (BaseMutableDictionary dictionary : dictionaryMap.values()) {
+      dictionary.close();
     }
-
-    long start = System.currentTimeMillis();
-    Collections.sort(rawValues);
-
-    LOGGER.info("Column {}, dictionary len : {}, time to sort : {} ", columnToSortOn, dictionary.length(),
-        (System.currentTimeMillis() - start));
-
-    for (int i = 0; i < rawValues.size(); i++) {
-      intIterators[i] = index.getDocIdSetFor(dictionary.indexOf(rawValues.get(i))).getIntIterator();
-    }
-    return intIterators;
-  }
-
-  private IntIterator[] getSortedBitmapIntIteratorsForIntegerColumn(final String columnToSortOn) {
-    final RealtimeInvertedIndex index = invertedIndexMap.get(columnToSortOn);
-    final BaseOnHeapMutableDictionary dictionary = dictionaryMap.get(columnToSortOn);
-    final IntIterator[] intIterators = new IntIterator[dictionary.length()];
-
-    int[] rawValuesArr = new int[dictionary.length()];
-
-    for (int i = 0; i < dictionary.length(); i++) {
-      rawValuesArr[i] = (Integer) dictionary.get(i);
-    }
-
-    Arrays.sort(rawValuesArr);
-
-    long start = System.currentTimeMillis();
-
-    LOGGER.info("Column {}, dictionary len : {}, time to sort : {} ", columnToSortOn, dictionary.length(),
-        (System.currentTimeMillis() - start));
-
-    for (int i = 0; i < rawValuesArr.length; i++) {
-      intIterators[i] = index.getDocIdSetFor(dictionary.indexOf(rawValuesArr[i])).getIntIterator();
-    }
-    return intIterators;
-  }
-
-  private IntIterator[] getSortedBitmapIntIteratorsForLongColumn(final String columnToSortOn) {
-    final RealtimeInvertedIndex index = invertedIndexMap.get(columnToSortOn);
-    final BaseOnHeapMutableDictionary dictionary = dictionaryMap.get(columnToSortOn);
-    final IntIterator[] intIterators = new IntIterator[dictionary.length()];
-
-    final List<Long> rawValues = new ArrayList<Long>();
-    for (int i = 0; i < dictionary.length(); i++) {
-      rawValues.add((Long) dictionary.get(i));
-    }
-
-    long start = System.currentTimeMillis();
-    Collections.sort(rawValues);
-
-    LOGGER.info("Column {}, dictionary len : {}, time to sort : {} ", columnToSortOn, dictionary.length(),
-        (System.currentTimeMillis() - start));
-
-    for (int i = 0; i < rawValues.size(); i++) {
-      intIterators[i] = index.getDocIdSetFor(dictionary.indexOf(rawValues.get(i))).getIntIterator();
-    }
-    return intIterators;
-  }
-
-  private IntIterator[] getSortedBitmapIntIteratorsForFloatColumn(final String columnToSortOn) {
-    final RealtimeInvertedIndex index = invertedIndexMap.get(columnToSortOn);
-    final BaseOnHeapMutableDictionary dictionary = dictionaryMap.get(columnToSortOn);
-    final IntIterator[] intIterators = new IntIterator[dictionary.length()];
-
-    final List<Float> rawValues = new ArrayList<Float>();
-    for (int i = 0; i < dictionary.length(); i++) {
-      rawValues.add((Float) dictionary.get(i));
-    }
-
-    long start = System.currentTimeMillis();
-    Collections.sort(rawValues);
-
-    LOGGER.info("Column {}, dictionary len : {}, time to sort : {} ", columnToSortOn, dictionary.length(),
-        (System.currentTimeMillis() - start));
-
-    for (int i = 0; i < rawValues.size(); i++) {
-      intIterators[i] = index.getDocIdSetFor(dictionary.indexOf(rawValues.get(i))).getIntIterator();
-    }
-    return intIterators;
-  }
-
-  private IntIterator[] getSortedBitmapIntIteratorsForDoubleColumn(final String columnToSortOn) {
-    final RealtimeInvertedIndex index = invertedIndexMap.get(columnToSortOn);
-    final BaseOnHeapMutableDictionary dictionary = dictionaryMap.get(columnToSortOn);
-    final IntIterator[] intIterators = new IntIterator[dictionary.length()];
-
-    final List<Double> rawValues = new ArrayList<Double>();
-    for (int i = 0; i < dictionary.length(); i++) {
-      rawValues.add((Double) dictionary.get(i));
-    }
-
-    long start = System.currentTimeMillis();
-    Collections.sort(rawValues);
-
-    LOGGER.info("Column {}, dictionary len : {}, time to sort : {} ", columnToSortOn, dictionary.length(),
-        (System.currentTimeMillis() - start));
-
-    for (int i = 0; i < rawValues.size(); i++) {
-      intIterators[i] = index.getDocIdSetFor(dictionary.indexOf(rawValues.get(i))).getIntIterator();
-    }
-    return intIterators;
+    dictionaryMap.clear();
+    _segmentMetadata.close();
   }
 
   /**
    * Returns the docIds to use for iteration when the data is sorted by <code>columnToSortOn</code>
+   * <p>The dictionary is sorted once to rank the dictionary ids, then the docIds are counting sorted on the rank of
+   * their dictionary id, which keeps the docIds with the same value in order.
    * @param columnToSortOn The column to use for sorting
    * @return The docIds to use for iteration
    */
   public int[] getSortedDocIdIterationOrderWithSortedColumn(final String columnToSortOn) {
-    int[] docIds = new int[numDocsIndexed];
-    final IntIterator[] iterators;
-
-    // Get docId iterators that iterate in order on the data
-    switch (dataSchema.getFieldSpecFor(columnToSortOn).getDataType()) {
-      case INT:
-        iterators = getSortedBitmapIntIteratorsForIntegerColumn(columnToSortOn);
-        break;
-      case LONG:
-        iterators = getSortedBitmapIntIteratorsForLongColumn(columnToSortOn);
-        break;
-      case FLOAT:
-        iterators = getSortedBitmapIntIteratorsForFloatColumn(columnToSortOn);
-        break;
-      case DOUBLE:
-        iterators = getSortedBitmapIntIteratorsForDoubleColumn(columnToSortOn);
-        break;
-      case STRING:
-      case BOOLEAN:
-        iterators = getSortedBitmapIntIteratorsForStringColumn(columnToSortOn);
-        break;
-      default:
-        iterators = null;
-        break;
-    }
-
-    // Drain the iterators into the docIds array
-    int i = 0;
-    for (IntIterator iterator : iterators) {
-      while (iterator.hasNext()) {
-        docIds[i] = iterator.next();
-        ++i;
-      }
-    }
+    BaseMutableDictionary dictionary = dictionaryMap.get(columnToSortOn);
+    FixedByteSingleColumnSingleValueReaderWriter forwardIndex =
+        (FixedByteSingleColumnSingleValueReaderWriter) columnIndexReaderWriterMap.get(columnToSortOn);
 
-    // Sanity check
-    if (i != numDocsIndexed) {
-      throw new RuntimeException("The number of docs indexed is not equal to the number of sorted documents");
+    // Rank the dictionary ids on their value
+    long start = System.currentTimeMillis();
+    int cardinality = dictionary.length();
+    Object sortedValues = dictionary.getSortedValues();
+    int[] dictIdToRank = new int[cardinality];
+    for (int rank = 0; rank < cardinality; rank++) {
+      dictIdToRank[dictionary.indexOf(Array.get(sortedValues, rank))] = rank;
     }
+    LOGGER.info("Column {}, dictionary len : {}, time to sort : {} ", columnToSortOn, cardinality,
+        (System.currentTimeMillis() - start));
 
+    // Count the docIds per rank, then place each docId after the docIds of the lower ranks
+    int[] rankOffsets = new int[cardinality + 1];
+    for (int docId = 0; docId < numDocsIndexed; docId++) {
+      rankOffsets[dictIdToRank[forwardIndex.getInt(docId)] + 1]++;
+    }
+    for (int rank = 0; rank < cardinality; rank++) {
+      rankOffsets[rank + 1] += rankOffsets[rank];
+    }
+    int[] docIds = new int[numDocsIndexed];
+    for (int docId = 0; docId < numDocsIndexed; docId++) {
+      docIds[rankOffsets[dictIdToRank[forwardIndex.getInt(docId)]]++] = docId;
+    }
     return docIds;
   }
 
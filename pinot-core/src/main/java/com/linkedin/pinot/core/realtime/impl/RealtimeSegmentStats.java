@@ -0,0 +1,142 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.commons.configuration.ConfigurationException;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The <code>RealtimeSegmentStats</code> class holds the statistics of a completed realtime segment: number of rows, and
+ * cardinality and average number of multi-values of each column.
+ * <p>The statistics are saved into a local file when a segment completes, so that the next consuming segment of the
+ * same partition can size its dictionaries and indexes upfront instead of growing them while consuming.
+ */
+public class RealtimeSegmentStats {
+  private static final Logger LOGGER = LoggerFactory.getLogger(RealtimeSegmentStats.class);
+
+  private static final String NUM_ROWS_KEY = "segment.numRows";
+  private static final String COLUMN_KEY_PREFIX = "column.";
+  // Column names can contain '.', so the column name is between the prefix and the suffix
+  private static final String CARDINALITY_KEY_SUFFIX = ".cardinality";
+  private static final String AVG_MULTI_VALUE_COUNT_KEY_SUFFIX = ".avgMultiValueCount";
+
+  private final int _numRows;
+  private final Map<String, Integer> _cardinalities;
+  private final Map<String, Float> _avgMultiValueCounts;
+
+  /**
+   * Constructor for the class.
+   *
+   * @param numRows Number of rows of the segment
+   * @param cardinalities Map from column name to number of distinct values
+   * @param avgMultiValueCounts Map from multi-value column name to average number of values per row
+   */
+  public RealtimeSegmentStats(int numRows, @Nonnull Map<String, Integer> cardinalities,
+      @Nonnull Map<String, Float> avgMultiValueCounts) {
+    _numRows = numRows;
+    _cardinalities = cardinalities;
+    _avgMultiValueCounts = avgMultiValueCounts;
+  }
+
+  public int getNumRows() {
+    return _numRows;
+  }
+
+  /**
+   * Returns the number of distinct values of the given column, 0 if unknown.
+   */
+  public int getCardinality(@Nonnull String column) {
+    Integer cardinality = _cardinalities.get(column);
+    return (cardinality == null) ? 0 : cardinality;
+  }
+
+  /**
+   * Returns the average number of values per row of the given multi-value column, 0 if unknown.
+   */
+  public float getAvgMultiValueCount(@Nonnull String column) {
+    Float avgMultiValueCount = _avgMultiValueCounts.get(column);
+    return (avgMultiValueCount == null) ? 0f : avgMultiValueCount;
+  }
+
+  /**
+   * Saves the statistics into the given file, replacing the previous ones.
+   */
+  public void save(@Nonnull File file)
+      throws ConfigurationException, IOException {
+    File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+    FileUtils.deleteQuietly(tempFile);
+    PropertiesConfiguration properties = new PropertiesConfiguration();
+    properties.setProperty(NUM_ROWS_KEY, _numRows);
+    for (Map.Entry<String, Integer> entry : _cardinalities.entrySet()) {
+      properties.setProperty(COLUMN_KEY_PREFIX + entry.getKey() + CARDINALITY_KEY_SUFFIX, entry.getValue());
+    }
+    for (Map.Entry<String, Float> entry : _avgMultiValueCounts.entrySet()) {
+      properties.setProperty(COLUMN_KEY_PREFIX + entry.getKey() + AVG_MULTI_VALUE_COUNT_KEY_SUFFIX, entry.getValue());
+    }
+    FileUtils.forceMkdir(file.getParentFile());
+    properties.save(tempFile);
+
+    // Replace the file only once fully written, so that a crash never leaves a truncated file behind
+    FileUtils.deleteQuietly(file);
+    FileUtils.moveFile(tempFile, file);
+  }
+
+  /**
+   * Loads the statistics from the given file.
+   *
+   * @return Statistics, or <code>null</code> if the file does not exist or cannot be read
+   */
+  @Nullable
+  public static RealtimeSegmentStats load(@Nonnull File file) {
+    if (!file.isFile()) {
+      return null;
+    }
+    try {
+      PropertiesConfiguration properties = new PropertiesConfiguration(file);
+      int numRows = properties.getInt(NUM_ROWS_KEY);
+      Map<String, Integer> cardinalities = new HashMap<>();
+      Map<String, Float> avgMultiValueCounts = new HashMap<>();
+      Iterator keys = properties.getKeys(COLUMN_KEY_PREFIX.substring(0, COLUMN_KEY_PREFIX.length() - 1));
+      while (keys.hasNext()) {
+        String key = (String) keys.next();
+        if (key.endsWith(CARDINALITY_KEY_SUFFIX)) {
+          cardinalities.put(getColumnName(key, CARDINALITY_KEY_SUFFIX), properties.getInt(key));
+        } else if (key.endsWith(AVG_MULTI_VALUE_COUNT_KEY_SUFFIX)) {
+          avgMultiValueCounts.put(getColumnName(key, AVG_MULTI_VALUE_COUNT_KEY_SUFFIX), properties.getFloat(key));
+        }
+      }
+      return new RealtimeSegmentStats(numRows, cardinalities, avgMultiValueCounts);
+    } catch (ConfigurationException | RuntimeException e) {
+      LOGGER.warn("Could not load realtime segment stats from file: {}, ignoring them", file, e);
+      return null;
+    }
+  }
+
+  private static String getColumnName(String key, String suffix) {
+    return key.substring(COLUMN_KEY_PREFIX.length(), key.length() - suffix.length());
+  }
+}
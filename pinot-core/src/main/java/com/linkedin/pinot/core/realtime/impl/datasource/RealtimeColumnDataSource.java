@@ -30,7 +30,7 @@ import com.linkedin.pinot.core.io.readerwriter.impl.FixedByteSingleColumnMultiVa
 import com.linkedin.pinot.core.io.readerwriter.impl.FixedByteSingleColumnSingleValueReaderWriter;
 import com.linkedin.pinot.core.operator.blocks.RealtimeMultiValueBlock;
 import com.linkedin.pinot.core.operator.blocks.RealtimeSingleValueBlock;
-import com.linkedin.pinot.core.realtime.impl.dictionary.BaseOnHeapMutableDictionary;
+import com.linkedin.pinot.core.realtime.impl.dictionary.BaseMutableDictionary;
 import com.linkedin.pinot.core.realtime.impl.invertedIndex.RealtimeInvertedIndex;
 import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
 import org.roaringbitmap.buffer.MutableRoaringBitmap;
@@ -52,10 +52,10 @@ public class RealtimeColumnDataSource extends DataSource {
   private final RealtimeInvertedIndex invertedIndex;
   private final int offset;
   private final int maxNumberOfMultiValues;
-  private final BaseOnHeapMutableDictionary dictionary;
+  private final BaseMutableDictionary dictionary;
 
   public RealtimeColumnDataSource(FieldSpec spec, DataFileReader indexReader, RealtimeInvertedIndex invertedIndex,
-      int searchOffset, int maxNumberOfMultivalues, Schema schema, BaseOnHeapMutableDictionary dictionary) {
+      int searchOffset, int maxNumberOfMultivalues, Schema schema, BaseMutableDictionary dictionary) {
     this.fieldSpec = spec;
     this.indexReader = indexReader;
     this.invertedIndex = invertedIndex;
@@ -188,7 +188,21 @@ public class RealtimeColumnDataSource extends DataSource {
   }
 
   @Override
-  public BaseOnHeapMutableDictionary getDictionary() {
+  public BaseMutableDictionary getDictionary() {
     return dictionary;
   }
+
+  /**
+   * Returns the forward index of the column, which maps each document to its dictionary id(s).
+   */
+  public DataFileReader getForwardIndex() {
+    return indexReader;
+  }
+
+  /**
+   * Returns the max number of values of a multi-value column for one document, -1 for metric columns.
+   */
+  public int getMaxNumberOfMultiValues() {
+    return maxNumberOfMultiValues;
+  }
 }
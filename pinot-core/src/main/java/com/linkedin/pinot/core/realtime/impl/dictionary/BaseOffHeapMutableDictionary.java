@@ -0,0 +1,228 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.dictionary;
+
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nonnull;
+
+
+/**
+ * The class <code>BaseOffHeapMutableDictionary</code> is the implementation of the mutable dictionary required by
+ * REALTIME consuming segments, which keeps the values and the value to dictionary id map off heap, so that consuming
+ * segments do not fill up the old generation.
+ * <ul>
+ *   <li>
+ *     Values are stored in fixed width direct buffer chunks indexed by dictionary id, which are never moved once
+ *     allocated.
+ *   </li>
+ *   <li>
+ *     Value to dictionary id map is an open addressing hash table (linear probing) in a direct buffer. Each slot
+ *     stores the hash code of the value and the dictionary id plus one (0 means empty slot). The table is doubled
+ *     when it is half full. Replaced tables are kept until the dictionary is closed because readers might still be
+ *     probing them, which costs at most the size of the current table.
+ *   </li>
+ * </ul>
+ * <p>The implementation is thread safe for single writer multiple readers scenario: the writer writes the value and
+ * the slot before publishing the new number of entries through a volatile field, and readers ignore the dictionary
+ * ids not yet published when they started.
+ */
+public abstract class BaseOffHeapMutableDictionary extends BaseMutableDictionary {
+  private static final int SHIFT_OFFSET = 13;  // NUM_VALUES_PER_CHUNK = 8192
+  private static final int NUM_VALUES_PER_CHUNK = 1 << SHIFT_OFFSET;
+  private static final int MASK = NUM_VALUES_PER_CHUNK - 1;
+  private static final int MAX_NUM_CHUNKS = 1 << SHIFT_OFFSET;
+
+  private static final int INITIAL_NUM_SLOTS = 1 << 10;
+  private static final int SLOT_SIZE_IN_BYTES = 8;
+  private static final int EMPTY_SLOT = 0;
+
+  private final int _valueSizeInBytes;
+  private final PinotDataBuffer[] _valueChunks = new PinotDataBuffer[MAX_NUM_CHUNKS];
+  private final List<PinotDataBuffer> _replacedSlotBuffers = new ArrayList<>();
+
+  private volatile SlotTable _slotTable;
+  private volatile int _numEntries = 0;
+
+  protected BaseOffHeapMutableDictionary(int valueSizeInBytes) {
+    this(valueSizeInBytes, 0);
+  }
+
+  /**
+   * @param valueSizeInBytes size of the fixed width value of each dictionary id.
+   * @param estimatedCardinality expected number of values, used to size the slot table so that it does not have to be
+   *                             doubled while indexing. Non positive value means unknown.
+   */
+  protected BaseOffHeapMutableDictionary(int valueSizeInBytes, int estimatedCardinality) {
+    _valueSizeInBytes = valueSizeInBytes;
+    int numSlots = INITIAL_NUM_SLOTS;
+    // The slot table is doubled once half full
+    long numSlotsNeeded = Math.min(2L * estimatedCardinality + 2, 2L * MAX_NUM_CHUNKS * NUM_VALUES_PER_CHUNK);
+    while (numSlots < numSlotsNeeded) {
+      numSlots <<= 1;
+    }
+    _slotTable = new SlotTable(numSlots);
+  }
+
+  @Override
+  public int length() {
+    return _numEntries;
+  }
+
+  @Override
+  public void close() {
+    for (int i = 0; i < MAX_NUM_CHUNKS && _valueChunks[i] != null; i++) {
+      _valueChunks[i].close();
+      _valueChunks[i] = null;
+    }
+    for (PinotDataBuffer slotBuffer : _replacedSlotBuffers) {
+      slotBuffer.close();
+    }
+    _replacedSlotBuffers.clear();
+    _slotTable._buffer.close();
+  }
+
+  /**
+   * Returns the chunk holding the value of the given dictionary id.
+   */
+  protected PinotDataBuffer getValueChunk(int dictId) {
+    return _valueChunks[dictId >>> SHIFT_OFFSET];
+  }
+
+  /**
+   * Returns the offset of the value of the given dictionary id inside its chunk.
+   */
+  protected int getValueOffset(int dictId) {
+    return (dictId & MASK) * _valueSizeInBytes;
+  }
+
+  /**
+   * Get the dictId of a single value.
+   *
+   * @param value single value already converted to correct type.
+   * @param hashCode hash code of the value, consistent with {@link #equalsValueAt(int, Object)}.
+   * @return dictId of the value, or {@link #NULL_VALUE_INDEX} if the value is not indexed.
+   */
+  protected int getDictId(@Nonnull Object value, int hashCode) {
+    // Read the number of entries first, all the entries below it are visible in the slot table read after it
+    int numEntries = _numEntries;
+    SlotTable slotTable = _slotTable;
+    PinotDataBuffer buffer = slotTable._buffer;
+    int mask = slotTable._mask;
+    int slot = mix(hashCode) & mask;
+    while (true) {
+      int slotOffset = slot * SLOT_SIZE_IN_BYTES;
+      int dictIdPlusOne = buffer.getInt(slotOffset + 4);
+      if (dictIdPlusOne == EMPTY_SLOT) {
+        return NULL_VALUE_INDEX;
+      }
+      int dictId = dictIdPlusOne - 1;
+      if (dictId < numEntries && buffer.getInt(slotOffset) == hashCode && equalsValueAt(dictId, value)) {
+        return dictId;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  /**
+   * Index a single value.
+   * <p>This method will only be called by a single writer thread.
+   *
+   * @param value single value already converted to correct type.
+   * @param hashCode hash code of the value, consistent with {@link #equalsValueAt(int, Object)}.
+   */
+  protected void indexValue(@Nonnull Object value, int hashCode) {
+    if (getDictId(value, hashCode) != NULL_VALUE_INDEX) {
+      return;
+    }
+    int dictId = _numEntries;
+
+    // Write the value
+    int chunkIndex = dictId >>> SHIFT_OFFSET;
+    if ((dictId & MASK) == 0) {
+      _valueChunks[chunkIndex] = PinotDataBuffer.allocateDirect((long) NUM_VALUES_PER_CHUNK * _valueSizeInBytes);
+    }
+    writeValue(dictId, value);
+
+    // Write the slot, double the slot table first if it is half full
+    SlotTable slotTable = _slotTable;
+    if (dictId >= slotTable._numSlots / 2) {
+      SlotTable newSlotTable = new SlotTable(slotTable._numSlots * 2);
+      for (int slot = 0; slot < slotTable._numSlots; slot++) {
+        int slotOffset = slot * SLOT_SIZE_IN_BYTES;
+        int dictIdPlusOne = slotTable._buffer.getInt(slotOffset + 4);
+        if (dictIdPlusOne != EMPTY_SLOT) {
+          newSlotTable.put(slotTable._buffer.getInt(slotOffset), dictIdPlusOne);
+        }
+      }
+      _replacedSlotBuffers.add(slotTable._buffer);
+      _slotTable = newSlotTable;
+      slotTable = newSlotTable;
+    }
+    slotTable.put(hashCode, dictId + 1);
+
+    // Publish the new entry
+    _numEntries = dictId + 1;
+  }
+
+  /**
+   * Returns whether the value of the given dictionary id equals the given value.
+   */
+  protected abstract boolean equalsValueAt(int dictId, @Nonnull Object value);
+
+  /**
+   * Writes the value of the given dictionary id into its chunk, see {@link #getValueChunk(int)} and
+   * {@link #getValueOffset(int)}.
+   */
+  protected abstract void writeValue(int dictId, @Nonnull Object value);
+
+  /**
+   * Spreads the hash code bits so that sequential values do not end up in sequential slots.
+   */
+  private static int mix(int hashCode) {
+    int h = hashCode * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  private static final class SlotTable {
+    private final PinotDataBuffer _buffer;
+    private final int _numSlots;
+    private final int _mask;
+
+    SlotTable(int numSlots) {
+      _buffer = PinotDataBuffer.allocateDirect((long) numSlots * SLOT_SIZE_IN_BYTES);
+      for (int i = 0; i < numSlots * SLOT_SIZE_IN_BYTES; i += 8) {
+        _buffer.putLong(i, 0L);
+      }
+      _numSlots = numSlots;
+      _mask = numSlots - 1;
+    }
+
+    /**
+     * Should only be called by the writer thread.
+     */
+    void put(int hashCode, int dictIdPlusOne) {
+      int slot = mix(hashCode) & _mask;
+      while (_buffer.getInt(slot * SLOT_SIZE_IN_BYTES + 4) != EMPTY_SLOT) {
+        slot = (slot + 1) & _mask;
+      }
+      int slotOffset = slot * SLOT_SIZE_IN_BYTES;
+      _buffer.putInt(slotOffset, hashCode);
+      _buffer.putInt(slotOffset + 4, dictIdPlusOne);
+    }
+  }
+}
@@ -15,7 +15,6 @@
  */
 package com.linkedin.pinot.core.realtime.impl.dictionary;
 
-import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.Nonnull;
@@ -23,21 +22,34 @@ import javax.annotation.Nonnull;
 
 /**
  * The class <code>BaseOnHeapMutableDictionary</code> is the implementation of the mutable dictionary required by
- * REALTIME consuming segments.
+ * REALTIME consuming segments, which keeps the values on heap.
  * <p>The implementation needs to be thread safe for single writer multiple readers scenario.
  * <p>We can assume the readers always first get the dictionary id for a value, then use the dictionary id to fetch the
  * value later, but not reversely. So whenever we return a valid dictionary id for a value, we need to ensure the value
  * can be fetched by the dictionary id returned.
  */
-public abstract class BaseOnHeapMutableDictionary implements Dictionary {
+public abstract class BaseOnHeapMutableDictionary extends BaseMutableDictionary {
   private static final int SHIFT_OFFSET = 13;  // INITIAL_DICTIONARY_SIZE = 8192
   private static final int INITIAL_DICTIONARY_SIZE = 1 << SHIFT_OFFSET;
   private static final int MASK = 0xFFFFFFFF >>> (Integer.SIZE - SHIFT_OFFSET);
 
-  private final Map<Object, Integer> _valueToDictId = new ConcurrentHashMap<>(INITIAL_DICTIONARY_SIZE);
+  private final Map<Object, Integer> _valueToDictId;
   private final Object[][] _dictIdToValue = new Object[INITIAL_DICTIONARY_SIZE][];
   private int _entriesIndexed = 0;
 
+  protected BaseOnHeapMutableDictionary() {
+    this(0);
+  }
+
+  /**
+   * @param estimatedCardinality expected number of values, used to size the value to dictId map so that it does not
+   *                             have to be rehashed while indexing. Non positive value means unknown.
+   */
+  protected BaseOnHeapMutableDictionary(int estimatedCardinality) {
+    _valueToDictId =
+        new ConcurrentHashMap<>((estimatedCardinality > 0) ? estimatedCardinality : INITIAL_DICTIONARY_SIZE);
+  }
+
   /**
    * For performance, we don't validate the dictId passed in. It should be returned by index() or indexOf().
    */
@@ -47,73 +59,20 @@ public abstract class BaseOnHeapMutableDictionary implements Dictionary {
     return _dictIdToValue[dictId >>> SHIFT_OFFSET][dictId & MASK];
   }
 
-  @Override
-  public String getStringValue(int dictId) {
-    return get(dictId).toString();
-  }
-
   @Override
   public int length() {
     return _entriesIndexed;
   }
 
   @Override
-  public void readIntValues(int[] dictIds, int startPos, int limit, int[] outValues, int outStartPos) {
-    int endPos = startPos + limit;
-    for (int i = startPos; i < endPos; i++) {
-      outValues[outStartPos++] = getIntValue(dictIds[i]);
-    }
-  }
-
-  @Override
-  public void readLongValues(int[] dictIds, int startPos, int limit, long[] outValues, int outStartPos) {
-    int endPos = startPos + limit;
-    for (int i = startPos; i < endPos; i++) {
-      outValues[outStartPos++] = getLongValue(dictIds[i]);
-    }
-  }
-
-  @Override
-  public void readFloatValues(int[] dictIds, int startPos, int limit, float[] outValues, int outStartPos) {
-    int endPos = startPos + limit;
-    for (int i = startPos; i < endPos; i++) {
-      outValues[outStartPos++] = getFloatValue(dictIds[i]);
-    }
-  }
-
-  @Override
-  public void readDoubleValues(int[] dictIds, int startPos, int limit, double[] outValues, int outStartPos) {
-    int endPos = startPos + limit;
-    for (int i = startPos; i < endPos; i++) {
-      outValues[outStartPos++] = getDoubleValue(dictIds[i]);
-    }
-  }
-
-  @Override
-  public void readStringValues(int[] dictIds, int startPos, int limit, String[] outValues, int outStartPos) {
-    int endPos = startPos + limit;
-    for (int i = startPos; i < endPos; i++) {
-      outValues[outStartPos++] = getStringValue(dictIds[i]);
-    }
-  }
-
   public boolean isEmpty() {
     return _entriesIndexed == 0;
   }
 
-  public abstract void index(@Nonnull Object rawValue);
-
-  public abstract boolean inRange(@Nonnull String lower, @Nonnull String upper, int dictIdToCompare,
-      boolean includeLower, boolean includeUpper);
-
-  @Nonnull
-  public abstract Object getMinVal();
-
-  @Nonnull
-  public abstract Object getMaxVal();
-
-  @Nonnull
-  public abstract Object getSortedValues();
+  @Override
+  public void close() {
+    // Nothing to release, values are garbage collected with the dictionary.
+  }
 
   /**
    * Index a single value.
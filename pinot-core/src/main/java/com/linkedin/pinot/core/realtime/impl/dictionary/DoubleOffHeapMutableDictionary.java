@@ -0,0 +1,176 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.dictionary;
+
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+
+public class DoubleOffHeapMutableDictionary extends BaseOffHeapMutableDictionary {
+  private double _min = Double.MAX_VALUE;
+  private double _max = Double.MIN_VALUE;
+
+  public DoubleOffHeapMutableDictionary() {
+    super(8);
+  }
+
+  public DoubleOffHeapMutableDictionary(int estimatedCardinality) {
+    super(8, estimatedCardinality);
+  }
+
+  @Override
+  public int indexOf(Object rawValue) {
+    double value;
+    if (rawValue instanceof String) {
+      value = Double.valueOf((String) rawValue);
+    } else {
+      value = (Double) rawValue;
+    }
+    return getDictId(value, hashCodeOf(value));
+  }
+
+  @Override
+  public void index(@Nonnull Object rawValue) {
+    if (rawValue instanceof Double) {
+      // Single value
+      double value = (Double) rawValue;
+      indexValue(rawValue, hashCodeOf(value));
+      updateMinMax(value);
+    } else {
+      // Multi value
+      Object[] values = (Object[]) rawValue;
+      for (Object object : values) {
+        double value = (Double) object;
+        indexValue(object, hashCodeOf(value));
+        updateMinMax(value);
+      }
+    }
+  }
+
+  @SuppressWarnings("Duplicates")
+  @Override
+  public boolean inRange(@Nonnull String lower, @Nonnull String upper, int dictIdToCompare, boolean includeLower,
+      boolean includeUpper) {
+    double lowerDouble = Double.parseDouble(lower);
+    double upperDouble = Double.parseDouble(upper);
+    double valueToCompare = getDoubleValue(dictIdToCompare);
+
+    if (includeLower) {
+      if (valueToCompare < lowerDouble) {
+        return false;
+      }
+    } else {
+      if (valueToCompare <= lowerDouble) {
+        return false;
+      }
+    }
+
+    if (includeUpper) {
+      if (valueToCompare > upperDouble) {
+        return false;
+      }
+    } else {
+      if (valueToCompare >= upperDouble) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  @Nonnull
+  @Override
+  public Double getMinVal() {
+    return _min;
+  }
+
+  @Nonnull
+  @Override
+  public Double getMaxVal() {
+    return _max;
+  }
+
+  @Nonnull
+  @Override
+  public double[] getSortedValues() {
+    int numValues = length();
+    double[] sortedValues = new double[numValues];
+
+    for (int i = 0; i < numValues; i++) {
+      sortedValues[i] = getDoubleValue(i);
+    }
+
+    Arrays.sort(sortedValues);
+    return sortedValues;
+  }
+
+  /**
+   * For performance, we don't validate the dictId passed in. It should be returned by index() or indexOf().
+   */
+  @Nonnull
+  @Override
+  public Double get(int dictId) {
+    return getDoubleValue(dictId);
+  }
+
+  @Override
+  public int getIntValue(int dictId) {
+    return (int) getDoubleValue(dictId);
+  }
+
+  @Override
+  public long getLongValue(int dictId) {
+    return (long) getDoubleValue(dictId);
+  }
+
+  @Override
+  public float getFloatValue(int dictId) {
+    return (float) getDoubleValue(dictId);
+  }
+
+  @Override
+  public double getDoubleValue(int dictId) {
+    return getValueChunk(dictId).getDouble(getValueOffset(dictId));
+  }
+
+  @Override
+  protected boolean equalsValueAt(int dictId, @Nonnull Object value) {
+    return valueEquals(getDoubleValue(dictId), (Double) value);
+  }
+
+  @Override
+  protected void writeValue(int dictId, @Nonnull Object value) {
+    getValueChunk(dictId).putDouble(getValueOffset(dictId), (Double) value);
+  }
+
+  private static int hashCodeOf(double value) {
+    long bits = Double.doubleToLongBits(value);
+    return (int) (bits ^ (bits >>> 32));
+  }
+
+  private static boolean valueEquals(double stored, double value) {
+    return Double.doubleToLongBits(value) == Double.doubleToLongBits(stored);
+  }
+
+  private void updateMinMax(double value) {
+    if (value < _min) {
+      _min = value;
+    }
+    if (value > _max) {
+      _max = value;
+    }
+  }
+}
@@ -23,6 +23,13 @@ public class DoubleOnHeapMutableDictionary extends BaseOnHeapMutableDictionary {
   private double _min = Double.MAX_VALUE;
   private double _max = Double.MIN_VALUE;
 
+  public DoubleOnHeapMutableDictionary() {
+  }
+
+  public DoubleOnHeapMutableDictionary(int estimatedCardinality) {
+    super(estimatedCardinality);
+  }
+
   @Override
   public int indexOf(Object rawValue) {
     if (rawValue instanceof String) {
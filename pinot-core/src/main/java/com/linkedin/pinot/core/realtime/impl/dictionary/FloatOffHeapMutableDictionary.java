@@ -0,0 +1,175 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.dictionary;
+
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+
+public class FloatOffHeapMutableDictionary extends BaseOffHeapMutableDictionary {
+  private float _min = Float.MAX_VALUE;
+  private float _max = Float.MIN_VALUE;
+
+  public FloatOffHeapMutableDictionary() {
+    super(4);
+  }
+
+  public FloatOffHeapMutableDictionary(int estimatedCardinality) {
+    super(4, estimatedCardinality);
+  }
+
+  @Override
+  public int indexOf(Object rawValue) {
+    float value;
+    if (rawValue instanceof String) {
+      value = Float.valueOf((String) rawValue);
+    } else {
+      value = (Float) rawValue;
+    }
+    return getDictId(value, hashCodeOf(value));
+  }
+
+  @Override
+  public void index(@Nonnull Object rawValue) {
+    if (rawValue instanceof Float) {
+      // Single value
+      float value = (Float) rawValue;
+      indexValue(rawValue, hashCodeOf(value));
+      updateMinMax(value);
+    } else {
+      // Multi value
+      Object[] values = (Object[]) rawValue;
+      for (Object object : values) {
+        float value = (Float) object;
+        indexValue(object, hashCodeOf(value));
+        updateMinMax(value);
+      }
+    }
+  }
+
+  @SuppressWarnings("Duplicates")
+  @Override
+  public boolean inRange(@Nonnull String lower, @Nonnull String upper, int dictIdToCompare, boolean includeLower,
+      boolean includeUpper) {
+    float lowerFloat = Float.parseFloat(lower);
+    float upperFloat = Float.parseFloat(upper);
+    float valueToCompare = getFloatValue(dictIdToCompare);
+
+    if (includeLower) {
+      if (valueToCompare < lowerFloat) {
+        return false;
+      }
+    } else {
+      if (valueToCompare <= lowerFloat) {
+        return false;
+      }
+    }
+
+    if (includeUpper) {
+      if (valueToCompare > upperFloat) {
+        return false;
+      }
+    } else {
+      if (valueToCompare >= upperFloat) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  @Nonnull
+  @Override
+  public Float getMinVal() {
+    return _min;
+  }
+
+  @Nonnull
+  @Override
+  public Float getMaxVal() {
+    return _max;
+  }
+
+  @Nonnull
+  @Override
+  public float[] getSortedValues() {
+    int numValues = length();
+    float[] sortedValues = new float[numValues];
+
+    for (int i = 0; i < numValues; i++) {
+      sortedValues[i] = getFloatValue(i);
+    }
+
+    Arrays.sort(sortedValues);
+    return sortedValues;
+  }
+
+  /**
+   * For performance, we don't validate the dictId passed in. It should be returned by index() or indexOf().
+   */
+  @Nonnull
+  @Override
+  public Float get(int dictId) {
+    return getFloatValue(dictId);
+  }
+
+  @Override
+  public int getIntValue(int dictId) {
+    return (int) getFloatValue(dictId);
+  }
+
+  @Override
+  public long getLongValue(int dictId) {
+    return (long) getFloatValue(dictId);
+  }
+
+  @Override
+  public float getFloatValue(int dictId) {
+    return getValueChunk(dictId).getFloat(getValueOffset(dictId));
+  }
+
+  @Override
+  public double getDoubleValue(int dictId) {
+    return getFloatValue(dictId);
+  }
+
+  @Override
+  protected boolean equalsValueAt(int dictId, @Nonnull Object value) {
+    return valueEquals(getFloatValue(dictId), (Float) value);
+  }
+
+  @Override
+  protected void writeValue(int dictId, @Nonnull Object value) {
+    getValueChunk(dictId).putFloat(getValueOffset(dictId), (Float) value);
+  }
+
+  private static int hashCodeOf(float value) {
+    return Float.floatToIntBits(value);
+  }
+
+  private static boolean valueEquals(float stored, float value) {
+    return Float.floatToIntBits(value) == Float.floatToIntBits(stored);
+  }
+
+  private void updateMinMax(float value) {
+    if (value < _min) {
+      _min = value;
+    }
+    if (value > _max) {
+      _max = value;
+    }
+  }
+}
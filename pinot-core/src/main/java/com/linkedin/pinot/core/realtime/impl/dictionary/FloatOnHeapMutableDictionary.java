@@ -23,6 +23,13 @@ public class FloatOnHeapMutableDictionary extends BaseOnHeapMutableDictionary {
   private float _min = Float.MAX_VALUE;
   private float _max = Float.MIN_VALUE;
 
+  public FloatOnHeapMutableDictionary() {
+  }
+
+  public FloatOnHeapMutableDictionary(int estimatedCardinality) {
+    super(estimatedCardinality);
+  }
+
   @Override
   public int indexOf(Object rawValue) {
     if (rawValue instanceof String) {
@@ -0,0 +1,175 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.dictionary;
+
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+
+public class IntOffHeapMutableDictionary extends BaseOffHeapMutableDictionary {
+  private int _min = Integer.MAX_VALUE;
+  private int _max = Integer.MIN_VALUE;
+
+  public IntOffHeapMutableDictionary() {
+    super(4);
+  }
+
+  public IntOffHeapMutableDictionary(int estimatedCardinality) {
+    super(4, estimatedCardinality);
+  }
+
+  @Override
+  public int indexOf(Object rawValue) {
+    int value;
+    if (rawValue instanceof String) {
+      value = Integer.valueOf((String) rawValue);
+    } else {
+      value = (Integer) rawValue;
+    }
+    return getDictId(value, hashCodeOf(value));
+  }
+
+  @Override
+  public void index(@Nonnull Object rawValue) {
+    if (rawValue instanceof Integer) {
+      // Single value
+      int value = (Integer) rawValue;
+      indexValue(rawValue, hashCodeOf(value));
+      updateMinMax(value);
+    } else {
+      // Multi value
+      Object[] values = (Object[]) rawValue;
+      for (Object object : values) {
+        int value = (Integer) object;
+        indexValue(object, hashCodeOf(value));
+        updateMinMax(value);
+      }
+    }
+  }
+
+  @SuppressWarnings("Duplicates")
+  @Override
+  public boolean inRange(@Nonnull String lower, @Nonnull String upper, int dictIdToCompare, boolean includeLower,
+      boolean includeUpper) {
+    int lowerInt = Integer.parseInt(lower);
+    int upperInt = Integer.parseInt(upper);
+    int valueToCompare = getIntValue(dictIdToCompare);
+
+    if (includeLower) {
+      if (valueToCompare < lowerInt) {
+        return false;
+      }
+    } else {
+      if (valueToCompare <= lowerInt) {
+        return false;
+      }
+    }
+
+    if (includeUpper) {
+      if (valueToCompare > upperInt) {
+        return false;
+      }
+    } else {
+      if (valueToCompare >= upperInt) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  @Nonnull
+  @Override
+  public Integer getMinVal() {
+    return _min;
+  }
+
+  @Nonnull
+  @Override
+  public Integer getMaxVal() {
+    return _max;
+  }
+
+  @Nonnull
+  @Override
+  public int[] getSortedValues() {
+    int numValues = length();
+    int[] sortedValues = new int[numValues];
+
+    for (int i = 0; i < numValues; i++) {
+      sortedValues[i] = getIntValue(i);
+    }
+
+    Arrays.sort(sortedValues);
+    return sortedValues;
+  }
+
+  /**
+   * For performance, we don't validate the dictId passed in. It should be returned by index() or indexOf().
+   */
+  @Nonnull
+  @Override
+  public Integer get(int dictId) {
+    return getIntValue(dictId);
+  }
+
+  @Override
+  public int getIntValue(int dictId) {
+    return getValueChunk(dictId).getInt(getValueOffset(dictId));
+  }
+
+  @Override
+  public long getLongValue(int dictId) {
+    return getIntValue(dictId);
+  }
+
+  @Override
+  public float getFloatValue(int dictId) {
+    return getIntValue(dictId);
+  }
+
+  @Override
+  public double getDoubleValue(int dictId) {
+    return getIntValue(dictId);
+  }
+
+  @Override
+  protected boolean equalsValueAt(int dictId, @Nonnull Object value) {
+    return valueEquals(getIntValue(dictId), (Integer) value);
+  }
+
+  @Override
+  protected void writeValue(int dictId, @Nonnull Object value) {
+    getValueChunk(dictId).putInt(getValueOffset(dictId), (Integer) value);
+  }
+
+  private static int hashCodeOf(int value) {
+    return value;
+  }
+
+  private static boolean valueEquals(int stored, int value) {
+    return value == stored;
+  }
+
+  private void updateMinMax(int value) {
+    if (value < _min) {
+      _min = value;
+    }
+    if (value > _max) {
+      _max = value;
+    }
+  }
+}
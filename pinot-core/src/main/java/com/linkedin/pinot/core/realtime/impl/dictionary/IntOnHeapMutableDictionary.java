@@ -23,6 +23,13 @@ public class IntOnHeapMutableDictionary extends BaseOnHeapMutableDictionary {
   private int _min = Integer.MAX_VALUE;
   private int _max = Integer.MIN_VALUE;
 
+  public IntOnHeapMutableDictionary() {
+  }
+
+  public IntOnHeapMutableDictionary(int estimatedCardinality) {
+    super(estimatedCardinality);
+  }
+
   @Override
   public int indexOf(Object rawValue) {
     if (rawValue instanceof String) {
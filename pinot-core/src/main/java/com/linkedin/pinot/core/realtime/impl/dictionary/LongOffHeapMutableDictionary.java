@@ -0,0 +1,175 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.dictionary;
+
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+
+public class LongOffHeapMutableDictionary extends BaseOffHeapMutableDictionary {
+  private long _min = Long.MAX_VALUE;
+  private long _max = Long.MIN_VALUE;
+
+  public LongOffHeapMutableDictionary() {
+    super(8);
+  }
+
+  public LongOffHeapMutableDictionary(int estimatedCardinality) {
+    super(8, estimatedCardinality);
+  }
+
+  @Override
+  public int indexOf(Object rawValue) {
+    long value;
+    if (rawValue instanceof String) {
+      value = Long.valueOf((String) rawValue);
+    } else {
+      value = (Long) rawValue;
+    }
+    return getDictId(value, hashCodeOf(value));
+  }
+
+  @Override
+  public void index(@Nonnull Object rawValue) {
+    if (rawValue instanceof Long) {
+      // Single value
+      long value = (Long) rawValue;
+      indexValue(rawValue, hashCodeOf(value));
+      updateMinMax(value);
+    } else {
+      // Multi value
+      Object[] values = (Object[]) rawValue;
+      for (Object object : values) {
+        long value = (Long) object;
+        indexValue(object, hashCodeOf(value));
+        updateMinMax(value);
+      }
+    }
+  }
+
+  @SuppressWarnings("Duplicates")
+  @Override
+  public boolean inRange(@Nonnull String lower, @Nonnull String upper, int dictIdToCompare, boolean includeLower,
+      boolean includeUpper) {
+    long lowerLong = Long.parseLong(lower);
+    long upperLong = Long.parseLong(upper);
+    long valueToCompare = getLongValue(dictIdToCompare);
+
+    if (includeLower) {
+      if (valueToCompare < lowerLong) {
+        return false;
+      }
+    } else {
+      if (valueToCompare <= lowerLong) {
+        return false;
+      }
+    }
+
+    if (includeUpper) {
+      if (valueToCompare > upperLong) {
+        return false;
+      }
+    } else {
+      if (valueToCompare >= upperLong) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  @Nonnull
+  @Override
+  public Long getMinVal() {
+    return _min;
+  }
+
+  @Nonnull
+  @Override
+  public Long getMaxVal() {
+    return _max;
+  }
+
+  @Nonnull
+  @Override
+  public long[] getSortedValues() {
+    int numValues = length();
+    long[] sortedValues = new long[numValues];
+
+    for (int i = 0; i < numValues; i++) {
+      sortedValues[i] = getLongValue(i);
+    }
+
+    Arrays.sort(sortedValues);
+    return sortedValues;
+  }
+
+  /**
+   * For performance, we don't validate the dictId passed in. It should be returned by index() or indexOf().
+   */
+  @Nonnull
+  @Override
+  public Long get(int dictId) {
+    return getLongValue(dictId);
+  }
+
+  @Override
+  public int getIntValue(int dictId) {
+    return (int) getLongValue(dictId);
+  }
+
+  @Override
+  public long getLongValue(int dictId) {
+    return getValueChunk(dictId).getLong(getValueOffset(dictId));
+  }
+
+  @Override
+  public float getFloatValue(int dictId) {
+    return getLongValue(dictId);
+  }
+
+  @Override
+  public double getDoubleValue(int dictId) {
+    return getLongValue(dictId);
+  }
+
+  @Override
+  protected boolean equalsValueAt(int dictId, @Nonnull Object value) {
+    return valueEquals(getLongValue(dictId), (Long) value);
+  }
+
+  @Override
+  protected void writeValue(int dictId, @Nonnull Object value) {
+    getValueChunk(dictId).putLong(getValueOffset(dictId), (Long) value);
+  }
+
+  private static int hashCodeOf(long value) {
+    return (int) (value ^ (value >>> 32));
+  }
+
+  private static boolean valueEquals(long stored, long value) {
+    return value == stored;
+  }
+
+  private void updateMinMax(long value) {
+    if (value < _min) {
+      _min = value;
+    }
+    if (value > _max) {
+      _max = value;
+    }
+  }
+}
@@ -23,6 +23,13 @@ public class LongOnHeapMutableDictionary extends BaseOnHeapMutableDictionary {
   private long _min = Long.MAX_VALUE;
   private long _max = Long.MIN_VALUE;
 
+  public LongOnHeapMutableDictionary() {
+  }
+
+  public LongOnHeapMutableDictionary(int estimatedCardinality) {
+    super(estimatedCardinality);
+  }
+
   @Override
   public int indexOf(Object rawValue) {
     if (rawValue instanceof String) {
@@ -22,18 +22,51 @@ public class MutableDictionaryFactory {
   private MutableDictionaryFactory() {
   }
 
-  public static BaseOnHeapMutableDictionary getMutableDictionary(FieldSpec.DataType dataType) {
+  public static BaseMutableDictionary getMutableDictionary(FieldSpec.DataType dataType) {
+    return getMutableDictionary(dataType, false);
+  }
+
+  /**
+   * Returns a mutable dictionary for the given data type, which keeps the values off heap if <code>offHeap</code> is
+   * set.
+   */
+  public static BaseMutableDictionary getMutableDictionary(FieldSpec.DataType dataType, boolean offHeap) {
+    return getMutableDictionary(dataType, offHeap, 0);
+  }
+
+  /**
+   * Returns a mutable dictionary for the given data type, which keeps the values off heap if <code>offHeap</code> is
+   * set, and is sized upfront for <code>estimatedCardinality</code> values (non positive value means unknown).
+   */
+  public static BaseMutableDictionary getMutableDictionary(FieldSpec.DataType dataType, boolean offHeap,
+      int estimatedCardinality) {
+    if (offHeap) {
+      switch (dataType) {
+        case INT:
+          return new IntOffHeapMutableDictionary(estimatedCardinality);
+        case LONG:
+          return new LongOffHeapMutableDictionary(estimatedCardinality);
+        case FLOAT:
+          return new FloatOffHeapMutableDictionary(estimatedCardinality);
+        case DOUBLE:
+          return new DoubleOffHeapMutableDictionary(estimatedCardinality);
+        case STRING:
+          return new StringOffHeapMutableDictionary(estimatedCardinality);
+        default:
+          throw new UnsupportedOperationException();
+      }
+    }
     switch (dataType) {
       case INT:
-        return new IntOnHeapMutableDictionary();
+        return new IntOnHeapMutableDictionary(estimatedCardinality);
       case LONG:
-        return new LongOnHeapMutableDictionary();
+        return new LongOnHeapMutableDictionary(estimatedCardinality);
       case FLOAT:
-        return new FloatOnHeapMutableDictionary();
+        return new FloatOnHeapMutableDictionary(estimatedCardinality);
       case DOUBLE:
-        return new DoubleOnHeapMutableDictionary();
+        return new DoubleOnHeapMutableDictionary(estimatedCardinality);
       case STRING:
-        return new StringOnHeapMutableDictionary();
+        return new StringOnHeapMutableDictionary(estimatedCardinality);
       default:
         throw new UnsupportedOperationException();
     }
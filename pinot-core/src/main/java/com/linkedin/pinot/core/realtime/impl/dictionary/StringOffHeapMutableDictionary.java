@@ -0,0 +1,240 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.dictionary;
+
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+
+/**
+ * Off heap mutable dictionary for STRING values.
+ * <p>The UTF-8 bytes of the values are appended to direct buffer byte chunks, and the fixed width value of each
+ * dictionary id holds the byte chunk index, the offset inside the byte chunk and the number of bytes.
+ */
+public class StringOffHeapMutableDictionary extends BaseOffHeapMutableDictionary {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final int VALUE_SIZE_IN_BYTES = 12;
+  private static final int INITIAL_BYTE_CHUNK_SIZE = 1 << 16;
+  private static final int MAX_BYTE_CHUNK_SIZE = 1 << 22;
+
+  // Replaced with a bigger copy when full, volatile so that readers always see a complete array
+  private volatile PinotDataBuffer[] _byteChunks = new PinotDataBuffer[8];
+  // Only accessed by the writer thread
+  private int _numByteChunks = 0;
+  private int _currentByteChunkSize = 0;
+  private int _currentByteChunkOffset = 0;
+
+  private String _min = null;
+  private String _max = null;
+
+  public StringOffHeapMutableDictionary() {
+    super(VALUE_SIZE_IN_BYTES);
+  }
+
+  public StringOffHeapMutableDictionary(int estimatedCardinality) {
+    super(VALUE_SIZE_IN_BYTES, estimatedCardinality);
+  }
+
+  @Override
+  public int indexOf(Object rawValue) {
+    return getDictId(rawValue, rawValue.hashCode());
+  }
+
+  @Override
+  public void index(@Nonnull Object rawValue) {
+    if (rawValue instanceof String) {
+      // Single value
+      indexValue(rawValue, rawValue.hashCode());
+      updateMinMax((String) rawValue);
+    } else {
+      // Multi value
+      Object[] values = (Object[]) rawValue;
+      for (Object value : values) {
+        indexValue(value, value.hashCode());
+        updateMinMax((String) value);
+      }
+    }
+  }
+
+  @Override
+  public boolean inRange(@Nonnull String lower, @Nonnull String upper, int dictIdToCompare, boolean includeLower,
+      boolean includeUpper) {
+    String valueToCompare = get(dictIdToCompare);
+
+    if (includeLower) {
+      if (valueToCompare.compareTo(lower) < 0) {
+        return false;
+      }
+    } else {
+      if (valueToCompare.compareTo(lower) <= 0) {
+        return false;
+      }
+    }
+
+    if (includeUpper) {
+      if (valueToCompare.compareTo(upper) > 0) {
+        return false;
+      }
+    } else {
+      if (valueToCompare.compareTo(upper) >= 0) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  @Nonnull
+  @Override
+  public String getMinVal() {
+    return _min;
+  }
+
+  @Nonnull
+  @Override
+  public String getMaxVal() {
+    return _max;
+  }
+
+  @Nonnull
+  @Override
+  public String[] getSortedValues() {
+    int numValues = length();
+    String[] sortedValues = new String[numValues];
+
+    for (int i = 0; i < numValues; i++) {
+      sortedValues[i] = get(i);
+    }
+
+    Arrays.sort(sortedValues);
+    return sortedValues;
+  }
+
+  /**
+   * For performance, we don't validate the dictId passed in. It should be returned by index() or indexOf().
+   */
+  @Nonnull
+  @Override
+  public String get(int dictId) {
+    PinotDataBuffer valueChunk = getValueChunk(dictId);
+    int valueOffset = getValueOffset(dictId);
+    PinotDataBuffer byteChunk = _byteChunks[valueChunk.getInt(valueOffset)];
+    int numBytes = valueChunk.getInt(valueOffset + 8);
+    byte[] bytes = new byte[numBytes];
+    byteChunk.copyTo(valueChunk.getInt(valueOffset + 4), bytes, 0, numBytes);
+    return new String(bytes, UTF_8);
+  }
+
+  @Override
+  public String getStringValue(int dictId) {
+    return get(dictId);
+  }
+
+  @Override
+  public int getIntValue(int dictId) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public long getLongValue(int dictId) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public float getFloatValue(int dictId) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public double getDoubleValue(int dictId) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void close() {
+    super.close();
+    for (int i = 0; i < _numByteChunks; i++) {
+      _byteChunks[i].close();
+      _byteChunks[i] = null;
+    }
+    _numByteChunks = 0;
+  }
+
+  @Override
+  protected boolean equalsValueAt(int dictId, @Nonnull Object value) {
+    byte[] bytes = ((String) value).getBytes(UTF_8);
+    PinotDataBuffer valueChunk = getValueChunk(dictId);
+    int valueOffset = getValueOffset(dictId);
+    int numBytes = valueChunk.getInt(valueOffset + 8);
+    if (numBytes != bytes.length) {
+      return false;
+    }
+    PinotDataBuffer byteChunk = _byteChunks[valueChunk.getInt(valueOffset)];
+    int byteOffset = valueChunk.getInt(valueOffset + 4);
+    for (int i = 0; i < numBytes; i++) {
+      if (byteChunk.getByte(byteOffset + i) != bytes[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  protected void writeValue(int dictId, @Nonnull Object value) {
+    byte[] bytes = ((String) value).getBytes(UTF_8);
+    int numBytes = bytes.length;
+
+    // Allocate a new byte chunk if the value does not fit into the current one
+    if (_numByteChunks == 0 || _currentByteChunkOffset + numBytes > _currentByteChunkSize) {
+      int byteChunkSize = (_numByteChunks == 0) ? INITIAL_BYTE_CHUNK_SIZE
+          : Math.min(_currentByteChunkSize * 2, MAX_BYTE_CHUNK_SIZE);
+      byteChunkSize = Math.max(byteChunkSize, numBytes);
+      PinotDataBuffer[] byteChunks = _byteChunks;
+      if (_numByteChunks == byteChunks.length) {
+        byteChunks = Arrays.copyOf(byteChunks, _numByteChunks * 2);
+      }
+      byteChunks[_numByteChunks++] = PinotDataBuffer.allocateDirect(byteChunkSize);
+      _byteChunks = byteChunks;
+      _currentByteChunkSize = byteChunkSize;
+      _currentByteChunkOffset = 0;
+    }
+
+    PinotDataBuffer byteChunk = _byteChunks[_numByteChunks - 1];
+    byteChunk.readFrom(bytes, _currentByteChunkOffset);
+    PinotDataBuffer valueChunk = getValueChunk(dictId);
+    int valueOffset = getValueOffset(dictId);
+    valueChunk.putInt(valueOffset, _numByteChunks - 1);
+    valueChunk.putInt(valueOffset + 4, _currentByteChunkOffset);
+    valueChunk.putInt(valueOffset + 8, numBytes);
+    _currentByteChunkOffset += numBytes;
+  }
+
+  private void updateMinMax(String value) {
+    if (_min == null) {
+      _min = value;
+      _max = value;
+    } else {
+      if (value.compareTo(_min) < 0) {
+        _min = value;
+      }
+      if (value.compareTo(_max) > 0) {
+        _max = value;
+      }
+    }
+  }
+}
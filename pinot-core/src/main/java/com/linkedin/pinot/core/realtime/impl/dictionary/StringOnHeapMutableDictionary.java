@@ -23,6 +23,13 @@ public class StringOnHeapMutableDictionary extends BaseOnHeapMutableDictionary {
   private String _min = null;
   private String _max = null;
 
+  public StringOnHeapMutableDictionary() {
+  }
+
+  public StringOnHeapMutableDictionary(int estimatedCardinality) {
+    super(estimatedCardinality);
+  }
+
   @Override
   public int indexOf(Object rawValue) {
     return getDictId(rawValue);
@@ -30,7 +30,19 @@ public class DimensionInvertertedIndex implements RealtimeInvertedIndex {
   private Map<Integer, MutableRoaringBitmap> invertedIndex;
 
   public DimensionInvertertedIndex(String columnName) {
-    invertedIndex = new HashMap<Integer, MutableRoaringBitmap>();
+    this(columnName, 0);
+  }
+
+  /**
+   * @param estimatedCardinality expected number of distinct values, used to size the map upfront (non positive value
+   *                             means unknown).
+   */
+  public DimensionInvertertedIndex(String columnName, int estimatedCardinality) {
+    if (estimatedCardinality > 0) {
+      invertedIndex = new HashMap<Integer, MutableRoaringBitmap>((int) (estimatedCardinality / 0.75f) + 1);
+    } else {
+      invertedIndex = new HashMap<Integer, MutableRoaringBitmap>();
+    }
   }
 
   @Override
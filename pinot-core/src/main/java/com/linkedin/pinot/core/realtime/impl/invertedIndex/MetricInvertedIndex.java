@@ -31,7 +31,19 @@ public class MetricInvertedIndex implements RealtimeInvertedIndex {
   Map<Object, MutableRoaringBitmap> invertedIndex;
 
   public MetricInvertedIndex(String columnName) {
-    invertedIndex = new HashMap<Object, MutableRoaringBitmap>();
+    this(columnName, 0);
+  }
+
+  /**
+   * @param estimatedCardinality expected number of distinct values, used to size the map upfront (non positive value
+   *                             means unknown).
+   */
+  public MetricInvertedIndex(String columnName, int estimatedCardinality) {
+    if (estimatedCardinality > 0) {
+      invertedIndex = new HashMap<Object, MutableRoaringBitmap>((int) (estimatedCardinality / 0.75f) + 1);
+    } else {
+      invertedIndex = new HashMap<Object, MutableRoaringBitmap>();
+    }
   }
 
   @Override
@@ -15,6 +15,7 @@
  */
 package com.linkedin.pinot.core.realtime.impl.kafka;
 
+import com.linkedin.pinot.common.metrics.BatchedMeter;
 import com.linkedin.pinot.common.metrics.ServerMeter;
 import com.linkedin.pinot.common.metrics.ServerMetrics;
 import org.slf4j.Logger;
@@ -31,6 +32,8 @@ import kafka.javaapi.consumer.ConsumerConnector;
  */
 public class KafkaHighLevelConsumerStreamProvider implements StreamProvider {
   private static final Logger STATIC_LOGGER = LoggerFactory.getLogger(KafkaHighLevelConsumerStreamProvider.class);
+  // Max time between two flushes of the per-row meters
+  private static final long METRICS_FLUSH_INTERVAL_MS = 1000L;
 
   private KafkaHighLevelStreamProviderConfig streamProviderConfig;
   private KafkaMessageDecoder decoder;
@@ -46,6 +49,10 @@ public class KafkaHighLevelConsumerStreamProvider implements StreamProvider {
   private ServerMetrics serverMetrics;
   private String tableAndStreamName;
   private long currentCount = 0L;
+  // Per-row meters, only accessed by the indexing thread
+  private BatchedMeter tableRowsConsumedMeter;
+  private BatchedMeter globalRowsConsumedMeter;
+  private long lastMetricsFlushTime = 0L;
 
   @Override
   public void init(StreamProviderConfig streamProviderConfig, String tableName, ServerMetrics serverMetrics)
@@ -57,6 +64,8 @@ public class KafkaHighLevelConsumerStreamProvider implements StreamProvider {
         KafkaHighLevelConsumerStreamProvider.class.getName() + "_" + tableName + "_" + streamProviderConfig
             .getStreamName());
     this.serverMetrics = serverMetrics;
+    tableRowsConsumedMeter = serverMetrics.newBatchedTableMeter(tableAndStreamName, ServerMeter.REALTIME_ROWS_CONSUMED);
+    globalRowsConsumedMeter = serverMetrics.newBatchedGlobalMeter(ServerMeter.REALTIME_ROWS_CONSUMED);
   }
 
   @Override
@@ -76,11 +85,15 @@ public class KafkaHighLevelConsumerStreamProvider implements StreamProvider {
     if (kafkaIterator.hasNext()) {
       try {
         destination = decoder.decode(kafkaIterator.next().message(), destination);
-        serverMetrics.addMeteredTableValue(tableAndStreamName, ServerMeter.REALTIME_ROWS_CONSUMED, 1L);
-        serverMetrics.addMeteredGlobalValue(ServerMeter.REALTIME_ROWS_CONSUMED, 1L);
+        tableRowsConsumedMeter.mark();
+        globalRowsConsumedMeter.mark();
         ++currentCount;
 
         final long now = System.currentTimeMillis();
+        if (now - lastMetricsFlushTime >= METRICS_FLUSH_INTERVAL_MS) {
+          flushMetrics();
+          lastMetricsFlushTime = now;
+        }
         // Log every minute or 100k events
         if (now - lastLogTime > 60000 || currentCount - lastCount >= 100000) {
           if (lastCount == 0) {
@@ -117,11 +130,17 @@ public class KafkaHighLevelConsumerStreamProvider implements StreamProvider {
 
   @Override
   public void commit() {
+    flushMetrics();
     consumer.commitOffsets();
     serverMetrics.addMeteredTableValue(tableAndStreamName, ServerMeter.REALTIME_OFFSET_COMMITS, 1L);
     serverMetrics.addMeteredGlobalValue(ServerMeter.REALTIME_OFFSET_COMMITS, 1L);
   }
 
+  private void flushMetrics() {
+    tableRowsConsumedMeter.flush();
+    globalRowsConsumedMeter.flush();
+  }
+
   @Override
   public void commit(long offset) {
     throw new UnsupportedOperationException();
@@ -129,6 +148,8 @@ public class KafkaHighLevelConsumerStreamProvider implements StreamProvider {
 
   @Override
   public void shutdown() throws Exception {
+    // Do not lose the rows consumed since the last flush.
+    flushMetrics();
     if (consumerAndIterator != null) {
       kafkaIterator = null;
       consumer = null;
@@ -17,7 +17,7 @@ package com.linkedin.pinot.core.realtime.utils;
 
 import com.linkedin.pinot.common.data.Schema;
 import com.linkedin.pinot.core.data.GenericRow;
-import com.linkedin.pinot.core.realtime.impl.dictionary.BaseOnHeapMutableDictionary;
+import com.linkedin.pinot.core.realtime.impl.dictionary.BaseMutableDictionary;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -30,10 +30,10 @@ public class RealtimeDimensionsSerDe {
 
   private final List<String> dimensionsList;
   private final Schema dataSchema;
-  private final Map<String, BaseOnHeapMutableDictionary> dictionaryMap;
+  private final Map<String, BaseMutableDictionary> dictionaryMap;
 
   public RealtimeDimensionsSerDe(List<String> dimensionName, Schema schema,
-      Map<String, BaseOnHeapMutableDictionary> dictionary) {
+      Map<String, BaseMutableDictionary> dictionary) {
     this.dimensionsList = dimensionName;
     this.dataSchema = schema;
     this.dictionaryMap = dictionary;
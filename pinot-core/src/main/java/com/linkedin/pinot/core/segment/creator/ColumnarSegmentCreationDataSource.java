@@ -0,0 +1,34 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.creator;
+
+import javax.annotation.Nullable;
+
+
+/**
+ * Data source which can also provide its data one column at a time, so that the segment can be built without
+ * materializing the rows. If any of the columns cannot be provided this way, the segment is built from the record
+ * reader instead.
+ */
+public interface ColumnarSegmentCreationDataSource extends SegmentCreationDataSource {
+
+  /**
+   * Returns the dictionary encoded values of the given column, in the document order of the segment to create, or
+   * <code>null</code> if the column cannot be provided this way.
+   */
+  @Nullable
+  DictionaryEncodedColumnSource getColumnSource(String column);
+}
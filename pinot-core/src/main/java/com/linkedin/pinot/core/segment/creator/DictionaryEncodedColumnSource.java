@@ -0,0 +1,53 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.creator;
+
+/**
+ * Dictionary encoded values of one column, used to index a whole column at once instead of one row at a time.
+ * <p>The dictionary of the source does not need to be sorted: the segment creator looks up each of its values once in
+ * the dictionary of the segment, and remaps the dictionary ids of all the documents with the resulting mapping.
+ */
+public interface DictionaryEncodedColumnSource {
+
+  /**
+   * Returns the number of values in the dictionary of the source.
+   */
+  int getDictionarySize();
+
+  /**
+   * Returns the value for the given dictionary id of the source.
+   */
+  Object getDictionaryValue(int dictId);
+
+  /**
+   * Returns the dictionary id of a single-value column for the given document of the segment to create.
+   */
+  int getDictId(int docId);
+
+  /**
+   * Reads the dictionary ids of a multi-value column for the given document of the segment to create.
+   *
+   * @param docId Document id in the segment to create
+   * @param dictIds Buffer to read the dictionary ids into, large enough for the max number of values
+   * @return Number of values of the document
+   */
+  int getDictIds(int docId, int[] dictIds);
+
+  /**
+   * Returns the max number of values of a multi-value column for one document.
+   */
+  int getMaxNumberOfMultiValues();
+}
@@ -49,6 +49,15 @@ public interface SegmentCreator {
    */
   void indexRow(GenericRow row);
 
+  /**
+   * Indexes all the documents of a column at once, as an alternative to {@link #indexRow(GenericRow)}. Should be called
+   * once for each column of the schema, and cannot be mixed with row indexing.
+   *
+   * @param column The column to index
+   * @param columnSource The dictionary encoded values of the column, in document order
+   */
+  void indexColumn(String column, DictionaryEncodedColumnSource columnSource);
+
   /**
    * Sets the name of the segment.
    *
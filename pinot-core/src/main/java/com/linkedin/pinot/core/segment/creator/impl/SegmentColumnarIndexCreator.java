@@ -22,7 +22,9 @@ import com.linkedin.pinot.core.data.GenericRow;
 import com.linkedin.pinot.core.data.partition.PartitionFunction;
 import com.linkedin.pinot.common.config.ColumnPartitionConfig;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.io.compression.ChunkCompressorFactory;
 import com.linkedin.pinot.core.segment.creator.ColumnIndexCreationInfo;
+import com.linkedin.pinot.core.segment.creator.DictionaryEncodedColumnSource;
 import com.linkedin.pinot.core.segment.creator.ForwardIndexCreator;
 import com.linkedin.pinot.core.segment.creator.InvertedIndexCreator;
 import com.linkedin.pinot.core.segment.creator.MultiValueForwardIndexCreator;
@@ -35,10 +37,12 @@ import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueFixedByteRawI
 import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueSortedForwardIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueUnsortedForwardIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueVarByteRawIndexCreator;
+import com.linkedin.pinot.core.segment.creator.impl.bloom.BloomFilterCreator;
 import com.linkedin.pinot.core.segment.creator.impl.inv.OffHeapBitmapInvertedIndexCreator;
 import com.linkedin.pinot.core.startree.hll.HllConfig;
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.Array;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -120,7 +124,7 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
       if (createDictionaryForColumn(info, config, spec)) {
         dictionaryCreatorMap.put(column,
             new SegmentDictionaryCreator(info.hasNulls(), info.getSortedUniqueElementsArray(), spec, file,
-                paddingCharacter));
+                paddingCharacter, config.isVarLengthStringDictionary()));
       }
     }
 
@@ -144,8 +148,13 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
       if (fieldSpec.isSingleValueField()) {
         // Raw indexes store actual values, instead of dictionary ids.
         if (buildRawIndex) {
+          ChunkCompressorFactory.CompressionType compressionType = config.getRawIndexCompressionTypes().get(column);
+          if (compressionType == null) {
+            compressionType = ChunkCompressorFactory.CompressionType.SNAPPY;
+          }
           forwardIndexCreatorMap.put(column,
-              getRawIndexCreatorForColumn(file, column, fieldSpec.getDataType(), totalDocs, maxLength));
+              getRawIndexCreatorForColumn(file, compressionType, column, fieldSpec.getDataType(), totalDocs,
+                  maxLength));
         } else {
           if (indexCreationInfo.isSorted()) {
             forwardIndexCreatorMap.put(column,
@@ -269,6 +278,58 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
     docIdCounter++;
   }
 
+  @Override
+  public void indexColumn(String column, DictionaryEncodedColumnSource columnSource) {
+    try {
+      ForwardIndexCreator forwardIndexCreator = forwardIndexCreatorMap.get(column);
+      SegmentDictionaryCreator dictionaryCreator = dictionaryCreatorMap.get(column);
+      if (dictionaryCreator == null) {
+        SingleValueRawIndexCreator rawIndexCreator = (SingleValueRawIndexCreator) forwardIndexCreator;
+        for (int docId = 0; docId < totalDocs; docId++) {
+          rawIndexCreator.index(docId, columnSource.getDictionaryValue(columnSource.getDictId(docId)));
+        }
+        return;
+      }
+
+      // Look up each value of the source dictionary only once, then remap the dictionary ids of all the documents
+      int dictionarySize = columnSource.getDictionarySize();
+      int[] dictIdMapping = new int[dictionarySize];
+      for (int i = 0; i < dictionarySize; i++) {
+        dictIdMapping[i] = dictionaryCreator.indexOfSV(columnSource.getDictionaryValue(i));
+      }
+
+      InvertedIndexCreator invertedIndexCreator = invertedIndexCreatorMap.get(column);
+      if (schema.getFieldSpecFor(column).isSingleValueField()) {
+        SingleValueForwardIndexCreator singleValueForwardIndexCreator =
+            (SingleValueForwardIndexCreator) forwardIndexCreator;
+        for (int docId = 0; docId < totalDocs; docId++) {
+          int dictId = dictIdMapping[columnSource.getDictId(docId)];
+          singleValueForwardIndexCreator.index(docId, dictId);
+          if (invertedIndexCreator != null) {
+            invertedIndexCreator.add(docId, dictId);
+          }
+        }
+      } else {
+        MultiValueForwardIndexCreator multiValueForwardIndexCreator =
+            (MultiValueForwardIndexCreator) forwardIndexCreator;
+        int[] sourceDictIds = new int[columnSource.getMaxNumberOfMultiValues()];
+        for (int docId = 0; docId < totalDocs; docId++) {
+          int numValues = columnSource.getDictIds(docId, sourceDictIds);
+          int[] dictIds = new int[numValues];
+          for (int i = 0; i < numValues; i++) {
+            dictIds[i] = dictIdMapping[sourceDictIds[i]];
+          }
+          multiValueForwardIndexCreator.index(docId, dictIds);
+          if (invertedIndexCreator != null) {
+            invertedIndexCreator.add(docId, dictIds);
+          }
+        }
+      }
+    } catch (Exception e) {
+      throw new RuntimeException("Exception while indexing column:" + column, e);
+    }
+  }
+
   @Override
   public void setSegmentName(String segmentName) {
     this.segmentName = segmentName;
@@ -288,9 +349,32 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
     for (final String invertedColumn : invertedIndexCreatorMap.keySet()) {
       invertedIndexCreatorMap.get(invertedColumn).seal();
     }
+    createBloomFilters();
     writeMetadata();
   }
 
+  /**
+   * Creates the bloom filters from the distinct values of the columns with bloom filter creation enabled.
+   */
+  private void createBloomFilters() throws IOException {
+    for (String column : config.getBloomFilterCreationColumns()) {
+      ColumnIndexCreationInfo indexCreationInfo = indexCreationInfoMap.get(column);
+      if (indexCreationInfo == null) {
+        LOGGER.warn("Skip creating bloom filter for segment: {}, column: {} because column does not exist in schema",
+            segmentName, column);
+        continue;
+      }
+      // The sorted unique elements can be an array of primitive values.
+      Object sortedUniqueElements = indexCreationInfo.getSortedUniqueElementsArray();
+      int cardinality = Array.getLength(sortedUniqueElements);
+      BloomFilterCreator bloomFilterCreator = new BloomFilterCreator(file, column, cardinality);
+      for (int i = 0; i < cardinality; i++) {
+        bloomFilterCreator.add(Array.get(sortedUniqueElements, i));
+      }
+      bloomFilterCreator.seal();
+    }
+  }
+
   void writeMetadata() throws ConfigurationException {
     PropertiesConfiguration properties =
         new PropertiesConfiguration(new File(file, V1Constants.MetadataKeys.METADATA_FILE_NAME));
@@ -376,6 +460,11 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
       addColumnMetadataInfo(properties, column, columnIndexCreationInfo, totalDocs, totalRawDocs, totalAggDocs,
           schema.getFieldSpecFor(column), dictionaryCreatorMap.containsKey(column), dictionaryElementSize,
           hasInvertedIndex, hllOriginColumn);
+      if (dictionaryCreator != null
+          && dictionaryCreator.getDictionaryVersion() != V1Constants.Dict.PADDED_STRING_DICTIONARY_VERSION) {
+        properties.setProperty(getKeyFor(column, DICTIONARY_VERSION),
+            String.valueOf(dictionaryCreator.getDictionaryVersion()));
+      }
     }
 
     properties.save();
@@ -449,6 +538,7 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
     properties.clearProperty(getKeyFor(column, DATA_TYPE));
     properties.clearProperty(getKeyFor(column, BITS_PER_ELEMENT));
     properties.clearProperty(getKeyFor(column, DICTIONARY_ELEMENT_SIZE));
+    properties.clearProperty(getKeyFor(column, DICTIONARY_VERSION));
     properties.clearProperty(getKeyFor(column, COLUMN_TYPE));
     properties.clearProperty(getKeyFor(column, IS_SORTED));
     properties.clearProperty(getKeyFor(column, HAS_NULL_VALUE));
@@ -479,31 +569,52 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
   public static SingleValueRawIndexCreator getRawIndexCreatorForColumn(File file, String column,
       FieldSpec.DataType dataType, int totalDocs, int lengthOfLongestEntry)
       throws IOException {
+    return getRawIndexCreatorForColumn(file, ChunkCompressorFactory.CompressionType.SNAPPY, column, dataType,
+        totalDocs, lengthOfLongestEntry);
+  }
+
+  /**
+   * Helper method to build the raw index creator for the column, with the given compression type for the chunks.
+   * Assumes that column to be indexed is single valued.
+   *
+   * @param file Output index file
+   * @param compressionType Compression type of the chunks
+   * @param column Column name
+   * @param totalDocs Total number of documents to index
+   * @param lengthOfLongestEntry Length of longest entry
+   * @return
+   * @throws IOException
+   */
+  public static SingleValueRawIndexCreator getRawIndexCreatorForColumn(File file,
+      ChunkCompressorFactory.CompressionType compressionType, String column, FieldSpec.DataType dataType,
+      int totalDocs, int lengthOfLongestEntry)
+      throws IOException {
 
     SingleValueRawIndexCreator indexCreator;
     switch(dataType) {
       case INT:
-        indexCreator =
-            new SingleValueFixedByteRawIndexCreator(file, column, totalDocs, V1Constants.Numbers.INTEGER_SIZE);
+        indexCreator = new SingleValueFixedByteRawIndexCreator(file, compressionType, column, totalDocs,
+            V1Constants.Numbers.INTEGER_SIZE);
         break;
 
       case LONG:
-        indexCreator =
-            new SingleValueFixedByteRawIndexCreator(file, column, totalDocs, V1Constants.Numbers.LONG_SIZE);
+        indexCreator = new SingleValueFixedByteRawIndexCreator(file, compressionType, column, totalDocs,
+            V1Constants.Numbers.LONG_SIZE);
         break;
 
       case FLOAT:
-        indexCreator =
-            new SingleValueFixedByteRawIndexCreator(file, column, totalDocs, V1Constants.Numbers.FLOAT_SIZE);
+        indexCreator = new SingleValueFixedByteRawIndexCreator(file, compressionType, column, totalDocs,
+            V1Constants.Numbers.FLOAT_SIZE);
         break;
 
       case DOUBLE:
-        indexCreator =
-            new SingleValueFixedByteRawIndexCreator(file, column, totalDocs, V1Constants.Numbers.DOUBLE_SIZE);
+        indexCreator = new SingleValueFixedByteRawIndexCreator(file, compressionType, column, totalDocs,
+            V1Constants.Numbers.DOUBLE_SIZE);
         break;
 
       case STRING:
-        indexCreator = new SingleValueVarByteRawIndexCreator(file, column, totalDocs, lengthOfLongestEntry);
+        indexCreator =
+            new SingleValueVarByteRawIndexCreator(file, compressionType, column, totalDocs, lengthOfLongestEntry);
         break;
 
       default:
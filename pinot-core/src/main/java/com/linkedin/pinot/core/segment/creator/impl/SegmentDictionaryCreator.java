@@ -15,9 +15,12 @@
  */
 package com.linkedin.pinot.core.segment.creator.impl;
 
+import com.google.common.base.Preconditions;
 import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.data.MetricFieldSpec;
+import com.linkedin.pinot.common.segment.ReadMode;
 import com.linkedin.pinot.core.io.writer.impl.FixedByteSingleValueMultiColWriter;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
 import it.unimi.dsi.fastutil.doubles.Double2IntOpenHashMap;
 import it.unimi.dsi.fastutil.floats.Float2IntOpenHashMap;
 import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
@@ -26,6 +29,7 @@ import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -43,6 +47,7 @@ public class SegmentDictionaryCreator implements Closeable {
   private final File dictionaryFile;
   private final int rowCount;
   private final char  paddingChar;
+  private final boolean varLengthStringDictionary;
   private static final Charset utf8CharSet = Charset.forName("UTF-8");
 
   private Int2IntOpenHashMap intValueToIndexMap;
@@ -55,6 +60,17 @@ public class SegmentDictionaryCreator implements Closeable {
 
   public SegmentDictionaryCreator(boolean hasNulls, Object sortedList, FieldSpec spec, File indexDir, char paddingChar)
       throws IOException {
+    this(hasNulls, sortedList, spec, indexDir, paddingChar, false);
+  }
+
+  /**
+   * @param varLengthStringDictionary Whether to create string dictionaries with variable length entries (see
+   *                                  {@link com.linkedin.pinot.core.segment.index.readers.VarLengthStringDictionary})
+   *                                  instead of padded fixed size entries.
+   */
+  public SegmentDictionaryCreator(boolean hasNulls, Object sortedList, FieldSpec spec, File indexDir, char paddingChar,
+      boolean varLengthStringDictionary)
+      throws IOException {
     rowCount = ArrayUtils.getLength(sortedList);
 
     Object first = null;
@@ -102,6 +118,7 @@ public class SegmentDictionaryCreator implements Closeable {
     this.sortedList = sortedList;
     this.spec = spec;
     this.paddingChar = paddingChar;
+    this.varLengthStringDictionary = varLengthStringDictionary;
     dictionaryFile = new File(indexDir, spec.getName() + ".dict");
     FileUtils.touch(dictionaryFile);
   }
@@ -167,6 +184,10 @@ public class SegmentDictionaryCreator implements Closeable {
       case STRING:
       case BOOLEAN:
         Object[] sortedObjects = (Object[]) sortedList;
+        if (varLengthStringDictionary) {
+          buildVarLengthStringDictionary(sortedObjects);
+          break;
+        }
         stringColumnMaxLength = 1; // make sure that there is non-zero sized dictionary JIRA:PINOT-2947
         for (final Object e : sortedObjects) {
           String val = e.toString();
@@ -216,10 +237,66 @@ public class SegmentDictionaryCreator implements Closeable {
     }
   }
 
+  /**
+   * Builds the string dictionary with variable length entries: <code>rowCount + 1</code> int offsets followed by the
+   * UTF-8 bytes of the values. Values are sorted in natural string order, same as the fixed size string dictionary,
+   * which is also the order of the column values, so <code>isSorted</code> is left unchanged.
+   */
+  private void buildVarLengthStringDictionary(Object[] sortedObjects)
+      throws IOException {
+    final String[] values = new String[rowCount];
+    for (int i = 0; i < rowCount; i++) {
+      values[i] = sortedObjects[i].toString();
+    }
+    Arrays.sort(values);
+
+    final byte[][] valueBytes = new byte[rowCount][];
+    long totalSize = (rowCount + 1L) * V1Constants.Numbers.INTEGER_SIZE;
+    for (int i = 0; i < rowCount; i++) {
+      if (i > 0 && values[i - 1].equals(values[i])) {
+        throw new RuntimeException(
+            "Number of entries in dictionary != number of unique values in the data in column " + spec.getName());
+      }
+      valueBytes[i] = values[i].getBytes(utf8CharSet);
+      stringColumnMaxLength = Math.max(stringColumnMaxLength, valueBytes[i].length);
+      totalSize += valueBytes[i].length;
+    }
+    Preconditions.checkState(totalSize <= Integer.MAX_VALUE, "Dictionary for column: %s is too large",
+        spec.getName());
+
+    stringValueToIndexMap = new Object2IntOpenHashMap<>(rowCount);
+    PinotDataBuffer dataBuffer =
+        PinotDataBuffer.fromFile(dictionaryFile, 0, totalSize, ReadMode.mmap, FileChannel.MapMode.READ_WRITE,
+            dictionaryFile.getAbsolutePath() + getClass().getCanonicalName());
+    try {
+      int offset = (rowCount + 1) * V1Constants.Numbers.INTEGER_SIZE;
+      for (int i = 0; i < rowCount; i++) {
+        dataBuffer.putInt(i * V1Constants.Numbers.INTEGER_SIZE, offset);
+        dataBuffer.readFrom(valueBytes[i], offset);
+        offset += valueBytes[i].length;
+        stringValueToIndexMap.put(values[i], i);
+      }
+      dataBuffer.putInt(rowCount * V1Constants.Numbers.INTEGER_SIZE, offset);
+    } finally {
+      dataBuffer.close();
+    }
+  }
+
   public int getStringColumnMaxLength() {
     return stringColumnMaxLength;
   }
 
+  /**
+   * Returns the version of the dictionary format, only relevant for string dictionaries.
+   */
+  public int getDictionaryVersion() {
+    FieldSpec.DataType dataType = spec.getDataType();
+    if (varLengthStringDictionary && (dataType == FieldSpec.DataType.STRING || dataType == FieldSpec.DataType.BOOLEAN)) {
+      return V1Constants.Dict.VAR_LENGTH_STRING_DICTIONARY_VERSION;
+    }
+    return V1Constants.Dict.PADDED_STRING_DICTIONARY_VERSION;
+  }
+
   public int indexOfSV(Object e) {
     switch (spec.getDataType()) {
       case INT:
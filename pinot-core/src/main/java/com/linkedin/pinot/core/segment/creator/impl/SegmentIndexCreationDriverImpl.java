@@ -47,6 +47,8 @@ import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentVersion;
 import com.linkedin.pinot.core.segment.creator.ColumnIndexCreationInfo;
 import com.linkedin.pinot.core.segment.creator.ColumnStatistics;
+import com.linkedin.pinot.core.segment.creator.ColumnarSegmentCreationDataSource;
+import com.linkedin.pinot.core.segment.creator.DictionaryEncodedColumnSource;
 import com.linkedin.pinot.core.segment.creator.ForwardIndexType;
 import com.linkedin.pinot.core.segment.creator.InvertedIndexType;
 import com.linkedin.pinot.core.segment.creator.RecordReaderSegmentCreationDataSource;
@@ -80,6 +82,7 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
   private static final Logger LOGGER = LoggerFactory.getLogger(SegmentIndexCreationDriverImpl.class);
 
   private SegmentGeneratorConfig config;
+  private SegmentCreationDataSource dataSource;
   private RecordReader recordReader;
   private SegmentPreIndexStatsContainer segmentStats;
   private Map<String, ColumnIndexCreationInfo> indexCreationInfoMap;
@@ -111,6 +114,7 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
   public void init(SegmentGeneratorConfig config, SegmentCreationDataSource dataSource) throws Exception {
     this.config = config;
     this.createStarTree = config.isEnableStarTreeIndex();
+    this.dataSource = dataSource;
     recordReader = dataSource.getRecordReader();
     dataSchema = recordReader.getSchema();
 
@@ -384,6 +388,20 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
     indexCreator.init(config, segmentIndexCreationInfo, indexCreationInfoMap, dataSchema, tempIndexDir);
 
     // Build the index
+    Map<String, DictionaryEncodedColumnSource> columnSources = getColumnSources();
+    if (columnSources != null) {
+      LOGGER.info("Start building IndexCreator from column sources!");
+      long start = System.currentTimeMillis();
+      for (Entry<String, DictionaryEncodedColumnSource> entry : columnSources.entrySet()) {
+        indexCreator.indexColumn(entry.getKey(), entry.getValue());
+      }
+      totalIndexTime += System.currentTimeMillis() - start;
+      recordReader.close();
+      LOGGER.info("Finished columns indexing in IndexCreator!");
+      handlePostCreation();
+      return;
+    }
+
     recordReader.rewind();
     LOGGER.info("Start building IndexCreator!");
     GenericRow readRow = new GenericRow();
@@ -423,6 +441,28 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
     handlePostCreation();
   }
 
+  /**
+   * Returns the column sources of all the columns of the schema if the data source can provide them, in which case the
+   * columns are indexed directly without reading the rows, <code>null</code> otherwise.
+   */
+  private Map<String, DictionaryEncodedColumnSource> getColumnSources() {
+    if (!(dataSource instanceof ColumnarSegmentCreationDataSource)) {
+      return null;
+    }
+    Map<String, DictionaryEncodedColumnSource> columnSources = new HashMap<>();
+    for (FieldSpec fieldSpec : dataSchema.getAllFieldSpecs()) {
+      String column = fieldSpec.getName();
+      DictionaryEncodedColumnSource columnSource =
+          ((ColumnarSegmentCreationDataSource) dataSource).getColumnSource(column);
+      if (columnSource == null) {
+        LOGGER.info("No column source for column: {}, indexing rows from the record reader", column);
+        return null;
+      }
+      columnSources.put(column, columnSource);
+    }
+    return columnSources;
+  }
+
   private void handlePostCreation()
       throws Exception {
     final String timeColumn = config.getTimeColumnName();
@@ -66,6 +66,10 @@ public class V1Constants {
     public static final int[] DOUBLE_DICTIONARY_COL_SIZE = new int[] { 8 };
     public static final String FILE_EXTENTION = ".dict";
 
+    // String dictionary versions: fixed size padded entries, and variable length entries addressed by offsets.
+    public static final int PADDED_STRING_DICTIONARY_VERSION = 1;
+    public static final int VAR_LENGTH_STRING_DICTIONARY_VERSION = 2;
+
     public static int[] getSingleValueColumnSizeFor(FieldSpec spec) {
       switch (spec.getDataType()) {
         case INT:
@@ -91,6 +95,7 @@ public class V1Constants {
     public static final String BITMAP_INVERTED_INDEX_FILE_EXTENSION = ".bitmap.inv";
     public static final String SORTED_INVERTED_INDEX_FILE_EXTENSION = ".sorted.inv";
     public static final String INTARRAY_INVERTED_INDEX_FILE_EXTENSION = ".intArray.inv";
+    public static final String BLOOM_FILTER_FILE_EXTENSION = ".bloom";
   }
 
   public static class MetadataKeys {
@@ -147,6 +152,7 @@ public class V1Constants {
       public static final String DATA_TYPE = "dataType";
       public static final String BITS_PER_ELEMENT = "bitsPerElement";
       public static final String DICTIONARY_ELEMENT_SIZE = "lengthOfEachEntry";
+      public static final String DICTIONARY_VERSION = "dictionaryVersion";
       public static final String COLUMN_TYPE = "columnType";
       public static final String IS_SORTED = "isSorted";
       public static final String HAS_NULL_VALUE = "hasNullValue";
@@ -0,0 +1,66 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.creator.impl.bloom;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import javax.annotation.Nonnull;
+
+
+/**
+ * The <code>BloomFilterCreator</code> class creates the bloom filter of the distinct values of a column.
+ * <p>Values are added as their string representation, so that the filter can be probed with the string value of a
+ * predicate after it is converted to the data type of the column.
+ * <p>The filter is serialized with {@link BloomFilter#writeTo(OutputStream)} into a file with extension
+ * {@link V1Constants.Indexes#BLOOM_FILTER_FILE_EXTENSION}, and can be read using <code>BloomFilterReader</code>.
+ */
+public class BloomFilterCreator {
+  public static final double DEFAULT_FALSE_POSITIVE_PROBABILITY = 0.05;
+
+  private final File _bloomFilterFile;
+  private final BloomFilter<CharSequence> _bloomFilter;
+
+  /**
+   * Constructor for the class.
+   *
+   * @param indexDir index directory.
+   * @param column column name.
+   * @param cardinality number of distinct values of the column.
+   */
+  public BloomFilterCreator(@Nonnull File indexDir, @Nonnull String column, int cardinality) {
+    _bloomFilterFile = new File(indexDir, column + V1Constants.Indexes.BLOOM_FILTER_FILE_EXTENSION);
+    _bloomFilter = BloomFilter.create(Funnels.stringFunnel(Charsets.UTF_8), Math.max(cardinality, 1),
+        DEFAULT_FALSE_POSITIVE_PROBABILITY);
+  }
+
+  public void add(@Nonnull Object value) {
+    _bloomFilter.put(value.toString());
+  }
+
+  public void seal()
+      throws IOException {
+    try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(_bloomFilterFile))) {
+      _bloomFilter.writeTo(outputStream);
+    }
+  }
+}
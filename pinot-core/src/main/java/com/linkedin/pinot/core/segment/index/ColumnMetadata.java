@@ -54,6 +54,7 @@ public class ColumnMetadata {
   private final DataType dataType;
   private final int bitsPerElement;
   private final int stringColumnMaxLength;
+  private final int dictionaryVersion;
   private final FieldType fieldType;
   private final boolean isSorted;
   @JsonProperty
@@ -91,6 +92,8 @@ public class ColumnMetadata {
     builder.setDataType(dataType);
     builder.setBitsPerElement(config.getInt(getKeyFor(column, BITS_PER_ELEMENT)));
     builder.setStringColumnMaxLength(config.getInt(getKeyFor(column, DICTIONARY_ELEMENT_SIZE)));
+    builder.setDictionaryVersion(
+        config.getInt(getKeyFor(column, DICTIONARY_VERSION), V1Constants.Dict.PADDED_STRING_DICTIONARY_VERSION));
     builder.setFieldType(FieldType.valueOf(config.getString(getKeyFor(column, COLUMN_TYPE)).toUpperCase()));
     builder.setIsSorted(config.getBoolean(getKeyFor(column, IS_SORTED)));
     builder.setContainsNulls(config.getBoolean(getKeyFor(column, HAS_NULL_VALUE)));
@@ -202,6 +205,7 @@ public class ColumnMetadata {
     private DataType dataType;
     private int bitsPerElement;
     private int stringColumnMaxLength;
+    private int dictionaryVersion = V1Constants.Dict.PADDED_STRING_DICTIONARY_VERSION;
     private FieldType fieldType;
     private boolean isSorted;
     private boolean containsNulls;
@@ -263,6 +267,11 @@ public class ColumnMetadata {
       return this;
     }
 
+    public Builder setDictionaryVersion(int dictionaryVersion) {
+      this.dictionaryVersion = dictionaryVersion;
+      return this;
+    }
+
     public Builder setFieldType(FieldType fieldType) {
       this.fieldType = fieldType;
       return this;
@@ -364,16 +373,16 @@ public class ColumnMetadata {
 
     public ColumnMetadata build() {
       return new ColumnMetadata(columnName, cardinality, totalDocs, totalRawDocs, totalAggDocs, dataType,
-          bitsPerElement, stringColumnMaxLength, fieldType, isSorted, containsNulls, hasDictionary, hasInvertedIndex,
-          isSingleValue, maxNumberOfMultiValues, totalNumberOfEntries, isAutoGenerated, defaultNullValueString,
-          timeUnit, paddingCharacter, derivedMetricType, fieldSize, originColumnName, minValue, maxValue,
-          partitionFunction, numPartitions, partitionValues);
+          bitsPerElement, stringColumnMaxLength, dictionaryVersion, fieldType, isSorted, containsNulls, hasDictionary,
+          hasInvertedIndex, isSingleValue, maxNumberOfMultiValues, totalNumberOfEntries, isAutoGenerated,
+          defaultNullValueString, timeUnit, paddingCharacter, derivedMetricType, fieldSize, originColumnName, minValue,
+          maxValue, partitionFunction, numPartitions, partitionValues);
     }
   }
 
   private ColumnMetadata(String columnName, int cardinality, int totalDocs, int totalRawDocs, int totalAggDocs,
-      DataType dataType, int bitsPerElement, int stringColumnMaxLength, FieldType fieldType, boolean isSorted,
-      boolean hasNulls, boolean hasDictionary, boolean hasInvertedIndex, boolean isSingleValue,
+      DataType dataType, int bitsPerElement, int stringColumnMaxLength, int dictionaryVersion, FieldType fieldType,
+      boolean isSorted, boolean hasNulls, boolean hasDictionary, boolean hasInvertedIndex, boolean isSingleValue,
       int maxNumberOfMultiValues, int totalNumberOfEntries, boolean isAutoGenerated, String defaultNullValueString,
       TimeUnit timeUnit, char paddingCharacter, DerivedMetricType derivedMetricType, int fieldSize,
       String originColumnName, Comparable minValue, Comparable maxValue, PartitionFunction partitionFunction,
@@ -386,6 +395,7 @@ public class ColumnMetadata {
     this.dataType = dataType;
     this.bitsPerElement = bitsPerElement;
     this.stringColumnMaxLength = stringColumnMaxLength;
+    this.dictionaryVersion = dictionaryVersion;
     this.fieldType = fieldType;
     this.isSorted = isSorted;
     this.containsNulls = hasNulls;
@@ -458,6 +468,13 @@ public class ColumnMetadata {
     return stringColumnMaxLength;
   }
 
+  /**
+   * Returns the version of the dictionary format, only relevant for string dictionaries.
+   */
+  public int getDictionaryVersion() {
+    return dictionaryVersion;
+  }
+
   public FieldType getFieldType() {
     return fieldType;
   }
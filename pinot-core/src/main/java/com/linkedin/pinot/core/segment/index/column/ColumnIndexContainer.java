@@ -16,20 +16,21 @@
 package com.linkedin.pinot.core.segment.index.column;
 
 import com.linkedin.pinot.common.data.FieldSpec;
-import com.linkedin.pinot.core.io.compression.ChunkCompressorFactory;
-import com.linkedin.pinot.core.io.compression.ChunkDecompressor;
 import com.linkedin.pinot.core.io.reader.DataFileReader;
 import com.linkedin.pinot.core.io.reader.ReaderContext;
 import com.linkedin.pinot.core.io.reader.SingleColumnMultiValueReader;
 import com.linkedin.pinot.core.io.reader.SingleColumnSingleValueReader;
 import com.linkedin.pinot.core.io.reader.impl.FixedByteSingleValueMultiColReader;
+import com.linkedin.pinot.core.io.reader.impl.v1.BaseChunkSingleValueReader;
 import com.linkedin.pinot.core.io.reader.impl.v1.FixedBitMultiValueReader;
 import com.linkedin.pinot.core.io.reader.impl.v1.FixedBitSingleValueReader;
 import com.linkedin.pinot.core.io.reader.impl.v1.FixedByteChunkSingleValueReader;
 import com.linkedin.pinot.core.io.reader.impl.v1.VarByteChunkSingleValueReader;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
 import com.linkedin.pinot.core.segment.index.ColumnMetadata;
 import com.linkedin.pinot.core.segment.index.loader.IndexLoadingConfig;
 import com.linkedin.pinot.core.segment.index.readers.BitmapInvertedIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
 import com.linkedin.pinot.core.segment.index.readers.DoubleDictionary;
 import com.linkedin.pinot.core.segment.index.readers.FloatDictionary;
 import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
@@ -37,36 +38,65 @@ import com.linkedin.pinot.core.segment.index.readers.IntDictionary;
 import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
 import com.linkedin.pinot.core.segment.index.readers.LongDictionary;
 import com.linkedin.pinot.core.segment.index.readers.StringDictionary;
+import com.linkedin.pinot.core.segment.index.readers.VarLengthStringDictionary;
 import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
 import com.linkedin.pinot.core.segment.store.ColumnIndexType;
 import com.linkedin.pinot.core.segment.store.SegmentDirectory;
 import java.io.IOException;
+import javax.annotation.Nullable;
 
 public abstract class ColumnIndexContainer {
+  private BloomFilterReader _bloomFilter;
+
   public static ColumnIndexContainer init(SegmentDirectory.Reader segmentReader, ColumnMetadata metadata,
       IndexLoadingConfig indexLoadingConfig)
       throws IOException {
+    return init(segmentReader, metadata, indexLoadingConfig, null);
+  }
+
+  /**
+   * Loads the indexes of the column.
+   *
+   * @param segmentReader Segment reader
+   * @param metadata Column metadata
+   * @param indexLoadingConfig Index loading config
+   * @param tableName Name of the table of the segment, used to account the cached raw index chunks of the table
+   * @return Column index container
+   * @throws IOException
+   */
+  public static ColumnIndexContainer init(SegmentDirectory.Reader segmentReader, ColumnMetadata metadata,
+      IndexLoadingConfig indexLoadingConfig, @Nullable String tableName)
+      throws IOException {
     String column = metadata.getColumnName();
     boolean loadInverted = false;
+    boolean loadBloomFilter = false;
     if (indexLoadingConfig != null) {
       loadInverted = indexLoadingConfig.getInvertedIndexColumns().contains(column);
+      loadBloomFilter = indexLoadingConfig.getBloomFilterColumns().contains(column);
     }
 
     ImmutableDictionaryReader dictionary = null;
     if (metadata.hasDictionary()) {
       PinotDataBuffer dictionaryBuffer = segmentReader.getIndexFor(column, ColumnIndexType.DICTIONARY);
-      dictionary = load(metadata, dictionaryBuffer);
+      dictionary = loadDictionary(metadata, dictionaryBuffer);
     }
 
+    ColumnIndexContainer indexContainer;
     // TODO: Support sorted index without dictionary.
     if (dictionary != null && metadata.isSorted() && metadata.isSingleValue()) {
-      return loadSorted(column, segmentReader, metadata, dictionary);
+      indexContainer = loadSorted(column, segmentReader, metadata, dictionary);
+    } else if (metadata.isSingleValue()) {
+      indexContainer = loadUnsorted(column, segmentReader, metadata, dictionary, loadInverted, tableName);
+    } else {
+      indexContainer = loadMultiValue(column, segmentReader, metadata, dictionary, loadInverted);
     }
 
-    if (metadata.isSingleValue()) {
-      return loadUnsorted(column, segmentReader, metadata, dictionary, loadInverted);
+    // Bloom filter is optional, segments created before it was configured do not have one.
+    if (loadBloomFilter && segmentReader.hasIndexFor(column, ColumnIndexType.BLOOM_FILTER)) {
+      PinotDataBuffer bloomFilterBuffer = segmentReader.getIndexFor(column, ColumnIndexType.BLOOM_FILTER);
+      indexContainer._bloomFilter = new BloomFilterReader(bloomFilterBuffer);
     }
-    return loadMultiValue(column, segmentReader, metadata, dictionary, loadInverted);
+    return indexContainer;
   }
 
   private static ColumnIndexContainer loadMultiValue(String column, SegmentDirectory.Reader segmentReader,
@@ -91,7 +121,7 @@ public abstract class ColumnIndexContainer {
   }
 
   private static ColumnIndexContainer loadUnsorted(String column, SegmentDirectory.Reader segmentReader, ColumnMetadata metadata,
-      ImmutableDictionaryReader dictionary, boolean loadInverted)
+      ImmutableDictionaryReader dictionary, boolean loadInverted, String tableName)
       throws IOException {
 
     PinotDataBuffer fwdIndexBuffer = segmentReader.getIndexFor(column, ColumnIndexType.FORWARD_INDEX);
@@ -102,7 +132,7 @@ public abstract class ColumnIndexContainer {
     } else {
       // TODO: Replace hard-coded compressor with getting information from meta-data.
       fwdIndexReader =
-          getRawIndexReader(fwdIndexBuffer, metadata.getDataType());
+          getRawIndexReader(fwdIndexBuffer, metadata.getDataType(), tableName);
     }
 
     BitmapInvertedIndexReader invertedIndex = null;
@@ -127,7 +157,7 @@ public abstract class ColumnIndexContainer {
     return new SortedSVColumnIndexContainer(column, metadata, indexReader, dictionary);
   }
 
-  private static ImmutableDictionaryReader load(ColumnMetadata metadata, PinotDataBuffer dictionaryBuffer) {
+  public static ImmutableDictionaryReader loadDictionary(ColumnMetadata metadata, PinotDataBuffer dictionaryBuffer) {
     switch (metadata.getDataType()) {
       case INT:
         return new IntDictionary(dictionaryBuffer, metadata);
@@ -139,6 +169,9 @@ public abstract class ColumnIndexContainer {
         return new DoubleDictionary(dictionaryBuffer, metadata);
       case STRING:
       case BOOLEAN:
+        if (metadata.getDictionaryVersion() == V1Constants.Dict.VAR_LENGTH_STRING_DICTIONARY_VERSION) {
+          return new VarLengthStringDictionary(dictionaryBuffer, metadata);
+        }
         return new StringDictionary(dictionaryBuffer, metadata);
     }
 
@@ -148,26 +181,31 @@ public abstract class ColumnIndexContainer {
   public static SingleColumnSingleValueReader getRawIndexReader(PinotDataBuffer fwdIndexBuffer,
       FieldSpec.DataType dataType)
       throws IOException {
-    SingleColumnSingleValueReader reader;
+    return getRawIndexReader(fwdIndexBuffer, dataType, null);
+  }
 
-    // TODO: Make compression/decompression configurable.
-    ChunkDecompressor decompressor = ChunkCompressorFactory.getDecompressor("snappy");
+  public static SingleColumnSingleValueReader getRawIndexReader(PinotDataBuffer fwdIndexBuffer,
+      FieldSpec.DataType dataType, @Nullable String tableName)
+      throws IOException {
+    BaseChunkSingleValueReader reader;
 
+    // The compression type of the chunks is read from the header of the raw index.
     switch (dataType) {
       case INT:
       case LONG:
       case FLOAT:
       case DOUBLE:
-        reader = new FixedByteChunkSingleValueReader(fwdIndexBuffer, decompressor);
+        reader = new FixedByteChunkSingleValueReader(fwdIndexBuffer);
         break;
 
       case STRING:
-        reader = new VarByteChunkSingleValueReader(fwdIndexBuffer, decompressor);
+        reader = new VarByteChunkSingleValueReader(fwdIndexBuffer);
         break;
 
       default:
         throw new IllegalArgumentException("Illegal data type for raw index reader: " + dataType);
     }
+    reader.setTableName(tableName);
 
     return reader;
   }
@@ -197,6 +235,13 @@ public abstract class ColumnIndexContainer {
    */
   public abstract ColumnMetadata getColumnMetadata();
 
+  /**
+   * @return Bloom filter of the column, or null if the column does not have one
+   */
+  public BloomFilterReader getBloomFilter() {
+    return _bloomFilter;
+  }
+
   /**
    * @return
    * @throws Exception
@@ -32,6 +32,7 @@ import com.linkedin.pinot.core.io.reader.impl.SortedForwardIndexReader;
 import com.linkedin.pinot.core.operator.blocks.MultiValueBlock;
 import com.linkedin.pinot.core.operator.blocks.SortedSingleValueBlock;
 import com.linkedin.pinot.core.operator.blocks.UnSortedSingleValueBlock;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
 import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
 import com.linkedin.pinot.core.segment.index.column.ColumnIndexContainer;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
@@ -159,6 +160,11 @@ public class ColumnDataSourceImpl extends DataSource {
     return indexContainer.getInvertedIndex();
   }
 
+  @Override
+  public BloomFilterReader getBloomFilter() {
+    return indexContainer.getBloomFilter();
+  }
+
   @Override
   public Dictionary getDictionary() {
     return indexContainer.getDictionary();
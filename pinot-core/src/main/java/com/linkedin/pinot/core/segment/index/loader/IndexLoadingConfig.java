@@ -20,11 +20,14 @@ import com.linkedin.pinot.common.config.IndexingConfig;
 import com.linkedin.pinot.common.segment.ReadMode;
 import com.linkedin.pinot.core.data.manager.config.InstanceDataManagerConfig;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentVersion;
+import com.linkedin.pinot.core.io.compression.ChunkCompressorFactory;
 import com.linkedin.pinot.core.segment.index.loader.columnminmaxvalue.ColumnMinMaxValueGeneratorMode;
 import com.linkedin.pinot.core.startree.StarTreeFormatVersion;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -40,11 +43,15 @@ public class IndexLoadingConfig {
   private List<String> _sortedColumns = Collections.emptyList();
   private Set<String> _invertedIndexColumns = new HashSet<>();
   private Set<String> _noDictionaryColumns = new HashSet<>();
+  private Map<String, ChunkCompressorFactory.CompressionType> _noDictionaryCompressionTypes = new HashMap<>();
+  private Set<String> _bloomFilterColumns = new HashSet<>();
+  private boolean _varLengthStringDictionary = false;
   private SegmentVersion _segmentVersion = SegmentVersion.DEFAULT_VERSION;
   private StarTreeFormatVersion _starTreeVersion = StarTreeFormatVersion.DEFAULT_VERSION;
   private boolean _enableDefaultColumns = true;
   private ColumnMinMaxValueGeneratorMode _columnMinMaxValueGeneratorMode = ColumnMinMaxValueGeneratorMode.DEFAULT_MODE;
   private int _realtimeAvgMultiValueCount = DEFAULT_REALTIME_AVG_MULTI_VALUE_COUNT;
+  private boolean _realtimeOffHeapAllocation = false;
 
   public IndexLoadingConfig(@Nullable InstanceDataManagerConfig instanceDataManagerConfig,
       @Nullable AbstractTableConfig tableConfig) {
@@ -66,6 +73,8 @@ public class IndexLoadingConfig {
       if (avgMultiValueCount != null) {
         _realtimeAvgMultiValueCount = Integer.valueOf(avgMultiValueCount);
       }
+
+      _realtimeOffHeapAllocation = instanceDataManagerConfig.isRealtimeOffHeapAllocation();
     }
 
     // Extract config from table indexing config
@@ -91,6 +100,21 @@ public class IndexLoadingConfig {
         _noDictionaryColumns.addAll(noDictionaryColumns);
       }
 
+      Map<String, String> noDictionaryCompressionCodecs = indexingConfig.getNoDictionaryCompressionCodecs();
+      if (noDictionaryCompressionCodecs != null) {
+        for (Map.Entry<String, String> entry : noDictionaryCompressionCodecs.entrySet()) {
+          _noDictionaryCompressionTypes.put(entry.getKey(),
+              ChunkCompressorFactory.CompressionType.fromName(entry.getValue()));
+        }
+      }
+
+      List<String> bloomFilterColumns = indexingConfig.getBloomFilterColumns();
+      if (bloomFilterColumns != null) {
+        _bloomFilterColumns.addAll(bloomFilterColumns);
+      }
+
+      _varLengthStringDictionary = indexingConfig.isVarLengthStringDictionary();
+
       String tableSegmentVersion = indexingConfig.getSegmentFormatVersion();
       if (tableSegmentVersion != null) {
         _segmentVersion = SegmentVersion.valueOf(tableSegmentVersion.toLowerCase());
@@ -149,6 +173,35 @@ public class IndexLoadingConfig {
     return _noDictionaryColumns;
   }
 
+  /**
+   * Returns the compression type of the raw index chunks for the no dictionary columns, used when converting consuming
+   * segments. Columns not in the map use Snappy.
+   */
+  @Nonnull
+  public Map<String, ChunkCompressorFactory.CompressionType> getNoDictionaryCompressionTypes() {
+    return _noDictionaryCompressionTypes;
+  }
+
+  @Nonnull
+  public Set<String> getBloomFilterColumns() {
+    return _bloomFilterColumns;
+  }
+
+  /**
+   * For tests only.
+   */
+  public void setBloomFilterColumns(@Nonnull Set<String> bloomFilterColumns) {
+    _bloomFilterColumns = bloomFilterColumns;
+  }
+
+  /**
+   * Returns whether to create string dictionaries with variable length entries, used when converting consuming
+   * segments.
+   */
+  public boolean isVarLengthStringDictionary() {
+    return _varLengthStringDictionary;
+  }
+
   @Nonnull
   public SegmentVersion getSegmentVersion() {
     return _segmentVersion;
@@ -192,4 +245,15 @@ public class IndexLoadingConfig {
   public int getRealtimeAvgMultiValueCount() {
     return _realtimeAvgMultiValueCount;
   }
+
+  public boolean isRealtimeOffHeapAllocation() {
+    return _realtimeOffHeapAllocation;
+  }
+
+  /**
+   * For tests only.
+   */
+  public void setRealtimeOffHeapAllocation(boolean realtimeOffHeapAllocation) {
+    _realtimeOffHeapAllocation = realtimeOffHeapAllocation;
+  }
 }
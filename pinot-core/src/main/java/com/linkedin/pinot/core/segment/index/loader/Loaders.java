@@ -92,8 +92,13 @@ public class Loaders {
       // Add, remove or replace default columns
       // Add column min/max values
       // NOTE: this step may modify the segment metadata.
-      try (SegmentPreProcessor preProcessor = new SegmentPreProcessor(indexDir, indexLoadingConfig, schema)) {
-        preProcessor.process();
+      // Skipped if already done with the same config, e.g. when the server restarts.
+      if (SegmentPreProcessor.needProcess(indexDir, indexLoadingConfig, schema)) {
+        try (SegmentPreProcessor preProcessor = new SegmentPreProcessor(indexDir, indexLoadingConfig, schema)) {
+          preProcessor.process();
+        }
+      } else {
+        LOGGER.info("Segment: {} already pre-processed with the same config, skipping pre-processing", segmentName);
       }
 
       // Load the metadata again since converter and pre-processor may have changed it
@@ -105,7 +110,8 @@ public class Loaders {
       Map<String, ColumnIndexContainer> indexContainerMap = new HashMap<>();
       for (String column : segmentMetadata.getColumnMetadataMap().keySet()) {
         indexContainerMap.put(column,
-            ColumnIndexContainer.init(segmentReader, segmentMetadata.getColumnMetadataFor(column), indexLoadingConfig));
+            ColumnIndexContainer.init(segmentReader, segmentMetadata.getColumnMetadataFor(column), indexLoadingConfig,
+                segmentMetadata.getTableName()));
       }
 
       // Load star tree index if it exists
@@ -19,6 +19,7 @@ import com.linkedin.pinot.common.data.Schema;
 import com.linkedin.pinot.common.segment.ReadMode;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentVersion;
 import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.loader.bloomfilter.BloomFilterHandler;
 import com.linkedin.pinot.core.segment.index.loader.columnminmaxvalue.ColumnMinMaxValueGenerator;
 import com.linkedin.pinot.core.segment.index.loader.columnminmaxvalue.ColumnMinMaxValueGeneratorMode;
 import com.linkedin.pinot.core.segment.index.loader.defaultcolumn.DefaultColumnHandler;
@@ -27,17 +28,27 @@ import com.linkedin.pinot.core.segment.index.loader.invertedindex.InvertedIndexH
 import com.linkedin.pinot.core.segment.store.SegmentDirectory;
 import com.linkedin.pinot.core.segment.store.SegmentDirectoryPaths;
 import java.io.File;
+import java.io.IOException;
+import java.util.TreeSet;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import org.apache.commons.io.FileUtils;
 
 
 /**
  * Use mmap to load the segment and perform all pre-processing steps. (This can be slow)
  * <p>Pre-processing steps include:
  * <p>- Use {@link InvertedIndexHandler} to create inverted indices.
+ * <p>- Use {@link BloomFilterHandler} to create bloom filters.
  * <p>- Use {@link DefaultColumnHandler} to update auto-generated default columns.
+ * <p>The index loading config and schema the segment was pre-processed with are recorded in the index directory, so
+ * that loading the segment again with the same ones (e.g. on server restart) can skip the pre-processing, see
+ * {@link #needProcess(File, IndexLoadingConfig, Schema)}.
  */
 public class SegmentPreProcessor implements AutoCloseable {
+  private static final String PROCESSED_CONFIG_FILE_NAME = "preprocessed.config";
+  private static final String PROCESSED_CONFIG_ENCODING = "UTF-8";
+
   private final SegmentVersion _segmentVersion;
   private final File _segmentDirectoryPath;
   private final File _indexDir;
@@ -63,6 +74,30 @@ public class SegmentPreProcessor implements AutoCloseable {
     _segmentDirectory = SegmentDirectory.createFromLocalFS(_segmentDirectoryPath, _segmentMetadata, ReadMode.mmap);
   }
 
+  /**
+   * Returns whether the segment in the given index directory needs to be pre-processed, i.e. it was not pre-processed
+   * yet with the given index loading config and schema.
+   */
+  public static boolean needProcess(@Nonnull File indexDir, @Nonnull IndexLoadingConfig indexLoadingConfig,
+      @Nullable Schema schema)
+      throws IOException {
+    File processedConfigFile = new File(indexDir, PROCESSED_CONFIG_FILE_NAME);
+    return !processedConfigFile.exists() || !FileUtils.readFileToString(processedConfigFile, PROCESSED_CONFIG_ENCODING)
+        .equals(getProcessedConfig(indexLoadingConfig, schema));
+  }
+
+  /**
+   * Helper method to describe everything the pre-processing steps depend on besides the segment itself.
+   */
+  private static String getProcessedConfig(@Nonnull IndexLoadingConfig indexLoadingConfig, @Nullable Schema schema) {
+    return "segmentVersion=" + indexLoadingConfig.getSegmentVersion() + "\n"
+        + "invertedIndexColumns=" + new TreeSet<>(indexLoadingConfig.getInvertedIndexColumns()) + "\n"
+        + "bloomFilterColumns=" + new TreeSet<>(indexLoadingConfig.getBloomFilterColumns()) + "\n"
+        + "enableDefaultColumns=" + indexLoadingConfig.isEnableDefaultColumns() + "\n"
+        + "columnMinMaxValueGeneratorMode=" + indexLoadingConfig.getColumnMinMaxValueGeneratorMode() + "\n"
+        + "schema=" + ((schema != null) ? schema.getJSONSchema() : null) + "\n";
+  }
+
   public void process()
       throws Exception {
     SegmentDirectory.Writer segmentWriter = null;
@@ -74,6 +109,11 @@ public class SegmentPreProcessor implements AutoCloseable {
           new InvertedIndexHandler(_segmentDirectoryPath, _segmentMetadata, _indexLoadingConfig, segmentWriter);
       invertedIndexHandler.createInvertedIndices();
 
+      // Create column bloom filters according to the index config.
+      BloomFilterHandler bloomFilterHandler =
+          new BloomFilterHandler(_segmentDirectoryPath, _segmentMetadata, _indexLoadingConfig, segmentWriter);
+      bloomFilterHandler.createBloomFilters();
+
       if (_segmentMetadata.getTotalDocs() != 0) {
         if (_indexLoadingConfig.isEnableDefaultColumns() && (_schema != null)) {
           // Update default columns according to the schema.
@@ -104,6 +144,8 @@ public class SegmentPreProcessor implements AutoCloseable {
         segmentWriter.saveAndClose();
       }
     }
+    FileUtils.writeStringToFile(new File(_indexDir, PROCESSED_CONFIG_FILE_NAME),
+        getProcessedConfig(_indexLoadingConfig, _schema), PROCESSED_CONFIG_ENCODING);
   }
 
   @Override
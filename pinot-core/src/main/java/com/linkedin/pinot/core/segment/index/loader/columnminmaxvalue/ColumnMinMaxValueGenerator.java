@@ -21,12 +21,13 @@ import com.linkedin.pinot.common.data.Schema;
 import com.linkedin.pinot.core.segment.creator.impl.SegmentColumnarIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
 import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.column.ColumnIndexContainer;
 import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
 import com.linkedin.pinot.core.segment.index.readers.DoubleDictionary;
 import com.linkedin.pinot.core.segment.index.readers.FloatDictionary;
+import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
 import com.linkedin.pinot.core.segment.index.readers.IntDictionary;
 import com.linkedin.pinot.core.segment.index.readers.LongDictionary;
-import com.linkedin.pinot.core.segment.index.readers.StringDictionary;
 import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
 import com.linkedin.pinot.core.segment.store.ColumnIndexType;
 import com.linkedin.pinot.core.segment.store.SegmentDirectory;
@@ -116,9 +117,10 @@ public class ColumnMinMaxValueGenerator {
             doubleDictionary.getStringValue(0), doubleDictionary.getStringValue(doubleDictionary.length() - 1));
         break;
       case STRING:
-        StringDictionary stringDictionary = new StringDictionary(dictionaryBuffer, columnMetadata);
-        SegmentColumnarIndexCreator.addColumnMinMaxValueInfo(_segmentProperties, columnName, stringDictionary.get(0),
-            stringDictionary.get(stringDictionary.length() - 1));
+        ImmutableDictionaryReader stringDictionary =
+            ColumnIndexContainer.loadDictionary(columnMetadata, dictionaryBuffer);
+        SegmentColumnarIndexCreator.addColumnMinMaxValueInfo(_segmentProperties, columnName,
+            stringDictionary.getStringValue(0), stringDictionary.getStringValue(stringDictionary.length() - 1));
         break;
       default:
         throw new IllegalStateException("Unsupported data type: " + dataType + " for column: " + columnName);
@@ -16,26 +16,31 @@
 package com.linkedin.pinot.core.segment.index.readers;
 
 import com.linkedin.pinot.common.utils.Pairs.IntPair;
+import com.linkedin.pinot.core.query.cache.BitmapCache;
 import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
-import java.io.File;
 import java.io.IOException;
-import java.lang.ref.SoftReference;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class BitmapInvertedIndexReader implements InvertedIndexReader {
   public static final Logger LOGGER = LoggerFactory.getLogger(BitmapInvertedIndexReader.class);
 
+  // Identifies the reader in the bitmap cache.
+  private static final AtomicLong READER_ID_GENERATOR = new AtomicLong();
+
   final private int numberOfBitmaps;
-  private volatile SoftReference<SoftReference<ImmutableRoaringBitmap>[]> bitmaps = null;
+  final private long readerId = READER_ID_GENERATOR.getAndIncrement();
 
   private PinotDataBuffer buffer;
   public static final int INT_SIZE_IN_BYTES = Integer.SIZE / Byte.SIZE;
 
-  private File file;
-
   /**
    * Constructs an inverted index with the specified size.
    * @param cardinality the number of bitmaps in the inverted index, which should be the same as the
@@ -44,7 +49,6 @@ public class BitmapInvertedIndexReader implements InvertedIndexReader {
    * @throws IOException
    */
   public BitmapInvertedIndexReader(PinotDataBuffer indexDataBuffer, int cardinality) throws IOException {
-    this.file = file;
     numberOfBitmaps = cardinality;
     load(indexDataBuffer);
   }
@@ -55,40 +59,58 @@ public class BitmapInvertedIndexReader implements InvertedIndexReader {
    */
   @Override
   public ImmutableRoaringBitmap getImmutable(int idx) {
-    SoftReference<ImmutableRoaringBitmap>[] bitmapArrayReference = null;
-    // Return the bitmap if it's still on heap
-    if (bitmaps != null) {
-      bitmapArrayReference = bitmaps.get();
-      if (bitmapArrayReference != null) {
-        SoftReference<ImmutableRoaringBitmap> bitmapReference = bitmapArrayReference[idx];
-        if (bitmapReference != null) {
-          ImmutableRoaringBitmap value = bitmapReference.get();
-          if (value != null) {
-            return value;
-          }
-        }
-      } else {
-        bitmapArrayReference = new SoftReference[numberOfBitmaps];
-        bitmaps = new SoftReference<SoftReference<ImmutableRoaringBitmap>[]>(bitmapArrayReference);
-      }
-    } else {
-      bitmapArrayReference = new SoftReference[numberOfBitmaps];
-      bitmaps = new SoftReference<SoftReference<ImmutableRoaringBitmap>[]>(bitmapArrayReference);
+    BitmapCache bitmapCache = BitmapCache.getInstance();
+    if (bitmapCache == null) {
+      return buildRoaringBitmapForIndex(idx);
     }
-    synchronized (this) {
-      ImmutableRoaringBitmap value;
-      if (bitmapArrayReference[idx] == null || bitmapArrayReference[idx].get() == null) {
-        value = buildRoaringBitmapForIndex(idx);
-        bitmapArrayReference[idx] = new SoftReference<ImmutableRoaringBitmap>(value);
-      } else {
-        value = bitmapArrayReference[idx].get();
+    ImmutableRoaringBitmap bitmap = bitmapCache.get(readerId, new int[]{idx});
+    if (bitmap == null) {
+      bitmap = buildRoaringBitmapForIndex(idx);
+      if (bitmap != null) {
+        bitmapCache.putSingle(readerId, idx, bitmap);
       }
-      return value;
     }
+    return bitmap;
+  }
+
+  /**
+   * Returns the union of the bitmaps for the given dictionary ids. Unions of a few dictionary ids are served from the
+   * server wide {@link BitmapCache} when it is enabled, so that repeated IN/RANGE predicates do not need to merge the
+   * bitmaps again.
+   *
+   * @param dictIds dictionary ids, should contain at least one dictionary id.
+   * @return union of the bitmaps, must not be modified.
+   */
+  public ImmutableRoaringBitmap getUnion(int[] dictIds) {
+    int numDictIds = dictIds.length;
+    if (numDictIds == 1) {
+      return getImmutable(dictIds[0]);
+    }
+    BitmapCache bitmapCache = BitmapCache.getInstance();
+    if (bitmapCache == null || numDictIds > BitmapCache.MAX_NUM_DICT_IDS_PER_ENTRY) {
+      return buildUnion(dictIds);
+    }
+    int[] sortedDictIds = dictIds.clone();
+    Arrays.sort(sortedDictIds);
+    ImmutableRoaringBitmap union = bitmapCache.get(readerId, sortedDictIds);
+    if (union == null) {
+      union = bitmapCache.putUnion(readerId, sortedDictIds, buildUnion(sortedDictIds));
+    }
+    return union;
+  }
 
+  private MutableRoaringBitmap buildUnion(int[] dictIds) {
+    List<ImmutableRoaringBitmap> bitmaps = new ArrayList<>(dictIds.length);
+    for (int dictId : dictIds) {
+      ImmutableRoaringBitmap bitmap = buildRoaringBitmapForIndex(dictId);
+      if (bitmap != null) {
+        bitmaps.add(bitmap);
+      }
+    }
+    return MutableRoaringBitmap.or(bitmaps.iterator());
   }
 
-  private synchronized ImmutableRoaringBitmap buildRoaringBitmapForIndex(final int index) {
+  private ImmutableRoaringBitmap buildRoaringBitmapForIndex(final int index) {
     final int currentOffset = getOffset(index);
     final int nextOffset = getOffset(index + 1);
     final int bufferLength = nextOffset - currentOffset;
@@ -100,8 +122,8 @@ public class BitmapInvertedIndexReader implements InvertedIndexReader {
       immutableRoaringBitmap = new ImmutableRoaringBitmap(bb);
     } catch (Exception e) {
       LOGGER.error(
-          "Error creating immutableRoaringBitmap for dictionary id:{} currentOffset:{} bufferLength:{} slice position{} limit:{} file:{}",
-          index, currentOffset, bufferLength, bb.position(), bb.limit(), file.getAbsolutePath());
+          "Error creating immutableRoaringBitmap for dictionary id:{} currentOffset:{} bufferLength:{} slice position{} limit:{}",
+          index, currentOffset, bufferLength, bb.position(), bb.limit());
     }
     return immutableRoaringBitmap;
   }
@@ -118,6 +140,11 @@ public class BitmapInvertedIndexReader implements InvertedIndexReader {
 
   @Override
   public void close() throws IOException {
+    // Cached bitmaps may be views on the buffer, drop them before releasing it.
+    BitmapCache bitmapCache = BitmapCache.getInstance();
+    if (bitmapCache != null) {
+      bitmapCache.invalidate(readerId);
+    }
     buffer.close();
   }
 
@@ -0,0 +1,53 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.readers;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import javax.annotation.Nonnull;
+
+
+/**
+ * The <code>BloomFilterReader</code> class reads the bloom filter created by <code>BloomFilterCreator</code>.
+ * <p>The filter is small compared to the other indexes, so it is deserialized on heap once when the segment is loaded.
+ */
+public class BloomFilterReader {
+  private final BloomFilter<CharSequence> _bloomFilter;
+
+  public BloomFilterReader(@Nonnull PinotDataBuffer dataBuffer)
+      throws IOException {
+    long size = dataBuffer.size();
+    Preconditions.checkState(size < Integer.MAX_VALUE, "Bloom filter of size: %s is too large", size);
+    byte[] bytes = new byte[(int) size];
+    dataBuffer.copyTo(0, bytes, 0, bytes.length);
+    _bloomFilter = BloomFilter.readFrom(new ByteArrayInputStream(bytes), Funnels.stringFunnel(Charsets.UTF_8));
+  }
+
+  /**
+   * Returns <code>false</code> if the value is definitely not in the column, <code>true</code> if it might be.
+   *
+   * @param value string representation of the value, converted to the data type of the column.
+   * @return whether the value might be in the column.
+   */
+  public boolean mightContain(@Nonnull String value) {
+    return _bloomFilter.mightContain(value);
+  }
+}
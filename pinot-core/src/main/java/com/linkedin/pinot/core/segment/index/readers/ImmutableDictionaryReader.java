@@ -34,6 +34,15 @@ public abstract class ImmutableDictionaryReader implements Dictionary {
     fileSearcher = new ByteBufferBinarySearchUtil(dataFileReader);
   }
 
+  /**
+   * Constructor for dictionaries not stored as fixed size entries, which read the data buffer on their own.
+   */
+  protected ImmutableDictionaryReader(int rows) {
+    dataFileReader = null;
+    this.rows = rows;
+    fileSearcher = null;
+  }
+
 
   protected int intIndexOf(int actualValue) {
     return fileSearcher.binarySearch(0, actualValue);
@@ -68,7 +77,9 @@ public abstract class ImmutableDictionaryReader implements Dictionary {
   public abstract double getDoubleValue(int dictionaryId);
 
   public void close() throws IOException {
-    dataFileReader.close();
+    if (dataFileReader != null) {
+      dataFileReader.close();
+    }
   }
 
   @Override
@@ -0,0 +1,193 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.readers;
+
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+
+/**
+ * String dictionary with variable length entries (dictionary version 2).
+ * <p>The dictionary file contains <code>cardinality + 1</code> int offsets followed by the UTF-8 bytes of the values
+ * without any padding. Value <code>i</code> is stored in <code>[offset(i), offset(i + 1))</code>. Values are sorted
+ * in natural string order, same as the fixed size string dictionary.
+ * <p>Lookups decode the UTF-8 bytes of the data buffer in place and compare them char by char against the value, without
+ * allocating anything per lookup, and reads do not need to strip any padding.
+ */
+public class VarLengthStringDictionary extends ImmutableDictionaryReader {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final int OFFSET_SIZE = Integer.SIZE / Byte.SIZE;
+
+  private final PinotDataBuffer _dataBuffer;
+  private final int _numValues;
+
+  public VarLengthStringDictionary(PinotDataBuffer dataBuffer, ColumnMetadata metadata) {
+    super(metadata.getCardinality());
+    _dataBuffer = dataBuffer;
+    _numValues = metadata.getCardinality();
+  }
+
+  @Override
+  public int indexOf(Object rawValue) {
+    String lookupValue = (String) rawValue;
+
+    int low = 0;
+    int high = _numValues - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int compareResult = compare(middle, lookupValue);
+      if (compareResult > 0) {
+        high = middle - 1;
+      } else if (compareResult < 0) {
+        low = middle + 1;
+      } else {
+        return middle;
+      }
+    }
+    return -(low + 1);
+  }
+
+  /**
+   * Compares the value with the given dictionary id against the lookup value the same way as
+   * {@link String#compareTo(String)}, i.e. char by char, decoding the UTF-8 bytes into UTF-16 chars on the fly.
+   */
+  private int compare(int dictionaryId, String lookupValue) {
+    int offset = getOffset(dictionaryId);
+    int endOffset = getOffset(dictionaryId + 1);
+    int lookupLength = lookupValue.length();
+    int index = 0;
+    while (offset < endOffset && index < lookupLength) {
+      int codePoint;
+      int firstByte = _dataBuffer.getByte(offset++) & 0xFF;
+      if (firstByte < 0x80) {
+        codePoint = firstByte;
+      } else if (firstByte < 0xE0) {
+        codePoint = ((firstByte & 0x1F) << 6) | (_dataBuffer.getByte(offset++) & 0x3F);
+      } else if (firstByte < 0xF0) {
+        codePoint = ((firstByte & 0x0F) << 12) | ((_dataBuffer.getByte(offset++) & 0x3F) << 6) | (
+            _dataBuffer.getByte(offset++) & 0x3F);
+      } else {
+        codePoint = ((firstByte & 0x07) << 18) | ((_dataBuffer.getByte(offset++) & 0x3F) << 12) | (
+            (_dataBuffer.getByte(offset++) & 0x3F) << 6) | (_dataBuffer.getByte(offset++) & 0x3F);
+      }
+
+      if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+        int compareResult = (char) codePoint - lookupValue.charAt(index++);
+        if (compareResult != 0) {
+          return compareResult;
+        }
+      } else {
+        // Supplementary character, stored as a surrogate pair in the string.
+        int compareResult = Character.highSurrogate(codePoint) - lookupValue.charAt(index++);
+        if (compareResult != 0) {
+          return compareResult;
+        }
+        if (index == lookupLength) {
+          return 1;
+        }
+        compareResult = Character.lowSurrogate(codePoint) - lookupValue.charAt(index++);
+        if (compareResult != 0) {
+          return compareResult;
+        }
+      }
+    }
+    if (offset < endOffset) {
+      return 1;
+    }
+    return (index < lookupLength) ? -1 : 0;
+  }
+
+  private int getOffset(int index) {
+    return _dataBuffer.getInt(index * OFFSET_SIZE);
+  }
+
+  @Override
+  public String get(int dictionaryId) {
+    if ((dictionaryId == -1) || (dictionaryId >= _numValues)) {
+      return "null";
+    }
+    return getString(dictionaryId);
+  }
+
+  private String getString(int dictionaryId) {
+    int startOffset = getOffset(dictionaryId);
+    int length = getOffset(dictionaryId + 1) - startOffset;
+    byte[] bytes = new byte[length];
+    _dataBuffer.copyTo(startOffset, bytes, 0, length);
+    return new String(bytes, UTF_8);
+  }
+
+  @Override
+  public long getLongValue(int dictionaryId) {
+    throw new RuntimeException("cannot converted string to long");
+  }
+
+  @Override
+  public double getDoubleValue(int dictionaryId) {
+    throw new RuntimeException("cannot converted string to double");
+  }
+
+  @Override
+  public int getIntValue(int dictionaryId) {
+    throw new RuntimeException("cannot converted string to int");
+  }
+
+  @Override
+  public float getFloatValue(int dictionaryId) {
+    throw new RuntimeException("cannot converted string to float");
+  }
+
+  @Override
+  public String getStringValue(int dictionaryId) {
+    return getString(dictionaryId);
+  }
+
+  @Override
+  public void readIntValues(int[] dictionaryIds, int startPos, int limit, int[] outValues, int outStartPos) {
+    throw new RuntimeException("Can not convert string to int");
+  }
+
+  @Override
+  public void readLongValues(int[] dictionaryIds, int startPos, int limit, long[] outValues, int outStartPos) {
+    throw new RuntimeException("Can not convert string to long");
+  }
+
+  @Override
+  public void readFloatValues(int[] dictionaryIds, int startPos, int limit, float[] outValues, int outStartPos) {
+    throw new RuntimeException("Can not convert string to float");
+  }
+
+  @Override
+  public void readDoubleValues(int[] dictionaryIds, int startPos, int limit, double[] outValues, int outStartPos) {
+    throw new RuntimeException("Can not convert string to double");
+  }
+
+  @Override
+  public void readStringValues(int[] dictionaryIds, int startPos, int limit, String[] outValues, int outStartPos) {
+    int endPos = startPos + limit;
+    for (int i = startPos; i < endPos; i++) {
+      outValues[outStartPos++] = getString(dictionaryIds[i]);
+    }
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    _dataBuffer.close();
+  }
+}
@@ -228,6 +228,40 @@ public class DataFetcherTest {
     }
   }
 
+  @Test
+  public void testDataBlockCache() {
+    DataBlockCache dataBlockCache = new DataBlockCache(_dataFetcher);
+    int columnIndex = dataBlockCache.getColumnIndex(DOUBLE_METRIC_NAME);
+    int[] docIds = new int[NUM_ROWS];
+    for (int i = 0; i < NUM_ROWS; i++) {
+      docIds[i] = NUM_ROWS - 1 - i;
+    }
+
+    // Values are re-fetched for each new block.
+    int length = NUM_ROWS / 2;
+    dataBlockCache.initNewBlock(docIds, 0, length);
+    double[] doubleValues = dataBlockCache.getDoubleValueArrayForColumn(columnIndex);
+    Assert.assertSame(dataBlockCache.getDoubleValueArrayForColumn(DOUBLE_METRIC_NAME), doubleValues);
+    for (int i = 0; i < length; i++) {
+      Assert.assertEquals(doubleValues[i], _doubleMetricValues[docIds[i]], _errorMessage);
+    }
+    dataBlockCache.initNewBlock(docIds, length, length);
+    Assert.assertSame(dataBlockCache.getDoubleValueArrayForColumn(columnIndex), doubleValues);
+    for (int i = 0; i < length; i++) {
+      Assert.assertEquals(doubleValues[i], _doubleMetricValues[docIds[length + i]], _errorMessage);
+    }
+
+    // Released arrays are reused by the next data block cache on the same thread.
+    dataBlockCache.releaseArrays();
+    DataBlockCache newDataBlockCache = new DataBlockCache(_dataFetcher);
+    newDataBlockCache.initNewBlock(docIds, 0, length);
+    Assert.assertSame(newDataBlockCache.getDoubleValueArrayForColumn(columnIndex), doubleValues);
+    for (int i = 0; i < length; i++) {
+      Assert.assertEquals(doubleValues[i], _doubleMetricValues[docIds[i]], _errorMessage);
+    }
+    newDataBlockCache.releaseArrays();
+  }
+
   @AfterClass
   public void cleanUp() {
     FileUtils.deleteQuietly(new File(INDEX_DIR_PATH));
@@ -21,10 +21,12 @@ import com.linkedin.pinot.common.response.ProcessingException;
 import com.linkedin.pinot.common.utils.DataSchema;
 import com.linkedin.pinot.common.utils.DataTable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Random;
 import org.apache.commons.lang.RandomStringUtils;
 import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.Test;
 
 
@@ -38,6 +40,11 @@ public class DataTableSerDeTest {
 
   private static final int NUM_ROWS = 100;
 
+  @AfterMethod
+  public void tearDown() {
+    DataTableBuilder.setCurrentDataTableVersion(DataTableBuilder.VERSION_2);
+  }
+
   @Test
   public void testException()
       throws IOException {
@@ -46,20 +53,34 @@ public class DataTableSerDeTest {
         QueryException.getException(QueryException.QUERY_EXECUTION_ERROR, exception);
     String expected = processingException.getMessage();
 
-    DataTable dataTable = new DataTableImplV2();
-    dataTable.addException(processingException);
-    DataTable newDataTable = DataTableFactory.getDataTable(dataTable.toBytes());
-    Assert.assertNull(newDataTable.getDataSchema());
-    Assert.assertEquals(newDataTable.getNumberOfRows(), 0);
+    for (DataTable dataTable : new DataTable[]{new DataTableImplV2(), new DataTableImplV3()}) {
+      dataTable.addException(processingException);
+      DataTable newDataTable = DataTableFactory.getDataTable(dataTable.toBytes());
+      Assert.assertEquals(newDataTable.getClass(), dataTable.getClass());
+      Assert.assertNull(newDataTable.getDataSchema());
+      Assert.assertEquals(newDataTable.getNumberOfRows(), 0);
 
-    String actual = newDataTable.getMetadata()
-        .get(DataTable.EXCEPTION_METADATA_KEY + QueryException.QUERY_EXECUTION_ERROR.getErrorCode());
-    Assert.assertEquals(actual, expected);
+      String actual = newDataTable.getMetadata()
+          .get(DataTable.EXCEPTION_METADATA_KEY + QueryException.QUERY_EXECUTION_ERROR.getErrorCode());
+      Assert.assertEquals(actual, expected);
+    }
   }
 
   @Test
   public void testAllDataTypes()
       throws IOException {
+    testAllDataTypes(DataTableBuilder.VERSION_2);
+  }
+
+  @Test
+  public void testAllDataTypesColumnMajor()
+      throws IOException {
+    testAllDataTypes(DataTableBuilder.VERSION_3);
+  }
+
+  private void testAllDataTypes(int version)
+      throws IOException {
+    DataTableBuilder.setCurrentDataTableVersion(version);
     DataType[] columnTypes = DataType.values();
     int numColumns = columnTypes.length;
     String[] columnNames = new String[numColumns];
@@ -212,71 +233,87 @@ public class DataTableSerDeTest {
     }
 
     DataTable dataTable = dataTableBuilder.build();
-    DataTable newDataTable = DataTableFactory.getDataTable(dataTable.toBytes());
-    Assert.assertEquals(newDataTable.getDataSchema(), dataSchema, ERROR_MESSAGE);
-    Assert.assertEquals(newDataTable.getNumberOfRows(), NUM_ROWS, ERROR_MESSAGE);
+    byte[] dataTableBytes = dataTable.toBytes();
+    // Also read the data table from a direct buffer not starting at 0, as the broker does with the server responses.
+    ByteBuffer directBuffer = ByteBuffer.allocateDirect(dataTableBytes.length + 4);
+    directBuffer.putInt(0);
+    directBuffer.put(dataTableBytes);
+    directBuffer.flip();
+    directBuffer.position(4);
 
-    for (int rowId = 0; rowId < NUM_ROWS; rowId++) {
-      for (int colId = 0; colId < numColumns; colId++) {
-        switch (columnTypes[colId]) {
-          case BOOLEAN:
-            Assert.assertEquals(newDataTable.getBoolean(rowId, colId), booleans[rowId], ERROR_MESSAGE);
-            break;
-          case BYTE:
-            Assert.assertEquals(newDataTable.getByte(rowId, colId), bytes[rowId], ERROR_MESSAGE);
-            break;
-          case CHAR:
-            Assert.assertEquals(newDataTable.getChar(rowId, colId), chars[rowId], ERROR_MESSAGE);
-            break;
-          case SHORT:
-            Assert.assertEquals(newDataTable.getShort(rowId, colId), shorts[rowId], ERROR_MESSAGE);
-            break;
-          case INT:
-            Assert.assertEquals(newDataTable.getInt(rowId, colId), ints[rowId], ERROR_MESSAGE);
-            break;
-          case LONG:
-            Assert.assertEquals(newDataTable.getLong(rowId, colId), longs[rowId], ERROR_MESSAGE);
-            break;
-          case FLOAT:
-            Assert.assertEquals(newDataTable.getFloat(rowId, colId), floats[rowId], ERROR_MESSAGE);
-            break;
-          case DOUBLE:
-            Assert.assertEquals(newDataTable.getDouble(rowId, colId), doubles[rowId], ERROR_MESSAGE);
-            break;
-          case STRING:
-            Assert.assertEquals(newDataTable.getString(rowId, colId), strings[rowId], ERROR_MESSAGE);
-            break;
-          case OBJECT:
-            Assert.assertEquals(newDataTable.getObject(rowId, colId), objects[rowId], ERROR_MESSAGE);
-            break;
-          case BYTE_ARRAY:
-            Assert.assertTrue(Arrays.equals(newDataTable.getByteArray(rowId, colId), byteArrays[rowId]), ERROR_MESSAGE);
-            break;
-          case CHAR_ARRAY:
-            Assert.assertTrue(Arrays.equals(newDataTable.getCharArray(rowId, colId), charArrays[rowId]), ERROR_MESSAGE);
-            break;
-          case SHORT_ARRAY:
-            Assert.assertTrue(Arrays.equals(newDataTable.getShortArray(rowId, colId), shortArrays[rowId]),
-                ERROR_MESSAGE);
-            break;
-          case INT_ARRAY:
-            Assert.assertTrue(Arrays.equals(newDataTable.getIntArray(rowId, colId), intArrays[rowId]), ERROR_MESSAGE);
-            break;
-          case LONG_ARRAY:
-            Assert.assertTrue(Arrays.equals(newDataTable.getLongArray(rowId, colId), longArrays[rowId]), ERROR_MESSAGE);
-            break;
-          case FLOAT_ARRAY:
-            Assert.assertTrue(Arrays.equals(newDataTable.getFloatArray(rowId, colId), floatArrays[rowId]),
-                ERROR_MESSAGE);
-            break;
-          case DOUBLE_ARRAY:
-            Assert.assertTrue(Arrays.equals(newDataTable.getDoubleArray(rowId, colId), doubleArrays[rowId]),
-                ERROR_MESSAGE);
-            break;
-          case STRING_ARRAY:
-            Assert.assertTrue(Arrays.equals(newDataTable.getStringArray(rowId, colId), stringArrays[rowId]),
-                ERROR_MESSAGE);
-            break;
+    DataTable[] newDataTables =
+        new DataTable[]{DataTableFactory.getDataTable(dataTableBytes), DataTableFactory.getDataTable(directBuffer)};
+    for (DataTable newDataTable : newDataTables) {
+      Assert.assertEquals(newDataTable.getDataSchema(), dataSchema, ERROR_MESSAGE);
+      Assert.assertEquals(newDataTable.getNumberOfRows(), NUM_ROWS, ERROR_MESSAGE);
+      Assert.assertEquals(newDataTable.getClass(), dataTable.getClass());
+
+      for (int rowId = 0; rowId < NUM_ROWS; rowId++) {
+        for (int colId = 0; colId < numColumns; colId++) {
+          switch (columnTypes[colId]) {
+            case BOOLEAN:
+              Assert.assertEquals(newDataTable.getBoolean(rowId, colId), booleans[rowId], ERROR_MESSAGE);
+              break;
+            case BYTE:
+              Assert.assertEquals(newDataTable.getByte(rowId, colId), bytes[rowId], ERROR_MESSAGE);
+              break;
+            case CHAR:
+              Assert.assertEquals(newDataTable.getChar(rowId, colId), chars[rowId], ERROR_MESSAGE);
+              break;
+            case SHORT:
+              Assert.assertEquals(newDataTable.getShort(rowId, colId), shorts[rowId], ERROR_MESSAGE);
+              break;
+            case INT:
+              Assert.assertEquals(newDataTable.getInt(rowId, colId), ints[rowId], ERROR_MESSAGE);
+              break;
+            case LONG:
+              Assert.assertEquals(newDataTable.getLong(rowId, colId), longs[rowId], ERROR_MESSAGE);
+              break;
+            case FLOAT:
+              Assert.assertEquals(newDataTable.getFloat(rowId, colId), floats[rowId], ERROR_MESSAGE);
+              break;
+            case DOUBLE:
+              Assert.assertEquals(newDataTable.getDouble(rowId, colId), doubles[rowId], ERROR_MESSAGE);
+              break;
+            case STRING:
+              Assert.assertEquals(newDataTable.getString(rowId, colId), strings[rowId], ERROR_MESSAGE);
+              break;
+            case OBJECT:
+              Assert.assertEquals(newDataTable.getObject(rowId, colId), objects[rowId], ERROR_MESSAGE);
+              break;
+            case BYTE_ARRAY:
+              Assert.assertTrue(Arrays.equals(newDataTable.getByteArray(rowId, colId), byteArrays[rowId]),
+                  ERROR_MESSAGE);
+              break;
+            case CHAR_ARRAY:
+              Assert.assertTrue(Arrays.equals(newDataTable.getCharArray(rowId, colId), charArrays[rowId]),
+                  ERROR_MESSAGE);
+              break;
+            case SHORT_ARRAY:
+              Assert.assertTrue(Arrays.equals(newDataTable.getShortArray(rowId, colId), shortArrays[rowId]),
+                  ERROR_MESSAGE);
+              break;
+            case INT_ARRAY:
+              Assert.assertTrue(Arrays.equals(newDataTable.getIntArray(rowId, colId), intArrays[rowId]),
+                  ERROR_MESSAGE);
+              break;
+            case LONG_ARRAY:
+              Assert.assertTrue(Arrays.equals(newDataTable.getLongArray(rowId, colId), longArrays[rowId]),
+                  ERROR_MESSAGE);
+              break;
+            case FLOAT_ARRAY:
+              Assert.assertTrue(Arrays.equals(newDataTable.getFloatArray(rowId, colId), floatArrays[rowId]),
+                  ERROR_MESSAGE);
+              break;
+            case DOUBLE_ARRAY:
+              Assert.assertTrue(Arrays.equals(newDataTable.getDoubleArray(rowId, colId), doubleArrays[rowId]),
+                  ERROR_MESSAGE);
+              break;
+            case STRING_ARRAY:
+              Assert.assertTrue(Arrays.equals(newDataTable.getStringArray(rowId, colId), stringArrays[rowId]),
+                  ERROR_MESSAGE);
+              break;
+          }
         }
       }
     }
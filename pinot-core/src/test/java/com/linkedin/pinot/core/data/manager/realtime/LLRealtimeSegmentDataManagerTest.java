@@ -25,10 +25,12 @@ import com.linkedin.pinot.common.protocols.SegmentCompletionProtocol;
 import com.linkedin.pinot.common.utils.CommonConstants;
 import com.linkedin.pinot.common.utils.LLCSegmentName;
 import com.linkedin.pinot.core.realtime.impl.RealtimeSegmentImpl;
+import com.linkedin.pinot.core.realtime.impl.RealtimeSegmentStats;
 import com.linkedin.pinot.core.realtime.impl.kafka.KafkaLowLevelStreamProviderConfig;
 import com.linkedin.pinot.core.realtime.impl.kafka.SimpleConsumerWrapper;
 import com.linkedin.pinot.core.segment.index.loader.IndexLoadingConfig;
 import com.yammer.metrics.core.MetricsRegistry;
+import java.io.File;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -41,6 +43,8 @@ import org.testng.annotations.Test;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 
@@ -447,6 +451,34 @@ public class LLRealtimeSegmentDataManagerTest {
     }
   }
 
+  // The stats of the consuming segment size the next segment even if the committed segment gets downloaded
+  @Test
+  public void testSegmentStatsSavedBeforeDownload() throws Exception {
+    LLCRealtimeSegmentZKMetadata metadata = new LLCRealtimeSegmentZKMetadata();
+    metadata.setEndOffset(_startOffset + 600);
+
+    {
+      FakeLLRealtimeSegmentDataManager segmentDataManager = createFakeSegmentManager();
+      segmentDataManager._stopWaitTimeMs = 0;
+      segmentDataManager._state.set(segmentDataManager, LLRealtimeSegmentDataManager.State.DISCARDED);
+      RealtimeSegmentStats segmentStats = replaceRealtimeSegmentWithStats(segmentDataManager, 100);
+      segmentDataManager.goOnlineFromConsuming(metadata);
+      Assert.assertTrue(segmentDataManager._downloadAndReplaceCalled);
+      verify(segmentStats).save(any(File.class));
+    }
+
+    // Nothing consumed, keep the stats of the previous segment
+    {
+      FakeLLRealtimeSegmentDataManager segmentDataManager = createFakeSegmentManager();
+      segmentDataManager._stopWaitTimeMs = 0;
+      segmentDataManager._state.set(segmentDataManager, LLRealtimeSegmentDataManager.State.ERROR);
+      RealtimeSegmentStats segmentStats = replaceRealtimeSegmentWithStats(segmentDataManager, 0);
+      segmentDataManager.goOnlineFromConsuming(metadata);
+      Assert.assertTrue(segmentDataManager._downloadAndReplaceCalled);
+      verify(segmentStats, never()).save(any(File.class));
+    }
+  }
+
   @Test
   public void testEndCriteriaChecking() throws Exception {
     // test reaching max row limit
@@ -534,6 +566,17 @@ public class LLRealtimeSegmentDataManagerTest {
     segmentImpl.set(segmentDataManager, mockSegmentImpl);
   }
 
+  // Replace the realtime segment with a mock that returns numDocs for raw doc count, and mocked stats.
+  private RealtimeSegmentStats replaceRealtimeSegmentWithStats(FakeLLRealtimeSegmentDataManager segmentDataManager,
+      int numDocs) throws Exception {
+    replaceRealtimeSegment(segmentDataManager, numDocs);
+    Field segmentImpl = LLRealtimeSegmentDataManager.class.getDeclaredField("_realtimeSegment");
+    segmentImpl.setAccessible(true);
+    RealtimeSegmentStats segmentStats = mock(RealtimeSegmentStats.class);
+    when(((RealtimeSegmentImpl) segmentImpl.get(segmentDataManager)).getStats()).thenReturn(segmentStats);
+    return segmentStats;
+  }
+
   public static class FakeLLRealtimeSegmentDataManager extends LLRealtimeSegmentDataManager {
 
     public Field _state;
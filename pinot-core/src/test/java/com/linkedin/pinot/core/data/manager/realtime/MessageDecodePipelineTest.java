@@ -0,0 +1,141 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.data.manager.realtime;
+
+import com.linkedin.pinot.common.data.DimensionFieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.MetricFieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.data.extractors.FieldExtractorFactory;
+import com.linkedin.pinot.core.data.extractors.PlainFieldExtractor;
+import com.linkedin.pinot.core.realtime.impl.kafka.KafkaMessageDecoder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import kafka.message.Message;
+import kafka.message.MessageAndOffset;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class MessageDecodePipelineTest {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final int NUM_THREADS = 3;
+  private static final int NUM_BATCHES = 20;
+  private static final int NUM_MESSAGES_PER_BATCH = 50;
+
+  @Test
+  public void testDecode()
+      throws Exception {
+    Schema schema = new Schema();
+    schema.addField(new DimensionFieldSpec("d", FieldSpec.DataType.STRING, true));
+    schema.addField(new MetricFieldSpec("m", FieldSpec.DataType.LONG));
+
+    List<KafkaMessageDecoder> messageDecoders = new ArrayList<>();
+    for (int i = 0; i < NUM_THREADS; i++) {
+      messageDecoders.add(new CsvMessageDecoder());
+    }
+    MessageDecodePipeline decodePipeline = new MessageDecodePipeline("testSegment", messageDecoders, schema);
+    Assert.assertEquals(decodePipeline.getNumThreads(), NUM_THREADS);
+
+    try {
+      // Every 10th message cannot be decoded, every 7th message has no metric.
+      List<Future<MessageDecodePipeline.DecodedBatch>> futures = new ArrayList<>();
+      long offset = 0;
+      for (int batchId = 0; batchId < NUM_BATCHES; batchId++) {
+        List<MessageAndOffset> messages = new ArrayList<>();
+        for (int i = 0; i < NUM_MESSAGES_PER_BATCH; i++) {
+          String payload;
+          if (offset % 10 == 0) {
+            payload = "invalid";
+          } else if (offset % 7 == 0) {
+            payload = "d" + offset;
+          } else {
+            payload = "d" + offset + "," + offset;
+          }
+          messages.add(new MessageAndOffset(new Message(payload.getBytes(UTF_8)), offset++));
+        }
+        futures.add(decodePipeline.submit(messages));
+      }
+
+      // Results are consumed in offset order.
+      int numNulls = 0;
+      long expectedOffset = 0;
+      for (Future<MessageDecodePipeline.DecodedBatch> future : futures) {
+        MessageDecodePipeline.DecodedBatch decodedBatch = future.get();
+        Assert.assertEquals(decodedBatch.size(), NUM_MESSAGES_PER_BATCH);
+        for (int i = 0; i < NUM_MESSAGES_PER_BATCH; i++) {
+          Assert.assertEquals(decodedBatch.getMessage(i).offset(), expectedOffset);
+          if (expectedOffset % 10 == 0) {
+            Assert.assertFalse(decodedBatch.isDecoded(i));
+            Assert.assertNull(decodedBatch.getRow(i));
+          } else {
+            Assert.assertTrue(decodedBatch.isDecoded(i));
+            GenericRow row = decodedBatch.getRow(i);
+            Assert.assertEquals(row.getValue("d"), "d" + expectedOffset);
+            if (expectedOffset % 7 == 0) {
+              numNulls++;
+            } else {
+              Assert.assertEquals(row.getValue("m"), expectedOffset);
+            }
+          }
+          expectedOffset++;
+        }
+      }
+
+      // Counters of the decoder threads are merged, and reset.
+      PlainFieldExtractor fieldExtractor = FieldExtractorFactory.getPlainFieldExtractor(schema);
+      decodePipeline.mergeCounters(fieldExtractor);
+      Assert.assertEquals(fieldExtractor.getTotalNulls(), numNulls);
+      decodePipeline.mergeCounters(fieldExtractor);
+      Assert.assertEquals(fieldExtractor.getTotalNulls(), numNulls);
+    } finally {
+      decodePipeline.shutDown();
+    }
+  }
+
+  /**
+   * Decodes "dimension,metric" payloads, returns null for payloads not starting with 'd'.
+   */
+  private static class CsvMessageDecoder implements KafkaMessageDecoder {
+    @Override
+    public void init(Map<String, String> props, Schema indexingSchema, String kafkaTopicName)
+        throws Exception {
+    }
+
+    @Override
+    public GenericRow decode(byte[] payload, GenericRow destination) {
+      return decode(payload, 0, payload.length, destination);
+    }
+
+    @Override
+    public GenericRow decode(byte[] payload, int offset, int length, GenericRow destination) {
+      String value = new String(payload, offset, length, UTF_8);
+      if (!value.startsWith("d")) {
+        return null;
+      }
+      String[] fields = value.split(",");
+      destination.putField("d", fields[0]);
+      if (fields.length > 1) {
+        destination.putField("m", Long.parseLong(fields[1]));
+      }
+      return destination;
+    }
+  }
+}
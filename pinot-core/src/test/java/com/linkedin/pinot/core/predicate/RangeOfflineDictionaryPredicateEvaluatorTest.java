@@ -48,6 +48,7 @@ public class RangeOfflineDictionaryPredicateEvaluatorTest {
       int[] dictIds = new int[]{1, 3, 7};
       Assert.assertTrue(evaluator.apply(dictIds));
       Assert.assertFalse(evaluator.apply(dictIds, 1));
+      Assert.assertEquals(evaluator.getNumMatchingDictionaryIds(), rangeEnd - rangeStart + 1);
       dictIds = evaluator.getMatchingDictionaryIds();
       verifyDictId(dictIds, rangeStart, rangeEnd);
     }
@@ -200,6 +201,7 @@ public class RangeOfflineDictionaryPredicateEvaluatorTest {
       int[] dictIds = new int[]{5, 7, 9};
       Assert.assertFalse(evaluator.apply(dictIds));
       Assert.assertFalse(evaluator.apply(dictIds, 1));
+      Assert.assertEquals(evaluator.getNumMatchingDictionaryIds(), 0);
       dictIds = evaluator.getMatchingDictionaryIds();
       verifyDictId(dictIds, rangeStart+1, rangeEnd-1);
     }
@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.cache;
+
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.yammer.metrics.core.MetricsRegistry;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class BitmapCacheTest {
+
+  @Test
+  public void testGetAndPut() {
+    BitmapCache bitmapCache = new BitmapCache(1_000_000L, new ServerMetrics(new MetricsRegistry()));
+    ImmutableRoaringBitmap bitmap = MutableRoaringBitmap.bitmapOf(1, 5, 10);
+
+    Assert.assertNull(bitmapCache.get(0L, new int[]{3}));
+    bitmapCache.putSingle(0L, 3, bitmap);
+    Assert.assertSame(bitmapCache.get(0L, new int[]{3}), bitmap);
+    Assert.assertNull(bitmapCache.get(1L, new int[]{3}));
+    Assert.assertEquals(bitmapCache.getNumHits(), 1L);
+    Assert.assertEquals(bitmapCache.getNumMisses(), 2L);
+
+    // Unions are copied off heap.
+    MutableRoaringBitmap union = MutableRoaringBitmap.bitmapOf(1, 5, 10, 100000);
+    ImmutableRoaringBitmap cachedUnion = bitmapCache.putUnion(0L, new int[]{3, 4}, union);
+    Assert.assertEquals(cachedUnion, union);
+    Assert.assertSame(bitmapCache.get(0L, new int[]{3, 4}), cachedUnion);
+    Assert.assertEquals(bitmapCache.getNumEntries(), 2);
+
+    // Invalidation removes all the bitmaps of the reader.
+    bitmapCache.putSingle(1L, 3, bitmap);
+    bitmapCache.invalidate(0L);
+    Assert.assertNull(bitmapCache.get(0L, new int[]{3}));
+    Assert.assertNull(bitmapCache.get(0L, new int[]{3, 4}));
+    Assert.assertNotNull(bitmapCache.get(1L, new int[]{3}));
+    Assert.assertEquals(bitmapCache.getNumEntries(), 1);
+  }
+
+  @Test
+  public void testEviction() {
+    BitmapCache bitmapCache = new BitmapCache(1_000_000L, new ServerMetrics(new MetricsRegistry()));
+    ImmutableRoaringBitmap bitmap = MutableRoaringBitmap.bitmapOf(1);
+    bitmapCache.putSingle(0L, 0, bitmap);
+    long entrySizeInBytes = bitmapCache.getSizeInBytes();
+
+    // Cache can hold 10 bitmaps.
+    bitmapCache = new BitmapCache(entrySizeInBytes * 10, new ServerMetrics(new MetricsRegistry()));
+    for (int i = 0; i < 10; i++) {
+      bitmapCache.putSingle(0L, i, bitmap);
+    }
+    Assert.assertEquals(bitmapCache.getNumEntries(), 10);
+
+    // Recently referenced bitmaps get a second chance.
+    Assert.assertNotNull(bitmapCache.get(0L, new int[]{0}));
+    bitmapCache.putSingle(0L, 10, bitmap);
+    Assert.assertEquals(bitmapCache.getNumEntries(), 10);
+    Assert.assertEquals(bitmapCache.getSizeInBytes(), entrySizeInBytes * 10);
+    Assert.assertNotNull(bitmapCache.get(0L, new int[]{0}));
+    Assert.assertNull(bitmapCache.get(0L, new int[]{1}));
+    Assert.assertNotNull(bitmapCache.get(0L, new int[]{10}));
+  }
+}
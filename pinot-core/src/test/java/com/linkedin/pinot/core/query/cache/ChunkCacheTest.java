@@ -0,0 +1,205 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.cache;
+
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.io.compression.ChunkCompressorFactory;
+import com.linkedin.pinot.core.io.reader.impl.ChunkReaderContext;
+import com.linkedin.pinot.core.io.reader.impl.v1.FixedByteChunkSingleValueReader;
+import com.linkedin.pinot.core.io.writer.impl.v1.FixedByteChunkSingleValueWriter;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import com.yammer.metrics.core.MetricsRegistry;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class ChunkCacheTest {
+  private static final int CHUNK_SIZE = 1000;
+  // Chunk size plus the entry overhead.
+  private static final long ENTRY_SIZE_IN_BYTES = CHUNK_SIZE + 128;
+
+  @Test
+  public void testGetAndPut() {
+    ChunkCache chunkCache = new ChunkCache(1_000_000L, 1_000_000L, Collections.<String, Long>emptyMap(),
+        new ServerMetrics(new MetricsRegistry()));
+    ByteBuffer chunk = getChunk(1);
+
+    // Chunks are only cached the second time they are decompressed.
+    Assert.assertNull(chunkCache.get(0L, 3));
+    Assert.assertFalse(chunkCache.put(0L, "table", 3, chunk));
+    Assert.assertNull(chunkCache.get(0L, 3));
+    Assert.assertTrue(chunkCache.put(0L, "table", 3, chunk));
+    ByteBuffer cachedChunk = chunkCache.get(0L, 3);
+    Assert.assertNotNull(cachedChunk);
+    Assert.assertEquals(cachedChunk, chunk);
+    Assert.assertEquals(chunk.position(), 0);
+    Assert.assertNull(chunkCache.get(1L, 3));
+    Assert.assertEquals(chunkCache.getNumHits(), 1L);
+    Assert.assertEquals(chunkCache.getNumMisses(), 3L);
+
+    // Chunks are copied, modifying the original chunk does not modify the cached one.
+    chunk.put(0, (byte) 2);
+    Assert.assertEquals(chunkCache.get(0L, 3).get(0), (byte) 1);
+
+    // Invalidation removes all the chunks of the reader.
+    put(chunkCache, 0L, "table", 4, chunk);
+    put(chunkCache, 1L, "table", 3, chunk);
+    Assert.assertEquals(chunkCache.getTableSizeInBytes("table"), ENTRY_SIZE_IN_BYTES * 3);
+    chunkCache.invalidate(0L);
+    Assert.assertNull(chunkCache.get(0L, 3));
+    Assert.assertNull(chunkCache.get(0L, 4));
+    Assert.assertNotNull(chunkCache.get(1L, 3));
+    Assert.assertEquals(chunkCache.getNumEntries(), 1);
+    Assert.assertEquals(chunkCache.getTableSizeInBytes("table"), ENTRY_SIZE_IN_BYTES);
+  }
+
+  @Test
+  public void testEviction() {
+    // Cache can hold 10 chunks.
+    ChunkCache chunkCache =
+        new ChunkCache(ENTRY_SIZE_IN_BYTES * 10, ENTRY_SIZE_IN_BYTES * 10, Collections.<String, Long>emptyMap(),
+            new ServerMetrics(new MetricsRegistry()));
+    ByteBuffer chunk = getChunk(1);
+    for (int i = 0; i < 10; i++) {
+      put(chunkCache, 0L, "table", i, chunk);
+    }
+    Assert.assertEquals(chunkCache.getNumEntries(), 10);
+
+    // Recently referenced chunks get a second chance.
+    Assert.assertNotNull(chunkCache.get(0L, 0));
+    put(chunkCache, 0L, "table", 10, chunk);
+    Assert.assertEquals(chunkCache.getNumEntries(), 10);
+    Assert.assertEquals(chunkCache.getSizeInBytes(), ENTRY_SIZE_IN_BYTES * 10);
+    Assert.assertNotNull(chunkCache.get(0L, 0));
+    Assert.assertNull(chunkCache.get(0L, 1));
+    Assert.assertNotNull(chunkCache.get(0L, 10));
+
+    // Chunks larger than a tenth of the cache are not cached.
+    put(chunkCache, 0L, "table", 11, ByteBuffer.allocate(CHUNK_SIZE * 2));
+    Assert.assertNull(chunkCache.get(0L, 11));
+  }
+
+  @Test
+  public void testTableQuota() {
+    // Cache can hold 10 chunks, 4 per table by default and 2 for 'smallTable'.
+    ChunkCache chunkCache = new ChunkCache(ENTRY_SIZE_IN_BYTES * 10, ENTRY_SIZE_IN_BYTES * 4,
+        Collections.singletonMap("smallTable", ENTRY_SIZE_IN_BYTES * 2), new ServerMetrics(new MetricsRegistry()));
+    ByteBuffer chunk = getChunk(1);
+    for (int i = 0; i < 3; i++) {
+      put(chunkCache, 0L, "smallTable", i, chunk);
+    }
+    for (int i = 0; i < 5; i++) {
+      put(chunkCache, 1L, "table", i, chunk);
+    }
+    Assert.assertEquals(chunkCache.getTableSizeInBytes("smallTable"), ENTRY_SIZE_IN_BYTES * 2);
+    Assert.assertEquals(chunkCache.getTableSizeInBytes("table"), ENTRY_SIZE_IN_BYTES * 4);
+    Assert.assertNull(chunkCache.get(0L, 0));
+    Assert.assertNull(chunkCache.get(1L, 0));
+
+    // Only the entries of the table over its quota are evicted.
+    Assert.assertNotNull(chunkCache.get(1L, 1));
+    put(chunkCache, 1L, "table", 5, chunk);
+    Assert.assertNotNull(chunkCache.get(0L, 1));
+    Assert.assertNotNull(chunkCache.get(0L, 2));
+    Assert.assertNotNull(chunkCache.get(1L, 1));
+    Assert.assertNull(chunkCache.get(1L, 2));
+
+    // Chunks without table are only bounded by the cache size.
+    for (int i = 0; i < 10; i++) {
+      put(chunkCache, 2L, null, i, chunk);
+    }
+    Assert.assertEquals(chunkCache.getNumEntries(), 10);
+    Assert.assertEquals(chunkCache.getSizeInBytes(), ENTRY_SIZE_IN_BYTES * 10);
+  }
+
+  @Test
+  public void testChunkReader()
+      throws Exception {
+    int numDocsPerChunk = CHUNK_SIZE / V1Constants.Numbers.INTEGER_SIZE;
+    int numValues = numDocsPerChunk * 3;
+    File outFile = new File(FileUtils.getTempDirectory(), "ChunkCacheTest");
+    FileUtils.deleteQuietly(outFile);
+    FixedByteChunkSingleValueWriter writer =
+        new FixedByteChunkSingleValueWriter(outFile, ChunkCompressorFactory.getCompressor("snappy"), numValues,
+            numDocsPerChunk, V1Constants.Numbers.INTEGER_SIZE);
+    for (int i = 0; i < numValues; i++) {
+      writer.setInt(i, i);
+    }
+    writer.close();
+
+    ChunkCache chunkCache = new ChunkCache(1_000_000L, 1_000_000L, Collections.<String, Long>emptyMap(),
+        new ServerMetrics(new MetricsRegistry()));
+    ChunkCache.setInstance(chunkCache);
+    PinotDataBuffer dataBuffer =
+        PinotDataBuffer.fromFile(outFile, ReadMode.mmap, FileChannel.MapMode.READ_ONLY, getClass().getName());
+    FixedByteChunkSingleValueReader reader = new FixedByteChunkSingleValueReader(dataBuffer);
+    reader.setTableName("table");
+    try {
+      // First context only decompresses the chunks, the second one also caches them, the third one reads them from
+      // the cache.
+      ChunkReaderContext context1 = reader.createContext();
+      for (int i = 0; i < numValues; i++) {
+        Assert.assertEquals(reader.getInt(i, context1), i);
+      }
+      Assert.assertEquals(chunkCache.getNumMisses(), 3L);
+      Assert.assertEquals(chunkCache.getNumEntries(), 0);
+      ChunkReaderContext context2 = reader.createContext();
+      for (int i = 0; i < numValues; i++) {
+        Assert.assertEquals(reader.getInt(i, context2), i);
+      }
+      Assert.assertEquals(chunkCache.getNumMisses(), 6L);
+      Assert.assertEquals(chunkCache.getNumEntries(), 3);
+      ChunkReaderContext context3 = reader.createContext();
+      for (int i = 0; i < numValues; i++) {
+        Assert.assertEquals(reader.getInt(i, context3), i);
+      }
+      Assert.assertEquals(chunkCache.getNumHits(), 3L);
+      Assert.assertEquals(chunkCache.getNumMisses(), 6L);
+
+      // Closing the reader drops its chunks.
+      reader.close();
+      Assert.assertEquals(chunkCache.getNumEntries(), 0);
+      Assert.assertEquals(chunkCache.getTableSizeInBytes("table"), 0L);
+    } finally {
+      ChunkCache.setInstance(null);
+      dataBuffer.close();
+      FileUtils.deleteQuietly(outFile);
+    }
+  }
+
+  /**
+   * Offers the chunk twice, so that it gets cached.
+   */
+  private static void put(ChunkCache chunkCache, long readerId, String tableName, int chunkId, ByteBuffer chunk) {
+    chunkCache.put(readerId, tableName, chunkId, chunk);
+    chunkCache.put(readerId, tableName, chunkId, chunk);
+  }
+
+  private static ByteBuffer getChunk(int value) {
+    ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+    for (int i = 0; i < CHUNK_SIZE; i++) {
+      chunk.put(i, (byte) value);
+    }
+    return chunk;
+  }
+}
@@ -0,0 +1,238 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.scheduler;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.linkedin.pinot.common.data.DataManager;
+import com.linkedin.pinot.common.exception.QueryException;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.metrics.ServerQueryPhase;
+import com.linkedin.pinot.common.query.QueryExecutor;
+import com.linkedin.pinot.common.query.QueryRequest;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.InstanceRequest;
+import com.linkedin.pinot.common.request.QuerySource;
+import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.core.common.datatable.DataTableImplV2;
+import com.yammer.metrics.core.MetricsRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class FairShareQuerySchedulerTest {
+  private static final ServerMetrics SERVER_METRICS = new ServerMetrics(new MetricsRegistry());
+
+  @Test
+  public void testRejectWhenQueueFull()
+      throws Exception {
+    Configuration config = new PropertiesConfiguration();
+    config.setProperty(QueryScheduler.QUERY_RUNNER_CONFIG_KEY, 1);
+    config.setProperty(FairShareQueryScheduler.MAX_PENDING_PER_TABLE_CONFIG_KEY, 2);
+    BlockingQueryExecutor queryExecutor = new BlockingQueryExecutor();
+    FairShareQueryScheduler scheduler = new FairShareQueryScheduler(config, queryExecutor);
+
+    try {
+      List<ListenableFuture<DataTable>> futures = new ArrayList<>();
+      futures.add(scheduler.submit(createQueryRequest("a")));
+      // Wait for the first query to start running.
+      Assert.assertTrue(queryExecutor._startedLatch.await(10, TimeUnit.SECONDS));
+      futures.add(scheduler.submit(createQueryRequest("a")));
+      futures.add(scheduler.submit(createQueryRequest("a")));
+
+      // Queue for table 'a' is full.
+      QueryRequest rejectedQueryRequest = createQueryRequest("a");
+      ListenableFuture<DataTable> rejected = scheduler.submit(rejectedQueryRequest);
+      Assert.assertTrue(rejected.isDone());
+      Assert.assertTrue(rejected.get()
+          .getMetadata()
+          .containsKey(DataTable.EXCEPTION_METADATA_KEY + QueryException.QUERY_SCHEDULING_ERROR_CODE));
+      // Scheduler wait timer is stopped for the rejected query.
+      Assert.assertTrue(
+          rejectedQueryRequest.getTimerContext().getPhaseDurationNs(ServerQueryPhase.SCHEDULER_WAIT) >= 0);
+
+      // Other tables are not affected.
+      futures.add(scheduler.submit(createQueryRequest("b")));
+      Assert.assertEquals(scheduler.getNumPendingQueries(), 3);
+
+      queryExecutor._releaseLatch.countDown();
+      for (ListenableFuture<DataTable> future : futures) {
+        Assert.assertTrue(future.get(10, TimeUnit.SECONDS).getMetadata().isEmpty());
+      }
+      Assert.assertEquals(scheduler.getNumPendingQueries(), 0);
+    } finally {
+      scheduler.stop();
+    }
+  }
+
+  @Test
+  public void testFairShare()
+      throws Exception {
+    Configuration config = new PropertiesConfiguration();
+    config.setProperty(QueryScheduler.QUERY_RUNNER_CONFIG_KEY, 1);
+    BlockingQueryExecutor queryExecutor = new BlockingQueryExecutor();
+    FairShareQueryScheduler scheduler = new FairShareQueryScheduler(config, queryExecutor);
+
+    try {
+      // Table 'a' occupies the only runner thread, then queues more queries before table 'b'.
+      List<ListenableFuture<DataTable>> futures = new ArrayList<>();
+      futures.add(scheduler.submit(createQueryRequest("a")));
+      Assert.assertTrue(queryExecutor._startedLatch.await(10, TimeUnit.SECONDS));
+      Thread.sleep(10L);
+      futures.add(scheduler.submit(createQueryRequest("a")));
+      futures.add(scheduler.submit(createQueryRequest("a")));
+      futures.add(scheduler.submit(createQueryRequest("b")));
+
+      queryExecutor._releaseLatch.countDown();
+      for (ListenableFuture<DataTable> future : futures) {
+        future.get(10, TimeUnit.SECONDS);
+      }
+
+      // Table 'b' has no usage so far, so it should run right after the first query of table 'a'.
+      Assert.assertEquals(queryExecutor._executionOrder.get(1), "b");
+    } finally {
+      scheduler.stop();
+    }
+  }
+
+  @Test
+  public void testIdleSchedulerGroupsRemoved()
+      throws Exception {
+    Configuration config = new PropertiesConfiguration();
+    config.setProperty(QueryScheduler.QUERY_RUNNER_CONFIG_KEY, 1);
+    BlockingQueryExecutor queryExecutor = new BlockingQueryExecutor();
+    FairShareQueryScheduler scheduler = new FairShareQueryScheduler(config, queryExecutor);
+
+    try {
+      List<ListenableFuture<DataTable>> futures = new ArrayList<>();
+      futures.add(scheduler.submit(createQueryRequest("a")));
+      Assert.assertTrue(queryExecutor._startedLatch.await(10, TimeUnit.SECONDS));
+      futures.add(scheduler.submit(createQueryRequest("b")));
+      futures.add(scheduler.submit(createQueryRequest("c")));
+      Assert.assertEquals(scheduler.getNumSchedulerGroups(), 3);
+
+      queryExecutor._releaseLatch.countDown();
+      for (ListenableFuture<DataTable> future : futures) {
+        future.get(10, TimeUnit.SECONDS);
+      }
+
+      // All the queries are done, so no scheduling state is kept for the tables.
+      Assert.assertEquals(scheduler.getNumSchedulerGroups(), 0);
+    } finally {
+      scheduler.stop();
+    }
+  }
+
+  @Test
+  public void testBoundedAccountingExecutor()
+      throws Exception {
+    ExecutorService executorService = Executors.newFixedThreadPool(10);
+    try {
+      BoundedAccountingExecutor executor = new BoundedAccountingExecutor(executorService, 2);
+      final AtomicInteger numConcurrentTasks = new AtomicInteger();
+      final AtomicInteger maxConcurrentTasks = new AtomicInteger();
+      final int numTasks = 20;
+      final CountDownLatch doneLatch = new CountDownLatch(numTasks);
+      for (int i = 0; i < numTasks; i++) {
+        executor.execute(new Runnable() {
+          @Override
+          public void run() {
+            int concurrentTasks = numConcurrentTasks.incrementAndGet();
+            synchronized (maxConcurrentTasks) {
+              maxConcurrentTasks.set(Math.max(maxConcurrentTasks.get(), concurrentTasks));
+            }
+            try {
+              Thread.sleep(2L);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            numConcurrentTasks.decrementAndGet();
+            doneLatch.countDown();
+          }
+        });
+      }
+      Assert.assertTrue(doneLatch.await(10, TimeUnit.SECONDS));
+      Assert.assertTrue(maxConcurrentTasks.get() <= 2);
+      Assert.assertTrue(executor.getTotalTaskTimeNs() >= TimeUnit.MILLISECONDS.toNanos(2 * numTasks));
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private static QueryRequest createQueryRequest(String tableName) {
+    QuerySource querySource = new QuerySource();
+    querySource.setTableName(tableName);
+    BrokerRequest brokerRequest = new BrokerRequest();
+    brokerRequest.setQuerySource(querySource);
+    InstanceRequest instanceRequest = new InstanceRequest(0L, brokerRequest);
+    return new QueryRequest(instanceRequest, SERVER_METRICS);
+  }
+
+  /**
+   * Query executor blocking the queries until the release latch is counted down, and recording the execution order.
+   */
+  private static class BlockingQueryExecutor implements QueryExecutor {
+    final CountDownLatch _startedLatch = new CountDownLatch(1);
+    final CountDownLatch _releaseLatch = new CountDownLatch(1);
+    final List<String> _executionOrder = Collections.synchronizedList(new ArrayList<String>());
+
+    @Override
+    public void init(Configuration queryExecutorConfig, DataManager dataManager, ServerMetrics serverMetrics) {
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public DataTable processQuery(QueryRequest queryRequest, ExecutorService executorService) {
+      _executionOrder.add(queryRequest.getTableName());
+      _startedLatch.countDown();
+      try {
+        _releaseLatch.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return new DataTableImplV2();
+    }
+
+    @Override
+    public void shutDown() {
+    }
+
+    @Override
+    public boolean isStarted() {
+      return true;
+    }
+
+    @Override
+    public void updateResourceTimeOutInMs(String resource, long timeOutMs) {
+    }
+
+    @Override
+    public void invalidateSegmentResults(String tableName, String segmentName) {
+    }
+  }
+}
@@ -0,0 +1,188 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.converter;
+
+import com.linkedin.pinot.common.data.DimensionFieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.MetricFieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.data.TimeFieldSpec;
+import com.linkedin.pinot.common.data.TimeGranularitySpec;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.data.readers.PinotSegmentRecordReader;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentVersion;
+import com.linkedin.pinot.core.io.reader.impl.ChunkReaderContext;
+import com.linkedin.pinot.core.io.reader.impl.v1.FixedByteChunkSingleValueReader;
+import com.linkedin.pinot.core.realtime.converter.stats.RealtimeSegmentSegmentCreationDataSource;
+import com.linkedin.pinot.core.realtime.impl.RealtimeSegmentImpl;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import com.yammer.metrics.core.MetricsRegistry;
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+public class RealtimeSegmentConverterTest {
+  private static final File OUTPUT_DIR = new File(FileUtils.getTempDirectory(), "RealtimeSegmentConverterTest");
+  private static final String D_SV = "dSv";
+  private static final String D_MV = "dMv";
+  private static final String M = "m";
+  private static final String T = "t";
+  private static final int NUM_ROWS = 1000;
+
+  private Schema _schema;
+  private RealtimeSegmentImpl _realtimeSegment;
+  private List<Map<String, Object>> _rows = new ArrayList<>();
+
+  @BeforeClass
+  public void setUp()
+      throws Exception {
+    _schema = new Schema();
+    _schema.setSchemaName("testSchema");
+    _schema.addField(new DimensionFieldSpec(D_SV, FieldSpec.DataType.STRING, true));
+    _schema.addField(new DimensionFieldSpec(D_MV, FieldSpec.DataType.INT, false));
+    _schema.addField(new MetricFieldSpec(M, FieldSpec.DataType.LONG));
+    _schema.addField(new TimeFieldSpec(new TimeGranularitySpec(FieldSpec.DataType.LONG, TimeUnit.DAYS, T)));
+
+    // No inverted index on the sorted column, the sort order comes from the forward index.
+    _realtimeSegment = new RealtimeSegmentImpl(_schema, NUM_ROWS, "testTable", "testSegment", "testStream",
+        new ServerMetrics(new MetricsRegistry()), Collections.singletonList(D_MV), 2);
+    Random random = new Random(0);
+    for (int i = 0; i < NUM_ROWS; i++) {
+      Map<String, Object> fields = new HashMap<>();
+      fields.put(D_SV, "value" + random.nextInt(50));
+      int numValues = 1 + random.nextInt(3);
+      Object[] multiValues = new Object[numValues];
+      for (int j = 0; j < numValues; j++) {
+        multiValues[j] = random.nextInt(100);
+      }
+      fields.put(D_MV, multiValues);
+      fields.put(M, (long) i);
+      fields.put(T, 17000L + random.nextInt(10));
+      _rows.add(fields);
+
+      GenericRow row = new GenericRow();
+      row.init(fields);
+      _realtimeSegment.index(row);
+    }
+  }
+
+  @Test
+  public void testSortedDocIdIterationOrder() {
+    int[] sortedDocIds = _realtimeSegment.getSortedDocIdIterationOrderWithSortedColumn(D_SV);
+    Assert.assertEquals(sortedDocIds.length, NUM_ROWS);
+    for (int i = 1; i < NUM_ROWS; i++) {
+      String previousValue = (String) _rows.get(sortedDocIds[i - 1]).get(D_SV);
+      String value = (String) _rows.get(sortedDocIds[i]).get(D_SV);
+      int compare = previousValue.compareTo(value);
+      Assert.assertTrue(compare < 0 || (compare == 0 && sortedDocIds[i - 1] < sortedDocIds[i]));
+    }
+  }
+
+  @Test
+  public void testConvert()
+      throws Exception {
+    // All the columns can be indexed straight from the realtime segment, without reading the rows.
+    RealtimeSegmentSegmentCreationDataSource dataSource = new RealtimeSegmentSegmentCreationDataSource(_realtimeSegment,
+        new RealtimeSegmentRecordReader(_realtimeSegment, _schema, D_SV), _schema);
+    for (String column : _schema.getColumnNames()) {
+      Assert.assertNotNull(dataSource.getColumnSource(column));
+    }
+
+    FileUtils.deleteQuietly(OUTPUT_DIR);
+    RealtimeSegmentConverter converter =
+        new RealtimeSegmentConverter(_realtimeSegment, OUTPUT_DIR.getAbsolutePath(), _schema, "testTable",
+            "testSegment", D_SV, Collections.singletonList(D_MV), new ArrayList<String>(), null);
+    converter.build(SegmentVersion.v1);
+
+    File indexDir = OUTPUT_DIR.listFiles()[0];
+    SegmentMetadataImpl segmentMetadata = new SegmentMetadataImpl(indexDir);
+    Assert.assertEquals(segmentMetadata.getTotalDocs(), NUM_ROWS);
+    Assert.assertTrue(segmentMetadata.getColumnMetadataFor(D_SV).isSorted());
+    Assert.assertTrue(new File(indexDir, D_MV + V1Constants.Indexes.BITMAP_INVERTED_INDEX_FILE_EXTENSION).exists());
+
+    // Rows are stored in the order of the sorted column, and rows with the same value keep their order.
+    List<Map<String, Object>> expectedRows = new ArrayList<>(_rows);
+    Collections.sort(expectedRows, new Comparator<Map<String, Object>>() {
+      @Override
+      public int compare(Map<String, Object> o1, Map<String, Object> o2) {
+        return ((String) o1.get(D_SV)).compareTo((String) o2.get(D_SV));
+      }
+    });
+    PinotSegmentRecordReader recordReader = new PinotSegmentRecordReader(indexDir);
+    recordReader.init();
+    for (Map<String, Object> expectedRow : expectedRows) {
+      Assert.assertTrue(recordReader.hasNext());
+      GenericRow row = recordReader.next();
+      Assert.assertEquals(row.getValue(D_SV), expectedRow.get(D_SV));
+      // Values of multi-value columns are stored in dictionary order.
+      Object[] expectedMultiValues = ((Object[]) expectedRow.get(D_MV)).clone();
+      Arrays.sort(expectedMultiValues);
+      Assert.assertEquals((Object[]) row.getValue(D_MV), expectedMultiValues);
+      Assert.assertEquals(row.getValue(M), expectedRow.get(M));
+      Assert.assertEquals(row.getValue(T), expectedRow.get(T));
+    }
+    Assert.assertFalse(recordReader.hasNext());
+    recordReader.close();
+  }
+
+  @Test
+  public void testConvertWithRawIndex()
+      throws Exception {
+    FileUtils.deleteQuietly(OUTPUT_DIR);
+    RealtimeSegmentConverter converter =
+        new RealtimeSegmentConverter(_realtimeSegment, OUTPUT_DIR.getAbsolutePath(), _schema, "testTable",
+            "testSegment", null, new ArrayList<String>(), Collections.singletonList(M), null);
+    converter.build(SegmentVersion.v1);
+
+    // Without sorted column, rows are stored in the order they were indexed.
+    File rawIndexFile = new File(OUTPUT_DIR.listFiles()[0], M + V1Constants.Indexes.RAW_SV_FWD_IDX_FILE_EXTENTION);
+    PinotDataBuffer dataBuffer = PinotDataBuffer.fromFile(rawIndexFile, ReadMode.mmap, FileChannel.MapMode.READ_ONLY,
+        getClass().getName());
+    FixedByteChunkSingleValueReader rawIndexReader = new FixedByteChunkSingleValueReader(dataBuffer);
+    try {
+      ChunkReaderContext context = rawIndexReader.createContext();
+      for (int docId = 0; docId < NUM_ROWS; docId++) {
+        Assert.assertEquals(rawIndexReader.getLong(docId, context), _rows.get(docId).get(M));
+      }
+    } finally {
+      rawIndexReader.close();
+      dataBuffer.close();
+    }
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(OUTPUT_DIR);
+  }
+}
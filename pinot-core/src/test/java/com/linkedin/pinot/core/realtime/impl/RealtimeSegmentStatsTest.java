@@ -0,0 +1,141 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl;
+
+import com.linkedin.pinot.common.data.DimensionFieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.MetricFieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.data.TimeFieldSpec;
+import com.linkedin.pinot.common.data.TimeGranularitySpec;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.io.readerwriter.impl.FixedByteSingleColumnMultiValueReaderWriter;
+import com.linkedin.pinot.core.realtime.impl.datasource.RealtimeColumnDataSource;
+import com.yammer.metrics.core.MetricsRegistry;
+import java.io.File;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+public class RealtimeSegmentStatsTest {
+  private static final File STATS_DIR = new File(FileUtils.getTempDirectory(), "RealtimeSegmentStatsTest");
+  private static final String D_SV = "dim.sv";
+  private static final String D_MV = "dMv";
+  private static final String M = "m";
+  private static final String T = "t";
+  private static final int CAPACITY = 1000;
+
+  private Schema _schema;
+
+  @BeforeClass
+  public void setUp() {
+    FileUtils.deleteQuietly(STATS_DIR);
+    _schema = new Schema();
+    _schema.setSchemaName("testSchema");
+    _schema.addField(new DimensionFieldSpec(D_SV, FieldSpec.DataType.STRING, true));
+    _schema.addField(new DimensionFieldSpec(D_MV, FieldSpec.DataType.INT, false));
+    _schema.addField(new MetricFieldSpec(M, FieldSpec.DataType.LONG));
+    _schema.addField(new TimeFieldSpec(new TimeGranularitySpec(FieldSpec.DataType.LONG, TimeUnit.DAYS, T)));
+  }
+
+  @Test
+  public void testStats()
+      throws Exception {
+    // First segment without stats: 500 rows, 50 distinct values and 3 multi-values per row
+    RealtimeSegmentImpl firstSegment = createSegment(null, false);
+    indexRows(firstSegment, 500);
+    RealtimeSegmentStats stats = firstSegment.getStats();
+    assertStats(stats);
+
+    // Stats survive a save and load, column names can contain '.'
+    File statsFile = new File(STATS_DIR, "partition_0.properties");
+    stats.save(statsFile);
+    RealtimeSegmentStats loadedStats = RealtimeSegmentStats.load(statsFile);
+    Assert.assertNotNull(loadedStats);
+    assertStats(loadedStats);
+
+    // Saving again replaces the file
+    stats.save(statsFile);
+    assertStats(RealtimeSegmentStats.load(statsFile));
+    Assert.assertFalse(new File(STATS_DIR, "partition_0.properties.tmp").exists());
+
+    // Next segments are sized from the stats, and can still grow past them
+    for (boolean offHeap : new boolean[]{false, true}) {
+      RealtimeSegmentImpl nextSegment = createSegment(loadedStats, offHeap);
+      indexRows(nextSegment, CAPACITY);
+      Assert.assertEquals(nextSegment.getRawDocumentCount(), CAPACITY);
+      RealtimeColumnDataSource dataSource = nextSegment.getDataSource(D_MV);
+      FixedByteSingleColumnMultiValueReaderWriter forwardIndex =
+          (FixedByteSingleColumnMultiValueReaderWriter) dataSource.getForwardIndex();
+      int[] dictIds = new int[dataSource.getMaxNumberOfMultiValues()];
+      for (int docId = 0; docId < CAPACITY; docId++) {
+        Assert.assertEquals(forwardIndex.getIntArray(docId, dictIds), 3);
+        Assert.assertEquals(dataSource.getDictionary().get(dictIds[0]), docId % 50);
+      }
+      RealtimeSegmentStats nextStats = nextSegment.getStats();
+      Assert.assertEquals(nextStats.getNumRows(), CAPACITY);
+      Assert.assertEquals(nextStats.getCardinality(M), CAPACITY);
+    }
+  }
+
+  @Test
+  public void testLoadMissingOrInvalidFile()
+      throws Exception {
+    Assert.assertNull(RealtimeSegmentStats.load(new File(STATS_DIR, "missing.properties")));
+    File invalidFile = new File(STATS_DIR, "invalid.properties");
+    FileUtils.writeStringToFile(invalidFile, "segment.numRows = notANumber");
+    Assert.assertNull(RealtimeSegmentStats.load(invalidFile));
+  }
+
+  private RealtimeSegmentImpl createSegment(RealtimeSegmentStats previousSegmentStats, boolean offHeap)
+      throws Exception {
+    return new RealtimeSegmentImpl(_schema, CAPACITY, "testTable", "testSegment", "testStream",
+        new ServerMetrics(new MetricsRegistry()), Collections.singletonList(D_SV), 1, offHeap, previousSegmentStats);
+  }
+
+  private static void indexRows(RealtimeSegmentImpl segment, int numRows) {
+    for (int i = 0; i < numRows; i++) {
+      GenericRow row = new GenericRow();
+      row.putField(D_SV, "v" + (i % 50));
+      row.putField(D_MV, new Object[]{i % 50, i % 50 + 50, i % 50 + 100});
+      row.putField(M, (long) i);
+      row.putField(T, 17000L);
+      segment.index(row);
+    }
+  }
+
+  private static void assertStats(RealtimeSegmentStats stats) {
+    Assert.assertEquals(stats.getNumRows(), 500);
+    Assert.assertEquals(stats.getCardinality(D_SV), 50);
+    Assert.assertEquals(stats.getCardinality(D_MV), 150);
+    Assert.assertEquals(stats.getCardinality(M), 500);
+    Assert.assertEquals(stats.getCardinality(T), 1);
+    Assert.assertEquals(stats.getAvgMultiValueCount(D_MV), 3f);
+    Assert.assertEquals(stats.getAvgMultiValueCount(D_SV), 0f);
+    Assert.assertEquals(stats.getCardinality("unknown"), 0);
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(STATS_DIR);
+  }
+}
@@ -22,14 +22,13 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
-import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 
 /**
  * Tests for concurrent read and write against REALTIME dictionary.
- * <p>For now just test against {@link IntOnHeapMutableDictionary}. Index contiguous integers from 1 so that the index
- * for each value is deterministic.
+ * <p>For now just test against {@link IntOnHeapMutableDictionary} and {@link IntOffHeapMutableDictionary}. Index
+ * contiguous integers from 1 so that the index for each value is deterministic.
  */
 public class ConcurrentReadWriteDictionaryTest {
   private static final int NUM_ENTRIES = 1_000_000;
@@ -37,36 +36,43 @@ public class ConcurrentReadWriteDictionaryTest {
   private static final ExecutorService EXECUTOR_SERVICE = Executors.newFixedThreadPool(NUM_READERS + 1);
   private static final Random RANDOM = new Random();
 
-  private IntOnHeapMutableDictionary _intOnHeapMutableDictionary;
-
-  @BeforeMethod
-  public void setUp() {
-    _intOnHeapMutableDictionary = new IntOnHeapMutableDictionary();
-  }
-
   @Test
   public void testSingleReaderSingleWriter()
       throws Exception {
-    Future<Void> readerFuture = EXECUTOR_SERVICE.submit(new Reader());
-    Future<Void> writerFuture = EXECUTOR_SERVICE.submit(new Writer());
+    testSingleReaderSingleWriter(new IntOnHeapMutableDictionary());
+    testSingleReaderSingleWriter(new IntOffHeapMutableDictionary());
+  }
+
+  private void testSingleReaderSingleWriter(BaseMutableDictionary dictionary)
+      throws Exception {
+    Future<Void> readerFuture = EXECUTOR_SERVICE.submit(new Reader(dictionary));
+    Future<Void> writerFuture = EXECUTOR_SERVICE.submit(new Writer(dictionary));
 
     readerFuture.get();
     writerFuture.get();
+    dictionary.close();
   }
 
   @Test
   public void testMultiReadersSingleWriter()
       throws Exception {
+    testMultiReadersSingleWriter(new IntOnHeapMutableDictionary());
+    testMultiReadersSingleWriter(new IntOffHeapMutableDictionary());
+  }
+
+  private void testMultiReadersSingleWriter(BaseMutableDictionary dictionary)
+      throws Exception {
     Future[] readerFutures = new Future[NUM_READERS];
     for (int i = 0; i < NUM_READERS; i++) {
-      readerFutures[i] = EXECUTOR_SERVICE.submit(new Reader());
+      readerFutures[i] = EXECUTOR_SERVICE.submit(new Reader(dictionary));
     }
-    Future<Void> writerFuture = EXECUTOR_SERVICE.submit(new Writer());
+    Future<Void> writerFuture = EXECUTOR_SERVICE.submit(new Writer(dictionary));
 
     for (int i = 0; i < NUM_READERS; i++) {
       readerFutures[i].get();
     }
     writerFuture.get();
+    dictionary.close();
   }
 
   @AfterClass
@@ -78,7 +84,12 @@ public class ConcurrentReadWriteDictionaryTest {
    * Reader to read the index of each value after it's indexed into the dictionary, then get the value from the index.
    * <p>We can assume that we always first get the index of a value, then use the index to fetch the value.
    */
-  private class Reader implements Callable<Void> {
+  private static class Reader implements Callable<Void> {
+    private final BaseMutableDictionary _dictionary;
+
+    Reader(BaseMutableDictionary dictionary) {
+      _dictionary = dictionary;
+    }
 
     @Override
     public Void call()
@@ -86,14 +97,14 @@ public class ConcurrentReadWriteDictionaryTest {
       for (int i = 0; i < NUM_ENTRIES; i++) {
         int dictId;
         do {
-          dictId = _intOnHeapMutableDictionary.indexOf(i + 1);
+          dictId = _dictionary.indexOf(i + 1);
         } while (dictId < 0);
         Assert.assertEquals(dictId, i);
-        Assert.assertEquals(_intOnHeapMutableDictionary.getIntValue(dictId), i + 1);
+        Assert.assertEquals(_dictionary.getIntValue(dictId), i + 1);
 
         // Fetch value by a random existing dictId
         int randomDictId = RANDOM.nextInt(i + 1);
-        Assert.assertEquals(_intOnHeapMutableDictionary.getIntValue(randomDictId), randomDictId + 1);
+        Assert.assertEquals(_dictionary.getIntValue(randomDictId), randomDictId + 1);
       }
       return null;
     }
@@ -102,19 +113,24 @@ public class ConcurrentReadWriteDictionaryTest {
   /**
    * Writer to index value into dictionary, then check the index of the value.
    */
-  private class Writer implements Callable<Void> {
+  private static class Writer implements Callable<Void> {
+    private final BaseMutableDictionary _dictionary;
+
+    Writer(BaseMutableDictionary dictionary) {
+      _dictionary = dictionary;
+    }
 
     @Override
     public Void call()
         throws Exception {
       for (int i = 0; i < NUM_ENTRIES; i++) {
-        _intOnHeapMutableDictionary.index(i + 1);
-        Assert.assertEquals(_intOnHeapMutableDictionary.indexOf(i + 1), i);
+        _dictionary.index(i + 1);
+        Assert.assertEquals(_dictionary.indexOf(i + 1), i);
 
         // Index a random existing value
         int randomValue = RANDOM.nextInt(i + 1) + 1;
-        _intOnHeapMutableDictionary.index(randomValue);
-        Assert.assertEquals(_intOnHeapMutableDictionary.indexOf(randomValue), randomValue - 1);
+        _dictionary.index(randomValue);
+        Assert.assertEquals(_dictionary.indexOf(randomValue), randomValue - 1);
       }
       return null;
     }
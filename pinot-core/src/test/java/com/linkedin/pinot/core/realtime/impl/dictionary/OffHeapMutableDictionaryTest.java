@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.dictionary;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import java.lang.reflect.Array;
+import java.util.Random;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests that the off-heap mutable dictionaries behave the same as the on-heap ones.
+ */
+public class OffHeapMutableDictionaryTest {
+  private static final int NUM_VALUES = 100_000;
+  private static final int MAX_CARDINALITY = 20_000;
+  private static final Random RANDOM = new Random();
+
+  @Test
+  public void testSingleValues() {
+    for (FieldSpec.DataType dataType : new FieldSpec.DataType[]{FieldSpec.DataType.INT, FieldSpec.DataType.LONG,
+        FieldSpec.DataType.FLOAT, FieldSpec.DataType.DOUBLE, FieldSpec.DataType.STRING}) {
+      BaseMutableDictionary onHeapDictionary = MutableDictionaryFactory.getMutableDictionary(dataType, false);
+      BaseMutableDictionary offHeapDictionary = MutableDictionaryFactory.getMutableDictionary(dataType, true);
+      Assert.assertTrue(offHeapDictionary.isEmpty());
+
+      for (int i = 0; i < NUM_VALUES; i++) {
+        Object value = makeRandomValue(dataType);
+        onHeapDictionary.index(value);
+        offHeapDictionary.index(value);
+        Assert.assertEquals(offHeapDictionary.indexOf(value), onHeapDictionary.indexOf(value));
+      }
+      compare(onHeapDictionary, offHeapDictionary);
+    }
+  }
+
+  @Test
+  public void testMultiValues() {
+    for (FieldSpec.DataType dataType : new FieldSpec.DataType[]{FieldSpec.DataType.INT, FieldSpec.DataType.STRING}) {
+      BaseMutableDictionary onHeapDictionary = MutableDictionaryFactory.getMutableDictionary(dataType, false);
+      BaseMutableDictionary offHeapDictionary = MutableDictionaryFactory.getMutableDictionary(dataType, true);
+
+      for (int i = 0; i < NUM_VALUES / 10; i++) {
+        Object[] values = new Object[RANDOM.nextInt(10) + 1];
+        for (int j = 0; j < values.length; j++) {
+          values[j] = makeRandomValue(dataType);
+        }
+        onHeapDictionary.index(values);
+        offHeapDictionary.index(values);
+      }
+      compare(onHeapDictionary, offHeapDictionary);
+    }
+  }
+
+  private static void compare(BaseMutableDictionary onHeapDictionary, BaseMutableDictionary offHeapDictionary) {
+    int length = onHeapDictionary.length();
+    Assert.assertEquals(offHeapDictionary.length(), length);
+    for (int dictId = 0; dictId < length; dictId++) {
+      Object value = onHeapDictionary.get(dictId);
+      Assert.assertEquals(offHeapDictionary.get(dictId), value);
+      Assert.assertEquals(offHeapDictionary.indexOf(value), dictId);
+      Assert.assertEquals(offHeapDictionary.getStringValue(dictId), onHeapDictionary.getStringValue(dictId));
+    }
+    Assert.assertEquals(offHeapDictionary.getMinVal(), onHeapDictionary.getMinVal());
+    Assert.assertEquals(offHeapDictionary.getMaxVal(), onHeapDictionary.getMaxVal());
+    Object onHeapSortedValues = onHeapDictionary.getSortedValues();
+    Object offHeapSortedValues = offHeapDictionary.getSortedValues();
+    Assert.assertEquals(Array.getLength(offHeapSortedValues), length);
+    for (int i = 0; i < length; i++) {
+      Assert.assertEquals(Array.get(offHeapSortedValues, i), Array.get(onHeapSortedValues, i));
+    }
+
+    String lower = onHeapDictionary.getStringValue(0);
+    String upper = onHeapDictionary.getStringValue(length - 1);
+    for (int dictId = 0; dictId < length; dictId++) {
+      Assert.assertEquals(offHeapDictionary.inRange(lower, upper, dictId, true, false),
+          onHeapDictionary.inRange(lower, upper, dictId, true, false));
+    }
+    offHeapDictionary.close();
+  }
+
+  private static Object makeRandomValue(FieldSpec.DataType dataType) {
+    int value = RANDOM.nextInt(MAX_CARDINALITY) - MAX_CARDINALITY / 2;
+    switch (dataType) {
+      case INT:
+        return value;
+      case LONG:
+        return (long) value * Integer.MAX_VALUE;
+      case FLOAT:
+        return value / 7.0f;
+      case DOUBLE:
+        return value / 7.0;
+      case STRING:
+        return "value_é_" + value;
+      default:
+        throw new UnsupportedOperationException("Unsupported data type: " + dataType);
+    }
+  }
+}
@@ -402,6 +402,28 @@ public class SegmentPreProcessorTest {
     Assert.assertEquals(columnMetadata.getDefaultNullValueString(), "abcd");
   }
 
+  @Test
+  public void testNeedProcess()
+      throws Exception {
+    constructV1Segment();
+    Assert.assertTrue(SegmentPreProcessor.needProcess(_indexDir, _indexLoadingConfig, _schema));
+
+    try (SegmentPreProcessor processor = new SegmentPreProcessor(_indexDir, _indexLoadingConfig, _schema)) {
+      processor.process();
+    }
+
+    // Same config and schema, no need to process again.
+    Assert.assertFalse(SegmentPreProcessor.needProcess(_indexDir, _indexLoadingConfig, _schema));
+
+    // Schema changed.
+    Assert.assertTrue(SegmentPreProcessor.needProcess(_indexDir, _indexLoadingConfig, _newColumnsSchema1));
+
+    // Inverted index columns changed.
+    IndexLoadingConfig indexLoadingConfig = new IndexLoadingConfig();
+    indexLoadingConfig.setInvertedIndexColumns(Collections.singleton(COLUMN1_NAME));
+    Assert.assertTrue(SegmentPreProcessor.needProcess(_indexDir, indexLoadingConfig, _schema));
+  }
+
   @Test
   public void testAddColumnMinMaxValue()
       throws Exception {
@@ -51,6 +51,9 @@ public class ColumnIndexDirectoryTestHelper {
       case INVERTED_INDEX:
         buf = columnDirectory.newInvertedIndexBuffer(columnName, size);
         break;
+      case BLOOM_FILTER:
+        buf = columnDirectory.newBloomFilterBuffer(columnName, size);
+        break;
     }
     return buf;
   }
@@ -71,6 +74,9 @@ public class ColumnIndexDirectoryTestHelper {
       case INVERTED_INDEX:
         buf = columnDirectory.getInvertedIndexBufferFor(columnName);
         break;
+      case BLOOM_FILTER:
+        buf = columnDirectory.getBloomFilterBufferFor(columnName);
+        break;
     }
     return buf;
   }
@@ -24,12 +24,15 @@ import com.linkedin.pinot.core.io.reader.impl.v1.FixedByteChunkSingleValueReader
 import com.linkedin.pinot.core.io.writer.impl.v1.FixedByteChunkSingleValueWriter;
 import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
 import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.Random;
 import org.apache.commons.io.FileUtils;
 import org.testng.Assert;
 import org.testng.annotations.Test;
+import org.xerial.snappy.Snappy;
 
 
 /**
@@ -192,4 +195,51 @@ public class FixedByteChunkSingleValueReaderWriteTest {
     reader.close();
     FileUtils.deleteQuietly(outFile);
   }
+
+  /**
+   * Version 1 files do not record the compression type in the header, and are always Snappy compressed.
+   */
+  @Test
+  public void testBackwardCompatibility()
+      throws Exception {
+    int numDocsPerChunk = 100;
+    int numChunks = 2;
+    int[] expected = new int[numDocsPerChunk * numChunks];
+    for (int i = 0; i < expected.length; i++) {
+      expected[i] = _random.nextInt();
+    }
+
+    // Header: version, numChunks, numDocsPerChunk, sizeOfEntry and chunk offsets.
+    int headerSize = (numChunks + 4) * V1Constants.Numbers.INTEGER_SIZE;
+    ByteArrayOutputStream chunks = new ByteArrayOutputStream();
+    ByteBuffer header = ByteBuffer.allocate(headerSize);
+    header.putInt(1);
+    header.putInt(numChunks);
+    header.putInt(numDocsPerChunk);
+    header.putInt(V1Constants.Numbers.INTEGER_SIZE);
+    for (int chunkId = 0; chunkId < numChunks; chunkId++) {
+      header.putInt(headerSize + chunks.size());
+      ByteBuffer chunk = ByteBuffer.allocate(numDocsPerChunk * V1Constants.Numbers.INTEGER_SIZE);
+      for (int i = 0; i < numDocsPerChunk; i++) {
+        chunk.putInt(expected[chunkId * numDocsPerChunk + i]);
+      }
+      chunks.write(Snappy.compress(chunk.array()));
+    }
+
+    File outFile = new File(TEST_FILE);
+    FileUtils.deleteQuietly(outFile);
+    FileUtils.writeByteArrayToFile(outFile, header.array());
+    FileUtils.writeByteArrayToFile(outFile, chunks.toByteArray(), true);
+
+    PinotDataBuffer pinotDataBuffer =
+        PinotDataBuffer.fromFile(outFile, ReadMode.mmap, FileChannel.MapMode.READ_ONLY, getClass().getName());
+    FixedByteChunkSingleValueReader reader = new FixedByteChunkSingleValueReader(pinotDataBuffer);
+    ChunkReaderContext context = reader.createContext();
+
+    for (int i = 0; i < expected.length; i++) {
+      Assert.assertEquals(reader.getInt(i, context), expected[i]);
+    }
+    reader.close();
+    FileUtils.deleteQuietly(outFile);
+  }
 }
@@ -18,7 +18,6 @@ package com.linkedin.pinot.index.readerwriter;
 import com.linkedin.pinot.common.segment.ReadMode;
 import com.linkedin.pinot.core.io.compression.ChunkCompressor;
 import com.linkedin.pinot.core.io.compression.ChunkCompressorFactory;
-import com.linkedin.pinot.core.io.compression.ChunkDecompressor;
 import com.linkedin.pinot.core.io.reader.impl.ChunkReaderContext;
 import com.linkedin.pinot.core.io.reader.impl.v1.VarByteChunkSingleValueReader;
 import com.linkedin.pinot.core.io.writer.impl.v1.VarByteChunkSingleValueWriter;
@@ -56,6 +55,13 @@ public class VarByteChunkSingleValueReaderWriteTest {
   @Test
   public void test()
       throws Exception {
+    for (ChunkCompressorFactory.CompressionType compressionType : ChunkCompressorFactory.CompressionType.values()) {
+      test(compressionType);
+    }
+  }
+
+  private void test(ChunkCompressorFactory.CompressionType compressionType)
+      throws Exception {
     String[] expected = new String[NUM_STRINGS];
     Random random = new Random();
 
@@ -68,7 +74,7 @@ public class VarByteChunkSingleValueReaderWriteTest {
       maxStringLengthInBytes = Math.max(maxStringLengthInBytes, expected[i].getBytes(UTF_8).length);
     }
 
-    ChunkCompressor compressor = ChunkCompressorFactory.getCompressor("snappy");
+    ChunkCompressor compressor = ChunkCompressorFactory.getCompressor(compressionType);
     VarByteChunkSingleValueWriter writer =
         new VarByteChunkSingleValueWriter(outFile, compressor, NUM_STRINGS, NUM_DOCS_PER_CHUNK, maxStringLengthInBytes);
 
@@ -80,13 +86,13 @@ public class VarByteChunkSingleValueReaderWriteTest {
     PinotDataBuffer pinotDataBuffer =
         PinotDataBuffer.fromFile(outFile, ReadMode.mmap, FileChannel.MapMode.READ_ONLY, getClass().getName());
 
-    ChunkDecompressor uncompressor = ChunkCompressorFactory.getDecompressor("snappy");
-    VarByteChunkSingleValueReader reader = new VarByteChunkSingleValueReader(pinotDataBuffer, uncompressor);
+    // Compression type is read from the header.
+    VarByteChunkSingleValueReader reader = new VarByteChunkSingleValueReader(pinotDataBuffer);
     ChunkReaderContext context = reader.createContext();
 
     for (int i = 0; i < NUM_STRINGS; i++) {
       String actual = reader.getString(i, context);
-      Assert.assertEquals(actual, expected[i]);
+      Assert.assertEquals(actual, expected[i], compressionType.name());
     }
     reader.close();
     FileUtils.deleteQuietly(outFile);
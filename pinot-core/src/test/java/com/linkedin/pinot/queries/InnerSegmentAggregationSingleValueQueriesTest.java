@@ -15,13 +15,21 @@
  */
 package com.linkedin.pinot.queries;
 
+import com.clearspring.analytics.stream.cardinality.HyperLogLog;
+import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.core.operator.ExecutionStatistics;
 import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
 import com.linkedin.pinot.core.operator.query.AggregationGroupByOperator;
 import com.linkedin.pinot.core.operator.query.AggregationOperator;
+import com.linkedin.pinot.core.operator.query.DictionaryBasedAggregationOperator;
+import com.linkedin.pinot.core.operator.query.MetadataBasedAggregationOperator;
+import com.linkedin.pinot.core.plan.MetadataBasedAggregationPlanNode;
 import com.linkedin.pinot.core.query.aggregation.function.customobject.AvgPair;
+import com.linkedin.pinot.core.query.aggregation.function.customobject.MinMaxRangePair;
 import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
 import com.linkedin.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import java.util.List;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -65,7 +73,7 @@ public class InnerSegmentAggregationSingleValueQueriesTest extends BaseSingleVal
     resultsBlock = (IntermediateResultsBlock) aggregationOperator.nextBlock();
     executionStatistics = aggregationOperator.getExecutionStatistics();
     Assert.assertEquals(executionStatistics.getNumDocsScanned(), 6129L);
-    Assert.assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 84134L);
+    Assert.assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 71798L);
     Assert.assertEquals(executionStatistics.getNumEntriesScannedPostFilter(), 24516L);
     Assert.assertEquals(executionStatistics.getNumTotalRawDocs(), 30000L);
     aggregationResult = resultsBlock.getAggregationResult();
@@ -78,6 +86,98 @@ public class InnerSegmentAggregationSingleValueQueriesTest extends BaseSingleVal
     Assert.assertEquals(avgResult.getCount(), 6129L);
   }
 
+  @Test
+  public void testFilterOrder() {
+    // Same predicates as the hard-coded filter in reversed order, the children of AND are re-ordered based on the
+    // estimated number of matching documents so that the filter scans the same number of entries.
+    String query = "SELECT" + AGGREGATION + " FROM testTable WHERE daysSinceEpoch = 126164076"
+        + " AND (column6 < 500000000 OR column11 NOT IN ('t', 'P'))" + " AND column5 = 'gFuH'"
+        + " AND column3 BETWEEN 20000000 AND 1000000000" + " AND column1 > 100000000";
+
+    AggregationOperator aggregationOperator = getOperatorForQuery(query);
+    IntermediateResultsBlock resultsBlock = (IntermediateResultsBlock) aggregationOperator.nextBlock();
+    ExecutionStatistics executionStatistics = aggregationOperator.getExecutionStatistics();
+    Assert.assertEquals(executionStatistics.getNumDocsScanned(), 6129L);
+    Assert.assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 71798L);
+    Assert.assertEquals(executionStatistics.getNumEntriesScannedPostFilter(), 24516L);
+    Assert.assertEquals(executionStatistics.getNumTotalRawDocs(), 30000L);
+    List<Object> aggregationResult = resultsBlock.getAggregationResult();
+    Assert.assertEquals(((Number) aggregationResult.get(0)).longValue(), 6129L);
+    Assert.assertEquals(((Number) aggregationResult.get(1)).longValue(), 6875947596072L);
+  }
+
+  @Test
+  public void testMetadataBasedAggregation() {
+    String query = "SELECT COUNT(*), MAX(column3), MIN(column6), MINMAXRANGE(column1) FROM testTable";
+
+    // Test query without filter.
+    MetadataBasedAggregationOperator metadataBasedAggregationOperator = getOperatorForQuery(query);
+    IntermediateResultsBlock resultsBlock = (IntermediateResultsBlock) metadataBasedAggregationOperator.nextBlock();
+    ExecutionStatistics executionStatistics = metadataBasedAggregationOperator.getExecutionStatistics();
+    Assert.assertEquals(executionStatistics.getNumDocsScanned(), 30000L);
+    Assert.assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 0L);
+    Assert.assertEquals(executionStatistics.getNumEntriesScannedPostFilter(), 0L);
+    Assert.assertEquals(executionStatistics.getNumTotalRawDocs(), 30000L);
+    List<Object> aggregationResult = resultsBlock.getAggregationResult();
+    Assert.assertEquals(((Number) aggregationResult.get(0)).longValue(), 30000L);
+    Assert.assertEquals(((Number) aggregationResult.get(1)).intValue(), 2147419555);
+    Assert.assertEquals(((Number) aggregationResult.get(2)).intValue(), 1689277);
+    MinMaxRangePair minMaxRangeResult = (MinMaxRangePair) aggregationResult.get(3);
+    Assert.assertEquals((long) (minMaxRangeResult.getMax() - minMaxRangeResult.getMin()), 2146711519L);
+
+    // Test query with filter covering all documents.
+    metadataBasedAggregationOperator = getOperatorForQuery(query + " WHERE column6 >= 1689277");
+    resultsBlock = (IntermediateResultsBlock) metadataBasedAggregationOperator.nextBlock();
+    aggregationResult = resultsBlock.getAggregationResult();
+    Assert.assertEquals(((Number) aggregationResult.get(0)).longValue(), 30000L);
+
+    // Test query with filter not covering all documents.
+    AggregationOperator aggregationOperator = getOperatorForQuery(query + " WHERE column6 > 1689277");
+    resultsBlock = (IntermediateResultsBlock) aggregationOperator.nextBlock();
+    aggregationResult = resultsBlock.getAggregationResult();
+    Assert.assertTrue(((Number) aggregationResult.get(0)).longValue() < 30000L);
+    Assert.assertTrue(((Number) aggregationResult.get(2)).intValue() > 1689277);
+
+    // Test query with decimal boundary on integer column, which cannot use the metadata.
+    BrokerRequest brokerRequest = new Pql2Compiler().compileToBrokerRequest(query + " WHERE column6 > 1.5");
+    Assert.assertFalse(MetadataBasedAggregationPlanNode.isFitForMetadataBasedPlan(getIndexSegment(), brokerRequest));
+  }
+
+  @Test
+  public void testDictionaryBasedAggregation() {
+    String query = "SELECT DISTINCTCOUNT(column6), DISTINCTCOUNTHLL(column6) FROM testTable";
+
+    // Test query without filter.
+    DictionaryBasedAggregationOperator dictionaryBasedAggregationOperator = getOperatorForQuery(query);
+    IntermediateResultsBlock resultsBlock = (IntermediateResultsBlock) dictionaryBasedAggregationOperator.nextBlock();
+    ExecutionStatistics executionStatistics = dictionaryBasedAggregationOperator.getExecutionStatistics();
+    Assert.assertEquals(executionStatistics.getNumDocsScanned(), 30000L);
+    Assert.assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 0L);
+    Assert.assertEquals(executionStatistics.getNumEntriesScannedPostFilter(), 0L);
+    Assert.assertEquals(executionStatistics.getNumTotalRawDocs(), 30000L);
+    List<Object> aggregationResult = resultsBlock.getAggregationResult();
+    Assert.assertEquals(((IntOpenHashSet) aggregationResult.get(0)).size(), 608);
+
+    // Test query with a predicate on the sorted aggregation column, compared with the same filter evaluated on the
+    // documents.
+    query = "SELECT DISTINCTCOUNT(daysSinceEpoch), DISTINCTCOUNTHLL(daysSinceEpoch) FROM testTable";
+    String filter = " WHERE daysSinceEpoch > 126164076";
+    dictionaryBasedAggregationOperator = getOperatorForQuery(query + filter);
+    resultsBlock = (IntermediateResultsBlock) dictionaryBasedAggregationOperator.nextBlock();
+    executionStatistics = dictionaryBasedAggregationOperator.getExecutionStatistics();
+    aggregationResult = resultsBlock.getAggregationResult();
+
+    AggregationOperator aggregationOperator = getOperatorForQuery(query + filter + " AND daysSinceEpoch > 126164076");
+    IntermediateResultsBlock expectedResultsBlock = (IntermediateResultsBlock) aggregationOperator.nextBlock();
+    ExecutionStatistics expectedExecutionStatistics = aggregationOperator.getExecutionStatistics();
+    List<Object> expectedAggregationResult = expectedResultsBlock.getAggregationResult();
+    Assert.assertTrue(executionStatistics.getNumDocsScanned() > 0L);
+    Assert.assertEquals(executionStatistics.getNumDocsScanned(), expectedExecutionStatistics.getNumDocsScanned());
+    Assert.assertEquals(aggregationResult.get(0), expectedAggregationResult.get(0));
+    Assert.assertEquals(((HyperLogLog) aggregationResult.get(1)).cardinality(),
+        ((HyperLogLog) expectedAggregationResult.get(1)).cardinality());
+  }
+
   @Test
   public void testSmallAggregationGroupBy() {
     String query = "SELECT" + AGGREGATION + " FROM testTable" + SMALL_GROUP_BY;
@@ -108,7 +208,7 @@ public class InnerSegmentAggregationSingleValueQueriesTest extends BaseSingleVal
     resultsBlock = (IntermediateResultsBlock) aggregationGroupByOperator.nextBlock();
     executionStatistics = aggregationGroupByOperator.getExecutionStatistics();
     Assert.assertEquals(executionStatistics.getNumDocsScanned(), 6129L);
-    Assert.assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 84134L);
+    Assert.assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 71798L);
     Assert.assertEquals(executionStatistics.getNumEntriesScannedPostFilter(), 30645L);
     Assert.assertEquals(executionStatistics.getNumTotalRawDocs(), 30000L);
     aggregationGroupByResult = resultsBlock.getAggregationGroupByResult();
@@ -153,7 +253,7 @@ public class InnerSegmentAggregationSingleValueQueriesTest extends BaseSingleVal
     resultsBlock = (IntermediateResultsBlock) aggregationGroupByOperator.nextBlock();
     executionStatistics = aggregationGroupByOperator.getExecutionStatistics();
     Assert.assertEquals(executionStatistics.getNumDocsScanned(), 6129L);
-    Assert.assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 84134L);
+    Assert.assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 71798L);
     Assert.assertEquals(executionStatistics.getNumEntriesScannedPostFilter(), 42903L);
     Assert.assertEquals(executionStatistics.getNumTotalRawDocs(), 30000L);
     aggregationGroupByResult = resultsBlock.getAggregationGroupByResult();
@@ -200,7 +300,7 @@ public class InnerSegmentAggregationSingleValueQueriesTest extends BaseSingleVal
     resultsBlock = (IntermediateResultsBlock) aggregationGroupByOperator.nextBlock();
     executionStatistics = aggregationGroupByOperator.getExecutionStatistics();
     Assert.assertEquals(executionStatistics.getNumDocsScanned(), 6129L);
-    Assert.assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 84134L);
+    Assert.assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 71798L);
     Assert.assertEquals(executionStatistics.getNumEntriesScannedPostFilter(), 55161L);
     Assert.assertEquals(executionStatistics.getNumTotalRawDocs(), 30000L);
     aggregationGroupByResult = resultsBlock.getAggregationGroupByResult();
@@ -63,7 +63,7 @@ public class InnerSegmentSelectionSingleValueQueriesTest extends BaseSingleValue
     resultsBlock = (IntermediateResultsBlock) selectionOnlyOperator.nextBlock();
     executionStatistics = selectionOnlyOperator.getExecutionStatistics();
     Assert.assertEquals(executionStatistics.getNumDocsScanned(), 10L);
-    Assert.assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 48241L);
+    Assert.assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 35905L);
     Assert.assertEquals(executionStatistics.getNumEntriesScannedPostFilter(), 110L);
     Assert.assertEquals(executionStatistics.getNumTotalRawDocs(), 30000L);
     selectionDataSchema = resultsBlock.getSelectionDataSchema();
@@ -110,7 +110,7 @@ public class InnerSegmentSelectionSingleValueQueriesTest extends BaseSingleValue
     resultsBlock = (IntermediateResultsBlock) selectionOnlyOperator.nextBlock();
     executionStatistics = selectionOnlyOperator.getExecutionStatistics();
     Assert.assertEquals(executionStatistics.getNumDocsScanned(), 10L);
-    Assert.assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 48241L);
+    Assert.assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 35905L);
     Assert.assertEquals(executionStatistics.getNumEntriesScannedPostFilter(), 30L);
     Assert.assertEquals(executionStatistics.getNumTotalRawDocs(), 30000L);
     selectionDataSchema = resultsBlock.getSelectionDataSchema();
@@ -157,7 +157,7 @@ public class InnerSegmentSelectionSingleValueQueriesTest extends BaseSingleValue
     resultsBlock = (IntermediateResultsBlock) selectionOrderByOperator.nextBlock();
     executionStatistics = selectionOrderByOperator.getExecutionStatistics();
     Assert.assertEquals(executionStatistics.getNumDocsScanned(), 6129L);
-    Assert.assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 84134L);
+    Assert.assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 71798L);
     Assert.assertEquals(executionStatistics.getNumEntriesScannedPostFilter(), 24516L);
     Assert.assertEquals(executionStatistics.getNumTotalRawDocs(), 30000L);
     selectionDataSchema = resultsBlock.getSelectionDataSchema();
@@ -173,4 +173,68 @@ public class InnerSegmentSelectionSingleValueQueriesTest extends BaseSingleValue
     Assert.assertEquals(((Integer) lastRow[0]).intValue(), 6043515);
     Assert.assertEquals(((Integer) lastRow[1]).intValue(), 462769197);
   }
+
+  @Test
+  public void testSelectionOrderByDescending() {
+    String query = "SELECT column1, column5 FROM testTable ORDER BY column11 DESC, column6 LIMIT 200";
+
+    // Test query without filter.
+    MSelectionOrderByOperator selectionOrderByOperator = getOperatorForQuery(query);
+    IntermediateResultsBlock resultsBlock = (IntermediateResultsBlock) selectionOrderByOperator.nextBlock();
+    Assert.assertEquals(selectionOrderByOperator.getExecutionStatistics().getNumDocsScanned(), 30000L);
+    DataSchema selectionDataSchema = resultsBlock.getSelectionDataSchema();
+    Assert.assertEquals(selectionDataSchema.getColumnName(0), "column11");
+    Assert.assertEquals(selectionDataSchema.getColumnName(1), "column6");
+    Queue<Serializable[]> selectionResult = (Queue<Serializable[]>) resultsBlock.getSelectionResult();
+    Assert.assertEquals(selectionResult.size(), 200);
+    assertDescendingOnFirstAscendingOnSecond(selectionResult);
+
+    // Test query with filter.
+    selectionOrderByOperator = getOperatorForQueryWithFilter(query);
+    resultsBlock = (IntermediateResultsBlock) selectionOrderByOperator.nextBlock();
+    Assert.assertEquals(selectionOrderByOperator.getExecutionStatistics().getNumDocsScanned(), 6129L);
+    selectionResult = (Queue<Serializable[]>) resultsBlock.getSelectionResult();
+    Assert.assertEquals(selectionResult.size(), 200);
+    assertDescendingOnFirstAscendingOnSecond(selectionResult);
+  }
+
+  @Test
+  public void testSelectionOrderBySortedColumn() {
+    // Only the first window of the sorted column needs to be collected.
+    String query = "SELECT column1 FROM testTable ORDER BY daysSinceEpoch LIMIT 10";
+    MSelectionOrderByOperator selectionOrderByOperator = getOperatorForQuery(query);
+    IntermediateResultsBlock resultsBlock = (IntermediateResultsBlock) selectionOrderByOperator.nextBlock();
+    ExecutionStatistics executionStatistics = selectionOrderByOperator.getExecutionStatistics();
+    Assert.assertEquals(executionStatistics.getNumDocsScanned(), 1024L);
+    Assert.assertEquals(executionStatistics.getNumTotalRawDocs(), 30000L);
+    Queue<Serializable[]> selectionResult = (Queue<Serializable[]>) resultsBlock.getSelectionResult();
+    Assert.assertEquals(selectionResult.size(), 10);
+    Assert.assertEquals(((Integer) selectionResult.peek()[0]).intValue(), 126164076);
+
+    // With a secondary sort column, whole dictionary id ranges of the sorted column are collected.
+    query = "SELECT column1 FROM testTable ORDER BY daysSinceEpoch DESC, column6 LIMIT 10";
+    selectionOrderByOperator = getOperatorForQueryWithFilter(query);
+    resultsBlock = (IntermediateResultsBlock) selectionOrderByOperator.nextBlock();
+    executionStatistics = selectionOrderByOperator.getExecutionStatistics();
+    Assert.assertEquals(executionStatistics.getNumDocsScanned(), 6129L);
+    Assert.assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 71798L);
+    selectionResult = (Queue<Serializable[]>) resultsBlock.getSelectionResult();
+    Assert.assertEquals(selectionResult.size(), 10);
+    Serializable[] lastRow = selectionResult.peek();
+    Assert.assertEquals(((Integer) lastRow[0]).intValue(), 126164076);
+    Assert.assertEquals(((Integer) lastRow[1]).intValue(), 6043515);
+  }
+
+  /**
+   * Rows are polled from the worst to the best one.
+   */
+  private static void assertDescendingOnFirstAscendingOnSecond(Queue<Serializable[]> selectionResult) {
+    Serializable[] previousRow = selectionResult.poll();
+    while (!selectionResult.isEmpty()) {
+      Serializable[] row = selectionResult.poll();
+      int result = ((String) row[0]).compareTo((String) previousRow[0]);
+      Assert.assertTrue(result > 0 || (result == 0 && (Integer) row[1] <= (Integer) previousRow[1]));
+      previousRow = row;
+    }
+  }
 }
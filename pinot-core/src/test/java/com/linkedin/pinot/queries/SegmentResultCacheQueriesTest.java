@@ -0,0 +1,107 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.queries;
+
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.core.plan.maker.InstancePlanMakerImplV2;
+import com.linkedin.pinot.core.plan.maker.PlanMaker;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
+import com.linkedin.pinot.core.query.config.QueryExecutorConfig;
+import com.yammer.metrics.core.MetricsRegistry;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests that queries served from the {@link SegmentResultCache} return the same results as the ones without cache.
+ */
+public class SegmentResultCacheQueriesTest extends BaseSingleValueQueriesTest {
+  private static final String[] QUERIES = new String[]{
+      "SELECT COUNT(*), SUM(column1), MAX(column3), MINMAXRANGE(column6), AVG(column7) FROM testTable",
+      "SELECT DISTINCTCOUNT(column11), PERCENTILE50(column17), DISTINCTCOUNTHLL(column12) FROM testTable",
+      "SELECT SUM(column1), AVG(column3) FROM testTable GROUP BY column11, column9 TOP 20",
+      "SELECT COUNT(*), DISTINCTCOUNT(column6) FROM testTable GROUP BY column12 TOP 5"
+  };
+
+  @Test
+  public void testCachedResults()
+      throws Exception {
+    SegmentResultCache segmentResultCache =
+        new SegmentResultCache(10_000_000L, new ServerMetrics(new MetricsRegistry()));
+    PlanMaker planMaker =
+        new InstancePlanMakerImplV2(new QueryExecutorConfig(new PropertiesConfiguration()), segmentResultCache);
+
+    int expectedNumEntries = 0;
+    for (String query : QUERIES) {
+      for (String queryToRun : new String[]{query, query + getFilter()}) {
+        String expected = getAggregationResultsJson(getBrokerResponseForQuery(queryToRun));
+
+        // The 2 segments share the same index segment, so there is only one entry per query.
+        Assert.assertEquals(getAggregationResultsJson(getBrokerResponseForQuery(queryToRun, planMaker)), expected);
+        expectedNumEntries++;
+        Assert.assertEquals(segmentResultCache.getNumEntries(), expectedNumEntries);
+
+        // Served from the cache.
+        BrokerResponseNative cachedResponse = getBrokerResponseForQuery(queryToRun, planMaker);
+        Assert.assertEquals(getAggregationResultsJson(cachedResponse), expected);
+        Assert.assertEquals(cachedResponse.getNumEntriesScannedInFilter(), 0L);
+        Assert.assertEquals(cachedResponse.getNumEntriesScannedPostFilter(), 0L);
+        Assert.assertEquals(segmentResultCache.getNumEntries(), expectedNumEntries);
+      }
+    }
+
+    // TOP N does not change the segment level results.
+    getBrokerResponseForQuery(QUERIES[2].replace("TOP 20", "TOP 10"), planMaker);
+    Assert.assertEquals(segmentResultCache.getNumEntries(), expectedNumEntries);
+
+    // Selection queries are not cached.
+    getBrokerResponseForQuery("SELECT * FROM testTable", planMaker);
+    Assert.assertEquals(segmentResultCache.getNumEntries(), expectedNumEntries);
+
+    segmentResultCache.invalidate("testTable", getIndexSegment().getSegmentName());
+    Assert.assertEquals(segmentResultCache.getNumEntries(), 0);
+    Assert.assertEquals(segmentResultCache.getSizeInBytes(), 0L);
+  }
+
+  @Test
+  public void testEviction()
+      throws Exception {
+    String query = "SELECT COUNT(*) FROM testTable WHERE column6 = ";
+    SegmentResultCache segmentResultCache =
+        new SegmentResultCache(10_000_000L, new ServerMetrics(new MetricsRegistry()));
+    PlanMaker planMaker =
+        new InstancePlanMakerImplV2(new QueryExecutorConfig(new PropertiesConfiguration()), segmentResultCache);
+    getBrokerResponseForQuery(query + 0, planMaker);
+    long entrySizeInBytes = segmentResultCache.getSizeInBytes();
+
+    // Cache can hold 10 results, the oldest unreferenced ones are evicted.
+    long maxSizeInBytes = entrySizeInBytes * 10;
+    segmentResultCache = new SegmentResultCache(maxSizeInBytes, new ServerMetrics(new MetricsRegistry()));
+    planMaker = new InstancePlanMakerImplV2(new QueryExecutorConfig(new PropertiesConfiguration()), segmentResultCache);
+    for (int i = 0; i < 12; i++) {
+      getBrokerResponseForQuery(query + i, planMaker);
+    }
+    Assert.assertEquals(segmentResultCache.getNumEntries(), 10);
+    Assert.assertEquals(segmentResultCache.getSizeInBytes(), maxSizeInBytes);
+  }
+
+  private static String getAggregationResultsJson(BrokerResponseNative brokerResponse)
+      throws Exception {
+    return brokerResponse.toJson().getJSONArray("aggregationResults").toString();
+  }
+}
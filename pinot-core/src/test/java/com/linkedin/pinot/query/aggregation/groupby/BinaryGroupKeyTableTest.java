@@ -0,0 +1,96 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.query.aggregation.groupby;
+
+import com.linkedin.pinot.core.query.aggregation.groupby.BinaryGroupKeyEncoder;
+import com.linkedin.pinot.core.query.aggregation.groupby.BinaryGroupKeyTable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+/**
+ * Unit test for {@link BinaryGroupKeyEncoder} and {@link BinaryGroupKeyTable}.
+ */
+public class BinaryGroupKeyTableTest {
+  private static final int NUM_KEYS = 10_000;
+  private static final Random RANDOM = new Random();
+
+  @Test
+  public void testEncoder() {
+    BinaryGroupKeyEncoder encoder = new BinaryGroupKeyEncoder();
+    encoder.addInt(-5);
+    encoder.addLong(Long.MAX_VALUE);
+    encoder.addFloat(1.5f);
+    encoder.addDouble(-2.25);
+    encoder.addString("fooé");
+    byte[] groupKey = encoder.toBytes();
+
+    Assert.assertEquals(BinaryGroupKeyEncoder.toStringGroupKey(groupKey),
+        "-5\t" + Long.MAX_VALUE + "\t1.5\t-2.25\tfooé");
+
+    // Same values should generate the same key after reset.
+    encoder.reset();
+    encoder.addInt(-5);
+    encoder.addLong(Long.MAX_VALUE);
+    encoder.addFloat(1.5f);
+    encoder.addDouble(-2.25);
+    encoder.addString("fooé");
+    Assert.assertEquals(encoder.toBytes(), groupKey);
+
+    // Empty string should be distinguishable from no value.
+    encoder.reset();
+    encoder.addString("");
+    Assert.assertEquals(BinaryGroupKeyEncoder.toStringGroupKey(encoder.toBytes()), "");
+    Assert.assertEquals(encoder.toBytes().length, 5);
+  }
+
+  @Test
+  public void testTable() {
+    BinaryGroupKeyTable table = new BinaryGroupKeyTable(16);
+    Map<String, Integer> expected = new HashMap<>();
+    BinaryGroupKeyEncoder encoder = new BinaryGroupKeyEncoder();
+
+    for (int i = 0; i < NUM_KEYS; i++) {
+      int value = RANDOM.nextInt(NUM_KEYS / 2);
+      encoder.reset();
+      encoder.addInt(value);
+      encoder.addString("v" + value);
+      byte[] key = encoder.toBytes();
+      int hash = BinaryGroupKeyEncoder.hash(key);
+
+      int index = table.indexOf(key, hash);
+      if (index < 0) {
+        table.add(key, hash, new Object[]{1});
+      } else {
+        Object[] values = table.getValues(index);
+        values[0] = (Integer) values[0] + 1;
+      }
+
+      String stringKey = value + "\tv" + value;
+      Integer count = expected.get(stringKey);
+      expected.put(stringKey, count == null ? 1 : count + 1);
+    }
+
+    Assert.assertEquals(table.size(), expected.size());
+    for (int i = 0; i < table.size(); i++) {
+      String stringKey = BinaryGroupKeyEncoder.toStringGroupKey(table.getKey(i));
+      Assert.assertEquals(table.getValues(i)[0], expected.get(stringKey));
+    }
+  }
+}
@@ -0,0 +1,220 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.query.pruner;
+
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentVersion;
+import com.linkedin.pinot.core.query.pruner.BloomFilterSegmentPruner;
+import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentCreationDriverFactory;
+import com.linkedin.pinot.core.segment.index.loader.IndexLoadingConfig;
+import com.linkedin.pinot.core.segment.index.loader.Loaders;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import com.linkedin.pinot.segments.v1.creator.SegmentTestUtils;
+import com.linkedin.pinot.util.TestUtils;
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Unit tests for {@link BloomFilterSegmentPruner} class, with bloom filters created either during segment creation or
+ * during segment loading.
+ */
+public class BloomFilterSegmentPrunerTest {
+  private static final String AVRO_DATA = "data/test_sample_data.avro";
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "BloomFilterSegmentPrunerTest");
+  private static final String LONG_COLUMN = "column1";
+  private static final String STRING_COLUMN = "column3";
+  private static final String COLUMN_WITHOUT_BLOOM_FILTER = "column2";
+  private static final int NUM_ABSENT_VALUES = 100;
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+  private static final BloomFilterSegmentPruner PRUNER = new BloomFilterSegmentPruner();
+
+  private File _segmentWithBloomFilter;
+  private File _segmentWithoutBloomFilter;
+  private IndexLoadingConfig _indexLoadingConfig;
+  private int _numCopies = 0;
+
+  @BeforeClass
+  public void setUp()
+      throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+    File avroFile = new File(TestUtils.getFileFromResourceUrl(getClass().getClassLoader().getResource(AVRO_DATA)));
+
+    _segmentWithBloomFilter = buildSegment(avroFile, "withBloomFilter", true);
+    _segmentWithoutBloomFilter = buildSegment(avroFile, "withoutBloomFilter", false);
+
+    _indexLoadingConfig = new IndexLoadingConfig();
+    _indexLoadingConfig.setReadMode(ReadMode.mmap);
+    _indexLoadingConfig.setBloomFilterColumns(new HashSet<>(Arrays.asList(LONG_COLUMN, STRING_COLUMN)));
+  }
+
+  private File buildSegment(File avroFile, String segmentName, boolean createBloomFilter)
+      throws Exception {
+    SegmentGeneratorConfig config =
+        SegmentTestUtils.getSegmentGenSpecWithSchemAndProjectedColumns(avroFile, INDEX_DIR, "time_day",
+            TimeUnit.DAYS, "test");
+    config.setSegmentName(segmentName);
+    if (createBloomFilter) {
+      config.setBloomFilterCreationColumns(Arrays.asList(LONG_COLUMN, STRING_COLUMN));
+    }
+    SegmentIndexCreationDriver driver = SegmentCreationDriverFactory.get(null);
+    driver.init(config);
+    driver.build();
+    return new File(INDEX_DIR, driver.getSegmentName());
+  }
+
+  @Test
+  public void testBloomFilterFromSegmentCreation()
+      throws Exception {
+    _indexLoadingConfig.setSegmentVersion(SegmentVersion.v1);
+    testPruner(Loaders.IndexSegment.load(copySegment(_segmentWithBloomFilter), _indexLoadingConfig));
+  }
+
+  @Test
+  public void testBloomFilterFromSegmentConversion()
+      throws Exception {
+    // The bloom filters are copied when converting the segment to v3.
+    _indexLoadingConfig.setSegmentVersion(SegmentVersion.v3);
+    testPruner(Loaders.IndexSegment.load(copySegment(_segmentWithBloomFilter), _indexLoadingConfig));
+  }
+
+  @Test
+  public void testBloomFilterFromSegmentPreProcessor()
+      throws Exception {
+    _indexLoadingConfig.setSegmentVersion(SegmentVersion.v3);
+    testPruner(Loaders.IndexSegment.load(copySegment(_segmentWithoutBloomFilter), _indexLoadingConfig));
+  }
+
+  @Test
+  public void testBloomFilterNotConfigured()
+      throws Exception {
+    IndexLoadingConfig indexLoadingConfig = new IndexLoadingConfig();
+    indexLoadingConfig.setReadMode(ReadMode.mmap);
+    IndexSegment indexSegment = Loaders.IndexSegment.load(copySegment(_segmentWithBloomFilter), indexLoadingConfig);
+    try {
+      Assert.assertNull(indexSegment.getDataSource(LONG_COLUMN).getBloomFilter());
+      Assert.assertFalse(runPruner(indexSegment, "SELECT COUNT(*) FROM table WHERE column3 = 'absentValue'"));
+    } finally {
+      indexSegment.destroy();
+    }
+  }
+
+  /**
+   * Helper method to copy the segment so that each test loads (and possibly converts) its own copy.
+   */
+  private File copySegment(File segmentDir)
+      throws Exception {
+    File copyDir = new File(INDEX_DIR, "copy" + _numCopies++);
+    File segmentCopy = new File(copyDir, segmentDir.getName());
+    FileUtils.copyDirectory(segmentDir, segmentCopy);
+    return segmentCopy;
+  }
+
+  private void testPruner(IndexSegment indexSegment) {
+    try {
+      Assert.assertNull(indexSegment.getDataSource(COLUMN_WITHOUT_BLOOM_FILTER).getBloomFilter());
+
+      // No false negative for the values in the column
+      Dictionary longDictionary = indexSegment.getDataSource(LONG_COLUMN).getDictionary();
+      BloomFilterReader longBloomFilter = indexSegment.getDataSource(LONG_COLUMN).getBloomFilter();
+      for (int dictId = 0; dictId < longDictionary.length(); dictId++) {
+        Assert.assertTrue(longBloomFilter.mightContain(longDictionary.get(dictId).toString()));
+      }
+      Dictionary stringDictionary = indexSegment.getDataSource(STRING_COLUMN).getDictionary();
+      BloomFilterReader stringBloomFilter = indexSegment.getDataSource(STRING_COLUMN).getBloomFilter();
+      for (int dictId = 0; dictId < stringDictionary.length(); dictId++) {
+        Assert.assertTrue(stringBloomFilter.mightContain(stringDictionary.get(dictId).toString()));
+      }
+
+      String longValue = longDictionary.get(0).toString();
+      String stringValue = stringDictionary.get(0).toString();
+      Assert.assertFalse(runPruner(indexSegment, "SELECT COUNT(*) FROM table WHERE column1 = " + longValue));
+      Assert.assertFalse(runPruner(indexSegment, "SELECT COUNT(*) FROM table WHERE column3 = '" + stringValue + "'"));
+
+      // Most of the absent values should be pruned
+      int numLongValuesPruned = 0;
+      int numStringValuesPruned = 0;
+      for (int i = 0; i < NUM_ABSENT_VALUES; i++) {
+        Assert.assertTrue(longDictionary.indexOf(Long.toString(i)) < 0);
+        if (runPruner(indexSegment, "SELECT COUNT(*) FROM table WHERE column1 = " + i)) {
+          numLongValuesPruned++;
+        }
+        Assert.assertTrue(stringDictionary.indexOf("absentValue" + i) < 0);
+        if (runPruner(indexSegment, "SELECT COUNT(*) FROM table WHERE column3 = 'absentValue" + i + "'")) {
+          numStringValuesPruned++;
+        }
+      }
+      Assert.assertTrue(numLongValuesPruned > NUM_ABSENT_VALUES * 0.8);
+      Assert.assertTrue(numStringValuesPruned > NUM_ABSENT_VALUES * 0.8);
+
+      // Find an absent value that can be pruned to check the filter tree handling
+      String absentValue = null;
+      for (int i = 0; i < NUM_ABSENT_VALUES; i++) {
+        if (runPruner(indexSegment, "SELECT COUNT(*) FROM table WHERE column3 = 'absentValue" + i + "'")) {
+          absentValue = "'absentValue" + i + "'";
+          break;
+        }
+      }
+      Assert.assertNotNull(absentValue);
+      String presentValue = "'" + stringValue + "'";
+
+      // IN predicate
+      Assert.assertTrue(runPruner(indexSegment, "SELECT COUNT(*) FROM table WHERE column3 IN (" + absentValue + ")"));
+      Assert.assertFalse(runPruner(indexSegment,
+          "SELECT COUNT(*) FROM table WHERE column3 IN (" + absentValue + ", " + presentValue + ")"));
+
+      // Predicate not supported by bloom filter
+      Assert.assertFalse(
+          runPruner(indexSegment, "SELECT COUNT(*) FROM table WHERE column3 NOT IN (" + presentValue + ")"));
+      Assert.assertFalse(runPruner(indexSegment, "SELECT COUNT(*) FROM table WHERE column2 = 0"));
+
+      // AND operator
+      Assert.assertTrue(runPruner(indexSegment,
+          "SELECT COUNT(*) FROM table WHERE column3 = " + absentValue + " AND column2 = 0"));
+      Assert.assertFalse(runPruner(indexSegment,
+          "SELECT COUNT(*) FROM table WHERE column3 = " + presentValue + " AND column2 = 0"));
+
+      // OR operator
+      Assert.assertTrue(runPruner(indexSegment,
+          "SELECT COUNT(*) FROM table WHERE column3 = " + absentValue + " OR column3 = " + absentValue));
+      Assert.assertFalse(runPruner(indexSegment,
+          "SELECT COUNT(*) FROM table WHERE column3 = " + absentValue + " OR column2 = 0"));
+    } finally {
+      indexSegment.destroy();
+    }
+  }
+
+  private boolean runPruner(IndexSegment indexSegment, String query) {
+    return PRUNER.prune(indexSegment, COMPILER.compileToBrokerRequest(query));
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+}
@@ -37,14 +37,18 @@ import com.linkedin.pinot.core.segment.creator.impl.stats.StringColumnPreIndexSt
 import com.linkedin.pinot.core.segment.index.ColumnMetadata;
 import com.linkedin.pinot.core.segment.index.IndexSegmentImpl;
 import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.column.ColumnIndexContainer;
 import com.linkedin.pinot.core.segment.index.readers.DoubleDictionary;
 import com.linkedin.pinot.core.segment.index.readers.FloatDictionary;
 import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
 import com.linkedin.pinot.core.segment.index.readers.IntDictionary;
 import com.linkedin.pinot.core.segment.index.readers.LongDictionary;
 import com.linkedin.pinot.core.segment.index.readers.StringDictionary;
+import com.linkedin.pinot.core.segment.index.readers.VarLengthStringDictionary;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
 import com.linkedin.pinot.util.TestUtils;
 import java.io.File;
+import java.nio.channels.FileChannel;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -652,6 +656,76 @@ public class DictionariesTest {
     }
   }
 
+  /**
+   * Tests the variable length string dictionary, which is sorted in natural string order like the fixed size string
+   * dictionary, and looked up by comparing the chars of the value against the UTF-8 bytes in the buffer.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testVarLengthStringDictionary()
+      throws Exception {
+    File indexDir = new File("/tmp/dict.test");
+    FieldSpec fieldSpec = new DimensionFieldSpec("test", DataType.STRING, true);
+
+    // "\uFFFD" sorts after "\uD83D\uDE00" (surrogate pair) as a Java string, but before it in UTF-8 byte order.
+    String[] inputStrings = new String[]{"", "%", "abc", "abc def", "Caf\u00E9", "C\u00F4te d'Ivoire", "\uFFFD",
+        "\uD83D\uDE00"};
+    Arrays.sort(inputStrings);
+
+    try {
+      SegmentDictionaryCreator dictionaryCreator =
+          new SegmentDictionaryCreator(false, inputStrings, fieldSpec, indexDir,
+              V1Constants.Str.DEFAULT_STRING_PAD_CHAR, true);
+      boolean[] isSorted = new boolean[]{true};
+      dictionaryCreator.build(isSorted);
+      Assert.assertTrue(isSorted[0]);
+      Assert.assertEquals(dictionaryCreator.getDictionaryVersion(),
+          V1Constants.Dict.VAR_LENGTH_STRING_DICTIONARY_VERSION);
+      Assert.assertEquals(dictionaryCreator.getStringColumnMaxLength(), "C\u00F4te d'Ivoire".getBytes("UTF-8").length);
+      dictionaryCreator.close();
+
+      ColumnMetadata columnMetadata = new ColumnMetadata.Builder().setColumnName("test")
+          .setCardinality(inputStrings.length)
+          .setDataType(DataType.STRING)
+          .setFieldType(FieldSpec.FieldType.DIMENSION)
+          .setSingleValue(true)
+          .setDictionaryVersion(V1Constants.Dict.VAR_LENGTH_STRING_DICTIONARY_VERSION)
+          .build();
+      PinotDataBuffer dataBuffer =
+          PinotDataBuffer.fromFile(new File(indexDir, "test" + V1Constants.Dict.FILE_EXTENTION), ReadMode.mmap,
+              FileChannel.MapMode.READ_ONLY, getClass().getName());
+      ImmutableDictionaryReader dictionary = ColumnIndexContainer.loadDictionary(columnMetadata, dataBuffer);
+      Assert.assertTrue(dictionary instanceof VarLengthStringDictionary);
+      Assert.assertEquals(dictionary.length(), inputStrings.length);
+
+      String[] values = new String[inputStrings.length];
+      int[] dictionaryIds = new int[inputStrings.length];
+      for (int i = 0; i < inputStrings.length; i++) {
+        String inputString = inputStrings[i];
+        int dictionaryId = dictionary.indexOf(inputString);
+        Assert.assertEquals(dictionaryId, i);
+        Assert.assertEquals(dictionaryCreator.indexOfSV(inputString), i);
+        Assert.assertEquals(dictionary.get(dictionaryId), inputString);
+        Assert.assertEquals(dictionary.getStringValue(dictionaryId), inputString);
+        dictionaryIds[i] = dictionaryId;
+      }
+      dictionary.readStringValues(dictionaryIds, 0, inputStrings.length, values, 0);
+      Assert.assertEquals(values, inputStrings);
+
+      // Values not in the dictionary return the negative insertion point.
+      Assert.assertEquals(dictionary.indexOf("ab"), -(dictionary.indexOf("abc") + 1));
+      Assert.assertEquals(dictionary.indexOf("abc d"), -(dictionary.indexOf("abc def") + 1));
+      Assert.assertEquals(dictionary.indexOf("\uD83D"), -(dictionary.indexOf("\uD83D\uDE00") + 1));
+      Assert.assertEquals(dictionary.indexOf("\uD83D\uDE01"), -(dictionary.indexOf("\uFFFD") + 1));
+      Assert.assertEquals(dictionary.indexOf("\uFFFE"), -(inputStrings.length + 1));
+      Assert.assertEquals(dictionary.get(-1), "null");
+      dictionary.close();
+    } finally {
+      FileUtils.deleteQuietly(indexDir);
+    }
+  }
+
   /**
    * Helper method to build stats collector for a given column.
    *
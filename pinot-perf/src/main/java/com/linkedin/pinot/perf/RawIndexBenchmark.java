@@ -26,6 +26,8 @@ import com.linkedin.pinot.core.data.readers.RecordReader;
 import com.linkedin.pinot.core.data.readers.TestRecordReader;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentVersion;
+import com.linkedin.pinot.core.io.compression.ChunkCompressorFactory;
 import com.linkedin.pinot.core.operator.BReusableFilteredDocIdSetOperator;
 import com.linkedin.pinot.core.operator.BaseOperator;
 import com.linkedin.pinot.core.operator.MProjectionOperator;
@@ -36,6 +38,7 @@ import com.linkedin.pinot.core.operator.filter.BaseFilterOperator;
 import com.linkedin.pinot.core.plan.DocIdSetPlanNode;
 import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
 import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
 import com.linkedin.pinot.core.segment.index.loader.Loaders;
 import com.linkedin.pinot.operator.ArrayBasedFilterBlock;
 import java.io.BufferedReader;
@@ -44,6 +47,7 @@ import java.io.FileReader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -56,6 +60,8 @@ import org.kohsuke.args4j.Option;
  * Class to perform benchmark on lookups for dictionary encoded fwd index v.s. raw index without dictionary.
  * It can take an existing segment with two columns to compare. It can also create a segment on the fly with a
  * given input file containing strings (one string per line).
+ * When creating the segment, it can also compare the size and lookup time of raw indexes compressed with different
+ * chunk compression codecs, with one extra raw index column per codec.
  */
 @SuppressWarnings({"FieldCanBeLocal", "unused"})
 public class RawIndexBenchmark {
@@ -89,10 +95,18 @@ public class RawIndexBenchmark {
   @Option(name = "-numConsecutiveLookups", required = false, usage = "Number of consecutive docIds to lookup")
   private int _numConsecutiveLookups = DEFAULT_NUM_CONSECUTIVE_LOOKUP;
 
+  @Option(name = "-dataType", required = false, usage = "Data type of the input data (STRING|INT|LONG|FLOAT|DOUBLE)")
+  private String _dataType = FieldSpec.DataType.STRING.name();
+
+  @Option(name = "-compressionCodecs", required = false, forbids = {"-segmentDir"},
+      usage = "Comma separated chunk compression codecs to compare (SNAPPY,LZ4,DEFLATE)")
+  private String _compressionCodecs = null;
+
   @Option(name = "-help", required = false, help = true, aliases = {"-h"}, usage = "print this message")
   private boolean _help = false;
 
   private int _numRows = 0;
+  private final Map<ChunkCompressorFactory.CompressionType, String> _codecColumns = new LinkedHashMap<>();
 
   public void run()
       throws Exception {
@@ -100,11 +114,28 @@ public class RawIndexBenchmark {
       System.out.println("Error: One of 'segmentDir' or 'dataFile' must be specified");
       return;
     }
+    if (_compressionCodecs != null) {
+      for (String codec : _compressionCodecs.split(",")) {
+        ChunkCompressorFactory.CompressionType compressionType =
+            ChunkCompressorFactory.CompressionType.fromName(codec.trim());
+        _codecColumns.put(compressionType, "column_" + compressionType.name().toLowerCase());
+      }
+    }
 
     File segmentFile = (_segmentDir == null) ? buildSegment() : new File(_segmentDir);
+
+    // Index sizes are computed before loading, as loading might convert the segment into the single file format.
+    boolean isSorted = new SegmentMetadataImpl(segmentFile).getColumnMetadataFor(_fwdIndexColumn).isSorted();
+    compareIndexSizes(isSorted, segmentFile, _fwdIndexColumn, _rawIndexColumn);
+    long[] codecIndexSizes = new long[_codecColumns.size()];
+    int i = 0;
+    for (String column : _codecColumns.values()) {
+      codecIndexSizes[i++] = getRawIndexFile(segmentFile, column).length();
+    }
+
     IndexSegment segment = Loaders.IndexSegment.load(segmentFile, ReadMode.valueOf(_loadMode));
-    compareIndexSizes(segment, segmentFile, _fwdIndexColumn, _rawIndexColumn);
     compareLookups(segment);
+    compareCodecs(segment, codecIndexSizes);
 
     // Cleanup the temporary directory
     if (_segmentDir != null) {
@@ -123,14 +154,28 @@ public class RawIndexBenchmark {
       throws Exception {
     Schema schema = new Schema();
 
+    FieldSpec.DataType dataType = FieldSpec.DataType.valueOf(_dataType.toUpperCase());
+    List<String> columns = new ArrayList<>();
     for (int i = 0; i < NUM_COLUMNS; i++) {
-      String column = "column_" + i;
-      DimensionFieldSpec dimensionFieldSpec = new DimensionFieldSpec(column, FieldSpec.DataType.STRING, true);
+      columns.add("column_" + i);
+    }
+    columns.addAll(_codecColumns.values());
+    for (String column : columns) {
+      DimensionFieldSpec dimensionFieldSpec = new DimensionFieldSpec(column, dataType, true);
       schema.addField(dimensionFieldSpec);
     }
 
     SegmentGeneratorConfig config = new SegmentGeneratorConfig(schema);
     config.setRawIndexCreationColumns(Collections.singletonList(_rawIndexColumn));
+    config.setRawIndexCreationColumns(new ArrayList<>(_codecColumns.values()));
+    Map<String, ChunkCompressorFactory.CompressionType> compressionTypes = new HashMap<>();
+    for (Map.Entry<ChunkCompressorFactory.CompressionType, String> entry : _codecColumns.entrySet()) {
+      compressionTypes.put(entry.getValue(), entry.getKey());
+    }
+    config.setRawIndexCompressionTypes(compressionTypes);
+
+    // Keep one file per index so that the index sizes can be compared.
+    config.setSegmentVersion(SegmentVersion.v1);
 
     config.setOutDir(SEGMENT_DIR_NAME);
     config.setSegmentName(SEGMENT_NAME);
@@ -144,8 +189,9 @@ public class RawIndexBenchmark {
     while ((value = reader.readLine()) != null) {
       HashMap<String, Object> map = new HashMap<>();
 
+      Object typedValue = toDataType(value, dataType);
       for (FieldSpec fieldSpec : schema.getAllFieldSpecs()) {
-        map.put(fieldSpec.getName(), value);
+        map.put(fieldSpec.getName(), typedValue);
       }
 
       GenericRow genericRow = new GenericRow();
@@ -168,16 +214,37 @@ public class RawIndexBenchmark {
     return new File(SEGMENT_DIR_NAME, SEGMENT_NAME);
   }
 
+  private static Object toDataType(String value, FieldSpec.DataType dataType) {
+    switch (dataType) {
+      case INT:
+        return Integer.valueOf(value.trim());
+      case LONG:
+        return Long.valueOf(value.trim());
+      case FLOAT:
+        return Float.valueOf(value.trim());
+      case DOUBLE:
+        return Double.valueOf(value.trim());
+      case STRING:
+        return value;
+      default:
+        throw new IllegalArgumentException("Unsupported data type for raw index: " + dataType);
+    }
+  }
+
+  private static File getRawIndexFile(File segmentDir, String column) {
+    return new File(segmentDir, column + V1Constants.Indexes.RAW_SV_FWD_IDX_FILE_EXTENTION);
+  }
+
   /**
    * Compares and prints the index size for the raw and dictionary encoded columns.
    *
-   * @param segment Segment to compare
+   * @param isSorted Whether the dictionary encoded column is sorted
    */
-  private void compareIndexSizes(IndexSegment segment, File segmentDir, String fwdIndexColumn, String rawIndexColumn) {
+  private void compareIndexSizes(boolean isSorted, File segmentDir, String fwdIndexColumn, String rawIndexColumn) {
     String filePrefix = segmentDir.getAbsolutePath() + File.separator;
-    File rawIndexFile = new File(filePrefix + rawIndexColumn + V1Constants.Indexes.RAW_SV_FWD_IDX_FILE_EXTENTION);
+    File rawIndexFile = getRawIndexFile(segmentDir, rawIndexColumn);
 
-    String extension = (segment.getDataSource(_fwdIndexColumn).getDataSourceMetadata().isSorted())
+    String extension = isSorted
         ? V1Constants.Indexes.SORTED_FWD_IDX_FILE_EXTENTION : V1Constants.Indexes.UN_SORTED_SV_FWD_IDX_FILE_EXTENTION;
 
     File fwdIndexFile = new File(filePrefix + _fwdIndexColumn + extension);
@@ -207,6 +274,32 @@ public class RawIndexBenchmark {
     System.out.println("Percentage change: " + ((fwdIndexTime - rawIndexTime) * 100.0 / rawIndexTime) + " %");
   }
 
+  /**
+   * Compares the size and lookup time of the raw index columns compressed with the different codecs.
+   *
+   * @param segment Segment to compare the columns for
+   * @param indexSizes Raw index size of the columns, in the same order as the codecs
+   */
+  private void compareCodecs(IndexSegment segment, long[] indexSizes) {
+    if (_codecColumns.isEmpty()) {
+      return;
+    }
+
+    // Warm up all the columns first, so that the first codec is not penalized.
+    int[] filteredDocIds = generateDocIds(segment);
+    for (String column : _codecColumns.values()) {
+      profileLookups(segment, column, filteredDocIds);
+    }
+
+    System.out.println("Codec\tRaw index size (bytes)\tLookup time (ms)\tLookups per ms");
+    int i = 0;
+    for (Map.Entry<ChunkCompressorFactory.CompressionType, String> entry : _codecColumns.entrySet()) {
+      long lookupTime = profileLookups(segment, entry.getValue(), filteredDocIds);
+      System.out.println(entry.getKey() + "\t" + indexSizes[i++] + "\t" + lookupTime + "\t"
+          + ((double) filteredDocIds.length / Math.max(lookupTime, 1)));
+    }
+  }
+
   /**
    * Profiles the lookup time for a given column, for the given docIds.
    *
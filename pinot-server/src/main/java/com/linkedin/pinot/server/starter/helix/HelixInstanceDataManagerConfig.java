@@ -35,6 +35,8 @@ public class HelixInstanceDataManagerConfig implements InstanceDataManagerConfig
   // Average number of values in multi-valued columns in any table in this instance.
   // This value is used to allocate initial memory for multi-valued columns in realtime segments in consuming state.
   private static final String AVERAGE_MV_COUNT = "realtime.averageMultiValueEntriesPerRow";
+  // Whether to keep the dictionaries of realtime segments in consuming state off heap, to reduce GC pressure.
+  private static final String REALTIME_OFFHEAP_ALLOCATION = "realtime.alloc.offheap";
   private static final String INSTANCE_SEGMENT_METADATA_LOADER_CLASS = "segment.metadata.loader.class";
   // Key of instance id
   public static final String INSTANCE_ID = "id";
@@ -128,6 +130,11 @@ public class HelixInstanceDataManagerConfig implements InstanceDataManagerConfig
     return _instanceDataManagerConfiguration.getString(AVERAGE_MV_COUNT, null);
   }
 
+  @Override
+  public boolean isRealtimeOffHeapAllocation() {
+    return _instanceDataManagerConfiguration.getBoolean(REALTIME_OFFHEAP_ALLOCATION, false);
+  }
+
   @Override
   public String toString() {
     String configString = "";
@@ -138,6 +145,7 @@ public class HelixInstanceDataManagerConfig implements InstanceDataManagerConfig
     configString += "\n\tSegment Metadata Loader Clas: " + getSegmentMetadataLoaderClass();
     configString += "\n\tRead Mode: " + getReadMode();
     configString += "\n\tSegment format version: " + getSegmentFormatVersion();
+    configString += "\n\tRealtime off heap allocation: " + isRealtimeOffHeapAllocation();
     return configString;
   }
 }
@@ -121,7 +121,8 @@ public class HelixServerStarter {
     ZkHelixPropertyStore<ZNRecord> zkPropertyStore = ZkUtils.getZkPropertyStore(_helixManager, helixClusterName);
 
     SegmentFetcherAndLoader fetcherAndLoader = new SegmentFetcherAndLoader(_serverInstance.getInstanceDataManager(),
-        new ColumnarSegmentMetadataLoader(), zkPropertyStore, pinotHelixProperties, _instanceId);
+        new ColumnarSegmentMetadataLoader(), zkPropertyStore, pinotHelixProperties, _instanceId,
+        _serverInstance.getServerMetrics());
 
     // Register state model factory
     final StateModelFactory<?> stateModelFactory =
@@ -139,7 +140,8 @@ public class HelixServerStarter {
     updateInstanceConfigInHelix(adminApiPort, false/*shutDownStatus*/);
 
     // Register message handler factory
-    SegmentMessageHandlerFactory messageHandlerFactory = new SegmentMessageHandlerFactory(fetcherAndLoader);
+    SegmentMessageHandlerFactory messageHandlerFactory =
+        new SegmentMessageHandlerFactory(fetcherAndLoader, _serverInstance.getQueryExecutor());
     _helixManager.getMessagingService().registerMessageHandlerFactory(Message.MessageType.USER_DEFINE_MSG.toString(),
         messageHandlerFactory);
 
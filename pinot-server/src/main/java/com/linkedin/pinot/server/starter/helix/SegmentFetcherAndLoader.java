@@ -22,9 +22,12 @@ import com.linkedin.pinot.common.data.DataManager;
 import com.linkedin.pinot.common.data.Schema;
 import com.linkedin.pinot.common.metadata.ZKMetadataProvider;
 import com.linkedin.pinot.common.metadata.segment.OfflineSegmentZKMetadata;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
 import com.linkedin.pinot.common.segment.SegmentMetadata;
 import com.linkedin.pinot.common.segment.SegmentMetadataLoader;
+import com.linkedin.pinot.common.segment.fetcher.SegmentFetcher;
 import com.linkedin.pinot.common.segment.fetcher.SegmentFetcherFactory;
+import com.linkedin.pinot.common.segment.fetcher.StreamingSegmentFetcher;
 import com.linkedin.pinot.common.utils.CommonConstants;
 import com.linkedin.pinot.common.utils.SchemaUtils;
 import com.linkedin.pinot.common.utils.TarGzCompressionUtils;
@@ -33,6 +36,7 @@ import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
 import com.linkedin.pinot.core.segment.index.loader.V3RemoveIndexException;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.io.FileUtils;
@@ -52,9 +56,12 @@ public class SegmentFetcherAndLoader {
 
   private final int _segmentLoadMaxRetryCount;
   private final long _segmentLoadMinRetryDelayMs; // Min delay (in msecs) between retries
+  private final SegmentLoadPipeline _segmentLoadPipeline;
+  private final boolean _streamingUnTar;
 
   public SegmentFetcherAndLoader(DataManager dataManager, SegmentMetadataLoader metadataLoader,
-      ZkHelixPropertyStore<ZNRecord> propertyStore, Configuration pinotHelixProperties, String instanceId) {
+      ZkHelixPropertyStore<ZNRecord> propertyStore, Configuration pinotHelixProperties, String instanceId,
+      ServerMetrics serverMetrics) {
     _propertyStore = propertyStore;
     _dataManager = dataManager;
     _metadataLoader = metadataLoader;
@@ -79,9 +86,46 @@ public class SegmentFetcherAndLoader {
     }
     _segmentLoadMinRetryDelayMs = minRetryDelayMillis;
 
+    _segmentLoadPipeline = new SegmentLoadPipeline(
+        getIntConfig(pinotHelixProperties, CommonConstants.Server.CONFIG_OF_SEGMENT_DOWNLOAD_PARALLELISM,
+            CommonConstants.Server.DEFAULT_SEGMENT_DOWNLOAD_PARALLELISM),
+        getIntConfig(pinotHelixProperties, CommonConstants.Server.CONFIG_OF_SEGMENT_UNTAR_PARALLELISM,
+            CommonConstants.Server.DEFAULT_SEGMENT_UNTAR_PARALLELISM),
+        getIntConfig(pinotHelixProperties, CommonConstants.Server.CONFIG_OF_SEGMENT_LOAD_PARALLELISM,
+            CommonConstants.Server.DEFAULT_SEGMENT_LOAD_PARALLELISM), serverMetrics);
+    boolean streamingUnTar = CommonConstants.Server.DEFAULT_SEGMENT_STREAMING_UNTAR;
+    try {
+      streamingUnTar =
+          pinotHelixProperties.getBoolean(CommonConstants.Server.CONFIG_OF_SEGMENT_STREAMING_UNTAR, streamingUnTar);
+    } catch (Exception e) {
+      // Keep the default value
+    }
+    _streamingUnTar = streamingUnTar;
+
     SegmentFetcherFactory.initSegmentFetcherFactory(pinotHelixProperties);
   }
 
+  private static int getIntConfig(Configuration pinotHelixProperties, String key, int defaultValue) {
+    try {
+      return pinotHelixProperties.getInt(key, defaultValue);
+    } catch (Exception e) {
+      return defaultValue;
+    }
+  }
+
+  private void addSegment(String tableName, final SegmentMetadata segmentMetadata,
+      final AbstractTableConfig tableConfig, final Schema schema)
+      throws Exception {
+    _segmentLoadPipeline.run(SegmentLoadPipeline.Stage.LOAD, tableName, new Callable<Void>() {
+      @Override
+      public Void call()
+          throws Exception {
+        _dataManager.addSegment(segmentMetadata, tableConfig, schema);
+        return null;
+      }
+    });
+  }
+
   public void addOrReplaceOfflineSegment(String tableName, String segmentId, boolean retryOnFailure) {
     OfflineSegmentZKMetadata offlineSegmentZKMetadata =
         ZKMetadataProvider.getOfflineSegmentZKMetadata(_propertyStore, tableName, segmentId);
@@ -122,7 +166,7 @@ public class SegmentFetcherAndLoader {
               LOGGER.info("Segment metadata same as before, loading {} of table {} (crc {}) from disk", segmentId,
                   tableName, localSegmentMetadata.getCrc());
               AbstractTableConfig tableConfig = ZKMetadataProvider.getOfflineTableConfig(_propertyStore, tableName);
-              _dataManager.addSegment(localSegmentMetadata, tableConfig, schema);
+              addSegment(tableName, localSegmentMetadata, tableConfig, schema);
               // TODO Update zk metadata with CRC for this instance
               return;
             }
@@ -169,7 +213,7 @@ public class SegmentFetcherAndLoader {
             final String localSegmentDir = downloadSegmentToLocal(uri, tableName, segmentId);
             final SegmentMetadata segmentMetadata =
                 _metadataLoader.loadIndexSegmentMetadataFromDir(localSegmentDir);
-            _dataManager.addSegment(segmentMetadata, tableConfig, schema);
+            addSegment(tableName, segmentMetadata, tableConfig, schema);
             LOGGER.info("Downloaded segment {} of table {} crc {} from controller", segmentId, tableName, segmentMetadata.getCrc());
 
             // Successfully loaded the segment, break out of the retry loop
@@ -245,7 +289,7 @@ public class SegmentFetcherAndLoader {
     return true;
   }
 
-  private String downloadSegmentToLocal(String uri, String tableName, String segmentId)
+  private String downloadSegmentToLocal(final String uri, final String tableName, final String segmentId)
       throws Exception {
     File tempSegmentFile = null;
     File tempFile = null;
@@ -253,15 +297,46 @@ public class SegmentFetcherAndLoader {
       tempSegmentFile = new File(_dataManager.getSegmentFileDirectory() + "/"
           + tableName + "/temp_" + segmentId + "_" + System.currentTimeMillis());
       tempFile = new File(_dataManager.getSegmentFileDirectory(), segmentId + ".tar.gz");
-      SegmentFetcherFactory.getSegmentFetcherBasedOnURI(uri).fetchSegmentToLocal(uri, tempFile);
-      LOGGER.info("Downloaded file from {} to {}; Length of downloaded file: {}; segmentName: {}; table: {}", uri, tempFile,
-          tempFile.length(), segmentId, tableName);
-      LOGGER.info("Trying to decompress segment tar file from {} to {} for table {}", tempFile, tempSegmentFile, tableName);
-
-      TarGzCompressionUtils.unTar(tempFile, tempSegmentFile);
-      FileUtils.deleteQuietly(tempFile);
+      final SegmentFetcher segmentFetcher = SegmentFetcherFactory.getSegmentFetcherBasedOnURI(uri);
+      if (_streamingUnTar && segmentFetcher instanceof StreamingSegmentFetcher) {
+        // Untar while downloading, the untar time is part of the download stage
+        final File outputDir = tempSegmentFile;
+        _segmentLoadPipeline.run(SegmentLoadPipeline.Stage.DOWNLOAD, tableName, new Callable<Void>() {
+          @Override
+          public Void call()
+              throws Exception {
+            ((StreamingSegmentFetcher) segmentFetcher).fetchAndUnTarSegmentToLocal(uri, outputDir);
+            return null;
+          }
+        });
+        LOGGER.info("Downloaded and decompressed segment from {} to {}; segmentName: {}; table: {}", uri,
+            tempSegmentFile, segmentId, tableName);
+      } else {
+        final File tarFile = tempFile;
+        final File outputDir = tempSegmentFile;
+        _segmentLoadPipeline.run(SegmentLoadPipeline.Stage.DOWNLOAD, tableName, new Callable<Void>() {
+          @Override
+          public Void call()
+              throws Exception {
+            segmentFetcher.fetchSegmentToLocal(uri, tarFile);
+            return null;
+          }
+        });
+        LOGGER.info("Downloaded file from {} to {}; Length of downloaded file: {}; segmentName: {}; table: {}", uri,
+            tempFile, tempFile.length(), segmentId, tableName);
+        LOGGER.info("Trying to decompress segment tar file from {} to {} for table {}", tempFile, tempSegmentFile,
+            tableName);
+        _segmentLoadPipeline.run(SegmentLoadPipeline.Stage.UNTAR, tableName, new Callable<Void>() {
+          @Override
+          public Void call()
+              throws Exception {
+            TarGzCompressionUtils.unTar(tarFile, outputDir);
+            return null;
+          }
+        });
+        FileUtils.deleteQuietly(tempFile);
+      }
       final File segmentDir = new File(new File(_dataManager.getSegmentDataDirectory(), tableName), segmentId);
-      Thread.sleep(1000);
       if (segmentDir.exists()) {
         LOGGER.info("Deleting the directory {} and recreating it again table {} ", segmentDir.getAbsolutePath(), tableName);
         FileUtils.deleteDirectory(segmentDir);
@@ -270,7 +345,6 @@ public class SegmentFetcherAndLoader {
           + segmentDir.getAbsolutePath() + " for " + segmentId + " of table " + tableName);
       FileUtils.moveDirectory(tempSegmentFile.listFiles()[0], segmentDir);
       FileUtils.deleteDirectory(tempSegmentFile);
-      Thread.sleep(1000);
       LOGGER.info("Was able to succesfully rename the dir to match the segment {} for table {}", segmentId, tableName);
 
       new File(segmentDir, "finishedLoading").createNewFile();
@@ -0,0 +1,124 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.server.starter.helix;
+
+import com.linkedin.pinot.common.metrics.ServerMeter;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.metrics.ServerTimer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.apache.helix.messaging.handling.HelixTaskExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The <code>SegmentLoadPipeline</code> class bounds the number of segments concurrently in each stage of loading a
+ * segment from the controller: download, untar, and load (which includes the index building of the segment
+ * pre-processor).
+ * <p>Segments are added on the Helix state transition threads, so on server startup or rebalance lots of segments are
+ * loaded at the same time. Without bounds they all compete for the network, the disks and the CPUs at once. With a
+ * bound per stage, each segment moves to the next stage as soon as it has room, so that the downloads of the next
+ * segments overlap with the untar and load of the previous ones, while each resource is kept busy but not
+ * oversubscribed.
+ * <p>The parallelism comes from the Helix state transition thread pool: Helix runs up to
+ * {@link HelixTaskExecutor#DEFAULT_PARALLEL_TASKS} (40) state transitions at the same time on each server, from a pool
+ * shared by all tables (it can be overridden per table with the <code>maxThreads</code> resource config), and each
+ * transition adds one segment. Each transition has to block until its segment is loaded, so the stages run on the
+ * transition thread instead of being handed off to other executors, which would only add threads waiting on each other.
+ * The per stage parallelism should therefore stay below the number of transition threads.
+ */
+public class SegmentLoadPipeline {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentLoadPipeline.class);
+
+  public enum Stage {
+    DOWNLOAD(ServerTimer.SEGMENT_DOWNLOAD_TIME, ServerMeter.SEGMENT_DOWNLOAD_FAILURES),
+    UNTAR(ServerTimer.SEGMENT_UNTAR_TIME, ServerMeter.SEGMENT_UNTAR_FAILURES),
+    LOAD(ServerTimer.SEGMENT_LOAD_TIME, ServerMeter.SEGMENT_LOAD_FAILURES);
+
+    private final ServerTimer _timer;
+    private final ServerMeter _failureMeter;
+
+    Stage(ServerTimer timer, ServerMeter failureMeter) {
+      _timer = timer;
+      _failureMeter = failureMeter;
+    }
+  }
+
+  private final int[] _stageParallelisms = new int[Stage.values().length];
+  private final Semaphore[] _stagePermits = new Semaphore[Stage.values().length];
+  private final ServerMetrics _serverMetrics;
+
+  /**
+   * Constructor for the class, non positive parallelism means the number of available processors.
+   *
+   * @param downloadParallelism Max number of segments downloaded concurrently
+   * @param untarParallelism Max number of segments untarred concurrently
+   * @param loadParallelism Max number of segments loaded concurrently
+   * @param serverMetrics Server metrics
+   */
+  public SegmentLoadPipeline(int downloadParallelism, int untarParallelism, int loadParallelism,
+      ServerMetrics serverMetrics) {
+    _stageParallelisms[Stage.DOWNLOAD.ordinal()] = getParallelism(downloadParallelism);
+    _stageParallelisms[Stage.UNTAR.ordinal()] = getParallelism(untarParallelism);
+    _stageParallelisms[Stage.LOAD.ordinal()] = getParallelism(loadParallelism);
+    for (Stage stage : Stage.values()) {
+      // Fair, so that the segments go through each stage in arrival order
+      _stagePermits[stage.ordinal()] = new Semaphore(_stageParallelisms[stage.ordinal()], true);
+    }
+    _serverMetrics = serverMetrics;
+    LOGGER.info("Initialized segment load pipeline with parallelism download: {}, untar: {}, load: {} "
+            + "(default number of state transition threads: {})", getParallelism(Stage.DOWNLOAD),
+        getParallelism(Stage.UNTAR), getParallelism(Stage.LOAD), HelixTaskExecutor.DEFAULT_PARALLEL_TASKS);
+  }
+
+  private static int getParallelism(int parallelism) {
+    return (parallelism > 0) ? parallelism : Runtime.getRuntime().availableProcessors();
+  }
+
+  public int getParallelism(Stage stage) {
+    return _stageParallelisms[stage.ordinal()];
+  }
+
+  /**
+   * Runs one stage of the loading of a segment in the calling thread, once the stage has room for it, and reports the
+   * time spent in the stage if it succeeds, or a failure of the stage otherwise.
+   *
+   * @param stage Stage to run
+   * @param tableName Name of the table of the segment, for the metrics
+   * @param task Work of the stage
+   * @return Result of the task
+   */
+  public <T> T run(Stage stage, String tableName, Callable<T> task)
+      throws Exception {
+    Semaphore permits = _stagePermits[stage.ordinal()];
+    permits.acquire();
+    long startTime = System.currentTimeMillis();
+    T result;
+    try {
+      result = task.call();
+    } catch (Exception e) {
+      _serverMetrics.addMeteredTableValue(tableName, stage._failureMeter, 1L);
+      throw e;
+    } finally {
+      permits.release();
+    }
+    _serverMetrics.addTimedTableValue(tableName, stage._timer, System.currentTimeMillis() - startTime,
+        TimeUnit.MILLISECONDS);
+    return result;
+  }
+}
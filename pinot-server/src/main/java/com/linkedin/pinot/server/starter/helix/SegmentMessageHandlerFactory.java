@@ -16,6 +16,7 @@
 package com.linkedin.pinot.server.starter.helix;
 
 import com.linkedin.pinot.common.messages.SegmentReloadMessage;
+import com.linkedin.pinot.common.query.QueryExecutor;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import org.apache.helix.NotificationContext;
@@ -36,9 +37,11 @@ public class SegmentMessageHandlerFactory implements MessageHandlerFactory {
   private final Lock _lock = new ReentrantLock();
 
   private final SegmentFetcherAndLoader _fetcherAndLoader;
+  private final QueryExecutor _queryExecutor;
 
-  public SegmentMessageHandlerFactory(SegmentFetcherAndLoader fetcherAndLoader) {
+  public SegmentMessageHandlerFactory(SegmentFetcherAndLoader fetcherAndLoader, QueryExecutor queryExecutor) {
     _fetcherAndLoader = fetcherAndLoader;
+    _queryExecutor = queryExecutor;
   }
 
   // Called each time a message is received.
@@ -92,6 +95,7 @@ public class SegmentMessageHandlerFactory implements MessageHandlerFactory {
         // The addOrReplaceOfflineSegment() call can retry multiple times with back-off for loading the same segment.
         // If it does, future segment loads will be stalled on the one segment that we cannot load.
         _fetcherAndLoader.addOrReplaceOfflineSegment(_tableName, _segmentName, /*retryOnFailure=*/false);
+        _queryExecutor.invalidateSegmentResults(_tableName, _segmentName);
         result.setSuccess(true);
       } finally {
         _lock.unlock();
@@ -129,6 +133,7 @@ public class SegmentMessageHandlerFactory implements MessageHandlerFactory {
         _logger.info("Acquired lock to reload segment: {} (lock-time={}ms)", _segmentName,
             System.currentTimeMillis() - startTime);
         _fetcherAndLoader.reloadSegment(_tableName, _segmentName);
+        _queryExecutor.invalidateSegmentResults(_tableName, _segmentName);
         helixTaskResult.setSuccess(true);
       } catch (Exception e) {
         throw new RuntimeException(
@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.server.starter.helix;
+
+import com.linkedin.pinot.common.metrics.ServerMeter;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.metrics.ServerTimer;
+import com.yammer.metrics.core.MetricsRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class SegmentLoadPipelineTest {
+  private static final int NUM_THREADS = 10;
+  private static final int NUM_SEGMENTS = 50;
+
+  @Test
+  public void testStageParallelism()
+      throws Exception {
+    final SegmentLoadPipeline pipeline = new SegmentLoadPipeline(3, 0, 2, new ServerMetrics(new MetricsRegistry()));
+    Assert.assertEquals(pipeline.getParallelism(SegmentLoadPipeline.Stage.DOWNLOAD), 3);
+    Assert.assertEquals(pipeline.getParallelism(SegmentLoadPipeline.Stage.UNTAR),
+        Runtime.getRuntime().availableProcessors());
+    Assert.assertEquals(pipeline.getParallelism(SegmentLoadPipeline.Stage.LOAD), 2);
+
+    // Each thread takes segments through download then load, the number of segments in each stage stays bounded
+    final StageTracker downloadTracker = new StageTracker();
+    final StageTracker loadTracker = new StageTracker();
+    ExecutorService executorService = Executors.newFixedThreadPool(NUM_THREADS);
+    try {
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < NUM_SEGMENTS; i++) {
+        final int segmentId = i;
+        futures.add(executorService.submit(new Callable<Integer>() {
+          @Override
+          public Integer call()
+              throws Exception {
+            pipeline.run(SegmentLoadPipeline.Stage.DOWNLOAD, "testTable", downloadTracker);
+            pipeline.run(SegmentLoadPipeline.Stage.LOAD, "testTable", loadTracker);
+            return segmentId;
+          }
+        }));
+      }
+      for (int i = 0; i < NUM_SEGMENTS; i++) {
+        Assert.assertEquals((int) futures.get(i).get(), i);
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+    Assert.assertEquals(downloadTracker._numCalls.get(), NUM_SEGMENTS);
+    Assert.assertEquals(loadTracker._numCalls.get(), NUM_SEGMENTS);
+    Assert.assertTrue(downloadTracker._maxConcurrent.get() <= 3);
+    Assert.assertTrue(loadTracker._maxConcurrent.get() <= 2);
+  }
+
+  @Test
+  public void testFailureReleasesStage()
+      throws Exception {
+    SegmentLoadPipeline pipeline = new SegmentLoadPipeline(1, 1, 1, new ServerMetrics(new MetricsRegistry()));
+    for (int i = 0; i < 2; i++) {
+      try {
+        pipeline.run(SegmentLoadPipeline.Stage.UNTAR, "testTable", new Callable<Void>() {
+          @Override
+          public Void call()
+              throws Exception {
+            throw new IllegalStateException();
+          }
+        });
+        Assert.fail();
+      } catch (IllegalStateException e) {
+        // Expected
+      }
+    }
+    Assert.assertEquals(pipeline.run(SegmentLoadPipeline.Stage.UNTAR, "testTable", new Callable<String>() {
+      @Override
+      public String call()
+          throws Exception {
+        return "done";
+      }
+    }), "done");
+  }
+
+  @Test
+  public void testStageMetrics()
+      throws Exception {
+    ServerMetrics serverMetrics = Mockito.mock(ServerMetrics.class);
+    SegmentLoadPipeline pipeline = new SegmentLoadPipeline(1, 1, 1, serverMetrics);
+
+    // Failures are metered, and not reported as stage time
+    try {
+      pipeline.run(SegmentLoadPipeline.Stage.DOWNLOAD, "testTable", new Callable<Void>() {
+        @Override
+        public Void call()
+            throws Exception {
+          throw new IllegalStateException();
+        }
+      });
+      Assert.fail();
+    } catch (IllegalStateException e) {
+      // Expected
+    }
+    Mockito.verify(serverMetrics).addMeteredTableValue("testTable", ServerMeter.SEGMENT_DOWNLOAD_FAILURES, 1L);
+    Mockito.verify(serverMetrics, Mockito.never())
+        .addTimedTableValue(Mockito.anyString(), Mockito.any(ServerTimer.class), Mockito.anyLong(),
+            Mockito.any(TimeUnit.class));
+
+    pipeline.run(SegmentLoadPipeline.Stage.DOWNLOAD, "testTable", new StageTracker());
+    Mockito.verify(serverMetrics)
+        .addTimedTableValue(Mockito.eq("testTable"), Mockito.eq(ServerTimer.SEGMENT_DOWNLOAD_TIME), Mockito.anyLong(),
+            Mockito.eq(TimeUnit.MILLISECONDS));
+    Mockito.verifyNoMoreInteractions(serverMetrics);
+  }
+
+  /**
+   * Records the max number of concurrent calls.
+   */
+  private static class StageTracker implements Callable<Void> {
+    private final AtomicInteger _numCalls = new AtomicInteger();
+    private final AtomicInteger _numConcurrent = new AtomicInteger();
+    private final AtomicInteger _maxConcurrent = new AtomicInteger();
+
+    @Override
+    public Void call()
+        throws Exception {
+      _numCalls.incrementAndGet();
+      int numConcurrent = _numConcurrent.incrementAndGet();
+      while (true) {
+        int maxConcurrent = _maxConcurrent.get();
+        if (numConcurrent <= maxConcurrent || _maxConcurrent.compareAndSet(maxConcurrent, numConcurrent)) {
+          break;
+        }
+      }
+      Thread.sleep(5);
+      _numConcurrent.decrementAndGet();
+      return null;
+    }
+  }
+}
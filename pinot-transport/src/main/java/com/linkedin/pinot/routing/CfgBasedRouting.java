@@ -56,6 +56,12 @@ public class CfgBasedRouting implements RoutingTable {
     return routingTableEntry != null && !routingTableEntry.isEmpty();
   }
 
+  @Override
+  public long getRoutingTableVersion(String tableName) {
+    // The config based routing table never changes
+    return 0L;
+  }
+
   @Override
   public void start() {
     // Nothing to be done here
@@ -31,6 +31,7 @@ import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.commons.configuration.Configuration;
 import org.apache.helix.AccessOption;
 import org.apache.helix.HelixDataAccessor;
@@ -49,6 +50,7 @@ import com.linkedin.pinot.common.config.TableNameBuilder;
 import com.linkedin.pinot.common.metrics.BrokerMeter;
 import com.linkedin.pinot.common.metrics.BrokerMetrics;
 import com.linkedin.pinot.common.metrics.BrokerTimer;
+import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.response.ServerInstance;
 import com.linkedin.pinot.common.utils.CommonConstants;
 import com.linkedin.pinot.common.utils.NetUtil;
@@ -93,9 +95,13 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
   private final Map<String, Map<String, InstanceConfig>> _lastKnownInstanceConfigsForTable = new ConcurrentHashMap<>();
   private final Map<String, InstanceConfig> _lastKnownInstanceConfigs = new ConcurrentHashMap<>();
   private final Map<String, Set<String>> _tablesForInstance = new ConcurrentHashMap<>();
+  private final Map<String, Long> _routingTableVersionMap = new ConcurrentHashMap<>();
+  private final AtomicLong _routingTableVersionGenerator = new AtomicLong();
 
   private final Random _random = new Random(System.currentTimeMillis());
   private final HelixExternalViewBasedTimeBoundaryService _timeBoundaryService;
+  private final SegmentTimeRangeIndex _segmentTimeRangeIndex;
+  private boolean _enableSegmentPruning = true;
   private final RoutingTableSelector _routingTableSelector;
   private final HelixManager _helixManager;
   private static final int INVALID_EXTERNAL_VIEW_VERSION = Integer.MIN_VALUE;
@@ -112,6 +118,15 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
   public HelixExternalViewBasedRouting(ZkHelixPropertyStore<ZNRecord> propertyStore,
       RoutingTableSelector routingTableSelector, HelixManager helixManager, Configuration configuration) {
     _timeBoundaryService = new HelixExternalViewBasedTimeBoundaryService(propertyStore);
+    // A segment refreshed in place gets a new CRC without any external view change, bump the routing table version so
+    // that the results computed before the refresh are not used anymore.
+    _segmentTimeRangeIndex =
+        new SegmentTimeRangeIndex(propertyStore, new SegmentTimeRangeIndex.SegmentRefreshListener() {
+          @Override
+          public void onSegmentRefreshed(String offlineTableName, String segmentName) {
+            _routingTableVersionMap.put(offlineTableName, _routingTableVersionGenerator.incrementAndGet());
+          }
+        });
     _largeClusterRoutingTableBuilder = new LargeClusterRoutingTableBuilder();
     _smallClusterRoutingTableBuilder = new BalancedRandomRoutingTableBuilder();
     _realtimeHLCRoutingTableBuilder = new KafkaHighLevelConsumerBasedRoutingTableBuilder();
@@ -145,6 +160,10 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
       LOGGER.info("Using default value for large cluster min replica count of {}", MIN_REPLICA_COUNT_FOR_LARGE_CLUSTER);
     }
 
+    _enableSegmentPruning = configuration.getBoolean("enableSegmentPruning", true);
+    LOGGER.info("Broker side segment pruning based on segment time range is {}",
+        _enableSegmentPruning ? "enabled" : "disabled");
+
     _largeClusterRoutingTableBuilder.init(configuration);
     _smallClusterRoutingTableBuilder.init(configuration);
     _realtimeHLCRoutingTableBuilder.init(configuration);
@@ -207,7 +226,32 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
     if (serverToSegmentSetMaps == null || serverToSegmentSetMaps.isEmpty()) {
       return Collections.emptyMap();
     }
-    return serverToSegmentSetMaps.get(_random.nextInt(serverToSegmentSetMaps.size())).getRouting();
+    Map<ServerInstance, SegmentIdSet> routing =
+        serverToSegmentSetMaps.get(_random.nextInt(serverToSegmentSetMaps.size())).getRouting();
+
+    // Drop the OFFLINE segments (and servers) that cannot match the time filter of the query.
+    BrokerRequest brokerRequest = request.getBrokerRequest();
+    if (_enableSegmentPruning && brokerRequest != null
+        && CommonConstants.Helix.TableType.OFFLINE.equals(TableNameBuilder.getTableTypeFromTableName(tableName))) {
+      Map<ServerInstance, SegmentIdSet> prunedRouting =
+          _segmentTimeRangeIndex.pruneRoutingTable(tableName, brokerRequest, routing);
+      if (prunedRouting != routing && _brokerMetrics != null) {
+        _brokerMetrics.addMeteredTableValue(tableName, BrokerMeter.SEGMENTS_PRUNED_BY_BROKER,
+            countSegments(routing) - countSegments(prunedRouting));
+        _brokerMetrics.addMeteredTableValue(tableName, BrokerMeter.SERVERS_PRUNED_BY_BROKER,
+            routing.size() - prunedRouting.size());
+      }
+      return prunedRouting;
+    }
+    return routing;
+  }
+
+  private static long countSegments(Map<ServerInstance, SegmentIdSet> routing) {
+    long numSegments = 0;
+    for (SegmentIdSet segmentIdSet : routing.values()) {
+      numSegments += segmentIdSet.getSegments().size();
+    }
+    return numSegments;
   }
 
   @Override
@@ -216,6 +260,12 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
         _llcBrokerRoutingTable.containsKey(tableName) && !_llcBrokerRoutingTable.get(tableName).isEmpty());
   }
 
+  @Override
+  public long getRoutingTableVersion(String tableName) {
+    Long routingTableVersion = _routingTableVersionMap.get(tableName);
+    return (routingTableVersion != null) ? routingTableVersion : 0L;
+  }
+
   private List<ServerToSegmentSetMap> routeToLLC(String tableName) {
     if (_brokerMetrics != null) {
       _brokerMetrics.addMeteredTableValue(tableName, BrokerMeter.LLC_QUERY_COUNT, 1);
@@ -433,6 +483,19 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
       _lastKnownExternalViewVersionMap.put(tableName, INVALID_EXTERNAL_VIEW_VERSION);
     }
 
+    if (tableType == CommonConstants.Helix.TableType.OFFLINE) {
+      // Start indexing the segment time ranges of the table, the segment ZK metadata changes (e.g. segment refresh)
+      // are then picked up by the property store listeners of the index without waiting for an external view change.
+      // The index is kept even if segment pruning is disabled, as it also bumps the routing table version on refresh.
+      try {
+        _segmentTimeRangeIndex.update(tableName);
+      } catch (Exception e) {
+        // Without up-to-date time ranges, no segment should be pruned for the table
+        _segmentTimeRangeIndex.remove(tableName);
+        LOGGER.error("Failed to update the segment time range index for table {}", tableName, e);
+      }
+    }
+
     try {
       // We need to compute the time boundary only in two situations:
       // 1) We're adding/updating an offline table and there's a realtime table that we're serving
@@ -473,6 +536,9 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
       LOGGER.error("Failed to update the TimeBoundaryService", e);
     }
 
+    // Bump the routing table version after both the routing table and the time boundary got updated
+    _routingTableVersionMap.put(tableName, _routingTableVersionGenerator.incrementAndGet());
+
     long updateTime = System.currentTimeMillis() - startTimeMillis;
 
     if (_brokerMetrics != null) {
@@ -545,6 +611,8 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
     _lastKnownExternalViewVersionMap.remove(tableName);
     _lastKnownInstanceConfigsForTable.remove(tableName);
     _timeBoundaryService.remove(tableName);
+    _segmentTimeRangeIndex.remove(tableName);
+    _routingTableVersionMap.put(tableName, _routingTableVersionGenerator.incrementAndGet());
 
     // Remove table from all instances
     synchronized (_tablesForInstance) {
@@ -39,6 +39,16 @@ public interface RoutingTable {
    */
   boolean routingTableExists(String tableName);
 
+  /**
+   * Returns the version of the routing table for a given table. The version changes every time the routing table (or
+   * the time boundary derived from it) gets rebuilt or removed, or one of its OFFLINE segments gets refreshed, so that
+   * results computed with an older routing table can be detected.
+   *
+   * @param tableName The table name for which to get the routing table version
+   * @return The routing table version
+   */
+  long getRoutingTableVersion(String tableName);
+
   /**
    * Initialize and start the Routing table population
    */
@@ -0,0 +1,562 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.routing;
+
+import com.linkedin.pinot.common.config.AbstractTableConfig;
+import com.linkedin.pinot.common.metadata.ZKMetadataProvider;
+import com.linkedin.pinot.common.metadata.segment.OfflineSegmentZKMetadata;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.FilterOperator;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.common.utils.request.FilterQueryTree;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
+import com.linkedin.pinot.transport.common.SegmentId;
+import com.linkedin.pinot.transport.common.SegmentIdSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.I0Itec.zkclient.IZkChildListener;
+import org.I0Itec.zkclient.IZkDataListener;
+import org.apache.helix.AccessOption;
+import org.apache.helix.ZNRecord;
+import org.apache.helix.store.zk.ZkHelixPropertyStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The <code>SegmentTimeRangeIndex</code> class keeps the time range of each OFFLINE segment, loaded from the segment
+ * ZK metadata, so that the broker can drop the segments (and servers) that cannot match the time filter of a query
+ * from the routing table before scattering the request.
+ * <p>The segment ZK metadata of a table is bulk loaded once, when the table is first routed. After that, the index
+ * listens to the segment ZK metadata in the property store and reloads only the segments that are added or changed,
+ * e.g. a refreshed or backfilled segment, which gets new start/end times without any external view change.
+ * <p>Each time range is recorded along with the CRC of the segment ZK metadata it was loaded from. A segment is only
+ * pruned if this CRC is still the current CRC of the segment, so that a segment being reloaded is never pruned based
+ * on its previous time range. Segments without a valid time range in the ZK metadata are never pruned.
+ * <p>The CRCs are tracked for every indexed table, including the tables without a usable time column (whose segments
+ * are never pruned), so that the {@link SegmentRefreshListener} gets notified when a segment is refreshed in place.
+ * <p>NOTE: partition metadata is not recorded in the segment ZK metadata, so only time based pruning is performed on
+ * the broker side, the partition based pruning still happens on the servers.
+ */
+public class SegmentTimeRangeIndex implements IZkChildListener, IZkDataListener {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentTimeRangeIndex.class);
+
+  private static final String RANGE_DELIMITER = "\t\t";
+  private static final String LOWER_EXCLUSIVE = "(";
+  private static final String UPPER_EXCLUSIVE = ")";
+  private static final String UNBOUNDED = "*";
+  // Current CRC of a segment whose ZK metadata is being reloaded.
+  private static final long UNKNOWN_CRC = Long.MIN_VALUE;
+
+  private final ZkHelixPropertyStore<ZNRecord> _propertyStore;
+  private final SegmentRefreshListener _segmentRefreshListener;
+  private final Map<String, TableTimeRanges> _tableTimeRangesMap = new ConcurrentHashMap<>();
+
+  /**
+   * Listener notified when the ZK metadata of an indexed segment gets a new CRC, i.e. the segment was refreshed in place
+   * without any external view change.
+   */
+  public interface SegmentRefreshListener {
+    void onSegmentRefreshed(@Nonnull String offlineTableName, @Nonnull String segmentName);
+  }
+
+  public SegmentTimeRangeIndex(@Nullable ZkHelixPropertyStore<ZNRecord> propertyStore) {
+    this(propertyStore, null);
+  }
+
+  public SegmentTimeRangeIndex(@Nullable ZkHelixPropertyStore<ZNRecord> propertyStore,
+      @Nullable SegmentRefreshListener segmentRefreshListener) {
+    _propertyStore = propertyStore;
+    _segmentRefreshListener = segmentRefreshListener;
+  }
+
+  /**
+   * Starts indexing the segment time ranges for the given OFFLINE table, or re-indexes them if the time column of the
+   * table changed. Once indexed, the segment time ranges are kept up to date by the property store listeners, so this
+   * only reads the table config. A table without a usable time column is still indexed to track the segment CRCs, but
+   * none of its segments gets pruned.
+   *
+   * @param offlineTableName OFFLINE table name.
+   */
+  public void update(@Nonnull String offlineTableName) {
+    if (_propertyStore == null) {
+      return;
+    }
+
+    AbstractTableConfig offlineTableConfig = ZKMetadataProvider.getOfflineTableConfig(_propertyStore, offlineTableName);
+    if (offlineTableConfig == null) {
+      remove(offlineTableName);
+      return;
+    }
+    String timeColumn = offlineTableConfig.getValidationConfig().getTimeColumnName();
+    String timeType = offlineTableConfig.getValidationConfig().getTimeType();
+    TimeUnit tableTimeUnit;
+    try {
+      tableTimeUnit = HelixExternalViewBasedTimeBoundaryService.getTimeUnitFromString(timeType);
+    } catch (Exception e) {
+      LOGGER.warn("Skipping segment time range index for table '{}' with unsupported time type: {}",
+          offlineTableName, timeType);
+      tableTimeUnit = null;
+    }
+    if (timeColumn == null || tableTimeUnit == null) {
+      timeColumn = null;
+      tableTimeUnit = null;
+    }
+    TableTimeRanges tableTimeRanges = _tableTimeRangesMap.get(offlineTableName);
+    if (tableTimeRanges != null && Objects.equals(tableTimeRanges._timeColumn, timeColumn)
+        && tableTimeRanges._timeUnit == tableTimeUnit) {
+      return;
+    }
+
+    tableTimeRanges = new TableTimeRanges(timeColumn, tableTimeUnit);
+    _tableTimeRangesMap.put(offlineTableName, tableTimeRanges);
+    // Subscribe before reading the segment ZK metadata so that no segment change gets lost.
+    _propertyStore.subscribeChildChanges(ZKMetadataProvider.constructPropertyStorePathForResource(offlineTableName),
+        this);
+    // Bulk reading all segment zk-metadata at once is more efficient than reading one at a time.
+    List<OfflineSegmentZKMetadata> segmentZKMetadataList =
+        ZKMetadataProvider.getOfflineSegmentZKMetadataListForTable(_propertyStore, offlineTableName);
+    for (OfflineSegmentZKMetadata segmentZKMetadata : segmentZKMetadataList) {
+      _propertyStore.subscribeDataChanges(
+          ZKMetadataProvider.constructPropertyStorePathForSegment(offlineTableName, segmentZKMetadata.getSegmentName()),
+          this);
+    }
+    loadSegments(offlineTableName, tableTimeRanges, segmentZKMetadataList);
+  }
+
+  void update(@Nonnull String offlineTableName, @Nonnull String timeColumn, @Nonnull TimeUnit tableTimeUnit,
+      @Nonnull List<OfflineSegmentZKMetadata> segmentZKMetadataList) {
+    TableTimeRanges tableTimeRanges = new TableTimeRanges(timeColumn, tableTimeUnit);
+    _tableTimeRangesMap.put(offlineTableName, tableTimeRanges);
+    loadSegments(offlineTableName, tableTimeRanges, segmentZKMetadataList);
+  }
+
+  private static void loadSegments(@Nonnull String offlineTableName, @Nonnull TableTimeRanges tableTimeRanges,
+      @Nonnull List<OfflineSegmentZKMetadata> segmentZKMetadataList) {
+    for (OfflineSegmentZKMetadata segmentZKMetadata : segmentZKMetadataList) {
+      tableTimeRanges.addSegmentIfAbsent(segmentZKMetadata.getSegmentName(), segmentZKMetadata);
+    }
+    LOGGER.info("Loaded segment time range index for table '{}' with {} of {} segments", offlineTableName,
+        tableTimeRanges._segmentTimeRanges.size(), segmentZKMetadataList.size());
+  }
+
+  public void remove(@Nonnull String offlineTableName) {
+    TableTimeRanges tableTimeRanges = _tableTimeRangesMap.remove(offlineTableName);
+    if (tableTimeRanges != null && _propertyStore != null) {
+      _propertyStore.unsubscribeChildChanges(ZKMetadataProvider.constructPropertyStorePathForResource(offlineTableName),
+          this);
+      for (String segmentName : tableTimeRanges._segmentCrcs.keySet()) {
+        _propertyStore.unsubscribeDataChanges(
+            ZKMetadataProvider.constructPropertyStorePathForSegment(offlineTableName, segmentName), this);
+      }
+    }
+  }
+
+  /**
+   * Segments added to or deleted from the property store.
+   */
+  @Override
+  public void handleChildChange(String parentPath, List<String> currentChildren) {
+    String offlineTableName = getLastPathPart(parentPath);
+    TableTimeRanges tableTimeRanges = _tableTimeRangesMap.get(offlineTableName);
+    if (tableTimeRanges == null || currentChildren == null) {
+      return;
+    }
+
+    Set<String> currentSegments = new HashSet<>(currentChildren);
+    for (String segmentName : tableTimeRanges._segmentCrcs.keySet()) {
+      if (!currentSegments.contains(segmentName)) {
+        handleSegmentDeleted(offlineTableName, segmentName);
+      }
+    }
+    for (String segmentName : currentChildren) {
+      if (!tableTimeRanges._segmentCrcs.containsKey(segmentName)) {
+        if (_propertyStore != null) {
+          _propertyStore.subscribeDataChanges(
+              ZKMetadataProvider.constructPropertyStorePathForSegment(offlineTableName, segmentName), this);
+        }
+        refreshSegment(offlineTableName, segmentName, null);
+      }
+    }
+  }
+
+  /**
+   * Segment ZK metadata changed, e.g. segment refreshed with a new time range.
+   */
+  @Override
+  public void handleDataChange(String dataPath, Object data) {
+    String[] pathParts = dataPath.split("/");
+    if (pathParts.length < 2) {
+      return;
+    }
+    String offlineTableName = pathParts[pathParts.length - 2];
+    String segmentName = pathParts[pathParts.length - 1];
+    refreshSegment(offlineTableName, segmentName, (data instanceof ZNRecord) ? (ZNRecord) data : null);
+  }
+
+  @Override
+  public void handleDataDeleted(String dataPath) {
+    String[] pathParts = dataPath.split("/");
+    if (pathParts.length < 2) {
+      return;
+    }
+    handleSegmentDeleted(pathParts[pathParts.length - 2], pathParts[pathParts.length - 1]);
+  }
+
+  /**
+   * Reloads the time range of one segment, from the given ZNRecord or from the property store if it is
+   * <code>null</code>. The segment is not pruned until its time range is reloaded.
+   */
+  void refreshSegment(@Nonnull String offlineTableName, @Nonnull String segmentName, @Nullable ZNRecord znRecord) {
+    TableTimeRanges tableTimeRanges = _tableTimeRangesMap.get(offlineTableName);
+    if (tableTimeRanges == null) {
+      return;
+    }
+
+    Long previousCrc = tableTimeRanges.markReloading(segmentName);
+    try {
+      if (znRecord == null && _propertyStore != null) {
+        znRecord = _propertyStore.get(ZKMetadataProvider.constructPropertyStorePathForSegment(offlineTableName,
+            segmentName), null, AccessOption.PERSISTENT);
+      }
+      if (znRecord == null) {
+        tableTimeRanges.removeSegment(segmentName);
+        return;
+      }
+      OfflineSegmentZKMetadata segmentZKMetadata = new OfflineSegmentZKMetadata(znRecord);
+      tableTimeRanges.updateSegment(segmentName, segmentZKMetadata);
+      // A previous CRC of UNKNOWN_CRC means the last reload failed, so the segment might have changed as well.
+      if (previousCrc != null && previousCrc != segmentZKMetadata.getCrc() && _segmentRefreshListener != null) {
+        _segmentRefreshListener.onSegmentRefreshed(offlineTableName, segmentName);
+      }
+    } catch (Exception e) {
+      // The current CRC of the segment stays unknown, so the segment is never pruned.
+      LOGGER.error("Failed to reload the time range of segment {} of table {}", segmentName, offlineTableName, e);
+    }
+  }
+
+  private void handleSegmentDeleted(@Nonnull String offlineTableName, @Nonnull String segmentName) {
+    TableTimeRanges tableTimeRanges = _tableTimeRangesMap.get(offlineTableName);
+    if (tableTimeRanges == null) {
+      return;
+    }
+    tableTimeRanges.removeSegment(segmentName);
+    if (_propertyStore != null) {
+      _propertyStore.unsubscribeDataChanges(
+          ZKMetadataProvider.constructPropertyStorePathForSegment(offlineTableName, segmentName), this);
+    }
+  }
+
+  private static String getLastPathPart(@Nonnull String path) {
+    return path.substring(path.lastIndexOf('/') + 1);
+  }
+
+  /**
+   * Returns the names of the segments whose time range does not overlap with the time filter of the query, or an empty
+   * set if no segment can be pruned.
+   *
+   * @param offlineTableName OFFLINE table name.
+   * @param brokerRequest broker request.
+   * @return set of segment names that can be pruned.
+   */
+  @Nonnull
+  public Set<String> getSegmentsToPrune(@Nonnull String offlineTableName, @Nonnull BrokerRequest brokerRequest) {
+    TableTimeRanges tableTimeRanges = _tableTimeRangesMap.get(offlineTableName);
+    if (tableTimeRanges == null || tableTimeRanges._timeColumn == null || brokerRequest.getFilterQuery() == null) {
+      return new HashSet<>();
+    }
+    FilterQueryTree filterQueryTree = RequestUtils.generateFilterQueryTree(brokerRequest);
+    if (filterQueryTree == null) {
+      return new HashSet<>();
+    }
+
+    Set<String> segmentsToPrune = new HashSet<>();
+    long[] queryTimeRange = getTimeRange(filterQueryTree, tableTimeRanges._timeColumn);
+    long lower;
+    long upper;
+    if (queryTimeRange == null) {
+      // No time value can match the query.
+      lower = Long.MAX_VALUE;
+      upper = Long.MIN_VALUE;
+    } else {
+      lower = queryTimeRange[0];
+      upper = queryTimeRange[1];
+      if (lower == Long.MIN_VALUE && upper == Long.MAX_VALUE) {
+        return segmentsToPrune;
+      }
+    }
+    for (Map.Entry<String, SegmentTimeRange> entry : tableTimeRanges._segmentTimeRanges.entrySet()) {
+      String segmentName = entry.getKey();
+      SegmentTimeRange segmentTimeRange = entry.getValue();
+      // Skip the segments whose time range was not loaded from their current ZK metadata.
+      Long currentCrc = tableTimeRanges._segmentCrcs.get(segmentName);
+      if (currentCrc == null || currentCrc != segmentTimeRange._crc) {
+        continue;
+      }
+      if (queryTimeRange == null || segmentTimeRange._endTime < lower || segmentTimeRange._startTime > upper) {
+        segmentsToPrune.add(segmentName);
+      }
+    }
+    return segmentsToPrune;
+  }
+
+  /**
+   * Returns a copy of the routing table without the segments that can be pruned, and without the servers left with no
+   * segment. The routing table passed in is shared across queries and is not modified.
+   * <p>If all segments can be pruned, one server with one segment is kept so that the query still gets a response with
+   * the expected schema.
+   *
+   * @param offlineTableName OFFLINE table name.
+   * @param brokerRequest broker request.
+   * @param routingTable map from server to set of segments.
+   * @return pruned routing table, or the original one if nothing can be pruned.
+   */
+  @Nonnull
+  public Map<ServerInstance, SegmentIdSet> pruneRoutingTable(@Nonnull String offlineTableName,
+      @Nonnull BrokerRequest brokerRequest, @Nonnull Map<ServerInstance, SegmentIdSet> routingTable) {
+    Set<String> segmentsToPrune = getSegmentsToPrune(offlineTableName, brokerRequest);
+    if (segmentsToPrune.isEmpty()) {
+      return routingTable;
+    }
+
+    Map<ServerInstance, SegmentIdSet> prunedRoutingTable = new HashMap<>();
+    ServerInstance fallbackServer = null;
+    SegmentId fallbackSegment = null;
+    for (Map.Entry<ServerInstance, SegmentIdSet> entry : routingTable.entrySet()) {
+      SegmentIdSet prunedSegmentIdSet = null;
+      for (SegmentId segmentId : entry.getValue().getSegments()) {
+        if (segmentsToPrune.contains(segmentId.getSegmentId())) {
+          if (fallbackServer == null) {
+            fallbackServer = entry.getKey();
+            fallbackSegment = segmentId;
+          }
+        } else {
+          if (prunedSegmentIdSet == null) {
+            prunedSegmentIdSet = new SegmentIdSet();
+          }
+          prunedSegmentIdSet.addSegment(segmentId);
+        }
+      }
+      if (prunedSegmentIdSet != null) {
+        prunedRoutingTable.put(entry.getKey(), prunedSegmentIdSet);
+      }
+    }
+
+    if (prunedRoutingTable.isEmpty() && fallbackServer != null) {
+      SegmentIdSet segmentIdSet = new SegmentIdSet();
+      segmentIdSet.addSegment(fallbackSegment);
+      prunedRoutingTable.put(fallbackServer, segmentIdSet);
+    }
+    return prunedRoutingTable;
+  }
+
+  /**
+   * Helper method to compute the inclusive range of time values that can match the filter, as an array of lower and
+   * upper bound. Returns <code>null</code> if no time value can match the filter.
+   *
+   * <ul>
+   *   <li> For leaf node: The range of the EQUALITY, IN or RANGE predicate on the time column, unbounded otherwise. </li>
+   *   <li> For non-leaf AND node: The intersection of the ranges of its children. </li>
+   *   <li> For non-leaf OR node: The smallest range covering the ranges of its children. </li>
+   * </ul>
+   */
+  @Nullable
+  static long[] getTimeRange(@Nonnull FilterQueryTree filterQueryTree, @Nonnull String timeColumn) {
+    FilterOperator filterOperator = filterQueryTree.getOperator();
+    List<FilterQueryTree> children = filterQueryTree.getChildren();
+
+    if (children != null && !children.isEmpty()) {
+      // Parent node
+      switch (filterOperator) {
+        case AND: {
+          long lower = Long.MIN_VALUE;
+          long upper = Long.MAX_VALUE;
+          for (FilterQueryTree child : children) {
+            long[] childRange = getTimeRange(child, timeColumn);
+            if (childRange == null) {
+              return null;
+            }
+            lower = Math.max(lower, childRange[0]);
+            upper = Math.min(upper, childRange[1]);
+          }
+          return (lower <= upper) ? new long[]{lower, upper} : null;
+        }
+        case OR: {
+          long[] range = null;
+          for (FilterQueryTree child : children) {
+            long[] childRange = getTimeRange(child, timeColumn);
+            if (childRange == null) {
+              continue;
+            }
+            if (range == null) {
+              range = childRange;
+            } else {
+              range = new long[]{Math.min(range[0], childRange[0]), Math.max(range[1], childRange[1])};
+            }
+          }
+          return range;
+        }
+        default:
+          return unboundedRange();
+      }
+    }
+
+    // Leaf node
+    if (!timeColumn.equals(filterQueryTree.getColumn())) {
+      return unboundedRange();
+    }
+    try {
+      switch (filterOperator) {
+        case EQUALITY:
+        case IN: {
+          long lower = Long.MAX_VALUE;
+          long upper = Long.MIN_VALUE;
+          for (String values : filterQueryTree.getValue()) {
+            for (String value : values.split(RANGE_DELIMITER)) {
+              long timeValue = Long.parseLong(value.trim());
+              lower = Math.min(lower, timeValue);
+              upper = Math.max(upper, timeValue);
+            }
+          }
+          return (lower <= upper) ? new long[]{lower, upper} : unboundedRange();
+        }
+        case RANGE: {
+          String rangeString = filterQueryTree.getValue().get(0).trim();
+          String[] boundaries = rangeString.split(RANGE_DELIMITER);
+          String lowerBoundary = boundaries[0].substring(1).trim();
+          String upperBoundary = boundaries[1].substring(0, boundaries[1].length() - 1).trim();
+          long lower = Long.MIN_VALUE;
+          long upper = Long.MAX_VALUE;
+          if (!lowerBoundary.equals(UNBOUNDED)) {
+            lower = parseLowerBoundary(lowerBoundary, rangeString.startsWith(LOWER_EXCLUSIVE));
+          }
+          if (!upperBoundary.equals(UNBOUNDED)) {
+            upper = parseUpperBoundary(upperBoundary, rangeString.endsWith(UPPER_EXCLUSIVE));
+          }
+          return (lower <= upper) ? new long[]{lower, upper} : null;
+        }
+        default:
+          return unboundedRange();
+      }
+    } catch (Exception e) {
+      // Time values that cannot be parsed as long are not used for pruning.
+      return unboundedRange();
+    }
+  }
+
+  /**
+   * Helper methods to parse the range boundaries into inclusive long bounds. Decimal boundaries are widened to the
+   * enclosing long values, which never prunes a segment that might match.
+   */
+  private static long parseLowerBoundary(@Nonnull String boundary, boolean exclusive) {
+    try {
+      long value = Long.parseLong(boundary);
+      return (exclusive && value != Long.MAX_VALUE) ? value + 1 : value;
+    } catch (NumberFormatException e) {
+      return (long) Math.floor(Double.parseDouble(boundary));
+    }
+  }
+
+  private static long parseUpperBoundary(@Nonnull String boundary, boolean exclusive) {
+    try {
+      long value = Long.parseLong(boundary);
+      return (exclusive && value != Long.MIN_VALUE) ? value - 1 : value;
+    } catch (NumberFormatException e) {
+      return (long) Math.ceil(Double.parseDouble(boundary));
+    }
+  }
+
+  private static long[] unboundedRange() {
+    return new long[]{Long.MIN_VALUE, Long.MAX_VALUE};
+  }
+
+  private static class TableTimeRanges {
+    // Time column and time unit are null if the table has no usable time column.
+    final String _timeColumn;
+    final TimeUnit _timeUnit;
+    // Current CRC of each segment in the segment ZK metadata, UNKNOWN_CRC while it is being reloaded.
+    final Map<String, Long> _segmentCrcs = new ConcurrentHashMap<>();
+    // Time range in table time unit of the segments with a valid time range.
+    final Map<String, SegmentTimeRange> _segmentTimeRanges = new ConcurrentHashMap<>();
+
+    TableTimeRanges(String timeColumn, TimeUnit timeUnit) {
+      _timeColumn = timeColumn;
+      _timeUnit = timeUnit;
+    }
+
+    /**
+     * Bulk loaded segment ZK metadata is older than the one already reloaded by the listeners, so it does not
+     * overwrite it.
+     */
+    synchronized void addSegmentIfAbsent(String segmentName, OfflineSegmentZKMetadata segmentZKMetadata) {
+      if (!_segmentCrcs.containsKey(segmentName)) {
+        updateSegment(segmentName, segmentZKMetadata);
+      }
+    }
+
+    /**
+     * Returns the previous CRC of the segment, or <code>null</code> if the segment was not indexed.
+     */
+    synchronized Long markReloading(String segmentName) {
+      return _segmentCrcs.put(segmentName, UNKNOWN_CRC);
+    }
+
+    synchronized void updateSegment(String segmentName, OfflineSegmentZKMetadata segmentZKMetadata) {
+      long crc = segmentZKMetadata.getCrc();
+      long startTime = segmentZKMetadata.getStartTime();
+      long endTime = segmentZKMetadata.getEndTime();
+      if (_timeColumn == null || startTime < 0 || endTime < startTime) {
+        _segmentTimeRanges.remove(segmentName);
+      } else {
+        // Convert all segment times to table's time unit.
+        TimeUnit segmentTimeUnit = segmentZKMetadata.getTimeUnit();
+        if (segmentTimeUnit != null) {
+          startTime = _timeUnit.convert(startTime, segmentTimeUnit);
+          endTime = _timeUnit.convert(endTime, segmentTimeUnit);
+        }
+        _segmentTimeRanges.put(segmentName, new SegmentTimeRange(startTime, endTime, crc));
+      }
+      // Update the CRC last so that the segment cannot be pruned based on a previous time range.
+      _segmentCrcs.put(segmentName, crc);
+    }
+
+    synchronized void removeSegment(String segmentName) {
+      _segmentTimeRanges.remove(segmentName);
+      _segmentCrcs.remove(segmentName);
+    }
+  }
+
+  private static class SegmentTimeRange {
+    final long _startTime;
+    final long _endTime;
+    // CRC of the segment ZK metadata the time range was loaded from.
+    final long _crc;
+
+    SegmentTimeRange(long startTime, long endTime, long crc) {
+      _startTime = startTime;
+      _endTime = endTime;
+      _crc = crc;
+    }
+  }
+}
@@ -23,6 +23,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import org.slf4j.Logger;
@@ -68,6 +69,13 @@ public class CompositeFuture<V> extends AbstractCompositeListenableFuture<V> {
 
   private final GatherModeOnError _gatherMode;
 
+  // Servers in the order their futures completed (successfully or not), for consumers processing the responses as
+  // they arrive. A null server marks that no more future will complete.
+  private final LinkedBlockingQueue<Completion> _completionQueue = new LinkedBlockingQueue<>();
+  private static final Completion NO_MORE_COMPLETION = new Completion(null);
+  // Only accessed by the consumer thread
+  private int _numCompletionsTaken = 0;
+
   // Descriptive name of the future
   private final String _name;
 
@@ -115,6 +123,36 @@ public class CompositeFuture<V> extends AbstractCompositeListenableFuture<V> {
     for (ServerResponseFuture<V> entry : _futures) {
       entry.cancel(true);
     }
+    // Futures completing after cancellation or short circuit are not processed any more.
+    _completionQueue.offer(NO_MORE_COMPLETION);
+  }
+
+  /**
+   * Waits for the next underlying future to complete and returns its server, or returns <code>null</code> once no more
+   * underlying future will complete (all of them completed, or the composite future got cancelled or short circuited
+   * on error). Allows a single consumer to process the responses as they arrive instead of waiting for all of them
+   * with {@link #get()}. The response (or error) of the returned server can be fetched with
+   * {@link #getResponse(ServerInstance)} (or {@link #getError()}).
+   */
+  public ServerInstance takeNextCompleted() throws InterruptedException {
+    if (_numCompletionsTaken == _futures.size()) {
+      return null;
+    }
+    ServerInstance server = _completionQueue.take()._server;
+    if (server == null) {
+      _numCompletionsTaken = _futures.size();
+      _completionQueue.offer(NO_MORE_COMPLETION);
+      return null;
+    }
+    _numCompletionsTaken++;
+    return server;
+  }
+
+  /**
+   * Returns the response of the given server, or <code>null</code> if the server did not respond (yet).
+   */
+  public V getResponse(ServerInstance server) {
+    return _delayedResponseMap.get(server);
   }
 
   @Override
@@ -205,6 +243,7 @@ public class CompositeFuture<V> extends AbstractCompositeListenableFuture<V> {
     }
     // TODO May be limit the number of entries here to 10? We don't want to create too much garbage on the broker.
     _responseTimeMap.put(server, durationMillis);
+    _completionQueue.offer(new Completion(server));
     return ret;
   }
 
@@ -216,4 +255,12 @@ public class CompositeFuture<V> extends AbstractCompositeListenableFuture<V> {
   public int getNumFutures() {
     return _futures.size();
   }
+
+  private static final class Completion {
+    private final ServerInstance _server;
+
+    Completion(ServerInstance server) {
+      _server = server;
+    }
+  }
 }
@@ -0,0 +1,228 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.routing;
+
+import com.linkedin.pinot.common.metadata.segment.OfflineSegmentZKMetadata;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import com.linkedin.pinot.transport.common.SegmentId;
+import com.linkedin.pinot.transport.common.SegmentIdSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Unit tests for {@link SegmentTimeRangeIndex} class.
+ */
+public class SegmentTimeRangeIndexTest {
+  private static final String TABLE_NAME = "testTable_OFFLINE";
+  private static final String TIME_COLUMN = "daysSinceEpoch";
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+
+  private final SegmentTimeRangeIndex _segmentTimeRangeIndex = new SegmentTimeRangeIndex(null);
+  private final ServerInstance _server1 = new ServerInstance("server1", 8000);
+  private final ServerInstance _server2 = new ServerInstance("server2", 8000);
+
+  @BeforeClass
+  public void setUp() {
+    // Segment i covers days [10 * i, 10 * i + 9], segment 3 is in hours and segment 4 has no time range.
+    List<OfflineSegmentZKMetadata> segmentZKMetadataList = new ArrayList<>();
+    segmentZKMetadataList.add(getSegmentZKMetadata("segment0", 0, 9, TimeUnit.DAYS));
+    segmentZKMetadataList.add(getSegmentZKMetadata("segment1", 10, 19, TimeUnit.DAYS));
+    segmentZKMetadataList.add(getSegmentZKMetadata("segment2", 20, 29, TimeUnit.DAYS));
+    segmentZKMetadataList.add(getSegmentZKMetadata("segment3", 30 * 24, 39 * 24 + 23, TimeUnit.HOURS));
+    segmentZKMetadataList.add(getSegmentZKMetadata("segment4", -1, -1, null));
+    _segmentTimeRangeIndex.update(TABLE_NAME, TIME_COLUMN, TimeUnit.DAYS, segmentZKMetadataList);
+  }
+
+  private static OfflineSegmentZKMetadata getSegmentZKMetadata(String segmentName, long startTime, long endTime,
+      TimeUnit timeUnit) {
+    OfflineSegmentZKMetadata segmentZKMetadata = new OfflineSegmentZKMetadata();
+    segmentZKMetadata.setSegmentName(segmentName);
+    segmentZKMetadata.setTableName(TABLE_NAME);
+    segmentZKMetadata.setStartTime(startTime);
+    segmentZKMetadata.setEndTime(endTime);
+    segmentZKMetadata.setTimeUnit(timeUnit);
+    return segmentZKMetadata;
+  }
+
+  @Test
+  public void testGetSegmentsToPrune() {
+    // No filter on time column
+    assertSegmentsToPrune("SELECT COUNT(*) FROM testTable");
+    assertSegmentsToPrune("SELECT COUNT(*) FROM testTable WHERE column = 5");
+    assertSegmentsToPrune("SELECT COUNT(*) FROM testTable WHERE daysSinceEpoch <> 5");
+
+    // EQUALITY and IN
+    assertSegmentsToPrune("SELECT COUNT(*) FROM testTable WHERE daysSinceEpoch = 15", "segment0", "segment2",
+        "segment3");
+    assertSegmentsToPrune("SELECT COUNT(*) FROM testTable WHERE daysSinceEpoch IN (5, 25)", "segment3");
+
+    // RANGE
+    assertSegmentsToPrune("SELECT COUNT(*) FROM testTable WHERE daysSinceEpoch >= 20", "segment0", "segment1");
+    assertSegmentsToPrune("SELECT COUNT(*) FROM testTable WHERE daysSinceEpoch > 29", "segment0", "segment1",
+        "segment2");
+    assertSegmentsToPrune("SELECT COUNT(*) FROM testTable WHERE daysSinceEpoch < 10", "segment1", "segment2",
+        "segment3");
+    assertSegmentsToPrune("SELECT COUNT(*) FROM testTable WHERE daysSinceEpoch BETWEEN 12 AND 22", "segment0",
+        "segment3");
+    assertSegmentsToPrune("SELECT COUNT(*) FROM testTable WHERE daysSinceEpoch > 100", "segment0", "segment1",
+        "segment2", "segment3");
+
+    // AND and OR
+    assertSegmentsToPrune("SELECT COUNT(*) FROM testTable WHERE daysSinceEpoch > 5 AND daysSinceEpoch < 15",
+        "segment2", "segment3");
+    assertSegmentsToPrune("SELECT COUNT(*) FROM testTable WHERE daysSinceEpoch > 15 AND daysSinceEpoch < 5",
+        "segment0", "segment1", "segment2", "segment3");
+    assertSegmentsToPrune("SELECT COUNT(*) FROM testTable WHERE daysSinceEpoch = 5 AND column = 5", "segment1",
+        "segment2", "segment3");
+    assertSegmentsToPrune("SELECT COUNT(*) FROM testTable WHERE daysSinceEpoch = 5 OR daysSinceEpoch = 15",
+        "segment2", "segment3");
+    assertSegmentsToPrune("SELECT COUNT(*) FROM testTable WHERE daysSinceEpoch = 5 OR column = 5");
+
+    // Unknown table
+    Assert.assertTrue(_segmentTimeRangeIndex.getSegmentsToPrune("unknownTable_OFFLINE",
+        COMPILER.compileToBrokerRequest("SELECT COUNT(*) FROM unknownTable WHERE daysSinceEpoch = 5")).isEmpty());
+  }
+
+  private void assertSegmentsToPrune(String query, String... expectedSegments) {
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(query);
+    Assert.assertEquals(_segmentTimeRangeIndex.getSegmentsToPrune(TABLE_NAME, brokerRequest),
+        new HashSet<>(Arrays.asList(expectedSegments)), query);
+  }
+
+  @Test
+  public void testPruneRoutingTable() {
+    Map<ServerInstance, SegmentIdSet> routingTable = new HashMap<>();
+    routingTable.put(_server1, getSegmentIdSet("segment0", "segment1"));
+    routingTable.put(_server2, getSegmentIdSet("segment2", "segment3", "segment4"));
+
+    // Nothing to prune, the routing table is returned as is
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest("SELECT COUNT(*) FROM testTable");
+    Assert.assertSame(_segmentTimeRangeIndex.pruneRoutingTable(TABLE_NAME, brokerRequest, routingTable),
+        routingTable);
+
+    // Server without remaining segment is dropped
+    brokerRequest = COMPILER.compileToBrokerRequest("SELECT COUNT(*) FROM testTable WHERE daysSinceEpoch >= 20");
+    Map<ServerInstance, SegmentIdSet> prunedRoutingTable =
+        _segmentTimeRangeIndex.pruneRoutingTable(TABLE_NAME, brokerRequest, routingTable);
+    Assert.assertEquals(prunedRoutingTable.keySet(), Collections.singleton(_server2));
+    Assert.assertEquals(prunedRoutingTable.get(_server2), getSegmentIdSet("segment2", "segment3", "segment4"));
+
+    // Segment without time range is kept
+    brokerRequest = COMPILER.compileToBrokerRequest("SELECT COUNT(*) FROM testTable WHERE daysSinceEpoch = 5");
+    prunedRoutingTable = _segmentTimeRangeIndex.pruneRoutingTable(TABLE_NAME, brokerRequest, routingTable);
+    Assert.assertEquals(prunedRoutingTable.size(), 2);
+    Assert.assertEquals(prunedRoutingTable.get(_server1), getSegmentIdSet("segment0"));
+    Assert.assertEquals(prunedRoutingTable.get(_server2), getSegmentIdSet("segment4"));
+
+    // The original routing table is not modified
+    Assert.assertEquals(routingTable.get(_server1), getSegmentIdSet("segment0", "segment1"));
+    Assert.assertEquals(routingTable.get(_server2), getSegmentIdSet("segment2", "segment3", "segment4"));
+
+    // All segments pruned, one segment is kept to get a response
+    routingTable.remove(_server2);
+    brokerRequest = COMPILER.compileToBrokerRequest("SELECT COUNT(*) FROM testTable WHERE daysSinceEpoch > 100");
+    prunedRoutingTable = _segmentTimeRangeIndex.pruneRoutingTable(TABLE_NAME, brokerRequest, routingTable);
+    Assert.assertEquals(prunedRoutingTable.size(), 1);
+    Assert.assertEquals(prunedRoutingTable.get(_server1).getSegments().size(), 1);
+  }
+
+  @Test
+  public void testSegmentRefresh() {
+    SegmentTimeRangeIndex segmentTimeRangeIndex = new SegmentTimeRangeIndex(null);
+    OfflineSegmentZKMetadata segment0 = getSegmentZKMetadata("segment0", 0, 9, TimeUnit.DAYS);
+    segment0.setCrc(1L);
+    OfflineSegmentZKMetadata segment1 = getSegmentZKMetadata("segment1", 50, 59, TimeUnit.DAYS);
+    segment1.setCrc(1L);
+    segmentTimeRangeIndex.update(TABLE_NAME, TIME_COLUMN, TimeUnit.DAYS, Arrays.asList(segment0, segment1));
+
+    Map<ServerInstance, SegmentIdSet> routingTable = new HashMap<>();
+    routingTable.put(_server1, getSegmentIdSet("segment0"));
+    routingTable.put(_server2, getSegmentIdSet("segment1"));
+    BrokerRequest brokerRequest =
+        COMPILER.compileToBrokerRequest("SELECT COUNT(*) FROM testTable WHERE daysSinceEpoch BETWEEN 50 AND 59");
+    Assert.assertEquals(segmentTimeRangeIndex.pruneRoutingTable(TABLE_NAME, brokerRequest, routingTable).keySet(),
+        Collections.singleton(_server2));
+
+    // Refresh segment 0 with a new time range, notified by the property store listener
+    segment0 = getSegmentZKMetadata("segment0", 50, 55, TimeUnit.DAYS);
+    segment0.setCrc(2L);
+    segmentTimeRangeIndex.handleDataChange("/SEGMENTS/" + TABLE_NAME + "/segment0", segment0.toZNRecord());
+    Map<ServerInstance, SegmentIdSet> prunedRoutingTable =
+        segmentTimeRangeIndex.pruneRoutingTable(TABLE_NAME, brokerRequest, routingTable);
+    Assert.assertEquals(prunedRoutingTable.get(_server1), getSegmentIdSet("segment0"));
+    Assert.assertEquals(prunedRoutingTable.get(_server2), getSegmentIdSet("segment1"));
+
+    // Segment deleted from the property store
+    segmentTimeRangeIndex.handleChildChange("/SEGMENTS/" + TABLE_NAME, Collections.singletonList("segment1"));
+    brokerRequest = COMPILER.compileToBrokerRequest("SELECT COUNT(*) FROM testTable WHERE daysSinceEpoch > 100");
+    Assert.assertEquals(segmentTimeRangeIndex.getSegmentsToPrune(TABLE_NAME, brokerRequest),
+        Collections.singleton("segment1"));
+  }
+
+  @Test
+  public void testSegmentRefreshListener() {
+    final List<String> refreshedSegments = new ArrayList<>();
+    SegmentTimeRangeIndex segmentTimeRangeIndex =
+        new SegmentTimeRangeIndex(null, new SegmentTimeRangeIndex.SegmentRefreshListener() {
+          @Override
+          public void onSegmentRefreshed(@Nonnull String offlineTableName, @Nonnull String segmentName) {
+            refreshedSegments.add(offlineTableName + "/" + segmentName);
+          }
+        });
+    OfflineSegmentZKMetadata segment0 = getSegmentZKMetadata("segment0", 0, 9, TimeUnit.DAYS);
+    segment0.setCrc(1L);
+    segmentTimeRangeIndex.update(TABLE_NAME, TIME_COLUMN, TimeUnit.DAYS, Collections.singletonList(segment0));
+
+    // Same CRC, e.g. other segment ZK metadata fields updated
+    segmentTimeRangeIndex.handleDataChange("/SEGMENTS/" + TABLE_NAME + "/segment0", segment0.toZNRecord());
+    Assert.assertTrue(refreshedSegments.isEmpty());
+
+    // New segment added, the external view change takes care of it
+    OfflineSegmentZKMetadata segment1 = getSegmentZKMetadata("segment1", 10, 19, TimeUnit.DAYS);
+    segment1.setCrc(1L);
+    segmentTimeRangeIndex.handleDataChange("/SEGMENTS/" + TABLE_NAME + "/segment1", segment1.toZNRecord());
+    Assert.assertTrue(refreshedSegments.isEmpty());
+
+    // Segment refreshed with a new CRC
+    segment0.setCrc(2L);
+    segmentTimeRangeIndex.handleDataChange("/SEGMENTS/" + TABLE_NAME + "/segment0", segment0.toZNRecord());
+    Assert.assertEquals(refreshedSegments, Collections.singletonList(TABLE_NAME + "/segment0"));
+  }
+
+  private static SegmentIdSet getSegmentIdSet(String... segmentNames) {
+    Set<SegmentId> segmentIds = new HashSet<>();
+    for (String segmentName : segmentNames) {
+      segmentIds.add(new SegmentId(segmentName));
+    }
+    SegmentIdSet segmentIdSet = new SegmentIdSet();
+    segmentIdSet.addSegments(segmentIds);
+    return segmentIdSet;
+  }
+}
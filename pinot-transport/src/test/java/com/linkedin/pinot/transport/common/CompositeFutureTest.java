@@ -327,6 +327,44 @@ public class CompositeFutureTest {
     executor.shutdown();
   }
 
+  @Test
+  public void testTakeNextCompleted() throws Exception {
+    int numFutures = 3;
+    List<AsyncResponseFuture<String>> futures = new ArrayList<>();
+    for (int i = 0; i < numFutures; i++) {
+      futures.add(new AsyncResponseFuture<String>(new ServerInstance("localhost:" + i), ""));
+    }
+    CompositeFuture<String> compositeFuture = new CompositeFuture<>("test", GatherModeOnError.AND);
+    compositeFuture.start(new ArrayList<ServerResponseFuture<String>>(futures));
+
+    // Servers are returned in the order their futures complete, including the failed ones.
+    futures.get(2).onSuccess("message_2");
+    futures.get(0).onError(new Exception("error_0"));
+    ServerInstance server = compositeFuture.takeNextCompleted();
+    Assert.assertEquals(server, new ServerInstance("localhost:2"));
+    Assert.assertEquals(compositeFuture.getResponse(server), "message_2");
+    server = compositeFuture.takeNextCompleted();
+    Assert.assertEquals(server, new ServerInstance("localhost:0"));
+    Assert.assertNull(compositeFuture.getResponse(server));
+    Assert.assertTrue(compositeFuture.getError().containsKey(server));
+    futures.get(1).onSuccess("message_1");
+    Assert.assertEquals(compositeFuture.takeNextCompleted(), new ServerInstance("localhost:1"));
+    Assert.assertNull(compositeFuture.takeNextCompleted());
+    Assert.assertEquals(compositeFuture.get().size(), 2);
+
+    // Short circuit on error stops the completions.
+    futures.clear();
+    for (int i = 0; i < numFutures; i++) {
+      futures.add(new AsyncResponseFuture<String>(new ServerInstance("localhost:" + i), ""));
+    }
+    compositeFuture = new CompositeFuture<>("test", GatherModeOnError.SHORTCIRCUIT_AND);
+    compositeFuture.start(new ArrayList<ServerResponseFuture<String>>(futures));
+    futures.get(1).onError(new Exception("error_1"));
+    Assert.assertEquals(compositeFuture.takeNextCompleted(), new ServerInstance("localhost:1"));
+    Assert.assertNull(compositeFuture.takeNextCompleted());
+    Assert.assertNull(compositeFuture.takeNextCompleted());
+  }
+
   @Test
   /**
    * Tests Composite future with one underlying future.